@@ -50,7 +50,9 @@ import org.mvel2.optimizers.OptimizerFactory;
 
 import simplealgebra.algo.NewtonRaphsonSingleElem;
 import simplealgebra.algo.NewtonRaphsonSingleElemFunctional;
+import simplealgebra.symbolic.DroolsKieBaseCache;
 import simplealgebra.symbolic.DroolsSession;
+import simplealgebra.symbolic.DroolsSessionPool;
 import simplealgebra.symbolic.LoggingConfiguration;
 import simplealgebra.symbolic.MultiplicativeDistributionRequiredException;
 import simplealgebra.symbolic.PrecedenceComparator;
@@ -1190,13 +1192,14 @@ public abstract class Elem<T extends Elem<T,?>, R extends ElemFactory<T,R>> {
 	protected T handleDistributeSimplify()
 	{
 		T prev = (T)( this );
+		final KieBase kieBase = getDistributeSimplifyKieBase();
 		KieSession session = null;
 		SymbolicPlaceholder<T,R> place = null;
 		while( true )
 		{
 			try
 			{
-				session = getDistributeSimplifyKieContainer().newKieSession();
+				session = DroolsSessionPool.acquire( kieBase );
 		
 				insertSessionConfigItems( session );
 			
@@ -1208,7 +1211,7 @@ public abstract class Elem<T extends Elem<T,?>, R extends ElemFactory<T,R>> {
 		
 				T ret = place.getElem();
 		
-				session.dispose();
+				DroolsSessionPool.release( kieBase , session );
 			
 				return( ret );
 			}
@@ -1259,13 +1262,14 @@ public abstract class Elem<T extends Elem<T,?>, R extends ElemFactory<T,R>> {
 	protected T handleDistributeSimplify2()
 	{
 		T prev = (T)( this );
+		final KieBase kieBase = getDistributeSimplify2KieBase();
 		KieSession session = null;
 		SymbolicPlaceholder<T,R> place = null;
 		while( true )
 		{
 			try
 			{
-				session = getDistributeSimplify2KieContainer().newKieSession();
+				session = DroolsSessionPool.acquire( kieBase );
 		
 				insertSessionConfigItems( session );
 			
@@ -1277,7 +1281,7 @@ public abstract class Elem<T extends Elem<T,?>, R extends ElemFactory<T,R>> {
 		
 				T ret = place.getElem();
 		
-				session.dispose();
+				DroolsSessionPool.release( kieBase , session );
 			
 				return( ret );
 			}
@@ -1322,6 +1326,113 @@ public abstract class Elem<T extends Elem<T,?>, R extends ElemFactory<T,R>> {
 	
 	
 	
+	/**
+	 * Simplifies a list of elems in a single pass of a Drools ( <A href="http://drools.org">http://drools.org</A> ) session,
+	 * rather than creating and firing a session for each elem.  Each elem is wrapped in its own placeholder, so the results
+	 * are mapped back to the input elems in order.
+	 * 
+	 * @param in The elems to be simplified.
+	 * @param mode The simplification to be performed, either SIMPLIFY for distributeSimplify() or SIMPLIFY2 for distributeSimplify2().
+	 * @return The simplified elems, in the same order as the input elems.
+	 */
+	public static <T extends Elem<T,R>, R extends ElemFactory<T,R>> ArrayList<T> distributeSimplifyBatch( final ArrayList<T> in , final EVAL_MODE mode )
+	{
+		if( mode == EVAL_MODE.APPROX )
+		{
+			throw( new RuntimeException( "Not Supported" ) );
+		}
+		
+		if( in.isEmpty() )
+		{
+			return( new ArrayList<T>() );
+		}
+		
+		ArrayList<T> prev = in;
+		final KieBase kieBase = mode == EVAL_MODE.SIMPLIFY ?
+				getDistributeSimplifyKieBase() : getDistributeSimplify2KieBase();
+		KieSession session = null;
+		ArrayList<SymbolicPlaceholder<T,R>> place = null;
+		while( true )
+		{
+			try
+			{
+				session = DroolsSessionPool.acquire( kieBase );
+		
+				prev.get( 0 ).insertSessionConfigItems( session );
+				
+				place = new ArrayList<SymbolicPlaceholder<T,R>>();
+				
+				for( final T ii : prev )
+				{
+					place.add( new SymbolicPlaceholder<T,R>( ii ) );
+				}
+			
+				for( final SymbolicPlaceholder<T,R> ii : place )
+				{
+					ii.performInserts( session );
+				}
+					
+				session.fireAllRules();
+				
+				final ArrayList<T> ret = new ArrayList<T>();
+				
+				for( final SymbolicPlaceholder<T,R> ii : place )
+				{
+					ret.add( ii.getElem() );
+				}
+		
+				DroolsSessionPool.release( kieBase , session );
+			
+				return( ret );
+			}
+			catch( OutOfMemoryError ex )
+			{
+				boolean changed = false;
+				ArrayList<T> ret = null;
+				if( place != null )
+				{
+					ret = new ArrayList<T>();
+					int cnt = 0;
+					for( final SymbolicPlaceholder<T,R> ii : place )
+					{
+						final T el = ii.getElem();
+						changed = changed || ( el != prev.get( cnt ) );
+						ret.add( el );
+						cnt++;
+					}
+					for( ; cnt < prev.size() ; cnt++ )
+					{
+						ret.add( prev.get( cnt ) );
+					}
+				}
+				
+				/*
+				 * Always try to dispose the session after running out of memory.
+				 */
+				DroolsSessionPool.discard( session );
+				
+				/*
+				 * If no simplifications were completed, exit with exception.
+				 */
+				if( ( ret == null ) || !changed )
+				{
+					throw( ex );
+				}
+				
+				/*
+				 * If some simplifications completed before the memory limits ran out,
+				 * re-run the session and see if it's possible to get farther on the next run.
+				 */
+				prev = ret;
+				session = null;
+				place = null;
+			}
+		}
+	}
+	
+	
+	
+	
 	/**
 	 * Inserts this elem into a Drools ( <A href="http://drools.org">http://drools.org</A> ) session.
 	 * 
@@ -1373,43 +1484,22 @@ public abstract class Elem<T extends Elem<T,?>, R extends ElemFactory<T,R>> {
 	 */
 	public static KieContainer getDistributeSimplifyKieContainer()
 	{
-		if( distributeSimplifyKieContainer == null )
+		KieContainer ret = distributeSimplifyKieContainer;
+		if( ret == null )
 		{
-			OptimizerFactory.setDefaultOptimizer( OptimizerFactory.SAFE_REFLECTIVE );
-			
-			KieServices kieServices = KieServices.Factory.get();
-		    KieFileSystem kfs = kieServices.newKieFileSystem();
-		    
-		    // Load in the reng support as a separate cross-cutting concern.
-		    kfs.write( "src/main/resources/reng.drl",
-		    		ResourceFactory.newClassPathResource( "reng.drl" )  );
-
-		    kfs.write( "src/main/resources/distributeSimplify.drl",
-		    		ResourceFactory.newClassPathResource( "distributeSimplify.drl" )  );
-		   
-			if( LoggingConfiguration.LOGGING_ON )
+			synchronized( kieLock )
 			{
-				kfs.write( "src/main/resources/logging.drl",
-			    		ResourceFactory.newClassPathResource( "logging.drl" )  );
-			   
+				ret = distributeSimplifyKieContainer;
+				if( ret == null )
+				{
+					OptimizerFactory.setDefaultOptimizer( OptimizerFactory.SAFE_REFLECTIVE );
+					ret = DroolsKieBaseCache.buildKieContainer( "distributeSimplify.drl" );
+					distributeSimplifyKieContainer = ret;
+				}
 			}
-	    
-		    
-		    KieBuilder kieBuilder = kieServices.newKieBuilder( kfs ).buildAll();
-		    Results results = kieBuilder.getResults();
-		    if( results.hasMessages( Message.Level.ERROR ) )
-		    {
-		        throw new RuntimeException( results.getMessages().toString() );
-		    }
-		    
-		    KieContainer kieContainer =
-		        kieServices.newKieContainer( kieServices.getRepository().getDefaultReleaseId() );
-		    KieBase kieBase = kieContainer.getKieBase();
-		    // KieSession kieSession = kieContainer.newKieSession();
-			distributeSimplifyKieContainer = kieContainer;
 		}
 		
-		return( distributeSimplifyKieContainer );
+		return( ret );
 	}
 	
 	
@@ -1421,54 +1511,115 @@ public abstract class Elem<T extends Elem<T,?>, R extends ElemFactory<T,R>> {
 	 */
 	public static KieContainer getDistributeSimplify2KieContainer()
 	{
-		if( distributeSimplify2KieContainer == null )
+		KieContainer ret = distributeSimplify2KieContainer;
+		if( ret == null )
 		{
-			OptimizerFactory.setDefaultOptimizer( OptimizerFactory.SAFE_REFLECTIVE );
-			
-			KieServices kieServices = KieServices.Factory.get();
-		    KieFileSystem kfs = kieServices.newKieFileSystem();
-		    
-		    // Load in the reng support as a separate cross-cutting concern.
-		    kfs.write( "src/main/resources/reng.drl",
-		    		ResourceFactory.newClassPathResource( "reng.drl" )  );
-
-		    kfs.write( "src/main/resources/distributeSimplify2.drl",
-		    		ResourceFactory.newClassPathResource( "distributeSimplify2.drl" )  );
-		   
-			if( LoggingConfiguration.LOGGING_ON )
+			synchronized( kieLock )
 			{
-				kfs.write( "src/main/resources/logging.drl",
-			    		ResourceFactory.newClassPathResource( "logging.drl" )  );
-			   
+				ret = distributeSimplify2KieContainer;
+				if( ret == null )
+				{
+					OptimizerFactory.setDefaultOptimizer( OptimizerFactory.SAFE_REFLECTIVE );
+					ret = DroolsKieBaseCache.buildKieContainer( "distributeSimplify2.drl" );
+					distributeSimplify2KieContainer = ret;
+				}
 			}
-			
-			KieBuilder kieBuilder = kieServices.newKieBuilder( kfs ).buildAll();
-		    Results results = kieBuilder.getResults();
-		    if( results.hasMessages( Message.Level.ERROR ) )
-		    {
-		        throw new RuntimeException( results.getMessages().toString() );
-		    }
-		    
-		    KieContainer kieContainer =
-		        kieServices.newKieContainer( kieServices.getRepository().getDefaultReleaseId() );
-		    KieBase kieBase = kieContainer.getKieBase();
-		    // KieSession kieSession = kieContainer.newKieSession();
-			distributeSimplify2KieContainer = kieContainer;
 		}
 		
-		return( distributeSimplify2KieContainer );
+		return( ret );
+	}
+	
+	
+	
+	/**
+	 * Returns Drools ( <A href="http://drools.org">http://drools.org</A> ) knowledge base for algebraic simplification.
+	 * The knowledge base is loaded from the on-disk cache when possible, and is otherwise compiled and stored in the cache.
+	 * 
+	 * @return Drools ( <A href="http://drools.org">http://drools.org</A> ) knowledge base for algebraic simplification.
+	 */
+	public static KieBase getDistributeSimplifyKieBase()
+	{
+		KieBase ret = distributeSimplifyKieBase;
+		if( ret == null )
+		{
+			synchronized( kieLock )
+			{
+				ret = distributeSimplifyKieBase;
+				if( ret == null )
+				{
+					OptimizerFactory.setDefaultOptimizer( OptimizerFactory.SAFE_REFLECTIVE );
+					ret = DroolsKieBaseCache.loadKieBase( "distributeSimplify.drl" );
+					if( ret == null )
+					{
+						ret = getDistributeSimplifyKieContainer().getKieBase();
+						DroolsKieBaseCache.saveKieBase( "distributeSimplify.drl" , ret );
+					}
+					distributeSimplifyKieBase = ret;
+				}
+			}
+		}
+		
+		return( ret );
+	}
+	
+	
+	
+	/**
+	 * Returns Drools ( <A href="http://drools.org">http://drools.org</A> ) knowledge base for the simpler algebraic simplification.
+	 * The knowledge base is loaded from the on-disk cache when possible, and is otherwise compiled and stored in the cache.
+	 * 
+	 * @return Drools ( <A href="http://drools.org">http://drools.org</A> ) knowledge base for the simpler algebraic simplification.
+	 */
+	public static KieBase getDistributeSimplify2KieBase()
+	{
+		KieBase ret = distributeSimplify2KieBase;
+		if( ret == null )
+		{
+			synchronized( kieLock )
+			{
+				ret = distributeSimplify2KieBase;
+				if( ret == null )
+				{
+					OptimizerFactory.setDefaultOptimizer( OptimizerFactory.SAFE_REFLECTIVE );
+					ret = DroolsKieBaseCache.loadKieBase( "distributeSimplify2.drl" );
+					if( ret == null )
+					{
+						ret = getDistributeSimplify2KieContainer().getKieBase();
+						DroolsKieBaseCache.saveKieBase( "distributeSimplify2.drl" , ret );
+					}
+					distributeSimplify2KieBase = ret;
+				}
+			}
+		}
+		
+		return( ret );
 	}
 
 	
+	/**
+	 * Lock for the lazy initialization of the Drools ( <A href="http://drools.org">http://drools.org</A> ) containers and knowledge bases.
+	 */
+	private static final Object kieLock = new Object();
+	
 	/**
 	 * Drools ( <A href="http://drools.org">http://drools.org</A> ) container for algebraic simplification.
 	 */
-	private static KieContainer distributeSimplifyKieContainer = null;
+	private static volatile KieContainer distributeSimplifyKieContainer = null;
 	
 	/**
 	 * Drools ( <A href="http://drools.org">http://drools.org</A> ) container base for algebraic simplification.
 	 */
-	private static KieContainer distributeSimplify2KieContainer = null;
+	private static volatile KieContainer distributeSimplify2KieContainer = null;
+	
+	/**
+	 * Drools ( <A href="http://drools.org">http://drools.org</A> ) knowledge base for algebraic simplification.
+	 */
+	private static volatile KieBase distributeSimplifyKieBase = null;
+	
+	/**
+	 * Drools ( <A href="http://drools.org">http://drools.org</A> ) knowledge base for the simpler algebraic simplification.
+	 */
+	private static volatile KieBase distributeSimplify2KieBase = null;
 	
 	
 }
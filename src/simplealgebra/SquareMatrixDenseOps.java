@@ -0,0 +1,590 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package simplealgebra;
+
+
+import java.math.BigInteger;
+
+import simplealgebra.SquareMatrixElem.NoPivotException;
+
+
+/**
+ * Kernels for dense square matrices stored in flat row-major arrays, where the element at
+ * row <i>i</i> and column <i>j</i> of an <i>n</i> by <i>n</i> matrix is at index <i>i * n + j</i>.
+ * Used by {@link SquareMatrixElem} in the {@link SquareMatrixElem.SquareMatrixStorage#DENSE} storage mode.
+ * Kernels for arrays of elems treat a null element as an element that is not present in the sparse matrix,
+ * so that they perform the same operations as the sparse implementation.
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ *
+ */
+public final class SquareMatrixDenseOps {
+
+
+	/**
+	 * The number of rows and columns in each block of a blocked multiplication.
+	 */
+	public static final int BLOCK_SIZE = 32;
+	
+	
+	/**
+	 * The maximum number of rows and columns in a dense matrix.
+	 */
+	public static final int MAX_DIM = 4096;
+
+
+	/**
+	 * Private constructor for static utility class.
+	 */
+	private SquareMatrixDenseOps()
+	{
+	}
+
+
+	/**
+	 * Multiplies two dense matrices using a cache-blocked loop.
+	 * 
+	 * @param a The left-side matrix.
+	 * @param b The right-side matrix.
+	 * @param c Zeroed array into which the product is placed.
+	 * @param n The number of rows and columns.
+	 */
+	public static void mult( final double[] a , final double[] b , final double[] c , final int n )
+	{
+		for( int ii = 0 ; ii < n ; ii += BLOCK_SIZE )
+		{
+			final int imax = Math.min( ii + BLOCK_SIZE , n );
+			for( int kk = 0 ; kk < n ; kk += BLOCK_SIZE )
+			{
+				final int kmax = Math.min( kk + BLOCK_SIZE , n );
+				for( int jj = 0 ; jj < n ; jj += BLOCK_SIZE )
+				{
+					final int jmax = Math.min( jj + BLOCK_SIZE , n );
+					for( int i = ii ; i < imax ; i++ )
+					{
+						final int rowi = i * n;
+						for( int k = kk ; k < kmax ; k++ )
+						{
+							final double aik = a[ rowi + k ];
+							if( aik != 0.0 )
+							{
+								final int rowk = k * n;
+								for( int j = jj ; j < jmax ; j++ )
+								{
+									c[ rowi + j ] += aik * b[ rowk + j ];
+								}
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Multiplies two dense matrices of elems using a cache-blocked loop.
+	 * 
+	 * @param a The left-side matrix.
+	 * @param b The right-side matrix.
+	 * @param c Array of nulls into which the product is placed.
+	 * @param n The number of rows and columns.
+	 * @param revCoeff Whether to reverse the order of the nested elems in each product.
+	 */
+	public static <R extends Elem<R,?>> void mult( final R[] a , final R[] b , final R[] c , final int n , final boolean revCoeff )
+	{
+		for( int ii = 0 ; ii < n ; ii += BLOCK_SIZE )
+		{
+			final int imax = Math.min( ii + BLOCK_SIZE , n );
+			for( int kk = 0 ; kk < n ; kk += BLOCK_SIZE )
+			{
+				final int kmax = Math.min( kk + BLOCK_SIZE , n );
+				for( int jj = 0 ; jj < n ; jj += BLOCK_SIZE )
+				{
+					final int jmax = Math.min( jj + BLOCK_SIZE , n );
+					for( int i = ii ; i < imax ; i++ )
+					{
+						final int rowi = i * n;
+						for( int k = kk ; k < kmax ; k++ )
+						{
+							final R aik = a[ rowi + k ];
+							if( aik != null )
+							{
+								final int rowk = k * n;
+								for( int j = jj ; j < jmax ; j++ )
+								{
+									final R bkj = b[ rowk + j ];
+									if( bkj != null )
+									{
+										final R prod = revCoeff ? bkj.mult( aik ) : aik.mult( bkj );
+										final R cij = c[ rowi + j ];
+										c[ rowi + j ] = cij != null ? cij.add( prod ) : prod;
+									}
+								}
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Returns whether a double can be used as a pivot, i.e. whether its inverse is finite.
+	 * 
+	 * @param v The double.
+	 * @return True iff. the double can be used as a pivot.
+	 */
+	private static boolean isPivot( final double v )
+	{
+		final double dv = 1.0 / v;
+		return( !( Double.isNaN( dv ) || Double.isInfinite( dv ) ) );
+	}
+
+
+	/**
+	 * Performs an in-place LU decomposition with partial pivoting.  On return the strictly lower
+	 * triangle of the array holds L (with an implicit unit diagonal) and the upper triangle holds U.
+	 * 
+	 * @param lu The matrix to be decomposed, overwritten by the decomposition.
+	 * @param perm Array of length n into which the row permutation is placed, where perm[ i ] is the original row at row i.
+	 * @param n The number of rows and columns.
+	 * @return The column for which no pivot could be found, or -1 if the decomposition succeeded.
+	 */
+	public static int luDecompose( final double[] lu , final int[] perm , final int n )
+	{
+		for( int i = 0 ; i < n ; i++ )
+		{
+			perm[ i ] = i;
+		}
+
+		for( int k = 0 ; k < n ; k++ )
+		{
+			int p = k;
+			double pmax = Math.abs( lu[ k * n + k ] );
+			for( int i = k + 1 ; i < n ; i++ )
+			{
+				final double v = Math.abs( lu[ i * n + k ] );
+				if( v > pmax )
+				{
+					pmax = v;
+					p = i;
+				}
+			}
+
+			if( !( isPivot( lu[ p * n + k ] ) ) )
+			{
+				return( k );
+			}
+
+			if( p != k )
+			{
+				final int rowp = p * n;
+				final int rowk = k * n;
+				for( int j = 0 ; j < n ; j++ )
+				{
+					final double tmp = lu[ rowp + j ];
+					lu[ rowp + j ] = lu[ rowk + j ];
+					lu[ rowk + j ] = tmp;
+				}
+				final int tp = perm[ p ];
+				perm[ p ] = perm[ k ];
+				perm[ k ] = tp;
+			}
+
+			final int rowk = k * n;
+			final double pivot = lu[ rowk + k ];
+			for( int i = k + 1 ; i < n ; i++ )
+			{
+				final int rowi = i * n;
+				final double lik = lu[ rowi + k ] / pivot;
+				lu[ rowi + k ] = lik;
+				if( lik != 0.0 )
+				{
+					for( int j = k + 1 ; j < n ; j++ )
+					{
+						lu[ rowi + j ] -= lik * lu[ rowk + j ];
+					}
+				}
+			}
+		}
+
+		return( -1 );
+	}
+
+
+	/**
+	 * Returns the sign of a permutation.
+	 * 
+	 * @param perm The permutation.
+	 * @param n The length of the permutation.
+	 * @return 1 for an even permutation, or -1 for an odd permutation.
+	 */
+	public static int permutationSign( final int[] perm , final int n )
+	{
+		final boolean[] visited = new boolean[ n ];
+		int sign = 1;
+		for( int i = 0 ; i < n ; i++ )
+		{
+			if( !( visited[ i ] ) )
+			{
+				int len = 0;
+				int j = i;
+				while( !( visited[ j ] ) )
+				{
+					visited[ j ] = true;
+					j = perm[ j ];
+					len++;
+				}
+				if( ( len % 2 ) == 0 )
+				{
+					sign = -sign;
+				}
+			}
+		}
+		return( sign );
+	}
+
+
+	/**
+	 * Solves the system A x = b given the LU decomposition of A.
+	 * 
+	 * @param lu The LU decomposition from {@link #luDecompose(double[], int[], int)}.
+	 * @param perm The row permutation from {@link #luDecompose(double[], int[], int)}.
+	 * @param b The right-hand side, in the original row order.
+	 * @param x Array into which the solution is placed.
+	 * @param n The number of rows and columns.
+	 */
+	public static void luSolve( final double[] lu , final int[] perm , final double[] b , final double[] x , final int n )
+	{
+		for( int i = 0 ; i < n ; i++ )
+		{
+			final int rowi = i * n;
+			double sum = b[ perm[ i ] ];
+			for( int j = 0 ; j < i ; j++ )
+			{
+				sum -= lu[ rowi + j ] * x[ j ];
+			}
+			x[ i ] = sum;
+		}
+
+		for( int i = n - 1 ; i >= 0 ; i-- )
+		{
+			final int rowi = i * n;
+			double sum = x[ i ];
+			for( int j = i + 1 ; j < n ; j++ )
+			{
+				sum -= lu[ rowi + j ] * x[ j ];
+			}
+			x[ i ] = sum / lu[ rowi + i ];
+		}
+	}
+
+
+	/**
+	 * Calculates the inverse of a matrix given its LU decomposition.
+	 * 
+	 * @param lu The LU decomposition from {@link #luDecompose(double[], int[], int)}.
+	 * @param perm The row permutation from {@link #luDecompose(double[], int[], int)}.
+	 * @param inv Array into which the inverse is placed.
+	 * @param n The number of rows and columns.
+	 */
+	public static void luInvert( final double[] lu , final int[] perm , final double[] inv , final int n )
+	{
+		final double[] e = new double[ n ];
+		final double[] x = new double[ n ];
+		for( int j = 0 ; j < n ; j++ )
+		{
+			e[ j ] = 1.0;
+			luSolve( lu , perm , e , x , n );
+			e[ j ] = 0.0;
+			for( int i = 0 ; i < n ; i++ )
+			{
+				inv[ i * n + j ] = x[ i ];
+			}
+		}
+	}
+
+
+	/**
+	 * Calculates the determinant of a matrix given its LU decomposition.
+	 * 
+	 * @param lu The LU decomposition from {@link #luDecompose(double[], int[], int)}.
+	 * @param perm The row permutation from {@link #luDecompose(double[], int[], int)}.
+	 * @param n The number of rows and columns.
+	 * @return The determinant.
+	 */
+	public static double luDeterminant( final double[] lu , final int[] perm , final int n )
+	{
+		double ret = permutationSign( perm , n );
+		for( int i = 0 ; i < n ; i++ )
+		{
+			ret *= lu[ i * n + i ];
+		}
+		return( ret );
+	}
+
+
+	/**
+	 * Exchanges two rows of a dense matrix.
+	 * 
+	 * @param a The matrix.
+	 * @param rowa The first row.
+	 * @param rowb The second row.
+	 * @param n The number of rows and columns.
+	 */
+	private static <R> void exchangeRows( final R[] a , final int rowa , final int rowb , final int n )
+	{
+		for( int j = 0 ; j < n ; j++ )
+		{
+			final R tmp = a[ rowa * n + j ];
+			a[ rowa * n + j ] = a[ rowb * n + j ];
+			a[ rowb * n + j ] = tmp;
+		}
+	}
+
+
+	/**
+	 * Exchanges two columns of a dense matrix.
+	 * 
+	 * @param a The matrix.
+	 * @param cola The first column.
+	 * @param colb The second column.
+	 * @param n The number of rows and columns.
+	 */
+	private static <R> void exchangeColumns( final R[] a , final int cola , final int colb , final int n )
+	{
+		for( int i = 0 ; i < n ; i++ )
+		{
+			final R tmp = a[ i * n + cola ];
+			a[ i * n + cola ] = a[ i * n + colb ];
+			a[ i * n + colb ] = tmp;
+		}
+	}
+
+
+	/**
+	 * Returns an element of a dense matrix, or zero if the element is not present.
+	 * 
+	 * @param a The matrix.
+	 * @param indx The index of the element.
+	 * @param fac The factory for the elems.
+	 * @return The element.
+	 */
+	private static <R extends Elem<R,?>, S extends ElemFactory<R,S>> R getVal( final R[] a , final int indx , final S fac )
+	{
+		final R v = a[ indx ];
+		return( v != null ? v : fac.zero() );
+	}
+
+
+	/**
+	 * Calculates a left-side inverse by Gauss-Jordan elimination over rows, performing the same
+	 * operations as the sparse implementation.  Reduces the input matrix to the identity.
+	 * 
+	 * @param a The matrix to invert, which is overwritten.
+	 * @param ret Array into which the inverse is placed.
+	 * @param n The number of rows and columns.
+	 * @param fac The factory for the elems.
+	 * @throws NotInvertibleException
+	 */
+	public static <R extends Elem<R,?>, S extends ElemFactory<R,S>> void invertLeft( final R[] a , final R[] ret , final int n , final S fac ) throws NotInvertibleException
+	{
+		for( int i = 0 ; i < n * n ; i++ )
+		{
+			ret[ i ] = null;
+		}
+		for( int i = 0 ; i < n ; i++ )
+		{
+			ret[ i * n + i ] = fac.identity();
+		}
+
+		for( int cnt = 0 ; cnt < n ; cnt++ )
+		{
+			R mv = null;
+			for( int r = cnt ; ( r < n ) && ( mv == null ) ; r++ )
+			{
+				try
+				{
+					final R p = getVal( a , r * n + cnt , fac );
+					mv = p.invertLeft();
+					if( r != cnt )
+					{
+						exchangeRows( a , cnt , r , n );
+						exchangeRows( ret , cnt , r , n );
+					}
+				}
+				catch( NotInvertibleException ex )
+				{
+					// Continue the search for a pivot.
+				}
+			}
+			if( mv == null )
+			{
+				throw( new NoPivotException( true , BigInteger.valueOf( cnt ) ) );
+			}
+
+			final int rows = cnt * n;
+			for( int j = 0 ; j < n ; j++ )
+			{
+				final R va = a[ rows + j ];
+				if( va != null )
+				{
+					a[ rows + j ] = mv.mult( va );
+				}
+				final R vr = ret[ rows + j ];
+				if( vr != null )
+				{
+					ret[ rows + j ] = mv.mult( vr );
+				}
+			}
+
+			for( int dest = 0 ; dest < n ; dest++ )
+			{
+				if( dest != cnt )
+				{
+					final int rowd = dest * n;
+					final R mult = getVal( a , rowd + cnt , fac );
+					for( int j = 0 ; j < n ; j++ )
+					{
+						final R va = a[ rows + j ];
+						if( va != null )
+						{
+							final R neg = mult.mult( va ).negate();
+							final R vd = a[ rowd + j ];
+							a[ rowd + j ] = vd != null ? vd.add( neg ) : neg;
+						}
+						final R vr = ret[ rows + j ];
+						if( vr != null )
+						{
+							final R neg = mult.mult( vr ).negate();
+							final R vd = ret[ rowd + j ];
+							ret[ rowd + j ] = vd != null ? vd.add( neg ) : neg;
+						}
+					}
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Calculates a right-side inverse by Gauss-Jordan elimination over columns, performing the same
+	 * operations as the sparse implementation.  Reduces the input matrix to the identity.
+	 * 
+	 * @param a The matrix to invert, which is overwritten.
+	 * @param ret Array into which the inverse is placed.
+	 * @param n The number of rows and columns.
+	 * @param fac The factory for the elems.
+	 * @throws NotInvertibleException
+	 */
+	public static <R extends Elem<R,?>, S extends ElemFactory<R,S>> void invertRight( final R[] a , final R[] ret , final int n , final S fac ) throws NotInvertibleException
+	{
+		for( int i = 0 ; i < n * n ; i++ )
+		{
+			ret[ i ] = null;
+		}
+		for( int i = 0 ; i < n ; i++ )
+		{
+			ret[ i * n + i ] = fac.identity();
+		}
+
+		for( int cnt = 0 ; cnt < n ; cnt++ )
+		{
+			R mv = null;
+			for( int c = cnt ; ( c < n ) && ( mv == null ) ; c++ )
+			{
+				try
+				{
+					final R p = getVal( a , cnt * n + c , fac );
+					mv = p.invertRight();
+					if( c != cnt )
+					{
+						exchangeColumns( a , cnt , c , n );
+						exchangeColumns( ret , cnt , c , n );
+					}
+				}
+				catch( NotInvertibleException ex )
+				{
+					// Continue the search for a pivot.
+				}
+			}
+			if( mv == null )
+			{
+				throw( new NoPivotException( false , BigInteger.valueOf( cnt ) ) );
+			}
+
+			for( int i = 0 ; i < n ; i++ )
+			{
+				final int indx = i * n + cnt;
+				final R va = a[ indx ];
+				if( va != null )
+				{
+					a[ indx ] = va.mult( mv );
+				}
+				final R vr = ret[ indx ];
+				if( vr != null )
+				{
+					ret[ indx ] = vr.mult( mv );
+				}
+			}
+
+			for( int dest = 0 ; dest < n ; dest++ )
+			{
+				if( dest != cnt )
+				{
+					final R mult = getVal( a , cnt * n + dest , fac );
+					for( int i = 0 ; i < n ; i++ )
+					{
+						final int rowi = i * n;
+						final R va = a[ rowi + cnt ];
+						if( va != null )
+						{
+							final R neg = va.mult( mult ).negate();
+							final R vd = a[ rowi + dest ];
+							a[ rowi + dest ] = vd != null ? vd.add( neg ) : neg;
+						}
+						final R vr = ret[ rowi + cnt ];
+						if( vr != null )
+						{
+							final R neg = vr.mult( mult ).negate();
+							final R vd = ret[ rowi + dest ];
+							ret[ rowi + dest ] = vd != null ? vd.add( neg ) : neg;
+						}
+					}
+				}
+			}
+		}
+	}
+
+
+}
+
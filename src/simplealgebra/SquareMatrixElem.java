@@ -33,14 +33,17 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map.Entry;
 
+import org.kie.api.KieBase;
 import org.kie.api.runtime.KieSession;
 
 import simplealgebra.et.EinsteinTensorElem;
 import simplealgebra.ga.GeometricAlgebraMultivectorElem;
 import simplealgebra.symbolic.DroolsSession;
+import simplealgebra.symbolic.DroolsSessionPool;
 import simplealgebra.symbolic.LoggingConfiguration;
 import simplealgebra.symbolic.PrecedenceComparator;
 import simplealgebra.symbolic.SymbolicElem;
+import simplealgebra.symbolic.SymbolicElemFactory;
 import simplealgebra.symbolic.SymbolicIdentity;
 import simplealgebra.symbolic.SymbolicPlaceholder;
 import simplealgebra.symbolic.SymbolicZero;
@@ -91,6 +94,30 @@ public class SquareMatrixElem<U extends NumDimensions, R extends Elem<R,?>, S ex
 	};
 	
 	
+	/**
+	 * Defines the storage modes for square matrices.
+	 * 
+	 * @author thorngreen
+	 *
+	 */
+	public static enum SquareMatrixStorage {
+		
+		/**
+		 * Sparse storage, suitable for matrices with few non-zero elements and for symbolic elems.
+		 */
+		SPARSE,
+		
+		/**
+		 * Dense storage, in which multiplication, inversion, and determinants are calculated on
+		 * flat row-major arrays (see {@link SquareMatrixDenseOps}).  For matrices of {@link DoubleElem}
+		 * the arrays are primitive doubles, the multiplication is cache-blocked, and inversion and
+		 * determinants use an LU decomposition with partial pivoting.  Matrices of symbolic elems
+		 * are always calculated sparsely.
+		 */
+		DENSE
+	};
+	
+	
 	
 	/**
 	 * Exception indicating the failure of the matrix inverse to pivot.
@@ -167,9 +194,23 @@ public class SquareMatrixElem<U extends NumDimensions, R extends Elem<R,?>, S ex
 	 * @param _dim The number of dimensions.
 	 */
 	public SquareMatrixElem( S _fac , U _dim )
+	{
+		this( _fac , _dim , SquareMatrixStorage.SPARSE );
+	}
+	
+	
+	/**
+	 * Constructs the elem with a storage mode.
+	 * 
+	 * @param _fac The factory for the nested elem.
+	 * @param _dim The number of dimensions.
+	 * @param _storage The storage mode.
+	 */
+	public SquareMatrixElem( S _fac , U _dim , SquareMatrixStorage _storage )
 	{
 		fac = _fac;
 		dim = _dim;
+		storage = _storage;
 	}
 	
 	
@@ -194,7 +235,7 @@ public class SquareMatrixElem<U extends NumDimensions, R extends Elem<R,?>, S ex
 	
 	@Override
 	public SquareMatrixElem<U, R, S> add(SquareMatrixElem<U, R, S> b) {
-		SquareMatrixElem<U,R,S> ret = new SquareMatrixElem<U,R,S>(fac,dim);
+		SquareMatrixElem<U,R,S> ret = new SquareMatrixElem<U,R,S>(fac,dim,storage);
 		
 		{
 			for( final Entry<BigInteger, HashMap<BigInteger, R>> rowie : rowMap.entrySet() )
@@ -239,7 +280,16 @@ public class SquareMatrixElem<U extends NumDimensions, R extends Elem<R,?>, S ex
 	
 	@Override
 	public SquareMatrixElem<U, R, S> mult(SquareMatrixElem<U, R, S> b) {
-		SquareMatrixElem<U,R,S> ret = new SquareMatrixElem<U,R,S>(fac,dim);
+		if( storage == SquareMatrixStorage.DENSE )
+		{
+			final SquareMatrixElem<U,R,S> retd = denseMult( b , false );
+			if( retd != null )
+			{
+				return( retd );
+			}
+		}
+		
+		SquareMatrixElem<U,R,S> ret = new SquareMatrixElem<U,R,S>(fac,dim,storage);
 		
 		for( final Entry<BigInteger, HashMap<BigInteger, R>> rowie : rowMap.entrySet() )
 		{
@@ -286,7 +336,16 @@ public class SquareMatrixElem<U extends NumDimensions, R extends Elem<R,?>, S ex
 	 * @return The result of the multiplication.
 	 */
 	private SquareMatrixElem<U, R, S> multRevCoeff(SquareMatrixElem<U, R, S> b) {
-		SquareMatrixElem<U,R,S> ret = new SquareMatrixElem<U,R,S>(fac,dim);
+		if( storage == SquareMatrixStorage.DENSE )
+		{
+			final SquareMatrixElem<U,R,S> retd = denseMult( b , true );
+			if( retd != null )
+			{
+				return( retd );
+			}
+		}
+		
+		SquareMatrixElem<U,R,S> ret = new SquareMatrixElem<U,R,S>(fac,dim,storage);
 		
 		for( final Entry<BigInteger, HashMap<BigInteger, R>> rowie : rowMap.entrySet() )
 		{
@@ -328,7 +387,7 @@ public class SquareMatrixElem<U extends NumDimensions, R extends Elem<R,?>, S ex
 
 	@Override
 	public SquareMatrixElem<U, R, S> negate() {
-		SquareMatrixElem<U,R,S> ret = new SquareMatrixElem<U,R,S>(fac,dim);
+		SquareMatrixElem<U,R,S> ret = new SquareMatrixElem<U,R,S>(fac,dim,storage);
 		for( final Entry<BigInteger, HashMap<BigInteger, R>> rowie : rowMap.entrySet() )
 		{
 			BigInteger row = rowie.getKey();
@@ -363,7 +422,7 @@ public class SquareMatrixElem<U extends NumDimensions, R extends Elem<R,?>, S ex
 	
 	@Override
 	public SquareMatrixElem<U, R, S> mutate( Mutator<R> mutr ) throws NotInvertibleException {
-		SquareMatrixElem<U,R,S> ret = new SquareMatrixElem<U,R,S>(fac,dim);
+		SquareMatrixElem<U,R,S> ret = new SquareMatrixElem<U,R,S>(fac,dim,storage);
 		for( final Entry<BigInteger, HashMap<BigInteger, R>> rowie : rowMap.entrySet() )
 		{
 			BigInteger row = rowie.getKey();
@@ -382,6 +441,14 @@ public class SquareMatrixElem<U extends NumDimensions, R extends Elem<R,?>, S ex
 	
 	@Override
 	public SquareMatrixElem<U, R, S> invertRight() throws NotInvertibleException {
+		if( storage == SquareMatrixStorage.DENSE )
+		{
+			final SquareMatrixElem<U,R,S> retd = denseInvert( false );
+			if( retd != null )
+			{
+				return( retd );
+			}
+		}
 		SquareMatrixElem<U,R,S> copy = icopy();
 		return( copy.iinvertRight() );
 	}
@@ -401,6 +468,14 @@ public class SquareMatrixElem<U extends NumDimensions, R extends Elem<R,?>, S ex
 
 	@Override
 	public SquareMatrixElem<U, R, S> invertLeft() throws NotInvertibleException {
+		if( storage == SquareMatrixStorage.DENSE )
+		{
+			final SquareMatrixElem<U,R,S> retd = denseInvert( true );
+			if( retd != null )
+			{
+				return( retd );
+			}
+		}
 		SquareMatrixElem<U,R,S> copy = icopy();
 		return( copy.iinvertLeft() );
 	}
@@ -1476,6 +1551,8 @@ public class SquareMatrixElem<U extends NumDimensions, R extends Elem<R,?>, S ex
 	 */
 	private void eraseVal( final BigInteger row , final BigInteger col )
 	{
+		denseCache = null;
+		
 		HashMap<BigInteger,R> subMap = rowMap.get( row );
 		if( subMap != null )
 		{
@@ -1508,7 +1585,7 @@ public class SquareMatrixElem<U extends NumDimensions, R extends Elem<R,?>, S ex
 	 */
 	private SquareMatrixElem<U, R, S> icopy()
 	{
-		SquareMatrixElem<U,R,S> ret = new SquareMatrixElem<U,R,S>(fac,dim);
+		SquareMatrixElem<U,R,S> ret = new SquareMatrixElem<U,R,S>(fac,dim,storage);
 		for( final Entry<BigInteger, HashMap<BigInteger, R>> rowie : rowMap.entrySet() )
 		{
 			BigInteger row = rowie.getKey();
@@ -1524,9 +1601,317 @@ public class SquareMatrixElem<U extends NumDimensions, R extends Elem<R,?>, S ex
 	}
 
 	
+	/**
+	 * Returns the number of rows and columns for dense calculations.
+	 * 
+	 * @return The number of rows and columns, or -1 if the matrix is to be calculated sparsely.
+	 */
+	private int denseSize()
+	{
+		if( fac instanceof SymbolicElemFactory )
+		{
+			return( -1 );
+		}
+		final BigInteger dimVal = dim.getVal();
+		if( dimVal.compareTo( BigInteger.valueOf( SquareMatrixDenseOps.MAX_DIM ) ) > 0 )
+		{
+			return( -1 );
+		}
+		return( dimVal.intValue() );
+	}
+	
+	
+	/**
+	 * Returns whether a row or column index is inside a dense matrix.
+	 * 
+	 * @param indx The row or column index.
+	 * @param n The number of rows and columns.
+	 * @return True iff. the index is inside the matrix.
+	 */
+	private static boolean isDenseIndex( final BigInteger indx , final int n )
+	{
+		return( ( indx.signum() >= 0 ) && ( indx.compareTo( BigInteger.valueOf( n ) ) < 0 ) );
+	}
+	
+	
+	/**
+	 * Packs a matrix of {@link DoubleElem} into a flat row-major array of doubles.
+	 * 
+	 * @param n The number of rows and columns.
+	 * @return The packed array, or null if an element of the matrix is outside the dimensions of the matrix.
+	 */
+	private double[] packDouble( final int n )
+	{
+		if( denseCache instanceof double[] )
+		{
+			return( (double[]) denseCache );
+		}
+		final double[] ret = new double[ n * n ];
+		for( final Entry<BigInteger, HashMap<BigInteger, R>> rowie : rowMap.entrySet() )
+		{
+			final BigInteger row = rowie.getKey();
+			if( !( isDenseIndex( row , n ) ) )
+			{
+				return( null );
+			}
+			final int rowi = row.intValue() * n;
+			for( final Entry<BigInteger, R> colie : rowie.getValue().entrySet() )
+			{
+				final BigInteger col = colie.getKey();
+				if( !( isDenseIndex( col , n ) ) )
+				{
+					return( null );
+				}
+				ret[ rowi + col.intValue() ] = ( (DoubleElem)( colie.getValue() ) ).getVal();
+			}
+		}
+		denseCache = ret;
+		return( ret );
+	}
+	
+	
+	/**
+	 * Packs the matrix into a flat row-major array of elems, with nulls for elements that are not present.
+	 * 
+	 * @param n The number of rows and columns.
+	 * @return The packed array, or null if an element of the matrix is outside the dimensions of the matrix.
+	 */
+	private R[] packElems( final int n )
+	{
+		if( denseCache instanceof Elem[] )
+		{
+			return( (R[]) denseCache );
+		}
+		final R[] ret = (R[])( new Elem[ n * n ] );
+		for( final Entry<BigInteger, HashMap<BigInteger, R>> rowie : rowMap.entrySet() )
+		{
+			final BigInteger row = rowie.getKey();
+			if( !( isDenseIndex( row , n ) ) )
+			{
+				return( null );
+			}
+			final int rowi = row.intValue() * n;
+			for( final Entry<BigInteger, R> colie : rowie.getValue().entrySet() )
+			{
+				final BigInteger col = colie.getKey();
+				if( !( isDenseIndex( col , n ) ) )
+				{
+					return( null );
+				}
+				ret[ rowi + col.intValue() ] = colie.getValue();
+			}
+		}
+		denseCache = ret;
+		return( ret );
+	}
+	
+	
+	/**
+	 * Returns a dense matrix with the elements of a flat row-major array of doubles.
+	 * 
+	 * @param vals The array of doubles, which is retained by the matrix and must not be subsequently modified.
+	 * @param n The number of rows and columns.
+	 * @return The matrix.
+	 */
+	private SquareMatrixElem<U,R,S> unpackDouble( final double[] vals , final int n )
+	{
+		final SquareMatrixElem<U,R,S> ret = new SquareMatrixElem<U,R,S>( fac , dim , SquareMatrixStorage.DENSE );
+		final BigInteger[] indices = new BigInteger[ n ];
+		for( int i = 0 ; i < n ; i++ )
+		{
+			indices[ i ] = BigInteger.valueOf( i );
+		}
+		for( int i = 0 ; i < n ; i++ )
+		{
+			for( int j = 0 ; j < n ; j++ )
+			{
+				ret.setVal( indices[ i ] , indices[ j ] , (R)( new DoubleElem( vals[ i * n + j ] ) ) );
+			}
+		}
+		ret.denseCache = vals;
+		return( ret );
+	}
+	
+	
+	/**
+	 * Returns a dense matrix with the elements of a flat row-major array of elems.
+	 * 
+	 * @param vals The array of elems, which is retained by the matrix and must not be subsequently modified.
+	 * @param n The number of rows and columns.
+	 * @return The matrix.
+	 */
+	private SquareMatrixElem<U,R,S> unpackElems( final R[] vals , final int n )
+	{
+		final SquareMatrixElem<U,R,S> ret = new SquareMatrixElem<U,R,S>( fac , dim , SquareMatrixStorage.DENSE );
+		final BigInteger[] indices = new BigInteger[ n ];
+		for( int i = 0 ; i < n ; i++ )
+		{
+			indices[ i ] = BigInteger.valueOf( i );
+		}
+		for( int i = 0 ; i < n ; i++ )
+		{
+			for( int j = 0 ; j < n ; j++ )
+			{
+				final R val = vals[ i * n + j ];
+				if( val != null )
+				{
+					ret.setVal( indices[ i ] , indices[ j ] , val );
+				}
+			}
+		}
+		ret.denseCache = vals;
+		return( ret );
+	}
+	
+	
+	/**
+	 * Multiplies by the parameter using flat row-major arrays.
+	 * 
+	 * @param b The right-side argument of the multiplication.
+	 * @param revCoeff Whether to reverse the order of the nested elems in each product.
+	 * @return The result of the multiplication, or null if the matrices cannot be multiplied densely.
+	 */
+	private SquareMatrixElem<U,R,S> denseMult( final SquareMatrixElem<U,R,S> b , final boolean revCoeff )
+	{
+		final int n = denseSize();
+		if( n < 0 )
+		{
+			return( null );
+		}
+		
+		if( fac instanceof DoubleElemFactory )
+		{
+			final double[] da = packDouble( n );
+			final double[] db = b.packDouble( n );
+			if( ( da == null ) || ( db == null ) )
+			{
+				return( null );
+			}
+			// Multiplication of doubles is commutative, so revCoeff has no effect here.
+			final double[] dc = new double[ n * n ];
+			SquareMatrixDenseOps.mult( da , db , dc , n );
+			return( unpackDouble( dc , n ) );
+		}
+		
+		final R[] ea = packElems( n );
+		final R[] eb = b.packElems( n );
+		if( ( ea == null ) || ( eb == null ) )
+		{
+			return( null );
+		}
+		final R[] ec = (R[])( new Elem[ n * n ] );
+		SquareMatrixDenseOps.mult( ea , eb , ec , n , revCoeff );
+		return( unpackElems( ec , n ) );
+	}
+	
+	
+	/**
+	 * Inverts the matrix using flat row-major arrays.  Matrices of {@link DoubleElem} are inverted using
+	 * an LU decomposition with partial pivoting, and other matrices are inverted using the same Gauss-Jordan
+	 * elimination as the sparse implementation.
+	 * 
+	 * @param left Whether to calculate a left-side inverse rather than a right-side inverse.
+	 * @return The inverse, or null if the matrix cannot be inverted densely.
+	 * @throws NotInvertibleException
+	 */
+	private SquareMatrixElem<U,R,S> denseInvert( final boolean left ) throws NotInvertibleException
+	{
+		final int n = denseSize();
+		if( n < 0 )
+		{
+			return( null );
+		}
+		
+		if( fac instanceof DoubleElemFactory )
+		{
+			final double[] da = packDouble( n );
+			if( da == null )
+			{
+				return( null );
+			}
+			final double[] lu = da.clone();
+			final int[] perm = new int[ n ];
+			final int fail = SquareMatrixDenseOps.luDecompose( lu , perm , n );
+			if( fail >= 0 )
+			{
+				throw( new NoPivotException( left , BigInteger.valueOf( fail ) ) );
+			}
+			final double[] inv = new double[ n * n ];
+			SquareMatrixDenseOps.luInvert( lu , perm , inv , n );
+			return( unpackDouble( inv , n ) );
+		}
+		
+		final R[] ea = packElems( n );
+		if( ea == null )
+		{
+			return( null );
+		}
+		final R[] work = ea.clone();
+		final R[] inv = (R[])( new Elem[ n * n ] );
+		if( left )
+		{
+			SquareMatrixDenseOps.invertLeft( work , inv , n , fac );
+		}
+		else
+		{
+			SquareMatrixDenseOps.invertRight( work , inv , n , fac );
+		}
+		return( unpackElems( inv , n ) );
+	}
+	
+	
+	/**
+	 * Calculates the determinant of a matrix of {@link DoubleElem} using an LU decomposition with partial pivoting.
+	 * 
+	 * @return The determinant, or null if the determinant cannot be calculated densely.
+	 */
+	private R denseDeterminant()
+	{
+		final int n = denseSize();
+		if( ( n < 0 ) || !( fac instanceof DoubleElemFactory ) )
+		{
+			return( null );
+		}
+		final double[] da = packDouble( n );
+		if( da == null )
+		{
+			return( null );
+		}
+		final double[] lu = da.clone();
+		final int[] perm = new int[ n ];
+		if( SquareMatrixDenseOps.luDecompose( lu , perm , n ) >= 0 )
+		{
+			return( fac.zero() );
+		}
+		return( (R)( new DoubleElem( SquareMatrixDenseOps.luDeterminant( lu , perm , n ) ) ) );
+	}
+	
+	
+	/**
+	 * Returns the storage mode of the matrix.
+	 * 
+	 * @return The storage mode.
+	 */
+	public SquareMatrixStorage getStorage()
+	{
+		return( storage );
+	}
+	
+	
+	/**
+	 * Sets the storage mode of the matrix.
+	 * 
+	 * @param _storage The storage mode.
+	 */
+	public void setStorage( SquareMatrixStorage _storage )
+	{
+		storage = _storage;
+	}
+
+	
 	@Override
 	public SquareMatrixElem<U, R, S> divideBy(BigInteger val) {
-		SquareMatrixElem<U,R,S> ret = new SquareMatrixElem<U,R,S>(fac,dim);
+		SquareMatrixElem<U,R,S> ret = new SquareMatrixElem<U,R,S>(fac,dim,storage);
 		for( final Entry<BigInteger, HashMap<BigInteger, R>> rowie : rowMap.entrySet() )
 		{
 			BigInteger row = rowie.getKey();
@@ -1544,7 +1929,7 @@ public class SquareMatrixElem<U extends NumDimensions, R extends Elem<R,?>, S ex
 	
 	@Override
 	public SquareMatrixElem<U, R, S> random(PrimitiveRandom in) {
-		SquareMatrixElem<U,R,S> ret = new SquareMatrixElem<U,R,S>(fac,dim);
+		SquareMatrixElem<U,R,S> ret = new SquareMatrixElem<U,R,S>(fac,dim,storage);
 		for( final Entry<BigInteger, HashMap<BigInteger, R>> rowie : rowMap.entrySet() )
 		{
 			BigInteger row = rowie.getKey();
@@ -1562,7 +1947,7 @@ public class SquareMatrixElem<U extends NumDimensions, R extends Elem<R,?>, S ex
 
 	@Override
 	public SquareMatrixElemFactory<U, R, S> getFac() {
-		return( new SquareMatrixElemFactory<U,R,S>( fac , dim ) );
+		return( new SquareMatrixElemFactory<U,R,S>( fac , dim , storage ) );
 	}
 	
 	
@@ -1619,6 +2004,8 @@ public class SquareMatrixElem<U extends NumDimensions, R extends Elem<R,?>, S ex
 	 */
 	public void setVal( BigInteger row , BigInteger col , R val )
 	{
+		denseCache = null;
+		
 		HashMap<BigInteger,R> subMap = rowMap.get( row );
 		if( subMap == null )
 		{
@@ -1648,6 +2035,8 @@ public class SquareMatrixElem<U extends NumDimensions, R extends Elem<R,?>, S ex
 	 */
 	public void remove( BigInteger row , BigInteger col )
 	{
+		denseCache = null;
+		
 		HashMap<BigInteger,R> subMap = rowMap.get( row );
 		if( subMap != null )
 		{
@@ -1796,6 +2185,15 @@ public class SquareMatrixElem<U extends NumDimensions, R extends Elem<R,?>, S ex
 	 */
 	public R determinant( )
     {
+		if( storage == SquareMatrixStorage.DENSE )
+		{
+			final R retd = denseDeterminant();
+			if( retd != null )
+			{
+				return( retd );
+			}
+		}
+		
         R res;
 
         // Trivial 1x1 matrix
@@ -1878,7 +2276,7 @@ public class SquareMatrixElem<U extends NumDimensions, R extends Elem<R,?>, S ex
 	public SquareMatrixElem<U,R,S> cloneThread( final BigInteger threadIndex )
 	{
 		// The NumDimensions dim is presumed to be immutable.
-		SquareMatrixElem<U,R,S> ret = new SquareMatrixElem<U,R,S>( fac.cloneThread( threadIndex ) , dim );
+		SquareMatrixElem<U,R,S> ret = new SquareMatrixElem<U,R,S>( fac.cloneThread( threadIndex ) , dim , storage );
 	    for( final Entry<BigInteger, HashMap<BigInteger, R>> rowie : rowMap.entrySet() )
 		{
 			BigInteger row = rowie.getKey();
@@ -1905,7 +2303,7 @@ public class SquareMatrixElem<U extends NumDimensions, R extends Elem<R,?>, S ex
 		}
 		
 		// The NumDimensions dim is presumed to be immutable.
-		SquareMatrixElem<U,R,S> ret = new SquareMatrixElem<U,R,S>( (S) fac.cloneThreadCached( threadIndex , (CloneThreadCache)( cache.getInnerCache() ) ) , dim );
+		SquareMatrixElem<U,R,S> ret = new SquareMatrixElem<U,R,S>( (S) fac.cloneThreadCached( threadIndex , (CloneThreadCache)( cache.getInnerCache() ) ) , dim , storage );
 		for( final Entry<BigInteger, HashMap<BigInteger, R>> rowie : rowMap.entrySet() )
 		{
 			BigInteger row = rowie.getKey();
@@ -1989,15 +2387,15 @@ public class SquareMatrixElem<U extends NumDimensions, R extends Elem<R,?>, S ex
 		}
 		
 		SquareMatrixElem<U,R,S> prev = this;
+		final KieBase kieBase = mode == EVAL_MODE.SIMPLIFY ?
+				getDistributeSimplifyKieBase() : getDistributeSimplify2KieBase();
 		KieSession session = null;
 		HashMap<ArrayList<BigInteger>,SymbolicPlaceholder<R,S>> place = null;
 		while( true )
 		{
 			try
 			{
-				session = mode == EVAL_MODE.SIMPLIFY ?
-						getDistributeSimplifyKieContainer().newKieSession() : 
-						getDistributeSimplify2KieContainer().newKieSession();
+				session = DroolsSessionPool.acquire( kieBase );
 		
 				insertSessionConfigItems( session );
 				
@@ -2031,7 +2429,7 @@ public class SquareMatrixElem<U extends NumDimensions, R extends Elem<R,?>, S ex
 					}
 				}
 		
-				session.dispose();
+				DroolsSessionPool.release( kieBase , session );
 			
 				return( ret );
 			}
@@ -2469,7 +2867,7 @@ public class SquareMatrixElem<U extends NumDimensions, R extends Elem<R,?>, S ex
 			
 				case TRANSPOSE:
 				{
-					SquareMatrixElem<U,R,S> ret = new SquareMatrixElem<U,R,S>(fac,dim);
+					SquareMatrixElem<U,R,S> ret = new SquareMatrixElem<U,R,S>(fac,dim,storage);
 					for( final Entry<BigInteger, HashMap<BigInteger, R>> rowie : rowMap.entrySet() )
 					{
 						BigInteger row = rowie.getKey();
@@ -2496,6 +2894,18 @@ public class SquareMatrixElem<U extends NumDimensions, R extends Elem<R,?>, S ex
 	 */
 	private final HashMap<BigInteger,HashMap<BigInteger,R>> columnMap = new HashMap<BigInteger,HashMap<BigInteger,R>>();
 	
+	/**
+	 * The storage mode of the matrix.
+	 */
+	private SquareMatrixStorage storage;
+	
+	/**
+	 * The flat row-major array of the matrix for the dense storage mode, either a double[] for
+	 * matrices of {@link DoubleElem} or an array of elems, or null if the array has not been packed
+	 * since the matrix was last modified.  The array is never modified once packed.
+	 */
+	private Object denseCache = null;
+	
 	/**
 	 * The row mapping for the matrix elements.
 	 */
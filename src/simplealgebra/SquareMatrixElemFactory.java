@@ -56,16 +56,30 @@ public class SquareMatrixElemFactory<U extends NumDimensions, R extends Elem<R,?
 	 * @param _dim The number of dimensions.
 	 */
 	public SquareMatrixElemFactory( S _fac , U _dim )
+	{
+		this( _fac , _dim , SquareMatrixElem.SquareMatrixStorage.SPARSE );
+	}
+	
+	
+	/**
+	 * Constructs the factory.
+	 * 
+	 * @param _fac The factory for the enclosed type.
+	 * @param _dim The number of dimensions.
+	 * @param _storage The storage mode of the matrices created by the factory.
+	 */
+	public SquareMatrixElemFactory( S _fac , U _dim , SquareMatrixElem.SquareMatrixStorage _storage )
 	{
 		fac = _fac;
 		dim = _dim;
+		storage = _storage;
 	}
 	
 	
 	@Override
 	public SquareMatrixElem<U, R, S> identity() {
 		final BigInteger max = dim.getVal();
-		SquareMatrixElem<U, R, S> ret = new SquareMatrixElem<U, R, S>( fac , dim );
+		SquareMatrixElem<U, R, S> ret = new SquareMatrixElem<U, R, S>( fac , dim , storage );
 		BigInteger cnt = BigInteger.ZERO;
 		for( cnt = BigInteger.ZERO ; cnt.compareTo(max) < 0 ; cnt = cnt.add( BigInteger.ONE ) )
 		{
@@ -76,7 +90,7 @@ public class SquareMatrixElemFactory<U extends NumDimensions, R extends Elem<R,?
 
 	@Override
 	public SquareMatrixElem<U, R, S> zero() {
-		return( new SquareMatrixElem<U, R, S>( fac , dim ) );
+		return( new SquareMatrixElem<U, R, S>( fac , dim , storage ) );
 	}
 	
 	
@@ -170,7 +184,7 @@ public class SquareMatrixElemFactory<U extends NumDimensions, R extends Elem<R,?
 		if( fac != sfac )
 		{
 			// The NumDimensions dim is presumed to be immutable.
-			return( new SquareMatrixElemFactory<U,R,S>( sfac , dim ) );
+			return( new SquareMatrixElemFactory<U,R,S>( sfac , dim , storage ) );
 		}
 		return( this );
 	}
@@ -189,7 +203,7 @@ public class SquareMatrixElemFactory<U extends NumDimensions, R extends Elem<R,?
 		if( fac != sfac )
 		{
 			// The NumDimensions dim is presumed to be immutable.
-			final SquareMatrixElemFactory<U,R,S> rtmp = new SquareMatrixElemFactory<U,R,S>( sfac , dim );
+			final SquareMatrixElemFactory<U,R,S> rtmp = new SquareMatrixElemFactory<U,R,S>( sfac , dim , storage );
 			cache.putFac(this, rtmp);
 			return( rtmp );
 		}
@@ -366,6 +380,17 @@ public class SquareMatrixElemFactory<U extends NumDimensions, R extends Elem<R,?
 	}
 	
 	
+	/**
+	 * Returns the storage mode of the matrices created by the factory.
+	 * 
+	 * @return The storage mode.
+	 */
+	public SquareMatrixElem.SquareMatrixStorage getStorage()
+	{
+		return( storage );
+	}
+	
+	
 	/**
 	 * The factory for the enclosed type.
 	 */
@@ -375,6 +400,11 @@ public class SquareMatrixElemFactory<U extends NumDimensions, R extends Elem<R,?
 	 * The number of dimensions in the square matrix.
 	 */
 	private U dim;
+	
+	/**
+	 * The storage mode of the matrices created by the factory.
+	 */
+	private SquareMatrixElem.SquareMatrixStorage storage;
 
 }
 
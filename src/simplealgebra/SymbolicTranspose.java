@@ -258,6 +258,13 @@ public class SymbolicTranspose<U extends NumDimensions, R extends Elem<R,?>, S e
 	}
 	
 	
+	@Override
+	public int symbolicHashCode()
+	{
+		return( 31 * SymbolicTranspose.class.hashCode() + elem.symbolicHashCode() );
+	}
+	
+	
 	@Override
 	public void performInserts( KieSession session )
 	{
@@ -30,8 +30,10 @@
 package simplealgebra.algo;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map.Entry;
 
 import simplealgebra.CloneThreadCache;
 import simplealgebra.Elem;
@@ -46,8 +48,10 @@ import simplealgebra.ga.GeometricAlgebraMultivectorElemFactory;
 import simplealgebra.ga.GeometricAlgebraOrd;
 import simplealgebra.ga.WriteGaSetCache;
 import simplealgebra.symbolic.MultiplicativeDistributionRequiredException;
+import simplealgebra.symbolic.NativeDistributeSimplify2;
 import simplealgebra.symbolic.SymbolicElem;
 import simplealgebra.symbolic.SymbolicElemFactory;
+import simplealgebra.symbolic.SymbolicElem.EVAL_MODE;
 
 
 /**
@@ -107,6 +111,32 @@ public abstract class DescentAlgorithmMultiElem<U extends NumDimensions, R exten
 	};
 	
 	
+	/**
+	 * The inverted Jacobian retained across iterations, or null if no inverted Jacobian is retained.
+	 */
+	protected SquareMatrixElem<U,R,S> reusedJacobianInverse = null;
+	
+	/**
+	 * The number of iterations for which the retained inverted Jacobian has been used.
+	 */
+	protected int reusedJacobianAge = 0;
+	
+	/**
+	 * Whether the inverted Jacobian used by the current iteration was retained from a previous iteration.
+	 */
+	protected boolean jacobianInverseReused = false;
+	
+	/**
+	 * The number of iterations performed by the current evaluation.
+	 */
+	protected long iterationCount = 0;
+	
+	/**
+	 * The number of times the Jacobian was evaluated and inverted by the current evaluation.
+	 */
+	protected long refactorizationCount = 0;
+	
+	
 	/**
 	 * Runs the descent algorithm.
 	 * 
@@ -148,6 +178,212 @@ public abstract class DescentAlgorithmMultiElem<U extends NumDimensions, R exten
 			final BigInteger threadIndex );
 	
 	
+	/**
+	 * Evaluates the Jacobian for a single iteration.
+	 * 
+	 * @return The Jacobian for a single iteration.
+	 * @throws NotInvertibleException
+	 * @throws MultiplicativeDistributionRequiredException
+	 */
+	protected abstract SquareMatrixElem<U,R,S> evalPartialDerivativeJacobian() throws NotInvertibleException, MultiplicativeDistributionRequiredException;
+	
+	
+	/**
+	 * Discards any retained inverted Jacobian and clears the iteration counts at the start of an evaluation.
+	 */
+	protected void resetJacobianReuse()
+	{
+		reusedJacobianInverse = null;
+		reusedJacobianAge = 0;
+		jacobianInverseReused = false;
+		iterationCount = 0;
+		refactorizationCount = 0;
+	}
+	
+	
+	/**
+	 * Returns the inverted Jacobian for the current iteration, either by evaluating and inverting the Jacobian
+	 * or by reusing the inverted Jacobian from a previous iteration as selected by the Jacobian reuse mode.
+	 * 
+	 * @param param The callbacks for the descent algorithm.
+	 * @return The inverted Jacobian.
+	 * @throws NotInvertibleException
+	 * @throws MultiplicativeDistributionRequiredException
+	 */
+	protected SquareMatrixElem<U,R,S> getJacobianInverse( final DescentAlgorithmMultiElemInputParamCallbacks<U,R,S> param ) throws NotInvertibleException, MultiplicativeDistributionRequiredException
+	{
+		iterationCount++;
+		final DescentAlgorithmMultiElemInputParamCallbacks.JacobianReuseMode mode = param.getJacobianReuseMode();
+		
+		if( ( reusedJacobianInverse != null ) && ( ( mode != DescentAlgorithmMultiElemInputParamCallbacks.JacobianReuseMode.SHAMANSKII ) || 
+				( reusedJacobianAge < param.getJacobianRefactorInterval() ) ) )
+		{
+			reusedJacobianAge++;
+			jacobianInverseReused = true;
+			return( reusedJacobianInverse );
+		}
+		
+		SquareMatrixElem<U,R,S> derivativeJacobian = evalPartialDerivativeJacobian();
+		SquareMatrixElem<U,R,S> derivativeJacobianInverse = null;
+		
+		while( derivativeJacobianInverse == null )
+		{
+			try
+			{
+				derivativeJacobianInverse = derivativeJacobian.invertLeft();
+			}
+			catch( SquareMatrixElem.NoPivotException ex )
+			{
+				// printInverseCheck( derivativeJacobian );
+				derivativeJacobian = param.handleDescentInverseFailed( derivativeJacobian , ex );
+			}
+		}
+		
+		refactorizationCount++;
+		jacobianInverseReused = false;
+		if( mode != DescentAlgorithmMultiElemInputParamCallbacks.JacobianReuseMode.NEWTON )
+		{
+			reusedJacobianInverse = derivativeJacobianInverse;
+			reusedJacobianAge = 1;
+		}
+		
+		return( derivativeJacobianInverse );
+	}
+	
+	
+	/**
+	 * Updates the retained inverted Jacobian after an iteration has been applied.  A stalled iteration discards the
+	 * retained inverted Jacobian so that the next iteration evaluates and inverts the Jacobian.  In the BROYDEN mode
+	 * a successful iteration applies a "good" Broyden rank-one update to the retained inverted Jacobian.
+	 * 
+	 * @param param The callbacks for the descent algorithm.
+	 * @param iterationOffset The offset applied to the function parameters by the iteration.
+	 * @param prevValues The function values before the iteration.
+	 * @param nextValues The function values after the iteration.
+	 * @param stalled Whether convergence stalled during the iteration.
+	 */
+	protected void updateJacobianReuse( final DescentAlgorithmMultiElemInputParamCallbacks<U,R,S> param ,
+			final GeometricAlgebraMultivectorElem<U,GeometricAlgebraOrd<U>,R,S> iterationOffset ,
+			final GeometricAlgebraMultivectorElem<U,GeometricAlgebraOrd<U>,R,S> prevValues ,
+			final GeometricAlgebraMultivectorElem<U,GeometricAlgebraOrd<U>,R,S> nextValues ,
+			final boolean stalled )
+	{
+		if( reusedJacobianInverse == null )
+		{
+			return;
+		}
+		
+		if( stalled )
+		{
+			reusedJacobianInverse = null;
+			return;
+		}
+		
+		if( param.getJacobianReuseMode() == DescentAlgorithmMultiElemInputParamCallbacks.JacobianReuseMode.BROYDEN )
+		{
+			try
+			{
+				reusedJacobianInverse = broydenUpdate( reusedJacobianInverse , iterationOffset , nextValues.add( prevValues.negate() ) );
+			}
+			catch( NotInvertibleException ex )
+			{
+				reusedJacobianInverse = null;
+			}
+		}
+	}
+	
+	
+	/**
+	 * Applies the "good" Broyden rank-one update 
+	 * <math display="inline">
+	 * <mrow>
+	 *   <msub><mi>H</mi><mrow><mi>k</mi><mo>+</mo><mn>1</mn></mrow></msub>
+	 *   <mo>=</mo>
+	 *   <msub><mi>H</mi><mi>k</mi></msub>
+	 *   <mo>+</mo>
+	 *   <mfrac>
+	 *     <mrow><mo>(</mo><mi>s</mi><mo>-</mo><msub><mi>H</mi><mi>k</mi></msub><mi>y</mi><mo>)</mo>
+	 *       <msup><mi>s</mi><mi>T</mi></msup><msub><mi>H</mi><mi>k</mi></msub></mrow>
+	 *     <mrow><msup><mi>s</mi><mi>T</mi></msup><msub><mi>H</mi><mi>k</mi></msub><mi>y</mi></mrow>
+	 *   </mfrac>
+	 * </mrow>
+	 * </math>
+	 * to an inverted Jacobian.
+	 * 
+	 * <P>See https://en.wikipedia.org/wiki/Broyden%27s_method
+	 * 
+	 * @param h The inverted Jacobian.
+	 * @param s The change in the function parameters.
+	 * @param y The change in the function values.
+	 * @return The updated inverted Jacobian.
+	 * @throws NotInvertibleException
+	 */
+	protected SquareMatrixElem<U,R,S> broydenUpdate( final SquareMatrixElem<U,R,S> h ,
+			final GeometricAlgebraMultivectorElem<U,GeometricAlgebraOrd<U>,R,S> s ,
+			final GeometricAlgebraMultivectorElem<U,GeometricAlgebraOrd<U>,R,S> y ) throws NotInvertibleException
+	{
+		final GeometricAlgebraMultivectorElem<U,GeometricAlgebraOrd<U>,R,S> hy = s.getFac().zero();
+		y.colVectorMultLeftDefault( h , hy );
+		
+		final GeometricAlgebraMultivectorElem<U,GeometricAlgebraOrd<U>,R,S> sth = s.getFac().zero();
+		s.rowVectorMult( h , sth );
+		
+		R denom = null;
+		for( final Entry<HashSet<BigInteger>, R> ii : s.getEntrySet() )
+		{
+			final R hyVal = hy.get( ii.getKey() );
+			if( hyVal != null )
+			{
+				final R prod = ii.getValue().mult( hyVal );
+				denom = denom != null ? denom.add( prod ) : prod;
+			}
+		}
+		if( denom == null )
+		{
+			throw( new NotInvertibleException() );
+		}
+		final R denomInv = denom.invertLeft();
+		
+		final GeometricAlgebraMultivectorElem<U,GeometricAlgebraOrd<U>,R,S> u = s.add( hy.negate() );
+		
+		final SquareMatrixElem<U,R,S> delta = h.getFac().zero();
+		for( final Entry<HashSet<BigInteger>, R> ii : u.getEntrySet() )
+		{
+			final BigInteger row = ii.getKey().iterator().next();
+			final R uVal = ii.getValue().mult( denomInv );
+			for( final Entry<HashSet<BigInteger>, R> jj : sth.getEntrySet() )
+			{
+				final BigInteger col = jj.getKey().iterator().next();
+				delta.setVal( row , col , uVal.mult( jj.getValue() ) );
+			}
+		}
+		
+		return( h.add( delta ) );
+	}
+	
+	
+	/**
+	 * Returns the number of iterations performed by the most recent evaluation.
+	 * 
+	 * @return The number of iterations.
+	 */
+	public long getIterationCount()
+	{
+		return( iterationCount );
+	}
+	
+	
+	/**
+	 * Returns the number of times the Jacobian was evaluated and inverted by the most recent evaluation.
+	 * 
+	 * @return The number of refactorizations.
+	 */
+	public long getRefactorizationCount()
+	{
+		return( refactorizationCount );
+	}
+	
+	
 	/**
 	 * Handles the simplification of the elem.
 	 * 
@@ -166,6 +402,42 @@ public abstract class DescentAlgorithmMultiElem<U extends NumDimensions, R exten
 				return( in.distributeSimplify() );
 			case DISTRIBUTE_SIMPLIFY2:
 				return( in.distributeSimplify2() );
+			case NATIVE_SIMPLIFY2:
+				return( in.nativeDistributeSimplify2() );
+		}
+		throw( new RuntimeException( "Not Supported" ) );
+	}
+	
+	
+	/**
+	 * Handles the simplification of a list of elems.  Drools-based simplifications of all of the elems
+	 * are performed in a single session.
+	 * 
+	 * @param in The elems to be simplified.
+	 * @param smplType The type of simplification to be performed.
+	 * @return The simplified elems, in the same order as the input elems.
+	 * @throws NotInvertibleException
+	 */
+	protected ArrayList<SymbolicElem<R,S>> handleSimplificationBatch( final ArrayList<SymbolicElem<R,S>> in , final SimplificationType smplType ) throws NotInvertibleException
+	{
+		switch( smplType )
+		{
+			case NONE:
+				return( in );
+			case DISTRIBUTE_SIMPLIFY:
+				return( Elem.distributeSimplifyBatch( in , EVAL_MODE.SIMPLIFY ) );
+			case DISTRIBUTE_SIMPLIFY2:
+				return( Elem.distributeSimplifyBatch( in , EVAL_MODE.SIMPLIFY2 ) );
+			case NATIVE_SIMPLIFY2:
+				{
+					final NativeDistributeSimplify2 engine = new NativeDistributeSimplify2();
+					final ArrayList<SymbolicElem<R,S>> ret = new ArrayList<SymbolicElem<R,S>>();
+					for( final SymbolicElem<R,S> ii : in )
+					{
+						ret.add( (SymbolicElem<R,S>)( engine.simplifyElem( ii ) ) );
+					}
+					return( ret );
+				}
 		}
 		throw( new RuntimeException( "Not Supported" ) );
 	}
@@ -62,6 +62,34 @@ import simplealgebra.symbolic.SymbolicElemFactory;
 public abstract class DescentAlgorithmMultiElemInputParamCallbacks<U extends NumDimensions, R extends Elem<R,?>, S extends ElemFactory<R,S>> {
 	
 	
+	/**
+	 * The mode in which the inverted Jacobian is reused across descent iterations.
+	 * 
+	 * @author thorngreen
+	 *
+	 */
+	public static enum JacobianReuseMode {
+		
+		/**
+		 * Evaluates and inverts the Jacobian on every iteration.
+		 */
+		NEWTON,
+		
+		/**
+		 * Reuses the inverted Jacobian until convergence stalls (chord method).
+		 */
+		CHORD,
+		
+		/**
+		 * Reuses the inverted Jacobian for a fixed number of iterations, or until convergence stalls (Shamanskii method).
+		 */
+		SHAMANSKII,
+		
+		/**
+		 * Applies Broyden rank-one updates to the inverted Jacobian until convergence stalls.
+		 */
+		BROYDEN
+	};
 	
 	
 
@@ -179,6 +207,53 @@ public abstract class DescentAlgorithmMultiElemInputParamCallbacks<U extends Num
 	
 	
 	
+	/**
+	 * Returns the mode in which the inverted Jacobian is reused across iterations.
+	 * Override this method to turn on Jacobian reuse.
+	 * 
+	 * @return The Jacobian reuse mode.
+	 */
+	protected JacobianReuseMode getJacobianReuseMode()
+	{
+		return( JacobianReuseMode.NEWTON );
+	}
+	
+	
+	/**
+	 * Returns the maximum number of iterations for which an inverted Jacobian is used in the SHAMANSKII mode.
+	 * 
+	 * @return The maximum number of iterations between refactorizations.
+	 */
+	protected int getJacobianRefactorInterval()
+	{
+		return( 4 );
+	}
+	
+	
+	/**
+	 * Returns the storage mode of the evaluated Jacobian.
+	 * Override this method to invert the Jacobian using dense storage.
+	 * 
+	 * @return The storage mode of the Jacobian.
+	 */
+	protected SquareMatrixElem.SquareMatrixStorage getJacobianStorage()
+	{
+		return( SquareMatrixElem.SquareMatrixStorage.SPARSE );
+	}
+	
+	
+	/**
+	 * Reports the number of iterations and the number of Jacobian refactorizations at the end of a descent evaluation.
+	 * Override this method to gather Jacobian reuse statistics.
+	 * 
+	 * @param iterationCount The number of iterations performed.
+	 * @param refactorizationCount The number of times the Jacobian was evaluated and inverted.
+	 */
+	protected void reportJacobianReuseCounts( final long iterationCount , final long refactorizationCount )
+	{
+	}
+	
+	
 	/**
 	 * Constructs the callback object.
 	 */
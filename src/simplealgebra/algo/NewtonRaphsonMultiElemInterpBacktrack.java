@@ -184,17 +184,25 @@ public class NewtonRaphsonMultiElemInterpBacktrack<U extends NumDimensions, R ex
 		final boolean useCachedEval = param.useCachedEval();
 		evals = new GeometricAlgebraMultivectorElem<U,GeometricAlgebraOrd<U>,SymbolicElem<R,S>,SymbolicElemFactory<R,S>>( 
 				_param.getSfac() , _param.getDim() , new GeometricAlgebraOrd<U>() );
+		final ArrayList<HashSet<BigInteger>> evalKeys = new ArrayList<HashSet<BigInteger>>();
+		final ArrayList<SymbolicElem<R,S>> evalFs = new ArrayList<SymbolicElem<R,S>>();
 		for( final Entry<HashSet<BigInteger>, SymbolicElem<SymbolicElem<R, S>, SymbolicElemFactory<R, S>>> ii : _param.getFunctions().getEntrySet() )
 		{
-			final HashSet<BigInteger> key = ii.getKey();
-			SymbolicElem<R,S> evalF = useCachedEval ? 
+			evalKeys.add( ii.getKey() );
+			evalFs.add( useCachedEval ? 
 					ii.getValue().evalCached( _param.getImplicitSpaceFirstLevel() , cache ) :
-					ii.getValue().eval( _param.getImplicitSpaceFirstLevel() );
-			evalF = handleSimplification( evalF , useSimplification );
-			evals.setVal( key , evalF );
+					ii.getValue().eval( _param.getImplicitSpaceFirstLevel() ) );
+		}
+		final ArrayList<SymbolicElem<R,S>> simpFs = handleSimplificationBatch( evalFs , useSimplification );
+		for( int cnt = 0 ; cnt < evalKeys.size() ; cnt++ )
+		{
+			evals.setVal( evalKeys.get( cnt ) , simpFs.get( cnt ) );
 		}
 		partialEvalJacobian = new SquareMatrixElem<U,SymbolicElem<R,S>,SymbolicElemFactory<R,S>>(
 				_param.getSfac() , _param.getDim() );
+		final ArrayList<BigInteger> rowKeys = new ArrayList<BigInteger>();
+		final ArrayList<BigInteger> colKeys = new ArrayList<BigInteger>();
+		final ArrayList<SymbolicElem<R,S>> evalPs = new ArrayList<SymbolicElem<R,S>>();
 		BigInteger bcnt = BigInteger.ZERO;
 		for( final ArrayList<? extends Elem<?,?>> withRespectTo : _param.getWithRespectTos() )
 		{
@@ -204,14 +212,20 @@ public class NewtonRaphsonMultiElemInterpBacktrack<U extends NumDimensions, R ex
 			{
 				final BigInteger key2 = key2A.iterator().next();
 				final SymbolicElem<SymbolicElem<R,S>,SymbolicElemFactory<R,S>> fun = _param.getFunctions().get( key2A );
-				SymbolicElem<R,S> evalP = useCachedEval ?
+				rowKeys.add( key2 );
+				colKeys.add( key );
+				evalPs.add( useCachedEval ?
 						fun.evalPartialDerivativeCached( withRespectTo , _param.getImplicitSpaceFirstLevel() , cache) :
-						fun.evalPartialDerivative( withRespectTo , _param.getImplicitSpaceFirstLevel() );
-				evalP = handleSimplification( evalP , useSimplification );
-				if( !( evalP instanceof SymbolicZero<?,?> ) ) // Allow the matrix to be sparse in instances where the derivative is zero.
-				{
-					partialEvalJacobian.setVal( key2 , key , evalP );
-				}
+						fun.evalPartialDerivative( withRespectTo , _param.getImplicitSpaceFirstLevel() ) );
+			}
+		}
+		final ArrayList<SymbolicElem<R,S>> simpPs = handleSimplificationBatch( evalPs , useSimplification );
+		for( int cnt = 0 ; cnt < rowKeys.size() ; cnt++ )
+		{
+			final SymbolicElem<R,S> evalP = simpPs.get( cnt );
+			if( !( evalP instanceof SymbolicZero<?,?> ) ) // Allow the matrix to be sparse in instances where the derivative is zero.
+			{
+				partialEvalJacobian.setVal( rowKeys.get( cnt ) , colKeys.get( cnt ) , evalP );
 			}
 		}
 	}
@@ -228,12 +242,14 @@ public class NewtonRaphsonMultiElemInterpBacktrack<U extends NumDimensions, R ex
 	public GeometricAlgebraMultivectorElem<U,GeometricAlgebraOrd<U>,R,S> eval( HashMap<? extends Elem<?,?>,? extends Elem<?,?>> implicitSpaceInitialGuess ) throws NotInvertibleException, MultiplicativeDistributionRequiredException
 	{
 		iterationsStopped = false;
+		resetJacobianReuse();
 		implicitSpace = implicitSpaceInitialGuess;
 		lastValues = evalValues();
 		while( !( param.iterationsDone() ) && !iterationsStopped )
 		{
 			performIteration();
 		}
+		param.reportJacobianReuseCounts( iterationCount , refactorizationCount );
 		return( lastValues );
 	}
 	
@@ -246,21 +262,7 @@ public class NewtonRaphsonMultiElemInterpBacktrack<U extends NumDimensions, R ex
 	 */
 	protected void performIteration() throws NotInvertibleException, MultiplicativeDistributionRequiredException
 	{
-		SquareMatrixElem<U,R,S> derivativeJacobian = evalPartialDerivativeJacobian();
-		SquareMatrixElem<U,R,S> derivativeJacobianInverse = null;
-		
-		while( derivativeJacobianInverse == null )
-		{
-			try
-			{
-				derivativeJacobianInverse = derivativeJacobian.invertLeft();
-			}
-			catch( SquareMatrixElem.NoPivotException ex )
-			{
-				// printInverseCheck( derivativeJacobian );
-				derivativeJacobian = param.handleDescentInverseFailed( derivativeJacobian , ex );
-			}
-		}
+		final SquareMatrixElem<U,R,S> derivativeJacobianInverse = getJacobianInverse( param );
 		
 		GeometricAlgebraMultivectorElem<U,GeometricAlgebraOrd<U>,R,S> iterationOffset =
 				new GeometricAlgebraMultivectorElem<U,GeometricAlgebraOrd<U>,R,S>(
@@ -278,8 +280,15 @@ public class NewtonRaphsonMultiElemInterpBacktrack<U extends NumDimensions, R ex
 		GeometricAlgebraMultivectorElem<U,GeometricAlgebraOrd<U>,R,S> nextValues = evalIndicatesImprovement();
 		if( nextValues != null )
 		{
+			updateJacobianReuse( param , iterationOffset , lastValues , nextValues , false );
 			lastValues = nextValues;
 		}
+		else if( jacobianInverseReused )
+		{
+			// The retained inverted Jacobian is stale, so retry from the pre-iteration value with a refactored Jacobian.
+			param.setIterationValue( inVal );
+			reusedJacobianInverse = null;
+		}
 		else
 		{
 			int cnt = param.getMaxIterationsBacktrack();
@@ -295,6 +304,7 @@ public class NewtonRaphsonMultiElemInterpBacktrack<U extends NumDimensions, R ex
 			// System.out.println( cnt );
 			if( nextValues != null )
 			{
+				updateJacobianReuse( param , iterationOffset , lastValues , nextValues , true );
 				lastValues = nextValues;
 			}
 			else
@@ -372,7 +382,7 @@ public class NewtonRaphsonMultiElemInterpBacktrack<U extends NumDimensions, R ex
 	 */
 	protected SquareMatrixElem<U,R,S> evalPartialDerivativeJacobian() throws NotInvertibleException, MultiplicativeDistributionRequiredException
 	{
-		final SquareMatrixElem<U,R,S> evalJacobian = new SquareMatrixElem<U,R,S>( sfac.getFac() , dim );
+		final SquareMatrixElem<U,R,S> evalJacobian = new SquareMatrixElem<U,R,S>( sfac.getFac() , dim , param.getJacobianStorage() );
 		
 		for( final HashSet<BigInteger> key2A : functionsKeys )
 		{
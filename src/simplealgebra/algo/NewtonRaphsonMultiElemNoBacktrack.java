@@ -217,12 +217,14 @@ public class NewtonRaphsonMultiElemNoBacktrack<U extends NumDimensions, R extend
 	 */
 	public GeometricAlgebraMultivectorElem<U,GeometricAlgebraOrd<U>,R,S> eval( HashMap<? extends Elem<?,?>,? extends Elem<?,?>> implicitSpaceInitialGuess ) throws NotInvertibleException, MultiplicativeDistributionRequiredException
 	{
+		resetJacobianReuse();
 		implicitSpace = implicitSpaceInitialGuess;
 		lastValues = evalValues();
 		while( !( param.iterationsDone() ) )
 		{
 			performIteration();
 		}
+		param.reportJacobianReuseCounts( iterationCount , refactorizationCount );
 		return( lastValues );
 	}
 	
@@ -235,21 +237,7 @@ public class NewtonRaphsonMultiElemNoBacktrack<U extends NumDimensions, R extend
 	 */
 	protected void performIteration() throws NotInvertibleException, MultiplicativeDistributionRequiredException
 	{
-		SquareMatrixElem<U,R,S> derivativeJacobian = evalPartialDerivativeJacobian();
-		SquareMatrixElem<U,R,S> derivativeJacobianInverse = null;
-		
-		while( derivativeJacobianInverse == null )
-		{
-			try
-			{
-				derivativeJacobianInverse = derivativeJacobian.invertLeft();
-			}
-			catch( SquareMatrixElem.NoPivotException ex )
-			{
-				// printInverseCheck( derivativeJacobian );
-				derivativeJacobian = param.handleDescentInverseFailed( derivativeJacobian , ex );
-			}
-		}
+		final SquareMatrixElem<U,R,S> derivativeJacobianInverse = getJacobianInverse( param );
 		
 		GeometricAlgebraMultivectorElem<U,GeometricAlgebraOrd<U>,R,S> iterationOffset =
 				new GeometricAlgebraMultivectorElem<U,GeometricAlgebraOrd<U>,R,S>(
@@ -260,7 +248,12 @@ public class NewtonRaphsonMultiElemNoBacktrack<U extends NumDimensions, R extend
 		param.performIterationUpdate( iterationOffset );
 		
 		
+		final GeometricAlgebraMultivectorElem<U,GeometricAlgebraOrd<U>,R,S> prevValues = lastValues;
 		lastValues = evalValues();
+		if( reusedJacobianInverse != null )
+		{
+			updateJacobianReuse( param , iterationOffset , prevValues , lastValues , !( param.evalIterationImproved( prevValues , lastValues ) ) );
+		}
 	}
 	
 	
@@ -296,7 +289,7 @@ public class NewtonRaphsonMultiElemNoBacktrack<U extends NumDimensions, R extend
 	 */
 	protected SquareMatrixElem<U,R,S> evalPartialDerivativeJacobian() throws NotInvertibleException, MultiplicativeDistributionRequiredException
 	{
-		final SquareMatrixElem<U,R,S> evalJacobian = new SquareMatrixElem<U,R,S>( sfac.getFac() , dim );
+		final SquareMatrixElem<U,R,S> evalJacobian = new SquareMatrixElem<U,R,S>( sfac.getFac() , dim , param.getJacobianStorage() );
 		
 		for( final HashSet<BigInteger> key2A : functionsKeys )
 		{
@@ -227,12 +227,14 @@ public class NewtonRaphsonMultiElemSimpleBacktrack<U extends NumDimensions, R ex
 	public GeometricAlgebraMultivectorElem<U,GeometricAlgebraOrd<U>,R,S> eval( HashMap<? extends Elem<?,?>,? extends Elem<?,?>> implicitSpaceInitialGuess ) throws NotInvertibleException, MultiplicativeDistributionRequiredException
 	{
 		iterationsStopped = false;
+		resetJacobianReuse();
 		implicitSpace = implicitSpaceInitialGuess;
 		lastValues = evalValues();
 		while( !( param.iterationsDone() ) && !iterationsStopped )
 		{
 			performIteration();
 		}
+		param.reportJacobianReuseCounts( iterationCount , refactorizationCount );
 		return( lastValues );
 	}
 	
@@ -245,21 +247,7 @@ public class NewtonRaphsonMultiElemSimpleBacktrack<U extends NumDimensions, R ex
 	 */
 	protected void performIteration() throws NotInvertibleException, MultiplicativeDistributionRequiredException
 	{
-		SquareMatrixElem<U,R,S> derivativeJacobian = evalPartialDerivativeJacobian();
-		SquareMatrixElem<U,R,S> derivativeJacobianInverse = null;
-		
-		while( derivativeJacobianInverse == null )
-		{
-			try
-			{
-				derivativeJacobianInverse = derivativeJacobian.invertLeft();
-			}
-			catch( SquareMatrixElem.NoPivotException ex )
-			{
-				// printInverseCheck( derivativeJacobian );
-				derivativeJacobian = param.handleDescentInverseFailed( derivativeJacobian , ex );
-			}
-		}
+		final SquareMatrixElem<U,R,S> derivativeJacobianInverse = getJacobianInverse( param );
 		
 		GeometricAlgebraMultivectorElem<U,GeometricAlgebraOrd<U>,R,S> iterationOffset =
 				new GeometricAlgebraMultivectorElem<U,GeometricAlgebraOrd<U>,R,S>(
@@ -275,8 +263,15 @@ public class NewtonRaphsonMultiElemSimpleBacktrack<U extends NumDimensions, R ex
 		GeometricAlgebraMultivectorElem<U,GeometricAlgebraOrd<U>,R,S> nextValues = evalIndicatesImprovement();
 		if( nextValues != null )
 		{
+			updateJacobianReuse( param , iterationOffset , lastValues , nextValues , false );
 			lastValues = nextValues;
 		}
+		else if( jacobianInverseReused )
+		{
+			// The retained inverted Jacobian is stale, so retry from the pre-iteration value with a refactored Jacobian.
+			param.retrieveIterationValue();
+			reusedJacobianInverse = null;
+		}
 		else
 		{
 			int cnt = param.getMaxIterationsBacktrack();
@@ -293,6 +288,7 @@ public class NewtonRaphsonMultiElemSimpleBacktrack<U extends NumDimensions, R ex
 			// System.out.println( cnt );
 			if( nextValues != null )
 			{
+				updateJacobianReuse( param , iterationOffset , lastValues , nextValues , true );
 				lastValues = nextValues;
 			}
 			else
@@ -370,7 +366,7 @@ public class NewtonRaphsonMultiElemSimpleBacktrack<U extends NumDimensions, R ex
 	 */
 	protected SquareMatrixElem<U,R,S> evalPartialDerivativeJacobian() throws NotInvertibleException, MultiplicativeDistributionRequiredException
 	{
-		final SquareMatrixElem<U,R,S> evalJacobian = new SquareMatrixElem<U,R,S>( sfac.getFac() , dim );
+		final SquareMatrixElem<U,R,S> evalJacobian = new SquareMatrixElem<U,R,S>( sfac.getFac() , dim , param.getJacobianStorage() );
 		
 		for( final HashSet<BigInteger> key2A : functionsKeys )
 		{
@@ -179,6 +179,8 @@ public abstract class NewtonRaphsonSingleElem<R extends Elem<R,?>, S extends Ele
 				return( in.distributeSimplify() );
 			case DISTRIBUTE_SIMPLIFY2:
 				return( in.distributeSimplify2() );
+			case NATIVE_SIMPLIFY2:
+				return( in.nativeDistributeSimplify2() );
 		}
 		throw( new RuntimeException( "Not Supported" ) );
 	}
@@ -178,6 +178,8 @@ public abstract class NewtonRaphsonSingleElemCacheFinal<R extends Elem<R,?>, S e
 				return( in.distributeSimplify() );
 			case DISTRIBUTE_SIMPLIFY2:
 				return( in.distributeSimplify2() );
+			case NATIVE_SIMPLIFY2:
+				return( in.nativeDistributeSimplify2() );
 		}
 		throw( new RuntimeException( "Not Supported" ) );
 	}
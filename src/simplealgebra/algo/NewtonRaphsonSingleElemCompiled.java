@@ -193,6 +193,8 @@ public abstract class NewtonRaphsonSingleElemCompiled<R extends Elem<R,?>, S ext
 				return( in.distributeSimplify() );
 			case DISTRIBUTE_SIMPLIFY2:
 				return( in.distributeSimplify2() );
+			case NATIVE_SIMPLIFY2:
+				return( in.nativeDistributeSimplify2() );
 		}
 		throw( new RuntimeException( "Not Supported" ) );
 	}
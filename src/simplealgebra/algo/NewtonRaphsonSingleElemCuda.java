@@ -177,6 +177,8 @@ public abstract class NewtonRaphsonSingleElemCuda<R extends Elem<R,?>, S extends
 				return( in.distributeSimplify() );
 			case DISTRIBUTE_SIMPLIFY2:
 				return( in.distributeSimplify2() );
+			case NATIVE_SIMPLIFY2:
+				return( in.nativeDistributeSimplify2() );
 		}
 		throw( new RuntimeException( "Not Supported" ) );
 	}
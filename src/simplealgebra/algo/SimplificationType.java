@@ -51,7 +51,15 @@ public enum SimplificationType {
 	/**
 	 * Performs a simpler distribute simplify on the elem.
 	 */
-	DISTRIBUTE_SIMPLIFY2
+	DISTRIBUTE_SIMPLIFY2,
+	
+	/**
+	 * Applies the rules of DISTRIBUTE_SIMPLIFY2 using the Java-native
+	 * rewrite engine in NativeDistributeSimplify2 rather than a Drools session.
+	 * The result has the same value as with DISTRIBUTE_SIMPLIFY2, up to rounding, but negations and
+	 * integer divisors may be hoisted to different levels of the expression.
+	 */
+	NATIVE_SIMPLIFY2
 	
 }
 
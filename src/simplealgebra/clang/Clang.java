@@ -30,6 +30,7 @@ import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.LineNumberReader;
 import java.io.PrintStream;
+import java.nio.file.Files;
 import java.lang.reflect.Constructor;
 import java.net.URL;
 import java.net.URLClassLoader;
@@ -40,6 +41,8 @@ import simplealgebra.ComplexElem;
 import simplealgebra.ComplexElemFactory;
 import simplealgebra.DoubleElem;
 import simplealgebra.DoubleElemFactory;
+import simplealgebra.jlang.InlineLeaf_Dbl;
+import simplealgebra.jlang.KernelCache;
 import simplealgebra.symbolic.SymbolicAbsoluteValue;
 import simplealgebra.symbolic.SymbolicAdd;
 import simplealgebra.symbolic.SymbolicDivideBy;
@@ -112,6 +115,17 @@ public class Clang {
 	 */
 	static long allocNum = 0;
 	
+	/**
+	 * The cache of compiled kernels, or null if compiled kernels are not cached.
+	 */
+	static KernelCache kernelCache = KernelCache.getDefault();
+	
+	/**
+	 * Map from the key of each kernel loaded in this JVM to its class.  A shared library
+	 * can only be loaded once per JVM, so a kernel that has already been loaded is reused from here.
+	 */
+	static HashMap<String,Class<?>> loadedClasses = new HashMap<String,Class<?>>();
+	
 	
 	/**
 	 * Accumulated list of parameters for the constructor of the clang Elem.
@@ -161,6 +175,68 @@ public class Clang {
 	 */
 	static HashMap<SymbolicElem<?,?>,Object> reuseMap = null;
 	
+	/**
+	 * Map from each array bound to an InlineLeaf_Dbl to the name of the generated member holding the array.
+	 */
+	static HashMap<double[],String> boundArrays = null;
+	
+	
+	
+	
+	/**
+	 * Handles a leaf whose value can be read directly by the generated clang code.  The field ID of each
+	 * bound array is looked up once, and the element is then copied from the array at each evaluation.
+	 * @param in The leaf.
+	 * @return The generated clang variable name for the leaf, or null if the leaf declares neither a clang snippet nor an array element.
+	 */
+	protected static String hndlInlineLeaf_Dbl( InlineLeaf_Dbl in )
+	{
+		final String snippet = in.getClangSnippet();
+		if( snippet != null )
+		{
+			allocNum++;
+			final String vName = "t_" + allocNum;
+			psInst.println( "const double " + vName + " = " + snippet + ";" );
+			return( vName );
+		}
+		
+		final double[] arr = in.getBoundArray();
+		if( arr == null )
+		{
+			return( null );
+		}
+		
+		String memberName = boundArrays.get( arr );
+		if( memberName == null )
+		{
+			allocNum++;
+			memberName = "m_" + allocNum;
+			jmemInst.println( "private final double[] " + memberName + ";" );
+			jcnstInst.println( " , double[] _" + memberName );
+			jcimpInst.println( memberName + " = _" + memberName + ";" );
+			jlocmemInst.println( "jfieldID fld" + memberName + " = NULL;" );
+			
+			jfldInst.println( "if( fld" + memberName + " == NULL )" );
+			jfldInst.println( "{" );
+			jfldInst.println( "   fld" + memberName + " = env->GetFieldID( clangClass , \"" + memberName + "\" , \"[D\" );" );
+			jfldInst.println( "}" );
+			jfldInst.println( "if( fld" + memberName + " == NULL )" );
+			jfldInst.println( "{" );
+			jfldInst.println( "   printf( \"Unable To Find member " + memberName + "\\n\" );" );
+			jfldInst.println( "   exit(1);" );
+			jfldInst.println( "}" );
+			jfldInst.println( "jdoubleArray loc" + memberName + " = (jdoubleArray)( env->GetObjectField( ths , fld" + memberName + " ) );" );
+			
+			cnstParamsOuter.add( arr );
+			boundArrays.put( arr , memberName );
+		}
+		
+		allocNum++;
+		final String vName = "t_" + allocNum;
+		psInst.println( "jdouble " + vName + ";" );
+		psInst.println( "env->GetDoubleArrayRegion( loc" + memberName + " , " + ( in.getBoundIndex() ) + " , 1 , &" + vName + " );" );
+		return( vName );
+	}
 	
 	
 	
@@ -177,6 +253,15 @@ public class Clang {
 			return( (String)( reuseMap.get( in ) ) );
 		}
 		
+		if( in instanceof InlineLeaf_Dbl )
+		{
+			final String vName = hndlInlineLeaf_Dbl( (InlineLeaf_Dbl) in );
+			if( vName != null )
+			{
+				return( vName );
+			}
+		}
+		
 		if( in instanceof SymbolicZero )
 		{
 			allocNum++;
@@ -555,23 +640,17 @@ public class Clang {
 		}
 		
 		allocNum++;
-		final long clangAlloc = allocNum;
-		final String className = "Clang_" + allocNum;
-		final String libName = "libClang_" + allocNum;
-		
-		final File fjav = new File( tempDir , className + ".java" );
-		final File flib = new File( tempDir , libName + ".so" );
-		final File fclang = new File( tempDir , className + ".cpp" );
+		final String genName = "ClangGen_" + allocNum;
 		
 		final File fjavac =new File( tempDir , "runJavac.sh" );
 		final File fgcc =new File( tempDir , "runGCC.sh" );
 		
-		final File fPsInst = new File( tempDir , className + "A.txt" );
-		final File fJmemInst = new File( tempDir , className + "B.txt" );
-		final File fJcnstInst = new File( tempDir , className + "C.txt" );
-		final File fJcimpInst = new File( tempDir , className + "D.txt" );
-		final File fJlocmemInst = new File( tempDir , className + "E.txt" );
-		final File fJfldInst = new File( tempDir , className + "F.txt" );
+		final File fPsInst = new File( tempDir , genName + "A.txt" );
+		final File fJmemInst = new File( tempDir , genName + "B.txt" );
+		final File fJcnstInst = new File( tempDir , genName + "C.txt" );
+		final File fJcimpInst = new File( tempDir , genName + "D.txt" );
+		final File fJlocmemInst = new File( tempDir , genName + "E.txt" );
+		final File fJfldInst = new File( tempDir , genName + "F.txt" );
 		
 		
 		cnstParamsOuter = new ArrayList<Object>();
@@ -585,6 +664,7 @@ public class Clang {
 		jlocmemInst = new PrintStream( new FileOutputStream( fJlocmemInst ) );
 		jfldInst = new PrintStream( new FileOutputStream( fJfldInst ) );
 		reuseMap = new HashMap<SymbolicElem<?,?>,Object>();
+		boundArrays = new HashMap<double[],String>();
 		final String vName = hndl_Dbl( in );
 		psInst.close();
 		jmemInst.close();
@@ -599,6 +679,24 @@ public class Clang {
 		jlocmemInst = null;
 		jfldInst = null;
 		reuseMap = null;
+		boundArrays = null;
+		
+		
+		final String key = KernelCache.computeKey( "Clang_Dbl" , getCompilerConfig() , KernelCache.readString( fPsInst ) , 
+				KernelCache.readString( fJmemInst ) , KernelCache.readString( fJcnstInst ) , KernelCache.readString( fJcimpInst ) , 
+				KernelCache.readString( fJlocmemInst ) , KernelCache.readString( fJfldInst ) , vName );
+		final String className = "Clang_" + key;
+		final String libName = "lib" + className;
+		
+		final Class<?> cachedClass = getCachedClass( key , className );
+		if( cachedClass != null )
+		{
+			return( (SymbolicElem<DoubleElem,DoubleElemFactory>)( newInstance( cachedClass ) ) );
+		}
+		
+		final File fjav = new File( tempDir , className + ".java" );
+		final File flib = new File( kernelCache != null ? kernelCache.getEntryDir( key ) : tempDir , libName + ".so" );
+		final File fclang = new File( tempDir , className + ".cpp" );
 		
 		
 		PrintStream ps = new PrintStream( new FileOutputStream( fjav ) );
@@ -723,8 +821,8 @@ public class Clang {
 		}
 		li.close();
 		ps.println( "" );
-		// ps.println( "JNIEXPORT jobject JNICALL Java_Clang_1" + clangAlloc + "_eval" );
-		ps.println( "JNIEXPORT jdouble JNICALL Java_Clang_1" + clangAlloc + "_evalD" );
+		// ps.println( "JNIEXPORT jobject JNICALL Java_Clang_1" + key + "_eval" );
+		ps.println( "JNIEXPORT jdouble JNICALL Java_Clang_1" + key + "_evalD" );
 		ps.println( "  (JNIEnv *env, jobject ths, jobject hsh, jobjectArray locnarr)" );
 		ps.println( "{" );
 		ps.println( "" );
@@ -836,14 +934,8 @@ public class Clang {
 		System.out.println( "Finished Native Clang Compile." );
 		
 		
-		if( ucl == null )
-		{
-			final URL tempUrl = tempDir.toURI().toURL();
-			final URL[] urls = { tempUrl };
-			ucl = new URLClassLoader( urls );
-		}
 		Class<? extends SymbolicElem<DoubleElem,DoubleElemFactory>> clss = 
-				(Class<? extends SymbolicElem<DoubleElem,DoubleElemFactory>>)( ucl.loadClass( className ) );
+				(Class<? extends SymbolicElem<DoubleElem,DoubleElemFactory>>)( putCachedClass( key , className , libName ) );
 		
 		System.out.println( "Got Class." );
 		System.out.println( clss );
@@ -894,23 +986,17 @@ public class Clang {
 		}
 		
 		allocNum++;
-		final long clangAlloc = allocNum;
-		final String className = "Clang_" + allocNum;
-		final String libName = "libClang_" + allocNum;
-		
-		final File fjav = new File( tempDir , className + ".java" );
-		final File flib = new File( tempDir , libName + ".so" );
-		final File fclang = new File( tempDir , className + ".cpp" );
+		final String genName = "ClangGen_" + allocNum;
 		
 		final File fjavac =new File( tempDir , "runJavac.sh" );
 		final File fgcc =new File( tempDir , "runGCC.sh" );
 		
-		final File fPsInst= new File( tempDir , className + "A.txt" );
-		final File fJmemInst= new File( tempDir , className + "B.txt" );
-		final File fJcnstInst= new File( tempDir , className + "C.txt" );
-		final File fJcimpInst= new File( tempDir , className + "D.txt" );
-		final File fJlocmemInst= new File( tempDir , className + "E.txt" );
-		final File fJfldInst= new File( tempDir , className + "F.txt" );
+		final File fPsInst= new File( tempDir , genName + "A.txt" );
+		final File fJmemInst= new File( tempDir , genName + "B.txt" );
+		final File fJcnstInst= new File( tempDir , genName + "C.txt" );
+		final File fJcimpInst= new File( tempDir , genName + "D.txt" );
+		final File fJlocmemInst= new File( tempDir , genName + "E.txt" );
+		final File fJfldInst= new File( tempDir , genName + "F.txt" );
 		
 		
 		cnstParamsOuter = new ArrayList<Object>();
@@ -940,6 +1026,23 @@ public class Clang {
 		reuseMap = null;
 		
 		
+		final String key = KernelCache.computeKey( "Clang_Cplx_Dbl" , getCompilerConfig() , KernelCache.readString( fPsInst ) , 
+				KernelCache.readString( fJmemInst ) , KernelCache.readString( fJcnstInst ) , KernelCache.readString( fJcimpInst ) , 
+				KernelCache.readString( fJlocmemInst ) , KernelCache.readString( fJfldInst ) , vNames.re , vNames.im );
+		final String className = "Clang_" + key;
+		final String libName = "lib" + className;
+		
+		final Class<?> cachedClass = getCachedClass( key , className );
+		if( cachedClass != null )
+		{
+			return( (SymbolicElem<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>>)( newInstance( cachedClass ) ) );
+		}
+		
+		final File fjav = new File( tempDir , className + ".java" );
+		final File flib = new File( kernelCache != null ? kernelCache.getEntryDir( key ) : tempDir , libName + ".so" );
+		final File fclang = new File( tempDir , className + ".cpp" );
+		
+		
 		PrintStream ps = new PrintStream( new FileOutputStream( fjav ) );
 		
 		ps.println( "" );
@@ -1069,7 +1172,7 @@ public class Clang {
 		}
 		li.close();
 		ps.println( "" );
-		ps.println( "JNIEXPORT void JNICALL Java_Clang_1" + clangAlloc + "_evalD" );
+		ps.println( "JNIEXPORT void JNICALL Java_Clang_1" + key + "_evalD" );
 		ps.println( "  (JNIEnv *env, jobject ths, jobject hsh, jobjectArray locnarr)" );
 		ps.println( "{" );
 		ps.println( "" );
@@ -1250,14 +1353,8 @@ public class Clang {
 		System.out.println( "Finished Native Clang Compile." );
 		
 		
-		if( ucl == null )
-		{
-			final URL tempUrl = tempDir.toURI().toURL();
-			final URL[] urls = { tempUrl };
-			ucl = new URLClassLoader( urls );
-		}
 		Class<? extends SymbolicElem<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>>> clss = 
-				(Class<? extends SymbolicElem<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>>>)( ucl.loadClass( className ) );
+				(Class<? extends SymbolicElem<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>>>)( putCachedClass( key , className , libName ) );
 		
 		System.out.println( "Got Class." );
 		System.out.println( clss );
@@ -1276,12 +1373,141 @@ public class Clang {
 		return( gen );
 	}
 	
-
 	
 	
+	/**
+	 * Gets the compiler commands and flags used to build kernels, which are included in each kernel key.
+	 * The directory of the cache is included since the path of the shared library is embedded in the generated class.
+	 * @return The compiler commands and flags.
+	 */
+	protected static String getCompilerConfig()
+	{
+		return( ClangConstants.CLANG_JAVAC_COMMAND + "\n" + ClangConstants.CLANG_JAVAH_COMMAND + "\n" +
+				ClangConstants.CLANG_SIMPLEALGEBRA_CLASSPATH + "\n" + ClangConstants.CLANG_NATIVE_COMPILATION_COMMAND + "\n" +
+				ClangConstants.CLANG_NATIVE_LINK_COMMAND + "\n" + ( kernelCache != null ? kernelCache.getDir().getAbsolutePath() : "" ) + "\n" +
+				System.getProperty( "java.vm.version" ) );
+	}
 	
 	
-}
+	
+	/**
+	 * Gets the ClassLoader for loading generated classes from the temporary directory.
+	 * @return The ClassLoader.
+	 * @throws Throwable
+	 */
+	protected static URLClassLoader getClassLoader() throws Throwable
+	{
+		if( ucl == null )
+		{
+			final URL tempUrl = tempDir.toURI().toURL();
+			final URL[] urls = { tempUrl };
+			ucl = new URLClassLoader( urls );
+		}
+		return( ucl );
+	}
+	
+	
+	
+	/**
+	 * Gets the class of a kernel that has already been loaded in this JVM, or that is in the kernel cache.
+	 * @param key The key of the kernel.
+	 * @param className The name of the class of the kernel.
+	 * @return The class, or null if the kernel has to be built.
+	 * @throws Throwable
+	 */
+	protected static Class<?> getCachedClass( String key , String className ) throws Throwable
+	{
+		Class<?> clss = loadedClasses.get( key );
+		if( clss != null )
+		{
+			return( clss );
+		}
+		
+		if( kernelCache == null )
+		{
+			return( null );
+		}
+		
+		final byte[] bytes = kernelCache.get( key , className + ".class" );
+		if( bytes == null )
+		{
+			return( null );
+		}
+		
+		System.out.println( "Got Cached Kernel." );
+		Files.write( new File( tempDir , className + ".class" ).toPath() , bytes );
+		clss = getClassLoader().loadClass( className );
+		loadedClasses.put( key , clss );
+		return( clss );
+	}
+	
+	
+	
+	/**
+	 * Stores a newly built kernel in the kernel cache, and then loads its class.  The shared library
+	 * is stored before the class is loaded, since the class loads the library from the cache entry.
+	 * @param key The key of the kernel.
+	 * @param className The name of the class of the kernel.
+	 * @param libName The name of the shared library of the kernel.
+	 * @return The class.
+	 * @throws Throwable
+	 */
+	protected static Class<?> putCachedClass( String key , String className , String libName ) throws Throwable
+	{
+		if( kernelCache != null )
+		{
+			final HashMap<String,byte[]> files = new HashMap<String,byte[]>();
+			files.put( className + ".class" , Files.readAllBytes( new File( tempDir , className + ".class" ).toPath() ) );
+			files.put( libName + ".so" , Files.readAllBytes( new File( tempDir , libName + ".so" ).toPath() ) );
+			kernelCache.put( key , files );
+		}
+		
+		final Class<?> clss = getClassLoader().loadClass( className );
+		loadedClasses.put( key , clss );
+		return( clss );
+	}
+	
+	
+	
+	/**
+	 * Instantiates a kernel class with the accumulated constructor parameters.
+	 * @param clss The class of the kernel.
+	 * @return The instance.
+	 * @throws Throwable
+	 */
+	protected static Object newInstance( Class<?> clss ) throws Throwable
+	{
+		final Constructor<?> cnst = ( clss.getConstructors() )[ 0 ];
+		final Object[] cparam = cnstParamsOuter.toArray();
+		cnstParamsOuter = null;
+		cnstParamsInner = null;
+		return( cnst.newInstance( cparam ) );
+	}
+	
+	
+	
+	/**
+	 * Sets the cache of compiled kernels.
+	 * @param _kernelCache The cache of compiled kernels, or null to disable caching.
+	 */
+	public static void setKernelCache( KernelCache _kernelCache )
+	{
+		kernelCache = _kernelCache;
+	}
+	
+	
+	/**
+	 * Gets the cache of compiled kernels.
+	 * @return The cache of compiled kernels, or null if caching is disabled.
+	 */
+	public static KernelCache getKernelCache()
+	{
+		return( kernelCache );
+	}
 
 
 
+
+}
+
+
@@ -221,6 +221,13 @@ public class PartialDerivativeOp<R extends Elem<R,?>, S extends ElemFactory<R,S>
 	}
 	
 	
+	@Override
+	public int symbolicHashCode()
+	{
+		return( 31 * PartialDerivativeOp.class.hashCode() + withRespectTo.size() );
+	}
+	
+	
 	
 	/**
 	 * Handles the evaluation of symbolic equality after the caller 
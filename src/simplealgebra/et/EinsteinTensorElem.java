@@ -36,6 +36,7 @@ import java.util.TreeSet;
 import java.util.Map.Entry;
 import java.util.Set;
 
+import org.kie.api.KieBase;
 import org.kie.api.runtime.KieSession;
 
 import simplealgebra.AbstractCache;
@@ -51,6 +52,7 @@ import simplealgebra.WriteElemCache;
 import simplealgebra.ga.GeometricAlgebraMultivectorElem;
 import simplealgebra.ga.GeometricAlgebraMultivectorElemFactory;
 import simplealgebra.symbolic.DroolsSession;
+import simplealgebra.symbolic.DroolsSessionPool;
 import simplealgebra.symbolic.LoggingConfiguration;
 import simplealgebra.symbolic.PrecedenceComparator;
 import simplealgebra.symbolic.SymbolicPlaceholder;
@@ -1280,15 +1282,15 @@ public class EinsteinTensorElem<Z extends Object, R extends Elem<R,?>, S extends
 		}
 		
 		EinsteinTensorElem<Z, R, S> prev = this;
+		final KieBase kieBase = mode == EVAL_MODE.SIMPLIFY ?
+				getDistributeSimplifyKieBase() : getDistributeSimplify2KieBase();
 		KieSession session = null;
 		HashMap<ArrayList<BigInteger>,SymbolicPlaceholder<R,S>> place = null;
 		while( true )
 		{
 			try
 			{
-				session = mode == EVAL_MODE.SIMPLIFY ?
-						getDistributeSimplifyKieContainer().newKieSession() : 
-						getDistributeSimplify2KieContainer().newKieSession();
+				session = DroolsSessionPool.acquire( kieBase );
 		
 				insertSessionConfigItems( session );
 				
@@ -1316,7 +1318,7 @@ public class EinsteinTensorElem<Z extends Object, R extends Elem<R,?>, S extends
 					}
 				}
 		
-				session.dispose();
+				DroolsSessionPool.release( kieBase , session );
 			
 				return( ret );
 			}
@@ -0,0 +1,197 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package simplealgebra.ga;
+
+
+import java.math.BigInteger;
+import java.util.HashSet;
+
+import simplealgebra.NumDimensions;
+
+
+/**
+ * Utilities for representing a basis vector of a multivector as a primitive bitmask, where
+ * bit <i>i</i> of the mask is set iff. index <i>i</i> is in the basis vector.  This representation
+ * is only available for algebras of up to 64 dimensions.
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ *
+ */
+public final class BladeMask {
+
+
+	/**
+	 * The maximum number of dimensions for which a basis vector fits in a bitmask.
+	 */
+	public static final int MAX_MASK_DIM = 64;
+
+
+	/**
+	 * The maximum number of dimensions for which a basis vector fits in a bitmask.
+	 */
+	private static final BigInteger MAX_MASK_DIM_BI = BigInteger.valueOf( MAX_MASK_DIM );
+
+
+	/**
+	 * Private constructor for static utility class.
+	 */
+	private BladeMask()
+	{
+	}
+
+
+	/**
+	 * Returns whether the basis vectors of an algebra can be represented as bitmasks.
+	 * 
+	 * @param dim The number of dimensions in the algebra.
+	 * @return True iff. the basis vectors of the algebra can be represented as bitmasks.
+	 */
+	public static boolean isMaskable( final NumDimensions dim )
+	{
+		return( dim.getVal().compareTo( MAX_MASK_DIM_BI ) <= 0 );
+	}
+
+
+	/**
+	 * Returns whether a basis vector can be represented as a bitmask.
+	 * 
+	 * @param el The basis vector.
+	 * @return True iff. the basis vector can be represented as a bitmask.
+	 */
+	public static boolean isMaskable( final HashSet<BigInteger> el )
+	{
+		for( final BigInteger ii : el )
+		{
+			if( ( ii.signum() < 0 ) || ( ii.compareTo( MAX_MASK_DIM_BI ) >= 0 ) )
+			{
+				return( false );
+			}
+		}
+		return( true );
+	}
+
+
+	/**
+	 * Converts a basis vector to a bitmask.
+	 * 
+	 * @param el The basis vector.
+	 * @return The bitmask for the basis vector.
+	 */
+	public static long toMask( final HashSet<BigInteger> el )
+	{
+		long ret = 0L;
+		for( final BigInteger ii : el )
+		{
+			if( ( ii.signum() < 0 ) || ( ii.compareTo( MAX_MASK_DIM_BI ) >= 0 ) )
+			{
+				throw( new RuntimeException( "Index Does Not Fit In Mask " + ii ) );
+			}
+			ret |= ( 1L << ii.intValue() );
+		}
+		return( ret );
+	}
+
+
+	/**
+	 * Converts a bitmask to a basis vector.
+	 * 
+	 * @param mask The bitmask.
+	 * @return The basis vector for the bitmask.
+	 */
+	public static HashSet<BigInteger> fromMask( final long mask )
+	{
+		final HashSet<BigInteger> ret = new HashSet<BigInteger>();
+		long m = mask;
+		while( m != 0L )
+		{
+			final int indx = Long.numberOfTrailingZeros( m );
+			ret.add( BigInteger.valueOf( indx ) );
+			m &= m - 1L;
+		}
+		return( ret );
+	}
+
+
+	/**
+	 * Returns the grade of the basis vector represented by a bitmask.
+	 * 
+	 * @param mask The bitmask.
+	 * @return The grade of the basis vector.
+	 */
+	public static int grade( final long mask )
+	{
+		return( Long.bitCount( mask ) );
+	}
+
+
+	/**
+	 * Returns the union of a set of bitmasks.
+	 * 
+	 * @param masks The bitmasks.
+	 * @return The bitwise or of the bitmasks.
+	 */
+	public static long union( final long[] masks )
+	{
+		long ret = 0L;
+		for( final long mask : masks )
+		{
+			ret |= mask;
+		}
+		return( ret );
+	}
+	
+	
+	/**
+	 * Returns whether reordering the concatenation of two basis vectors into
+	 * ascending index order requires an odd number of transpositions.  This
+	 * is the parity of the number of index pairs where the index from the
+	 * left-side basis vector is greater than the index from the right-side
+	 * basis vector.
+	 * 
+	 * @param ka The bitmask for the basis vector on the left-side of the product.
+	 * @param kb The bitmask for the basis vector on the right-side of the product.
+	 * @return True iff. the reordering requires an odd number of transpositions.
+	 */
+	public static boolean reorderNegate( final long ka , final long kb )
+	{
+		int swaps = 0;
+		long a = ka >>> 1;
+		while( a != 0L )
+		{
+			swaps += Long.bitCount( a & kb );
+			a >>>= 1;
+		}
+		return( ( swaps & 1 ) != 0 );
+	}
+
+
+}
+
+
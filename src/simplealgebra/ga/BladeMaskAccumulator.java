@@ -0,0 +1,200 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package simplealgebra.ga;
+
+
+import java.util.Arrays;
+
+import simplealgebra.Elem;
+
+
+/**
+ * Accumulates the terms of a multivector product keyed by bitmask basis vectors (see {@link BladeMask}).
+ * Uses open addressing over primitive keys so that accumulating a term does not allocate
+ * a key object, and retains the order in which each basis vector was first added.
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ * 
+ * @param <R> The enclosed type.
+ */
+public final class BladeMaskAccumulator<R extends Elem<R,?>> {
+	
+	
+	/**
+	 * Constructs the accumulator.
+	 * 
+	 * @param expectedSize The expected number of distinct basis vectors.
+	 */
+	public BladeMaskAccumulator( final int expectedSize )
+	{
+		int cap = 8;
+		while( cap < 2 * expectedSize )
+		{
+			cap <<= 1;
+		}
+		table = new int[ cap ];
+		Arrays.fill( table , -1 );
+		keys = new long[ cap >> 1 ];
+		vals = new Object[ cap >> 1 ];
+	}
+	
+	
+	/**
+	 * Adds a term to the accumulator.
+	 * 
+	 * @param key The bitmask for the basis vector of the term.
+	 * @param val The value of the term.
+	 */
+	public void add( final long key , final R val )
+	{
+		final int mask = table.length - 1;
+		int slot = hash( key ) & mask;
+		while( true )
+		{
+			final int indx = table[ slot ];
+			if( indx < 0 )
+			{
+				if( count == keys.length )
+				{
+					grow();
+					add( key , val );
+					return;
+				}
+				table[ slot ] = count;
+				keys[ count ] = key;
+				vals[ count ] = val;
+				count++;
+				return;
+			}
+			if( keys[ indx ] == key )
+			{
+				vals[ indx ] = ( (R)( vals[ indx ] ) ).add( val );
+				return;
+			}
+			slot = ( slot + 1 ) & mask;
+		}
+	}
+	
+	
+	/**
+	 * Returns the number of distinct basis vectors in the accumulator.
+	 * 
+	 * @return The number of distinct basis vectors.
+	 */
+	public int size()
+	{
+		return( count );
+	}
+	
+	
+	/**
+	 * Returns the bitmask for the basis vector at an index, in the order in which the basis vectors were first added.
+	 * 
+	 * @param indx The index.
+	 * @return The bitmask for the basis vector.
+	 */
+	public long getKey( final int indx )
+	{
+		return( keys[ indx ] );
+	}
+	
+	
+	/**
+	 * Returns the accumulated value at an index, in the order in which the basis vectors were first added.
+	 * 
+	 * @param indx The index.
+	 * @return The accumulated value.
+	 */
+	public R getVal( final int indx )
+	{
+		return( (R)( vals[ indx ] ) );
+	}
+	
+	
+	/**
+	 * Doubles the capacity of the accumulator.
+	 */
+	private void grow()
+	{
+		final int cap = table.length << 1;
+		table = new int[ cap ];
+		Arrays.fill( table , -1 );
+		keys = Arrays.copyOf( keys , cap >> 1 );
+		vals = Arrays.copyOf( vals , cap >> 1 );
+		final int mask = cap - 1;
+		for( int indx = 0 ; indx < count ; indx++ )
+		{
+			int slot = hash( keys[ indx ] ) & mask;
+			while( table[ slot ] >= 0 )
+			{
+				slot = ( slot + 1 ) & mask;
+			}
+			table[ slot ] = indx;
+		}
+	}
+	
+	
+	/**
+	 * Hashes a bitmask key.
+	 * 
+	 * @param key The bitmask key.
+	 * @return The hash code.
+	 */
+	private static int hash( final long key )
+	{
+		final long h = key * 0x9E3779B97F4A7C15L;
+		return( (int)( h ^ ( h >>> 32 ) ) );
+	}
+	
+	
+	/**
+	 * Open-addressed table of indices into the key and value arrays, or -1 for an empty slot.
+	 */
+	private int[] table;
+	
+	/**
+	 * The bitmask keys in the order in which they were first added.
+	 */
+	private long[] keys;
+	
+	/**
+	 * The accumulated values in the order in which their keys were first added.
+	 */
+	private Object[] vals;
+	
+	/**
+	 * The number of distinct keys.
+	 */
+	private int count = 0;
+	
+
+}
+
+
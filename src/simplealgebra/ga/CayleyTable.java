@@ -0,0 +1,314 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package simplealgebra.ga;
+
+
+import java.math.BigInteger;
+import java.util.concurrent.ConcurrentHashMap;
+
+import simplealgebra.NumDimensions;
+import simplealgebra.ga.GeometricAlgebraMultivectorElem.GeometricAlgebraMultivectorCmd;
+
+
+/**
+ * Cached multiplication table for the bitmask basis vectors (see {@link BladeMask}) of an algebra.  
+ * Each table is keyed by the class of the Ord and the number of dimensions, and maps each pair of basis vectors
+ * to the basis vector of the product, whether the product is negated, and whether the product is retained by
+ * each of the dot, wedge, contraction, and scalar products.
+ * 
+ * Entries are calculated from {@link Ord#calcOrd(long, long, long[], NumDimensions)} the first time they are looked up,
+ * so that Ords that are only defined over some pairs of basis vectors can still use a table.  Entries are immutable once
+ * calculated, and a race between two threads calculating the same entry produces the same value, so the tables can be 
+ * shared across threads without locking.  This presumes that Ords are stateless, which is true of all Ords in SimpleAlgebra.
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ *
+ */
+public final class CayleyTable {
+	
+	
+	/**
+	 * The maximum number of dimensions for which a table is built.  A table has 4^n entries for n dimensions.
+	 */
+	public static final int MAX_TABLE_DIM = 8;
+	
+	/**
+	 * Bit indicating that an entry has been calculated.
+	 */
+	private static final long CALCULATED = 1L;
+	
+	/**
+	 * Bit indicating that the product is to be negated.
+	 */
+	private static final long NEGATE = 2L;
+	
+	/**
+	 * The first bit of the flags indicating whether the product is retained by each command, indexed by the ordinal of the command.
+	 */
+	private static final int RETAINED_SHIFT = 2;
+	
+	/**
+	 * The first bit of the basis vector of the product.
+	 */
+	private static final int RESULT_SHIFT = 16;
+	
+	/**
+	 * The commands for which retention flags are stored.
+	 */
+	private static final GeometricAlgebraMultivectorCmd[] PRODUCT_CMDS = {
+		GeometricAlgebraMultivectorCmd.DOT ,
+		GeometricAlgebraMultivectorCmd.DOT_HESTENES ,
+		GeometricAlgebraMultivectorCmd.LEFT_CONTRACTION ,
+		GeometricAlgebraMultivectorCmd.RIGHT_CONTRACTION ,
+		GeometricAlgebraMultivectorCmd.WEDGE ,
+		GeometricAlgebraMultivectorCmd.SCALAR };
+	
+	
+	/**
+	 * Key for looking up a table.
+	 * 
+	 * @author thorngreen
+	 * 
+	 */
+	private static final class TableKey
+	{
+		
+		/**
+		 * The class of the Ord.
+		 */
+		private final Class<?> ordClass;
+		
+		/**
+		 * The number of dimensions.
+		 */
+		private final int dim;
+		
+		/**
+		 * Constructs the key.
+		 * 
+		 * @param _ordClass The class of the Ord.
+		 * @param _dim The number of dimensions.
+		 */
+		public TableKey( final Class<?> _ordClass , final int _dim )
+		{
+			ordClass = _ordClass;
+			dim = _dim;
+		}
+		
+		@Override
+		public int hashCode()
+		{
+			return( ordClass.hashCode() * 31 + dim );
+		}
+		
+		@Override
+		public boolean equals( final Object in )
+		{
+			if( in instanceof TableKey )
+			{
+				final TableKey key = (TableKey) in;
+				return( ( ordClass == key.ordClass ) && ( dim == key.dim ) );
+			}
+			return( false );
+		}
+		
+	}
+	
+	
+	/**
+	 * Constructs the table.
+	 * 
+	 * @param _dim The number of dimensions.
+	 */
+	private CayleyTable( final int _dim )
+	{
+		dim = _dim;
+		entries = new long[ 1 << ( 2 * _dim ) ];
+	}
+	
+	
+	/**
+	 * Returns the table for an Ord and a number of dimensions, building an empty table on first use.
+	 * 
+	 * @param ord The Ord.
+	 * @param dim The number of dimensions.
+	 * @return The table, or null if the number of dimensions is larger than {@link #MAX_TABLE_DIM}.
+	 */
+	public static CayleyTable getTable( final Ord<?> ord , final NumDimensions dim )
+	{
+		final BigInteger dimVal = dim.getVal();
+		if( dimVal.compareTo( BigInteger.valueOf( MAX_TABLE_DIM ) ) > 0 )
+		{
+			return( null );
+		}
+		final int dm = dimVal.intValue();
+		final TableKey key = new TableKey( ord.getClass() , dm );
+		CayleyTable table = tables.get( key );
+		if( table == null )
+		{
+			final CayleyTable tb = new CayleyTable( dm );
+			table = tables.putIfAbsent( key , tb );
+			if( table == null )
+			{
+				table = tb;
+			}
+		}
+		return( table );
+	}
+	
+	
+	/**
+	 * Returns whether the table covers all of the basis vectors in a bitmask.  Basis vectors
+	 * with indices outside the dimensions of the algebra are not covered by the table.
+	 * 
+	 * @param mask The bitmask.
+	 * @return True iff. the table covers all of the basis vectors in the bitmask.
+	 */
+	public boolean covers( final long mask )
+	{
+		return( ( mask >>> dim ) == 0L );
+	}
+	
+	
+	/**
+	 * Looks up the entry for a product of two basis vectors, calculating it if necessary.
+	 * Both basis vectors must be covered by the table (see {@link #covers(long)}).
+	 * 
+	 * @param ord The Ord for the table.
+	 * @param dm The number of dimensions for the table.
+	 * @param ka The bitmask for the basis vector on the left-side of the product.
+	 * @param kb The bitmask for the basis vector on the right-side of the product.
+	 * @return The entry for the product.
+	 */
+	public <U extends NumDimensions> long lookup( final Ord<U> ord , final U dm , final long ka , final long kb )
+	{
+		final int indx = (int)( ( ka << dim ) | kb );
+		long entry = entries[ indx ];
+		if( entry == 0L )
+		{
+			entry = calcEntry( ord , dm , ka , kb );
+			entries[ indx ] = entry;
+		}
+		return( entry );
+	}
+	
+	
+	/**
+	 * Calculates the entry for a product of two basis vectors.
+	 * 
+	 * @param ord The Ord for the table.
+	 * @param dm The number of dimensions for the table.
+	 * @param ka The bitmask for the basis vector on the left-side of the product.
+	 * @param kb The bitmask for the basis vector on the right-side of the product.
+	 * @return The entry for the product.
+	 */
+	private static <U extends NumDimensions> long calcEntry( final Ord<U> ord , final U dm , final long ka , final long kb )
+	{
+		final long[] el = new long[ 1 ];
+		final boolean negate = ord.calcOrd( ka , kb , el , dm );
+		if( ( el[ 0 ] >>> ( 64 - RESULT_SHIFT ) ) != 0L )
+		{
+			throw( new RuntimeException( "Result Does Not Fit In Table" ) );
+		}
+		long entry = CALCULATED | ( el[ 0 ] << RESULT_SHIFT );
+		if( negate )
+		{
+			entry |= NEGATE;
+		}
+		for( final GeometricAlgebraMultivectorCmd cmd : PRODUCT_CMDS )
+		{
+			if( GeometricAlgebraMultivectorElem.bladeMaskRetained( cmd , ka , kb , el[ 0 ] ) )
+			{
+				entry |= retainedFlag( cmd );
+			}
+		}
+		return( entry );
+	}
+	
+	
+	/**
+	 * Returns the bitmask for the basis vector of the product from a table entry.
+	 * 
+	 * @param entry The table entry.
+	 * @return The bitmask for the basis vector of the product.
+	 */
+	public static long getResult( final long entry )
+	{
+		return( entry >>> RESULT_SHIFT );
+	}
+	
+	
+	/**
+	 * Returns whether the product is to be negated from a table entry.
+	 * 
+	 * @param entry The table entry.
+	 * @return True iff. the product is to be negated.
+	 */
+	public static boolean isNegate( final long entry )
+	{
+		return( ( entry & NEGATE ) != 0L );
+	}
+	
+	
+	/**
+	 * Returns the flag indicating whether a product is retained by a command.  A product is retained by the 
+	 * command iff. the bitwise and of the flag with the table entry is nonzero.
+	 * 
+	 * @param cmd The command, or null for the geometric product.
+	 * @return The flag for the command.
+	 */
+	public static long retainedFlag( final GeometricAlgebraMultivectorCmd cmd )
+	{
+		if( cmd == null )
+		{
+			return( CALCULATED );
+		}
+		return( 1L << ( RETAINED_SHIFT + cmd.ordinal() ) );
+	}
+	
+	
+	/**
+	 * The number of dimensions of the table.
+	 */
+	private final int dim;
+	
+	/**
+	 * The table entries indexed by the concatenation of the left-side and right-side bitmasks, or zero for an entry that has not been calculated.
+	 */
+	private final long[] entries;
+	
+	/**
+	 * The tables keyed by Ord class and number of dimensions.
+	 */
+	private static final ConcurrentHashMap<TableKey,CayleyTable> tables = new ConcurrentHashMap<TableKey,CayleyTable>();
+	
+
+}
+
@@ -0,0 +1,637 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package simplealgebra.ga;
+
+
+import java.io.PrintStream;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Map.Entry;
+
+import simplealgebra.AbstractCache;
+import simplealgebra.BadCreationException;
+import simplealgebra.CloneThreadCache;
+import simplealgebra.DoubleElem;
+import simplealgebra.DoubleElemFactory;
+import simplealgebra.Elem;
+import simplealgebra.NotInvertibleException;
+import simplealgebra.NumDimensions;
+import simplealgebra.PrimitiveRandom;
+import simplealgebra.WriteElemCache;
+import simplealgebra.WriteNumDimensionsCache;
+import simplealgebra.ga.GeometricAlgebraMultivectorElem.GeometricAlgebraMultivectorCmd;
+import simplealgebra.symbolic.SymbolicElem.EVAL_MODE;
+
+
+/**
+ * A dense representation of a Geometric Algebra multivector with primitive double coefficients.  The
+ * coefficients are stored in an array of length 2^n, indexed by the bitmask for each basis vector (see {@link BladeMask}),
+ * so that the products of the multivector do not allocate any elems or basis vector sets per term.
+ * Produces the same results as a {@link GeometricAlgebraMultivectorElem} enclosing {@link DoubleElem}, to which it
+ * can be converted with {@link #toSparse()} and from which it can be converted with {@link GaDoubleMultivectorFactory#fromSparse(GeometricAlgebraMultivectorElem)}.
+ * 
+ * <P>
+ * <P> See <A href="http://en.wikipedia.org/wiki/Geometric_algebra">http://en.wikipedia.org/wiki/Geometric_algebra</A>
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ * 
+ * @param <U> The number of dimensions in the multivector.
+ * @param <A> The Ord of the multivector.
+ */
+public class GaDoubleMultivector<U extends NumDimensions, A extends Ord<U>> extends Elem<GaDoubleMultivector<U,A>, GaDoubleMultivectorFactory<U,A>> {
+
+
+	/**
+	 * The maximum number of dimensions for which a dense multivector can be constructed.  A dense multivector has 2^n coefficients for n dimensions.
+	 */
+	public static final int MAX_DENSE_DIM = 12;
+
+
+	/**
+	 * Constructs the elem.
+	 * 
+	 * @param _dim The number of dimensions in the multivector.
+	 * @param _ord The Ord of the multivector.
+	 */
+	public GaDoubleMultivector( final U _dim , final A _ord )
+	{
+		dim = _dim;
+		ord = _ord;
+		vals = new double[ 1 << denseDimChecked( _dim ) ];
+	}
+
+
+	/**
+	 * Constructs the elem from an array of coefficients.  The array is used directly without copying.
+	 * 
+	 * @param _dim The number of dimensions in the multivector.
+	 * @param _ord The Ord of the multivector.
+	 * @param _vals The coefficients indexed by basis vector bitmask.
+	 */
+	protected GaDoubleMultivector( final U _dim , final A _ord , final double[] _vals )
+	{
+		dim = _dim;
+		ord = _ord;
+		vals = _vals;
+	}
+
+
+	/**
+	 * Returns the number of dimensions of an algebra as an int if a dense multivector can be constructed for the algebra.
+	 * 
+	 * @param dim The number of dimensions in the algebra.
+	 * @return The number of dimensions, or -1 if the algebra is larger than {@link #MAX_DENSE_DIM}.
+	 */
+	public static int denseDim( final NumDimensions dim )
+	{
+		final BigInteger dimVal = dim.getVal();
+		if( dimVal.compareTo( BigInteger.valueOf( MAX_DENSE_DIM ) ) > 0 )
+		{
+			return( -1 );
+		}
+		return( dimVal.intValue() );
+	}
+
+
+	/**
+	 * Returns the number of dimensions of an algebra as an int, throwing an exception if a dense multivector cannot be constructed for the algebra.
+	 * 
+	 * @param dim The number of dimensions in the algebra.
+	 * @return The number of dimensions.
+	 */
+	private static int denseDimChecked( final NumDimensions dim )
+	{
+		final int dm = denseDim( dim );
+		if( dm < 0 )
+		{
+			throw( new RuntimeException( "Too Many Dimensions For Dense Multivector" ) );
+		}
+		return( dm );
+	}
+
+
+	/**
+	 * Accumulates the terms of a product of two multivectors in bitmask form.  No allocation is performed
+	 * inside the loops.  The terms are accumulated in the order of the input arrays so that the sums are the same
+	 * as those of the corresponding {@link GeometricAlgebraMultivectorElem} product.
+	 * 
+	 * @param ord The Ord of the algebra.
+	 * @param dim The number of dimensions in the algebra.
+	 * @param table The multiplication table for the algebra, or null to calculate each term from the Ord.
+	 * @param cmd The product to calculate, or null for the geometric product.
+	 * @param kas The bitmasks for the basis vectors on the left-side of the product.
+	 * @param vas The coefficients on the left-side of the product.
+	 * @param na The number of terms on the left-side of the product.
+	 * @param kbs The bitmasks for the basis vectors on the right-side of the product.
+	 * @param vbs The coefficients on the right-side of the product.
+	 * @param nb The number of terms on the right-side of the product.
+	 * @param acc The accumulator for the result, indexed by basis vector bitmask.
+	 * @param touched If non-null, records which elements of the accumulator have been assigned so that the first term assigned to each element is stored rather than added to zero.
+	 * @param order If non-null, receives the bitmasks of the basis vectors of the result in the order in which they were first assigned.  Requires touched to be non-null.
+	 * @return The number of basis vectors in the result if order is non-null, zero if order is null, or -1 if a term of the result does not fit in the accumulator.
+	 */
+	protected static <U extends NumDimensions> int accumulateProduct( final Ord<U> ord , final U dim , final CayleyTable table , final GeometricAlgebraMultivectorCmd cmd ,
+			final long[] kas , final double[] vas , final int na , final long[] kbs , final double[] vbs , final int nb ,
+			final double[] acc , final boolean[] touched , final int[] order )
+	{
+		final long flag = CayleyTable.retainedFlag( cmd );
+		final long[] el = new long[ 1 ];
+		final long sz = acc.length;
+		int count = 0;
+		for( int ii = 0 ; ii < na ; ii++ )
+		{
+			final long ka = kas[ ii ];
+			final double va = vas[ ii ];
+			for( int jj = 0 ; jj < nb ; jj++ )
+			{
+				final long kb = kbs[ jj ];
+				final long res;
+				final boolean negate;
+				if( table != null )
+				{
+					final long entry = table.lookup( ord , dim , ka , kb );
+					if( ( entry & flag ) == 0L )
+					{
+						continue;
+					}
+					res = CayleyTable.getResult( entry );
+					negate = CayleyTable.isNegate( entry );
+				}
+				else
+				{
+					negate = ord.calcOrd( ka , kb , el , dim );
+					res = el[ 0 ];
+					if( !( GeometricAlgebraMultivectorElem.bladeMaskRetained( cmd , ka , kb , res ) ) )
+					{
+						continue;
+					}
+				}
+				if( ( res < 0L ) || ( res >= sz ) )
+				{
+					return( -1 );
+				}
+				final int indx = (int) res;
+				final double vmul = negate ? -( va * vbs[ jj ] ) : va * vbs[ jj ];
+				if( touched == null )
+				{
+					acc[ indx ] += vmul;
+				}
+				else if( touched[ indx ] )
+				{
+					acc[ indx ] = acc[ indx ] + vmul;
+				}
+				else
+				{
+					touched[ indx ] = true;
+					acc[ indx ] = vmul;
+					if( order != null )
+					{
+						order[ count ] = indx;
+						count++;
+					}
+				}
+			}
+		}
+		return( count );
+	}
+
+
+	/**
+	 * Packs the nonzero coefficients of the multivector.
+	 * 
+	 * @param ks Array into which the bitmasks of the nonzero basis vectors are placed.
+	 * @param vs Array into which the nonzero coefficients are placed.
+	 * @return The number of nonzero coefficients.
+	 */
+	private int packNonzero( final long[] ks , final double[] vs )
+	{
+		int count = 0;
+		for( int ii = 0 ; ii < vals.length ; ii++ )
+		{
+			final double v = vals[ ii ];
+			if( v != 0.0 )
+			{
+				ks[ count ] = ii;
+				vs[ count ] = v;
+				count++;
+			}
+		}
+		return( count );
+	}
+
+
+	/**
+	 * Calculates a product of the multivector with the parameter.
+	 * 
+	 * @param b The right-side argument of the product.
+	 * @param cmd The product to calculate, or null for the geometric product.
+	 * @return The result of the product.
+	 */
+	private GaDoubleMultivector<U,A> product( final GaDoubleMultivector<U,A> b , final GeometricAlgebraMultivectorCmd cmd )
+	{
+		final long[] kas = new long[ vals.length ];
+		final double[] vas = new double[ vals.length ];
+		final int na = packNonzero( kas , vas );
+		final long[] kbs = new long[ b.vals.length ];
+		final double[] vbs = new double[ b.vals.length ];
+		final int nb = b.packNonzero( kbs , vbs );
+		final double[] acc = new double[ vals.length ];
+		final int stat = accumulateProduct( ord , dim , CayleyTable.getTable( ord , dim ) , cmd , kas , vas , na , kbs , vbs , nb , acc , null , null );
+		if( stat < 0 )
+		{
+			throw( new RuntimeException( "Product Does Not Fit In Dense Multivector" ) );
+		}
+		return( new GaDoubleMultivector<U,A>( dim , ord , acc ) );
+	}
+
+
+	@Override
+	public GaDoubleMultivector<U,A> add( GaDoubleMultivector<U,A> b ) {
+		final double[] ret = new double[ vals.length ];
+		for( int ii = 0 ; ii < vals.length ; ii++ )
+		{
+			ret[ ii ] = vals[ ii ] + b.vals[ ii ];
+		}
+		return( new GaDoubleMultivector<U,A>( dim , ord , ret ) );
+	}
+
+
+	@Override
+	public GaDoubleMultivector<U,A> mult( GaDoubleMultivector<U,A> b ) {
+		return( product( b , null ) );
+	}
+
+
+	@Override
+	public GaDoubleMultivector<U,A> negate() {
+		final double[] ret = new double[ vals.length ];
+		for( int ii = 0 ; ii < vals.length ; ii++ )
+		{
+			ret[ ii ] = - vals[ ii ];
+		}
+		return( new GaDoubleMultivector<U,A>( dim , ord , ret ) );
+	}
+
+
+	@Override
+	public GaDoubleMultivector<U,A> invertLeft() throws NotInvertibleException {
+		return( getFac().fromSparse( toSparse().invertLeft() ) );
+	}
+
+
+	@Override
+	public GaDoubleMultivector<U,A> invertRight() throws NotInvertibleException {
+		return( getFac().fromSparse( toSparse().invertRight() ) );
+	}
+
+
+	@Override
+	public GaDoubleMultivector<U,A> divideBy( BigInteger val ) {
+		if( val.equals( BigInteger.ZERO ) )
+		{
+			throw( new BadCreationException() );
+		}
+		final double dv = val.doubleValue();
+		final double[] ret = new double[ vals.length ];
+		for( int ii = 0 ; ii < vals.length ; ii++ )
+		{
+			ret[ ii ] = vals[ ii ] / dv;
+		}
+		return( new GaDoubleMultivector<U,A>( dim , ord , ret ) );
+	}
+
+
+	@Override
+	public GaDoubleMultivector<U,A> random( PrimitiveRandom in ) {
+		final double[] ret = new double[ vals.length ];
+		for( int ii = 0 ; ii < vals.length ; ii++ )
+		{
+			if( vals[ ii ] != 0.0 )
+			{
+				ret[ ii ] = in.nextRandom( vals[ ii ] );
+			}
+		}
+		return( new GaDoubleMultivector<U,A>( dim , ord , ret ) );
+	}
+
+
+	@Override
+	public DoubleElem totalMagnitude()
+	{
+		return( new DoubleElem( sumSquares() ) );
+	}
+
+
+	/**
+	 * Returns the sum of the squares of the coefficients.
+	 * 
+	 * @return The sum of the squares of the coefficients.
+	 */
+	private double sumSquares()
+	{
+		double ret = 0.0;
+		for( final double v : vals )
+		{
+			ret += v * v;
+		}
+		return( ret );
+	}
+
+
+	/**
+	 * Returns the cross product of the multivector with the parameter.
+	 * Note: this operation only works with vectors in 3-D for a GeometricAlgebraOrd.
+	 * 
+	 * @param b The right-side argument of the cross product.
+	 * @return The result of the cross product.
+	 */
+	private GaDoubleMultivector<U,A> cross( final GaDoubleMultivector<U,A> b ) {
+		final GaDoubleMultivector<U,A> wdg = product( b , GeometricAlgebraMultivectorCmd.WEDGE );
+		final GaDoubleMultivector<U,A> mi = new GaDoubleMultivector<U,A>( dim , ord );
+		mi.setVal( 7 , -1.0 );
+		return( mi.mult( wdg ) );
+	}
+
+
+	/**
+	 * Returns the desired result from multiplying the multivector by its reversion.
+	 * 
+	 * @return The desired result from multiplying the multivector by its reversion.
+	 */
+	private GaDoubleMultivector<U,A> calcReversionMultResult()
+	{
+		final GaDoubleMultivector<U,A> ret = new GaDoubleMultivector<U,A>( dim , ord );
+		ret.setVal( 0 , sumSquares() );
+		return( ret );
+	}
+
+
+	@Override
+	public GaDoubleMultivector<U,A> handleOptionalOp( Object id , ArrayList<GaDoubleMultivector<U,A>> args ) throws NotInvertibleException
+	{
+		if( id instanceof GeometricAlgebraMultivectorCmd )
+		{
+			switch( (GeometricAlgebraMultivectorCmd) id )
+			{
+				case DOT:
+				case DOT_HESTENES:
+				case LEFT_CONTRACTION:
+				case RIGHT_CONTRACTION:
+				case WEDGE:
+				case SCALAR:
+				{
+					GaDoubleMultivector<U,A> b = args.get( 0 );
+					return( product( b , (GeometricAlgebraMultivectorCmd) id ) );
+				}
+				// break;
+
+				case CROSS:
+				{
+					GaDoubleMultivector<U,A> b = args.get( 0 );
+					return( cross( b ) );
+				}
+				// break;
+
+				case REVERSE_LEFT:
+				{
+					return( calcReversionMultResult().mult( invertLeft() ) );
+				}
+				// break;
+
+				case REVERSE_RIGHT:
+				{
+					return( invertRight().mult( calcReversionMultResult() ) );
+				}
+				// break;
+
+			}
+		}
+
+		return( super.handleOptionalOp( id , args ) );
+	}
+
+
+	/**
+	 * Converts the multivector to a sparse multivector.  Only the nonzero coefficients are copied.
+	 * 
+	 * @return The sparse multivector.
+	 */
+	public GeometricAlgebraMultivectorElem<U,A,DoubleElem,DoubleElemFactory> toSparse()
+	{
+		final GeometricAlgebraMultivectorElem<U,A,DoubleElem,DoubleElemFactory> ret =
+				new GeometricAlgebraMultivectorElem<U,A,DoubleElem,DoubleElemFactory>( new DoubleElemFactory() , dim , ord );
+		for( int ii = 0 ; ii < vals.length ; ii++ )
+		{
+			if( vals[ ii ] != 0.0 )
+			{
+				ret.setVal( BladeMask.fromMask( ii ) , new DoubleElem( vals[ ii ] ) );
+			}
+		}
+		return( ret );
+	}
+
+
+	/**
+	 * Copies the coefficients of a sparse multivector into the multivector.
+	 * 
+	 * @param in The sparse multivector.
+	 */
+	protected void copyFromSparse( final GeometricAlgebraMultivectorElem<U,A,DoubleElem,DoubleElemFactory> in )
+	{
+		for( final Entry<HashSet<BigInteger>,DoubleElem> ii : in.getEntrySet() )
+		{
+			final HashSet<BigInteger> key = ii.getKey();
+			if( !( BladeMask.isMaskable( key ) ) )
+			{
+				throw( new RuntimeException( "Basis Vector Does Not Fit In Dense Multivector" ) );
+			}
+			final long mask = BladeMask.toMask( key );
+			if( mask >= vals.length )
+			{
+				throw( new RuntimeException( "Basis Vector Does Not Fit In Dense Multivector" ) );
+			}
+			vals[ (int) mask ] = ii.getValue().getVal();
+		}
+	}
+
+
+	@Override
+	public GaDoubleMultivector<U,A> cloneThread( final BigInteger threadIndex )
+	{
+		// The NumDimensions dim and the Ord ord are presumed to be immutable.
+		return( new GaDoubleMultivector<U,A>( dim , ord , vals.clone() ) );
+	}
+
+
+	@Override
+	public GaDoubleMultivector<U,A> cloneThreadCached( final BigInteger threadIndex , final CloneThreadCache<GaDoubleMultivector<U,A>,GaDoubleMultivectorFactory<U,A>> cache )
+	{
+		final GaDoubleMultivector<U,A> ctmp = cache.get( this );
+		if( ctmp != null )
+		{
+			return( ctmp );
+		}
+		final GaDoubleMultivector<U,A> ret = cloneThread( threadIndex );
+		cache.put( this , ret );
+		return( ret );
+	}
+
+
+	@Override
+	public boolean evalSymbolicZeroApprox( EVAL_MODE mode )
+	{
+		for( final double v : vals )
+		{
+			if( v != 0.0 )
+			{
+				return( false );
+			}
+		}
+		return( true );
+	}
+
+
+	@Override
+	public boolean evalSymbolicIdentityApprox( EVAL_MODE mode )
+	{
+		if( vals[ 0 ] != 1.0 )
+		{
+			return( false );
+		}
+		for( int ii = 1 ; ii < vals.length ; ii++ )
+		{
+			if( vals[ ii ] != 0.0 )
+			{
+				return( false );
+			}
+		}
+		return( true );
+	}
+
+
+	@Override
+	public String writeDesc( WriteElemCache<GaDoubleMultivector<U,A>,GaDoubleMultivectorFactory<U,A>> cache , PrintStream ps )
+	{
+		String st = cache.get( this );
+		if( st == null )
+		{
+			cache.applyAuxCache( new WriteNumDimensionsCache( cache.getCacheVal() ) );
+			cache.applyAuxCache( new WriteOrdCache( cache.getCacheVal() ) );
+			final String staDim = dim.writeDesc( (WriteNumDimensionsCache)( cache.getAuxCache( WriteNumDimensionsCache.class ) ) , ps);
+			final String staOrd = ord.writeDesc( (WriteOrdCache<U>)( cache.getAuxCache( (Class<? extends AbstractCache<?, ?, ?, ?>>) ((Class)(WriteOrdCache.class)) ) ) , dim, ps);
+			st = cache.getIncrementVal();
+			cache.put(this, st);
+			this.getFac().writeElemTypeString( ps );
+			ps.print( " " );
+			ps.print( st );
+			ps.print( " = new " );
+			this.getFac().writeElemTypeString( ps );
+			ps.print( "( " );
+			ps.print( staDim );
+			ps.print( " , " );
+			ps.print( staOrd );
+			ps.println( " );" );
+			for( int ii = 0 ; ii < vals.length ; ii++ )
+			{
+				if( vals[ ii ] != 0.0 )
+				{
+					ps.print( st );
+					ps.print( ".setVal( " );
+					ps.print( ii );
+					ps.print( " , " );
+					ps.print( vals[ ii ] );
+					ps.println( " );" );
+				}
+			}
+		}
+		return( st );
+	}
+
+
+	@Override
+	public GaDoubleMultivectorFactory<U,A> getFac() {
+		return( new GaDoubleMultivectorFactory<U,A>( dim , ord ) );
+	}
+
+
+	/**
+	 * Gets the coefficient for a basis vector.
+	 * 
+	 * @param mask The bitmask for the basis vector.
+	 * @return The coefficient.
+	 */
+	public double getVal( final int mask )
+	{
+		return( vals[ mask ] );
+	}
+
+
+	/**
+	 * Sets the coefficient for a basis vector.
+	 * 
+	 * @param mask The bitmask for the basis vector.
+	 * @param val The coefficient.
+	 */
+	public void setVal( final int mask , final double val )
+	{
+		vals[ mask ] = val;
+	}
+
+
+	/**
+	 * Returns the number of coefficients in the dense representation.
+	 * 
+	 * @return The number of coefficients.
+	 */
+	public int getNumBasisVectors()
+	{
+		return( vals.length );
+	}
+
+
+	/**
+	 * The coefficients indexed by basis vector bitmask.
+	 */
+	private final double[] vals;
+
+	/**
+	 * The number of dimensions in the multivector.
+	 */
+	private final U dim;
+
+	/**
+	 * The Ord of the multivector.
+	 */
+	private final A ord;
+
+
+}
+
@@ -0,0 +1,278 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package simplealgebra.ga;
+
+
+import java.io.PrintStream;
+import java.math.BigInteger;
+import java.util.HashSet;
+
+import simplealgebra.AbstractCache;
+import simplealgebra.CloneThreadCache;
+import simplealgebra.DoubleElem;
+import simplealgebra.DoubleElemFactory;
+import simplealgebra.ElemFactory;
+import simplealgebra.NumDimensions;
+import simplealgebra.WriteElemCache;
+import simplealgebra.WriteNumDimensionsCache;
+
+
+/**
+ * A factory for dense Geometric Algebra multivectors with primitive double coefficients.
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ * 
+ * @param <U> The number of dimensions in the algebra.
+ * @param <A> The ord of the algebra.
+ */
+public class GaDoubleMultivectorFactory<U extends NumDimensions, A extends Ord<U>> extends ElemFactory<GaDoubleMultivector<U,A>, GaDoubleMultivectorFactory<U,A>> {
+
+	/**
+	 * Constructs the factory.
+	 * 
+	 * @param _dim The number of dimensions in the algebra.
+	 * @param _ord The ord of the algebra.
+	 */
+	public GaDoubleMultivectorFactory( U _dim , A _ord )
+	{
+		dim = _dim;
+		ord = _ord;
+	}
+
+
+	/**
+	 * Constructs the factory for the same algebra as a factory for sparse multivectors.
+	 * 
+	 * @param in The factory for sparse multivectors.
+	 */
+	public GaDoubleMultivectorFactory( GeometricAlgebraMultivectorElemFactory<U,A,DoubleElem,DoubleElemFactory> in )
+	{
+		this( in.getDim() , in.getOrd() );
+	}
+
+
+	@Override
+	public GaDoubleMultivector<U,A> identity() {
+		final GaDoubleMultivector<U,A> ret = new GaDoubleMultivector<U,A>( dim , ord );
+		ret.setVal( 0 , 1.0 );
+		return( ret );
+	}
+
+	@Override
+	public GaDoubleMultivector<U,A> zero() {
+		return( new GaDoubleMultivector<U,A>( dim , ord ) );
+	}
+
+
+	@Override
+	public DoubleElem totalMagnitudeZero()
+	{
+		return( new DoubleElem( 0.0 ) );
+	}
+
+
+	@Override
+	public boolean isMultCommutative()
+	{
+		return( false );
+	}
+
+
+	@Override
+	public boolean isNestedMultCommutative()
+	{
+		return( true );
+	}
+
+
+	@Override
+	public boolean isMultAssociative()
+	{
+		return( true );
+	}
+
+
+	@Override
+	public boolean isNestedMultAssociative()
+	{
+		return( true );
+	}
+
+
+	/**
+	 * Returns whether a sparse multivector can be converted to a dense multivector.
+	 * 
+	 * @param in The sparse multivector.
+	 * @return True iff. the algebra is small enough for a dense multivector and all basis vectors of the sparse multivector are in the algebra.
+	 */
+	public static boolean isDenseable( GeometricAlgebraMultivectorElem<?,?,DoubleElem,DoubleElemFactory> in )
+	{
+		final int dm = GaDoubleMultivector.denseDim( in.getFac().getDim() );
+		if( dm < 0 )
+		{
+			return( false );
+		}
+		for( final HashSet<BigInteger> key : in.getKeySet() )
+		{
+			if( !( BladeMask.isMaskable( key ) ) || ( ( BladeMask.toMask( key ) >>> dm ) != 0L ) )
+			{
+				return( false );
+			}
+		}
+		return( true );
+	}
+
+
+	/**
+	 * Converts a sparse multivector to a dense multivector.
+	 * 
+	 * @param in The sparse multivector.
+	 * @return The dense multivector.
+	 */
+	public GaDoubleMultivector<U,A> fromSparse( GeometricAlgebraMultivectorElem<U,A,DoubleElem,DoubleElemFactory> in )
+	{
+		final GaDoubleMultivector<U,A> ret = zero();
+		ret.copyFromSparse( in );
+		return( ret );
+	}
+
+
+	/**
+	 * Returns a factory for sparse multivectors in the same algebra.
+	 * 
+	 * @return The factory for sparse multivectors.
+	 */
+	public GeometricAlgebraMultivectorElemFactory<U,A,DoubleElem,DoubleElemFactory> getSparseFac()
+	{
+		return( new GeometricAlgebraMultivectorElemFactory<U,A,DoubleElem,DoubleElemFactory>( new DoubleElemFactory() , dim , ord ) );
+	}
+
+
+	/**
+	 * Returns the number of dimensions.
+	 * 
+	 * @return The number of dimensions.
+	 */
+	public U getDim()
+	{
+		return( dim );
+	}
+
+
+	/**
+	 * Returns the ord.
+	 * 
+	 * @return The ord.
+	 */
+	public A getOrd()
+	{
+		return( ord );
+	}
+
+
+	@Override
+	public GaDoubleMultivectorFactory<U,A> cloneThread( final BigInteger threadIndex )
+	{
+		// The NumDimensions dim and Ord ord are presumed to be immutable.
+		return( this );
+	}
+
+
+	@Override
+	public GaDoubleMultivectorFactory<U,A> cloneThreadCached( final BigInteger threadIndex , final CloneThreadCache<GaDoubleMultivector<U,A>,GaDoubleMultivectorFactory<U,A>> cache )
+	{
+		// The NumDimensions dim and Ord ord are presumed to be immutable.
+		return( this );
+	}
+
+
+	@Override
+	public String writeDesc( WriteElemCache<GaDoubleMultivector<U,A>,GaDoubleMultivectorFactory<U,A>> cache , PrintStream ps )
+	{
+		String st = cache.getFac( this );
+		if( st == null )
+		{
+			cache.applyAuxCache( new WriteNumDimensionsCache( cache.getCacheVal() ) );
+			cache.applyAuxCache( new WriteOrdCache( cache.getCacheVal() ) );
+			final String sta2 = dim.writeDesc( (WriteNumDimensionsCache)( cache.getAuxCache( WriteNumDimensionsCache.class ) ) , ps);
+			final String sta3 = ord.writeDesc( (WriteOrdCache)( cache.getAuxCache( (Class<? extends AbstractCache<?, ?, ?, ?>>) ((Class)(WriteOrdCache.class)) ) ) ,dim ,  ps);
+			st = cache.getIncrementVal();
+			cache.putFac(this, st);
+			writeElemFactoryTypeString( ps );
+			ps.print( " " );
+			ps.print( st );
+			ps.print( " = new " );
+			writeElemFactoryTypeString( ps );
+			ps.print( "( " );
+			ps.print( sta2 );
+			ps.print( " , " );
+			ps.print( sta3 );
+			ps.println( " );" );
+		}
+		return( st );
+	}
+
+	@Override
+	public void writeElemTypeString( PrintStream ps )
+	{
+		ps.print( GaDoubleMultivector.class.getSimpleName() );
+		ps.print( "<" );
+		dim.writeTypeString(ps);
+		ps.print( "," );
+		ord.writeTypeString(dim,ps);
+		ps.print( ">" );
+	}
+
+
+	@Override
+	public void writeElemFactoryTypeString( PrintStream ps )
+	{
+		ps.print( GaDoubleMultivectorFactory.class.getSimpleName() );
+		ps.print( "<" );
+		dim.writeTypeString(ps);
+		ps.print( "," );
+		ord.writeTypeString(dim,ps);
+		ps.print( ">" );
+	}
+
+
+	/**
+	 * The number of dimensions in the algebra.
+	 */
+	private final U dim;
+
+	/**
+	 * The ord of the algebra.
+	 */
+	private final A ord;
+
+
+}
+
@@ -36,11 +36,14 @@ import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
 
+import org.kie.api.KieBase;
 import org.kie.api.runtime.KieSession;
 
 import simplealgebra.AbstractCache;
 import simplealgebra.BadCreationException;
 import simplealgebra.CloneThreadCache;
+import simplealgebra.DoubleElem;
+import simplealgebra.DoubleElemFactory;
 import simplealgebra.Elem;
 import simplealgebra.ElemFactory;
 import simplealgebra.MutableElem;
@@ -55,6 +58,7 @@ import simplealgebra.WriteElemCache;
 import simplealgebra.WriteNumDimensionsCache;
 import simplealgebra.et.EinsteinTensorElem;
 import simplealgebra.symbolic.DroolsSession;
+import simplealgebra.symbolic.DroolsSessionPool;
 import simplealgebra.symbolic.LoggingConfiguration;
 import simplealgebra.symbolic.MultiplicativeDistributionRequiredException;
 import simplealgebra.symbolic.PrecedenceComparator;
@@ -253,8 +257,247 @@ public class GeometricAlgebraMultivectorElem<U extends NumDimensions, A extends
 	}
 
 	
+	/**
+	 * Packs the basis vectors of the multivector into bitmask form (see {@link BladeMask}), 
+	 * in the iteration order of the multivector.
+	 * 
+	 * @param vals List into which the enclosed values are placed, in the same order as the returned bitmasks.
+	 * @return The bitmasks for the basis vectors, or null if a basis vector does not fit in a bitmask.
+	 */
+	private long[] packBladeMasks( final ArrayList<R> vals )
+	{
+		final long[] ret = new long[ map.size() ];
+		int count = 0;
+		for( final Entry<HashSet<BigInteger>,R> ii : map.entrySet() )
+		{
+			final HashSet<BigInteger> key = ii.getKey();
+			if( !( BladeMask.isMaskable( key ) ) )
+			{
+				return( null );
+			}
+			ret[ count ] = BladeMask.toMask( key );
+			vals.add( ii.getValue() );
+			count++;
+		}
+		return( ret );
+	}
+	
+	
+	/**
+	 * Returns whether a term of a product is retained by the product.
+	 * 
+	 * @param cmd The product, or null for the geometric product.
+	 * @param ka The bitmask for the basis vector on the left-side of the term.
+	 * @param kb The bitmask for the basis vector on the right-side of the term.
+	 * @param el The bitmask for the basis vector of the result of the term.
+	 * @return True iff. the term is retained by the product.
+	 */
+	protected static boolean bladeMaskRetained( final GeometricAlgebraMultivectorCmd cmd , final long ka , final long kb , final long el )
+	{
+		if( cmd == null )
+		{
+			return( true );
+		}
+		
+		final int kas = BladeMask.grade( ka );
+		final int kbs = BladeMask.grade( kb );
+		final int els = BladeMask.grade( el );
+		
+		switch( cmd )
+		{
+			case DOT:
+				return( els == Math.abs( kbs - kas ) );
+			
+			case DOT_HESTENES:
+				return( ( els == Math.abs( kbs - kas ) ) && ( kas != 0 ) && ( kbs != 0 ) );
+				
+			case WEDGE:
+				return( els == ( kas + kbs ) );
+				
+			case LEFT_CONTRACTION:
+				return( els == ( kbs - kas ) );
+				
+			case RIGHT_CONTRACTION:
+				return( els == ( kas - kbs ) );
+				
+			case SCALAR:
+				return( els == 0 );
+				
+			default:
+				throw( new RuntimeException( "Not Supported" ) );
+		}
+	}
+	
+	
+	/**
+	 * Calculates a product of the multivector with the parameter using bitmask basis vectors,
+	 * so that no basis vector sets are allocated per term of the product.  The terms are 
+	 * accumulated in the same order as the HashSet-based implementation of the product.
+	 * For algebras small enough to have a {@link CayleyTable}, the product of each pair of
+	 * basis vectors is looked up from the table rather than calculated from the Ord.
+	 * 
+	 * @param b The right-side argument of the product.
+	 * @param cmd The product to calculate, or null for the geometric product.
+	 * @return The result of the product, or null if the basis vectors do not fit in bitmasks.
+	 */
+	private GeometricAlgebraMultivectorElem<U,A, R, S> bladeMaskProduct( final GeometricAlgebraMultivectorElem<U,A, R, S> b , 
+			final GeometricAlgebraMultivectorCmd cmd )
+	{
+		if( !( BladeMask.isMaskable( dim ) ) )
+		{
+			return( null );
+		}
+		
+		final ArrayList<R> vas = new ArrayList<R>( map.size() );
+		final long[] kas = packBladeMasks( vas );
+		if( kas == null )
+		{
+			return( null );
+		}
+		
+		final ArrayList<R> vbs = new ArrayList<R>( b.map.size() );
+		final long[] kbs = b.packBladeMasks( vbs );
+		if( kbs == null )
+		{
+			return( null );
+		}
+		
+		final CayleyTable table = CayleyTable.getTable( ord , dim );
+
+		if( ( fac instanceof DoubleElemFactory ) && ( table != null ) )
+		{
+			final GeometricAlgebraMultivectorElem<U,A,R,S> retd = doubleBladeMaskProduct( table , kas , vas , kbs , vbs , cmd );
+			if( retd != null )
+			{
+				return( retd );
+			}
+		}
+
+		final BladeMaskAccumulator<R> acc = new BladeMaskAccumulator<R>( Math.max( kas.length , kbs.length ) );
+
+		if( ( table != null ) && table.covers( BladeMask.union( kas ) | BladeMask.union( kbs ) ) )
+		{
+			final long flag = CayleyTable.retainedFlag( cmd );
+			for( int ii = 0 ; ii < kas.length ; ii++ )
+			{
+				final long ka = kas[ ii ];
+				final R va = vas.get( ii );
+				for( int jj = 0 ; jj < kbs.length ; jj++ )
+				{
+					final long entry = table.lookup( ord , dim , ka , kbs[ jj ] );
+					if( ( entry & flag ) != 0L )
+					{
+						R vmul = va.mult( vbs.get( jj ) );
+						if( CayleyTable.isNegate( entry ) )
+						{
+							vmul = vmul.negate();
+						}
+						acc.add( CayleyTable.getResult( entry ) , vmul );
+					}
+				}
+			}
+		}
+		else
+		{
+			final long[] el = new long[ 1 ];
+			for( int ii = 0 ; ii < kas.length ; ii++ )
+			{
+				final long ka = kas[ ii ];
+				final R va = vas.get( ii );
+				for( int jj = 0 ; jj < kbs.length ; jj++ )
+				{
+					final long kb = kbs[ jj ];
+					final boolean negate = ord.calcOrd( ka , kb , el , dim );
+					if( bladeMaskRetained( cmd , ka , kb , el[ 0 ] ) )
+					{
+						R vmul = va.mult( vbs.get( jj ) );
+						if( negate )
+						{
+							vmul = vmul.negate();
+						}
+						acc.add( el[ 0 ] , vmul );
+					}
+				}
+			}
+		}
+		
+		final GeometricAlgebraMultivectorElem<U,A,R,S> ret = new GeometricAlgebraMultivectorElem<U,A,R,S>(fac,dim,ord);
+		final int sz = acc.size();
+		for( int cnt = 0 ; cnt < sz ; cnt++ )
+		{
+			ret.setVal( BladeMask.fromMask( acc.getKey( cnt ) ) , acc.getVal( cnt ) );
+		}
+		
+		return( ret );
+	}
+	
+	
+	/**
+	 * Calculates a product of the multivector with the parameter on primitive doubles for
+	 * a multivector enclosing {@link DoubleElem}, using the same accumulation as {@link GaDoubleMultivector}
+	 * so that one DoubleElem is allocated per basis vector of the result rather than per term.
+	 * The terms are accumulated in the same order as the HashSet-based implementation of the product,
+	 * so the results are identical.
+	 *
+	 * @param table The multiplication table for the algebra.
+	 * @param kas The bitmasks for the basis vectors on the left-side of the product.
+	 * @param vas The enclosed values on the left-side of the product.
+	 * @param kbs The bitmasks for the basis vectors on the right-side of the product.
+	 * @param vbs The enclosed values on the right-side of the product.
+	 * @param cmd The product to calculate, or null for the geometric product.
+	 * @return The result of the product, or null if the basis vectors are not all covered by the table.
+	 */
+	private GeometricAlgebraMultivectorElem<U,A, R, S> doubleBladeMaskProduct( final CayleyTable table ,
+			final long[] kas , final ArrayList<R> vas , final long[] kbs , final ArrayList<R> vbs ,
+			final GeometricAlgebraMultivectorCmd cmd )
+	{
+		final int dm = dim.getVal().intValue();
+		if( !( table.covers( BladeMask.union( kas ) | BladeMask.union( kbs ) ) ) )
+		{
+			return( null );
+		}
+
+		final double[] das = new double[ kas.length ];
+		for( int ii = 0 ; ii < kas.length ; ii++ )
+		{
+			das[ ii ] = ( (DoubleElem)( vas.get( ii ) ) ).getVal();
+		}
+
+		final double[] dbs = new double[ kbs.length ];
+		for( int ii = 0 ; ii < kbs.length ; ii++ )
+		{
+			dbs[ ii ] = ( (DoubleElem)( vbs.get( ii ) ) ).getVal();
+		}
+
+		final double[] acc = new double[ 1 << dm ];
+		final boolean[] touched = new boolean[ 1 << dm ];
+		final int[] order = new int[ 1 << dm ];
+		final int sz = GaDoubleMultivector.accumulateProduct( ord , dim , table , cmd ,
+				kas , das , kas.length , kbs , dbs , kbs.length , acc , touched , order );
+		if( sz < 0 )
+		{
+			return( null );
+		}
+
+		final GeometricAlgebraMultivectorElem<U,A,R,S> ret = new GeometricAlgebraMultivectorElem<U,A,R,S>(fac,dim,ord);
+		for( int cnt = 0 ; cnt < sz ; cnt++ )
+		{
+			final int indx = order[ cnt ];
+			ret.setVal( BladeMask.fromMask( indx ) , (R)( new DoubleElem( acc[ indx ] ) ) );
+		}
+
+		return( ret );
+	}
+
+
 	@Override
 	public GeometricAlgebraMultivectorElem<U,A, R, S> mult(GeometricAlgebraMultivectorElem<U,A, R, S> b) {
+		final GeometricAlgebraMultivectorElem<U,A,R,S> retm = bladeMaskProduct( b , null );
+		if( retm != null )
+		{
+			return( retm );
+		}
+		
 		GeometricAlgebraMultivectorElem<U,A,R,S> ret = new GeometricAlgebraMultivectorElem<U,A,R,S>(fac,dim,ord);
 		
 		for( final Entry<HashSet<BigInteger>,R> ii : map.entrySet() )
@@ -1070,6 +1313,12 @@ public class GeometricAlgebraMultivectorElem<U extends NumDimensions, A extends
 	 * @return The result of the dot product.
 	 */
 	private GeometricAlgebraMultivectorElem<U,A, R, S> dot(GeometricAlgebraMultivectorElem<U,A, R, S> b) {
+		final GeometricAlgebraMultivectorElem<U,A,R,S> retm = bladeMaskProduct( b , GeometricAlgebraMultivectorCmd.DOT );
+		if( retm != null )
+		{
+			return( retm );
+		}
+		
 		GeometricAlgebraMultivectorElem<U,A,R,S> ret = new GeometricAlgebraMultivectorElem<U,A,R,S>(fac,dim,ord);
 		
 		for( final Entry<HashSet<BigInteger>,R> ii : map.entrySet() )
@@ -1114,6 +1363,12 @@ public class GeometricAlgebraMultivectorElem<U extends NumDimensions, A extends
 	 * @return The result of the dot product.
 	 */
 	private GeometricAlgebraMultivectorElem<U,A, R, S> dotHestenes(GeometricAlgebraMultivectorElem<U,A, R, S> b) {
+		final GeometricAlgebraMultivectorElem<U,A,R,S> retm = bladeMaskProduct( b , GeometricAlgebraMultivectorCmd.DOT_HESTENES );
+		if( retm != null )
+		{
+			return( retm );
+		}
+		
 		GeometricAlgebraMultivectorElem<U,A,R,S> ret = new GeometricAlgebraMultivectorElem<U,A,R,S>(fac,dim,ord);
 		
 		for( final Entry<HashSet<BigInteger>,R> ii : map.entrySet() )
@@ -1159,6 +1414,12 @@ public class GeometricAlgebraMultivectorElem<U extends NumDimensions, A extends
 	 * @return The result of the wedge product.
 	 */
 	private GeometricAlgebraMultivectorElem<U,A, R, S> wedge(GeometricAlgebraMultivectorElem<U,A, R, S> b) {
+		final GeometricAlgebraMultivectorElem<U,A,R,S> retm = bladeMaskProduct( b , GeometricAlgebraMultivectorCmd.WEDGE );
+		if( retm != null )
+		{
+			return( retm );
+		}
+		
 		GeometricAlgebraMultivectorElem<U,A,R,S> ret = new GeometricAlgebraMultivectorElem<U,A,R,S>(fac,dim,ord);
 		
 		for( final Entry<HashSet<BigInteger>,R> ii : map.entrySet() )
@@ -1203,6 +1464,12 @@ public class GeometricAlgebraMultivectorElem<U extends NumDimensions, A extends
 	 * @return The result of the left contraction product.
 	 */
 	private GeometricAlgebraMultivectorElem<U,A, R, S> leftContraction(GeometricAlgebraMultivectorElem<U,A, R, S> b) {
+		final GeometricAlgebraMultivectorElem<U,A,R,S> retm = bladeMaskProduct( b , GeometricAlgebraMultivectorCmd.LEFT_CONTRACTION );
+		if( retm != null )
+		{
+			return( retm );
+		}
+		
 		GeometricAlgebraMultivectorElem<U,A,R,S> ret = new GeometricAlgebraMultivectorElem<U,A,R,S>(fac,dim,ord);
 		
 		for( final Entry<HashSet<BigInteger>,R> ii : map.entrySet() )
@@ -1247,6 +1514,12 @@ public class GeometricAlgebraMultivectorElem<U extends NumDimensions, A extends
 	 * @return The result of the right contraction product.
 	 */
 	private GeometricAlgebraMultivectorElem<U,A, R, S> rightContraction(GeometricAlgebraMultivectorElem<U,A, R, S> b) {
+		final GeometricAlgebraMultivectorElem<U,A,R,S> retm = bladeMaskProduct( b , GeometricAlgebraMultivectorCmd.RIGHT_CONTRACTION );
+		if( retm != null )
+		{
+			return( retm );
+		}
+		
 		GeometricAlgebraMultivectorElem<U,A,R,S> ret = new GeometricAlgebraMultivectorElem<U,A,R,S>(fac,dim,ord);
 		
 		for( final Entry<HashSet<BigInteger>,R> ii : map.entrySet() )
@@ -1293,6 +1566,12 @@ public class GeometricAlgebraMultivectorElem<U extends NumDimensions, A extends
 	 * @return The result of the scalar product.
 	 */
 	private GeometricAlgebraMultivectorElem<U,A, R, S> scalar(GeometricAlgebraMultivectorElem<U,A, R, S> b) {
+		final GeometricAlgebraMultivectorElem<U,A,R,S> retm = bladeMaskProduct( b , GeometricAlgebraMultivectorCmd.SCALAR );
+		if( retm != null )
+		{
+			return( retm );
+		}
+		
 		GeometricAlgebraMultivectorElem<U,A,R,S> ret = new GeometricAlgebraMultivectorElem<U,A,R,S>(fac,dim,ord);
 		
 		for( final Entry<HashSet<BigInteger>,R> ii : map.entrySet() )
@@ -1630,15 +1909,15 @@ public class GeometricAlgebraMultivectorElem<U extends NumDimensions, A extends
 		}
 		
 		GeometricAlgebraMultivectorElem<U, A, R, S> prev = this;
+		final KieBase kieBase = mode == EVAL_MODE.SIMPLIFY ?
+				getDistributeSimplifyKieBase() : getDistributeSimplify2KieBase();
 		KieSession session = null;
 		HashMap<HashSet<BigInteger>,SymbolicPlaceholder<R,S>> place = null;
 		while( true )
 		{
 			try
 			{
-				session = mode == EVAL_MODE.SIMPLIFY ?
-						getDistributeSimplifyKieContainer().newKieSession() : 
-						getDistributeSimplify2KieContainer().newKieSession();
+				session = DroolsSessionPool.acquire( kieBase );
 		
 				insertSessionConfigItems( session );
 				
@@ -1666,7 +1945,7 @@ public class GeometricAlgebraMultivectorElem<U extends NumDimensions, A extends
 					}
 				}
 		
-				session.dispose();
+				DroolsSessionPool.release( kieBase , session );
 			
 				return( ret );
 			}
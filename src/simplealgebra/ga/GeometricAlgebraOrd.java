@@ -137,6 +137,16 @@ public class GeometricAlgebraOrd<U extends NumDimensions> extends Ord<U> {
 	
 	
 	
+	@Override
+	public boolean calcOrd( final long ka , final long kb , final long[] el , final U dim )
+	{
+		el[ 0 ] = ka ^ kb;
+		return( BladeMask.reorderNegate( ka , kb ) );
+	}
+	
+	
+	
+	
 	@Override
 	public HashSet<BigInteger> suggestNegativeSquare( U dim )
 	{
@@ -58,6 +58,27 @@ public abstract class Ord<U extends NumDimensions> {
 	public abstract boolean calcOrd( HashSet<BigInteger> ka , HashSet<BigInteger> kb , HashSet<BigInteger> el , U dim );
 	
 	
+	/**
+	 * Defines multiplication rules for an algebra similar to Geometric Algebra, where the
+	 * basis vectors are represented as bitmasks (see {@link BladeMask}).  The default implementation
+	 * converts to and from HashSet basis vectors, and subclasses are expected to override it with
+	 * a direct bitwise computation.
+	 * 
+	 * @param ka The bitmask for the basis vector on the left-side of the product.
+	 * @param kb The bitmask for the basis vector on the right-side of the product.
+	 * @param el Single-element array into which the bitmask for the result of the product is placed.
+	 * @param dim The number of dimensions in the algebra.
+	 * @return True iff. the result of the product is to be negated.
+	 */
+	public boolean calcOrd( final long ka , final long kb , final long[] el , final U dim )
+	{
+		final HashSet<BigInteger> ell = new HashSet<BigInteger>();
+		final boolean negate = calcOrd( BladeMask.fromMask( ka ) , BladeMask.fromMask( kb ) , ell , dim );
+		el[ 0 ] = BladeMask.toMask( ell );
+		return( negate );
+	}
+	
+	
 	/**
 	 * Suggests a basis element that squares negative.
 	 * @param dim The number of dimensions.
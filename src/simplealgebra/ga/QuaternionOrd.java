@@ -149,6 +149,20 @@ public class QuaternionOrd<U extends NumDimensions> extends Ord<U> {
 	
 
 	
+	@Override
+	public boolean calcOrd( final long ka , final long kb , final long[] el , final U dim )
+	{
+		el[ 0 ] = ka ^ kb;
+		//
+		// Each basis vector that cancels squares to -1.
+		//
+		final boolean sq = ( Long.bitCount( ka & kb ) & 1 ) != 0;
+		return( BladeMask.reorderNegate( ka , kb ) != sq );
+	}
+	
+	
+	
+	
 	@Override
 	public HashSet<BigInteger> suggestNegativeSquare( U dim )
 	{
@@ -144,6 +144,20 @@ public class SpacetimeAlgebraOrd<U extends NumDimensions> extends Ord<U> {
 	
 	
 	
+	@Override
+	public boolean calcOrd( final long ka , final long kb , final long[] el , final U dim )
+	{
+		el[ 0 ] = ka ^ kb;
+		//
+		// Each basis vector that cancels, other than the zero index, squares to -1.
+		//
+		final boolean sq = ( Long.bitCount( ka & kb & ~1L ) & 1 ) != 0;
+		return( BladeMask.reorderNegate( ka , kb ) != sq );
+	}
+	
+	
+	
+	
 	@Override
 	public HashSet<BigInteger> suggestNegativeSquare( U dim )
 	{
@@ -0,0 +1,88 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package simplealgebra.jlang;
+
+
+
+/**
+ * Interface implemented by a leaf SymbolicElem<DoubleElem,DoubleElemFactory> whose value can be read directly by
+ * generated code.  Without it, Jlang and Clang keep the leaf as a member of the generated class, and call
+ * back into its eval() method (through JNI in the case of Clang) each time the expression is evaluated.
+ * 
+ * <P> A leaf can declare its value in either of two ways:
+ * <UL>
+ * <LI> A code snippet, which the generated code evaluates in place of the leaf.  The snippet must be
+ * an expression of type double that does not depend on the implicit space, and may only refer to literals
+ * and to static members given by their fully qualified names (for instance "java.lang.Math.PI").  Separate
+ * snippets are given for the Java code generated by Jlang and the C++ code generated by Clang.
+ * <LI> An element of a primitive array.  The generated class keeps a reference to the array, and reads
+ * the element each time the expression is evaluated.  The array, and the index of the element, are fixed
+ * when the expression is compiled, but the contents of the array can be changed between evaluations
+ * (for instance at each iteration of a stencil sweep).
+ * </UL>
+ * 
+ * <P> A snippet takes precedence over an array element.  If a leaf declares neither for a particular compiler,
+ * the compiler calls back into the leaf as for any other unrecognized SymbolicElem.
+ * 
+ * @author tgreen
+ * 
+ */
+public interface InlineLeaf_Dbl {
+
+
+	/**
+	 * Gets the Java snippet for the value of the leaf.
+	 * @return The Java expression of type double, or null if there is no Java snippet.
+	 */
+	public String getJlangSnippet();
+
+
+	/**
+	 * Gets the C++ snippet for the value of the leaf.
+	 * @return The C++ expression of type double, or null if there is no C++ snippet.
+	 */
+	public String getClangSnippet();
+
+
+	/**
+	 * Gets the array holding the value of the leaf.
+	 * @return The array, or null if the value of the leaf is not held in an array.
+	 */
+	public double[] getBoundArray();
+
+
+	/**
+	 * Gets the index of the value of the leaf in the array returned by {@link #getBoundArray()}.
+	 * @return The index of the value.
+	 */
+	public int getBoundIndex();
+
+
+}
+
+
@@ -25,14 +25,14 @@
 
 package simplealgebra.jlang;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
-import java.io.FileReader;
-import java.io.LineNumberReader;
 import java.io.PrintStream;
 import java.lang.reflect.Constructor;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -59,6 +59,9 @@ import simplealgebra.symbolic.SymbolicZero;
  * Class for converting some symbolic expressions to Jlang (Java Language) bytecode
  * for execution-time performance optimization.
  * 
+ * <P> By default the generated source is compiled in-process and defined as a hidden class (see {@link JlangInProcessCompiler}).
+ * Calling {@link #setInProcessCompile(boolean)} with false selects compilation by running javac in a separate process.
+ * 
  * @author tgreen
  *
  */
@@ -157,11 +160,108 @@ public class Jlang {
 	 */
 	static PrintStream jfldInst = null;
 	
+	/**
+	 * Stream for adding the scalar batch evaluation logic to the generated jlang code, or null if no batch evaluation is generated.
+	 */
+	static PrintStream psBatchInst = null;
+	
+	/**
+	 * Stream for adding the vector batch evaluation logic to the generated jlang code, or null if no vector batch evaluation is generated.
+	 */
+	static PrintStream psVecInst = null;
+	
 	/**
 	 * Map used to prevent redundant calculations by tracking re-use of SymbolicElems.
 	 */
 	static HashMap<SymbolicElem<?,?>,Object> reuseMap = null;
 	
+	/**
+	 * Map from each array bound to an {@link InlineLeaf_Dbl} to the name of the generated member holding the array.
+	 */
+	static HashMap<double[],String> boundArrays = null;
+	
+	/**
+	 * Whether to compile generated code in-process to hidden classes, rather than by running javac in a separate process.
+	 */
+	static boolean inProcessCompile = true;
+	
+	/**
+	 * The time in nanoseconds taken to compile and load the most recently generated class.
+	 */
+	static long lastCompileNanos = 0;
+	
+	/**
+	 * Whether to generate vector batch evaluation using the jdk.incubator.vector module when it is available.
+	 */
+	static boolean vectorBatch = false;
+	
+	/**
+	 * The name of the module providing the vector API.
+	 */
+	static final String VECTOR_MODULE = "jdk.incubator.vector";
+	
+	/**
+	 * Persistent cache of compiled classes, or null if compiled classes are not to be cached.
+	 */
+	static KernelCache kernelCache = KernelCache.getDefault();
+	
+	
+	
+	
+	/**
+	 * Adds a line to the batch evaluation logic of the generated jlang code.
+	 * @param vName The generated jlang variable name.
+	 * @param scalarExpr The expression for the variable in the scalar batch loop.
+	 * @param vectorExpr The expression for the variable in the vector batch loop.
+	 */
+	protected static void batchInst( String vName , String scalarExpr , String vectorExpr )
+	{
+		if( psBatchInst != null )
+		{
+			psBatchInst.println( "final double " + vName + " = " + scalarExpr + ";" );
+		}
+		if( psVecInst != null )
+		{
+			psVecInst.println( "final DoubleVector " + vName + " = " + vectorExpr + ";" );
+		}
+	}
+	
+	
+	
+	/**
+	 * Handles a leaf whose value can be read directly by the generated jlang code.
+	 * @param in The leaf.
+	 * @return The generated jlang variable name for the leaf, or null if the leaf declares neither a jlang snippet nor an array element.
+	 */
+	protected static String hndlInlineLeaf_Dbl( InlineLeaf_Dbl in )
+	{
+		String expr = in.getJlangSnippet();
+		if( expr == null )
+		{
+			final double[] arr = in.getBoundArray();
+			if( arr == null )
+			{
+				return( null );
+			}
+			String memberName = boundArrays.get( arr );
+			if( memberName == null )
+			{
+				allocNum++;
+				memberName = "m_" + allocNum;
+				jmemInst.println( "private final double[] " + memberName + ";" );
+				jcnstInst.println( " , double[] _" + memberName );
+				jcimpInst.println( memberName + " = _" + memberName + ";" );
+				cnstParamsOuter.add( arr );
+				boundArrays.put( arr , memberName );
+			}
+			expr = memberName + "[ " + ( in.getBoundIndex() ) + " ]";
+		}
+		allocNum++;
+		final String vName = "t_" + allocNum;
+		psInst.println( "final double " + vName + " = " + expr + ";" );
+		batchInst( vName , expr , "DoubleVector.broadcast( SPECIES , " + expr + " )" );
+		return( vName );
+	}
 	
 	
 	
@@ -178,11 +278,21 @@ public class Jlang {
 			return( (String)( reuseMap.get( in ) ) );
 		}
 		
+		if( in instanceof InlineLeaf_Dbl )
+		{
+			final String vName = hndlInlineLeaf_Dbl( (InlineLeaf_Dbl) in );
+			if( vName != null )
+			{
+				return( vName );
+			}
+		}
+		
 		if( in instanceof SymbolicZero )
 		{
 			allocNum++;
 			final String vName = "t_" + allocNum;
 			psInst.println( "final double " + vName + " = 0.0;" );
+			batchInst( vName , "0.0" , "DoubleVector.zero( SPECIES )" );
 			return( vName );
 		}
 		
@@ -191,6 +301,7 @@ public class Jlang {
 			allocNum++;
 			final String vName = "t_" + allocNum;
 			psInst.println( "final double " + vName + " = 1.0;" );
+			batchInst( vName , "1.0" , "DoubleVector.broadcast( SPECIES , 1.0 )" );
 			return( vName );
 		}
 		
@@ -203,6 +314,7 @@ public class Jlang {
 			allocNum++;
 			final String vName = "t_" + allocNum;
 			psInst.println( "final double " + vName + " = - " + arg + ";" );
+			batchInst( vName , "- " + arg , arg + ".neg()" );
 			return( vName );
 		}
 		
@@ -217,6 +329,7 @@ public class Jlang {
 			allocNum++;
 			final String vName = "t_" + allocNum;
 			psInst.println( "final double " + vName + " = " + argA + " + " + argB + ";" );
+			batchInst( vName , argA + " + " + argB , argA + ".add( " + argB + " )" );
 			return( vName );
 		}
 		
@@ -231,6 +344,7 @@ public class Jlang {
 			allocNum++;
 			final String vName = "t_" + allocNum;
 			psInst.println( "final double " + vName + " = " + argA + " * " + argB + ";" );
+			batchInst( vName , argA + " * " + argB , argA + ".mul( " + argB + " )" );
 			return( vName );
 		}
 		
@@ -243,6 +357,7 @@ public class Jlang {
 			allocNum++;
 			final String vName = "t_" + allocNum;
 			psInst.println( "final double " + vName + " = " + arg + " / " + ( neg.getIval() ) + "L;" );
+			batchInst( vName , arg + " / " + ( neg.getIval() ) + "L" , arg + ".div( (double)( " + ( neg.getIval() ) + "L ) )" );
 			return( vName );
 		}
 		
@@ -255,6 +370,7 @@ public class Jlang {
 			allocNum++;
 			final String vName = "t_" + allocNum;
 			psInst.println( "final double " + vName + " = 1.0 / " + arg + ";" );
+			batchInst( vName , "1.0 / " + arg , "DoubleVector.broadcast( SPECIES , 1.0 ).div( " + arg + " )" );
 			return( vName );
 		}
 		
@@ -267,6 +383,7 @@ public class Jlang {
 			allocNum++;
 			final String vName = "t_" + allocNum;
 			psInst.println( "final double " + vName + " = 1.0 / " + arg + ";" );
+			batchInst( vName , "1.0 / " + arg , "DoubleVector.broadcast( SPECIES , 1.0 ).div( " + arg + " )" );
 			return( vName );
 		}
 		
@@ -276,6 +393,7 @@ public class Jlang {
 			allocNum++;
 			final String vName = "t_" + allocNum;
 			psInst.println( "final double " + vName + " = " + ( eval.getVal() ) + ";" );
+			batchInst( vName , "" + ( eval.getVal() ) , "DoubleVector.broadcast( SPECIES , " + ( eval.getVal() ) + " )" );
 			return( vName );
 		}
 		
@@ -288,6 +406,7 @@ public class Jlang {
 			allocNum++;
 			final String vName = "t_" + allocNum;
 			psInst.println( "final double " + vName + " = Math.abs( " + arg + " );" );
+			batchInst( vName , "Math.abs( " + arg + " )" , arg + ".abs()" );
 			return( vName );
 		}
 		
@@ -313,6 +432,7 @@ public class Jlang {
 		jfldInst.println( "   exit(1);" );
 		jfldInst.println( "}" );
 		
+		final String inName = "in_" + ( cnstParamsInner.size() );
 		cnstParamsInner.add( in );
 		allocNum++;
 		final String vNameZ = "t_" + allocNum;
@@ -321,6 +441,7 @@ public class Jlang {
 		final String vName = "t_" + allocNum;
 		// psInst.println( "printf( \"Initiated Call \\n\" );" );
 		psInst.println( "final double " + vName + " = " + vNameZ + ".getVal();" );
+		batchInst( vName , inName + "[ i ]" , "DoubleVector.fromArray( SPECIES , " + inName + " , i )" );
 		// psInst.println( vNameZ + " = NULL;" );
 		// psInst.println( "printf( \"Finsihed Call %lf\\n\" , " + vName + " );" );
 		return( vName );
@@ -532,13 +653,186 @@ public class Jlang {
 
 	
 	/**
-	 * Attempts to convert a SymbolicElem<DoubleElem,DoubleElemFactory> to jlang.
-	 * @param in The SymbolicElem<DoubleElem,DoubleElemFactory> to be converted.
-	 * @return The jlang-converted SymbolicElem<DoubleElem,DoubleElemFactory>.
+	 * Sets whether to compile generated code in-process.  If true (the default), the generated source is compiled
+	 * in memory with the javax.tools compiler and defined as a hidden class that can be unloaded once it is no longer
+	 * reachable.  If false, or if no in-process compiler is available, the source is written to a temporary
+	 * directory and compiled by running javac in a separate process.
+	 * @param _inProcessCompile Whether to compile generated code in-process.
+	 */
+	public static void setInProcessCompile( boolean _inProcessCompile )
+	{
+		inProcessCompile = _inProcessCompile;
+	}
+	
+	
+	/**
+	 * Gets whether to compile generated code in-process.
+	 * @return Whether to compile generated code in-process.
+	 */
+	public static boolean isInProcessCompile()
+	{
+		return( inProcessCompile );
+	}
+	
+	
+	/**
+	 * Gets the time taken to compile and load the most recently generated class.
+	 * @return The time in nanoseconds.
+	 */
+	public static long getLastCompileNanos()
+	{
+		return( lastCompileNanos );
+	}
+	
+	
+	/**
+	 * Returns whether the next class is to be compiled in-process.
+	 * @return True iff. the next class is to be compiled in-process.
+	 */
+	protected static boolean useInProcessCompile()
+	{
+		return( inProcessCompile && JlangInProcessCompiler.isAvailable() );
+	}
+	
+	
+	/**
+	 * Sets whether to generate vector batch evaluation.  If true, the batch evaluation of generated classes uses
+	 * the SIMD lanes of the jdk.incubator.vector module, provided that the class is compiled in-process and that
+	 * the JVM was started with "--add-modules jdk.incubator.vector".  Otherwise only the scalar batch loop is generated.
+	 * The default is false, since the scalar batch loop is a simple counted loop over arrays that the JIT compiler
+	 * can already vectorize, and the incubating vector API has not been found to be faster.
+	 * @param _vectorBatch Whether to generate vector batch evaluation.
+	 */
+	public static void setVectorBatch( boolean _vectorBatch )
+	{
+		vectorBatch = _vectorBatch;
+	}
+	
+	
+	/**
+	 * Gets whether to generate vector batch evaluation.
+	 * @return Whether to generate vector batch evaluation.
+	 */
+	public static boolean isVectorBatch()
+	{
+		return( vectorBatch );
+	}
+	
+	
+	/**
+	 * Returns whether vector batch evaluation is to be generated for the next class.
+	 * @param inProcess Whether the next class is to be compiled in-process.
+	 * @return True iff. vector batch evaluation is to be generated.
+	 */
+	protected static boolean useVectorBatch( boolean inProcess )
+	{
+		return( vectorBatch && inProcess && ModuleLayer.boot().findModule( VECTOR_MODULE ).isPresent() );
+	}
+	
+	
+	/**
+	 * Sets the persistent cache of compiled classes.  By default, the default cache (see {@link KernelCache#getDefault()}) is used.
+	 * @param _kernelCache The cache, or null if compiled classes are not to be cached.
+	 */
+	public static void setKernelCache( KernelCache _kernelCache )
+	{
+		kernelCache = _kernelCache;
+	}
+	
+	
+	/**
+	 * Gets the persistent cache of compiled classes.
+	 * @return The cache, or null if compiled classes are not to be cached.
+	 */
+	public static KernelCache getKernelCache()
+	{
+		return( kernelCache );
+	}
+	
+	
+	/**
+	 * Gets a description of the compiler and flags used to compile generated classes, for inclusion in the keys of cached classes.
+	 * @param inProcess Whether the classes are compiled in-process.
+	 * @return The description.
+	 */
+	protected static String getCompilerConfig( boolean inProcess )
+	{
+		if( inProcess )
+		{
+			return( "javax.tools " + System.getProperty( "java.vm.version" ) );
+		}
+		return( JlangConstants.JLANG_JAVAC_COMMAND + JlangConstants.JLANG_SIMPLEALGEBRA_CLASSPATH + " " + System.getProperty( "java.vm.version" ) );
+	}
+	
+	
+	/**
+	 * Stores a compiled class in the persistent cache, if there is one.  Failure to store the class is reported but is not fatal.
+	 * @param key The key of the class.
+	 * @param classFile The name of the class file.
+	 * @param bytes The bytes of the class.
+	 */
+	protected static void putCachedClass( String key , String classFile , byte[] bytes )
+	{
+		if( kernelCache == null )
+		{
+			return;
+		}
+		try
+		{
+			final HashMap<String,byte[]> files = new HashMap<String,byte[]>();
+			files.put( classFile , bytes );
+			kernelCache.put( key , files );
+		}
+		catch( Throwable ex )
+		{
+			ex.printStackTrace( System.out );
+		}
+	}
+	
+	
+	/**
+	 * Compiles the source of a generated class and loads the class.  If the persistent cache
+	 * already holds the class, the class is loaded from the cache rather than compiled.
+	 * @param key The key of the class in the persistent cache.
+	 * @param className The simple name of the generated class.
+	 * @param source The source of the generated class.
+	 * @param inProcess Whether to compile in-process to a hidden class.  If false, javac is run in a separate process.
+	 * @param vector Whether the source uses the vector API.  Only supported when compiling in-process.
+	 * @return The loaded class.
 	 * @throws Throwable
 	 */
-	public static SymbolicElem<DoubleElem,DoubleElemFactory> jlang_Dbl( SymbolicElem<DoubleElem,DoubleElemFactory> in ) throws Throwable
+	protected static Class<?> loadClass( String key , String className , String source , boolean inProcess , boolean vector ) throws Throwable
 	{
+		final long startNanos = System.nanoTime();
+		final String classFile = className + ".class";
+		final byte[] cached = kernelCache != null ? kernelCache.get( key , classFile ) : null;
+		
+		if( inProcess )
+		{
+			if( cached != null )
+			{
+				try
+				{
+					final Class<?> clss = JlangInProcessCompiler.defineHiddenClass( cached );
+					lastCompileNanos = System.nanoTime() - startNanos;
+					return( clss );
+				}
+				catch( LinkageError ex )
+				{
+					// The cached class no longer matches the classes it depends on, so it is compiled again.
+					kernelCache.remove( key );
+				}
+			}
+			
+			final byte[] bytes = vector ? 
+					JlangInProcessCompiler.compile( Jlang.class.getPackage().getName() + "." + className , source , "--add-modules" , VECTOR_MODULE ) :
+					JlangInProcessCompiler.compile( Jlang.class.getPackage().getName() + "." + className , source );
+			final Class<?> clss = JlangInProcessCompiler.defineHiddenClass( bytes );
+			putCachedClass( key , classFile , bytes );
+			lastCompileNanos = System.nanoTime() - startNanos;
+			return( clss );
+		}
+		
 		if( tempDir == null )
 		{
 			allocNum++;
@@ -557,35 +851,95 @@ public class Jlang {
 			tempDir = fi;
 		}
 		
-		allocNum++;
-		final long jlangAlloc = allocNum;
-		final String className = "Jlang_" + allocNum;
-		final String libName = "libJlang_" + allocNum;
+		final File fclass = new File( tempDir , classFile );
 		
-		final File fjav = new File( tempDir , className + ".java" );
-		final File fjlang = new File( tempDir , className + ".cpp" );
+		if( cached != null )
+		{
+			Files.write( fclass.toPath() , cached );
+		}
+		else
+		{
+			final File fjav = new File( tempDir , className + ".java" );
+			
+			final File fjavac =new File( tempDir , "runJavac.sh" );
+			
+			PrintStream ps = new PrintStream( new FileOutputStream( fjav ) );
+			ps.print( source );
+			ps.close();
+			
+			
+			System.out.println( fjav.getAbsolutePath() );
+			
+			
+			ps = new PrintStream( new FileOutputStream( fjavac ) );
+			
+			
+			ps.println( "cd " + tempDir.getAbsolutePath() );
+			ps.println( JlangConstants.JLANG_JAVAC_COMMAND + JlangConstants.JLANG_SIMPLEALGEBRA_CLASSPATH + " " + className + ".java" );
+			
+			
+			ps.close();
+			
+			
+			
+			Process p = Runtime.getRuntime().exec( "sh " + fjavac.getAbsolutePath() );
+			p.waitFor();
+			
+			
+			System.out.println( "Finished Javac." );
+			
+			
+			if( fclass.isFile() )
+			{
+				putCachedClass( key , classFile , Files.readAllBytes( fclass.toPath() ) );
+			}
+		}
 		
-		final File fjavac =new File( tempDir , "runJavac.sh" );
 		
-		final File fPsInst = new File( tempDir , className + "A.txt" );
-		final File fJmemInst = new File( tempDir , className + "B.txt" );
-		final File fJcnstInst = new File( tempDir , className + "C.txt" );
-		final File fJcimpInst = new File( tempDir , className + "D.txt" );
-		final File fJlocmemInst = new File( tempDir , className + "E.txt" );
-		final File fJfldInst = new File( tempDir , className + "F.txt" );
+		if( ucl == null )
+		{
+			final URL tempUrl = tempDir.toURI().toURL();
+			final URL[] urls = { tempUrl };
+			ucl = new URLClassLoader( urls );
+		}
+		final Class<?> clss = ucl.loadClass( className );
+		lastCompileNanos = System.nanoTime() - startNanos;
+		return( clss );
+	}
+	
+	
+	/**
+	 * Attempts to convert a SymbolicElem<DoubleElem,DoubleElemFactory> to jlang.
+	 * @param in The SymbolicElem<DoubleElem,DoubleElemFactory> to be converted.
+	 * @return The jlang-converted SymbolicElem<DoubleElem,DoubleElemFactory>.
+	 * @throws Throwable
+	 */
+	public static SymbolicElem<DoubleElem,DoubleElemFactory> jlang_Dbl( SymbolicElem<DoubleElem,DoubleElemFactory> in ) throws Throwable
+	{
+		final ByteArrayOutputStream bPsInst = new ByteArrayOutputStream();
+		final ByteArrayOutputStream bJmemInst = new ByteArrayOutputStream();
+		final ByteArrayOutputStream bJcnstInst = new ByteArrayOutputStream();
+		final ByteArrayOutputStream bJcimpInst = new ByteArrayOutputStream();
+		final ByteArrayOutputStream bJlocmemInst = new ByteArrayOutputStream();
+		final ByteArrayOutputStream bJfldInst = new ByteArrayOutputStream();
+		final ByteArrayOutputStream bPsBatchInst = new ByteArrayOutputStream();
+		final ByteArrayOutputStream bPsVecInst = new ByteArrayOutputStream();
 		
 		
 		cnstParamsOuter = new ArrayList<Object>();
 		cnstParamsInner = new ArrayList<Object>();
 		cnstParamsOuter.add( in.getFac().getFac() );
 		cnstParamsOuter.add( cnstParamsInner );
-		psInst = new PrintStream( new FileOutputStream( fPsInst ) );
-		jmemInst = new PrintStream( new FileOutputStream( fJmemInst ) );
-		jcnstInst = new PrintStream( new FileOutputStream( fJcnstInst ) );
-		jcimpInst = new PrintStream( new FileOutputStream( fJcimpInst ) );
-		jlocmemInst = new PrintStream( new FileOutputStream( fJlocmemInst ) );
-		jfldInst = new PrintStream( new FileOutputStream( fJfldInst ) );
+		psInst = new PrintStream( bPsInst );
+		jmemInst = new PrintStream( bJmemInst );
+		jcnstInst = new PrintStream( bJcnstInst );
+		jcimpInst = new PrintStream( bJcimpInst );
+		jlocmemInst = new PrintStream( bJlocmemInst );
+		jfldInst = new PrintStream( bJfldInst );
+		psBatchInst = new PrintStream( bPsBatchInst );
+		psVecInst = new PrintStream( bPsVecInst );
 		reuseMap = new HashMap<SymbolicElem<?,?>,Object>();
+		boundArrays = new HashMap<double[],String>();
 		final String vName = hndl_Dbl( in );
 		psInst.close();
 		jmemInst.close();
@@ -593,17 +947,34 @@ public class Jlang {
 		jcimpInst.close();
 		jlocmemInst.close();
 		jfldInst.close();
+		psBatchInst.close();
+		psVecInst.close();
 		psInst = null;
 		jmemInst = null;
 		jcnstInst = null;
 		jcimpInst = null;
 		jlocmemInst = null;
 		jfldInst = null;
+		psBatchInst = null;
+		psVecInst = null;
 		reuseMap = null;
+		boundArrays = null;
+		final int numInputs = cnstParamsInner.size();
 		
 		
-		PrintStream ps = new PrintStream( new FileOutputStream( fjav ) );
+		final boolean inProcess = useInProcessCompile();
+		final boolean vector = useVectorBatch( inProcess );
+		final String key = KernelCache.computeKey( "Jlang_Dbl" , getCompilerConfig( inProcess ) , bPsInst.toString() , 
+				bJmemInst.toString() , bJcnstInst.toString() , bJcimpInst.toString() , bPsBatchInst.toString() , 
+				vector ? bPsVecInst.toString() : "" , vName );
+		final String className = "Jlang_" + key;
+		final ByteArrayOutputStream bjav = new ByteArrayOutputStream();
+		PrintStream ps = new PrintStream( bjav );
 		
+		if( inProcess )
+		{
+			ps.println( "package " + Jlang.class.getPackage().getName() + ";" );
+		}
 		ps.println( "" );
 		ps.println( "import java.io.PrintStream;" );
 		ps.println( "import java.util.ArrayList;" );
@@ -620,6 +991,11 @@ public class Jlang {
 		ps.println( "import simplealgebra.symbolic.SymbolicElem;" );
 		ps.println( "import simplealgebra.symbolic.SymbolicElemFactory;" );
 		ps.println( "import simplealgebra.jlang.Jlang_Dbl;" );
+		if( vector )
+		{
+			ps.println( "import jdk.incubator.vector.DoubleVector;" );
+			ps.println( "import jdk.incubator.vector.VectorSpecies;" );
+		}
 		ps.println( "" );
 		ps.println( "" );
 		ps.println( "public class " + className + " extends Jlang_Dbl  {" );
@@ -627,36 +1003,20 @@ public class Jlang {
 		ps.println( "	public " + className + "(DoubleElemFactory _fac" );
 		ps.println( " , ArrayList<SymbolicElem<DoubleElem,DoubleElemFactory>> arr" );
 		
-		LineNumberReader li = new LineNumberReader( new FileReader( fJcnstInst ) );
-		String line = li.readLine();
-		while( line != null )
-		{
-			ps.println( line );
-			line = li.readLine();
-		}
-		li.close();
+		ps.print( bJcnstInst.toString() );
 		ps.println( " ) {" );
 		ps.println( "		super(_fac);" );
+		ps.println( "		batchInputs = arr;" );
 		
-		li = new LineNumberReader( new FileReader( fJcimpInst ) );
-		line = li.readLine();
-		while( line != null )
-		{
-			ps.println( line );
-			line = li.readLine();
-		}
-		li.close();
+		ps.print( bJcimpInst.toString() );
 		ps.println( " }" );
 		ps.println( "" );
 		
-		li = new LineNumberReader( new FileReader( fJmemInst ) );
-		line = li.readLine();
-		while( line != null )
+		ps.print( bJmemInst.toString() );
+		if( vector )
 		{
-			ps.println( line );
-			line = li.readLine();
+			ps.println( "private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;" );
 		}
-		li.close();
 		ps.println( "" );
 		ps.println( "	@Override" );
 		ps.println( "	public DoubleElem eval(" );
@@ -664,19 +1024,38 @@ public class Jlang {
 		ps.println( "			throws NotInvertibleException," );
 		ps.println( "			MultiplicativeDistributionRequiredException" );
 		ps.println( "{" );
-		li = new LineNumberReader( new FileReader( fPsInst ) );
-		line = li.readLine();
-		while( line != null )
-		{
-			ps.println( line );
-			line = li.readLine();
-		}
-		li.close();
+		ps.print( bPsInst.toString() );
 		ps.println( "final double val = " + vName + ";" );
 		ps.println( "return( new DoubleElem( val ) );" );
 		
 		ps.println( "" );
 
+		ps.println( "}" );
+		ps.println( "" );
+		
+		ps.println( "	@Override" );
+		ps.println( "	public void evalBatch( double[][] inputs , double[] out , int n )" );
+		ps.println( "{" );
+		ps.println( "checkBatch( inputs , out , n );" );
+		for( int cnt = 0 ; cnt < numInputs ; cnt++ )
+		{
+			ps.println( "final double[] in_" + cnt + " = inputs[ " + cnt + " ];" );
+		}
+		ps.println( "int i = 0;" );
+		if( vector )
+		{
+			ps.println( "final int upper = SPECIES.loopBound( n );" );
+			ps.println( "for( ; i < upper ; i += SPECIES.length() )" );
+			ps.println( "{" );
+			ps.print( bPsVecInst.toString() );
+			ps.println( vName + ".intoArray( out , i );" );
+			ps.println( "}" );
+		}
+		ps.println( "for( ; i < n ; i++ )" );
+		ps.println( "{" );
+		ps.print( bPsBatchInst.toString() );
+		ps.println( "out[ i ] = " + vName + ";" );
+		ps.println( "}" );
 		ps.println( "}" );
 		ps.println( "" );
 		ps.println( "}" );
@@ -686,35 +1065,8 @@ public class Jlang {
 		ps.close();
 		
 		
-		System.out.println( fjav.getAbsolutePath() );
-		
-		
-		ps = new PrintStream( new FileOutputStream( fjavac ) );
-		
-		
-		ps.println( "cd " + tempDir.getAbsolutePath() );
-		ps.println( JlangConstants.JLANG_JAVAC_COMMAND + JlangConstants.JLANG_SIMPLEALGEBRA_CLASSPATH + " " + className + ".java" );
-		
-		
-		ps.close();
-		
-		
-		
-		Process p = Runtime.getRuntime().exec( "sh " + fjavac.getAbsolutePath() );
-		p.waitFor();
-		
-		
-		System.out.println( "Finished Javac." );
-		
-		
-		if( ucl == null )
-		{
-			final URL tempUrl = tempDir.toURI().toURL();
-			final URL[] urls = { tempUrl };
-			ucl = new URLClassLoader( urls );
-		}
 		Class<? extends SymbolicElem<DoubleElem,DoubleElemFactory>> clss = 
-				(Class<? extends SymbolicElem<DoubleElem,DoubleElemFactory>>)( ucl.loadClass( className ) );
+				(Class<? extends SymbolicElem<DoubleElem,DoubleElemFactory>>)( loadClass( key , className , bjav.toString() , inProcess , vector ) );
 		
 		System.out.println( "Got Class." );
 		System.out.println( clss );
@@ -746,52 +1098,24 @@ public class Jlang {
 	 */
 	public static SymbolicElem<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>> jlang_Cplx_Dbl( SymbolicElem<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>> in ) throws Throwable
 	{
-		if( tempDir == null )
-		{
-			allocNum++;
-			File fi = File.createTempFile( "tempDir" , "" + allocNum );
-			
-			if( !( fi.delete() ) )
-			{
-				throw( new RuntimeException( "Fail" ) );
-			}
-			
-			if( !( fi.mkdir() ) )
-			{
-				throw( new RuntimeException( "Fail" ) );
-			}
-			
-			tempDir = fi;
-		}
-		
-		allocNum++;
-		final long jlangAlloc = allocNum;
-		final String className = "Jlang_" + allocNum;
-		final String libName = "libJlang_" + allocNum;
-		
-		final File fjav = new File( tempDir , className + ".java" );
-		final File fjlang = new File( tempDir , className + ".cpp" );
-		
-		final File fjavac =new File( tempDir , "runJavac.sh" );
-		
-		final File fPsInst= new File( tempDir , className + "A.txt" );
-		final File fJmemInst= new File( tempDir , className + "B.txt" );
-		final File fJcnstInst= new File( tempDir , className + "C.txt" );
-		final File fJcimpInst= new File( tempDir , className + "D.txt" );
-		final File fJlocmemInst= new File( tempDir , className + "E.txt" );
-		final File fJfldInst= new File( tempDir , className + "F.txt" );
+		final ByteArrayOutputStream bPsInst = new ByteArrayOutputStream();
+		final ByteArrayOutputStream bJmemInst = new ByteArrayOutputStream();
+		final ByteArrayOutputStream bJcnstInst = new ByteArrayOutputStream();
+		final ByteArrayOutputStream bJcimpInst = new ByteArrayOutputStream();
+		final ByteArrayOutputStream bJlocmemInst = new ByteArrayOutputStream();
+		final ByteArrayOutputStream bJfldInst = new ByteArrayOutputStream();
 		
 		
 		cnstParamsOuter = new ArrayList<Object>();
 		cnstParamsInner = new ArrayList<Object>();
 		cnstParamsOuter.add( in.getFac().getFac() );
 		cnstParamsOuter.add( cnstParamsInner );
-		psInst = new PrintStream( new FileOutputStream( fPsInst ) );
-		jmemInst = new PrintStream( new FileOutputStream( fJmemInst ) );
-		jcnstInst = new PrintStream( new FileOutputStream( fJcnstInst ) );
-		jcimpInst = new PrintStream( new FileOutputStream( fJcimpInst ) );
-		jlocmemInst = new PrintStream( new FileOutputStream( fJlocmemInst ) );
-		jfldInst = new PrintStream( new FileOutputStream( fJfldInst ) );
+		psInst = new PrintStream( bPsInst );
+		jmemInst = new PrintStream( bJmemInst );
+		jcnstInst = new PrintStream( bJcnstInst );
+		jcimpInst = new PrintStream( bJcimpInst );
+		jlocmemInst = new PrintStream( bJlocmemInst );
+		jfldInst = new PrintStream( bJfldInst );
 		reuseMap = new HashMap<SymbolicElem<?,?>,Object>();
 		final CplxRec vNames = hndl_Cplx_Dbl( in );
 		psInst.close();
@@ -809,8 +1133,17 @@ public class Jlang {
 		reuseMap = null;
 		
 		
-		PrintStream ps = new PrintStream( new FileOutputStream( fjav ) );
+		final boolean inProcess = useInProcessCompile();
+		final String key = KernelCache.computeKey( "Jlang_Cplx_Dbl" , getCompilerConfig( inProcess ) , bPsInst.toString() , 
+				bJmemInst.toString() , bJcnstInst.toString() , bJcimpInst.toString() , vNames.re , vNames.im );
+		final String className = "Jlang_" + key;
+		final ByteArrayOutputStream bjav = new ByteArrayOutputStream();
+		PrintStream ps = new PrintStream( bjav );
 		
+		if( inProcess )
+		{
+			ps.println( "package " + Jlang.class.getPackage().getName() + ";" );
+		}
 		ps.println( "" );
 		ps.println( "import java.io.PrintStream;" );
 		ps.println( "import java.util.ArrayList;" );
@@ -836,36 +1169,15 @@ public class Jlang {
 		ps.println( "	public " + className + "(ComplexElemFactory<DoubleElem,DoubleElemFactory> _fac" );
 		ps.println( " , ArrayList<SymbolicElem<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>>> arr" );
 		
-		LineNumberReader li = new LineNumberReader( new FileReader( fJcnstInst ) );
-		String line = li.readLine();
-		while( line != null )
-		{
-			ps.println( line );
-			line = li.readLine();
-		}
-		li.close();
+		ps.print( bJcnstInst.toString() );
 		ps.println( " ) {" );
 		ps.println( "		super(_fac);" );
 		
-		li = new LineNumberReader( new FileReader( fJcimpInst ) );
-		line = li.readLine();
-		while( line != null )
-		{
-			ps.println( line );
-			line = li.readLine();
-		}
-		li.close();
+		ps.print( bJcimpInst.toString() );
 		ps.println( " }" );
 		ps.println( "" );
 		
-		li = new LineNumberReader( new FileReader( fJmemInst ) );
-		line = li.readLine();
-		while( line != null )
-		{
-			ps.println( line );
-			line = li.readLine();
-		}
-		li.close();
+		ps.print( bJmemInst.toString() );
 		ps.println( "" );
 		ps.println( "	@Override" );
 		ps.println( "	public ComplexElem<DoubleElem,DoubleElemFactory>  eval(" );
@@ -873,14 +1185,7 @@ public class Jlang {
 		ps.println( "			throws NotInvertibleException," );
 		ps.println( "			MultiplicativeDistributionRequiredException" );
 		ps.println( "{" );
-		li = new LineNumberReader( new FileReader( fPsInst ) );
-		line = li.readLine();
-		while( line != null )
-		{
-			ps.println( line );
-			line = li.readLine();
-		}
-		li.close();
+		ps.print( bPsInst.toString() );
 		ps.println( "final double valRe = " + vNames.re + ";" );
 		ps.println( "final double valIm = " + vNames.im + ";" );
 		
@@ -899,35 +1204,8 @@ public class Jlang {
 		ps.close();
 		
 		
-		System.out.println( fjav.getAbsolutePath() );
-		
-		
-		ps = new PrintStream( new FileOutputStream( fjavac ) );
-		
-		
-		ps.println( "cd " + tempDir.getAbsolutePath() );
-		ps.println( JlangConstants.JLANG_JAVAC_COMMAND + JlangConstants.JLANG_SIMPLEALGEBRA_CLASSPATH + " " + className + ".java" );
-		
-		
-		ps.close();
-		
-		
-		
-		Process p = Runtime.getRuntime().exec( "sh " + fjavac.getAbsolutePath() );
-		p.waitFor();
-		
-		
-		System.out.println( "Finished Javac." );
-		
-		
-		if( ucl == null )
-		{
-			final URL tempUrl = tempDir.toURI().toURL();
-			final URL[] urls = { tempUrl };
-			ucl = new URLClassLoader( urls );
-		}
 		Class<? extends SymbolicElem<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>>> clss = 
-				(Class<? extends SymbolicElem<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>>>)( ucl.loadClass( className ) );
+				(Class<? extends SymbolicElem<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>>>)( loadClass( key , className , bjav.toString() , inProcess , false ) );
 		
 		System.out.println( "Got Class." );
 		System.out.println( clss );
@@ -52,6 +52,16 @@ public class JlangCompile<R extends Elem<R,?>, S extends ElemFactory<R,S>> {
 	}
 	
 	
+	/**
+	 * Constructor.
+	 * @param _useHandles Whether to convert directly to composed method handles (see {@link JlangHandles}) rather than
+	 * generating and compiling source.
+	 */
+	public JlangCompile( boolean _useHandles ) {
+		useHandles = _useHandles;
+	}
+	
+	
 	/**
 	 * Attempts to convert a SymbolicElem to jlang.
 	 * @param in The SymbolicElem to be converted.
@@ -67,7 +77,8 @@ public class JlangCompile<R extends Elem<R,?>, S extends ElemFactory<R,S>> {
 			if( fac instanceof DoubleElemFactory )
 			{
 				SymbolicElem<DoubleElem,DoubleElemFactory> ds = (SymbolicElem<DoubleElem,DoubleElemFactory>) in;
-				SymbolicElem<DoubleElem,DoubleElemFactory> dout = Jlang.jlang_Dbl( ds );
+				SymbolicElem<DoubleElem,DoubleElemFactory> dout = 
+						useHandles ? JlangHandles.jlangHandles_Dbl( ds ) : Jlang.jlang_Dbl( ds );
 				SymbolicElem<R,S> dout2 = (SymbolicElem<R,S>) dout;
 				return( dout2 );
 			}
@@ -80,7 +91,7 @@ public class JlangCompile<R extends Elem<R,?>, S extends ElemFactory<R,S>> {
 					SymbolicElem<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>> ds = 
 							(SymbolicElem<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>>) in;
 					SymbolicElem<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>> dout =
-							Jlang.jlang_Cplx_Dbl( ds );
+							useHandles ? JlangHandles.jlangHandles_Cplx_Dbl( ds ) : Jlang.jlang_Cplx_Dbl( ds );
 					SymbolicElem<R,S> dout2 = (SymbolicElem<R,S>) dout;
 					return( dout2 );
 				}
@@ -96,6 +107,12 @@ public class JlangCompile<R extends Elem<R,?>, S extends ElemFactory<R,S>> {
 		return( in );
 		
 	}
+	
+	
+	/**
+	 * Whether to convert directly to composed method handles rather than generating and compiling source.
+	 */
+	protected boolean useHandles = false;
 
 	
 }
@@ -0,0 +1,905 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package simplealgebra.jlang;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import simplealgebra.ComplexElem;
+import simplealgebra.ComplexElemFactory;
+import simplealgebra.DoubleElem;
+import simplealgebra.DoubleElemFactory;
+import simplealgebra.Elem;
+import simplealgebra.NotInvertibleException;
+import simplealgebra.symbolic.MultiplicativeDistributionRequiredException;
+import simplealgebra.symbolic.SymbolicAbsoluteValue;
+import simplealgebra.symbolic.SymbolicAdd;
+import simplealgebra.symbolic.SymbolicDivideBy;
+import simplealgebra.symbolic.SymbolicElem;
+import simplealgebra.symbolic.SymbolicIdentity;
+import simplealgebra.symbolic.SymbolicInvertLeft;
+import simplealgebra.symbolic.SymbolicInvertRight;
+import simplealgebra.symbolic.SymbolicMult;
+import simplealgebra.symbolic.SymbolicNegate;
+import simplealgebra.symbolic.SymbolicReduction;
+import simplealgebra.symbolic.SymbolicZero;
+
+
+
+/**
+ * Converts some symbolic expressions directly to a composed tree of method handles.  Unlike {@link Jlang}, no source
+ * is generated and no compiler is run, so conversion takes microseconds rather than milliseconds.  The JIT
+ * compiles the composed handles in the same way as ordinary bytecode, so the conversion pays for itself even for
+ * expressions that are evaluated only a few thousand times.
+ * 
+ * <P> Evaluation uses a scratch array of slots.  Each unrecognized SymbolicElem, and each SymbolicElem that is
+ * referenced more than once, is evaluated once per call by a step that stores its value in a slot, and is then
+ * read from the slot.  Other SymbolicElems are evaluated inline by the handle of the SymbolicElem that uses them.
+ * The steps run in order before the result is stored in the first slot (or the first two slots for complex numbers).
+ * 
+ * @author tgreen
+ * 
+ */
+public class JlangHandles {
+
+
+
+	/**
+	 * Method handle converted from a SymbolicElem<DoubleElem,DoubleElemFactory>.
+	 * 
+	 * @author tgreen
+	 * 
+	 */
+	protected static class JlangHandles_Dbl extends Jlang_Dbl
+	{
+
+		/**
+		 * Constructor.
+		 * @param _fac The factory for the enclosed type.
+		 * @param _kernel The method handle evaluating the expression, which takes the implicit space and returns the slots.
+		 */
+		public JlangHandles_Dbl( DoubleElemFactory _fac , MethodHandle _kernel )
+		{
+			super( _fac );
+			kernel = _kernel;
+		}
+
+		@Override
+		public DoubleElem eval(
+				HashMap<? extends Elem<?, ?>, ? extends Elem<?, ?>> implicitSpace )
+				throws NotInvertibleException,
+				MultiplicativeDistributionRequiredException
+		{
+			return( new DoubleElem( invokeKernel( kernel , implicitSpace )[ 0 ] ) );
+		}
+
+		/**
+		 * The method handle evaluating the expression.
+		 */
+		protected final MethodHandle kernel;
+	}
+
+
+
+	/**
+	 * Method handle converted from a SymbolicElem<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>>.
+	 * 
+	 * @author tgreen
+	 * 
+	 */
+	protected static class JlangHandles_Cplx_Dbl extends Jlang_Cplx_Dbl
+	{
+
+		/**
+		 * Constructor.
+		 * @param _fac The factory for the enclosed type.
+		 * @param _kernel The method handle evaluating the expression, which takes the implicit space and returns the slots.
+		 */
+		public JlangHandles_Cplx_Dbl( ComplexElemFactory<DoubleElem,DoubleElemFactory> _fac , MethodHandle _kernel )
+		{
+			super( _fac );
+			kernel = _kernel;
+		}
+
+		@Override
+		public ComplexElem<DoubleElem,DoubleElemFactory> eval(
+				HashMap<? extends Elem<?, ?>, ? extends Elem<?, ?>> implicitSpace )
+				throws NotInvertibleException,
+				MultiplicativeDistributionRequiredException
+		{
+			final double[] slots = invokeKernel( kernel , implicitSpace );
+			return( new ComplexElem<DoubleElem,DoubleElemFactory>( new DoubleElem( slots[ 0 ] ) , new DoubleElem( slots[ 1 ] ) ) );
+		}
+
+		/**
+		 * The method handle evaluating the expression.
+		 */
+		protected final MethodHandle kernel;
+	}
+
+
+
+	/**
+	 * Method handles for the real and imaginary parts of a complex number.
+	 * 
+	 * @author tgreen
+	 * 
+	 */
+	protected static class CplxHandles
+	{
+
+		/**
+		 * Constructor.
+		 * @param _re Method handle for the real part.
+		 * @param _im Method handle for the imaginary part.
+		 * @param _cheap Whether the handles only read slots or return constants, so that they can be invoked more than once without repeating calculations.
+		 */
+		public CplxHandles( MethodHandle _re , MethodHandle _im , boolean _cheap )
+		{
+			re = _re;
+			im = _im;
+			cheap = _cheap;
+		}
+
+		/**
+		 * Method handle for the real part.
+		 */
+		MethodHandle re;
+
+		/**
+		 * Method handle for the imaginary part.
+		 */
+		MethodHandle im;
+
+		/**
+		 * Whether the handles only read slots or return constants.
+		 */
+		boolean cheap;
+	}
+
+
+
+	/**
+	 * Handle for adding two doubles.
+	 */
+	static final MethodHandle ADD;
+
+	/**
+	 * Handle for subtracting two doubles.
+	 */
+	static final MethodHandle SUB;
+
+	/**
+	 * Handle for multiplying two doubles.
+	 */
+	static final MethodHandle MULT;
+
+	/**
+	 * Handle for dividing two doubles.
+	 */
+	static final MethodHandle DIV;
+
+	/**
+	 * Handle for negating a double.
+	 */
+	static final MethodHandle NEG;
+
+	/**
+	 * Handle for inverting a double.
+	 */
+	static final MethodHandle INV;
+
+	/**
+	 * Handle for the absolute value of a double.
+	 */
+	static final MethodHandle ABS;
+
+	/**
+	 * Handle for evaluating an unrecognized SymbolicElem<DoubleElem,DoubleElemFactory>.
+	 */
+	static final MethodHandle EVAL_LEAF_DBL;
+
+	/**
+	 * Handle for evaluating an unrecognized SymbolicElem<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>>.
+	 */
+	static final MethodHandle EVAL_LEAF_CPLX_DBL;
+
+	/**
+	 * Handle for reading a slot.
+	 */
+	static final MethodHandle SLOT_GET = MethodHandles.arrayElementGetter( double[].class );
+
+	/**
+	 * Handle for writing a slot.
+	 */
+	static final MethodHandle SLOT_SET = MethodHandles.arrayElementSetter( double[].class );
+
+	/**
+	 * Handle for allocating the slots.
+	 */
+	static final MethodHandle SLOT_ALLOC = MethodHandles.arrayConstructor( double[].class );
+
+
+	static
+	{
+		try
+		{
+			final MethodHandles.Lookup lookup = MethodHandles.lookup();
+			final MethodType binary = MethodType.methodType( double.class , double.class , double.class );
+			final MethodType unary = MethodType.methodType( double.class , double.class );
+			ADD = lookup.findStatic( JlangHandles.class , "add" , binary );
+			SUB = lookup.findStatic( JlangHandles.class , "sub" , binary );
+			MULT = lookup.findStatic( JlangHandles.class , "mult" , binary );
+			DIV = lookup.findStatic( JlangHandles.class , "div" , binary );
+			NEG = lookup.findStatic( JlangHandles.class , "neg" , unary );
+			INV = lookup.findStatic( JlangHandles.class , "inv" , unary );
+			ABS = lookup.findStatic( Math.class , "abs" , unary );
+			EVAL_LEAF_DBL = lookup.findStatic( JlangHandles.class , "evalLeaf_Dbl" ,
+					MethodType.methodType( double.class , SymbolicElem.class , double[].class , HashMap.class ) );
+			EVAL_LEAF_CPLX_DBL = lookup.findStatic( JlangHandles.class , "evalLeaf_Cplx_Dbl" ,
+					MethodType.methodType( void.class , SymbolicElem.class , int.class , double[].class , HashMap.class ) );
+		}
+		catch( Throwable ex )
+		{
+			throw( new RuntimeException( ex ) );
+		}
+	}
+
+
+
+	/**
+	 * Adds two doubles.
+	 * @param a The first double.
+	 * @param b The second double.
+	 * @return The sum.
+	 */
+	static double add( double a , double b )
+	{
+		return( a + b );
+	}
+
+	/**
+	 * Subtracts two doubles.
+	 * @param a The first double.
+	 * @param b The second double.
+	 * @return The difference.
+	 */
+	static double sub( double a , double b )
+	{
+		return( a - b );
+	}
+
+	/**
+	 * Multiplies two doubles.
+	 * @param a The first double.
+	 * @param b The second double.
+	 * @return The product.
+	 */
+	static double mult( double a , double b )
+	{
+		return( a * b );
+	}
+
+	/**
+	 * Divides two doubles.
+	 * @param a The dividend.
+	 * @param b The divisor.
+	 * @return The quotient.
+	 */
+	static double div( double a , double b )
+	{
+		return( a / b );
+	}
+
+	/**
+	 * Negates a double.
+	 * @param a The double.
+	 * @return The negation.
+	 */
+	static double neg( double a )
+	{
+		return( - a );
+	}
+
+	/**
+	 * Inverts a double.
+	 * @param a The double.
+	 * @return The inverse.
+	 */
+	static double inv( double a )
+	{
+		return( 1.0 / a );
+	}
+
+	/**
+	 * Evaluates an unrecognized SymbolicElem<DoubleElem,DoubleElemFactory>.
+	 * @param in The SymbolicElem to evaluate.
+	 * @param slots The slots, which are not used.
+	 * @param implicitSpace The implicit space for the evaluation.
+	 * @return The value of the SymbolicElem.
+	 * @throws NotInvertibleException
+	 * @throws MultiplicativeDistributionRequiredException
+	 */
+	static double evalLeaf_Dbl( SymbolicElem<DoubleElem,DoubleElemFactory> in , double[] slots ,
+			HashMap<? extends Elem<?, ?>, ? extends Elem<?, ?>> implicitSpace )
+					throws NotInvertibleException, MultiplicativeDistributionRequiredException
+	{
+		return( in.eval( implicitSpace ).getVal() );
+	}
+
+	/**
+	 * Evaluates an unrecognized SymbolicElem<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>>, storing its value in two slots.
+	 * @param in The SymbolicElem to evaluate.
+	 * @param slot The index of the slot for the real part, which is followed by the slot for the imaginary part.
+	 * @param slots The slots.
+	 * @param implicitSpace The implicit space for the evaluation.
+	 * @throws NotInvertibleException
+	 * @throws MultiplicativeDistributionRequiredException
+	 */
+	static void evalLeaf_Cplx_Dbl( SymbolicElem<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>> in ,
+			int slot , double[] slots , HashMap<? extends Elem<?, ?>, ? extends Elem<?, ?>> implicitSpace )
+					throws NotInvertibleException, MultiplicativeDistributionRequiredException
+	{
+		final ComplexElem<DoubleElem,DoubleElemFactory> val = in.eval( implicitSpace );
+		slots[ slot ] = val.getRe().getVal();
+		slots[ slot + 1 ] = val.getIm().getVal();
+	}
+
+
+
+	/**
+	 * Invokes a kernel, rethrowing the checked exceptions of SymbolicElem evaluation.
+	 * @param kernel The kernel, which takes the implicit space and returns the slots.
+	 * @param implicitSpace The implicit space for the evaluation.
+	 * @return The slots.
+	 * @throws NotInvertibleException
+	 * @throws MultiplicativeDistributionRequiredException
+	 */
+	protected static double[] invokeKernel( MethodHandle kernel , HashMap<? extends Elem<?, ?>, ? extends Elem<?, ?>> implicitSpace )
+			throws NotInvertibleException, MultiplicativeDistributionRequiredException
+	{
+		try
+		{
+			return( (double[])( kernel.invokeExact( implicitSpace ) ) );
+		}
+		catch( NotInvertibleException ex )
+		{
+			throw( ex );
+		}
+		catch( MultiplicativeDistributionRequiredException ex )
+		{
+			throw( ex );
+		}
+		catch( RuntimeException ex )
+		{
+			throw( ex );
+		}
+		catch( Error ex )
+		{
+			throw( ex );
+		}
+		catch( Throwable ex )
+		{
+			throw( new RuntimeException( ex ) );
+		}
+	}
+
+
+
+	/**
+	 * The steps to run before the result is read, each of which takes the slots and the implicit space.
+	 */
+	protected final ArrayList<MethodHandle> steps = new ArrayList<MethodHandle>();
+
+	/**
+	 * The number of slots allocated.
+	 */
+	protected int numSlots;
+
+	/**
+	 * The number of references to each SymbolicElem in the expression.
+	 */
+	protected final HashMap<SymbolicElem<?,?>,Integer> refCounts = new HashMap<SymbolicElem<?,?>,Integer>();
+
+	/**
+	 * Map from each SymbolicElem already stored in a slot to the handles reading the slot.
+	 */
+	protected final HashMap<SymbolicElem<?,?>,Object> reuseMap = new HashMap<SymbolicElem<?,?>,Object>();
+
+
+
+	/**
+	 * Constructor.
+	 * @param resultSlots The number of slots reserved for the result.
+	 */
+	protected JlangHandles( int resultSlots )
+	{
+		numSlots = resultSlots;
+	}
+
+
+
+	/**
+	 * Counts the references to each SymbolicElem in an expression.
+	 * @param in The expression.
+	 */
+	protected void countRefs( SymbolicElem<?,?> in )
+	{
+		final Integer cnt = refCounts.get( in );
+		if( cnt != null )
+		{
+			refCounts.put( in , cnt + 1 );
+			return;
+		}
+		refCounts.put( in , 1 );
+
+		if( in instanceof SymbolicNegate )
+		{
+			countRefs( ( (SymbolicNegate<?,?>) in ).getElem() );
+		}
+		else if( in instanceof SymbolicAdd )
+		{
+			countRefs( ( (SymbolicAdd<?,?>) in ).getElemA() );
+			countRefs( ( (SymbolicAdd<?,?>) in ).getElemB() );
+		}
+		else if( in instanceof SymbolicMult )
+		{
+			countRefs( ( (SymbolicMult<?,?>) in ).getElemA() );
+			countRefs( ( (SymbolicMult<?,?>) in ).getElemB() );
+		}
+		else if( in instanceof SymbolicDivideBy )
+		{
+			countRefs( ( (SymbolicDivideBy<?,?>) in ).getElem() );
+		}
+		else if( in instanceof SymbolicInvertLeft )
+		{
+			countRefs( ( (SymbolicInvertLeft<?,?>) in ).getElem() );
+		}
+		else if( in instanceof SymbolicInvertRight )
+		{
+			countRefs( ( (SymbolicInvertRight<?,?>) in ).getElem() );
+		}
+		else if( in instanceof SymbolicAbsoluteValue )
+		{
+			countRefs( ( (SymbolicAbsoluteValue<?,?>) in ).getElem() );
+		}
+	}
+
+
+
+	/**
+	 * Returns whether a SymbolicElem is referenced more than once in the expression.
+	 * @param in The SymbolicElem.
+	 * @return True iff. the SymbolicElem is referenced more than once.
+	 */
+	protected boolean isShared( SymbolicElem<?,?> in )
+	{
+		final Integer cnt = refCounts.get( in );
+		return( ( cnt != null ) && ( cnt > 1 ) );
+	}
+
+
+
+	/**
+	 * Gets a handle returning a constant.
+	 * @param val The constant.
+	 * @return The handle, which takes the slots and the implicit space.
+	 */
+	protected static MethodHandle constant( double val )
+	{
+		return( MethodHandles.dropArguments( MethodHandles.constant( double.class , val ) , 0 , double[].class , HashMap.class ) );
+	}
+
+
+
+	/**
+	 * Gets a handle reading a slot.
+	 * @param slot The index of the slot.
+	 * @return The handle, which takes the slots and the implicit space.
+	 */
+	protected static MethodHandle slotGet( int slot )
+	{
+		return( MethodHandles.dropArguments( MethodHandles.insertArguments( SLOT_GET , 1 , slot ) , 1 , HashMap.class ) );
+	}
+
+
+
+	/**
+	 * Gets a handle applying a unary operation to the result of a handle.
+	 * @param op The unary operation.
+	 * @param a The handle, which takes the slots and the implicit space.
+	 * @return The combined handle, which takes the slots and the implicit space.
+	 */
+	protected static MethodHandle unary( MethodHandle op , MethodHandle a )
+	{
+		return( MethodHandles.filterReturnValue( a , op ) );
+	}
+
+
+
+	/**
+	 * Gets a handle applying a binary operation to the results of two handles.
+	 * @param op The binary operation.
+	 * @param a The handle for the first operand, which takes the slots and the implicit space.
+	 * @param b The handle for the second operand, which takes the slots and the implicit space.
+	 * @return The combined handle, which takes the slots and the implicit space.
+	 */
+	protected static MethodHandle binary( MethodHandle op , MethodHandle a , MethodHandle b )
+	{
+		final MethodHandle ha = MethodHandles.collectArguments( op , 0 , a );
+		final MethodHandle hab = MethodHandles.collectArguments( ha , 2 , b );
+		return( MethodHandles.permuteArguments( hab , MethodType.methodType( double.class , double[].class , HashMap.class ) , 0 , 1 , 0 , 1 ) );
+	}
+
+
+
+	/**
+	 * Adds a step storing the result of a handle in a slot.
+	 * @param slot The index of the slot.
+	 * @param a The handle, which takes the slots and the implicit space.
+	 */
+	protected void addStore( int slot , MethodHandle a )
+	{
+		final MethodHandle set = MethodHandles.collectArguments( MethodHandles.insertArguments( SLOT_SET , 1 , slot ) , 1 , a );
+		steps.add( MethodHandles.permuteArguments( set , MethodType.methodType( void.class , double[].class , HashMap.class ) , 0 , 0 , 1 ) );
+	}
+
+
+
+	/**
+	 * Stores the result of a handle in a new slot.
+	 * @param a The handle, which takes the slots and the implicit space.
+	 * @return A handle reading the slot.
+	 */
+	protected MethodHandle store( MethodHandle a )
+	{
+		final int slot = numSlots;
+		numSlots++;
+		addStore( slot , a );
+		return( slotGet( slot ) );
+	}
+
+
+
+	/**
+	 * Stores the results of a pair of handles in new slots, unless they only read slots or return constants.
+	 * @param a The pair of handles.
+	 * @return A pair of handles that can be invoked more than once without repeating calculations.
+	 */
+	protected CplxHandles store( CplxHandles a )
+	{
+		if( a.cheap )
+		{
+			return( a );
+		}
+		return( new CplxHandles( store( a.re ) , store( a.im ) , true ) );
+	}
+
+
+
+	/**
+	 * Assembles the kernel from the steps.
+	 * @return The kernel, which takes the implicit space and returns the slots.
+	 */
+	protected MethodHandle buildKernel()
+	{
+		MethodHandle kernel = MethodHandles.dropArguments( MethodHandles.identity( double[].class ) , 1 , HashMap.class );
+		for( int cnt = steps.size() - 1 ; cnt >= 0 ; cnt-- )
+		{
+			kernel = MethodHandles.foldArguments( kernel , steps.get( cnt ) );
+		}
+		return( MethodHandles.foldArguments( kernel , MethodHandles.insertArguments( SLOT_ALLOC , 0 , numSlots ) ) );
+	}
+
+
+
+	/**
+	 * Handles a particular Elem of type SymbolicElem<DoubleElem,DoubleElemFactory>
+	 * @param in The Elem to be handled.
+	 * @return The handle for the Elem, which takes the slots and the implicit space.
+	 * @throws Throwable
+	 */
+	protected MethodHandle hndl_Dbl( SymbolicElem<DoubleElem,DoubleElemFactory> in ) throws Throwable
+	{
+		if( reuseMap.get( in ) != null )
+		{
+			return( (MethodHandle)( reuseMap.get( in ) ) );
+		}
+
+		final MethodHandle ret = hndlInline_Dbl( in );
+
+		// Unrecognized SymbolicElems are already stored in slots.
+		if( !( isShared( in ) ) || ( reuseMap.get( in ) != null ) )
+		{
+			return( ret );
+		}
+
+		final MethodHandle slot = store( ret );
+		reuseMap.put( in , slot );
+		return( slot );
+	}
+
+
+
+	/**
+	 * Handles a particular Elem of type SymbolicElem<DoubleElem,DoubleElemFactory> without reusing slots.
+	 * @param in The Elem to be handled.
+	 * @return The handle for the Elem, which takes the slots and the implicit space.
+	 * @throws Throwable
+	 */
+	protected MethodHandle hndlInline_Dbl( SymbolicElem<DoubleElem,DoubleElemFactory> in ) throws Throwable
+	{
+		if( in instanceof SymbolicZero )
+		{
+			return( constant( 0.0 ) );
+		}
+
+		if( in instanceof SymbolicIdentity )
+		{
+			return( constant( 1.0 ) );
+		}
+
+		if( in instanceof SymbolicNegate )
+		{
+			SymbolicNegate<DoubleElem,DoubleElemFactory> neg
+				= (SymbolicNegate<DoubleElem,DoubleElemFactory>) in;
+			return( unary( NEG , hndl_Dbl( neg.getElem() ) ) );
+		}
+
+		if( in instanceof SymbolicAdd )
+		{
+			SymbolicAdd<DoubleElem,DoubleElemFactory> neg
+				= (SymbolicAdd<DoubleElem,DoubleElemFactory>) in;
+			return( binary( ADD , hndl_Dbl( neg.getElemA() ) , hndl_Dbl( neg.getElemB() ) ) );
+		}
+
+		if( in instanceof SymbolicMult )
+		{
+			SymbolicMult<DoubleElem,DoubleElemFactory> neg
+				= (SymbolicMult<DoubleElem,DoubleElemFactory>) in;
+			return( binary( MULT , hndl_Dbl( neg.getElemA() ) , hndl_Dbl( neg.getElemB() ) ) );
+		}
+
+		if( in instanceof SymbolicDivideBy )
+		{
+			SymbolicDivideBy<DoubleElem,DoubleElemFactory> neg
+				= (SymbolicDivideBy<DoubleElem,DoubleElemFactory>) in;
+			return( unary( MethodHandles.insertArguments( DIV , 1 , neg.getIval().doubleValue() ) , hndl_Dbl( neg.getElem() ) ) );
+		}
+
+		if( in instanceof SymbolicInvertLeft )
+		{
+			SymbolicInvertLeft<DoubleElem,DoubleElemFactory> neg
+				= (SymbolicInvertLeft<DoubleElem,DoubleElemFactory>) in;
+			return( unary( INV , hndl_Dbl( neg.getElem() ) ) );
+		}
+
+		if( in instanceof SymbolicInvertRight )
+		{
+			SymbolicInvertRight<DoubleElem,DoubleElemFactory> neg
+				= (SymbolicInvertRight<DoubleElem,DoubleElemFactory>) in;
+			return( unary( INV , hndl_Dbl( neg.getElem() ) ) );
+		}
+
+		if( in instanceof SymbolicReduction )
+		{
+			return( constant( in.eval( null ).getVal() ) );
+		}
+
+		if( in instanceof SymbolicAbsoluteValue )
+		{
+			SymbolicAbsoluteValue<DoubleElem,DoubleElemFactory> neg
+				= (SymbolicAbsoluteValue<DoubleElem,DoubleElemFactory>) in;
+			return( unary( ABS , hndl_Dbl( neg.getElem() ) ) );
+		}
+
+		if( ( in instanceof InlineLeaf_Dbl ) && ( ( (InlineLeaf_Dbl) in ).getBoundArray() != null ) )
+		{
+			// Reads the element of the bound array at each evaluation.
+			final InlineLeaf_Dbl leaf = (InlineLeaf_Dbl) in;
+			return( MethodHandles.dropArguments( MethodHandles.insertArguments( SLOT_GET , 0 , leaf.getBoundArray() , leaf.getBoundIndex() ) ,
+					0 , double[].class , HashMap.class ) );
+		}
+
+		final MethodHandle slot = store( MethodHandles.insertArguments( EVAL_LEAF_DBL , 0 , in ) );
+		reuseMap.put( in , slot );
+		return( slot );
+	}
+
+
+
+	/**
+	 * Handles a particular Elem of type SymbolicElem<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>>
+	 * @param in The Elem to be handled.
+	 * @return The handles for the Elem, each of which takes the slots and the implicit space.
+	 * @throws Throwable
+	 */
+	protected CplxHandles hndl_Cplx_Dbl( SymbolicElem<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>> in ) throws Throwable
+	{
+		if( reuseMap.get( in ) != null )
+		{
+			return( (CplxHandles)( reuseMap.get( in ) ) );
+		}
+
+		final CplxHandles ret = hndlInline_Cplx_Dbl( in );
+
+		// Unrecognized SymbolicElems are already stored in slots.
+		if( !( isShared( in ) ) || ( reuseMap.get( in ) != null ) )
+		{
+			return( ret );
+		}
+
+		final CplxHandles slot = store( ret );
+		reuseMap.put( in , slot );
+		return( slot );
+	}
+
+
+
+	/**
+	 * Handles a particular Elem of type SymbolicElem<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>> without reusing slots.
+	 * @param in The Elem to be handled.
+	 * @return The handles for the Elem, each of which takes the slots and the implicit space.
+	 * @throws Throwable
+	 */
+	protected CplxHandles hndlInline_Cplx_Dbl( SymbolicElem<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>> in ) throws Throwable
+	{
+		if( in instanceof SymbolicZero )
+		{
+			return( new CplxHandles( constant( 0.0 ) , constant( 0.0 ) , true ) );
+		}
+
+		if( in instanceof SymbolicIdentity )
+		{
+			return( new CplxHandles( constant( 1.0 ) , constant( 0.0 ) , true ) );
+		}
+
+		if( in instanceof SymbolicNegate )
+		{
+			SymbolicNegate<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>> neg
+				= (SymbolicNegate<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>>) in;
+			final CplxHandles arg = hndl_Cplx_Dbl( neg.getElem() );
+			return( new CplxHandles( unary( NEG , arg.re ) , unary( NEG , arg.im ) , false ) );
+		}
+
+		if( in instanceof SymbolicAdd )
+		{
+			SymbolicAdd<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>> neg
+				= (SymbolicAdd<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>>) in;
+			final CplxHandles argA = hndl_Cplx_Dbl( neg.getElemA() );
+			final CplxHandles argB = hndl_Cplx_Dbl( neg.getElemB() );
+			return( new CplxHandles( binary( ADD , argA.re , argB.re ) , binary( ADD , argA.im , argB.im ) , false ) );
+		}
+
+		if( in instanceof SymbolicMult )
+		{
+			SymbolicMult<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>> neg
+				= (SymbolicMult<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>>) in;
+			// Each part of each operand is used twice, so the operands are stored in slots.
+			final CplxHandles argA = store( hndl_Cplx_Dbl( neg.getElemA() ) );
+			final CplxHandles argB = store( hndl_Cplx_Dbl( neg.getElemB() ) );
+			final MethodHandle re = binary( SUB , binary( MULT , argA.re , argB.re ) , binary( MULT , argA.im , argB.im ) );
+			final MethodHandle im = binary( ADD , binary( MULT , argA.re , argB.im ) , binary( MULT , argA.im , argB.re ) );
+			return( new CplxHandles( re , im , false ) );
+		}
+
+		if( in instanceof SymbolicDivideBy )
+		{
+			SymbolicDivideBy<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>> neg
+				= (SymbolicDivideBy<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>>) in;
+			final CplxHandles arg = hndl_Cplx_Dbl( neg.getElem() );
+			final MethodHandle div = MethodHandles.insertArguments( DIV , 1 , neg.getIval().doubleValue() );
+			return( new CplxHandles( unary( div , arg.re ) , unary( div , arg.im ) , false ) );
+		}
+
+		if( in instanceof SymbolicInvertLeft )
+		{
+			SymbolicInvertLeft<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>> neg
+				= (SymbolicInvertLeft<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>>) in;
+			return( hndlInvert_Cplx_Dbl( hndl_Cplx_Dbl( neg.getElem() ) ) );
+		}
+
+		if( in instanceof SymbolicInvertRight )
+		{
+			SymbolicInvertRight<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>> neg
+				= (SymbolicInvertRight<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>>) in;
+			return( hndlInvert_Cplx_Dbl( hndl_Cplx_Dbl( neg.getElem() ) ) );
+		}
+
+		if( in instanceof SymbolicReduction )
+		{
+			final ComplexElem<DoubleElem,DoubleElemFactory> eval = in.eval( null );
+			return( new CplxHandles( constant( eval.getRe().getVal() ) , constant( eval.getIm().getVal() ) , true ) );
+		}
+
+		final int slot = numSlots;
+		numSlots += 2;
+		steps.add( MethodHandles.insertArguments( EVAL_LEAF_CPLX_DBL , 0 , in , slot ) );
+		final CplxHandles ret = new CplxHandles( slotGet( slot ) , slotGet( slot + 1 ) , true );
+		reuseMap.put( in , ret );
+		return( ret );
+	}
+
+
+
+	/**
+	 * Gets the handles for the inverse of a complex number.
+	 * @param in The handles for the complex number.
+	 * @return The handles for the inverse.
+	 */
+	protected CplxHandles hndlInvert_Cplx_Dbl( CplxHandles in )
+	{
+		final CplxHandles arg = store( in );
+		final MethodHandle conj = store( binary( ADD , binary( MULT , arg.re , arg.re ) , binary( MULT , arg.im , arg.im ) ) );
+		final MethodHandle re = binary( DIV , arg.re , conj );
+		final MethodHandle im = unary( NEG , binary( DIV , arg.im , conj ) );
+		return( new CplxHandles( re , im , false ) );
+	}
+
+
+
+	/**
+	 * Converts a SymbolicElem<DoubleElem,DoubleElemFactory> to a composed method handle.
+	 * @param in The SymbolicElem<DoubleElem,DoubleElemFactory> to be converted.
+	 * @return The converted SymbolicElem<DoubleElem,DoubleElemFactory>.
+	 * @throws Throwable
+	 */
+	public static SymbolicElem<DoubleElem,DoubleElemFactory> jlangHandles_Dbl( SymbolicElem<DoubleElem,DoubleElemFactory> in ) throws Throwable
+	{
+		final JlangHandles cmp = new JlangHandles( 1 );
+		cmp.countRefs( in );
+		cmp.addStore( 0 , cmp.hndl_Dbl( in ) );
+		return( new JlangHandles_Dbl( in.getFac().getFac() , cmp.buildKernel() ) );
+	}
+
+
+
+	/**
+	 * Converts a SymbolicElem<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>> to a composed method handle.
+	 * @param in The SymbolicElem<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>> to be converted.
+	 * @return The converted SymbolicElem<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>>.
+	 * @throws Throwable
+	 */
+	public static SymbolicElem<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>> jlangHandles_Cplx_Dbl( SymbolicElem<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>> in ) throws Throwable
+	{
+		final JlangHandles cmp = new JlangHandles( 2 );
+		cmp.countRefs( in );
+		final CplxHandles ret = cmp.hndl_Cplx_Dbl( in );
+		cmp.addStore( 0 , ret.re );
+		cmp.addStore( 1 , ret.im );
+		return( new JlangHandles_Cplx_Dbl( in.getFac().getFac() , cmp.buildKernel() ) );
+	}
+
+
+
+}
+
+
@@ -0,0 +1,284 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package simplealgebra.jlang;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+
+
+/**
+ * Compiles generated jlang source in-process using the javax.tools compiler API, and defines the
+ * result as a hidden class.  The source and the class bytes are kept in memory, so no temporary files
+ * are written and no separate javac process is started.  Since each hidden class is not strongly linked
+ * to its class loader, a generated class can be unloaded once its instances are no longer reachable.
+ * 
+ * <P> Generated classes must be declared in the package of this class, since a hidden class is defined
+ * in the package of the lookup that defines it.
+ * 
+ * @author tgreen
+ * 
+ */
+public class JlangInProcessCompiler {
+
+
+
+	/**
+	 * Source file object holding generated source in memory.
+	 * 
+	 * @author tgreen
+	 * 
+	 */
+	protected static class SourceObject extends SimpleJavaFileObject
+	{
+
+		/**
+		 * Constructor.
+		 * @param className The fully qualified name of the class.
+		 * @param _source The source of the class.
+		 */
+		public SourceObject( String className , String _source )
+		{
+			super( URI.create( "string:///" + className.replace( '.' , '/' ) + Kind.SOURCE.extension ) , Kind.SOURCE );
+			source = _source;
+		}
+
+		@Override
+		public CharSequence getCharContent( boolean ignoreEncodingErrors )
+		{
+			return( source );
+		}
+
+		/**
+		 * The source of the class.
+		 */
+		protected String source;
+	}
+
+
+
+	/**
+	 * Class file object collecting the bytes of a compiled class in memory.
+	 * 
+	 * @author tgreen
+	 * 
+	 */
+	protected static class ClassObject extends SimpleJavaFileObject
+	{
+
+		/**
+		 * Constructor.
+		 * @param className The fully qualified name of the class.
+		 */
+		public ClassObject( String className )
+		{
+			super( URI.create( "bytes:///" + className.replace( '.' , '/' ) + Kind.CLASS.extension ) , Kind.CLASS );
+		}
+
+		@Override
+		public OutputStream openOutputStream()
+		{
+			return( bytes );
+		}
+
+		/**
+		 * Gets the bytes of the compiled class.
+		 * @return The bytes of the compiled class.
+		 */
+		public byte[] getBytes()
+		{
+			return( bytes.toByteArray() );
+		}
+
+		/**
+		 * The bytes of the compiled class.
+		 */
+		protected final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	}
+
+
+
+	/**
+	 * File manager that reads classes from the standard file manager, and writes compiled classes to memory.
+	 * 
+	 * @author tgreen
+	 * 
+	 */
+	protected static class MemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager>
+	{
+
+		/**
+		 * Constructor.
+		 * @param fileManager The standard file manager.
+		 */
+		public MemoryFileManager( StandardJavaFileManager fileManager )
+		{
+			super( fileManager );
+		}
+
+		@Override
+		public JavaFileObject getJavaFileForOutput( JavaFileManager.Location location , String className ,
+				JavaFileObject.Kind kind , FileObject sibling )
+		{
+			final ClassObject ret = new ClassObject( className );
+			outputs.put( className , ret );
+			return( ret );
+		}
+
+		/**
+		 * Map from the name of each compiled class to its bytes.
+		 */
+		protected final HashMap<String,ClassObject> outputs = new HashMap<String,ClassObject>();
+	}
+
+
+
+	/**
+	 * The system Java compiler, or null if it has not been looked up.
+	 */
+	static JavaCompiler compiler = null;
+
+	/**
+	 * The standard file manager, which is reused between compilations so that its cached view of the classpath is kept.
+	 */
+	static StandardJavaFileManager standardFileManager = null;
+
+	/**
+	 * Whether the system Java compiler has been looked up.
+	 */
+	static boolean checked = false;
+
+
+
+	/**
+	 * Returns whether an in-process compiler is available.  The compiler is unavailable,
+	 * for instance, when running on a JRE that does not include the jdk.compiler module.
+	 * @return True iff. an in-process compiler is available.
+	 */
+	public static synchronized boolean isAvailable()
+	{
+		if( !checked )
+		{
+			checked = true;
+			compiler = ToolProvider.getSystemJavaCompiler();
+			if( compiler != null )
+			{
+				standardFileManager = compiler.getStandardFileManager( null , null , null );
+			}
+		}
+		return( compiler != null );
+	}
+
+
+
+	/**
+	 * Compiles the source of a single class in memory against the classpath of the current JVM.
+	 * @param className The fully qualified name of the class.
+	 * @param source The source of the class.
+	 * @param extraOptions Additional compiler options, for instance to add modules that are not resolved by default.
+	 * @return The bytes of the compiled class.
+	 * @throws Throwable
+	 */
+	public static synchronized byte[] compile( String className , String source , String... extraOptions ) throws Throwable
+	{
+		if( !isAvailable() )
+		{
+			throw( new RuntimeException( "No In-Process Compiler Available" ) );
+		}
+
+		final MemoryFileManager fileManager = new MemoryFileManager( standardFileManager );
+		final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+
+		// The standard file manager defaults to the classpath of the current JVM.  It is not passed as an option,
+		// since that would reset the file manager and discard its cached view of the classpath on each compilation.
+		final ArrayList<String> options = new ArrayList<String>();
+		options.add( "-nowarn" );
+		for( final String opt : extraOptions )
+		{
+			options.add( opt );
+		}
+
+		final ArrayList<JavaFileObject> units = new ArrayList<JavaFileObject>();
+		units.add( new SourceObject( className , source ) );
+
+		final Boolean success = compiler.getTask( null , fileManager , diagnostics , options , null , units ).call();
+
+		if( !( success.booleanValue() ) )
+		{
+			final StringBuilder msg = new StringBuilder( "Jlang Compile Failed" );
+			for( final Diagnostic<? extends JavaFileObject> diag : diagnostics.getDiagnostics() )
+			{
+				msg.append( "\n" );
+				msg.append( diag.getMessage( null ) );
+			}
+			throw( new RuntimeException( msg.toString() ) );
+		}
+
+		final ClassObject cls = fileManager.outputs.get( className );
+		if( ( cls == null ) || ( fileManager.outputs.size() != 1 ) )
+		{
+			throw( new RuntimeException( "Generated Code Must Compile To A Single Class" ) );
+		}
+
+		return( cls.getBytes() );
+	}
+
+
+
+	/**
+	 * Defines a compiled class as a hidden class in the package of this class.  The class is
+	 * not strongly linked to its class loader, so it can be unloaded once it is no longer reachable.
+	 * @param bytes The bytes of the compiled class.
+	 * @return The defined class.
+	 * @throws Throwable
+	 */
+	public static Class<?> defineHiddenClass( byte[] bytes ) throws Throwable
+	{
+		return( MethodHandles.lookup().defineHiddenClass( bytes , true ).lookupClass() );
+	}
+
+
+
+}
+
+
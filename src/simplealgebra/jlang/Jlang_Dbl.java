@@ -55,6 +55,55 @@ public abstract class Jlang_Dbl extends SymbolicElem<DoubleElem, DoubleElemFacto
 		super(_fac);
 	}
 
+	/**
+	 * Evaluates the expression at a batch of points.  The inputs are in structure-of-arrays form, where
+	 * inputs[ k ][ i ] is the value at point i of the k-th SymbolicElem returned by {@link #getBatchInputs()}.
+	 * Each of those SymbolicElems is replaced by its input value rather than evaluated, so no implicit space
+	 * is used and no DoubleElem is allocated per point.
+	 * @param inputs The input values, one array per batch input.
+	 * @param out Array in which to put the value of the expression at each point.
+	 * @param n The number of points.
+	 */
+	public void evalBatch( double[][] inputs , double[] out , int n )
+	{
+		throw( new RuntimeException( "Not Supported" ) );
+	}
+	
+	/**
+	 * Gets the SymbolicElems of the expression that are bound to the inputs of {@link #evalBatch(double[][], double[], int)}.
+	 * These are the SymbolicElems that the generated code does not handle directly, in the order in which they were found.
+	 * @return The SymbolicElems bound to the batch inputs.
+	 */
+	public ArrayList<SymbolicElem<DoubleElem,DoubleElemFactory>> getBatchInputs()
+	{
+		return( batchInputs );
+	}
+	
+	/**
+	 * Verifies the arguments of {@link #evalBatch(double[][], double[], int)}.
+	 * @param inputs The input values, one array per batch input.
+	 * @param out Array in which to put the value of the expression at each point.
+	 * @param n The number of points.
+	 */
+	protected void checkBatch( double[][] inputs , double[] out , int n )
+	{
+		if( inputs.length != batchInputs.size() )
+		{
+			throw( new RuntimeException( "Wrong Number Of Batch Inputs" ) );
+		}
+		if( ( n < 0 ) || ( out.length < n ) )
+		{
+			throw( new RuntimeException( "Batch Output Too Short" ) );
+		}
+		for( final double[] in : inputs )
+		{
+			if( in.length < n )
+			{
+				throw( new RuntimeException( "Batch Input Too Short" ) );
+			}
+		}
+	}
+
 	@Override
 	public abstract DoubleElem eval(
 			HashMap<? extends Elem<?, ?>, ? extends Elem<?, ?>> implicitSpace)
@@ -103,6 +152,11 @@ public abstract class Jlang_Dbl extends SymbolicElem<DoubleElem, DoubleElemFacto
 			PrintStream ps) {
 		throw( new RuntimeException( "Not Supported" ) );
 	}
+	
+	/**
+	 * The SymbolicElems bound to the batch inputs.
+	 */
+	protected ArrayList<SymbolicElem<DoubleElem,DoubleElemFactory>> batchInputs = new ArrayList<SymbolicElem<DoubleElem,DoubleElemFactory>>();
 
 	
 }
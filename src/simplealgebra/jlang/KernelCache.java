@@ -0,0 +1,482 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package simplealgebra.jlang;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map.Entry;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+
+
+/**
+ * Persistent on-disk cache of compiled kernels (the class bytes generated by Jlang, or the class bytes and
+ * shared library generated by Clang), so that an expression compiled in one JVM run does not have to be
+ * compiled again in the next.
+ * 
+ * <P> The cache is content-addressed.  Each entry is keyed by a hash of the code generated for a simplified
+ * expression, which is a canonical serialization of the structure of the expression, together with the
+ * compiler and its flags.  The generated temporary variable and member names are renumbered in order of
+ * first appearance before hashing, so that the same expression gets the same key regardless of how many
+ * expressions have been compiled before it.
+ * 
+ * <P> Each entry is stored as a directory named by its key.  Entries are written to a temporary directory
+ * and renamed into place, so that a partially written entry is never read.  The last-modified time of each
+ * entry directory is updated on each hit, and the least recently used entries are deleted when the total
+ * size of the cache exceeds its byte budget.
+ * 
+ * @author tgreen
+ * 
+ */
+public class KernelCache {
+
+
+	/**
+	 * The default maximum total size of the cache in bytes.
+	 */
+	public static final long DEFAULT_BYTE_BUDGET = 256L * 1024L * 1024L;
+
+	/**
+	 * Version of the code generation, which is included in each key.  Increment this whenever
+	 * the templates of the generated code change so that stale entries are no longer used.
+	 */
+	public static final int FORMAT_VERSION = 1;
+
+	/**
+	 * System property that can be used to set the directory of the default cache.
+	 */
+	public static final String DIR_PROPERTY = "simplealgebra.kernelcache.dir";
+
+	/**
+	 * Pattern matching the generated temporary variable and member names.
+	 */
+	protected static final Pattern GENERATED_NAME = Pattern.compile( "[tm]_[0-9]+\\b" );
+
+	/**
+	 * The default cache, or null if it has not been created.
+	 */
+	private static KernelCache defaultCache = null;
+
+
+	/**
+	 * The directory holding the entries.
+	 */
+	protected final File dir;
+
+	/**
+	 * The maximum total size of the cache in bytes.
+	 */
+	protected final long byteBudget;
+
+	/**
+	 * The number of lookups that found an entry.
+	 */
+	protected long hits = 0;
+
+	/**
+	 * The number of lookups that did not find an entry.
+	 */
+	protected long misses = 0;
+
+	/**
+	 * The number of entries deleted to stay within the byte budget.
+	 */
+	protected long evictions = 0;
+
+
+
+	/**
+	 * Constructor.  The directory is created when the first entry is stored.
+	 * @param _dir The directory holding the entries.
+	 * @param _byteBudget The maximum total size of the cache in bytes.
+	 */
+	public KernelCache( File _dir , long _byteBudget )
+	{
+		dir = _dir;
+		byteBudget = _byteBudget;
+	}
+
+
+
+	/**
+	 * Gets the default cache, which is in the directory given by the system property {@link #DIR_PROPERTY}
+	 * or otherwise in the system temporary directory.
+	 * @return The default cache.
+	 */
+	public static synchronized KernelCache getDefault()
+	{
+		if( defaultCache == null )
+		{
+			final String path = System.getProperty( DIR_PROPERTY ,
+					new File( System.getProperty( "java.io.tmpdir" ) , "simplealgebra_kernels" ).getAbsolutePath() );
+			defaultCache = new KernelCache( new File( path ) , DEFAULT_BYTE_BUDGET );
+		}
+		return( defaultCache );
+	}
+
+
+
+	/**
+	 * Computes the key of a kernel.
+	 * @param kind The kind of kernel, for instance "Jlang_Dbl".
+	 * @param config The compiler and flags used to build the kernel.
+	 * @param parts The pieces of generated code from which the kernel is assembled.
+	 * @return The key, as a string of hexadecimal digits.
+	 * @throws Throwable
+	 */
+	public static String computeKey( String kind , String config , String... parts ) throws Throwable
+	{
+		final StringBuilder canon = new StringBuilder();
+		canon.append( FORMAT_VERSION );
+		canon.append( '\u0000' );
+		canon.append( kind );
+		canon.append( '\u0000' );
+		canon.append( config );
+
+		final HashMap<String,String> renames = new HashMap<String,String>();
+		for( final String part : parts )
+		{
+			canon.append( '\u0000' );
+			final Matcher m = GENERATED_NAME.matcher( part );
+			int last = 0;
+			while( m.find() )
+			{
+				final String name = m.group();
+				String rename = renames.get( name );
+				if( rename == null )
+				{
+					rename = name.charAt( 0 ) + "_" + ( renames.size() + 1 );
+					renames.put( name , rename );
+				}
+				canon.append( part , last , m.start() );
+				canon.append( rename );
+				last = m.end();
+			}
+			canon.append( part , last , part.length() );
+		}
+
+		final MessageDigest md = MessageDigest.getInstance( "SHA-256" );
+		final byte[] digest = md.digest( canon.toString().getBytes( "UTF-8" ) );
+		final StringBuilder ret = new StringBuilder();
+		for( int cnt = 0 ; cnt < 16 ; cnt++ )
+		{
+			ret.append( Character.forDigit( ( digest[ cnt ] >> 4 ) & 0xF , 16 ) );
+			ret.append( Character.forDigit( digest[ cnt ] & 0xF , 16 ) );
+		}
+		return( ret.toString() );
+	}
+
+
+
+	/**
+	 * Reads the contents of a file of generated code.
+	 * @param f The file.
+	 * @return The contents of the file.
+	 * @throws Throwable
+	 */
+	public static String readString( File f ) throws Throwable
+	{
+		return( new String( Files.readAllBytes( f.toPath() ) , "UTF-8" ) );
+	}
+
+
+
+	/**
+	 * Gets the directory of an entry, whether or not the entry exists.  Since entries are renamed into
+	 * place, files in the directory have stable paths that can be embedded in generated code.
+	 * @param key The key of the entry.
+	 * @return The directory of the entry.
+	 */
+	public File getEntryDir( String key )
+	{
+		return( new File( dir , key ) );
+	}
+
+
+
+	/**
+	 * Gets a file of an entry, marking the entry as recently used.
+	 * @param key The key of the entry.
+	 * @param fileName The name of the file within the entry.
+	 * @return The contents of the file, or null if there is no such entry.
+	 * @throws Throwable
+	 */
+	public synchronized byte[] get( String key , String fileName ) throws Throwable
+	{
+		final File entry = getEntryDir( key );
+		final File f = new File( entry , fileName );
+		if( !( f.isFile() ) )
+		{
+			misses++;
+			return( null );
+		}
+		hits++;
+		entry.setLastModified( System.currentTimeMillis() );
+		return( Files.readAllBytes( f.toPath() ) );
+	}
+
+
+
+	/**
+	 * Stores an entry, and then deletes the least recently used entries until the cache is within its byte budget.
+	 * If the entry already exists, for instance because it was stored by another JVM, it is left as it is.
+	 * @param key The key of the entry.
+	 * @param files Map from the name of each file of the entry to its contents.
+	 * @throws Throwable
+	 */
+	public synchronized void put( String key , HashMap<String,byte[]> files ) throws Throwable
+	{
+		final File entry = getEntryDir( key );
+		if( entry.isDirectory() )
+		{
+			entry.setLastModified( System.currentTimeMillis() );
+			return;
+		}
+
+		if( !( dir.isDirectory() ) && !( dir.mkdirs() ) && !( dir.isDirectory() ) )
+		{
+			throw( new RuntimeException( "Unable To Create Kernel Cache Directory" ) );
+		}
+
+		final File tmp = Files.createTempDirectory( dir.toPath() , "." + key ).toFile();
+		for( final Entry<String,byte[]> e : files.entrySet() )
+		{
+			Files.write( new File( tmp , e.getKey() ).toPath() , e.getValue() );
+		}
+
+		try
+		{
+			Files.move( tmp.toPath() , entry.toPath() , StandardCopyOption.ATOMIC_MOVE );
+		}
+		catch( IOException ex )
+		{
+			deleteEntry( tmp );
+			if( !( entry.isDirectory() ) )
+			{
+				throw( ex );
+			}
+		}
+
+		evict( key );
+	}
+
+
+
+	/**
+	 * Deletes an entry, for instance if it could not be loaded.
+	 * @param key The key of the entry.
+	 */
+	public synchronized void remove( String key )
+	{
+		deleteEntry( getEntryDir( key ) );
+	}
+
+
+
+	/**
+	 * Deletes all entries.
+	 */
+	public synchronized void clear()
+	{
+		final File[] entries = dir.listFiles();
+		if( entries != null )
+		{
+			for( final File entry : entries )
+			{
+				if( entry.isDirectory() )
+				{
+					deleteEntry( entry );
+				}
+			}
+		}
+	}
+
+
+
+	/**
+	 * Deletes the least recently used entries until the cache is within its byte budget.
+	 * @param keep The key of an entry that is not to be deleted, or null.
+	 */
+	protected void evict( String keep )
+	{
+		final File[] entries = dir.listFiles();
+		if( entries == null )
+		{
+			return;
+		}
+
+		final ArrayList<File> lst = new ArrayList<File>();
+		final HashMap<File,Long> times = new HashMap<File,Long>();
+		long total = 0;
+		for( final File entry : entries )
+		{
+			if( entry.isDirectory() && !( entry.getName().startsWith( "." ) ) )
+			{
+				lst.add( entry );
+				times.put( entry , entry.lastModified() );
+				total += getEntrySize( entry );
+			}
+		}
+
+		if( total <= byteBudget )
+		{
+			return;
+		}
+
+		lst.sort( new Comparator<File>()
+		{
+			@Override
+			public int compare( File a , File b )
+			{
+				return( Long.compare( times.get( a ) , times.get( b ) ) );
+			}
+		} );
+
+		for( final File entry : lst )
+		{
+			if( total <= byteBudget )
+			{
+				return;
+			}
+			if( !( entry.getName().equals( keep ) ) )
+			{
+				total -= getEntrySize( entry );
+				deleteEntry( entry );
+				evictions++;
+			}
+		}
+	}
+
+
+
+	/**
+	 * Gets the total size of the files of an entry.
+	 * @param entry The directory of the entry.
+	 * @return The size in bytes.
+	 */
+	protected static long getEntrySize( File entry )
+	{
+		long ret = 0;
+		final File[] files = entry.listFiles();
+		if( files != null )
+		{
+			for( final File f : files )
+			{
+				ret += f.length();
+			}
+		}
+		return( ret );
+	}
+
+
+
+	/**
+	 * Deletes the directory of an entry.
+	 * @param entry The directory of the entry.
+	 */
+	protected static void deleteEntry( File entry )
+	{
+		final File[] files = entry.listFiles();
+		if( files != null )
+		{
+			for( final File f : files )
+			{
+				f.delete();
+			}
+		}
+		entry.delete();
+	}
+
+
+
+	/**
+	 * Gets the total size of the entries in the cache.
+	 * @return The size in bytes.
+	 */
+	public synchronized long getSizeBytes()
+	{
+		long ret = 0;
+		final File[] entries = dir.listFiles();
+		if( entries != null )
+		{
+			for( final File entry : entries )
+			{
+				if( entry.isDirectory() && !( entry.getName().startsWith( "." ) ) )
+				{
+					ret += getEntrySize( entry );
+				}
+			}
+		}
+		return( ret );
+	}
+
+
+
+	/**
+	 * Gets the directory holding the entries.
+	 * @return The directory holding the entries.
+	 */
+	public File getDir() {
+		return dir;
+	}
+
+	/**
+	 * Gets the number of lookups that found an entry.
+	 * @return The number of lookups that found an entry.
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Gets the number of lookups that did not find an entry.
+	 * @return The number of lookups that did not find an entry.
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Gets the number of entries deleted to stay within the byte budget.
+	 * @return The number of entries deleted to stay within the byte budget.
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+
+}
+
+
@@ -28,10 +28,13 @@ package simplealgebra.store;
 
 
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.WeakHashMap;
 
 import org.hypergraphdb.HGHandle;
+import org.hypergraphdb.HGPersistentHandle;
 import org.hypergraphdb.HGSearchResult;
 import org.hypergraphdb.HGValueLink;
 import org.hypergraphdb.HyperGraph;
@@ -45,6 +48,12 @@ import org.hypergraphdb.query.HGQueryCondition;
  * DB entity resembling a sparse multidimensional array.  For performance reasons it is
  * assumed that there will only be a single write to each index location.
  * 
+ * <P> Since every location is written through the array, the array keeps its own in-memory index of the
+ * locations.  Locations whose coordinates fit in a packed long are kept in an off-heap DbLongIndex holding the
+ * UUID persistent handles of their payloads as pairs of longs, so that reading them takes a few memory probes and the
+ * rebuilding of a handle rather than a DB query, and so that the index keeps no handle objects on the heap.  All locations
+ * are also added to a DbBloomFilter, so that a read of an empty location is usually answered without a DB query.
+ * 
  * This documentation should be viewed using Firefox version 33.1.1 or above.
  * 
  * @author thorngreen
@@ -68,6 +77,51 @@ public class BaseDbArray_SingleWrite<T extends Object> {
 	 */
 	protected final WeakHashMap<ArrayList<BigInteger>,T> cacheMemory = new WeakHashMap<ArrayList<BigInteger>,T>();
 	
+	/**
+	 * The largest number of dimensions for which index locations are packed into a long.
+	 */
+	protected static final int MAX_PACKED_DIMS = 8;
+	
+	/**
+	 * Salt distinguishing the hashes of unpacked index locations from those of packed index locations.
+	 */
+	private static final long UNPACKED_SALT = 0x9e3779b97f4a7c15L;
+	
+	/**
+	 * The size in bytes of a UUID persistent handle.
+	 */
+	protected static final int HANDLE_SIZE = 16;
+	
+	/**
+	 * For each number of dimensions, the index from packed index locations to the persistent handles of their payloads, or null if no such location has been written.
+	 */
+	protected final DbLongIndex[] packedIndices = new DbLongIndex[ MAX_PACKED_DIMS + 1 ];
+	
+	/**
+	 * The high and low longs of the last persistent handle read from the packed index.
+	 */
+	protected final long[] handleVal = new long[ 2 ];
+	
+	/**
+	 * Filter of the index locations that have been written.
+	 */
+	protected final DbBloomFilter written = new DbBloomFilter( DbBloomFilter.DEFAULT_INITIAL_CAPACITY );
+	
+	/**
+	 * The number of reads of empty locations answered by the filter.
+	 */
+	protected long numFilterRejects = 0;
+	
+	/**
+	 * The number of reads answered by the packed index.
+	 */
+	protected long numIndexReads = 0;
+	
+	/**
+	 * The number of reads answered by a DB query.
+	 */
+	protected long numDbQueries = 0;
+	
 	
 	
 	/**
@@ -80,6 +134,7 @@ public class BaseDbArray_SingleWrite<T extends Object> {
 		graph = _graph;
 		RelBase base = new RelBase();
 		hbase = graph.add( base );
+		SegmentedTransactionManager.recordWrite( graph , SegmentedTransactionManager.ATOM_WRITE_BYTES );
 	}
 	
 	
@@ -97,6 +152,33 @@ public class BaseDbArray_SingleWrite<T extends Object> {
 			return( ret );
 		}
 		
+		final boolean packable = isPackable( arb );
+		final long key = packable ? pack( arb ) : 0L;
+		if( !( written.mightContain( hash( arb , packable , key ) ) ) )
+		{
+			numFilterRejects++;
+			return( null );
+		}
+		
+		if( packable )
+		{
+			final DbLongIndex index = packedIndices[ arb.size() ];
+			if( ( index == null ) || !( index.get( key , handleVal ) ) )
+			{
+				return( null );
+			}
+			numIndexReads++;
+			RelPayload<T> p = graph.get( makeHandle( handleVal[ 0 ] , handleVal[ 1 ] ) );
+			ret = p.getD();
+			if( ret != null )
+			{
+				cacheMemory.put( arb , ret );
+			}
+			MemoryClearingSystem.handleCheckClear( graph );
+			return( ret );
+		}
+		
+		numDbQueries++;
 		HGQueryCondition condition = new And( hg.link( hbase ) , hg.eq( arb ) );
 		
 		
@@ -154,7 +236,190 @@ public class BaseDbArray_SingleWrite<T extends Object> {
 		
 		cacheMemory.put( arb , val );
 		
-		MemoryClearingSystem.handleCheckClear( graph );
+		addToIndex( arb , hpa );
+		
+		// Records the payload and the link to the payload.
+		MemoryClearingSystem.handleCheckClear( graph , 
+				SegmentedTransactionManager.estimateWriteBytes( val ) + SegmentedTransactionManager.ATOM_WRITE_BYTES );
+	}
+	
+	
+	/**
+	 * Inserts a set of objects, sizing the index for all of them before they are inserted.
+	 * 
+	 * @param arbs The indices.
+	 * @param vals The objects to be inserted, in the same order as the indices.
+	 */
+	public void insertAll( final List<ArrayList<BigInteger>> arbs , final List<T> vals )
+	{
+		if( arbs.size() != vals.size() )
+		{
+			throw( new RuntimeException( "Mismatched Sizes" ) );
+		}
+		
+		final int num = arbs.size();
+		written.ensureCapacity( num );
+		final boolean[] sized = new boolean[ MAX_PACKED_DIMS + 1 ];
+		for( int cnt = 0 ; cnt < num ; cnt++ )
+		{
+			final int dims = arbs.get( cnt ).size();
+			if( ( dims > 0 ) && ( dims <= MAX_PACKED_DIMS ) && !( sized[ dims ] ) )
+			{
+				if( packedIndices[ dims ] == null )
+				{
+					packedIndices[ dims ] = new DbLongIndex( num );
+				}
+				else
+				{
+					packedIndices[ dims ].ensureCapacity( packedIndices[ dims ].size() + num );
+				}
+				sized[ dims ] = true;
+			}
+		}
+		
+		for( int cnt = 0 ; cnt < num ; cnt++ )
+		{
+			insert( arbs.get( cnt ) , vals.get( cnt ) );
+		}
+	}
+	
+	
+	/**
+	 * Adds a written index location to the filter and, if the location can be packed, to the packed index.
+	 * 
+	 * @param arb The index.
+	 * @param hpa The handle of the payload at the index.
+	 */
+	protected void addToIndex( final ArrayList<BigInteger> arb , final HGHandle hpa )
+	{
+		final boolean packable = isPackable( arb );
+		final long key = packable ? pack( arb ) : 0L;
+		written.add( hash( arb , packable , key ) );
+		if( packable )
+		{
+			DbLongIndex index = packedIndices[ arb.size() ];
+			if( index == null )
+			{
+				index = new DbLongIndex( DbBloomFilter.DEFAULT_INITIAL_CAPACITY );
+				packedIndices[ arb.size() ] = index;
+			}
+			final ByteBuffer buf = ByteBuffer.wrap( hpa.getPersistent().toByteArray() );
+			if( buf.remaining() != HANDLE_SIZE )
+			{
+				throw( new RuntimeException( "Unsupported Handle Size" ) );
+			}
+			final long hi = buf.getLong();
+			final long lo = buf.getLong();
+			index.put( key , hi , lo );
+		}
+	}
+	
+	
+	/**
+	 * Rebuilds a UUID persistent handle from the longs stored in the packed index.
+	 * 
+	 * @param hi The high long of the handle.
+	 * @param lo The low long of the handle.
+	 * @return The persistent handle.
+	 */
+	protected HGPersistentHandle makeHandle( final long hi , final long lo )
+	{
+		final ByteBuffer buf = ByteBuffer.allocate( HANDLE_SIZE );
+		buf.putLong( hi );
+		buf.putLong( lo );
+		return( graph.getHandleFactory().makeHandle( buf.array() ) );
+	}
+	
+	
+	/**
+	 * Returns whether the coordinates of an index location all fit in an equal share of the bits of a long.
+	 * 
+	 * @param arb The index.
+	 * @return True iff. the index location can be packed into a long.
+	 */
+	protected static boolean isPackable( final ArrayList<BigInteger> arb )
+	{
+		final int dims = arb.size();
+		if( ( dims == 0 ) || ( dims > MAX_PACKED_DIMS ) )
+		{
+			return( false );
+		}
+		final int bitsPer = 64 / dims;
+		for( final BigInteger coord : arb )
+		{
+			if( coord.bitLength() >= bitsPer )
+			{
+				return( false );
+			}
+		}
+		return( true );
+	}
+	
+	
+	/**
+	 * Packs the coordinates of an index location into a long, each coordinate taking an equal share of the bits.
+	 * 
+	 * @param arb The index, which must be packable.
+	 * @return The packed index location.
+	 */
+	protected static long pack( final ArrayList<BigInteger> arb )
+	{
+		final int bitsPer = 64 / arb.size();
+		final long mask = bitsPer == 64 ? -1L : ( 1L << bitsPer ) - 1;
+		long key = 0L;
+		for( final BigInteger coord : arb )
+		{
+			key = ( bitsPer == 64 ? 0L : ( key << bitsPer ) ) | ( coord.longValue() & mask );
+		}
+		return( key );
+	}
+	
+	
+	/**
+	 * Gets the hash of an index location for the filter.
+	 * 
+	 * @param arb The index.
+	 * @param packable Whether the index location can be packed into a long.
+	 * @param key The packed index location, if the location can be packed.
+	 * @return The hash.
+	 */
+	protected static long hash( final ArrayList<BigInteger> arb , final boolean packable , final long key )
+	{
+		if( packable )
+		{
+			return( DbLongIndex.mix( DbLongIndex.mix( key ) + arb.size() ) );
+		}
+		return( DbLongIndex.mix( ( ( (long)( arb.hashCode() ) ) << 8 ) + arb.size() + UNPACKED_SALT ) );
+	}
+	
+	
+	/**
+	 * Gets the number of reads of empty locations answered by the filter.
+	 * 
+	 * @return The number of reads answered by the filter.
+	 */
+	public long getNumFilterRejects() {
+		return( numFilterRejects );
+	}
+	
+	
+	/**
+	 * Gets the number of reads answered by the packed index.
+	 * 
+	 * @return The number of reads answered by the packed index.
+	 */
+	public long getNumIndexReads() {
+		return( numIndexReads );
+	}
+	
+	
+	/**
+	 * Gets the number of reads answered by a DB query.
+	 * 
+	 * @return The number of reads answered by a DB query.
+	 */
+	public long getNumDbQueries() {
+		return( numDbQueries );
 	}
 	
 
@@ -0,0 +1,168 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package simplealgebra.store;
+
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+
+
+
+/**
+ * Lossless codec for the time slices of a 4-D field of doubles.  Consecutive time slices of a field usually
+ * differ only slightly, so each slice is XORed with the previous slice, which zeroes the sign, exponent, and
+ * leading mantissa bits of most elements.  The bytes of the result are then shuffled into byte planes (all of the most
+ * significant bytes, then all of the next bytes, and so on) so that the zeroed bytes are contiguous, and the
+ * planes are compressed with the JDK's Deflater.
+ * 
+ * <P> A key slice that is not XORed with a previous slice is encoded at regular intervals, so that any
+ * slice can be decoded by decoding at most the slices since the previous key slice.
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ *
+ */
+public class CompressedSliceCodec {
+	
+	/**
+	 * The magic number at the start of a compressed file ("SARZ").
+	 */
+	public static final int MAGIC = 0x5341525A;
+	
+	/**
+	 * The version of the compressed file format.
+	 */
+	public static final int VERSION = 1;
+	
+	/**
+	 * The size of the header of a compressed file in bytes.
+	 */
+	public static final int HEADER_SIZE = 64;
+	
+	/**
+	 * The default number of slices between key slices.
+	 */
+	public static final int DEFAULT_KEY_INTERVAL = 16;
+	
+	/**
+	 * The size of a double-precision number in bytes.
+	 */
+	static final int SZ_DBL = 8;
+	
+	/**
+	 * The size of the chunks in which the compressed output is collected.
+	 */
+	static final int CHUNK_SIZE = 64 * 1024;
+	
+	
+	
+	/**
+	 * Encodes a slice.
+	 * 
+	 * @param bits The raw bits of the elements of the slice.
+	 * @param prev The raw bits of the elements of the previous slice, or null if the slice is a key slice.
+	 * @param deflater The deflater with which to compress the slice.
+	 * @param shuffled Scratch array of size 8 times the number of elements.
+	 * @return The encoded slice.
+	 */
+	public static byte[] encode( final long[] bits , final long[] prev , final Deflater deflater , final byte[] shuffled )
+	{
+		final int n = bits.length;
+		for( int i = 0 ; i < n ; i++ )
+		{
+			final long x = prev != null ? bits[ i ] ^ prev[ i ] : bits[ i ];
+			for( int b = 0 ; b < SZ_DBL ; b++ )
+			{
+				shuffled[ b * n + i ] = (byte)( x >>> ( 56 - 8 * b ) );
+			}
+		}
+		
+		deflater.reset();
+		deflater.setInput( shuffled , 0 , SZ_DBL * n );
+		deflater.finish();
+		
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final byte[] chunk = new byte[ CHUNK_SIZE ];
+		while( !( deflater.finished() ) )
+		{
+			final int cnt = deflater.deflate( chunk );
+			out.write( chunk , 0 , cnt );
+		}
+		return( out.toByteArray() );
+	}
+	
+	
+	
+	/**
+	 * Decodes a slice.
+	 * 
+	 * @param data The encoded slice.
+	 * @param bits Array into which to place the raw bits of the elements of the slice.  For a slice that
+	 * is not a key slice, this must contain the raw bits of the elements of the previous slice on entry.
+	 * @param key Whether the slice is a key slice.
+	 * @param inflater The inflater with which to decompress the slice.
+	 * @param shuffled Scratch array of size 8 times the number of elements.
+	 * @throws DataFormatException
+	 */
+	public static void decode( final byte[] data , final long[] bits , final boolean key ,
+			final Inflater inflater , final byte[] shuffled ) throws DataFormatException
+	{
+		final int n = bits.length;
+		
+		inflater.reset();
+		inflater.setInput( data );
+		int pos = 0;
+		while( pos < SZ_DBL * n )
+		{
+			final int cnt = inflater.inflate( shuffled , pos , SZ_DBL * n - pos );
+			if( ( cnt == 0 ) && ( inflater.finished() || inflater.needsInput() ) )
+			{
+				throw( new RuntimeException( "Compressed Slice Truncated" ) );
+			}
+			pos += cnt;
+		}
+		
+		for( int i = 0 ; i < n ; i++ )
+		{
+			long x = 0;
+			for( int b = 0 ; b < SZ_DBL ; b++ )
+			{
+				x = ( x << 8 ) | ( shuffled[ b * n + i ] & 0xFFL );
+			}
+			bits[ i ] = key ? x : bits[ i ] ^ x;
+		}
+	}
+	
+	
+}
+
+
@@ -0,0 +1,286 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package simplealgebra.store;
+
+
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.zip.Inflater;
+
+
+
+
+/**
+ * Read-only 4-D array of doubles backed by a compressed file written by CompressedSliceWriter.  The reader has the
+ * same get( t , x , y , z ) form as DrFastArray4D_Dbl, using the indices of the ranges in the file.  The most
+ * recently accessed slice is kept decoded, so reads that stay within a slice, or that advance through
+ * the slices in order of increasing T, decode each slice only once.  Reading an arbitrary slice decodes at most
+ * the slices since the previous key slice.
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ *
+ */
+public class CompressedSliceReader {
+	
+	/**
+	 * The file being read.
+	 */
+	protected RandomAccessFile file;
+	
+	/**
+	 * The channel of the file being read.
+	 */
+	protected FileChannel channel;
+	
+	/**
+	 * The ranges of the axes of the field.
+	 */
+	protected RawFileHeader ranges;
+	
+	/**
+	 * The number of slices between key slices.
+	 */
+	protected int keyInterval;
+	
+	/**
+	 * The number of slices in the file.
+	 */
+	protected int numSlices;
+	
+	/**
+	 * The offset in the file of each slice, followed by the offset of the end of the last slice.
+	 */
+	protected long[] offsets;
+	
+	/**
+	 * The inflater used to decompress the slices.
+	 */
+	protected Inflater inflater = new Inflater();
+	
+	/**
+	 * Scratch array for the shuffled bytes of a slice.
+	 */
+	protected byte[] shuffled;
+	
+	/**
+	 * The raw bits of the elements of the decoded slice.
+	 */
+	protected long[] bits;
+	
+	/**
+	 * The index (from the start of the T-Axis range) of the decoded slice, or -1 if no slice has been decoded.
+	 */
+	protected int curSlice = -1;
+	
+	
+	
+	/**
+	 * Constructs the reader.
+	 * 
+	 * @param pathName The path to the file.
+	 * @throws Throwable
+	 */
+	public CompressedSliceReader( final String pathName ) throws Throwable
+	{
+		file = new RandomAccessFile( pathName , "r" );
+		channel = file.getChannel();
+		
+		final ByteBuffer header = read( 0 , CompressedSliceCodec.HEADER_SIZE );
+		if( ( header.getInt() != CompressedSliceCodec.MAGIC ) || ( header.getInt() != CompressedSliceCodec.VERSION ) )
+		{
+			file.close();
+			throw( new RuntimeException( "Not A Compressed Slice File" ) );
+		}
+		keyInterval = header.getInt();
+		numSlices = header.getInt();
+		final long indexOffset = header.getLong();
+		final int tStrt = header.getInt();
+		final int tEnd = header.getInt();
+		final int zStrt = header.getInt();
+		final int zEnd = header.getInt();
+		final int yStrt = header.getInt();
+		final int yEnd = header.getInt();
+		final int xStrt = header.getInt();
+		final int xEnd = header.getInt();
+		ranges = new RawFileHeader( RawFileHeader.ElemType.DOUBLE , ByteOrder.BIG_ENDIAN ,
+				tStrt , tEnd , zStrt , zEnd , yStrt , yEnd , xStrt , xEnd );
+		
+		final ByteBuffer index = read( indexOffset , CompressedSliceCodec.SZ_DBL * ( numSlices + 1 ) );
+		offsets = new long[ numSlices + 1 ];
+		for( int cnt = 0 ; cnt <= numSlices ; cnt++ )
+		{
+			offsets[ cnt ] = index.getLong();
+		}
+		
+		final int sliceSize = (int)( ( (long)( zEnd - zStrt ) ) * ( yEnd - yStrt ) * ( xEnd - xStrt ) );
+		shuffled = new byte[ CompressedSliceCodec.SZ_DBL * sliceSize ];
+		bits = new long[ sliceSize ];
+	}
+	
+	
+	
+	/**
+	 * Reads a range of the file.
+	 * 
+	 * @param p The position in the file at which to read.
+	 * @param len The number of bytes to read.
+	 * @return A buffer containing the bytes read.
+	 * @throws Throwable
+	 */
+	protected ByteBuffer read( long p , final int len ) throws Throwable
+	{
+		final ByteBuffer buf = ByteBuffer.allocate( len );
+		while( buf.hasRemaining() )
+		{
+			final int cnt = channel.read( buf , p );
+			if( cnt < 0 )
+			{
+				throw( new RuntimeException( "Compressed Slice File Truncated" ) );
+			}
+			p += cnt;
+		}
+		buf.flip();
+		return( buf );
+	}
+	
+	
+	
+	/**
+	 * Decodes a slice into the bits array, decoding any slices since the previous key slice that are needed.
+	 * 
+	 * @param slice The index of the slice from the start of the T-Axis range.
+	 * @throws Throwable
+	 */
+	protected void decodeSlice( final int slice ) throws Throwable
+	{
+		if( slice == curSlice )
+		{
+			return;
+		}
+		
+		if( ( slice < 0 ) || ( slice >= numSlices ) )
+		{
+			throw( new RuntimeException( "Slice Not In File" ) );
+		}
+		
+		final int key = slice - ( slice % keyInterval );
+		int strt = key;
+		if( ( curSlice >= key ) && ( curSlice < slice ) )
+		{
+			strt = curSlice + 1;
+		}
+		
+		for( int cnt = strt ; cnt <= slice ; cnt++ )
+		{
+			curSlice = -1;
+			final ByteBuffer data = read( offsets[ cnt ] , (int)( offsets[ cnt + 1 ] - offsets[ cnt ] ) );
+			CompressedSliceCodec.decode( data.array() , bits , cnt == key , inflater , shuffled );
+			curSlice = cnt;
+		}
+	}
+	
+	
+	
+	/**
+	 * Returns the double at the index.
+	 * 
+	 * @param t The T-Axis index.
+	 * @param x The X-Axis index.
+	 * @param y The Y-Axis index.
+	 * @param z The Z-Axis index.
+	 * @return The double at the index.
+	 * @throws Throwable
+	 */
+	public double get( int t , int x , int y , int z ) throws Throwable
+	{
+		decodeSlice( t - ranges.getTStrt() );
+		final int index = ( ( z - ranges.getZStrt() ) * ( ranges.getYEnd() - ranges.getYStrt() ) + ( y - ranges.getYStrt() ) ) * 
+				( ranges.getXEnd() - ranges.getXStrt() ) + ( x - ranges.getXStrt() );
+		return( Double.longBitsToDouble( bits[ index ] ) );
+	}
+	
+	
+	
+	/**
+	 * Gets a whole time slice.
+	 * 
+	 * @param t The T-Axis index.
+	 * @param vals Array into which to place the elements of the slice, with the X-Axis varying fastest, then the Y-Axis, and then the Z-Axis.
+	 * @throws Throwable
+	 */
+	public void getSlice( final int t , final double[] vals ) throws Throwable
+	{
+		decodeSlice( t - ranges.getTStrt() );
+		for( int i = 0 ; i < bits.length ; i++ )
+		{
+			vals[ i ] = Double.longBitsToDouble( bits[ i ] );
+		}
+	}
+	
+	
+	
+	/**
+	 * Closes the reader.
+	 * 
+	 * @throws Throwable
+	 */
+	public void close() throws Throwable
+	{
+		inflater.end();
+		file.close();
+	}
+	
+	
+	
+	/**
+	 * Gets the ranges of the axes of the field.
+	 * 
+	 * @return The ranges of the axes of the field.
+	 */
+	public RawFileHeader getRanges() {
+		return ranges;
+	}
+	
+	
+	/**
+	 * Gets the number of slices in the file.
+	 * 
+	 * @return The number of slices in the file.
+	 */
+	public int getNumSlices() {
+		return numSlices;
+	}
+	
+	
+}
+
+
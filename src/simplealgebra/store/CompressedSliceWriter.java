@@ -0,0 +1,286 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package simplealgebra.store;
+
+
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.zip.Deflater;
+
+
+
+
+/**
+ * Writes the time slices of a 4-D field of doubles to a compressed file using CompressedSliceCodec.  The slices are
+ * appended in order of increasing T, and an index of the offset of each slice is written at the end of the file when
+ * the writer is closed, so that CompressedSliceReader can read any slice without reading the whole file.
+ * 
+ * <P> The file consists of a header of CompressedSliceCodec.HEADER_SIZE bytes, the encoded slices, and the index.
+ * The elements of each slice are ordered with the X-Axis varying fastest, then the Y-Axis, and then the Z-Axis,
+ * as in the files written by RawFileWriter.
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ *
+ */
+public class CompressedSliceWriter {
+	
+	/**
+	 * The file being written.
+	 */
+	protected RandomAccessFile file;
+	
+	/**
+	 * The channel of the file being written.
+	 */
+	protected FileChannel channel;
+	
+	/**
+	 * The ranges of the axes of the field.
+	 */
+	protected RawFileHeader ranges;
+	
+	/**
+	 * The number of slices between key slices.
+	 */
+	protected int keyInterval;
+	
+	/**
+	 * The number of elements in each slice.
+	 */
+	protected int sliceSize;
+	
+	/**
+	 * The deflater used to compress the slices.
+	 */
+	protected Deflater deflater;
+	
+	/**
+	 * Scratch array for the shuffled bytes of a slice.
+	 */
+	protected byte[] shuffled;
+	
+	/**
+	 * The raw bits of the elements of the slice being written.
+	 */
+	protected long[] bits;
+	
+	/**
+	 * The raw bits of the elements of the previous slice.
+	 */
+	protected long[] prev;
+	
+	/**
+	 * The offset in the file of each slice written so far.
+	 */
+	protected ArrayList<Long> offsets = new ArrayList<Long>();
+	
+	/**
+	 * The position in the file at which the next slice is to be written.
+	 */
+	protected long pos = CompressedSliceCodec.HEADER_SIZE;
+	
+	/**
+	 * The number of uncompressed bytes written so far.
+	 */
+	protected long rawBytes = 0;
+	
+	
+	
+	/**
+	 * Constructs the writer.
+	 * 
+	 * @param pathName The path to the file.
+	 * @param _ranges The ranges of the axes of the field.  The element type and byte order are not used.
+	 * @param _keyInterval The number of slices between key slices.
+	 * @param level The Deflater compression level, for instance Deflater.BEST_SPEED.
+	 * @throws Throwable
+	 */
+	public CompressedSliceWriter( final String pathName , final RawFileHeader _ranges , final int _keyInterval , final int level ) throws Throwable
+	{
+		if( _keyInterval <= 0 )
+		{
+			throw( new RuntimeException( "Invalid Key Interval" ) );
+		}
+		
+		final long sz = ( (long)( _ranges.getZEnd() - _ranges.getZStrt() ) ) * ( _ranges.getYEnd() - _ranges.getYStrt() ) * 
+				( _ranges.getXEnd() - _ranges.getXStrt() );
+		if( sz * CompressedSliceCodec.SZ_DBL > Integer.MAX_VALUE )
+		{
+			throw( new RuntimeException( "Time Slice Too Large" ) );
+		}
+		
+		ranges = _ranges;
+		keyInterval = _keyInterval;
+		sliceSize = (int) sz;
+		deflater = new Deflater( level );
+		shuffled = new byte[ CompressedSliceCodec.SZ_DBL * sliceSize ];
+		bits = new long[ sliceSize ];
+		prev = new long[ sliceSize ];
+		
+		file = new RandomAccessFile( pathName , "rw" );
+		file.setLength( 0 );
+		channel = file.getChannel();
+	}
+	
+	
+	
+	/**
+	 * Constructs the writer with the default key interval and Deflater.BEST_SPEED compression.
+	 * 
+	 * @param pathName The path to the file.
+	 * @param _ranges The ranges of the axes of the field.  The element type and byte order are not used.
+	 * @throws Throwable
+	 */
+	public CompressedSliceWriter( final String pathName , final RawFileHeader _ranges ) throws Throwable
+	{
+		this( pathName , _ranges , CompressedSliceCodec.DEFAULT_KEY_INTERVAL , Deflater.BEST_SPEED );
+	}
+	
+	
+	
+	/**
+	 * Appends the next time slice.
+	 * 
+	 * @param vals The elements of the slice, with the X-Axis varying fastest, then the Y-Axis, and then the Z-Axis.
+	 * @throws Throwable
+	 */
+	public void appendSlice( final double[] vals ) throws Throwable
+	{
+		if( vals.length != sliceSize )
+		{
+			throw( new RuntimeException( "Invalid Slice Size" ) );
+		}
+		
+		for( int i = 0 ; i < sliceSize ; i++ )
+		{
+			bits[ i ] = Double.doubleToRawLongBits( vals[ i ] );
+		}
+		
+		final boolean key = ( offsets.size() % keyInterval ) == 0;
+		final byte[] data = CompressedSliceCodec.encode( bits , key ? null : prev , deflater , shuffled );
+		
+		offsets.add( pos );
+		pos = write( ByteBuffer.wrap( data ) , pos );
+		rawBytes += CompressedSliceCodec.SZ_DBL * (long) sliceSize;
+		
+		final long[] tmp = prev;
+		prev = bits;
+		bits = tmp;
+	}
+	
+	
+	
+	/**
+	 * Writes the index and the header, and closes the file.
+	 * 
+	 * @throws Throwable
+	 */
+	public void close() throws Throwable
+	{
+		final int numSlices = offsets.size();
+		final long indexOffset = pos;
+		
+		final ByteBuffer index = ByteBuffer.allocate( CompressedSliceCodec.SZ_DBL * ( numSlices + 1 ) );
+		for( final Long offset : offsets )
+		{
+			index.putLong( offset );
+		}
+		index.putLong( indexOffset );
+		index.flip();
+		write( index , indexOffset );
+		
+		final ByteBuffer header = ByteBuffer.allocate( CompressedSliceCodec.HEADER_SIZE );
+		header.putInt( CompressedSliceCodec.MAGIC );
+		header.putInt( CompressedSliceCodec.VERSION );
+		header.putInt( keyInterval );
+		header.putInt( numSlices );
+		header.putLong( indexOffset );
+		header.putInt( ranges.getTStrt() );
+		header.putInt( ranges.getTEnd() );
+		header.putInt( ranges.getZStrt() );
+		header.putInt( ranges.getZEnd() );
+		header.putInt( ranges.getYStrt() );
+		header.putInt( ranges.getYEnd() );
+		header.putInt( ranges.getXStrt() );
+		header.putInt( ranges.getXEnd() );
+		header.position( CompressedSliceCodec.HEADER_SIZE );
+		header.flip();
+		write( header , 0 );
+		
+		deflater.end();
+		file.close();
+	}
+	
+	
+	
+	/**
+	 * Writes the contents of a buffer to the file with positional writes.
+	 * 
+	 * @param buf The buffer to write.
+	 * @param p The position in the file at which to write.
+	 * @return The position in the file after the written contents.
+	 * @throws Throwable
+	 */
+	protected long write( final ByteBuffer buf , long p ) throws Throwable
+	{
+		while( buf.hasRemaining() )
+		{
+			p += channel.write( buf , p );
+		}
+		return( p );
+	}
+	
+	
+	
+	/**
+	 * Gets the number of uncompressed bytes written so far.
+	 * 
+	 * @return The number of uncompressed bytes written so far.
+	 */
+	public long getRawBytes() {
+		return rawBytes;
+	}
+	
+	
+	/**
+	 * Gets the number of compressed bytes written so far, excluding the header and the index.
+	 * 
+	 * @return The number of compressed bytes written so far.
+	 */
+	public long getCompressedBytes() {
+		return( pos - CompressedSliceCodec.HEADER_SIZE );
+	}
+	
+	
+}
+
+
@@ -26,8 +26,8 @@
 package simplealgebra.store;
 
 
-import java.io.RandomAccessFile;
-import java.util.HashMap;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
 
 
 
@@ -35,6 +35,10 @@ import java.util.HashMap;
 /**
  * Direct access entity resembling a dense 4-D array of complex numbers of doubles.  Basic layout of schema is a set of raw binaries, with the exception of endian reversal, generated by Nvidia Cuda code.
  * 
+ * <P> The time slices are memory-mapped through a CuSliceCache, which may be shared between arrays and threads.
+ * Each slice is laid out with the real and imaginary parts interleaved, so that the real part at ( x , y , z ) is at
+ * double index 2 * ( x + xmax * ( y + ymax * z ) ) of the slice, and the imaginary part follows it.
+ * 
  * This documentation should be viewed using Firefox version 33.1.1 or above.
  * 
  * @author thorngreen
@@ -43,20 +47,46 @@ public class CuFastArray_4D_Dbl_Cplx {
 	
 	
 	/**
-	 * Limit on number of files in the last used first out (LUFO) array of file indices.
+	 * Immutable pairing of a time index with its mapped slice, so that it can be replaced atomically.
+	 * 
+	 * @author thorngreen
+	 *
 	 */
-	protected static int FILE_LIMIT = 10;
+	private static final class LastSlice
+	{
+		/**
+		 * The time index of the slice.
+		 */
+		final int t;
+		
+		/**
+		 * The mapped slice.
+		 */
+		final ByteBuffer buf;
+		
+		/**
+		 * Constructs the pairing.
+		 * 
+		 * @param _t The time index of the slice.
+		 * @param _buf The mapped slice.
+		 */
+		LastSlice( final int _t , final ByteBuffer _buf )
+		{
+			t = _t;
+			buf = _buf;
+		}
+	}
 	
 	
 	/**
-	 * Map from file indices to RandomAccessFile instances.
+	 * The cache from which the time slices are mapped.
 	 */
-	protected HashMap<Integer,RandomAccessFile> files = new HashMap<Integer,RandomAccessFile>();
+	protected final CuSliceCache cache;
 	
 	/**
-	 * Last used first out (LUFO) array of file indices in use.
+	 * The most recently used slice, which avoids a cache lookup for consecutive reads of the same slice.
 	 */
-	protected Integer[] fileLufo = new Integer[ FILE_LIMIT ];
+	private volatile LastSlice last = null;
 	
 	
 	
@@ -122,16 +152,32 @@ public class CuFastArray_4D_Dbl_Cplx {
 	
 	
 	/**
-	 * Constructs the array.
+	 * Constructs the array using the default shared slice cache.
 	 * 
 	 * @param _param The input parameter.
 	 * @param ipath The path at which to get the array image on disk.
 	 * @param iim Whether the instance reads the imaginary part of the array as opposed to the real part of the array.
 	 */
 	public CuFastArray_4D_Dbl_Cplx( final DbFastArray4D_Param _param , String ipath , boolean iim ) throws Throwable
+	{
+		this( _param , ipath , iim , CuSliceCache.getDefault() );
+	}
+	
+	
+	
+	/**
+	 * Constructs the array.
+	 * 
+	 * @param _param The input parameter.
+	 * @param ipath The path at which to get the array image on disk.
+	 * @param iim Whether the instance reads the imaginary part of the array as opposed to the real part of the array.
+	 * @param _cache The cache from which to map the time slices.
+	 */
+	public CuFastArray_4D_Dbl_Cplx( final DbFastArray4D_Param _param , String ipath , boolean iim , final CuSliceCache _cache ) throws Throwable
 	{
 		path = ipath;
 		im = iim;
+		cache = _cache;
 		
 		tmax = _param.getTmax();
 		xmax = _param.getXmax();
@@ -149,6 +195,40 @@ public class CuFastArray_4D_Dbl_Cplx {
 	
 	
 	
+	/**
+	 * Gets the name of the file containing a time slice.
+	 * 
+	 * @param t The "T" index of the array.
+	 * @return The name of the file.
+	 */
+	protected String sliceFileName( final int t )
+	{
+		return( path + "/outD_" + ( t + 1 ) );
+	}
+	
+	
+	
+	/**
+	 * Gets the mapped contents of a time slice.
+	 * 
+	 * @param t The "T" index of the array.
+	 * @return The mapped contents of the time slice.
+	 * @throws Throwable
+	 */
+	protected ByteBuffer getSliceBuffer( final int t ) throws Throwable
+	{
+		final LastSlice ls = last;
+		if( ( ls != null ) && ( ls.t == t ) )
+		{
+			return( ls.buf );
+		}
+		
+		final ByteBuffer buf = cache.getSlice( sliceFileName( t ) );
+		last = new LastSlice( t , buf );
+		return( buf );
+	}
+	
+	
 	
 	
 	/**
@@ -182,46 +262,11 @@ public class CuFastArray_4D_Dbl_Cplx {
 			return( 0.0 );
 		}
 		
-		RandomAccessFile file = files.get( t );
-		
-		
-		if( file == null )
-		{
-			if( fileLufo[ FILE_LIMIT - 1 ] == null )
-			{
-				int index = 0;
-				while( fileLufo[ index ] != null )
-				{
-					index++;
-				}
-				fileLufo[ index ] = Integer.valueOf( t );
-				file = new RandomAccessFile( path + "/outD_" + ( t + 1 ) , "r" );
-				files.put(t, file);
-			}
-			else
-			{
-				files.get( fileLufo[ 0 ] ).close();
-				files.remove( fileLufo[ 0 ] );
-				for( int cnt = 0 ; cnt < FILE_LIMIT - 1 ; cnt++ )
-				{
-					fileLufo[ cnt ] = fileLufo[ cnt + 1 ];
-				}
-				fileLufo[ FILE_LIMIT - 1 ] = Integer.valueOf( t );
-				file = new RandomAccessFile( path + "/outD_" + ( t + 1 ) , "r" );
-				files.put(t, file);
-			}
-		}
-		
 		
 		long index = xmult * x + ymult * y + zmult * z + ( im ? 1 : 0 );
 		
 		
-		file.seek( SZ_DBL * index );
-		final double ret = file.readDouble();
-		if( file.getFilePointer() != ( SZ_DBL * ( index + 1 ) ) )
-		{
-			throw( new RuntimeException( "Internal Error" ) );
-		}
+		final double ret = getSliceBuffer( t ).getDouble( (int)( SZ_DBL * index ) );
 		
 //		if( t == 0 )
 //		{
@@ -232,35 +277,71 @@ public class CuFastArray_4D_Dbl_Cplx {
 	}
 	
 	
+	
 	/**
-	 * Closes the array.
+	 * Gets a view of an entire time slice, with the real and imaginary parts interleaved.
+	 * 
+	 * @param t The "T" index of the array.
+	 * @return The view of the time slice.
+	 * @throws Throwable
 	 */
-	public void close() throws Throwable
+	public DoubleBuffer getSlab( int t ) throws Throwable
 	{
-		for( final RandomAccessFile file : files.values() )
+		if( ( t < 0 ) || ( t >= tmax ) )
 		{
-			file.close();
+			throw( new RuntimeException( "Time Slice Out Of Range" ) );
 		}
-		files.clear();
-		fileLufo = new Integer[ FILE_LIMIT ];
+		
+		return( cache.getSlab( sliceFileName( t ) , 0 , (int)( zmult * zmax ) ) );
 	}
 	
 	
 	
 	/**
-	 * Flushes the contents of the previous array writes.
+	 * Gets a view of the XY-plane at one Z-index of a time slice, with the real and imaginary parts interleaved.
 	 * 
+	 * @param t The "T" index of the array.
+	 * @param z The "Z" index of the array.
+	 * @return The view of the XY-plane.
 	 * @throws Throwable
 	 */
-	public void flush( ) throws Throwable
+	public DoubleBuffer getSlabZ( int t , int z ) throws Throwable
 	{
-		for( final RandomAccessFile file : files.values() )
+		if( ( t < 0 ) || ( t >= tmax ) )
 		{
-			file.getFD().sync();
+			throw( new RuntimeException( "Time Slice Out Of Range" ) );
 		}
+		
+		if( ( z < 0 ) || ( z >= zmax ) )
+		{
+			throw( new RuntimeException( "Z Index Out Of Range" ) );
+		}
+		
+		return( cache.getSlab( sliceFileName( t ) , (int)( zmult * z ) , (int) zmult ) );
+	}
+	
+	
+	/**
+	 * Closes the array.  The mapped slices remain in the cache for use by other arrays.
+	 */
+	public void close() throws Throwable
+	{
+		last = null;
+	}
+	
+	
+	
+	/**
+	 * Flushes the contents of the previous array writes.  The array is read-only, so there is nothing to write.
+	 * 
+	 * @throws Throwable
+	 */
+	public void flush( ) throws Throwable
+	{
 	}
 	
 	
 
 }
 
+
@@ -0,0 +1,279 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package simplealgebra.store;
+
+
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+
+
+/**
+ * Thread-safe cache of memory-mapped time-slice files, such as the outD_* files read by CuFastArray_4D_Dbl_Cplx.
+ * Each slice file is mapped read-only in its entirety the first time it is requested, and the mapped slices are
+ * evicted in least-recently-used order when the total size of the mapped slices exceeds a byte budget.  The most
+ * recently requested slice is always kept, even if it alone exceeds the budget.
+ * 
+ * <P> One cache can be shared by any number of arrays and threads, so that (for instance) the arrays reading the
+ * real and imaginary parts of a field map each slice only once.  The file channel is closed as soon as a slice is
+ * mapped, so the cache holds no open files.  A buffer handed out by the cache remains valid after the slice has
+ * been evicted; the mapping is released once no buffer refers to it.
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ */
+public class CuSliceCache {
+	
+	
+	/**
+	 * The default byte budget of the mapped slices.
+	 */
+	public static final long DEFAULT_BYTE_BUDGET = 1024L * 1024L * 1024L;
+	
+	
+	/**
+	 * The cache shared by arrays that are not given a cache of their own.
+	 */
+	private static final CuSliceCache defaultCache = new CuSliceCache( DEFAULT_BYTE_BUDGET );
+	
+	
+	/**
+	 * The mapped slices in least-recently-used order, keyed by file name.
+	 */
+	protected final LinkedHashMap<String,MappedByteBuffer> slices = 
+			new LinkedHashMap<String,MappedByteBuffer>( 16 , 0.75f , true );
+	
+	/**
+	 * The maximum total size of the mapped slices in bytes.
+	 */
+	protected final long byteBudget;
+	
+	/**
+	 * The total size of the mapped slices in bytes.
+	 */
+	protected long mappedBytes = 0;
+	
+	/**
+	 * The number of requests satisfied by an already-mapped slice.
+	 */
+	protected long hits = 0;
+	
+	/**
+	 * The number of requests that mapped a slice.
+	 */
+	protected long misses = 0;
+	
+	/**
+	 * The number of slices evicted from the cache.
+	 */
+	protected long evictions = 0;
+	
+	
+	
+	/**
+	 * Constructs the cache.
+	 * 
+	 * @param _byteBudget The maximum total size of the mapped slices in bytes.
+	 */
+	public CuSliceCache( final long _byteBudget )
+	{
+		if( _byteBudget <= 0 )
+		{
+			throw( new RuntimeException( "Invalid Byte Budget" ) );
+		}
+		byteBudget = _byteBudget;
+	}
+	
+	
+	
+	/**
+	 * Gets the cache shared by arrays that are not given a cache of their own.
+	 * 
+	 * @return The default cache.
+	 */
+	public static CuSliceCache getDefault()
+	{
+		return( defaultCache );
+	}
+	
+	
+	
+	/**
+	 * Gets the mapped contents of a slice file, mapping the file if it is not already in the cache.  The returned
+	 * buffer is shared between callers, and is big-endian.  It should only be read with absolute get methods, or
+	 * duplicated before changing its position.
+	 * 
+	 * @param fileName The name of the slice file.
+	 * @return The mapped contents of the slice file.
+	 * @throws Throwable
+	 */
+	public synchronized ByteBuffer getSlice( final String fileName ) throws Throwable
+	{
+		MappedByteBuffer buf = slices.get( fileName );
+		if( buf != null )
+		{
+			hits++;
+			return( buf );
+		}
+		
+		misses++;
+		final RandomAccessFile file = new RandomAccessFile( fileName , "r" );
+		try
+		{
+			final long length = file.length();
+			if( length > Integer.MAX_VALUE )
+			{
+				throw( new RuntimeException( "Slice File Too Large For Mapping" ) );
+			}
+			buf = file.getChannel().map( FileChannel.MapMode.READ_ONLY , 0 , length );
+		}
+		finally
+		{
+			file.close();
+		}
+		
+		buf.order( ByteOrder.BIG_ENDIAN );
+		slices.put( fileName , buf );
+		mappedBytes += buf.capacity();
+		evict();
+		return( buf );
+	}
+	
+	
+	
+	/**
+	 * Gets a view of a range of doubles in a slice file.  The view has its own position and limit, so it can be
+	 * read with relative get methods.
+	 * 
+	 * @param fileName The name of the slice file.
+	 * @param offset The index of the first double in the view.
+	 * @param length The number of doubles in the view.
+	 * @return The view of the doubles.
+	 * @throws Throwable
+	 */
+	public DoubleBuffer getSlab( final String fileName , final int offset , final int length ) throws Throwable
+	{
+		final DoubleBuffer dbuf = getSlice( fileName ).asDoubleBuffer();
+		dbuf.position( offset );
+		dbuf.limit( offset + length );
+		return( dbuf.slice() );
+	}
+	
+	
+	
+	/**
+	 * Evicts least-recently-used slices until the mapped slices fit in the byte budget, always keeping the most recent slice.
+	 */
+	protected void evict()
+	{
+		final Iterator<Map.Entry<String,MappedByteBuffer>> it = slices.entrySet().iterator();
+		while( ( mappedBytes > byteBudget ) && ( slices.size() > 1 ) )
+		{
+			final MappedByteBuffer buf = it.next().getValue();
+			it.remove();
+			mappedBytes -= buf.capacity();
+			evictions++;
+		}
+	}
+	
+	
+	
+	/**
+	 * Removes all slices from the cache.
+	 */
+	public synchronized void clear()
+	{
+		evictions += slices.size();
+		slices.clear();
+		mappedBytes = 0;
+	}
+	
+	
+	
+	/**
+	 * Gets the maximum total size of the mapped slices in bytes.
+	 * 
+	 * @return The byte budget.
+	 */
+	public long getByteBudget() {
+		return( byteBudget );
+	}
+	
+	
+	/**
+	 * Gets the total size of the mapped slices in bytes.
+	 * 
+	 * @return The total size of the mapped slices in bytes.
+	 */
+	public synchronized long getMappedBytes() {
+		return( mappedBytes );
+	}
+	
+	
+	/**
+	 * Gets the number of requests satisfied by an already-mapped slice.
+	 * 
+	 * @return The number of hits.
+	 */
+	public synchronized long getHits() {
+		return( hits );
+	}
+	
+	
+	/**
+	 * Gets the number of requests that mapped a slice.
+	 * 
+	 * @return The number of misses.
+	 */
+	public synchronized long getMisses() {
+		return( misses );
+	}
+	
+	
+	/**
+	 * Gets the number of slices evicted from the cache.
+	 * 
+	 * @return The number of evictions.
+	 */
+	public synchronized long getEvictions() {
+		return( evictions );
+	}
+	
+	
+}
+
+
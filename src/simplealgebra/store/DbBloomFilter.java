@@ -0,0 +1,254 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package simplealgebra.store;
+
+
+import java.util.ArrayList;
+
+
+
+
+/**
+ * Scalable Bloom filter over 64-bit hashes, used by BaseDbArray_SingleWrite to remember that an index location is empty
+ * without making a DB query.  A Bloom filter never reports an added hash as absent, but may report an absent hash as present
+ * with a small probability.  Since the number of entries is not known in advance, the filter is a sequence of stages, each
+ * with twice the capacity of the previous stage, and a hash is added to the newest stage.  Each stage uses more bits per
+ * entry than the previous stage, so that the false positive rate of the whole filter stays near that of the first stage.
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ */
+public class DbBloomFilter {
+	
+	/**
+	 * The number of bits per entry in the first stage, giving a false positive rate of about 1%.
+	 */
+	protected static final int BITS_PER_ENTRY = 10;
+	
+	/**
+	 * The number of bits per entry added for each further stage, which divides the false positive rate of the stage by about 7.
+	 */
+	protected static final int BITS_PER_ENTRY_INCREMENT = 4;
+	
+	/**
+	 * The number of entries for which the first stage is sized by default.
+	 */
+	public static final int DEFAULT_INITIAL_CAPACITY = 1024;
+	
+	
+	/**
+	 * A stage of the filter.
+	 * 
+	 * @author thorngreen
+	 * 
+	 */
+	protected static class Stage
+	{
+		/**
+		 * The bits of the stage.
+		 */
+		final long[] bits;
+		
+		/**
+		 * Mask selecting a bit index, as the number of bits is a power of two.
+		 */
+		final long mask;
+		
+		/**
+		 * The number of entries the stage holds before a new stage is started.
+		 */
+		final int capacity;
+		
+		/**
+		 * The number of bits set for each entry.
+		 */
+		final int numHashes;
+		
+		/**
+		 * The number of entries in the stage.
+		 */
+		int size = 0;
+		
+		/**
+		 * Constructs the stage.
+		 * 
+		 * @param _capacity The number of entries the stage holds before a new stage is started.
+		 * @param bitsPerEntry The number of bits per entry.
+		 */
+		Stage( final int _capacity , final int bitsPerEntry )
+		{
+			capacity = _capacity;
+			numHashes = (int) Math.round( 0.69 * bitsPerEntry );
+			long nbits = 64;
+			while( nbits < ( (long) bitsPerEntry ) * capacity )
+			{
+				nbits = nbits << 1;
+			}
+			bits = new long[ (int)( nbits / 64 ) ];
+			mask = nbits - 1;
+		}
+		
+		/**
+		 * Adds a hash to the stage.
+		 * 
+		 * @param hash The hash.
+		 */
+		void add( final long hash )
+		{
+			final long h1 = hash;
+			final long h2 = ( hash >>> 32 ) | ( hash << 32 ) | 1L;
+			for( int cnt = 0 ; cnt < numHashes ; cnt++ )
+			{
+				final long bit = ( h1 + cnt * h2 ) & mask;
+				bits[ (int)( bit >>> 6 ) ] |= 1L << bit;
+			}
+			size++;
+		}
+		
+		/**
+		 * Returns whether a hash may have been added to the stage.
+		 * 
+		 * @param hash The hash.
+		 * @return False if the hash has definitely not been added.
+		 */
+		boolean mightContain( final long hash )
+		{
+			final long h1 = hash;
+			final long h2 = ( hash >>> 32 ) | ( hash << 32 ) | 1L;
+			for( int cnt = 0 ; cnt < numHashes ; cnt++ )
+			{
+				final long bit = ( h1 + cnt * h2 ) & mask;
+				if( ( bits[ (int)( bit >>> 6 ) ] & ( 1L << bit ) ) == 0 )
+				{
+					return( false );
+				}
+			}
+			return( true );
+		}
+	}
+	
+	
+	/**
+	 * The stages of the filter, from oldest to newest.
+	 */
+	protected final ArrayList<Stage> stages = new ArrayList<Stage>();
+	
+	
+	
+	/**
+	 * Constructs the filter.
+	 * 
+	 * @param initialCapacity The number of entries for which to size the first stage.
+	 */
+	public DbBloomFilter( final int initialCapacity )
+	{
+		stages.add( new Stage( Math.max( initialCapacity , 64 ) , BITS_PER_ENTRY ) );
+	}
+	
+	
+	
+	/**
+	 * Adds a hash to the filter.  The hash should be well mixed, for instance by DbLongIndex.mix().
+	 * 
+	 * @param hash The hash.
+	 */
+	public void add( final long hash )
+	{
+		Stage stage = stages.get( stages.size() - 1 );
+		if( stage.size >= stage.capacity )
+		{
+			stage = new Stage( 2 * stage.capacity , nextBitsPerEntry() );
+			stages.add( stage );
+		}
+		stage.add( hash );
+	}
+	
+	
+	
+	/**
+	 * Makes sure that a number of further hashes can be added to the newest stage of the filter.
+	 * 
+	 * @param numEntries The number of further hashes.
+	 */
+	public void ensureCapacity( final int numEntries )
+	{
+		final Stage stage = stages.get( stages.size() - 1 );
+		if( stage.size + numEntries > stage.capacity )
+		{
+			stages.add( new Stage( Math.max( 2 * stage.capacity , numEntries ) , nextBitsPerEntry() ) );
+		}
+	}
+	
+	
+	
+	/**
+	 * Gets the number of bits per entry of the next stage.
+	 * 
+	 * @return The number of bits per entry.
+	 */
+	protected int nextBitsPerEntry()
+	{
+		return( BITS_PER_ENTRY + BITS_PER_ENTRY_INCREMENT * stages.size() );
+	}
+	
+	
+	
+	/**
+	 * Returns whether a hash may have been added to the filter.
+	 * 
+	 * @param hash The hash.
+	 * @return False if the hash has definitely not been added.
+	 */
+	public boolean mightContain( final long hash )
+	{
+		for( int cnt = stages.size() - 1 ; cnt >= 0 ; cnt-- )
+		{
+			if( stages.get( cnt ).mightContain( hash ) )
+			{
+				return( true );
+			}
+		}
+		return( false );
+	}
+	
+	
+	
+	/**
+	 * Gets the number of stages of the filter.
+	 * 
+	 * @return The number of stages.
+	 */
+	public int getNumStages() {
+		return( stages.size() );
+	}
+	
+	
+}
+
+
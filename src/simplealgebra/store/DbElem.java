@@ -129,6 +129,7 @@ public class DbElem<R extends Elem<R,?>, S extends ElemFactory<R,S>>
 	{
 		graph = _graph;
 		hbase = graph.add( _ob );
+		SegmentedTransactionManager.recordWrite( graph , SegmentedTransactionManager.estimateWriteBytes( _ob ) );
 		fac = (S)( _ob.getFac() );
 	}
 	
@@ -118,7 +118,7 @@ public class DbFastArray1D<T extends Object> {
 		//graph.getTransactionManager().commit();
 		
 		//graph.getCache().close();
-		MemoryClearingSystem.handleCheckClear( graph );
+		MemoryClearingSystem.handleCheckClear( graph , SegmentedTransactionManager.estimateWriteBytes( hnd ) );
 		
 	}
 	
@@ -231,6 +231,7 @@ public class DbFastArray1D<T extends Object> {
 		for( int cnt = 0 ; cnt < ( dsz - 1 ) ; cnt++ )
 		{
 			//graph.getTransactionManager().beginTransaction();
+			long written = 0;
 			HGHandle[] obj = graph.get( cur );
 			HGHandle acur = obj[ ( indext[ cnt ] ) ];
 			if( acur == null )
@@ -242,6 +243,7 @@ public class DbFastArray1D<T extends Object> {
 					HGHandle hndd = graph.add( hnd ).getPersistent();
 					obj[ ( indext[ cnt ] ) ] = hndd;
 					graph.update( obj );
+					written = SegmentedTransactionManager.estimateWriteBytes( hnd ) + SegmentedTransactionManager.estimateWriteBytes( obj );
 				
 					cur = hndd;
 				}
@@ -252,6 +254,7 @@ public class DbFastArray1D<T extends Object> {
 					HGHandle hndd = graph.add( hnd ).getPersistent();
 					obj[ ( indext[ cnt ] ) ] = hndd;
 					graph.update( obj );
+					written = SegmentedTransactionManager.estimateWriteBytes( hnd ) + SegmentedTransactionManager.estimateWriteBytes( obj );
 				
 					cur = hndd;
 				}
@@ -262,7 +265,7 @@ public class DbFastArray1D<T extends Object> {
 			}
 			//graph.getTransactionManager().commit();
 			//graph.getCache().close();
-			MemoryClearingSystem.handleCheckClear( graph );
+			MemoryClearingSystem.handleCheckClear( graph , written );
 		}
 		
 		
@@ -290,7 +293,7 @@ public class DbFastArray1D<T extends Object> {
 			// graph.getTransactionManager().commit();
 		
 			//graph.getCache().close();
-			MemoryClearingSystem.handleCheckClear( graph );
+			MemoryClearingSystem.handleCheckClear( graph , SegmentedTransactionManager.estimateWriteBytes( oprev ) );
 		}
 	}
 	
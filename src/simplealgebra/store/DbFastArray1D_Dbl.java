@@ -116,7 +116,7 @@ public class DbFastArray1D_Dbl {
 		//graph.getTransactionManager().commit();
 		
 		//graph.getCache().close();
-		MemoryClearingSystem.handleCheckClear( graph );
+		MemoryClearingSystem.handleCheckClear( graph , SegmentedTransactionManager.estimateWriteBytes( hnd ) );
 		
 	}
 	
@@ -227,6 +227,7 @@ public class DbFastArray1D_Dbl {
 		for( int cnt = 0 ; cnt < ( dsz - 1 ) ; cnt++ )
 		{
 			//graph.getTransactionManager().beginTransaction();
+			long written = 0;
 			HGHandle[] obj = graph.get( cur );
 			HGHandle acur = obj[ ( indext[ cnt ] ) ];
 			if( acur == null )
@@ -238,6 +239,7 @@ public class DbFastArray1D_Dbl {
 					HGHandle hndd = graph.add( hnd ).getPersistent();
 					obj[ ( indext[ cnt ] ) ] = hndd;
 					graph.update( obj );
+					written = SegmentedTransactionManager.estimateWriteBytes( hnd ) + SegmentedTransactionManager.estimateWriteBytes( obj );
 				
 					cur = hndd;
 				}
@@ -248,6 +250,7 @@ public class DbFastArray1D_Dbl {
 					HGHandle hndd = graph.add( hnd ).getPersistent();
 					obj[ ( indext[ cnt ] ) ] = hndd;
 					graph.update( obj );
+					written = SegmentedTransactionManager.estimateWriteBytes( hnd ) + SegmentedTransactionManager.estimateWriteBytes( obj );
 				
 					cur = hndd;
 				}
@@ -258,7 +261,7 @@ public class DbFastArray1D_Dbl {
 			}
 			//graph.getTransactionManager().commit();
 			//graph.getCache().close();
-			MemoryClearingSystem.handleCheckClear( graph );
+			MemoryClearingSystem.handleCheckClear( graph , written );
 		}
 		
 		
@@ -286,7 +289,7 @@ public class DbFastArray1D_Dbl {
 			// graph.getTransactionManager().commit();
 		
 			//graph.getCache().close();
-			MemoryClearingSystem.handleCheckClear( graph );
+			MemoryClearingSystem.handleCheckClear( graph , SegmentedTransactionManager.estimateWriteBytes( oprev ) );
 		}
 	}
 	
@@ -137,7 +137,7 @@ public class DbFastArray2D<T extends Object> {
 		//graph.getTransactionManager().commit();
 		
 		//graph.getCache().close();
-		MemoryClearingSystem.handleCheckClear( graph );
+		MemoryClearingSystem.handleCheckClear( graph , SegmentedTransactionManager.estimateWriteBytes( hnd ) );
 		
 	}
 	
@@ -258,6 +258,7 @@ public class DbFastArray2D<T extends Object> {
 		for( int cnt = 0 ; cnt < ( dsz - 1 ) ; cnt++ )
 		{
 			//graph.getTransactionManager().beginTransaction();
+			long written = 0;
 			HGHandle[] obj = graph.get( cur );
 			HGHandle acur = obj[ ( indext[ cnt ] ) * ( xmult ) + ( indexx[ cnt ] ) ];
 			if( acur == null )
@@ -269,6 +270,7 @@ public class DbFastArray2D<T extends Object> {
 					HGHandle hndd = graph.add( hnd ).getPersistent();
 					obj[ ( indext[ cnt ] ) * ( xmult ) + ( indexx[ cnt ] ) ] = hndd;
 					graph.update( obj );
+					written = SegmentedTransactionManager.estimateWriteBytes( hnd ) + SegmentedTransactionManager.estimateWriteBytes( obj );
 				
 					cur = hndd;
 				}
@@ -279,6 +281,7 @@ public class DbFastArray2D<T extends Object> {
 					HGHandle hndd = graph.add( hnd ).getPersistent();
 					obj[ ( indext[ cnt ] ) * ( xmult ) + ( indexx[ cnt ] ) ] = hndd;
 					graph.update( obj );
+					written = SegmentedTransactionManager.estimateWriteBytes( hnd ) + SegmentedTransactionManager.estimateWriteBytes( obj );
 				
 					cur = hndd;
 				}
@@ -289,7 +292,7 @@ public class DbFastArray2D<T extends Object> {
 			}
 			//graph.getTransactionManager().commit();
 			//graph.getCache().close();
-			MemoryClearingSystem.handleCheckClear( graph );
+			MemoryClearingSystem.handleCheckClear( graph , written );
 		}
 		
 		
@@ -317,7 +320,7 @@ public class DbFastArray2D<T extends Object> {
 			// graph.getTransactionManager().commit();
 		
 			//graph.getCache().close();
-			MemoryClearingSystem.handleCheckClear( graph );
+			MemoryClearingSystem.handleCheckClear( graph , SegmentedTransactionManager.estimateWriteBytes( oprev ) );
 		}
 	}
 	
@@ -97,6 +97,16 @@ public class DbFastArray2D_Dbl {
 	 */
 	boolean writeBack = false;
 	
+	/**
+	 * The handle of the block in oprev.
+	 */
+	HGHandle hprev = null;
+	
+	/**
+	 * The queue through which dirty blocks are written back to the db, or null if dirty blocks are written back immediately.
+	 */
+	DbWriteBehindQueue writeBehind = null;
+	
 	
 	
 	/**
@@ -135,11 +145,29 @@ public class DbFastArray2D_Dbl {
 		//graph.getTransactionManager().commit();
 		
 		//graph.getCache().close();
-		MemoryClearingSystem.handleCheckClear( graph );
+		MemoryClearingSystem.handleCheckClear( graph , SegmentedTransactionManager.estimateWriteBytes( hnd ) );
 		
 	}
 	
 	
+	/**
+	 * Constructs the array with dirty blocks written back to the db through a write-behind queue.
+	 * Call flush() at time-step barriers to commit the pending writes.
+	 * 
+	 * @param _graph The graph in which the array exists.
+	 * @param _tmult The size of the each cell along the T-axis.
+	 * @param _xmult The size of the each cell along the X-axis.
+	 * @param _tmax The size of the array along the T-axis.
+	 * @param _xmax The size of the array along the X-axis.
+	 * @param _writeBehind The write-behind queue.
+	 */
+	public DbFastArray2D_Dbl( final HyperGraph _graph , int _tmult , int _xmult , int _tmax , int _xmax , final DbWriteBehindQueue _writeBehind )
+	{
+		this( _graph , _tmult , _xmult , _tmax , _xmax );
+		writeBehind = _writeBehind;
+	}
+	
+	
 	/**
 	 * Gets the value at the 2-D index.
 	 * 
@@ -201,10 +229,11 @@ public class DbFastArray2D_Dbl {
 		
 		
 		//graph.getTransactionManager().beginTransaction();
-		double[] obj = graph.get( cur );
+		double[] obj = getBlock( cur );
 		//graph.getTransactionManager().commit();
 		// graph.getCache().close();
 		oprev = obj;
+		hprev = cur;
 		return( obj[ ( indext[ dsz - 1 ] ) * ( xmult ) + ( indexx[ dsz - 1 ] ) ] );
 	}
 	
@@ -256,6 +285,7 @@ public class DbFastArray2D_Dbl {
 		for( int cnt = 0 ; cnt < ( dsz - 1 ) ; cnt++ )
 		{
 			//graph.getTransactionManager().beginTransaction();
+			long written = 0;
 			HGHandle[] obj = graph.get( cur );
 			HGHandle acur = obj[ ( indext[ cnt ] ) * ( xmult ) + ( indexx[ cnt ] ) ];
 			if( acur == null )
@@ -267,6 +297,7 @@ public class DbFastArray2D_Dbl {
 					HGHandle hndd = graph.add( hnd ).getPersistent();
 					obj[ ( indext[ cnt ] ) * ( xmult ) + ( indexx[ cnt ] ) ] = hndd;
 					graph.update( obj );
+					written = SegmentedTransactionManager.estimateWriteBytes( hnd ) + SegmentedTransactionManager.estimateWriteBytes( obj );
 				
 					cur = hndd;
 				}
@@ -277,6 +308,7 @@ public class DbFastArray2D_Dbl {
 					HGHandle hndd = graph.add( hnd ).getPersistent();
 					obj[ ( indext[ cnt ] ) * ( xmult ) + ( indexx[ cnt ] ) ] = hndd;
 					graph.update( obj );
+					written = SegmentedTransactionManager.estimateWriteBytes( hnd ) + SegmentedTransactionManager.estimateWriteBytes( obj );
 				
 					cur = hndd;
 				}
@@ -287,17 +319,18 @@ public class DbFastArray2D_Dbl {
 			}
 			//graph.getTransactionManager().commit();
 			//graph.getCache().close();
-			MemoryClearingSystem.handleCheckClear( graph );
+			MemoryClearingSystem.handleCheckClear( graph , written );
 		}
 		
 		
 		//graph.getTransactionManager().beginTransaction();
-		double[] obj = graph.get( cur );
+		double[] obj = getBlock( cur );
 		//graph.getTransactionManager().commit();
 
 		obj[ ( indext[ dsz - 1 ] ) * ( xmult ) + ( indexx[ dsz - 1 ] ) ] = val;
 		
 		oprev = obj;
+		hprev = cur;
 	}
 	
 	
@@ -308,6 +341,13 @@ public class DbFastArray2D_Dbl {
 	{
 		if( writeBack && ( oprev != null ) )
 		{
+			if( writeBehind != null )
+			{
+				// The queue records the write with the SegmentedTransactionManager when it writes the block to the graph.
+				writeBehind.enqueue( hprev , oprev );
+				return;
+			}
+			
 			// graph.getTransactionManager().beginTransaction();
 		
 			graph.update( oprev );
@@ -315,8 +355,44 @@ public class DbFastArray2D_Dbl {
 			// graph.getTransactionManager().commit();
 		
 			//graph.getCache().close();
-			MemoryClearingSystem.handleCheckClear( graph );
+			MemoryClearingSystem.handleCheckClear( graph , SegmentedTransactionManager.estimateWriteBytes( oprev ) );
+		}
+	}
+	
+	
+	/**
+	 * Writes back the dirty block currently cached by the array, and commits any
+	 * pending writes in the write-behind queue.  This should be called at time-step
+	 * barriers when the array uses a write-behind queue.
+	 */
+	public void flush()
+	{
+		close();
+		writeBack = false;
+		if( writeBehind != null )
+		{
+			writeBehind.flush();
+		}
+	}
+	
+	
+	/**
+	 * Gets a leaf block, taking the block from the write-behind queue if a write of the block is pending.
+	 * 
+	 * @param hnd The handle of the block.
+	 * @return The block.
+	 */
+	protected double[] getBlock( final HGHandle hnd )
+	{
+		if( writeBehind != null )
+		{
+			final double[] ret = writeBehind.getPending( hnd );
+			if( ret != null )
+			{
+				return( ret );
+			}
 		}
+		return( graph.get( hnd ) );
 	}
 	
 	
@@ -70,6 +70,12 @@ public class DbFastArray3D_Param {
 	 * The size of the array along the Y-axis.
 	 */
 	int ymax;
+	
+	/**
+	 * The layout of the array image used by the direct access (e.g. DrFastArray3D_Dbl) arrays.  The
+	 * HyperGraphDB arrays store each cell as a separate atom, and do not use the layout.
+	 */
+	DbFastArrayLayout layout = DbFastArrayLayout.BLOCKED;
 
 	
 	/**
@@ -185,6 +191,22 @@ public class DbFastArray3D_Param {
 	public void setYmax(int ymax) {
 		this.ymax = ymax;
 	}
+
+	/**
+	 * Gets the layout of the array image used by the direct access arrays.
+	 * @return The layout of the array image.
+	 */
+	public DbFastArrayLayout getLayout() {
+		return layout;
+	}
+
+	/**
+	 * Sets the layout of the array image used by the direct access arrays.
+	 * @param layout The layout of the array image.
+	 */
+	public void setLayout(DbFastArrayLayout layout) {
+		this.layout = layout;
+	}
 	
 	
 	
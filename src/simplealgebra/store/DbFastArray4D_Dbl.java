@@ -127,6 +127,16 @@ public class DbFastArray4D_Dbl {
 	 */
 	boolean writeBack = false;
 	
+	/**
+	 * The handle of the block in oprev.
+	 */
+	HGHandle hprev = null;
+	
+	/**
+	 * The queue through which dirty blocks are written back to the db, or null if dirty blocks are written back immediately.
+	 */
+	DbWriteBehindQueue writeBehind = null;
+	
 	
 	/**
 	 * Boolean indicating whether the "A" or "B" array is in use.
@@ -220,7 +230,7 @@ public class DbFastArray4D_Dbl {
 		//graph.getTransactionManager().commit();
 		
 		//graph.getCache().close();
-		MemoryClearingSystem.handleCheckClear( graph );
+		MemoryClearingSystem.handleCheckClear( graph , SegmentedTransactionManager.estimateWriteBytes( hnd ) );
 		
 		
 		indextA = createDszIntArray();
@@ -244,6 +254,20 @@ public class DbFastArray4D_Dbl {
 	}
 	
 	
+	/**
+	 * Constructs the array with dirty blocks written back to the db through a write-behind queue.
+	 * Call flush() at time-step barriers to commit the pending writes.
+	 * 
+	 * @param _param The input parameter.
+	 * @param _writeBehind The write-behind queue.
+	 */
+	public DbFastArray4D_Dbl( final DbFastArray4D_Param _param , final DbWriteBehindQueue _writeBehind )
+	{
+		this( _param );
+		writeBehind = _writeBehind;
+	}
+	
+	
 	
 	/**
 	 * Returns whether the "A" and "B" indices match at a particular index.
@@ -363,10 +387,11 @@ public class DbFastArray4D_Dbl {
 		
 		
 		//graph.getTransactionManager().beginTransaction();
-		double[] obj = graph.get( cur );
+		double[] obj = getBlock( cur );
 		//graph.getTransactionManager().commit();
 		// graph.getCache().close();
 		oprev = obj;
+		hprev = cur;
 		return( obj[ ( indext[ dsz - 1 ] ) * ( xmult * ymult * zmult ) + ( indexx[ dsz - 1 ] ) * ( ymult * zmult ) + ( indexy[ dsz - 1 ] ) * ( zmult ) + indexz[ dsz - 1 ] ] );
 	}
 	
@@ -438,6 +463,7 @@ public class DbFastArray4D_Dbl {
 			{
 				matchUp = false;
 				//graph.getTransactionManager().beginTransaction();
+				long written = 0;
 				HGHandle[] obj = graph.get( cur );
 				HGHandle acur = obj[ ( indext[ cnt ] ) * ( xmult * ymult * zmult ) + ( indexx[ cnt ] ) * ( ymult * zmult ) + ( indexy[ cnt ] ) * ( zmult ) + indexz[ cnt ] ];
 				if( acur == null )
@@ -449,6 +475,7 @@ public class DbFastArray4D_Dbl {
 						HGHandle hndd = graph.add( hnd ).getPersistent();
 						obj[ ( indext[ cnt ] ) * ( xmult * ymult * zmult ) + ( indexx[ cnt ] ) * ( ymult * zmult ) + ( indexy[ cnt ] ) * ( zmult ) + ( indexz[ cnt ] ) ] = hndd;
 						graph.update( obj );
+						written = SegmentedTransactionManager.estimateWriteBytes( hnd ) + SegmentedTransactionManager.estimateWriteBytes( obj );
 				
 						cur = hndd;
 					}
@@ -459,6 +486,7 @@ public class DbFastArray4D_Dbl {
 						HGHandle hndd = graph.add( hnd ).getPersistent();
 						obj[ ( indext[ cnt ] ) * ( xmult * ymult * zmult ) + ( indexx[ cnt ] ) * ( ymult * zmult ) + ( indexy[ cnt ] ) * ( zmult ) + ( indexz[ cnt ] ) ] = hndd;
 						graph.update( obj );
+						written = SegmentedTransactionManager.estimateWriteBytes( hnd ) + SegmentedTransactionManager.estimateWriteBytes( obj );
 				
 						cur = hndd;
 					}
@@ -470,18 +498,19 @@ public class DbFastArray4D_Dbl {
 				argCache[ cnt ] = cur;
 				//graph.getTransactionManager().commit();
 				//graph.getCache().close();
-				MemoryClearingSystem.handleCheckClear( graph );
+				MemoryClearingSystem.handleCheckClear( graph , written );
 			}
 		}
 		
 		
 		//graph.getTransactionManager().beginTransaction();
-		double[] obj = graph.get( cur );
+		double[] obj = getBlock( cur );
 		//graph.getTransactionManager().commit();
 		
 		obj[ ( indext[ dsz - 1 ] ) * ( xmult * ymult * zmult ) + ( indexx[ dsz - 1 ] ) * ( ymult * zmult ) + ( indexy[ dsz - 1 ] ) * ( zmult ) + ( indexz[ dsz - 1 ] ) ] = val;
 		
 		oprev = obj;
+		hprev = cur;
 	}
 	
 	
@@ -492,6 +521,13 @@ public class DbFastArray4D_Dbl {
 	{
 		if( writeBack && ( oprev != null ) )
 		{
+			if( writeBehind != null )
+			{
+				// The queue records the write with the SegmentedTransactionManager when it writes the block to the graph.
+				writeBehind.enqueue( hprev , oprev );
+				return;
+			}
+			
 			// graph.getTransactionManager().beginTransaction();
 		
 			graph.update( oprev );
@@ -499,8 +535,44 @@ public class DbFastArray4D_Dbl {
 			// graph.getTransactionManager().commit();
 		
 			//graph.getCache().close();
-			MemoryClearingSystem.handleCheckClear( graph );
+			MemoryClearingSystem.handleCheckClear( graph , SegmentedTransactionManager.estimateWriteBytes( oprev ) );
+		}
+	}
+	
+	
+	/**
+	 * Writes back the dirty block currently cached by the array, and commits any
+	 * pending writes in the write-behind queue.  This should be called at time-step
+	 * barriers when the array uses a write-behind queue.
+	 */
+	public void flush()
+	{
+		close();
+		writeBack = false;
+		if( writeBehind != null )
+		{
+			writeBehind.flush();
+		}
+	}
+	
+	
+	/**
+	 * Gets a leaf block, taking the block from the write-behind queue if a write of the block is pending.
+	 * 
+	 * @param hnd The handle of the block.
+	 * @return The block.
+	 */
+	protected double[] getBlock( final HGHandle hnd )
+	{
+		if( writeBehind != null )
+		{
+			final double[] ret = writeBehind.getPending( hnd );
+			if( ret != null )
+			{
+				return( ret );
+			}
 		}
+		return( graph.get( hnd ) );
 	}
 	
 	
@@ -80,6 +80,12 @@ public class DbFastArray4D_Param {
 	 * The size of the array along the Z-axis.
 	 */
 	int zmax;
+	
+	/**
+	 * The layout of the array image used by the direct access (e.g. DrFastArray4D_Dbl) arrays.  The
+	 * HyperGraphDB arrays store each cell as a separate atom, and do not use the layout.
+	 */
+	DbFastArrayLayout layout = DbFastArrayLayout.BLOCKED;
 
 	
 	/**
@@ -228,7 +234,21 @@ public class DbFastArray4D_Param {
 		this.zmax = zmax;
 	}
 
-	
+	/**
+	 * Gets the layout of the array image used by the direct access arrays.
+	 * @return The layout of the array image.
+	 */
+	public DbFastArrayLayout getLayout() {
+		return layout;
+	}
+
+	/**
+	 * Sets the layout of the array image used by the direct access arrays.
+	 * @param layout The layout of the array image.
+	 */
+	public void setLayout(DbFastArrayLayout layout) {
+		this.layout = layout;
+	}
 	
 	
 	
@@ -0,0 +1,63 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package simplealgebra.store;
+
+
+/**
+ * The layout of the elements of a direct access array in its image on disk.  The layout determines
+ * which elements are near each other in the file, and hence the number of page faults and cache misses
+ * incurred by a stencil reading the neighbors of each element.
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ *
+ */
+public enum DbFastArrayLayout {
+	
+	/**
+	 * Hierarchical blocking in which cells of the sizes given by the cell multipliers (e.g. tmult, xmult) are
+	 * recursively nested, with the elements of each cell in row-major order.  This is the original layout of the arrays.
+	 */
+	BLOCKED,
+	
+	/**
+	 * A single level of tiles of the sizes given by the cell multipliers, with the tiles in row-major order
+	 * and the elements of each tile in row-major order.
+	 */
+	TILED,
+	
+	/**
+	 * Each time slice is stored contiguously, with the spatial elements of the time slice in Z-order (Morton curve) order.
+	 * Each spatial axis is padded to a power of two.
+	 */
+	MORTON
+	
+}
+
+
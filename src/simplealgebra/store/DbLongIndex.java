@@ -0,0 +1,295 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package simplealgebra.store;
+
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+
+
+
+/**
+ * Off-heap open-addressing hash index from long keys to 128-bit values, used by BaseDbArray_SingleWrite to find
+ * the persistent handle of the DB atom at a packed index location with a few memory probes instead of a DB query.  Each
+ * value is stored as a high and a low long, which is enough to hold a UUID handle.  The keys, values, and occupancy flags
+ * are kept in direct buffers so that a large index neither adds objects to the heap nor adds to garbage collection times.
+ * 
+ * <P> The table is kept at most half full, so that a lookup makes about two probes on average.
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ */
+public class DbLongIndex {
+	
+	/**
+	 * The minimum number of slots in the table.
+	 */
+	protected static final int MIN_CAPACITY = 16;
+	
+	/**
+	 * The size of a long in bytes.
+	 */
+	static final int SZ_LONG = 8;
+	
+	/**
+	 * The number of longs in each value.
+	 */
+	static final int VAL_LONGS = 2;
+	
+	
+	/**
+	 * The keys of the table.
+	 */
+	protected LongBuffer keys;
+	
+	/**
+	 * The values of the table, with the high long of each slot followed by the low long.
+	 */
+	protected LongBuffer vals;
+	
+	/**
+	 * For each slot, one if the slot holds an entry, or zero if the slot is empty.
+	 */
+	protected ByteBuffer used;
+	
+	/**
+	 * The number of slots in the table, which is a power of two.
+	 */
+	protected int capacity;
+	
+	/**
+	 * The number of entries in the table.
+	 */
+	protected int size = 0;
+	
+	
+	
+	/**
+	 * Constructs the index.
+	 * 
+	 * @param expectedSize The number of entries for which to size the table.
+	 */
+	public DbLongIndex( final int expectedSize )
+	{
+		allocate( capacityFor( expectedSize ) );
+	}
+	
+	
+	
+	/**
+	 * Gets the number of slots needed to hold a number of entries at most half full.
+	 * 
+	 * @param numEntries The number of entries.
+	 * @return The number of slots.
+	 */
+	protected static int capacityFor( final int numEntries )
+	{
+		int cap = MIN_CAPACITY;
+		while( cap < 2L * numEntries )
+		{
+			cap = cap << 1;
+			if( ( cap <= 0 ) || ( (long) VAL_LONGS * SZ_LONG * cap > Integer.MAX_VALUE ) )
+			{
+				throw( new RuntimeException( "Index Too Large" ) );
+			}
+		}
+		return( cap );
+	}
+	
+	
+	
+	/**
+	 * Allocates an empty table.
+	 * 
+	 * @param _capacity The number of slots in the table.
+	 */
+	protected void allocate( final int _capacity )
+	{
+		capacity = _capacity;
+		keys = ByteBuffer.allocateDirect( SZ_LONG * capacity ).order( ByteOrder.nativeOrder() ).asLongBuffer();
+		vals = ByteBuffer.allocateDirect( VAL_LONGS * SZ_LONG * capacity ).order( ByteOrder.nativeOrder() ).asLongBuffer();
+		used = ByteBuffer.allocateDirect( capacity );
+		size = 0;
+	}
+	
+	
+	
+	/**
+	 * Mixes the bits of a key so that nearby keys are spread over the table.
+	 * 
+	 * @param key The key.
+	 * @return The mixed bits.
+	 */
+	public static long mix( long key )
+	{
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb9fe1a85ec53L;
+		key ^= key >>> 33;
+		return( key );
+	}
+	
+	
+	
+	/**
+	 * Gets the value of a key.
+	 * 
+	 * @param key The key.
+	 * @param val Array into which the high and low longs of the value are written, if the key is in the index.
+	 * @return True iff. the key is in the index.
+	 */
+	public boolean get( final long key , final long[] val )
+	{
+		final int mask = capacity - 1;
+		int slot = (int)( mix( key ) ) & mask;
+		while( true )
+		{
+			if( used.get( slot ) == 0 )
+			{
+				return( false );
+			}
+			if( keys.get( slot ) == key )
+			{
+				val[ 0 ] = vals.get( VAL_LONGS * slot );
+				val[ 1 ] = vals.get( VAL_LONGS * slot + 1 );
+				return( true );
+			}
+			slot = ( slot + 1 ) & mask;
+		}
+	}
+	
+	
+	
+	/**
+	 * Puts a key in the index, replacing any previous value of the key.
+	 * 
+	 * @param key The key.
+	 * @param hi The high long of the value.
+	 * @param lo The low long of the value.
+	 */
+	public void put( final long key , final long hi , final long lo )
+	{
+		if( 2L * ( size + 1 ) > capacity )
+		{
+			ensureCapacity( size + 1 );
+		}
+		insert( key , hi , lo );
+	}
+	
+	
+	
+	/**
+	 * Puts a key in the table, which must have room for the key.
+	 * 
+	 * @param key The key.
+	 * @param hi The high long of the value.
+	 * @param lo The low long of the value.
+	 */
+	protected void insert( final long key , final long hi , final long lo )
+	{
+		final int mask = capacity - 1;
+		int slot = (int)( mix( key ) ) & mask;
+		while( true )
+		{
+			if( used.get( slot ) == 0 )
+			{
+				keys.put( slot , key );
+				vals.put( VAL_LONGS * slot , hi );
+				vals.put( VAL_LONGS * slot + 1 , lo );
+				used.put( slot , (byte) 1 );
+				size++;
+				return;
+			}
+			if( keys.get( slot ) == key )
+			{
+				vals.put( VAL_LONGS * slot , hi );
+				vals.put( VAL_LONGS * slot + 1 , lo );
+				return;
+			}
+			slot = ( slot + 1 ) & mask;
+		}
+	}
+	
+	
+	
+	/**
+	 * Grows the table, if necessary, so that it can hold a number of entries without being rehashed.
+	 * 
+	 * @param numEntries The number of entries.
+	 */
+	public void ensureCapacity( final int numEntries )
+	{
+		final int cap = capacityFor( numEntries );
+		if( cap <= capacity )
+		{
+			return;
+		}
+		
+		final LongBuffer oldKeys = keys;
+		final LongBuffer oldVals = vals;
+		final ByteBuffer oldUsed = used;
+		final int oldCapacity = capacity;
+		allocate( cap );
+		for( int slot = 0 ; slot < oldCapacity ; slot++ )
+		{
+			if( oldUsed.get( slot ) != 0 )
+			{
+				insert( oldKeys.get( slot ) , oldVals.get( VAL_LONGS * slot ) , oldVals.get( VAL_LONGS * slot + 1 ) );
+			}
+		}
+	}
+	
+	
+	
+	/**
+	 * Gets the number of entries in the index.
+	 * 
+	 * @return The number of entries.
+	 */
+	public int size() {
+		return( size );
+	}
+	
+	
+	/**
+	 * Gets the number of slots in the table.
+	 * 
+	 * @return The number of slots.
+	 */
+	public int getCapacity() {
+		return( capacity );
+	}
+	
+	
+}
+
+
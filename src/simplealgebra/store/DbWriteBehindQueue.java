@@ -0,0 +1,326 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package simplealgebra.store;
+
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+
+import org.hypergraphdb.HGHandle;
+import org.hypergraphdb.HyperGraph;
+
+
+
+
+/**
+ * Write-behind queue for the leaf blocks of the DbFastArray*_Dbl arrays.  Rather than writing each dirty block back to
+ * the graph as soon as an array moves to another block, the arrays place the block in this queue.  Repeated writes of the same
+ * block are coalesced into one pending write, and the pending writes are committed together in one transaction when the
+ * queue becomes full or when {@link #flush()} is called (for instance at a time-step barrier).
+ * 
+ * <P> The arrays read a block that is pending in the queue from the queue rather than from the graph, so reads always see the
+ * latest values.  Since HyperGraphDB transactions are bound to a thread, the pending writes are committed on the thread that
+ * uses the arrays, and a queue should only be used from one thread.  Several arrays in the same graph may share a queue.
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ */
+public class DbWriteBehindQueue {
+	
+	/**
+	 * The default maximum number of pending blocks before the queue is committed.
+	 */
+	public static final int DEFAULT_MAX_PENDING = 1024;
+	
+	/**
+	 * The graph to which the blocks are written.
+	 */
+	protected HyperGraph graph;
+	
+	/**
+	 * The maximum number of pending blocks before the queue is committed.
+	 */
+	protected int maxPending;
+	
+	/**
+	 * The pending blocks in the order in which they were first queued, keyed by the handle of each block.
+	 */
+	protected LinkedHashMap<HGHandle,double[]> pending = new LinkedHashMap<HGHandle,double[]>();
+	
+	/**
+	 * The number of writes that have been queued.
+	 */
+	protected long numQueued = 0;
+	
+	/**
+	 * The number of queued writes that were coalesced into a write that was already pending.
+	 */
+	protected long numCoalesced = 0;
+	
+	/**
+	 * The number of blocks that have been written to the graph.
+	 */
+	protected long numWritten = 0;
+	
+	/**
+	 * The number of commits of the queue.
+	 */
+	protected long numCommits = 0;
+	
+	/**
+	 * The largest number of pending blocks seen.
+	 */
+	protected int maxDepth = 0;
+	
+	/**
+	 * The total time spent committing the queue in nanoseconds.
+	 */
+	protected long totalCommitNanos = 0;
+	
+	/**
+	 * The longest time spent on one commit of the queue in nanoseconds.
+	 */
+	protected long maxCommitNanos = 0;
+	
+	
+	
+	/**
+	 * Constructs the queue.
+	 * 
+	 * @param _graph The graph to which the blocks are written.
+	 * @param _maxPending The maximum number of pending blocks before the queue is committed.
+	 */
+	public DbWriteBehindQueue( final HyperGraph _graph , final int _maxPending )
+	{
+		if( _maxPending <= 0 )
+		{
+			throw( new RuntimeException( "Invalid Queue Size" ) );
+		}
+		graph = _graph;
+		maxPending = _maxPending;
+	}
+	
+	
+	
+	/**
+	 * Constructs the queue with the default maximum number of pending blocks.
+	 * 
+	 * @param _graph The graph to which the blocks are written.
+	 */
+	public DbWriteBehindQueue( final HyperGraph _graph )
+	{
+		this( _graph , DEFAULT_MAX_PENDING );
+	}
+	
+	
+	
+	/**
+	 * Queues a dirty block to be written to the graph.  Commits the queue if it is full.
+	 * 
+	 * @param hndl The handle of the block.
+	 * @param block The contents of the block.
+	 */
+	public void enqueue( final HGHandle hndl , final double[] block )
+	{
+		numQueued++;
+		if( pending.put( hndl , block ) != null )
+		{
+			numCoalesced++;
+			return;
+		}
+		
+		final int depth = pending.size();
+		if( depth > maxDepth )
+		{
+			maxDepth = depth;
+		}
+		
+		if( depth >= maxPending )
+		{
+			flush();
+		}
+	}
+	
+	
+	
+	/**
+	 * Gets the contents of a block if a write of the block is pending.
+	 * 
+	 * @param hndl The handle of the block.
+	 * @return The pending contents of the block, or null if no write of the block is pending.
+	 */
+	public double[] getPending( final HGHandle hndl )
+	{
+		return( pending.get( hndl ) );
+	}
+	
+	
+	
+	/**
+	 * Commits all pending writes to the graph in one transaction.  Any segmented transaction in progress is
+	 * committed first, so the pending writes do not lengthen its transaction log.  Each block written is recorded
+	 * with the SegmentedTransactionManager of the current thread, so that the commit policy sees the writes.
+	 */
+	public void flush()
+	{
+		if( pending.isEmpty() )
+		{
+			return;
+		}
+		
+		final long start = System.nanoTime();
+		
+		SegmentedTransactionManager.suspendSegmentedTransaction( graph );
+		graph.getTransactionManager().beginTransaction();
+		
+		final Iterator<Entry<HGHandle,double[]>> it = pending.entrySet().iterator();
+		while( it.hasNext() )
+		{
+			final Entry<HGHandle,double[]> ii = it.next();
+			graph.replace( ii.getKey() , ii.getValue() );
+			numWritten++;
+		}
+		
+		graph.getTransactionManager().commit();
+		SegmentedTransactionManager.restartSegmentedTransaction( graph );
+		
+		// The writes are recorded once the segmented transaction has been restarted, so that
+		// a segment called for by the commit policy does not commit the transaction of the queue.
+		for( final double[] ii : pending.values() )
+		{
+			SegmentedTransactionManager.recordWrite( graph , SegmentedTransactionManager.estimateWriteBytes( ii ) );
+		}
+		
+		pending.clear();
+		
+		final long elapsed = System.nanoTime() - start;
+		numCommits++;
+		totalCommitNanos += elapsed;
+		if( elapsed > maxCommitNanos )
+		{
+			maxCommitNanos = elapsed;
+		}
+	}
+	
+	
+	
+	/**
+	 * Gets the number of pending blocks.
+	 * 
+	 * @return The number of pending blocks.
+	 */
+	public int getQueueDepth() {
+		return( pending.size() );
+	}
+	
+	
+	/**
+	 * Gets the largest number of pending blocks seen.
+	 * 
+	 * @return The largest number of pending blocks seen.
+	 */
+	public int getMaxQueueDepth() {
+		return maxDepth;
+	}
+	
+	
+	/**
+	 * Gets the number of writes that have been queued.
+	 * 
+	 * @return The number of writes that have been queued.
+	 */
+	public long getNumQueued() {
+		return numQueued;
+	}
+	
+	
+	/**
+	 * Gets the number of queued writes that were coalesced into a write that was already pending.
+	 * 
+	 * @return The number of coalesced writes.
+	 */
+	public long getNumCoalesced() {
+		return numCoalesced;
+	}
+	
+	
+	/**
+	 * Gets the number of blocks that have been written to the graph.
+	 * 
+	 * @return The number of blocks that have been written to the graph.
+	 */
+	public long getNumWritten() {
+		return numWritten;
+	}
+	
+	
+	/**
+	 * Gets the number of commits of the queue.
+	 * 
+	 * @return The number of commits of the queue.
+	 */
+	public long getNumCommits() {
+		return numCommits;
+	}
+	
+	
+	/**
+	 * Gets the total time spent committing the queue.
+	 * 
+	 * @return The total time spent committing the queue in nanoseconds.
+	 */
+	public long getTotalCommitNanos() {
+		return totalCommitNanos;
+	}
+	
+	
+	/**
+	 * Gets the longest time spent on one commit of the queue.
+	 * 
+	 * @return The longest commit time in nanoseconds.
+	 */
+	public long getMaxCommitNanos() {
+		return maxCommitNanos;
+	}
+	
+	
+	/**
+	 * Gets the mean time spent on one commit of the queue.
+	 * 
+	 * @return The mean commit time in nanoseconds, or zero if there have been no commits.
+	 */
+	public long getMeanCommitNanos() {
+		return( numCommits > 0 ? totalCommitNanos / numCommits : 0 );
+	}
+	
+	
+}
+
+
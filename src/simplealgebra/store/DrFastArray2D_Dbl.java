@@ -45,6 +45,11 @@ public class DrFastArray2D_Dbl {
 	 */
 	RandomAccessFile file;
 	
+	/**
+	 * The memory-mapped view of the array image, or null if the array image is accessed through seek() and read or write calls.
+	 */
+	DrMappedFile mapped = null;
+	
 	/**
 	 * The size of each cell along the T-axis.
 	 */
@@ -190,6 +195,29 @@ public class DrFastArray2D_Dbl {
 	
 
 	
+	/**
+	 * Constructs the array with its image on disk accessed through memory-mapped windows rather than
+	 * through seek() and read or write calls.  Call flush() at time-step boundaries to write the mapped contents back to disk.
+	 * 
+	 * @param _tmult The size of the each cell along the T-axis.
+	 * @param _xmult The size of the each cell along the X-axis.
+	 * @param _tmax The size of the array along the T-axis.
+	 * @param _xmax The size of the array along the X-axis.
+	 * @param _path The path at which to put the array image on disk.
+	 * @param mapWindowSize The size of each mapped window in bytes (for instance DrMappedFile.DEFAULT_WINDOW_SIZE).
+	 * @param mapMaxWindows The maximum number of windows kept mapped at once (for instance DrMappedFile.DEFAULT_MAX_WINDOWS).
+	 */
+	public DrFastArray2D_Dbl( int _tmult , int _xmult , int _tmax , int _xmax , String _path ,
+			long mapWindowSize , int mapMaxWindows ) throws Throwable
+	{
+		this( _tmult , _xmult , _tmax , _xmax , _path );
+		mapped = new DrMappedFile( file , mapWindowSize , mapMaxWindows );
+	}
+	
+	
+	
+	
+	
 	/**
 	 * Allocates an int array of size dsz for use in a cache.
 	 * 
@@ -246,6 +274,12 @@ public class DrFastArray2D_Dbl {
 		}
 		
 		
+		if( mapped != null )
+		{
+			return( mapped.getDouble( SZ_DBL * index ) );
+		}
+		
+		
 		file.seek( SZ_DBL * index );
 		final double ret = file.readDouble();
 		if( file.getFilePointer() != ( SZ_DBL * ( index + 1 ) ) )
@@ -294,6 +328,13 @@ public class DrFastArray2D_Dbl {
 		}
 		
 		
+		if( mapped != null )
+		{
+			mapped.putDouble( SZ_DBL * index , val );
+			return;
+		}
+		
+		
 		file.seek( SZ_DBL * index );
 		file.writeDouble( val );
 		if( file.getFilePointer() != ( SZ_DBL * ( index + 1 ) ) )
@@ -308,17 +349,27 @@ public class DrFastArray2D_Dbl {
 	 */
 	public void close() throws Throwable
 	{
+		if( mapped != null )
+		{
+			mapped.close();
+			mapped = null;
+		}
 		file.close();
 	}
 	
 	
 	/**
-	 * Flushes the contents of the previous array writes.
+	 * Flushes the contents of the previous array writes.  When the array is memory-mapped, this
+	 * forces the contents of the mapped windows back to disk.
 	 * 
 	 * @throws Throwable
 	 */
 	public void flush( ) throws Throwable
 	{
+		if( mapped != null )
+		{
+			mapped.force();
+		}
 		file.getFD().sync();
 	}
 	
@@ -45,6 +45,16 @@ public class DrFastArray4D_Dbl {
 	 */
 	RandomAccessFile file;
 	
+	/**
+	 * The memory-mapped view of the array image, or null if the array image is accessed through seek() and read or write calls.
+	 */
+	DrMappedFile mapped = null;
+	
+	/**
+	 * The tabulated index layout of the array image, or null if the array image has the original BLOCKED layout.
+	 */
+	DrIndexLayout layoutIndex = null;
+	
 	/**
 	 * The size of each cell along the T-axis.
 	 */
@@ -223,7 +233,15 @@ public class DrFastArray4D_Dbl {
 		
 		final long desiredLength = SZ_DBL * ( index + 1 );
 		System.out.println( desiredLength );
-		file.setLength( desiredLength );
+		if( _param.getLayout() != DbFastArrayLayout.BLOCKED )
+		{
+			layoutIndex = DrIndexLayout.create( _param );
+			file.setLength( SZ_DBL * layoutIndex.getLength() );
+		}
+		else
+		{
+			file.setLength( desiredLength );
+		}
 		
 		
 		indextA = createDszIntArray();
@@ -248,6 +266,26 @@ public class DrFastArray4D_Dbl {
 	
 
 	
+	/**
+	 * Constructs the array with its image on disk accessed through memory-mapped windows rather than
+	 * through seek() and read or write calls.  Call flush() at time-step boundaries to write the mapped contents back to disk.
+	 * 
+	 * @param _param The input parameter.
+	 * @param path The path at which to put the array image on disk.
+	 * @param mapWindowSize The size of each mapped window in bytes (for instance DrMappedFile.DEFAULT_WINDOW_SIZE).
+	 * @param mapMaxWindows The maximum number of windows kept mapped at once (for instance DrMappedFile.DEFAULT_MAX_WINDOWS).
+	 */
+	public DrFastArray4D_Dbl( final DbFastArray4D_Param _param , String path ,
+			long mapWindowSize , int mapMaxWindows ) throws Throwable
+	{
+		this( _param , path );
+		mapped = new DrMappedFile( file , mapWindowSize , mapMaxWindows );
+	}
+	
+	
+	
+	
+	
 	/**
 	 * Allocates an int array of size dsz for use in a cache.
 	 * 
@@ -277,7 +315,12 @@ public class DrFastArray4D_Dbl {
 	 * @return The value at the 4-D index, or zero if no value exists.
 	 */
 	public double get( int t , int x , int y , int z ) throws Throwable
-	{	
+	{
+		if( layoutIndex != null )
+		{
+			return( getIndex( layoutIndex.index( t , x , y , z ) ) );
+		}
+	
 		altArrs = !altArrs;
 		final int[] indext = altArrs ? indextA : indextB;
 		final int[] indexx = altArrs ? indexxA : indexxB;
@@ -312,6 +355,25 @@ public class DrFastArray4D_Dbl {
 		}
 		
 		
+		return( getIndex( index ) );
+	}
+	
+	
+	/**
+	 * Gets the value at an offset in the array image.
+	 * 
+	 * @param index The offset in the array image in units of array elements.
+	 * @return The value at the offset.
+	 * @throws Throwable
+	 */
+	protected double getIndex( final long index ) throws Throwable
+	{
+		if( mapped != null )
+		{
+			return( mapped.getDouble( SZ_DBL * index ) );
+		}
+		
+		
 		file.seek( SZ_DBL * index );
 		final double ret = file.readDouble();
 		if( file.getFilePointer() != ( SZ_DBL * ( index + 1 ) ) )
@@ -333,6 +395,12 @@ public class DrFastArray4D_Dbl {
 	 */
 	public void set( int t , int x , int y , int z , double val ) throws Throwable
 	{
+		if( layoutIndex != null )
+		{
+			setIndex( layoutIndex.index( t , x , y , z ) , val );
+			return;
+		}
+
 		
 		altArrs = !altArrs;
 		final int[] indext = altArrs ? indextA : indextB;
@@ -368,6 +436,26 @@ public class DrFastArray4D_Dbl {
 		}
 		
 		
+		setIndex( index , val );
+	}
+	
+	
+	/**
+	 * Sets the value at an offset in the array image.
+	 * 
+	 * @param index The offset in the array image in units of array elements.
+	 * @param val The value to be set at the offset.
+	 * @throws Throwable
+	 */
+	protected void setIndex( final long index , final double val ) throws Throwable
+	{
+		if( mapped != null )
+		{
+			mapped.putDouble( SZ_DBL * index , val );
+			return;
+		}
+		
+		
 		file.seek( SZ_DBL * index );
 		file.writeDouble( val );
 		if( file.getFilePointer() != ( SZ_DBL * ( index + 1 ) ) )
@@ -382,18 +470,28 @@ public class DrFastArray4D_Dbl {
 	 */
 	public void close() throws Throwable
 	{
+		if( mapped != null )
+		{
+			mapped.close();
+			mapped = null;
+		}
 		file.close();
 	}
 	
 	
 	
 	/**
-	 * Flushes the contents of the previous array writes.
+	 * Flushes the contents of the previous array writes.  When the array is memory-mapped, this
+	 * forces the contents of the mapped windows back to disk.
 	 * 
 	 * @throws Throwable
 	 */
 	public void flush( ) throws Throwable
 	{
+		if( mapped != null )
+		{
+			mapped.force();
+		}
 		file.getFD().sync();
 	}
 	
@@ -51,6 +51,16 @@ public class DrFastArray4D_Tensor44_Dbl<Z extends Object> {
 	 */
 	RandomAccessFile file;
 	
+	/**
+	 * The memory-mapped view of the array image, or null if the array image is accessed through seek() and read or write calls.
+	 */
+	DrMappedFile mapped = null;
+	
+	/**
+	 * The tabulated index layout of the array image, or null if the array image has the original BLOCKED layout.
+	 */
+	DrIndexLayout layoutIndex = null;
+	
 	/**
 	 * The size of each cell along the T-axis.
 	 */
@@ -267,7 +277,15 @@ public class DrFastArray4D_Tensor44_Dbl<Z extends Object> {
 		
 		final long desiredLength = SZ_TENSOR * ( index + 1 );
 		System.out.println( desiredLength );
-		file.setLength( desiredLength );
+		if( _param.getLayout() != DbFastArrayLayout.BLOCKED )
+		{
+			layoutIndex = DrIndexLayout.create( _param );
+			file.setLength( SZ_TENSOR * layoutIndex.getLength() );
+		}
+		else
+		{
+			file.setLength( desiredLength );
+		}
 		
 		
 		indextA = createDszIntArray();
@@ -292,6 +310,32 @@ public class DrFastArray4D_Tensor44_Dbl<Z extends Object> {
 	
 
 	
+	/**
+	 * Constructs the array with its image on disk accessed through memory-mapped windows rather than
+	 * through seek() and read or write calls.  Call flush() at time-step boundaries to write the mapped contents back to disk.
+	 * 
+	 * @param _param The input parameter.
+	 * @param _dfac The factory for the DoubleElem type.
+	 * @param _contravariantIndices The list of contravariant indices.
+	 * @param _covariantIndices The list of covariant indices.
+	 * @param path The path at which to put the array image on disk.
+	 * @param mapWindowSize The size of each mapped window in bytes (for instance DrMappedFile.DEFAULT_WINDOW_SIZE).
+	 * @param mapMaxWindows The maximum number of windows kept mapped at once (for instance DrMappedFile.DEFAULT_MAX_WINDOWS).
+	 */
+	public DrFastArray4D_Tensor44_Dbl( final DbFastArray4D_Param _param , 
+			DoubleElemFactory _dfac ,
+			ArrayList<Z> _contravariantIndices ,
+			ArrayList<Z> _covariantIndices, String path ,
+			long mapWindowSize , int mapMaxWindows ) throws Throwable
+	{
+		this( _param , _dfac , _contravariantIndices , _covariantIndices , path );
+		mapped = new DrMappedFile( file , mapWindowSize , mapMaxWindows );
+	}
+	
+	
+	
+	
+	
 	/**
 	 * Allocates an int array of size dsz for use in a cache.
 	 * 
@@ -321,7 +365,12 @@ public class DrFastArray4D_Tensor44_Dbl<Z extends Object> {
 	 * @return The value at the 4-D index, or zero if no value exists.
 	 */
 	public EinsteinTensorElem<Z,DoubleElem,DoubleElemFactory> get( int t , int x , int y , int z ) throws Throwable
-	{	
+	{
+		if( layoutIndex != null )
+		{
+			return( getIndex( layoutIndex.index( t , x , y , z ) ) );
+		}
+	
 		
 		altArrs = !altArrs;
 		final int[] indext = altArrs ? indextA : indextB;
@@ -356,9 +405,41 @@ public class DrFastArray4D_Tensor44_Dbl<Z extends Object> {
 			num_mult *= num_cell;
 		}
 		
+		return( getIndex( index ) );
+	}
+	
+	
+	/**
+	 * Gets the value at an offset in the array image.
+	 * 
+	 * @param index The offset in the array image in units of array elements.
+	 * @return The value at the offset.
+	 * @throws Throwable
+	 */
+	protected EinsteinTensorElem<Z,DoubleElem,DoubleElemFactory> getIndex( final long index ) throws Throwable
+	{
 		final EinsteinTensorElem<Z,DoubleElem,DoubleElemFactory> ret = new EinsteinTensorElem<Z,DoubleElem,DoubleElemFactory>(dfac, contravariantIndices, covariantIndices);
 		
 		
+		if( mapped != null )
+		{
+			long offset = SZ_TENSOR * index;
+			for( int i = 0 ; i < TENSOR_ROWS ; i++ )
+			{
+				final BigInteger ii = BigInteger.valueOf( i );
+				for( int j = 0 ; j < TENSOR_COLS ; j++ )
+				{
+					final ArrayList<BigInteger> indt = new ArrayList<BigInteger>();
+					indt.add( ii );
+					indt.add( BigInteger.valueOf( j ) );
+					ret.setVal( indt , new DoubleElem( mapped.getDouble( offset ) ) );
+					offset += SZ_DBL;
+				}
+			}
+			return( ret );
+		}
+		
+		
 		file.seek( SZ_TENSOR * index );
 		for( int i = 0 ; i < TENSOR_ROWS ; i++ )
 		{
@@ -395,6 +476,12 @@ public class DrFastArray4D_Tensor44_Dbl<Z extends Object> {
 	 */
 	public void set( int t , int x , int y , int z , EinsteinTensorElem<Z,DoubleElem,DoubleElemFactory> vl ) throws Throwable
 	{
+		if( layoutIndex != null )
+		{
+			setIndex( layoutIndex.index( t , x , y , z ) , vl );
+			return;
+		}
+
 		
 		altArrs = !altArrs;
 		final int[] indext = altArrs ? indextA : indextB;
@@ -430,6 +517,38 @@ public class DrFastArray4D_Tensor44_Dbl<Z extends Object> {
 		}
 		
 		
+		setIndex( index , vl );
+	}
+	
+	
+	/**
+	 * Sets the value at an offset in the array image.
+	 * 
+	 * @param index The offset in the array image in units of array elements.
+	 * @param vl The value to be set at the offset.
+	 * @throws Throwable
+	 */
+	protected void setIndex( final long index , final EinsteinTensorElem<Z,DoubleElem,DoubleElemFactory> vl ) throws Throwable
+	{
+		if( mapped != null )
+		{
+			long offset = SZ_TENSOR * index;
+			for( int i = 0 ; i < TENSOR_ROWS ; i++ )
+			{
+				final BigInteger ii = BigInteger.valueOf( i );
+				for( int j = 0 ; j < TENSOR_COLS ; j++ )
+				{
+					final ArrayList<BigInteger> indt = new ArrayList<BigInteger>();
+					indt.add( ii );
+					indt.add( BigInteger.valueOf( j ) );
+					mapped.putDouble( offset , vl.getVal( indt ).getVal() );
+					offset += SZ_DBL;
+				}
+			}
+			return;
+		}
+		
+		
 		file.seek( SZ_TENSOR * index );
 		for( int i = 0 ; i < TENSOR_ROWS ; i++ )
 		{
@@ -459,18 +578,28 @@ public class DrFastArray4D_Tensor44_Dbl<Z extends Object> {
 	 */
 	public void close() throws Throwable
 	{
+		if( mapped != null )
+		{
+			mapped.close();
+			mapped = null;
+		}
 		file.close();
 	}
 	
 	
 	
 	/**
-	 * Flushes the contents of the previous array writes.
+	 * Flushes the contents of the previous array writes.  When the array is memory-mapped, this
+	 * forces the contents of the mapped windows back to disk.
 	 * 
 	 * @throws Throwable
 	 */
 	public void flush( ) throws Throwable
 	{
+		if( mapped != null )
+		{
+			mapped.force();
+		}
 		file.getFD().sync();
 	}
 	
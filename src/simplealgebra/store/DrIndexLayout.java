@@ -0,0 +1,356 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package simplealgebra.store;
+
+
+
+
+/**
+ * Maps the indices of a direct access array to the offsets of elements in the array image for a DbFastArrayLayout.
+ * Each of the supported layouts is separable, in that the offset of an element is the sum of an offset for each
+ * axis.  The offsets for each axis are tabulated when the layout is constructed, so that computing the offset of
+ * an element only takes one table lookup per axis.
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ */
+public class DrIndexLayout {
+	
+	/**
+	 * The layout of the array image.
+	 */
+	protected DbFastArrayLayout layout;
+	
+	/**
+	 * The offset contributed by each index along each axis, indexed first by axis and then by the index along the axis.
+	 */
+	protected long[][] offsets;
+	
+	/**
+	 * The number of elements in the array image.
+	 */
+	protected long length;
+	
+	
+	
+	/**
+	 * Constructs the layout.  The first axis is the T-axis.
+	 * 
+	 * @param _layout The layout of the array image.
+	 * @param mults The size of each cell along each axis.
+	 * @param maxes The size of the array along each axis.
+	 */
+	public DrIndexLayout( final DbFastArrayLayout _layout , final int[] mults , final int[] maxes )
+	{
+		layout = _layout;
+		final int naxes = maxes.length;
+		offsets = new long[ naxes ][];
+		for( int d = 0 ; d < naxes ; d++ )
+		{
+			offsets[ d ] = new long[ maxes[ d ] ];
+		}
+		
+		switch( layout )
+		{
+			case BLOCKED:
+				initBlocked( mults , maxes );
+				break;
+				
+			case TILED:
+				initTiled( mults , maxes );
+				break;
+				
+			case MORTON:
+				initMorton( maxes );
+				break;
+				
+			default:
+				throw( new RuntimeException( "NotSupported" ) );
+		}
+	}
+	
+	
+	
+	/**
+	 * Constructs the layout for a 4-D array.
+	 * 
+	 * @param param The input parameter of the array.
+	 * @return The layout.
+	 */
+	public static DrIndexLayout create( final DbFastArray4D_Param param )
+	{
+		return( new DrIndexLayout( param.getLayout() , 
+				new int[]{ param.getTmult() , param.getXmult() , param.getYmult() , param.getZmult() } ,
+				new int[]{ param.getTmax() , param.getXmax() , param.getYmax() , param.getZmax() } ) );
+	}
+	
+	
+	
+	/**
+	 * Constructs the layout for a 3-D array.
+	 * 
+	 * @param param The input parameter of the array.
+	 * @return The layout.
+	 */
+	public static DrIndexLayout create( final DbFastArray3D_Param param )
+	{
+		return( new DrIndexLayout( param.getLayout() , 
+				new int[]{ param.getTmult() , param.getXmult() , param.getYmult() } ,
+				new int[]{ param.getTmax() , param.getXmax() , param.getYmax() } ) );
+	}
+	
+	
+	
+	/**
+	 * Tabulates the offsets for the BLOCKED layout.  This produces the same offsets as the
+	 * original index computation in (for instance) DrFastArray4D_Dbl.
+	 * 
+	 * @param mults The size of each cell along each axis.
+	 * @param maxes The size of the array along each axis.
+	 */
+	protected void initBlocked( final int[] mults , final int[] maxes )
+	{
+		final int naxes = maxes.length;
+		
+		int dsz = 0;
+		final int[] m = maxes.clone();
+		boolean more = true;
+		while( more )
+		{
+			more = false;
+			for( int d = 0 ; d < naxes ; d++ )
+			{
+				more = more || ( m[ d ] >= mults[ d ] );
+			}
+			if( more )
+			{
+				for( int d = 0 ; d < naxes ; d++ )
+				{
+					m[ d ] = m[ d ] / mults[ d ];
+				}
+				dsz++;
+			}
+		}
+		dsz++;
+		
+		length = 1;
+		for( int d = 0 ; d < naxes ; d++ )
+		{
+			for( int v = 0 ; v < maxes[ d ] ; v++ )
+			{
+				offsets[ d ][ v ] = blockedOffset( mults , d , v , dsz );
+			}
+			length += blockedOffset( mults , d , maxes[ d ] , dsz );
+		}
+	}
+	
+	
+	
+	/**
+	 * Returns the offset contributed by an index along an axis in the BLOCKED layout.
+	 * 
+	 * @param mults The size of each cell along each axis.
+	 * @param d The axis.
+	 * @param v The index along the axis.
+	 * @param dsz The number of levels of cells.
+	 * @return The offset.
+	 */
+	protected static long blockedOffset( final int[] mults , final int d , int v , final int dsz )
+	{
+		long inner = 1;
+		long numCell = 1;
+		for( int e = 0 ; e < mults.length ; e++ )
+		{
+			numCell *= mults[ e ];
+			if( e > d )
+			{
+				inner *= mults[ e ];
+			}
+		}
+		
+		long ret = 0;
+		long numMult = 1;
+		for( int cnt = 0 ; cnt < dsz ; cnt++ )
+		{
+			ret += numMult * inner * ( v % mults[ d ] );
+			v = v / mults[ d ];
+			numMult *= numCell;
+		}
+		return( ret );
+	}
+	
+	
+	
+	/**
+	 * Tabulates the offsets for the TILED layout.
+	 * 
+	 * @param mults The size of each tile along each axis.
+	 * @param maxes The size of the array along each axis.
+	 */
+	protected void initTiled( final int[] mults , final int[] maxes )
+	{
+		final int naxes = maxes.length;
+		long tileSize = 1;
+		length = 1;
+		for( int d = 0 ; d < naxes ; d++ )
+		{
+			tileSize *= mults[ d ];
+			length *= ( maxes[ d ] + mults[ d ] - 1 ) / mults[ d ];
+		}
+		length *= tileSize;
+		
+		for( int d = 0 ; d < naxes ; d++ )
+		{
+			long tileStride = tileSize;
+			long elemStride = 1;
+			for( int e = d + 1 ; e < naxes ; e++ )
+			{
+				tileStride *= ( maxes[ e ] + mults[ e ] - 1 ) / mults[ e ];
+				elemStride *= mults[ e ];
+			}
+			for( int v = 0 ; v < maxes[ d ] ; v++ )
+			{
+				offsets[ d ][ v ] = ( v / mults[ d ] ) * tileStride + ( v % mults[ d ] ) * elemStride;
+			}
+		}
+	}
+	
+	
+	
+	/**
+	 * Tabulates the offsets for the MORTON layout.  The bits of the spatial indices are interleaved
+	 * from the least significant bit upward, with the last axis taking the lowest bit at each level.
+	 * Axes that run out of bits drop out of the interleave.
+	 * 
+	 * @param maxes The size of the array along each axis.
+	 */
+	protected void initMorton( final int[] maxes )
+	{
+		final int naxes = maxes.length;
+		final int[] bits = new int[ naxes ];
+		int maxBits = 0;
+		for( int d = 1 ; d < naxes ; d++ )
+		{
+			while( ( 1L << bits[ d ] ) < maxes[ d ] )
+			{
+				bits[ d ]++;
+			}
+			maxBits = Math.max( maxBits , bits[ d ] );
+		}
+		
+		int pos = 0;
+		for( int k = 0 ; k < maxBits ; k++ )
+		{
+			for( int d = naxes - 1 ; d >= 1 ; d-- )
+			{
+				if( k < bits[ d ] )
+				{
+					final long bit = 1L << pos;
+					for( int v = 0 ; v < maxes[ d ] ; v++ )
+					{
+						if( ( ( v >> k ) & 1 ) != 0 )
+						{
+							offsets[ d ][ v ] |= bit;
+						}
+					}
+					pos++;
+				}
+			}
+		}
+		
+		if( pos > 62 )
+		{
+			throw( new RuntimeException( "Array Too Large" ) );
+		}
+		
+		final long sliceSize = 1L << pos;
+		for( int v = 0 ; v < maxes[ 0 ] ; v++ )
+		{
+			offsets[ 0 ][ v ] = v * sliceSize;
+		}
+		length = maxes[ 0 ] * sliceSize;
+	}
+	
+	
+	
+	/**
+	 * Returns the offset of an element of a 3-D array.
+	 * 
+	 * @param t The T-Axis index.
+	 * @param x The X-Axis index.
+	 * @param y The Y-Axis index.
+	 * @return The offset of the element in units of elements.
+	 */
+	public long index( final int t , final int x , final int y )
+	{
+		return( offsets[ 0 ][ t ] + offsets[ 1 ][ x ] + offsets[ 2 ][ y ] );
+	}
+	
+	
+	
+	/**
+	 * Returns the offset of an element of a 4-D array.
+	 * 
+	 * @param t The T-Axis index.
+	 * @param x The X-Axis index.
+	 * @param y The Y-Axis index.
+	 * @param z The Z-Axis index.
+	 * @return The offset of the element in units of elements.
+	 */
+	public long index( final int t , final int x , final int y , final int z )
+	{
+		return( offsets[ 0 ][ t ] + offsets[ 1 ][ x ] + offsets[ 2 ][ y ] + offsets[ 3 ][ z ] );
+	}
+	
+	
+	
+	/**
+	 * Gets the number of elements in the array image.
+	 * 
+	 * @return The number of elements in the array image.
+	 */
+	public long getLength() {
+		return length;
+	}
+	
+	
+	
+	/**
+	 * Gets the layout of the array image.
+	 * 
+	 * @return The layout of the array image.
+	 */
+	public DbFastArrayLayout getLayout() {
+		return layout;
+	}
+	
+	
+}
+
+
@@ -0,0 +1,305 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package simplealgebra.store;
+
+
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+
+
+/**
+ * Memory-mapped view of the image file of a direct access array.  The file is mapped in fixed-size windows
+ * so that files larger than 2 GB (the limit of a single mapped buffer) can be accessed, and so that only
+ * the most recently used windows are kept mapped.  Reads and writes of doubles then access memory directly
+ * rather than making a seek() and a read or write system call for each element.
+ * 
+ * <P> Writes are made to the mapped memory, and are written back to disk by the operating system.  Call
+ * {@link #force()} (for instance at a time-step boundary) to write the contents back to disk explicitly.
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ */
+public class DrMappedFile {
+
+	/**
+	 * The default size of each mapped window in bytes.
+	 */
+	public static final long DEFAULT_WINDOW_SIZE = 64L * 1024L * 1024L;
+
+	/**
+	 * The default maximum number of windows kept mapped at once.
+	 */
+	public static final int DEFAULT_MAX_WINDOWS = 16;
+
+	/**
+	 * The size of a double-precision number in bytes.
+	 */
+	static final int SZ_DBL = 8;
+
+
+	/**
+	 * The channel of the file being mapped.
+	 */
+	protected FileChannel channel;
+
+	/**
+	 * The length of the file in bytes.
+	 */
+	protected long length;
+
+	/**
+	 * The size of each mapped window in bytes.
+	 */
+	protected long windowSize;
+
+	/**
+	 * The mode in which the windows are mapped.
+	 */
+	protected FileChannel.MapMode mapMode = FileChannel.MapMode.READ_WRITE;
+
+	/**
+	 * The byte order of the values in the file.
+	 */
+	protected ByteOrder byteOrder = ByteOrder.BIG_ENDIAN;
+
+	/**
+	 * The index of the most recently used window, or -1 if no window has been used.
+	 */
+	protected long lastWindow = -1;
+
+	/**
+	 * The most recently used window.
+	 */
+	protected MappedByteBuffer lastBuffer = null;
+
+	/**
+	 * The mapped windows in least-recently-used order, keyed by window index.
+	 */
+	protected LinkedHashMap<Long,MappedByteBuffer> windows;
+
+
+
+	/**
+	 * Constructs the mapped view.  The length of the file must already have been set.
+	 * 
+	 * @param file The file to be mapped.
+	 * @param _windowSize The size of each mapped window in bytes.  Must be a positive multiple of the size of a double.
+	 * @param maxWindows The maximum number of windows kept mapped at once.
+	 * @throws Throwable
+	 */
+	public DrMappedFile( final RandomAccessFile file , final long _windowSize , final int maxWindows ) throws Throwable
+	{
+		if( ( _windowSize <= 0 ) || ( _windowSize % SZ_DBL != 0 ) || ( _windowSize > Integer.MAX_VALUE ) )
+		{
+			throw( new RuntimeException( "Invalid Window Size" ) );
+		}
+
+		if( maxWindows <= 0 )
+		{
+			throw( new RuntimeException( "Invalid Number Of Windows" ) );
+		}
+
+		channel = file.getChannel();
+		length = file.length();
+		windowSize = _windowSize;
+		windows = new LinkedHashMap<Long,MappedByteBuffer>( 2 * maxWindows , 0.75f , true )
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry( Map.Entry<Long,MappedByteBuffer> eldest )
+			{
+				/*
+				 * Dropping the buffer does not lose writes, since the mapped pages remain
+				 * in the operating system's cache until they are written back to the file.
+				 */
+				return( size() > maxWindows );
+			}
+		};
+	}
+
+
+
+
+	/**
+	 * Constructs the mapped view with a given map mode and byte order.  The length of the file must already have been set.
+	 * 
+	 * @param file The file to be mapped.
+	 * @param _windowSize The size of each mapped window in bytes.  Must be a positive multiple of the size of a double.
+	 * @param maxWindows The maximum number of windows kept mapped at once.
+	 * @param _mapMode The mode in which to map the windows, for instance FileChannel.MapMode.READ_ONLY for a file opened only for reading.
+	 * @param _byteOrder The byte order of the values in the file.
+	 * @throws Throwable
+	 */
+	public DrMappedFile( final RandomAccessFile file , final long _windowSize , final int maxWindows ,
+			final FileChannel.MapMode _mapMode , final ByteOrder _byteOrder ) throws Throwable
+	{
+		this( file , _windowSize , maxWindows );
+		mapMode = _mapMode;
+		byteOrder = _byteOrder;
+	}
+
+
+
+	/**
+	 * Gets the mapped window containing a byte offset in the file.
+	 * 
+	 * @param window The index of the window.
+	 * @return The mapped window.
+	 * @throws Throwable
+	 */
+	protected MappedByteBuffer getWindow( final long window ) throws Throwable
+	{
+		if( window == lastWindow )
+		{
+			return( lastBuffer );
+		}
+
+		MappedByteBuffer buf = windows.get( window );
+		if( buf == null )
+		{
+			final long start = window * windowSize;
+			final long size = Math.min( windowSize , length - start );
+			if( size <= 0 )
+			{
+				throw( new RuntimeException( "Internal Error" ) );
+			}
+			buf = channel.map( mapMode , start , size );
+			buf.order( byteOrder );
+			windows.put( window , buf );
+		}
+
+		lastWindow = window;
+		lastBuffer = buf;
+		return( buf );
+	}
+
+
+
+	/**
+	 * Reads a double at a byte offset in the file.
+	 * 
+	 * @param offset The byte offset, which must be a multiple of the size of a double.
+	 * @return The double at the offset.
+	 * @throws Throwable
+	 */
+	public double getDouble( final long offset ) throws Throwable
+	{
+		final MappedByteBuffer buf = getWindow( offset / windowSize );
+		return( buf.getDouble( (int)( offset % windowSize ) ) );
+	}
+
+
+
+	/**
+	 * Reads a float at a byte offset in the file.
+	 * 
+	 * @param offset The byte offset, which must be a multiple of the size of a float.
+	 * @return The float at the offset.
+	 * @throws Throwable
+	 */
+	public float getFloat( final long offset ) throws Throwable
+	{
+		final MappedByteBuffer buf = getWindow( offset / windowSize );
+		return( buf.getFloat( (int)( offset % windowSize ) ) );
+	}
+
+
+
+	/**
+	 * Writes a double at a byte offset in the file.
+	 * 
+	 * @param offset The byte offset, which must be a multiple of the size of a double.
+	 * @param val The double to be written.
+	 * @throws Throwable
+	 */
+	public void putDouble( final long offset , final double val ) throws Throwable
+	{
+		final MappedByteBuffer buf = getWindow( offset / windowSize );
+		buf.putDouble( (int)( offset % windowSize ) , val );
+	}
+
+
+
+	/**
+	 * Writes the contents of all mapped windows back to disk.
+	 * 
+	 * @throws Throwable
+	 */
+	public void force() throws Throwable
+	{
+		if( mapMode == FileChannel.MapMode.READ_ONLY )
+		{
+			return;
+		}
+		Iterator<MappedByteBuffer> it = windows.values().iterator();
+		while( it.hasNext() )
+		{
+			it.next().force();
+		}
+		// Also covers windows that have already been dropped from the map.
+		channel.force( false );
+	}
+
+
+
+	/**
+	 * Writes the contents of all mapped windows back to disk, and releases the windows.
+	 * 
+	 * @throws Throwable
+	 */
+	public void close() throws Throwable
+	{
+		force();
+		windows.clear();
+		lastWindow = -1;
+		lastBuffer = null;
+	}
+
+
+
+	/**
+	 * Gets the size of each mapped window in bytes.
+	 * 
+	 * @return The size of each mapped window in bytes.
+	 */
+	public long getWindowSize() {
+		return windowSize;
+	}
+
+
+}
+
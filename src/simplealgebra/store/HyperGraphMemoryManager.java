@@ -0,0 +1,274 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package simplealgebra.store;
+
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hypergraphdb.HyperGraph;
+import org.hypergraphdb.cache.SimpLRU;
+
+
+
+
+/**
+ * Manages the memory of one HyperGraph.  Memory pressure is detected off the access path (by memory usage
+ * threshold notifications), and is posted to the manager by advancing a shared pressure epoch.  An access to the
+ * graph then only has to read one volatile field (and the state of the current thread) to find that there is no memory to clear.
+ * 
+ * <P> HyperGraphDB transactions are bound to a thread, so the last pressure epoch seen and the commit count are kept
+ * for each thread.  Advancing the epoch marks every thread, and each thread segments its own transaction on its next
+ * access to the graph.  Only the eviction of the incidence cache is shared: the first thread to segment its transaction
+ * after a memory pressure event also evicts the incidence cache of the graph asynchronously.
+ * 
+ * <P> The manager only segments transactions under memory pressure.  Each access is also recorded as an operation with
+ * the current thread's SegmentedTransactionManager, whose SegmentedCommitPolicy decides the segments driven by the number
+ * of operations, the number of bytes written, or elapsed time.
+ * 
+ * <P> Instances are normally created and looked up through MemoryClearingSystem.
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ *
+ */
+public class HyperGraphMemoryManager {
+	
+	
+	/**
+	 * The state of the manager for one thread.
+	 * 
+	 * @author thorngreen
+	 *
+	 */
+	protected static class ThreadState
+	{
+		/**
+		 * The pressure epoch at the last segment of the transaction of the thread.
+		 */
+		protected long pressureEpoch;
+		
+		/**
+		 * The number of times the transaction of the thread has been segmented.
+		 */
+		protected long commits = 0;
+		
+		/**
+		 * Constructs the state.
+		 * 
+		 * @param _pressureEpoch The current pressure epoch.
+		 */
+		protected ThreadState( final long _pressureEpoch )
+		{
+			pressureEpoch = _pressureEpoch;
+		}
+	}
+	
+	
+	/**
+	 * The graph whose memory is being managed.
+	 */
+	protected final HyperGraph graph;
+	
+	/**
+	 * The pressure epoch, which is advanced to request that every thread segments its transaction.  This is the only
+	 * shared state read on the access path.
+	 */
+	protected final AtomicLong pressureEpoch = new AtomicLong( 0 );
+	
+	/**
+	 * Whether an eviction of the incidence cache is pending.
+	 */
+	protected final AtomicBoolean evictPending = new AtomicBoolean( false );
+	
+	/**
+	 * The state of the manager for each thread.
+	 */
+	protected final ThreadLocal<ThreadState> threadStates = new ThreadLocal<ThreadState>()
+	{
+		@Override
+		protected ThreadState initialValue()
+		{
+			return( new ThreadState( pressureEpoch.get() ) );
+		}
+	};
+	
+	/**
+	 * The number of times a transaction has been segmented, over all threads.
+	 */
+	protected final AtomicLong commits = new AtomicLong( 0 );
+	
+	/**
+	 * The number of incidence cache evictions that have been started.
+	 */
+	protected final AtomicLong evictions = new AtomicLong( 0 );
+	
+	/**
+	 * The number of memory pressure notifications received.
+	 */
+	protected final AtomicLong pressureEvents = new AtomicLong( 0 );
+	
+	
+	
+	/**
+	 * Constructs the manager.
+	 * 
+	 * @param _graph The graph whose memory is to be managed.
+	 */
+	public HyperGraphMemoryManager( final HyperGraph _graph )
+	{
+		graph = _graph;
+	}
+	
+	
+	
+	/**
+	 * Handles an access to the graph by the current thread, segmenting the transaction of the thread if
+	 * a memory pressure event has been posted since its last segment, and then recording the access with the
+	 * SegmentedTransactionManager of the thread.
+	 */
+	public void handleCheckClear()
+	{
+		handleCheckClear( 0L );
+	}
+	
+	
+	
+	/**
+	 * Handles a write to the graph by the current thread, segmenting the transaction of the thread if
+	 * a memory pressure event has been posted since its last segment, and then recording the write with the
+	 * SegmentedTransactionManager of the thread.
+	 * 
+	 * @param bytesWritten The number of bytes written, or zero for an access that did not write.
+	 */
+	public void handleCheckClear( final long bytesWritten )
+	{
+		final ThreadState st = threadStates.get();
+		final long epoch = pressureEpoch.get();
+		if( epoch != st.pressureEpoch )
+		{
+			performActions( st , epoch );
+		}
+		SegmentedTransactionManager.recordWrite( graph , bytesWritten );
+	}
+	
+	
+	
+	/**
+	 * Segments the transaction of the current thread, and starts any pending eviction of the incidence cache.
+	 * 
+	 * @param st The state of the current thread.
+	 * @param epoch The current pressure epoch.
+	 */
+	protected void performActions( final ThreadState st , final long epoch )
+	{
+		st.pressureEpoch = epoch;
+		SegmentedTransactionManager.suspendSegmentedTransaction( graph );
+		if( evictPending.getAndSet( false ) )
+		{
+			final Object cache = graph.getCache().getIncidenceCache();
+			if( cache instanceof SimpLRU )
+			{
+				( (SimpLRU) cache ).evictNonBlocking();
+				evictions.incrementAndGet();
+			}
+		}
+		SegmentedTransactionManager.restartSegmentedTransaction( graph );
+		st.commits++;
+		commits.incrementAndGet();
+	}
+	
+	
+	
+	/**
+	 * Posts a memory pressure event, so that the next access to the graph by each thread segments the
+	 * transaction of the thread, and the first of these evicts the incidence cache.  May be called from any thread.
+	 */
+	public void notifyMemoryPressure()
+	{
+		pressureEvents.incrementAndGet();
+		evictPending.set( true );
+		pressureEpoch.incrementAndGet();
+	}
+	
+	
+	
+	/**
+	 * Gets the graph whose memory is being managed.
+	 * 
+	 * @return The graph.
+	 */
+	public HyperGraph getGraph() {
+		return( graph );
+	}
+	
+	
+	/**
+	 * Gets the number of times a transaction has been segmented, over all threads.
+	 * 
+	 * @return The number of commits.
+	 */
+	public long getCommits() {
+		return( commits.get() );
+	}
+	
+	
+	/**
+	 * Gets the number of times the transaction of the current thread has been segmented.
+	 * 
+	 * @return The number of commits.
+	 */
+	public long getThreadCommits() {
+		return( threadStates.get().commits );
+	}
+	
+	
+	/**
+	 * Gets the number of incidence cache evictions that have been started.
+	 * 
+	 * @return The number of evictions.
+	 */
+	public long getEvictions() {
+		return( evictions.get() );
+	}
+	
+	
+	/**
+	 * Gets the number of memory pressure notifications received.
+	 * 
+	 * @return The number of memory pressure notifications.
+	 */
+	public long getPressureEvents() {
+		return( pressureEvents.get() );
+	}
+	
+	
+}
+
+
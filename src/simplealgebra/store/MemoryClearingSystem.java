@@ -28,6 +28,20 @@ package simplealgebra.store;
 
 
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+
 import org.hypergraphdb.HyperGraph;
 import org.hypergraphdb.cache.SimpLRU;
 
@@ -37,6 +51,14 @@ import org.hypergraphdb.cache.SimpLRU;
 /**
  * Class for automatically clearing unused Hypergraph memory.
  * 
+ * <P> Each graph has its own HyperGraphMemoryManager.  Memory pressure is detected by usage threshold notifications
+ * from the heap memory pools (or, where the pools do not support thresholds, by a background poll), so that checking
+ * for memory to clear is cheap enough to do on every access.  Only memory pressure segments transactions here.  Each access
+ * checked here is also recorded as an operation with the current thread's SegmentedTransactionManager, whose SegmentedCommitPolicy
+ * decides the segments driven by the number of operations, the number of bytes written, or elapsed time.  Unless another
+ * policy is given, initializing memory clearing for a graph sets a default policy that segments each thread's transaction
+ * after {@link #DEFAULT_MAX_OPS} operations or {@link #DEFAULT_MAX_COMMIT_INTERVAL_MS} milliseconds, whichever comes first.
+ * 
  * This documentation should be viewed using Firefox version 33.1.1 or above.
  * 
  * @author thorngreen
@@ -45,59 +67,252 @@ import org.hypergraphdb.cache.SimpLRU;
 public class MemoryClearingSystem {
 	
 	/**
-	 * Maximum number of checks before the transaction is suspended
+	 * The default number of operations after which the transaction is segmented
 	 * to prevent performance impacts from excessively long transaction logs.
 	 */
-	private static final int MAX_TRANSACTION_CNT = 100;
+	public static final long DEFAULT_MAX_OPS = 100L;
 	
 	/**
-	 * Count of number of checks since last transaction suspend.
+	 * The default interval in milliseconds after which the transaction is segmented at its next operation.
 	 */
-	private static int transactionCnt = 0;
+	public static final long DEFAULT_MAX_COMMIT_INTERVAL_MS = 1000L;
+	
+	/**
+	 * The fraction of the maximum size of a heap memory pool above which memory is cleared.
+	 */
+	public static final double USAGE_THRESHOLD_FRACTION = 0.8;
+	
+	/**
+	 * The interval at which free memory is polled if no heap memory pool supports usage thresholds.
+	 */
+	private static final long POLL_INTERVAL_MS = 100L;
+	
+	/**
+	 * Map from each graph to its memory manager.
+	 */
+	private static final ConcurrentHashMap<HyperGraph,HyperGraphMemoryManager> managers = 
+			new ConcurrentHashMap<HyperGraph,HyperGraphMemoryManager>();
+	
+	/**
+	 * The most recently used memory manager, which avoids a map lookup when a single graph is in use.
+	 */
+	private static volatile HyperGraphMemoryManager lastManager = null;
+	
+	/**
+	 * Timer polling free memory, or null if memory monitoring has not been started.
+	 */
+	private static ScheduledExecutorService timer = null;
 	
 
 	/**
-	 * Initializes the memory clearing system.
+	 * Initializes the memory clearing system, and sets the default count-or-time commit policy of the graph,
+	 * which segments each thread's transaction after {@link #DEFAULT_MAX_OPS} operations or
+	 * {@link #DEFAULT_MAX_COMMIT_INTERVAL_MS} milliseconds.
 	 * 
 	 * @param graph The graph from which to clear memory.
 	 */
 	public static void initMemoryClearing( HyperGraph graph )
 	{
+		initMemoryClearing( graph , DEFAULT_MAX_OPS , DEFAULT_MAX_COMMIT_INTERVAL_MS );
+	}
+	
+	
+	/**
+	 * Initializes the memory clearing system, and sets the default commit policy of the graph.
+	 * 
+	 * @param graph The graph from which to clear memory.
+	 * @param commitPolicy The default policy deciding when each thread's transaction over the graph is segmented.
+	 */
+	public static void initMemoryClearing( HyperGraph graph , SegmentedCommitPolicy commitPolicy )
+	{
+		SegmentedTransactionManager.setDefaultCommitPolicy( graph , commitPolicy );
 		graph.getCache().setIncidenceCache(
 	        	new SimpLRU(0.5f, 0.3f) );
-		transactionCnt = 0;
+		register( new HyperGraphMemoryManager( graph ) );
+	}
+	
+	
+	/**
+	 * Initializes the memory clearing system, and sets a count-or-time default commit policy for the graph.
+	 * 
+	 * @param graph The graph from which to clear memory.
+	 * @param maxOps The number of recorded operations after which each thread's transaction is segmented.
+	 * @param maxCommitIntervalMs The interval in milliseconds after which each thread's transaction is segmented at its next recorded operation.
+	 */
+	public static void initMemoryClearing( HyperGraph graph , long maxOps , long maxCommitIntervalMs )
+	{
+		initMemoryClearing( graph , SegmentedCommitPolicy.any( 
+				SegmentedCommitPolicy.opsCount( maxOps ) , SegmentedCommitPolicy.elapsedTime( maxCommitIntervalMs ) ) );
 	}
 	
 	
 	/**
-	 * Clears memory from the graph if necessary.
+	 * Clears memory from the graph if necessary, and records an access to the graph.
 	 * 
 	 * @param graph The graph from which to clear memory.
 	 */
 	public static void handleCheckClear( HyperGraph graph )
 	{
-		final long freeMemory = Runtime.getRuntime().freeMemory();
-		final long totalMemory = Runtime.getRuntime().totalMemory();
-		final long totalMem10 = totalMemory / 5L;
-		transactionCnt++;
-		if( freeMemory <= totalMem10 )
+		handleCheckClear( graph , 0L );
+	}
+	
+	
+	/**
+	 * Clears memory from the graph if necessary, and records a write to the graph.
+	 * 
+	 * @param graph The graph from which to clear memory.
+	 * @param bytesWritten The number of bytes written, or zero for an access that did not write.
+	 */
+	public static void handleCheckClear( HyperGraph graph , long bytesWritten )
+	{
+		HyperGraphMemoryManager mgr = lastManager;
+		if( ( mgr == null ) || ( mgr.getGraph() != graph ) )
 		{
-			SegmentedTransactionManager.suspendSegmentedTransaction( graph );
-			( (SimpLRU)( graph.getCache().getIncidenceCache() ) ).evict();
-			SegmentedTransactionManager.restartSegmentedTransaction( graph );
-			transactionCnt = 0;
+			mgr = getMemoryManager( graph );
+			lastManager = mgr;
 		}
-		else
+		mgr.handleCheckClear( bytesWritten );
+	}
+	
+	
+	/**
+	 * Gets the memory manager of a graph, creating a manager if necessary.
+	 * 
+	 * @param graph The graph.
+	 * @return The memory manager of the graph.
+	 */
+	public static HyperGraphMemoryManager getMemoryManager( HyperGraph graph )
+	{
+		final HyperGraphMemoryManager mgr = managers.get( graph );
+		if( mgr != null )
+		{
+			return( mgr );
+		}
+		synchronized( MemoryClearingSystem.class )
 		{
-			if( transactionCnt > MAX_TRANSACTION_CNT )
+			final HyperGraphMemoryManager mgr2 = managers.get( graph );
+			if( mgr2 != null )
 			{
-				// System.out.println( "Commit..." );
-				SegmentedTransactionManager.suspendSegmentedTransaction( graph );
-				SegmentedTransactionManager.restartSegmentedTransaction( graph );
-				transactionCnt = 0;
+				return( mgr2 );
 			}
+			return( register( new HyperGraphMemoryManager( graph ) ) );
+		}
+	}
+	
+	
+	/**
+	 * Stops managing the memory of a graph, for instance before the graph is closed.  Also discards the default commit policy of the graph.
+	 * 
+	 * @param graph The graph.
+	 */
+	public static synchronized void closeMemoryClearing( HyperGraph graph )
+	{
+		managers.remove( graph );
+		SegmentedTransactionManager.setDefaultCommitPolicy( graph , null );
+		lastManager = null;
+	}
+	
+	
+	/**
+	 * Registers a memory manager, replacing any previous manager of its graph.
+	 * 
+	 * @param mgr The memory manager.
+	 * @return The memory manager.
+	 */
+	private static synchronized HyperGraphMemoryManager register( final HyperGraphMemoryManager mgr )
+	{
+		startMonitoring();
+		managers.put( mgr.getGraph() , mgr );
+		lastManager = null;
+		return( mgr );
+	}
+	
+	
+	/**
+	 * Starts the timer, and subscribes to memory usage threshold notifications from the heap memory pools.
+	 */
+	private static void startMonitoring()
+	{
+		if( timer != null )
+		{
+			return;
 		}
 		
+		timer = Executors.newSingleThreadScheduledExecutor( new ThreadFactory()
+		{
+			@Override
+			public Thread newThread( Runnable r )
+			{
+				final Thread th = new Thread( r , "MemoryClearingSystem" );
+				th.setDaemon( true );
+				return( th );
+			}
+		} );
+		
+		boolean thresholdSupported = false;
+		for( final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans() )
+		{
+			final long max = pool.getUsage().getMax();
+			if( ( pool.getType() == MemoryType.HEAP ) && ( max > 0 ) )
+			{
+				final long threshold = (long)( USAGE_THRESHOLD_FRACTION * max );
+				if( pool.isUsageThresholdSupported() )
+				{
+					pool.setUsageThreshold( threshold );
+					thresholdSupported = true;
+				}
+				if( pool.isCollectionUsageThresholdSupported() )
+				{
+					// Repeats after each collection that leaves the pool above the threshold.
+					pool.setCollectionUsageThreshold( threshold );
+				}
+			}
+		}
+		
+		if( thresholdSupported )
+		{
+			( (NotificationEmitter)( ManagementFactory.getMemoryMXBean() ) ).addNotificationListener( new NotificationListener()
+			{
+				@Override
+				public void handleNotification( Notification notification , Object handback )
+				{
+					final String type = notification.getType();
+					if( MemoryNotificationInfo.MEMORY_THRESHOLD_EXCEEDED.equals( type ) || 
+							MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals( type ) )
+					{
+						notifyMemoryPressure();
+					}
+				}
+			} , null , null );
+		}
+		else
+		{
+			timer.scheduleWithFixedDelay( new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					final long freeMemory = Runtime.getRuntime().freeMemory();
+					final long totalMemory = Runtime.getRuntime().totalMemory();
+					if( freeMemory <= (long)( ( 1.0 - USAGE_THRESHOLD_FRACTION ) * totalMemory ) )
+					{
+						notifyMemoryPressure();
+					}
+				}
+			} , POLL_INTERVAL_MS , POLL_INTERVAL_MS , TimeUnit.MILLISECONDS );
+		}
+	}
+	
+	
+	/**
+	 * Posts a memory pressure event to the memory managers of all graphs.
+	 */
+	public static void notifyMemoryPressure()
+	{
+		for( final HyperGraphMemoryManager mgr : managers.values() )
+		{
+			mgr.notifyMemoryPressure();
+		}
 	}
 	
 
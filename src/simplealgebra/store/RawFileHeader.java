@@ -0,0 +1,371 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package simplealgebra.store;
+
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+
+
+
+/**
+ * Header of a self-describing ".raw" array file as written by RawFileWriter.writeRaw() and read by RawFileReader.
+ * The header gives the element type, the byte order of the elements, and the range of each axis.  The header is
+ * always written in big-endian order, and is padded to HEADER_SIZE bytes so that the elements that follow it are aligned.
+ * 
+ * <P> The elements follow the header with the X-Axis varying fastest, then the Y-Axis, then the Z-Axis, and then the T-Axis,
+ * as in the headerless files written by RawFileWriter.writeDouble() and RawFileWriter.writeFloat().
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ *
+ */
+public class RawFileHeader {
+	
+	/**
+	 * The type of the elements of the file.
+	 * 
+	 * @author thorngreen
+	 * 
+	 */
+	public static enum ElemType
+	{
+		/**
+		 * 8-byte IEEE double-precision elements.
+		 */
+		DOUBLE,
+		
+		/**
+		 * 4-byte IEEE single-precision elements.
+		 */
+		FLOAT
+	};
+	
+	/**
+	 * The magic number at the start of the header ("SARW").
+	 */
+	public static final int MAGIC = 0x53415257;
+	
+	/**
+	 * The version of the header format.
+	 */
+	public static final int VERSION = 1;
+	
+	/**
+	 * The size of the header in bytes.
+	 */
+	public static final int HEADER_SIZE = 64;
+	
+	/**
+	 * The type of the elements.
+	 */
+	protected ElemType elemType;
+	
+	/**
+	 * The byte order of the elements.
+	 */
+	protected ByteOrder byteOrder;
+	
+	/**
+	 * The T-Axis start.
+	 */
+	protected int tStrt;
+	
+	/**
+	 * The T-Axis end.
+	 */
+	protected int tEnd;
+	
+	/**
+	 * The Z-Axis start.
+	 */
+	protected int zStrt;
+	
+	/**
+	 * The Z-Axis end.
+	 */
+	protected int zEnd;
+	
+	/**
+	 * The Y-Axis start.
+	 */
+	protected int yStrt;
+	
+	/**
+	 * The Y-Axis end.
+	 */
+	protected int yEnd;
+	
+	/**
+	 * The X-Axis start.
+	 */
+	protected int xStrt;
+	
+	/**
+	 * The X-Axis end.
+	 */
+	protected int xEnd;
+	
+	
+	
+	/**
+	 * Constructs the header.
+	 * 
+	 * @param _elemType The type of the elements.
+	 * @param _byteOrder The byte order of the elements.
+	 * @param _tStrt The T-Axis start.
+	 * @param _tEnd The T-Axis end.
+	 * @param _zStrt The Z-Axis start.
+	 * @param _zEnd The Z-Axis end.
+	 * @param _yStrt The Y-Axis start.
+	 * @param _yEnd The Y-Axis end.
+	 * @param _xStrt The X-Axis start.
+	 * @param _xEnd The X-Axis end.
+	 */
+	public RawFileHeader( final ElemType _elemType , final ByteOrder _byteOrder ,
+			final int _tStrt , final int _tEnd , final int _zStrt , final int _zEnd ,
+			final int _yStrt , final int _yEnd , final int _xStrt , final int _xEnd )
+	{
+		elemType = _elemType;
+		byteOrder = _byteOrder;
+		tStrt = _tStrt;
+		tEnd = _tEnd;
+		zStrt = _zStrt;
+		zEnd = _zEnd;
+		yStrt = _yStrt;
+		yEnd = _yEnd;
+		xStrt = _xStrt;
+		xEnd = _xEnd;
+	}
+	
+	
+	
+	/**
+	 * Reads the header from the start of a file.
+	 * 
+	 * @param channel The channel of the file.
+	 * @return The header.
+	 * @throws Throwable
+	 */
+	public static RawFileHeader read( final FileChannel channel ) throws Throwable
+	{
+		final ByteBuffer buf = ByteBuffer.allocate( HEADER_SIZE );
+		long pos = 0;
+		while( buf.hasRemaining() )
+		{
+			final int cnt = channel.read( buf , pos );
+			if( cnt < 0 )
+			{
+				throw( new RuntimeException( "Not A Raw File" ) );
+			}
+			pos += cnt;
+		}
+		buf.flip();
+		
+		if( ( buf.getInt() != MAGIC ) || ( buf.getInt() != VERSION ) )
+		{
+			throw( new RuntimeException( "Not A Raw File" ) );
+		}
+		
+		final ElemType elemType = buf.getInt() == 0 ? ElemType.DOUBLE : ElemType.FLOAT;
+		final ByteOrder byteOrder = buf.getInt() == 0 ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+		
+		final int tStrt = buf.getInt();
+		final int tEnd = buf.getInt();
+		final int zStrt = buf.getInt();
+		final int zEnd = buf.getInt();
+		final int yStrt = buf.getInt();
+		final int yEnd = buf.getInt();
+		final int xStrt = buf.getInt();
+		final int xEnd = buf.getInt();
+		
+		return( new RawFileHeader( elemType , byteOrder , tStrt , tEnd , zStrt , zEnd , yStrt , yEnd , xStrt , xEnd ) );
+	}
+	
+	
+	
+	/**
+	 * Writes the header at the start of a file.
+	 * 
+	 * @param channel The channel of the file.
+	 * @throws Throwable
+	 */
+	public void write( final FileChannel channel ) throws Throwable
+	{
+		final ByteBuffer buf = ByteBuffer.allocate( HEADER_SIZE );
+		buf.putInt( MAGIC );
+		buf.putInt( VERSION );
+		buf.putInt( elemType == ElemType.DOUBLE ? 0 : 1 );
+		buf.putInt( byteOrder == ByteOrder.BIG_ENDIAN ? 0 : 1 );
+		buf.putInt( tStrt );
+		buf.putInt( tEnd );
+		buf.putInt( zStrt );
+		buf.putInt( zEnd );
+		buf.putInt( yStrt );
+		buf.putInt( yEnd );
+		buf.putInt( xStrt );
+		buf.putInt( xEnd );
+		buf.position( HEADER_SIZE );
+		buf.flip();
+		long pos = 0;
+		while( buf.hasRemaining() )
+		{
+			pos += channel.write( buf , pos );
+		}
+	}
+	
+	
+	
+	/**
+	 * Gets the size of each element in bytes.
+	 * 
+	 * @return The size of each element in bytes.
+	 */
+	public int getElemSize()
+	{
+		return( elemType == ElemType.DOUBLE ? 8 : 4 );
+	}
+	
+	
+	
+	/**
+	 * Gets the number of elements in the file.
+	 * 
+	 * @return The number of elements in the file.
+	 */
+	public long getNumElems()
+	{
+		return( ( (long)( tEnd - tStrt ) ) * ( zEnd - zStrt ) * ( yEnd - yStrt ) * ( xEnd - xStrt ) );
+	}
+	
+	
+	
+	/**
+	 * Gets the byte offset of an element in the file.
+	 * 
+	 * @param t The T-Axis index.
+	 * @param x The X-Axis index.
+	 * @param y The Y-Axis index.
+	 * @param z The Z-Axis index.
+	 * @return The byte offset of the element.
+	 */
+	public long offsetOf( final int t , final int x , final int y , final int z )
+	{
+		final long index = ( ( ( (long)( t - tStrt ) ) * ( zEnd - zStrt ) + ( z - zStrt ) ) * ( yEnd - yStrt ) + ( y - yStrt ) ) * ( xEnd - xStrt ) + ( x - xStrt );
+		return( HEADER_SIZE + index * getElemSize() );
+	}
+	
+	
+
+	/**
+	 * Gets the type of the elements.
+	 * @return The type of the elements.
+	 */
+	public ElemType getElemType() {
+		return elemType;
+	}
+
+	/**
+	 * Gets the byte order of the elements.
+	 * @return The byte order of the elements.
+	 */
+	public ByteOrder getByteOrder() {
+		return byteOrder;
+	}
+
+	/**
+	 * Gets the T-Axis start.
+	 * @return The T-Axis start.
+	 */
+	public int getTStrt() {
+		return tStrt;
+	}
+
+	/**
+	 * Gets the T-Axis end.
+	 * @return The T-Axis end.
+	 */
+	public int getTEnd() {
+		return tEnd;
+	}
+
+	/**
+	 * Gets the Z-Axis start.
+	 * @return The Z-Axis start.
+	 */
+	public int getZStrt() {
+		return zStrt;
+	}
+
+	/**
+	 * Gets the Z-Axis end.
+	 * @return The Z-Axis end.
+	 */
+	public int getZEnd() {
+		return zEnd;
+	}
+
+	/**
+	 * Gets the Y-Axis start.
+	 * @return The Y-Axis start.
+	 */
+	public int getYStrt() {
+		return yStrt;
+	}
+
+	/**
+	 * Gets the Y-Axis end.
+	 * @return The Y-Axis end.
+	 */
+	public int getYEnd() {
+		return yEnd;
+	}
+
+	/**
+	 * Gets the X-Axis start.
+	 * @return The X-Axis start.
+	 */
+	public int getXStrt() {
+		return xStrt;
+	}
+
+	/**
+	 * Gets the X-Axis end.
+	 * @return The X-Axis end.
+	 */
+	public int getXEnd() {
+		return xEnd;
+	}
+	
+	
+}
+
+
@@ -0,0 +1,153 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package simplealgebra.store;
+
+
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+
+
+
+
+/**
+ * Reads a self-describing ".raw" file written by RawFileWriter.writeRaw().  The elements of the file are
+ * memory-mapped through a read-only DrMappedFile, so reloading a dump does not copy the file into the heap.
+ * The reader has the same get( t , x , y , z ) form as DrFastArray4D_Dbl, using the indices of the ranges
+ * in the RawFileHeader.
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ *
+ */
+public class RawFileReader {
+	
+	/**
+	 * The file being read.
+	 */
+	protected RandomAccessFile file;
+	
+	/**
+	 * The header of the file.
+	 */
+	protected RawFileHeader header;
+	
+	/**
+	 * The memory-mapped view of the file.
+	 */
+	protected DrMappedFile mapped;
+	
+	
+	
+	/**
+	 * Constructs the reader.
+	 * 
+	 * @param pathName The path to the file.
+	 * @param windowSize The size of each mapped window in bytes.
+	 * @param maxWindows The maximum number of windows kept mapped at once.
+	 * @throws Throwable
+	 */
+	public RawFileReader( final String pathName , final long windowSize , final int maxWindows ) throws Throwable
+	{
+		file = new RandomAccessFile( pathName , "r" );
+		header = RawFileHeader.read( file.getChannel() );
+		
+		final long expectedLength = RawFileHeader.HEADER_SIZE + header.getNumElems() * header.getElemSize();
+		if( file.length() < expectedLength )
+		{
+			file.close();
+			throw( new RuntimeException( "Raw File Truncated" ) );
+		}
+		
+		mapped = new DrMappedFile( file , windowSize , maxWindows , 
+				FileChannel.MapMode.READ_ONLY , header.getByteOrder() );
+	}
+	
+	
+	
+	/**
+	 * Constructs the reader with the default window size and number of windows.
+	 * 
+	 * @param pathName The path to the file.
+	 * @throws Throwable
+	 */
+	public RawFileReader( final String pathName ) throws Throwable
+	{
+		this( pathName , DrMappedFile.DEFAULT_WINDOW_SIZE , DrMappedFile.DEFAULT_MAX_WINDOWS );
+	}
+	
+	
+	
+	/**
+	 * Returns the value at the index.
+	 * 
+	 * @param t The T-Axis index.
+	 * @param x The X-Axis index.
+	 * @param y The Y-Axis index.
+	 * @param z The Z-Axis index.
+	 * @return The value at the index.
+	 * @throws Throwable
+	 */
+	public double get( int t , int x , int y , int z ) throws Throwable
+	{
+		final long offset = header.offsetOf( t , x , y , z );
+		if( header.getElemType() == RawFileHeader.ElemType.DOUBLE )
+		{
+			return( mapped.getDouble( offset ) );
+		}
+		return( mapped.getFloat( offset ) );
+	}
+	
+	
+	
+	/**
+	 * Closes the reader.
+	 * 
+	 * @throws Throwable
+	 */
+	public void close() throws Throwable
+	{
+		mapped.close();
+		file.close();
+	}
+	
+	
+	
+	/**
+	 * Gets the header of the file.
+	 * 
+	 * @return The header of the file.
+	 */
+	public RawFileHeader getHeader() {
+		return header;
+	}
+	
+	
+}
+
+
@@ -26,13 +26,17 @@
 
 package simplealgebra.store;
 
-import java.io.BufferedOutputStream;
-import java.io.DataOutputStream;
-import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 
 
 /**
- * Simple class to write files in ".raw" format.
+ * Simple class to write files in ".raw" format.  The files are written through a FileChannel from large direct buffers.
+ * Headerless files (as used by external visualization tools) are written by writeDouble() and writeFloat(), and
+ * self-describing files that can be reloaded with RawFileReader are written by writeRaw().  Lossless compressed files
+ * that can be reloaded with CompressedSliceReader are written by writeCompressed().
  * 
  * This documentation should be viewed using Firefox version 33.1.1 or above.
  * 
@@ -42,6 +46,12 @@ import java.io.FileOutputStream;
 public abstract class RawFileWriter
 {
 
+	/**
+	 * The minimum size in bytes of the direct buffer from which each thread writes.
+	 */
+	protected static final int MIN_NIO_BUFFER_SIZE = 1 << 20;
+	
+
 	/**
 	 * Constructs the writer.
 	 */
@@ -52,7 +62,7 @@ public abstract class RawFileWriter
 	
 	
 	/**
-	 * Gets the buffer size for the output stream.
+	 * Gets the buffer size for the output stream.  Buffers smaller than MIN_NIO_BUFFER_SIZE are enlarged to MIN_NIO_BUFFER_SIZE.
 	 * @return The buffer size for the output stream.
 	 */
 	protected abstract int bufferSize();
@@ -131,6 +141,57 @@ public abstract class RawFileWriter
 	 * @throws Throwable
 	 */
 	public void writeDouble( String pathName ) throws Throwable
+	{
+		writeNio( pathName , null , RawFileHeader.ElemType.DOUBLE , ByteOrder.BIG_ENDIAN , 1 );
+	}
+	
+	
+	
+	/**
+	 * Writes float data to a file.
+	 * 
+	 * @param pathName The path to the file.
+	 * @throws Throwable
+	 */
+	public void writeFloat( String pathName ) throws Throwable
+	{
+		writeNio( pathName , null , RawFileHeader.ElemType.FLOAT , ByteOrder.BIG_ENDIAN , 1 );
+	}
+	
+	
+	
+	/**
+	 * Writes data to a self-describing file with a RawFileHeader, which can be reloaded with RawFileReader.
+	 * If more than one thread is requested, the (t, z) planes are split across the threads, and getVal() must
+	 * then be safe to call from multiple threads.
+	 * 
+	 * @param pathName The path to the file.
+	 * @param elemType The type of the elements to write.
+	 * @param byteOrder The byte order of the elements to write.
+	 * @param numThreads The number of threads with which to write.
+	 * @throws Throwable
+	 */
+	public void writeRaw( String pathName , RawFileHeader.ElemType elemType , ByteOrder byteOrder , int numThreads ) throws Throwable
+	{
+		final RawFileHeader header = new RawFileHeader( elemType , byteOrder , 
+				getTStrt() , getTEnd() , getZStrt() , getZEnd() ,
+				getYStrt() , getYEnd() , getXStrt() , getXEnd() );
+		writeNio( pathName , header , elemType , byteOrder , numThreads );
+	}
+	
+	
+	
+	/**
+	 * Writes double data to a lossless compressed file using CompressedSliceCodec, which can be
+	 * reloaded with CompressedSliceReader.
+	 * 
+	 * @param pathName The path to the file.
+	 * @param keyInterval The number of time slices between key slices, for instance CompressedSliceCodec.DEFAULT_KEY_INTERVAL.
+	 * @param level The Deflater compression level, for instance Deflater.BEST_SPEED.
+	 * @return The ratio of the uncompressed size of the data to its compressed size.
+	 * @throws Throwable
+	 */
+	public double writeCompressed( String pathName , int keyInterval , int level ) throws Throwable
 	{
 		final int T_STRT = getTStrt();
 		final int T_END = getTEnd();
@@ -144,38 +205,49 @@ public abstract class RawFileWriter
 		final int X_STRT = getXStrt();
 		final int X_END = getXEnd();
 		
+		final RawFileHeader ranges = new RawFileHeader( RawFileHeader.ElemType.DOUBLE , ByteOrder.BIG_ENDIAN , 
+				T_STRT , T_END , Z_STRT , Z_END , Y_STRT , Y_END , X_STRT , X_END );
+		
+		final CompressedSliceWriter wr = new CompressedSliceWriter( pathName , ranges , keyInterval , level );
 		
-		FileOutputStream fo = new FileOutputStream( pathName );
-		BufferedOutputStream bo = new BufferedOutputStream( fo , bufferSize() );
-		DataOutputStream ds = new DataOutputStream( bo );
+		final double[] vals = new double[ Math.max( Z_END - Z_STRT , 0 ) * Math.max( Y_END - Y_STRT , 0 ) * Math.max( X_END - X_STRT , 0 ) ];
 		
 		for( int t = T_STRT ; t < T_END ; t++ )
 		{
+			int i = 0;
 			for( int z = Z_STRT ; z < Z_END ; z++ )
 			{
 				for( int y = Y_STRT ; y < Y_END ; y++ )
 				{
 					for( int x = X_STRT ; x < X_END ; x++ )
 					{
-						ds.writeDouble( getVal( t , x , y , z ) );
+						vals[ i ] = getVal( t , x , y , z );
+						i++;
 					}
 				}
 			}
+			wr.appendSlice( vals );
 		}
 		
-		ds.close();
+		wr.close();
 		
+		return( ( (double) wr.getRawBytes() ) / Math.max( wr.getCompressedBytes() , 1 ) );
 	}
 	
 	
 	
 	/**
-	 * Writes float data to a file.
+	 * Writes data to a file through a FileChannel.
 	 * 
 	 * @param pathName The path to the file.
+	 * @param header The header to write at the start of the file, or null to write a headerless file.
+	 * @param elemType The type of the elements to write.
+	 * @param byteOrder The byte order of the elements to write.
+	 * @param numThreads The number of threads with which to write.
 	 * @throws Throwable
 	 */
-	public void writeFloat( String pathName ) throws Throwable
+	protected void writeNio( final String pathName , final RawFileHeader header , 
+			final RawFileHeader.ElemType elemType , final ByteOrder byteOrder , final int numThreads ) throws Throwable
 	{
 		final int T_STRT = getTStrt();
 		final int T_END = getTEnd();
@@ -189,27 +261,160 @@ public abstract class RawFileWriter
 		final int X_STRT = getXStrt();
 		final int X_END = getXEnd();
 		
+		final int elemSize = elemType == RawFileHeader.ElemType.DOUBLE ? 8 : 4;
+		final long dataStart = header != null ? RawFileHeader.HEADER_SIZE : 0;
+		final int numZ = Math.max( Z_END - Z_STRT , 0 );
+		final long numPlanes = ( (long) Math.max( T_END - T_STRT , 0 ) ) * numZ;
+		final long planeBytes = ( (long) Math.max( Y_END - Y_STRT , 0 ) ) * Math.max( X_END - X_STRT , 0 ) * elemSize;
 		
-		FileOutputStream fo = new FileOutputStream( pathName );
-		BufferedOutputStream bo = new BufferedOutputStream( fo , bufferSize() );
-		DataOutputStream ds = new DataOutputStream( bo );
+		final RandomAccessFile file = new RandomAccessFile( pathName , "rw" );
 		
-		for( int t = T_STRT ; t < T_END ; t++ )
+		try
 		{
-			for( int z = Z_STRT ; z < Z_END ; z++ )
+			file.setLength( 0 );
+			file.setLength( dataStart + numPlanes * planeBytes );
+			final FileChannel channel = file.getChannel();
+			
+			if( header != null )
 			{
-				for( int y = Y_STRT ; y < Y_END ; y++ )
+				header.write( channel );
+			}
+			
+			final int nthr = (int)( Math.max( Math.min( numThreads , numPlanes ) , 1 ) );
+			final Thread[] threads = new Thread[ nthr ];
+			final Throwable[] errors = new Throwable[ nthr ];
+			
+			for( int cnt = 0 ; cnt < nthr ; cnt++ )
+			{
+				final int thr = cnt;
+				final long planeStrt = ( numPlanes * thr ) / nthr;
+				final long planeEnd = ( numPlanes * ( thr + 1 ) ) / nthr;
+				threads[ cnt ] = new Thread()
 				{
-					for( int x = X_STRT ; x < X_END ; x++ )
+					@Override
+					public void run()
 					{
-						ds.writeFloat( (float)( getVal( t , x , y , z ) ) );
+						try
+						{
+							writePlanes( channel , dataStart + planeStrt * planeBytes , planeStrt , planeEnd , 
+									numZ , elemType , byteOrder );
+						}
+						catch( Throwable ex )
+						{
+							errors[ thr ] = ex;
+						}
 					}
+				};
+			}
+			
+			if( nthr == 1 )
+			{
+				threads[ 0 ].run();
+			}
+			else
+			{
+				for( final Thread th : threads )
+				{
+					th.start();
+				}
+				for( final Thread th : threads )
+				{
+					th.join();
+				}
+			}
+			
+			for( final Throwable ex : errors )
+			{
+				if( ex != null )
+				{
+					throw( ex );
 				}
 			}
 		}
+		finally
+		{
+			file.close();
+		}
+	}
+	
+	
+	
+	/**
+	 * Writes a contiguous range of (t, z) planes to a file with positional writes.
+	 * 
+	 * @param channel The channel of the file.
+	 * @param strtPos The byte position in the file of the first plane.
+	 * @param planeStrt The index of the first plane to write.
+	 * @param planeEnd The index after the last plane to write.
+	 * @param numZ The number of planes for each T.
+	 * @param elemType The type of the elements to write.
+	 * @param byteOrder The byte order of the elements to write.
+	 * @throws Throwable
+	 */
+	protected void writePlanes( final FileChannel channel , final long strtPos , final long planeStrt , final long planeEnd ,
+			final int numZ , final RawFileHeader.ElemType elemType , final ByteOrder byteOrder ) throws Throwable
+	{
+		final int T_STRT = getTStrt();
+		final int Z_STRT = getZStrt();
+		
+		final int Y_STRT = getYStrt();
+		final int Y_END = getYEnd();
+		
+		final int X_STRT = getXStrt();
+		final int X_END = getXEnd();
 		
-		ds.close();
+		final int elemSize = elemType == RawFileHeader.ElemType.DOUBLE ? 8 : 4;
+		final int bufSize = ( Math.max( bufferSize() , MIN_NIO_BUFFER_SIZE ) / elemSize ) * elemSize;
+		final ByteBuffer buf = ByteBuffer.allocateDirect( bufSize ).order( byteOrder );
 		
+		long pos = strtPos;
+		for( long plane = planeStrt ; plane < planeEnd ; plane++ )
+		{
+			final int t = T_STRT + (int)( plane / numZ );
+			final int z = Z_STRT + (int)( plane % numZ );
+			for( int y = Y_STRT ; y < Y_END ; y++ )
+			{
+				for( int x = X_STRT ; x < X_END ; x++ )
+				{
+					if( !( buf.hasRemaining() ) )
+					{
+						pos = writeBuffer( channel , buf , pos );
+					}
+					if( elemType == RawFileHeader.ElemType.DOUBLE )
+					{
+						buf.putDouble( getVal( t , x , y , z ) );
+					}
+					else
+					{
+						buf.putFloat( (float)( getVal( t , x , y , z ) ) );
+					}
+				}
+			}
+		}
+		
+		writeBuffer( channel , buf , pos );
+	}
+	
+	
+	
+	/**
+	 * Writes the contents of a buffer to a file with positional writes, and clears the buffer.
+	 * 
+	 * @param channel The channel of the file.
+	 * @param buf The buffer to write.
+	 * @param pos The byte position in the file at which to write.
+	 * @return The byte position in the file after the written contents.
+	 * @throws Throwable
+	 */
+	protected static long writeBuffer( final FileChannel channel , final ByteBuffer buf , long pos ) throws Throwable
+	{
+		buf.flip();
+		while( buf.hasRemaining() )
+		{
+			pos += channel.write( buf , pos );
+		}
+		buf.clear();
+		return( pos );
 	}
 	
 	
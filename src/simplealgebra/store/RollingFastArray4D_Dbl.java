@@ -0,0 +1,470 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package simplealgebra.store;
+
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+
+
+
+
+/**
+ * Dense 4-D array of doubles that only keeps a rolling window of the most recent time slices in memory.
+ * Explicit and implicit time-stepping schemes only read the time slices near the one being computed, so
+ * memory use is proportional to the window size times the size of a slice rather than to the whole array.
+ * 
+ * <P> Each time slice in the window is held in an off-heap buffer, and the window is used as a ring buffer
+ * indexed by T modulo the window size.  When a write to a new time slice displaces an older slice, the older
+ * slice is either written asynchronously to a spill array (so that it can still be read later), or dropped if
+ * no spill array was given.  Elements of time slices that have not yet been written read as zero, as in DrFastArray4D_Dbl.
+ * 
+ * <P> As with DrFastArray4D_Dbl, an instance should only be accessed from one thread at a time.
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ */
+public class RollingFastArray4D_Dbl {
+	
+	/**
+	 * The maximum number of displaced time slices that can be waiting to be spilled at once.
+	 */
+	public static final int MAX_PENDING_SPILLS = 2;
+	
+	/**
+	 * The size of a double-precision number in bytes.
+	 */
+	static final int SZ_DBL = 8;
+	
+	/**
+	 * The size of the array along the X-axis.
+	 */
+	int xmax;
+	
+	/**
+	 * The size of the array along the Y-axis.
+	 */
+	int ymax;
+	
+	/**
+	 * The size of the array along the Z-axis.
+	 */
+	int zmax;
+	
+	/**
+	 * The number of elements in each time slice.
+	 */
+	int sliceSize;
+	
+	/**
+	 * The number of time slices kept in memory.
+	 */
+	int window;
+	
+	/**
+	 * The buffers of the time slices in the window, indexed by T modulo the window size.
+	 */
+	DoubleBuffer[] slices;
+	
+	/**
+	 * The T-index of the time slice held in each buffer of the window, or -1 if the buffer holds no time slice.
+	 */
+	int[] sliceT;
+	
+	/**
+	 * The array to which displaced time slices are spilled, or null if displaced time slices are dropped.
+	 */
+	DrFastArray4D_Dbl spill;
+	
+	/**
+	 * The thread that writes displaced time slices to the spill array, or null if there is no spill array.
+	 */
+	ExecutorService spiller = null;
+	
+	/**
+	 * The spills that have been submitted and may not yet have completed.
+	 */
+	ArrayDeque<Future<?>> pendingSpills = new ArrayDeque<Future<?>>();
+	
+	/**
+	 * Buffers that have been spilled and are available for reuse.
+	 */
+	LinkedBlockingQueue<DoubleBuffer> freeBuffers = new LinkedBlockingQueue<DoubleBuffer>();
+	
+	/**
+	 * The number of buffers allocated so far.
+	 */
+	int numAllocated = 0;
+	
+	
+	/**
+	 * Constructs the array.
+	 * 
+	 * @param _param The input parameter.  The cell sizes of the parameter are not used.
+	 * @param _window The number of time slices kept in memory.  For a stencil reading the time slices
+	 * from T - n to T + n this should be at least 2 n + 1.
+	 * @param _spill The array to which displaced time slices are spilled, or null if displaced time slices are to be dropped.
+	 * The spill array is closed when this array is closed.
+	 * @throws Throwable
+	 */
+	public RollingFastArray4D_Dbl( final DbFastArray4D_Param _param , final int _window , final DrFastArray4D_Dbl _spill ) throws Throwable
+	{
+		if( _window <= 0 )
+		{
+			throw( new RuntimeException( "Invalid Window Size" ) );
+		}
+		
+		xmax = _param.getXmax();
+		ymax = _param.getYmax();
+		zmax = _param.getZmax();
+		
+		final long sz = ( (long) xmax ) * ( (long) ymax ) * ( (long) zmax );
+		if( sz * SZ_DBL > Integer.MAX_VALUE )
+		{
+			throw( new RuntimeException( "Time Slice Too Large" ) );
+		}
+		sliceSize = (int) sz;
+		
+		window = _window;
+		slices = new DoubleBuffer[ window ];
+		sliceT = new int[ window ];
+		for( int cnt = 0 ; cnt < window ; cnt++ )
+		{
+			sliceT[ cnt ] = -1;
+		}
+		
+		spill = _spill;
+		if( spill != null )
+		{
+			spiller = Executors.newSingleThreadExecutor( new ThreadFactory()
+			{
+				@Override
+				public Thread newThread( Runnable r )
+				{
+					final Thread th = new Thread( r , "RollingFastArray4D_Dbl spill" );
+					th.setDaemon( true );
+					return( th );
+				}
+			} );
+		}
+	}
+	
+	
+	
+	/**
+	 * Returns the index of an element within a time slice.
+	 * 
+	 * @param x The X-Axis index.
+	 * @param y The Y-Axis index.
+	 * @param z The Z-Axis index.
+	 * @return The index within the time slice.
+	 */
+	protected int sliceIndex( int x , int y , int z )
+	{
+		return( ( x * ymax + y ) * zmax + z );
+	}
+	
+	
+	
+	/**
+	 * Returns the double at the index.
+	 * 
+	 * @param t The T-Axis index.
+	 * @param x The X-Axis index.
+	 * @param y The Y-Axis index.
+	 * @param z The Z-Axis index.
+	 * @return The double at the index.
+	 * @throws Throwable
+	 */
+	public double get( int t , int x , int y , int z ) throws Throwable
+	{
+		final int slot = t % window;
+		final int st = sliceT[ slot ];
+		
+		if( st == t )
+		{
+			return( slices[ slot ].get( sliceIndex( x , y , z ) ) );
+		}
+		
+		if( t > st )
+		{
+			// The time slice has not yet been written.
+			return( 0.0 );
+		}
+		
+		if( spill == null )
+		{
+			throw( new RuntimeException( "Time Slice No Longer Available" ) );
+		}
+		
+		waitSpills();
+		return( spill.get( t , x , y , z ) );
+	}
+	
+	
+	
+	/**
+	 * Sets a double at an index.
+	 * 
+	 * @param t The T-Axis index.
+	 * @param x The X-Axis index.
+	 * @param y The Y-Axis index.
+	 * @param z The Z-Axis index.
+	 * @param val The value to be set.
+	 * @throws Throwable
+	 */
+	public void set( int t , int x , int y , int z , double val ) throws Throwable
+	{
+		final int slot = t % window;
+		final int st = sliceT[ slot ];
+		
+		if( st == t )
+		{
+			slices[ slot ].put( sliceIndex( x , y , z ) , val );
+			return;
+		}
+		
+		if( t > st )
+		{
+			advance( slot , t );
+			slices[ slot ].put( sliceIndex( x , y , z ) , val );
+			return;
+		}
+		
+		if( spill == null )
+		{
+			throw( new RuntimeException( "Time Slice No Longer Available" ) );
+		}
+		
+		waitSpills();
+		spill.set( t , x , y , z , val );
+	}
+	
+	
+	
+	/**
+	 * Displaces the time slice in a buffer of the window with a new zeroed time slice.
+	 * 
+	 * @param slot The index of the buffer in the window.
+	 * @param t The T-Axis index of the new time slice.
+	 * @throws Throwable
+	 */
+	protected void advance( final int slot , final int t ) throws Throwable
+	{
+		final DoubleBuffer old = slices[ slot ];
+		final int oldT = sliceT[ slot ];
+		
+		if( ( old != null ) && ( spill != null ) )
+		{
+			submitSpill( old , oldT , true );
+			slices[ slot ] = acquireBuffer();
+		}
+		else if( old == null )
+		{
+			slices[ slot ] = acquireBuffer();
+		}
+		
+		final DoubleBuffer buf = slices[ slot ];
+		for( int cnt = 0 ; cnt < sliceSize ; cnt++ )
+		{
+			buf.put( cnt , 0.0 );
+		}
+		sliceT[ slot ] = t;
+	}
+	
+	
+	
+	/**
+	 * Gets a buffer for a time slice, waiting for a pending spill to release a buffer if too many buffers are in use.
+	 * 
+	 * @return The buffer.
+	 * @throws Throwable
+	 */
+	protected DoubleBuffer acquireBuffer() throws Throwable
+	{
+		final DoubleBuffer buf = freeBuffers.poll();
+		if( buf != null )
+		{
+			return( buf );
+		}
+		
+		if( numAllocated < window + MAX_PENDING_SPILLS )
+		{
+			numAllocated++;
+			return( ByteBuffer.allocateDirect( sliceSize * SZ_DBL ).order( ByteOrder.nativeOrder() ).asDoubleBuffer() );
+		}
+		
+		final Future<?> oldest = pendingSpills.poll();
+		if( oldest != null )
+		{
+			oldest.get();
+		}
+		return( freeBuffers.take() );
+	}
+	
+	
+	
+	/**
+	 * Submits a time slice to be written to the spill array.
+	 * 
+	 * @param buf The buffer of the time slice.
+	 * @param t The T-Axis index of the time slice.
+	 * @param release Whether to make the buffer available for reuse after it is written.
+	 * @throws Throwable
+	 */
+	protected void submitSpill( final DoubleBuffer buf , final int t , final boolean release ) throws Throwable
+	{
+		while( ( !( pendingSpills.isEmpty() ) ) && ( pendingSpills.peek().isDone() ) )
+		{
+			// Rethrows any failure of a completed spill.
+			pendingSpills.poll().get();
+		}
+		
+		pendingSpills.add( spiller.submit( new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				try
+				{
+					for( int x = 0 ; x < xmax ; x++ )
+					{
+						for( int y = 0 ; y < ymax ; y++ )
+						{
+							for( int z = 0 ; z < zmax ; z++ )
+							{
+								spill.set( t , x , y , z , buf.get( sliceIndex( x , y , z ) ) );
+							}
+						}
+					}
+				}
+				catch( RuntimeException ex )
+				{
+					throw( ex );
+				}
+				catch( Throwable ex )
+				{
+					throw( new RuntimeException( ex ) );
+				}
+				finally
+				{
+					if( release )
+					{
+						freeBuffers.add( buf );
+					}
+				}
+			}
+		} ) );
+	}
+	
+	
+	
+	/**
+	 * Waits for all pending spills to complete.
+	 * 
+	 * @throws Throwable
+	 */
+	protected void waitSpills() throws Throwable
+	{
+		while( !( pendingSpills.isEmpty() ) )
+		{
+			pendingSpills.poll().get();
+		}
+	}
+	
+	
+	
+	/**
+	 * Flushes the contents of the previous spills of displaced time slices.
+	 * 
+	 * @throws Throwable
+	 */
+	public void flush( ) throws Throwable
+	{
+		if( spill != null )
+		{
+			waitSpills();
+			spill.flush();
+		}
+	}
+	
+	
+	
+	/**
+	 * Closes the array.  If there is a spill array, the time slices remaining in the window
+	 * are written to the spill array before it is closed.
+	 * 
+	 * @throws Throwable
+	 */
+	public void close() throws Throwable
+	{
+		if( spill != null )
+		{
+			for( int cnt = 0 ; cnt < window ; cnt++ )
+			{
+				if( slices[ cnt ] != null )
+				{
+					submitSpill( slices[ cnt ] , sliceT[ cnt ] , false );
+				}
+			}
+			waitSpills();
+			spiller.shutdown();
+			spill.close();
+			spill = null;
+		}
+		for( int cnt = 0 ; cnt < window ; cnt++ )
+		{
+			slices[ cnt ] = null;
+			sliceT[ cnt ] = -1;
+		}
+		freeBuffers.clear();
+	}
+	
+	
+	
+	/**
+	 * Gets the number of time slices kept in memory.
+	 * 
+	 * @return The number of time slices kept in memory.
+	 */
+	public int getWindow() {
+		return window;
+	}
+	
+	
+}
+
+
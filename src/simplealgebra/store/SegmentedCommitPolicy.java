@@ -0,0 +1,173 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package simplealgebra.store;
+
+
+
+
+/**
+ * Policy deciding when a SegmentedTransactionManager segments (temporarily commits) its transaction.  The policy is
+ * consulted after each operation recorded by the manager (each write, and each access checked by the MemoryClearingSystem),
+ * with the size and age of the current segment of the transaction.
+ * The transaction is also segmented at each explicit barrier, regardless of the policy.
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ */
+public abstract class SegmentedCommitPolicy {
+	
+	
+	/**
+	 * Returns whether the transaction should be segmented.
+	 * 
+	 * @param ops The number of operations in the current segment of the transaction.
+	 * @param bytes The number of bytes written in the current segment of the transaction.
+	 * @param elapsedNanos The time since the current segment of the transaction began in nanoseconds.
+	 * @return True iff. the transaction should be segmented.
+	 */
+	public abstract boolean shouldCommit( long ops , long bytes , long elapsedNanos );
+	
+	
+	
+	/**
+	 * Gets a policy that segments the transaction after a number of operations.
+	 * 
+	 * @param maxOps The number of operations after which to segment the transaction.
+	 * @return The policy.
+	 */
+	public static SegmentedCommitPolicy opsCount( final long maxOps )
+	{
+		return( new SegmentedCommitPolicy()
+		{
+			@Override
+			public boolean shouldCommit( long ops , long bytes , long elapsedNanos )
+			{
+				return( ops >= maxOps );
+			}
+		} );
+	}
+	
+	
+	
+	/**
+	 * Gets a policy that segments the transaction after a number of bytes has been written.
+	 * 
+	 * @param maxBytes The number of bytes after which to segment the transaction.
+	 * @return The policy.
+	 */
+	public static SegmentedCommitPolicy bytesWritten( final long maxBytes )
+	{
+		return( new SegmentedCommitPolicy()
+		{
+			@Override
+			public boolean shouldCommit( long ops , long bytes , long elapsedNanos )
+			{
+				return( bytes >= maxBytes );
+			}
+		} );
+	}
+	
+	
+	
+	/**
+	 * Gets a policy that segments the transaction at the first operation after a time interval has elapsed.
+	 * 
+	 * @param maxMillis The interval in milliseconds.
+	 * @return The policy.
+	 */
+	public static SegmentedCommitPolicy elapsedTime( final long maxMillis )
+	{
+		final long maxNanos = maxMillis * 1000000L;
+		return( new SegmentedCommitPolicy()
+		{
+			@Override
+			public boolean shouldCommit( long ops , long bytes , long elapsedNanos )
+			{
+				return( elapsedNanos >= maxNanos );
+			}
+		} );
+	}
+	
+	
+	
+	/**
+	 * Gets a policy that only segments the transaction at explicit barriers.
+	 * 
+	 * @return The policy.
+	 */
+	public static SegmentedCommitPolicy barrier()
+	{
+		return( BARRIER );
+	}
+	
+	
+	
+	/**
+	 * Gets a policy that segments the transaction when any of a set of policies would.
+	 * 
+	 * @param policies The policies.
+	 * @return The combined policy.
+	 */
+	public static SegmentedCommitPolicy any( final SegmentedCommitPolicy... policies )
+	{
+		return( new SegmentedCommitPolicy()
+		{
+			@Override
+			public boolean shouldCommit( long ops , long bytes , long elapsedNanos )
+			{
+				for( final SegmentedCommitPolicy policy : policies )
+				{
+					if( policy.shouldCommit( ops , bytes , elapsedNanos ) )
+					{
+						return( true );
+					}
+				}
+				return( false );
+			}
+		} );
+	}
+	
+	
+	
+	/**
+	 * The policy that only segments the transaction at explicit barriers.
+	 */
+	private static final SegmentedCommitPolicy BARRIER = new SegmentedCommitPolicy()
+	{
+		@Override
+		public boolean shouldCommit( long ops , long bytes , long elapsedNanos )
+		{
+			return( false );
+		}
+	};
+	
+	
+}
+
+
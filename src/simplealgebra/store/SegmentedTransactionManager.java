@@ -33,6 +33,9 @@ package simplealgebra.store;
 
 
 
+import java.util.IdentityHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.hypergraphdb.*;
 
 
@@ -41,16 +44,154 @@ import org.hypergraphdb.*;
  * Manages a transaction that temporarily commits (and hence releases the memory associated with the transaction) 
  * at the point the VM runs out of memory.
  * 
+ * <P> HyperGraphDB transactions are bound to a thread, so there is one manager for each graph on each thread, and
+ * independent solvers can run against separate graphs (or on separate threads) without sharing transaction state.
+ * Besides the segments made by the MemoryClearingSystem under memory pressure, a manager segments its transaction according
+ * to a pluggable SegmentedCommitPolicy consulted at each recorded operation, and at each explicit barrier.  An operation is
+ * either a write, recorded with the number of bytes written, or an access checked by the MemoryClearingSystem.  Unless a policy
+ * is set on the manager itself, the manager uses the default policy of its graph, which is set when memory clearing is
+ * initialized for the graph (or with {@link #setDefaultCommitPolicy(HyperGraph, SegmentedCommitPolicy)}), and only segments
+ * at explicit barriers if none has been set.  The static methods act on the current thread's manager for a graph.
+ * 
  * This documentation should be viewed using Firefox version 33.1.1 or above.
  * 
  * @author thorngreen
  */
 public class SegmentedTransactionManager {
 	
+	/**
+	 * The number of bytes recorded for a write of an atom whose serialized size is not known, such as an object of arbitrary type.
+	 */
+	public static final long ATOM_WRITE_BYTES = 64L;
+	
+	/**
+	 * The number of bytes recorded for each persistent handle in a written array of handles.
+	 */
+	public static final long HANDLE_BYTES = 16L;
+	
+	/**
+	 * The graph over which the transaction is executed.
+	 */
+	protected final HyperGraph graph;
+	
 	/**
 	 * Stores whether a segmented transaction is in progress.
 	 */
-	protected static boolean inSegmentedTransaction = false;
+	protected boolean inSegmentedTransaction = false;
+	
+	/**
+	 * The policy deciding when the transaction is segmented, or null to use the default policy of the graph.
+	 */
+	protected SegmentedCommitPolicy commitPolicy = null;
+	
+	/**
+	 * The number of operations in the current segment of the transaction.
+	 */
+	protected long segmentOps = 0;
+	
+	/**
+	 * The number of bytes written in the current segment of the transaction.
+	 */
+	protected long segmentBytes = 0;
+	
+	/**
+	 * The time at which the current segment of the transaction began.
+	 */
+	protected long segmentStartNanos = 0;
+	
+	/**
+	 * The number of commits, including the commits segmenting the transaction.
+	 */
+	protected long commits = 0;
+	
+	/**
+	 * The number of aborts.
+	 */
+	protected long aborts = 0;
+	
+	/**
+	 * The total number of operations in committed segments.
+	 */
+	protected long committedOps = 0;
+	
+	/**
+	 * The total number of bytes written in committed segments.
+	 */
+	protected long committedBytes = 0;
+	
+	
+	
+	/**
+	 * Constructs the manager.
+	 * 
+	 * @param _graph The graph over which the transaction is executed.
+	 */
+	protected SegmentedTransactionManager( final HyperGraph _graph )
+	{
+		graph = _graph;
+	}
+	
+	
+	/**
+	 * Gets the current thread's manager for a graph.
+	 * 
+	 * @param graph The graph over which the transaction is executed.
+	 * @return The manager.
+	 */
+	public static SegmentedTransactionManager get( HyperGraph graph )
+	{
+		final IdentityHashMap<HyperGraph,SegmentedTransactionManager> map = managers.get();
+		SegmentedTransactionManager mgr = map.get( graph );
+		if( mgr == null )
+		{
+			mgr = new SegmentedTransactionManager( graph );
+			map.put( graph , mgr );
+		}
+		return( mgr );
+	}
+	
+	
+	/**
+	 * Sets the default commit policy of a graph, used by the managers of all threads for the graph that do not have their own policy.
+	 * 
+	 * @param graph The graph.
+	 * @param commitPolicy The default commit policy, or null to only segment transactions at explicit barriers.
+	 */
+	public static void setDefaultCommitPolicy( HyperGraph graph , SegmentedCommitPolicy commitPolicy )
+	{
+		if( commitPolicy != null )
+		{
+			defaultPolicies.put( graph , commitPolicy );
+		}
+		else
+		{
+			defaultPolicies.remove( graph );
+		}
+	}
+	
+	
+	/**
+	 * Gets the default commit policy of a graph.
+	 * 
+	 * @param graph The graph.
+	 * @return The default commit policy.
+	 */
+	public static SegmentedCommitPolicy getDefaultCommitPolicy( HyperGraph graph )
+	{
+		final SegmentedCommitPolicy ret = defaultPolicies.get( graph );
+		return( ret != null ? ret : SegmentedCommitPolicy.barrier() );
+	}
+	
+	
+	/**
+	 * Discards the current thread's manager for a graph, for instance before the graph is closed.
+	 * 
+	 * @param graph The graph over which the transaction was executed.
+	 */
+	public static void release( HyperGraph graph )
+	{
+		managers.get().remove( graph );
+	}
 	
 	
 	/**
@@ -60,8 +201,7 @@ public class SegmentedTransactionManager {
 	 */
 	public static void beginSegmentedTransaction( HyperGraph graph )
 	{
-		graph.getTransactionManager().beginTransaction();
-		inSegmentedTransaction = true;
+		get( graph ).begin();
 	}
 	
 	
@@ -72,8 +212,7 @@ public class SegmentedTransactionManager {
 	 */
 	public static void commitSegmentedTransaction( HyperGraph graph )
 	{
-		graph.getTransactionManager().commit();
-		inSegmentedTransaction = false;
+		get( graph ).commit();
 	}
 	
 	
@@ -86,10 +225,7 @@ public class SegmentedTransactionManager {
 	 */
 	public static void suspendSegmentedTransaction( HyperGraph graph )
 	{
-		if( inSegmentedTransaction )
-		{
-			graph.getTransactionManager().commit();
-		}
+		get( graph ).suspend();
 	}
 	
 	
@@ -101,14 +237,266 @@ public class SegmentedTransactionManager {
 	 * @param graph The graph over which to execute the transaction.
 	 */
 	public static void restartSegmentedTransaction( HyperGraph graph )
+	{
+		get( graph ).restart();
+	}
+	
+	
+	/**
+	 * Records a write to the graph, segmenting the transaction if the commit policy calls for it.
+	 * 
+	 * @param graph The graph over which the transaction is executed.
+	 * @param bytes The number of bytes written.
+	 */
+	public static void recordWrite( HyperGraph graph , long bytes )
+	{
+		get( graph ).recordWrite( bytes );
+	}
+
+	
+	
+	/**
+	 * Estimates the number of bytes written when an object is stored in the graph, for recording the write.
+	 * 
+	 * @param obj The object stored.
+	 * @return The estimated number of bytes.
+	 */
+	public static long estimateWriteBytes( Object obj )
+	{
+		if( obj instanceof double[] )
+		{
+			return( 8L * ( (double[]) obj ).length );
+		}
+		if( obj instanceof HGHandle[] )
+		{
+			return( HANDLE_BYTES * ( (HGHandle[]) obj ).length );
+		}
+		if( obj instanceof Object[] )
+		{
+			return( ATOM_WRITE_BYTES * ( (Object[]) obj ).length );
+		}
+		return( ATOM_WRITE_BYTES );
+	}
+	
+	
+	/**
+	 * Segments the transaction at an explicit barrier, for instance at the end of a time step.
+	 * 
+	 * @param graph The graph over which the transaction is executed.
+	 */
+	public static void barrier( HyperGraph graph )
+	{
+		get( graph ).barrier();
+	}
+	
+	
+	
+	/**
+	 * Begins the segmented transaction.
+	 */
+	public void begin()
+	{
+		graph.getTransactionManager().beginTransaction();
+		inSegmentedTransaction = true;
+		startSegment();
+	}
+	
+	
+	/**
+	 * Commits the segmented transaction.
+	 */
+	public void commit()
+	{
+		graph.getTransactionManager().commit();
+		inSegmentedTransaction = false;
+		endSegment();
+	}
+	
+	
+	/**
+	 * Aborts the segmented transaction, discarding the writes since the last segment.
+	 */
+	public void abort()
+	{
+		graph.getTransactionManager().abort();
+		inSegmentedTransaction = false;
+		aborts++;
+		startSegment();
+	}
+	
+	
+	/**
+	 * Segments (temporarily commits) the transaction, if one is in progress.
+	 */
+	public void suspend()
+	{
+		if( inSegmentedTransaction )
+		{
+			graph.getTransactionManager().commit();
+			endSegment();
+		}
+	}
+	
+	
+	/**
+	 * Restarts the segmented transaction after it has been suspended, if one is in progress.
+	 */
+	public void restart()
 	{
 		if( inSegmentedTransaction )
 		{
 			graph.getTransactionManager().beginTransaction();
+			startSegment();
 		}
 	}
 	
+	
+	/**
+	 * Records a write to the graph, segmenting the transaction if the commit policy calls for it.  An access
+	 * to the graph is recorded as a write of zero bytes.
+	 * 
+	 * @param bytes The number of bytes written.
+	 */
+	public void recordWrite( long bytes )
+	{
+		segmentOps++;
+		segmentBytes += bytes;
+		if( inSegmentedTransaction && 
+				getCommitPolicy().shouldCommit( segmentOps , segmentBytes , System.nanoTime() - segmentStartNanos ) )
+		{
+			suspend();
+			restart();
+		}
+	}
+	
+	
+	/**
+	 * Segments the transaction at an explicit barrier, for instance at the end of a time step.
+	 */
+	public void barrier()
+	{
+		suspend();
+		restart();
+	}
+	
+	
+	/**
+	 * Starts counting the operations of a new segment of the transaction.
+	 */
+	protected void startSegment()
+	{
+		segmentOps = 0;
+		segmentBytes = 0;
+		segmentStartNanos = System.nanoTime();
+	}
+	
+	
+	/**
+	 * Adds the operations of a committed segment of the transaction to the totals.
+	 */
+	protected void endSegment()
+	{
+		commits++;
+		committedOps += segmentOps;
+		committedBytes += segmentBytes;
+		startSegment();
+	}
+	
+	
+	
+	/**
+	 * Gets whether a segmented transaction is in progress.
+	 * 
+	 * @return True iff. a segmented transaction is in progress.
+	 */
+	public boolean isInSegmentedTransaction() {
+		return( inSegmentedTransaction );
+	}
+	
+	
+	/**
+	 * Gets the policy deciding when the transaction is segmented.
+	 * 
+	 * @return The commit policy.
+	 */
+	public SegmentedCommitPolicy getCommitPolicy() {
+		return( commitPolicy != null ? commitPolicy : getDefaultCommitPolicy( graph ) );
+	}
+	
+	
+	/**
+	 * Sets the policy deciding when the transaction is segmented.
+	 * 
+	 * @param commitPolicy The commit policy, or null to use the default policy of the graph.
+	 */
+	public void setCommitPolicy(SegmentedCommitPolicy commitPolicy) {
+		this.commitPolicy = commitPolicy;
+	}
+	
+	
+	/**
+	 * Gets the number of commits, including the commits segmenting the transaction.
+	 * 
+	 * @return The number of commits.
+	 */
+	public long getCommits() {
+		return( commits );
+	}
+	
+	
+	/**
+	 * Gets the number of aborts.
+	 * 
+	 * @return The number of aborts.
+	 */
+	public long getAborts() {
+		return( aborts );
+	}
+	
+	
+	/**
+	 * Gets the mean number of operations per committed segment of the transaction.
+	 * 
+	 * @return The mean number of operations, or zero if nothing has been committed.
+	 */
+	public double getMeanTransactionOps() {
+		return( commits > 0 ? ( (double) committedOps ) / commits : 0.0 );
+	}
+	
+	
+	/**
+	 * Gets the mean number of bytes written per committed segment of the transaction.
+	 * 
+	 * @return The mean number of bytes, or zero if nothing has been committed.
+	 */
+	public double getMeanTransactionBytes() {
+		return( commits > 0 ? ( (double) committedBytes ) / commits : 0.0 );
+	}
+	
+	
+	
+	/**
+	 * Map from each graph to its default commit policy.
+	 */
+	private static final ConcurrentHashMap<HyperGraph,SegmentedCommitPolicy> defaultPolicies =
+			new ConcurrentHashMap<HyperGraph,SegmentedCommitPolicy>();
+	
+	
+	/**
+	 * The per-thread map from each graph to its manager.
+	 */
+	private static final ThreadLocal<IdentityHashMap<HyperGraph,SegmentedTransactionManager>> managers =
+			new ThreadLocal<IdentityHashMap<HyperGraph,SegmentedTransactionManager>>()
+			{
+				@Override
+				protected IdentityHashMap<HyperGraph,SegmentedTransactionManager> initialValue()
+				{
+					return( new IdentityHashMap<HyperGraph,SegmentedTransactionManager>() );
+				}
+			};
+	
 
 	
 }
 
+
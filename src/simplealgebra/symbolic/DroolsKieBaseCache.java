@@ -0,0 +1,335 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package simplealgebra.symbolic;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.drools.core.util.DroolsStreamUtils;
+import org.kie.api.KieBase;
+import org.kie.api.KieServices;
+import org.kie.api.builder.KieBuilder;
+import org.kie.api.builder.KieFileSystem;
+import org.kie.api.builder.Message;
+import org.kie.api.builder.Results;
+import org.kie.api.runtime.KieContainer;
+import org.kie.internal.io.ResourceFactory;
+
+import simplealgebra.Elem;
+
+
+/**
+ * Builds the Drools ( <A href="http://drools.org">http://drools.org</A> ) containers used for algebraic simplification, and
+ * stores the compiled knowledge bases in an on-disk cache so that the rules are compiled once rather than on first use in every JVM.
+ * 
+ * <P> Each cache entry is keyed on a digest of the rule files (including the logging rules when logging is turned on)
+ * and of the Drools version, so an entry is never loaded against rules that have since changed.  Entries are written
+ * to a temporary file and then moved into place, so that multiple processes of a batch job can share a cache directory.
+ * 
+ * <P> The cache directory is set by the system property {@link #CACHE_DIR_PROPERTY}, and defaults to a directory
+ * under <code>java.io.tmpdir</code>.  Setting the property to an empty string turns the cache off.  Running
+ * {@link #main(String[])} precompiles the knowledge bases into the cache as a build step.
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ *
+ */
+public class DroolsKieBaseCache {
+
+	/**
+	 * The system property for the cache directory.
+	 */
+	public static final String CACHE_DIR_PROPERTY = "simplealgebra.kiebase.cache.dir";
+
+	/**
+	 * The default name of the cache directory under <code>java.io.tmpdir</code>.
+	 */
+	public static final String DEFAULT_CACHE_DIR_NAME = "simplealgebra_kiebase";
+
+	/**
+	 * The file name of the rules for the reng support.
+	 */
+	public static final String RENG_DRL = "reng.drl";
+
+	/**
+	 * The file name of the logging rules.
+	 */
+	public static final String LOGGING_DRL = "logging.drl";
+
+
+	/**
+	 * Builds a Drools container from the reng support and a set of simplification rules.
+	 * 
+	 * @param simplifyDrl The file name of the simplification rules.
+	 * @return The Drools container.
+	 */
+	public static KieContainer buildKieContainer( final String simplifyDrl )
+	{
+		KieServices kieServices = KieServices.Factory.get();
+	    KieFileSystem kfs = kieServices.newKieFileSystem();
+
+	    // Load in the reng support as a separate cross-cutting concern.
+	    kfs.write( "src/main/resources/" + RENG_DRL ,
+	    		ResourceFactory.newClassPathResource( RENG_DRL )  );
+
+	    kfs.write( "src/main/resources/" + simplifyDrl ,
+	    		ResourceFactory.newClassPathResource( simplifyDrl )  );
+
+		if( LoggingConfiguration.LOGGING_ON )
+		{
+			kfs.write( "src/main/resources/" + LOGGING_DRL ,
+		    		ResourceFactory.newClassPathResource( LOGGING_DRL )  );
+
+		}
+
+		KieBuilder kieBuilder = kieServices.newKieBuilder( kfs ).buildAll();
+	    Results results = kieBuilder.getResults();
+	    if( results.hasMessages( Message.Level.ERROR ) )
+	    {
+	        throw new RuntimeException( results.getMessages().toString() );
+	    }
+
+	    KieContainer kieContainer =
+	        kieServices.newKieContainer( kieServices.getRepository().getDefaultReleaseId() );
+	    return( kieContainer );
+	}
+
+
+	/**
+	 * Loads a compiled knowledge base from the cache.
+	 * 
+	 * @param simplifyDrl The file name of the simplification rules.
+	 * @return The knowledge base, or null if the cache is turned off or contains no readable entry for the rules.
+	 */
+	public static KieBase loadKieBase( final String simplifyDrl )
+	{
+		final File fi = getCacheFile( simplifyDrl );
+		if( ( fi == null ) || !( fi.isFile() ) )
+		{
+			return( null );
+		}
+
+		try
+		{
+			final FileInputStream in = new FileInputStream( fi );
+			try
+			{
+				return( (KieBase)( DroolsStreamUtils.streamIn( in , Elem.class.getClassLoader() ) ) );
+			}
+			finally
+			{
+				in.close();
+			}
+		}
+		catch( IOException ex )
+		{
+			/*
+			 * Entries that cannot be read (for instance entries written by an incompatible build)
+			 * are treated as missing, and are overwritten after the rules are compiled.
+			 */
+			return( null );
+		}
+		catch( ClassNotFoundException ex )
+		{
+			return( null );
+		}
+		catch( ClassCastException ex )
+		{
+			return( null );
+		}
+	}
+
+
+	/**
+	 * Stores a compiled knowledge base in the cache.  Failures to write the cache are ignored,
+	 * since the knowledge base can always be rebuilt from the rules.
+	 * 
+	 * @param simplifyDrl The file name of the simplification rules.
+	 * @param kieBase The knowledge base to be stored.
+	 */
+	public static void saveKieBase( final String simplifyDrl , final KieBase kieBase )
+	{
+		final File fi = getCacheFile( simplifyDrl );
+		if( fi == null )
+		{
+			return;
+		}
+
+		try
+		{
+			fi.getParentFile().mkdirs();
+			final File tmp = File.createTempFile( fi.getName() , ".tmp" , fi.getParentFile() );
+			try
+			{
+				final FileOutputStream out = new FileOutputStream( tmp );
+				try
+				{
+					DroolsStreamUtils.streamOut( out , kieBase );
+				}
+				finally
+				{
+					out.close();
+				}
+				Files.move( tmp.toPath() , fi.toPath() , StandardCopyOption.REPLACE_EXISTING , StandardCopyOption.ATOMIC_MOVE );
+			}
+			finally
+			{
+				tmp.delete();
+			}
+		}
+		catch( Throwable ex )
+		{
+			// ex.printStackTrace( System.out );
+		}
+	}
+
+
+	/**
+	 * Gets the cache directory.
+	 * 
+	 * @return The cache directory, or null if the cache is turned off.
+	 */
+	public static File getCacheDir()
+	{
+		final String dir = System.getProperty( CACHE_DIR_PROPERTY );
+		if( dir == null )
+		{
+			return( new File( System.getProperty( "java.io.tmpdir" ) , DEFAULT_CACHE_DIR_NAME ) );
+		}
+		if( dir.length() == 0 )
+		{
+			return( null );
+		}
+		return( new File( dir ) );
+	}
+
+
+	/**
+	 * Gets the cache file for a set of simplification rules.
+	 * 
+	 * @param simplifyDrl The file name of the simplification rules.
+	 * @return The cache file, or null if the cache is turned off.
+	 */
+	protected static File getCacheFile( final String simplifyDrl )
+	{
+		final File dir = getCacheDir();
+		if( dir == null )
+		{
+			return( null );
+		}
+
+		try
+		{
+			final MessageDigest md = MessageDigest.getInstance( "SHA-256" );
+			md.update( String.valueOf( KieServices.class.getPackage() != null ?
+					KieServices.class.getPackage().getImplementationVersion() : null ).getBytes( "UTF-8" ) );
+			digestResource( md , RENG_DRL );
+			digestResource( md , simplifyDrl );
+			if( LoggingConfiguration.LOGGING_ON )
+			{
+				digestResource( md , LOGGING_DRL );
+			}
+
+			final StringBuilder name = new StringBuilder( simplifyDrl );
+			name.append( "_" );
+			for( final byte b : md.digest() )
+			{
+				name.append( String.format( "%02x" , b ) );
+			}
+			name.append( ".kbase" );
+			return( new File( dir , name.toString() ) );
+		}
+		catch( IOException ex )
+		{
+			return( null );
+		}
+		catch( NoSuchAlgorithmException ex )
+		{
+			return( null );
+		}
+	}
+
+
+	/**
+	 * Adds the contents of a classpath resource to a digest.
+	 * 
+	 * @param md The digest.
+	 * @param resource The name of the classpath resource.
+	 * @throws IOException
+	 */
+	protected static void digestResource( final MessageDigest md , final String resource ) throws IOException
+	{
+		final InputStream in = Elem.class.getClassLoader().getResourceAsStream( resource );
+		if( in == null )
+		{
+			throw( new IOException( "Resource Not Found: " + resource ) );
+		}
+		try
+		{
+			final byte[] buf = new byte[ 8192 ];
+			int len = in.read( buf );
+			while( len >= 0 )
+			{
+				md.update( buf , 0 , len );
+				len = in.read( buf );
+			}
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+
+	/**
+	 * Precompiles the knowledge bases for algebraic simplification into the cache.
+	 * 
+	 * @param args Not used.
+	 */
+	public static void main( String[] args )
+	{
+		if( getCacheDir() == null )
+		{
+			throw( new RuntimeException( "Cache Turned Off" ) );
+		}
+		Elem.getDistributeSimplifyKieBase();
+		Elem.getDistributeSimplify2KieBase();
+		System.out.println( "Cached in: " + getCacheDir() );
+	}
+
+
+}
+
@@ -0,0 +1,202 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package simplealgebra.symbolic;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+import org.kie.api.KieBase;
+import org.kie.api.event.rule.AgendaEventListener;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.FactHandle;
+
+
+/**
+ * Bounded per-thread pool of reusable Drools ( <A href="http://drools.org">http://drools.org</A> ) sessions.  Creating a
+ * session for each simplification is expensive when many small expressions are simplified in succession (for instance
+ * when setting up the functions and the Jacobian of a Newton-Raphson solver), so sessions are reset and kept for reuse.
+ * 
+ * <P> A session is reset by deleting all of its facts and removing all of its agenda event listeners.  The
+ * simplification rules keep no other state between calls to <code>fireAllRules()</code>, so a reset session behaves
+ * in the same way as a new session.  Since each thread has its own pool, a session is never shared between threads.
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ *
+ */
+public class DroolsSessionPool {
+
+	/**
+	 * The maximum number of idle sessions kept per thread for each knowledge base.
+	 */
+	public static final int MAX_POOLED_SESSIONS = 4;
+
+
+	/**
+	 * Gets a session for a knowledge base, reusing an idle session from the current thread's pool if possible.
+	 * 
+	 * @param kieBase The knowledge base.
+	 * @return The session.
+	 */
+	public static KieSession acquire( final KieBase kieBase )
+	{
+		final ArrayDeque<KieSession> pool = getPool( kieBase );
+		final KieSession ret = pool.pollLast();
+		if( ret != null )
+		{
+			return( ret );
+		}
+		return( kieBase.newKieSession() );
+	}
+
+
+	/**
+	 * Returns a session to the current thread's pool after it has been used.  The session is
+	 * disposed if it cannot be reset or if the pool is full.
+	 * 
+	 * @param kieBase The knowledge base from which the session was acquired.
+	 * @param session The session.
+	 */
+	public static void release( final KieBase kieBase , final KieSession session )
+	{
+		final ArrayDeque<KieSession> pool = getPool( kieBase );
+		if( pool.size() >= MAX_POOLED_SESSIONS )
+		{
+			discard( session );
+			return;
+		}
+
+		try
+		{
+			reset( session );
+		}
+		catch( RuntimeException ex )
+		{
+			discard( session );
+			return;
+		}
+
+		pool.addLast( session );
+	}
+
+
+	/**
+	 * Disposes a session that should not be reused, for instance after running out of memory.
+	 * 
+	 * @param session The session.
+	 */
+	public static void discard( final KieSession session )
+	{
+		try
+		{
+			if( session != null )
+			{
+				session.dispose();
+			}
+		}
+		catch( Throwable ex )
+		{
+			// ex.printStackTrace( System.out );
+		}
+	}
+
+
+	/**
+	 * Disposes all idle sessions in the current thread's pool.
+	 */
+	public static void clear()
+	{
+		for( final ArrayDeque<KieSession> pool : pools.get().values() )
+		{
+			for( final KieSession session : pool )
+			{
+				discard( session );
+			}
+		}
+		pools.get().clear();
+	}
+
+
+	/**
+	 * Resets a session so that it can be reused.
+	 * 
+	 * @param session The session.
+	 */
+	protected static void reset( final KieSession session )
+	{
+		final ArrayList<FactHandle> handles = new ArrayList<FactHandle>( session.getFactHandles() );
+		for( final FactHandle handle : handles )
+		{
+			session.delete( handle );
+		}
+
+		final ArrayList<AgendaEventListener> listeners = new ArrayList<AgendaEventListener>( session.getAgendaEventListeners() );
+		for( final AgendaEventListener listener : listeners )
+		{
+			session.removeEventListener( listener );
+		}
+	}
+
+
+	/**
+	 * Gets the current thread's pool for a knowledge base.
+	 * 
+	 * @param kieBase The knowledge base.
+	 * @return The pool.
+	 */
+	protected static ArrayDeque<KieSession> getPool( final KieBase kieBase )
+	{
+		final IdentityHashMap<KieBase,ArrayDeque<KieSession>> map = pools.get();
+		ArrayDeque<KieSession> pool = map.get( kieBase );
+		if( pool == null )
+		{
+			pool = new ArrayDeque<KieSession>();
+			map.put( kieBase , pool );
+		}
+		return( pool );
+	}
+
+
+	/**
+	 * The per-thread map from each knowledge base to its pool of idle sessions.
+	 */
+	private static final ThreadLocal<IdentityHashMap<KieBase,ArrayDeque<KieSession>>> pools =
+			new ThreadLocal<IdentityHashMap<KieBase,ArrayDeque<KieSession>>>()
+			{
+				@Override
+				protected IdentityHashMap<KieBase,ArrayDeque<KieSession>> initialValue()
+				{
+					return( new IdentityHashMap<KieBase,ArrayDeque<KieSession>>() );
+				}
+			};
+
+
+}
+
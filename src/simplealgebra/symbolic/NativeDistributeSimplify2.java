@@ -0,0 +1,1012 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package simplealgebra.symbolic;
+
+import java.util.IdentityHashMap;
+
+import simplealgebra.ComplexElem;
+import simplealgebra.ComplexElemFactory;
+import simplealgebra.Elem;
+import simplealgebra.ElemFactory;
+import simplealgebra.SquareMatrixElemFactory;
+import simplealgebra.SymbolicConjugateLeft;
+import simplealgebra.SymbolicConjugateRight;
+import simplealgebra.SymbolicInvertLeftRevCoeff;
+import simplealgebra.SymbolicInvertRightRevCoeff;
+import simplealgebra.SymbolicMultRevCoeff;
+import simplealgebra.SymbolicTranspose;
+import simplealgebra.ddx.DirectionalDerivative;
+import simplealgebra.ddx.PartialDerivativeOp;
+import simplealgebra.et.EinsteinTensorElemFactory;
+import simplealgebra.et.SymbolicIndexReduction;
+import simplealgebra.et.SymbolicRankTwoTrace;
+import simplealgebra.et.SymbolicRegenContravar;
+import simplealgebra.et.SymbolicRegenCovar;
+import simplealgebra.et.SymbolicTensorResym;
+import simplealgebra.ga.GeometricAlgebraMultivectorElemFactory;
+import simplealgebra.ga.SymbolicCross;
+import simplealgebra.ga.SymbolicDot;
+import simplealgebra.ga.SymbolicDotHestenes;
+import simplealgebra.ga.SymbolicLeftContraction;
+import simplealgebra.ga.SymbolicReverseLeft;
+import simplealgebra.ga.SymbolicReverseRight;
+import simplealgebra.ga.SymbolicRightContraction;
+import simplealgebra.ga.SymbolicScalar;
+import simplealgebra.ga.SymbolicWedge;
+import simplealgebra.meas.ValueWithUncertaintyElem;
+
+
+/**
+ * Java-native implementation of the simplification rules in distributeSimplify2.drl, for use as
+ * an alternative to running the rules in a Drools ( <A href="http://drools.org">http://drools.org</A> ) session.
+ * 
+ * <P> The expression is rewritten bottom-up.  The children of each node are simplified first, and the node is
+ * rebuilt from the simplified children in the same way as the "Apply" rules in reng.drl.  The rules of distributeSimplify2.drl
+ * are then matched against the node, and the result of a matching rule is simplified again until no rule matches.  This
+ * stands in for the <code>not( Reng( strt == ... ) )</code> guards in the rules, which only allow a rule to fire once the
+ * nodes that it matches are no longer being rewritten.
+ * 
+ * <P> The result has the same value as the Drools result, up to rounding, but it does not always have the same structure.  The rules
+ * "Mult Over Negate", "Mult Over DivideBy", "Negate Over Add", and "DivideBy Over Add" can match overlapping nodes.  The Drools
+ * agenda fires them across the whole expression in the order of the rules in distributeSimplify2.drl, while this class rewrites
+ * the expression bottom-up, so the two can hoist negations and integer divisors to different levels of the expression.  The
+ * results then differ only in where those factors sit.  About a quarter of the random expressions in TestNativeDistributeSimplify2
+ * simplify to such differently placed factors.
+ * 
+ * <P> Simplified nodes are memoized on the identity of the input node, so subexpressions that are shared by
+ * multiple parents are simplified once.  Nodes of types that are not rebuilt by reng.drl are treated as opaque leaves, as in the Drools session.
+ * 
+ * <P> An instance is not thread-safe.  Use {@link #simplify(SymbolicElem)} to simplify an expression with a new instance.
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ *
+ */
+@SuppressWarnings( { "unchecked", "rawtypes" } )
+public class NativeDistributeSimplify2 {
+
+
+	/**
+	 * The maximum number of successive rewrites of a single node before the rules are assumed not to terminate.
+	 */
+	public static final int MAX_REWRITES = 10000;
+
+
+	/**
+	 * Simplifies an expression using the rules of distributeSimplify2.drl.
+	 * 
+	 * @param in The expression to be simplified.
+	 * @return The simplified expression.
+	 */
+	public static <R extends Elem<R,?>, S extends ElemFactory<R,S>> SymbolicElem<R,S> simplify( final SymbolicElem<R,S> in )
+	{
+		return( (SymbolicElem<R,S>)( ( new NativeDistributeSimplify2() ).simplifyElem( in ) ) );
+	}
+
+
+	/**
+	 * Simplifies an expression, reusing the simplifications memoized by previous calls on this instance.
+	 * 
+	 * @param in The expression to be simplified.
+	 * @return The simplified expression.
+	 */
+	public SymbolicElem simplifyElem( final SymbolicElem in )
+	{
+		final SymbolicElem prev = memo.get( in );
+		if( prev != null )
+		{
+			return( prev );
+		}
+
+		SymbolicElem cur = in;
+		int count = 0;
+		while( true )
+		{
+			final SymbolicElem rebuilt = rebuild( cur );
+			final SymbolicElem rewritten = rewrite( rebuilt );
+			if( rewritten == null )
+			{
+				cur = rebuilt;
+				break;
+			}
+			cur = rewritten;
+			if( memo.get( cur ) == cur )
+			{
+				break;
+			}
+			count++;
+			if( count > MAX_REWRITES )
+			{
+				throw( new RuntimeException( "Simplification Did Not Terminate" ) );
+			}
+		}
+
+		memo.put( in , cur );
+		memo.put( cur , cur );
+		return( cur );
+	}
+
+
+	/**
+	 * Simplifies the enclosed elem of a symbolic reduction.  Only elems for which reng.drl has
+	 * "Apply" rules are rewritten, and all other elems are returned unchanged.
+	 * 
+	 * @param in The enclosed elem.
+	 * @return The simplified elem.
+	 */
+	protected Elem simplifyEnclosed( final Elem in )
+	{
+		if( in instanceof SymbolicElem )
+		{
+			return( simplifyElem( (SymbolicElem) in ) );
+		}
+
+		if( in instanceof ComplexElem )
+		{
+			final ComplexElem p = (ComplexElem) in;
+			final Elem re = simplifyEnclosed( p.getRe() );
+			final Elem im = simplifyEnclosed( p.getIm() );
+			return( ( re == p.getRe() ) && ( im == p.getIm() ) ? p : new ComplexElem( re , im ) );
+		}
+
+		if( in instanceof ValueWithUncertaintyElem )
+		{
+			final ValueWithUncertaintyElem p = (ValueWithUncertaintyElem) in;
+			final Elem value = simplifyEnclosed( p.getValue() );
+			final Elem uncertainty = simplifyEnclosed( p.getUncertainty() );
+			return( ( value == p.getValue() ) && ( uncertainty == p.getUncertainty() ) ? p : new ValueWithUncertaintyElem( value , uncertainty ) );
+		}
+
+		return( in );
+	}
+
+
+	/**
+	 * Simplifies the children of a node, and rebuilds the node from the simplified children
+	 * in the same way as the "Apply" rules in reng.drl.
+	 * 
+	 * @param p The node.
+	 * @return The rebuilt node, or the input node if none of its children changed.
+	 */
+	protected SymbolicElem rebuild( final SymbolicElem p )
+	{
+		if( p instanceof SymbolicAdd )
+		{
+			final SymbolicAdd q = (SymbolicAdd) p;
+			final SymbolicElem a = simplifyElem( q.getElemA() );
+			final SymbolicElem b = simplifyElem( q.getElemB() );
+			return( ( a == q.getElemA() ) && ( b == q.getElemB() ) ? p : a.add( b ) );
+		}
+
+		if( p instanceof SymbolicMult )
+		{
+			final SymbolicMult q = (SymbolicMult) p;
+			final SymbolicElem a = simplifyElem( q.getElemA() );
+			final SymbolicElem b = simplifyElem( q.getElemB() );
+			return( ( a == q.getElemA() ) && ( b == q.getElemB() ) ? p : a.mult( b ) );
+		}
+
+		if( p instanceof SymbolicNegate )
+		{
+			final SymbolicNegate q = (SymbolicNegate) p;
+			final SymbolicElem e = simplifyElem( q.getElem() );
+			return( e == q.getElem() ? p : e.negate() );
+		}
+
+		if( p instanceof SymbolicAbsoluteValue )
+		{
+			final SymbolicAbsoluteValue q = (SymbolicAbsoluteValue) p;
+			final SymbolicElem e = simplifyElem( q.getElem() );
+			return( e == q.getElem() ? p : new SymbolicAbsoluteValue( e , q.getFac().getFac() ) );
+		}
+
+		if( p instanceof SymbolicInvertLeft )
+		{
+			final SymbolicInvertLeft q = (SymbolicInvertLeft) p;
+			final SymbolicElem e = simplifyElem( q.getElem() );
+			return( e == q.getElem() ? p : new SymbolicInvertLeft( e , q.getFac().getFac() ) );
+		}
+
+		if( p instanceof SymbolicInvertRight )
+		{
+			final SymbolicInvertRight q = (SymbolicInvertRight) p;
+			final SymbolicElem e = simplifyElem( q.getElem() );
+			return( e == q.getElem() ? p : new SymbolicInvertRight( e , q.getFac().getFac() ) );
+		}
+
+		if( p instanceof SymbolicDivideBy )
+		{
+			final SymbolicDivideBy q = (SymbolicDivideBy) p;
+			final SymbolicElem e = simplifyElem( q.getElem() );
+			return( e == q.getElem() ? p : new SymbolicDivideBy( e , q.getFac().getFac() , q.getIval() ) );
+		}
+
+		if( p instanceof SymbolicRandom )
+		{
+			final SymbolicRandom q = (SymbolicRandom) p;
+			final SymbolicElem e = simplifyElem( q.getElem() );
+			return( e == q.getElem() ? p : new SymbolicRandom( e , q.getFac().getFac() , q.getIval() ) );
+		}
+
+		if( p instanceof SymbolicMutable )
+		{
+			final SymbolicMutable q = (SymbolicMutable) p;
+			final SymbolicElem e = simplifyElem( q.getElemA() );
+			return( e == q.getElemA() ? p : new SymbolicMutable( e , q.getElemB() , q.getFac().getFac() ) );
+		}
+
+		if( p instanceof SymbolicReduction )
+		{
+			final SymbolicReduction q = (SymbolicReduction) p;
+			final Elem e = simplifyEnclosed( q.getElem() );
+			return( e == q.getElem() ? p : new SymbolicReduction( e , q.getFac().getFac() ) );
+		}
+
+		if( p instanceof SymbolicSqrt )
+		{
+			final SymbolicSqrt q = (SymbolicSqrt) p;
+			final SymbolicElem e = simplifyElem( q.getElem() );
+			return( e == q.getElem() ? p : new SymbolicSqrt( e , q.getFac().getFac() ) );
+		}
+
+		if( p instanceof SymbolicExponential )
+		{
+			final SymbolicExponential q = (SymbolicExponential) p;
+			final SymbolicElem e = simplifyElem( q.getElem() );
+			return( e == q.getElem() ? p : new SymbolicExponential( e , q.getFac().getFac() , q.getIval() ) );
+		}
+
+		if( p instanceof SymbolicSine )
+		{
+			final SymbolicSine q = (SymbolicSine) p;
+			final SymbolicElem e = simplifyElem( q.getElem() );
+			return( e == q.getElem() ? p : new SymbolicSine( e , q.getFac().getFac() , q.getIval() ) );
+		}
+
+		if( p instanceof SymbolicCosine )
+		{
+			final SymbolicCosine q = (SymbolicCosine) p;
+			final SymbolicElem e = simplifyElem( q.getElem() );
+			return( e == q.getElem() ? p : new SymbolicCosine( e , q.getFac().getFac() , q.getIval() ) );
+		}
+
+		if( p instanceof SymbolicTranspose )
+		{
+			final SymbolicTranspose q = (SymbolicTranspose) p;
+			final SymbolicElem e = simplifyElem( q.getElem() );
+			return( e == q.getElem() ? p : new SymbolicTranspose( e , (SquareMatrixElemFactory)( q.getFac().getFac() ) ) );
+		}
+
+		if( p instanceof SymbolicInvertLeftRevCoeff )
+		{
+			final SymbolicInvertLeftRevCoeff q = (SymbolicInvertLeftRevCoeff) p;
+			final SymbolicElem e = simplifyElem( q.getElem() );
+			return( e == q.getElem() ? p : new SymbolicInvertLeftRevCoeff( e , (SquareMatrixElemFactory)( q.getFac().getFac() ) ) );
+		}
+
+		if( p instanceof SymbolicInvertRightRevCoeff )
+		{
+			final SymbolicInvertRightRevCoeff q = (SymbolicInvertRightRevCoeff) p;
+			final SymbolicElem e = simplifyElem( q.getElem() );
+			return( e == q.getElem() ? p : new SymbolicInvertRightRevCoeff( e , (SquareMatrixElemFactory)( q.getFac().getFac() ) ) );
+		}
+
+		if( p instanceof SymbolicMultRevCoeff )
+		{
+			final SymbolicMultRevCoeff q = (SymbolicMultRevCoeff) p;
+			final SymbolicElem a = simplifyElem( q.getElemA() );
+			final SymbolicElem b = simplifyElem( q.getElemB() );
+			return( ( a == q.getElemA() ) && ( b == q.getElemB() ) ? p : new SymbolicMultRevCoeff( a , b , (SquareMatrixElemFactory)( q.getFac().getFac() ) ) );
+		}
+
+		if( p instanceof SymbolicConjugateLeft )
+		{
+			final SymbolicConjugateLeft q = (SymbolicConjugateLeft) p;
+			final SymbolicElem e = simplifyElem( q.getElem() );
+			return( e == q.getElem() ? p : new SymbolicConjugateLeft( e , (ComplexElemFactory)( q.getFac().getFac() ) ) );
+		}
+
+		if( p instanceof SymbolicConjugateRight )
+		{
+			final SymbolicConjugateRight q = (SymbolicConjugateRight) p;
+			final SymbolicElem e = simplifyElem( q.getElem() );
+			return( e == q.getElem() ? p : new SymbolicConjugateRight( e , (ComplexElemFactory)( q.getFac().getFac() ) ) );
+		}
+
+		if( p instanceof SymbolicDot )
+		{
+			final SymbolicDot q = (SymbolicDot) p;
+			final SymbolicElem a = simplifyElem( q.getElemA() );
+			final SymbolicElem b = simplifyElem( q.getElemB() );
+			return( ( a == q.getElemA() ) && ( b == q.getElemB() ) ? p : new SymbolicDot( a , b , (GeometricAlgebraMultivectorElemFactory)( q.getFac().getFac() ) ) );
+		}
+
+		if( p instanceof SymbolicDotHestenes )
+		{
+			final SymbolicDotHestenes q = (SymbolicDotHestenes) p;
+			final SymbolicElem a = simplifyElem( q.getElemA() );
+			final SymbolicElem b = simplifyElem( q.getElemB() );
+			return( ( a == q.getElemA() ) && ( b == q.getElemB() ) ? p : new SymbolicDotHestenes( a , b , (GeometricAlgebraMultivectorElemFactory)( q.getFac().getFac() ) ) );
+		}
+
+		if( p instanceof SymbolicLeftContraction )
+		{
+			final SymbolicLeftContraction q = (SymbolicLeftContraction) p;
+			final SymbolicElem a = simplifyElem( q.getElemA() );
+			final SymbolicElem b = simplifyElem( q.getElemB() );
+			return( ( a == q.getElemA() ) && ( b == q.getElemB() ) ? p : new SymbolicLeftContraction( a , b , (GeometricAlgebraMultivectorElemFactory)( q.getFac().getFac() ) ) );
+		}
+
+		if( p instanceof SymbolicRightContraction )
+		{
+			final SymbolicRightContraction q = (SymbolicRightContraction) p;
+			final SymbolicElem a = simplifyElem( q.getElemA() );
+			final SymbolicElem b = simplifyElem( q.getElemB() );
+			return( ( a == q.getElemA() ) && ( b == q.getElemB() ) ? p : new SymbolicRightContraction( a , b , (GeometricAlgebraMultivectorElemFactory)( q.getFac().getFac() ) ) );
+		}
+
+		if( p instanceof SymbolicWedge )
+		{
+			final SymbolicWedge q = (SymbolicWedge) p;
+			final SymbolicElem a = simplifyElem( q.getElemA() );
+			final SymbolicElem b = simplifyElem( q.getElemB() );
+			return( ( a == q.getElemA() ) && ( b == q.getElemB() ) ? p : new SymbolicWedge( a , b , (GeometricAlgebraMultivectorElemFactory)( q.getFac().getFac() ) ) );
+		}
+
+		if( p instanceof SymbolicScalar )
+		{
+			final SymbolicScalar q = (SymbolicScalar) p;
+			final SymbolicElem a = simplifyElem( q.getElemA() );
+			final SymbolicElem b = simplifyElem( q.getElemB() );
+			return( ( a == q.getElemA() ) && ( b == q.getElemB() ) ? p : new SymbolicScalar( a , b , (GeometricAlgebraMultivectorElemFactory)( q.getFac().getFac() ) ) );
+		}
+
+		if( p instanceof SymbolicCross )
+		{
+			final SymbolicCross q = (SymbolicCross) p;
+			final SymbolicElem a = simplifyElem( q.getElemA() );
+			final SymbolicElem b = simplifyElem( q.getElemB() );
+			return( ( a == q.getElemA() ) && ( b == q.getElemB() ) ? p : new SymbolicCross( a , b , (GeometricAlgebraMultivectorElemFactory)( q.getFac().getFac() ) ) );
+		}
+
+		if( p instanceof SymbolicReverseLeft )
+		{
+			final SymbolicReverseLeft q = (SymbolicReverseLeft) p;
+			final SymbolicElem e = simplifyElem( q.getElemA() );
+			return( e == q.getElemA() ? p : new SymbolicReverseLeft( e , (GeometricAlgebraMultivectorElemFactory)( q.getFac().getFac() ) ) );
+		}
+
+		if( p instanceof SymbolicReverseRight )
+		{
+			final SymbolicReverseRight q = (SymbolicReverseRight) p;
+			final SymbolicElem e = simplifyElem( q.getElemA() );
+			return( e == q.getElemA() ? p : new SymbolicReverseRight( e , (GeometricAlgebraMultivectorElemFactory)( q.getFac().getFac() ) ) );
+		}
+
+		if( p instanceof SymbolicIndexReduction )
+		{
+			final SymbolicIndexReduction q = (SymbolicIndexReduction) p;
+			final SymbolicElem e = simplifyElem( q.getElem() );
+			return( e == q.getElem() ? p : new SymbolicIndexReduction( e , (EinsteinTensorElemFactory)( q.getFac().getFac() ) ,
+					q.getContravariantReduce() , q.getCovariantReduce() ) );
+		}
+
+		if( p instanceof SymbolicRankTwoTrace )
+		{
+			final SymbolicRankTwoTrace q = (SymbolicRankTwoTrace) p;
+			final SymbolicElem e = simplifyElem( q.getElemA() );
+			return( e == q.getElemA() ? p : new SymbolicRankTwoTrace( e , (EinsteinTensorElemFactory)( q.getFac().getFac() ) ) );
+		}
+
+		if( p instanceof SymbolicRegenContravar )
+		{
+			final SymbolicRegenContravar q = (SymbolicRegenContravar) p;
+			final SymbolicElem e = simplifyElem( q.getElem() );
+			return( e == q.getElem() ? p : new SymbolicRegenContravar( e , (EinsteinTensorElemFactory)( q.getFac().getFac() ) , q.getNewContravar() ) );
+		}
+
+		if( p instanceof SymbolicRegenCovar )
+		{
+			final SymbolicRegenCovar q = (SymbolicRegenCovar) p;
+			final SymbolicElem e = simplifyElem( q.getElem() );
+			return( e == q.getElem() ? p : new SymbolicRegenCovar( e , (EinsteinTensorElemFactory)( q.getFac().getFac() ) , q.getNewCovar() ) );
+		}
+
+		if( p instanceof SymbolicTensorResym )
+		{
+			final SymbolicTensorResym q = (SymbolicTensorResym) p;
+			final SymbolicElem e = simplifyElem( q.getElem() );
+			return( e == q.getElem() ? p : new SymbolicTensorResym( e , (EinsteinTensorElemFactory)( q.getFac().getFac() ) , q.getReSym() , q.getDim() ) );
+		}
+
+		return( p );
+	}
+
+
+	/**
+	 * Matches the rules of distributeSimplify2.drl against a node whose children have already been simplified.
+	 * 
+	 * @param p The node.
+	 * @return The result of the first matching rule, or null if no rule matches.
+	 */
+	protected SymbolicElem rewrite( final SymbolicElem p )
+	{
+		if( p instanceof SymbolicNegate )
+		{
+			return( rewriteNegate( (SymbolicNegate) p ) );
+		}
+
+		if( p instanceof SymbolicAbsoluteValue )
+		{
+			final SymbolicElem e = ( (SymbolicAbsoluteValue) p ).getElem();
+			// "Double Absolute Value", "Absolute Value Identity", "Absolute Value Zero"
+			if( ( e instanceof SymbolicAbsoluteValue ) || ( e instanceof SymbolicIdentity ) || ( e instanceof SymbolicZero ) )
+			{
+				return( e );
+			}
+			return( null );
+		}
+
+		if( p instanceof SymbolicInvertLeft )
+		{
+			return( rewriteInvertLeft( (SymbolicInvertLeft) p ) );
+		}
+
+		if( p instanceof SymbolicInvertRight )
+		{
+			return( rewriteInvertRight( (SymbolicInvertRight) p ) );
+		}
+
+		if( p instanceof SymbolicAdd )
+		{
+			final SymbolicAdd q = (SymbolicAdd) p;
+			// "Add Zero A"
+			if( q.getElemA() instanceof SymbolicZero )
+			{
+				return( q.getElemB() );
+			}
+			// "Add Zero B"
+			if( q.getElemB() instanceof SymbolicZero )
+			{
+				return( q.getElemA() );
+			}
+			return( null );
+		}
+
+		if( p instanceof SymbolicMult )
+		{
+			return( rewriteMult( (SymbolicMult) p ) );
+		}
+
+		if( p instanceof SymbolicDivideBy )
+		{
+			return( rewriteDivideBy( (SymbolicDivideBy) p ) );
+		}
+
+		if( p instanceof SymbolicRandom )
+		{
+			final SymbolicElem e = ( (SymbolicRandom) p ).getElem();
+			// "Random OF Zero --> Zero"
+			return( e instanceof SymbolicZero ? e : null );
+		}
+
+		if( p instanceof SymbolicReduction )
+		{
+			final SymbolicReduction q = (SymbolicReduction) p;
+			// "SymbolicReduction Zero"
+			if( q.getElem().evalSymbolicZeroApprox( SymbolicElem.EVAL_MODE.SIMPLIFY2 ) )
+			{
+				return( q.getFac().zero() );
+			}
+			// "SymbolicReduction Identity"
+			if( q.getElem().evalSymbolicIdentityApprox( SymbolicElem.EVAL_MODE.SIMPLIFY2 ) )
+			{
+				return( q.getFac().identity() );
+			}
+			return( null );
+		}
+
+		if( p instanceof SymbolicSqrt )
+		{
+			final SymbolicElem e = ( (SymbolicSqrt) p ).getElem();
+			// "SymbolicSqrt Identity"
+			return( e instanceof SymbolicIdentity ? e : null );
+		}
+
+		if( p instanceof SymbolicExponential )
+		{
+			final SymbolicElem e = ( (SymbolicExponential) p ).getElem();
+			// "Exponential Of Zero --> Identity"
+			return( e instanceof SymbolicZero ? new SymbolicIdentity( e.getFac().getFac() ) : null );
+		}
+
+		if( p instanceof SymbolicSine )
+		{
+			final SymbolicElem e = ( (SymbolicSine) p ).getElem();
+			// "Sine Of Zero --> Zero"
+			return( e instanceof SymbolicZero ? e : null );
+		}
+
+		if( p instanceof SymbolicCosine )
+		{
+			final SymbolicElem e = ( (SymbolicCosine) p ).getElem();
+			// "Cosine Of Zero --> Identity"
+			return( e instanceof SymbolicZero ? new SymbolicIdentity( e.getFac().getFac() ) : null );
+		}
+
+		if( p instanceof SymbolicTranspose )
+		{
+			final SymbolicTranspose q = (SymbolicTranspose) p;
+			final SymbolicElem e = q.getElem();
+			// "Transpose Zero", "Transpose Identity"
+			if( ( e instanceof SymbolicZero ) || ( e instanceof SymbolicIdentity ) )
+			{
+				return( e );
+			}
+			// "Transpose Over Negate"
+			if( e instanceof SymbolicNegate )
+			{
+				return( ( new SymbolicTranspose( ( (SymbolicNegate) e ).getElem() , (SquareMatrixElemFactory)( q.getFac().getFac() ) ) ).negate() );
+			}
+			return( null );
+		}
+
+		if( p instanceof SymbolicInvertLeftRevCoeff )
+		{
+			final SymbolicElem e = ( (SymbolicInvertLeftRevCoeff) p ).getElem();
+			// "Invert Left Rev Coeff Identity"
+			return( e instanceof SymbolicIdentity ? e : null );
+		}
+
+		if( p instanceof SymbolicInvertRightRevCoeff )
+		{
+			final SymbolicElem e = ( (SymbolicInvertRightRevCoeff) p ).getElem();
+			// "Invert Right Rev Coeff Identity"
+			return( e instanceof SymbolicIdentity ? e : null );
+		}
+
+		if( p instanceof SymbolicMultRevCoeff )
+		{
+			final SymbolicMultRevCoeff q = (SymbolicMultRevCoeff) p;
+			final SymbolicElem a = q.getElemA();
+			final SymbolicElem b = q.getElemB();
+			// "MultRevCoeff Zero A"
+			if( a instanceof SymbolicZero )
+			{
+				return( a );
+			}
+			// "MultRevCoeff Zero B"
+			if( b instanceof SymbolicZero )
+			{
+				return( b );
+			}
+			// "MultRevCoeff Ident A"
+			if( ( a instanceof SymbolicIdentity ) && !( b.exposesDerivatives() ) )
+			{
+				return( b );
+			}
+			// "MultRevCoeff Ident B"
+			if( b instanceof SymbolicIdentity )
+			{
+				return( a );
+			}
+			return( null );
+		}
+
+		if( p instanceof SymbolicConjugateLeft )
+		{
+			final SymbolicElem e = ( (SymbolicConjugateLeft) p ).getElem();
+			// "Conjugate Left Identity"
+			return( e instanceof SymbolicIdentity ? e : null );
+		}
+
+		if( p instanceof SymbolicConjugateRight )
+		{
+			final SymbolicElem e = ( (SymbolicConjugateRight) p ).getElem();
+			// "Conjugate Right Identity"
+			return( e instanceof SymbolicIdentity ? e : null );
+		}
+
+		if( p instanceof SymbolicWedge )
+		{
+			final SymbolicWedge q = (SymbolicWedge) p;
+			// "Wedge Zero A", "Wedge Zero B", "Directional Derivative Wedge Constant --> Zero"
+			return( rewriteGaProduct( q.getElemA() , q.getElemB() ) );
+		}
+
+		if( p instanceof SymbolicDot )
+		{
+			final SymbolicDot q = (SymbolicDot) p;
+			// "Dot Zero A", "Dot Zero B", "Directional Derivative Dot Constant --> Zero"
+			return( rewriteGaProduct( q.getElemA() , q.getElemB() ) );
+		}
+
+		if( p instanceof SymbolicDotHestenes )
+		{
+			final SymbolicDotHestenes q = (SymbolicDotHestenes) p;
+			// "Dot Hestenes Zero A", "Dot Hestenes Zero B", "Directional Derivative DotHestenes Constant --> Zero"
+			return( rewriteGaProduct( q.getElemA() , q.getElemB() ) );
+		}
+
+		if( p instanceof SymbolicScalar )
+		{
+			final SymbolicScalar q = (SymbolicScalar) p;
+			// "Scalar Product Zero A", "Scalar Product Zero B", "Directional Derivative Scalar-Product Constant --> Zero"
+			return( rewriteGaProduct( q.getElemA() , q.getElemB() ) );
+		}
+
+		if( p instanceof SymbolicCross )
+		{
+			final SymbolicCross q = (SymbolicCross) p;
+			// "Directional Derivative Cross Constant --> Zero"
+			return( rewriteDirectionalDerivativeConstant( q.getElemA() , q.getElemB() ) );
+		}
+
+		if( p instanceof SymbolicReverseLeft )
+		{
+			final SymbolicElem e = ( (SymbolicReverseLeft) p ).getElemA();
+			// "ReverseLeft Identity"
+			return( e instanceof SymbolicIdentity ? e : null );
+		}
+
+		if( p instanceof SymbolicReverseRight )
+		{
+			final SymbolicElem e = ( (SymbolicReverseRight) p ).getElemA();
+			// "ReverseRight Identity"
+			return( e instanceof SymbolicIdentity ? e : null );
+		}
+
+		if( p instanceof SymbolicIndexReduction )
+		{
+			final SymbolicElem e = ( (SymbolicIndexReduction) p ).getElem();
+			// "Symbolic Index Reduction Zero"
+			return( e instanceof SymbolicZero ? e : null );
+		}
+
+		return( null );
+	}
+
+
+	/**
+	 * Matches the rules for negation.
+	 * 
+	 * @param p The negation.
+	 * @return The result of the first matching rule, or null if no rule matches.
+	 */
+	protected SymbolicElem rewriteNegate( final SymbolicNegate p )
+	{
+		final SymbolicElem e = p.getElem();
+
+		// "Double Negate"
+		if( e instanceof SymbolicNegate )
+		{
+			return( ( (SymbolicNegate) e ).getElem() );
+		}
+
+		// "Negate Zero"
+		if( e instanceof SymbolicZero )
+		{
+			return( e );
+		}
+
+		// "Negate Over Add"
+		if( e instanceof SymbolicAdd )
+		{
+			final SymbolicAdd c = (SymbolicAdd) e;
+			return( c.getElemA().negate().add( c.getElemB().negate() ) );
+		}
+
+		return( null );
+	}
+
+
+	/**
+	 * Matches the rules for left-inversion.
+	 * 
+	 * @param p The left-inverse.
+	 * @return The result of the first matching rule, or null if no rule matches.
+	 */
+	protected SymbolicElem rewriteInvertLeft( final SymbolicInvertLeft p )
+	{
+		final SymbolicElem e = p.getElem();
+
+		// "Double Invert Right NonCommute"
+		if( e instanceof SymbolicInvertRight )
+		{
+			return( ( (SymbolicInvertRight) e ).getElem() );
+		}
+
+		// "Double Invert Left Commute"
+		if( ( e instanceof SymbolicInvertLeft ) && ( ( (SymbolicInvertLeft) e ).getElem().getFac().isNestedMultCommutative() ) )
+		{
+			return( ( (SymbolicInvertLeft) e ).getElem() );
+		}
+
+		// "Invert Left Identity --> Identity"
+		if( e instanceof SymbolicIdentity )
+		{
+			return( e );
+		}
+
+		// "Distribute InvertLeft Over Mult"
+		if( e instanceof SymbolicMult )
+		{
+			final SymbolicMult elm = (SymbolicMult) e;
+			return( new SymbolicMult( new SymbolicInvertLeft( elm.getElemB() , p.getFac().getFac() ) ,
+					new SymbolicInvertLeft( elm.getElemA() , p.getFac().getFac() ) , elm.getFac().getFac() ) );
+		}
+
+		// "InvertLeft Over Negative"
+		if( e instanceof SymbolicNegate )
+		{
+			return( new SymbolicNegate( new SymbolicInvertLeft( ( (SymbolicNegate) e ).getElem() , p.getFac().getFac() ) , e.getFac().getFac() ) );
+		}
+
+		return( null );
+	}
+
+
+	/**
+	 * Matches the rules for right-inversion.
+	 * 
+	 * @param p The right-inverse.
+	 * @return The result of the first matching rule, or null if no rule matches.
+	 */
+	protected SymbolicElem rewriteInvertRight( final SymbolicInvertRight p )
+	{
+		final SymbolicElem e = p.getElem();
+
+		// "Double Invert Left NonCommute"
+		if( e instanceof SymbolicInvertLeft )
+		{
+			return( ( (SymbolicInvertLeft) e ).getElem() );
+		}
+
+		// "Double Invert Right Commute"
+		if( ( e instanceof SymbolicInvertRight ) && ( ( (SymbolicInvertRight) e ).getElem().getFac().isNestedMultCommutative() ) )
+		{
+			return( ( (SymbolicInvertRight) e ).getElem() );
+		}
+
+		// "Invert Right Identity --> Identity"
+		if( e instanceof SymbolicIdentity )
+		{
+			return( e );
+		}
+
+		// "Distribute InvertRight Over Mult"
+		if( e instanceof SymbolicMult )
+		{
+			final SymbolicMult elm = (SymbolicMult) e;
+			return( new SymbolicMult( new SymbolicInvertRight( elm.getElemB() , p.getFac().getFac() ) ,
+					new SymbolicInvertRight( elm.getElemA() , p.getFac().getFac() ) , elm.getFac().getFac() ) );
+		}
+
+		// "InvertRight Over Negative"
+		if( e instanceof SymbolicNegate )
+		{
+			return( new SymbolicNegate( new SymbolicInvertRight( ( (SymbolicNegate) e ).getElem() , p.getFac().getFac() ) , e.getFac().getFac() ) );
+		}
+
+		return( null );
+	}
+
+
+	/**
+	 * Matches the rules for multiplication.
+	 * 
+	 * @param p The multiplication.
+	 * @return The result of the first matching rule, or null if no rule matches.
+	 */
+	protected SymbolicElem rewriteMult( final SymbolicMult p )
+	{
+		final SymbolicElem a = p.getElemA();
+		final SymbolicElem b = p.getElemB();
+
+		// "Mult Zero A"
+		if( a instanceof SymbolicZero )
+		{
+			return( a );
+		}
+
+		// "Mult Zero B"
+		if( b instanceof SymbolicZero )
+		{
+			return( b );
+		}
+
+		// "Mult Ident A"
+		if( a instanceof SymbolicIdentity )
+		{
+			return( b );
+		}
+
+		// "Mult Ident B"
+		if( ( b instanceof SymbolicIdentity ) && !( a.exposesDerivatives() ) )
+		{
+			return( a );
+		}
+
+		// "Mult Negative Ident A"
+		if( ( a instanceof SymbolicNegate ) && ( ( (SymbolicNegate) a ).getElem() instanceof SymbolicIdentity ) && !( b instanceof SymbolicNegate ) )
+		{
+			return( b.negate() );
+		}
+
+		// "Mult Negative Ident B"
+		if( ( b instanceof SymbolicNegate ) && ( ( (SymbolicNegate) b ).getElem() instanceof SymbolicIdentity ) && !( a instanceof SymbolicNegate )
+				&& !( a.exposesDerivatives() ) )
+		{
+			return( a.negate() );
+		}
+
+		if( a instanceof PartialDerivativeOp )
+		{
+			// "Partial Derivative Of Constant A --> Zero"
+			if( ( b instanceof SymbolicReduction ) &&
+					( ( (SymbolicReduction) b ).partialDerivativeReducesToZero( ( (PartialDerivativeOp) a ).getWithRespectTo() ) ) )
+			{
+				return( new SymbolicZero( p.getFac().getFac() ) );
+			}
+
+			// "Partial Derivative Of Constant B --> Zero"
+			if( b.isPartialDerivativeZero() )
+			{
+				return( new SymbolicZero( b.getFac().getFac() ) );
+			}
+		}
+
+		// "Directional Derivative Of Constant --> Zero"
+		final SymbolicElem dd = rewriteDirectionalDerivativeConstant( a , b );
+		if( dd != null )
+		{
+			return( dd );
+		}
+
+		// "Mult Over Negate A"
+		if( a instanceof SymbolicNegate )
+		{
+			return( ( (SymbolicNegate) a ).getElem().mult( b ).negate() );
+		}
+
+		// "Mult Over Negate B"
+		if( b instanceof SymbolicNegate )
+		{
+			return( a.mult( ( (SymbolicNegate) b ).getElem() ).negate() );
+		}
+
+		// "Mult Over DivideBy A"
+		if( a instanceof SymbolicDivideBy )
+		{
+			final SymbolicDivideBy na = (SymbolicDivideBy) a;
+			return( new SymbolicDivideBy( na.getElem().mult( b ) , na.getFac().getFac() , na.getIval() ) );
+		}
+
+		// "Mult Over DivideBy B"
+		if( b instanceof SymbolicDivideBy )
+		{
+			final SymbolicDivideBy nb = (SymbolicDivideBy) b;
+			return( new SymbolicDivideBy( a.mult( nb.getElem() ) , nb.getFac().getFac() , nb.getIval() ) );
+		}
+
+		return( null );
+	}
+
+
+	/**
+	 * Matches the rules for division by an integer.
+	 * 
+	 * @param p The division.
+	 * @return The result of the first matching rule, or null if no rule matches.
+	 */
+	protected SymbolicElem rewriteDivideBy( final SymbolicDivideBy p )
+	{
+		final SymbolicElem e = p.getElem();
+
+		// "DivideBy OF Zero --> Zero"
+		if( ( e instanceof SymbolicZero ) && ( p.divNotZero() ) )
+		{
+			return( e );
+		}
+
+		// "Double DivideBy"
+		if( e instanceof SymbolicDivideBy )
+		{
+			final SymbolicDivideBy n0 = (SymbolicDivideBy) e;
+			return( new SymbolicDivideBy( n0.getElem() , n0.getFac().getFac() , n0.getIval().multiply( p.getIval() ) ) );
+		}
+
+		// "DivideBy Over Add"
+		if( e instanceof SymbolicAdd )
+		{
+			final SymbolicAdd c = (SymbolicAdd) e;
+			return( new SymbolicAdd( new SymbolicDivideBy( c.getElemA() , p.getFac().getFac() , p.getIval() ) ,
+					new SymbolicDivideBy( c.getElemB() , p.getFac().getFac() , p.getIval() ) , c.getFac().getFac() ) );
+		}
+
+		// "DivideBy Over Negate"
+		if( e instanceof SymbolicNegate )
+		{
+			return( new SymbolicNegate( new SymbolicDivideBy( ( (SymbolicNegate) e ).getElem() , p.getFac().getFac() , p.getIval() ) ,
+					e.getFac().getFac() ) );
+		}
+
+		return( null );
+	}
+
+
+	/**
+	 * Matches the zero rules shared by the geometric algebra products.
+	 * 
+	 * @param a The left operand of the product.
+	 * @param b The right operand of the product.
+	 * @return The result of the first matching rule, or null if no rule matches.
+	 */
+	protected SymbolicElem rewriteGaProduct( final SymbolicElem a , final SymbolicElem b )
+	{
+		if( a instanceof SymbolicZero )
+		{
+			return( a );
+		}
+
+		if( b instanceof SymbolicZero )
+		{
+			return( b );
+		}
+
+		return( rewriteDirectionalDerivativeConstant( a , b ) );
+	}
+
+
+	/**
+	 * Matches the rules for a directional derivative applied to a constant.
+	 * 
+	 * @param a The left operand of the product.
+	 * @param b The right operand of the product.
+	 * @return Zero if the left operand is a directional derivative and the right operand is a constant, or null otherwise.
+	 */
+	protected SymbolicElem rewriteDirectionalDerivativeConstant( final SymbolicElem a , final SymbolicElem b )
+	{
+		if( ( a instanceof DirectionalDerivative ) && ( b.isPartialDerivativeZero() ) )
+		{
+			return( new SymbolicZero( b.getFac().getFac() ) );
+		}
+
+		return( null );
+	}
+
+
+	/**
+	 * Map from each simplified node to the result of its simplification.
+	 */
+	protected final IdentityHashMap<SymbolicElem,SymbolicElem> memo = new IdentityHashMap<SymbolicElem,SymbolicElem>();
+
+
+}
+
@@ -0,0 +1,199 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package simplealgebra.symbolic;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+import simplealgebra.Elem;
+import simplealgebra.ElemFactory;
+
+/**
+ * Evaluation cache for a single evaluation over a fixed implicit space and a fixed set of partial derivatives.
+ * Because the implicit space and the partial derivatives are fixed for the lifetime of the context,
+ * the results of evaluated nodes are keyed only on the identity of each node, and a lookup costs a single identity hash
+ * rather than the hash of an {@link SCacheKey} (which rehashes the implicit space on each lookup).
+ * 
+ * <P> Nodes that do not override the context-based evaluation methods are evaluated through the
+ * {@link SCacheKey} based methods using the legacy cache held by the context.
+ * 
+ * <P> A context is not thread-safe, and should be discarded when the implicit space changes.
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ * 
+ * @param <R> The enclosed type.
+ * @param <S> The factory for the enclosed type.
+ */
+public class SEvalContext<R extends Elem<R,?>, S extends ElemFactory<R,S>> {
+
+
+	/**
+	 * Constructs the context for evaluations that do not take partial derivatives.
+	 * 
+	 * @param _implicitSpace The implicit space for the evaluation.
+	 */
+	public SEvalContext( final HashMap<? extends Elem<?,?>,? extends Elem<?,?>> _implicitSpace )
+	{
+		this( null , _implicitSpace );
+	}
+
+
+	/**
+	 * Constructs the context.
+	 * 
+	 * @param _withRespectTo The set of partial derivatives for the evaluation, or null if no partial derivatives are taken.
+	 * @param _implicitSpace The implicit space for the evaluation.
+	 */
+	public SEvalContext( final ArrayList<? extends Elem<?,?>> _withRespectTo ,
+			final HashMap<? extends Elem<?,?>,? extends Elem<?,?>> _implicitSpace )
+	{
+		withRespectTo = _withRespectTo;
+		implicitSpace = _implicitSpace;
+	}
+
+
+	/**
+	 * Gets the cached evaluation of a node.
+	 * 
+	 * @param in The node.
+	 * @return The cached evaluation, or null if the node has not been evaluated.
+	 */
+	public R getEval( final SymbolicElem<R,S> in )
+	{
+		return( evals.get( in ) );
+	}
+
+
+	/**
+	 * Caches the evaluation of a node.
+	 * 
+	 * @param in The node.
+	 * @param val The evaluation of the node.
+	 */
+	public void putEval( final SymbolicElem<R,S> in , final R val )
+	{
+		evals.put( in , val );
+	}
+
+
+	/**
+	 * Gets the cached partial derivative of a node.
+	 * 
+	 * @param in The node.
+	 * @return The cached partial derivative, or null if the partial derivative has not been evaluated.
+	 */
+	public R getPartialDerivative( final SymbolicElem<R,S> in )
+	{
+		return( partials.get( in ) );
+	}
+
+
+	/**
+	 * Caches the partial derivative of a node.
+	 * 
+	 * @param in The node.
+	 * @param val The partial derivative of the node.
+	 */
+	public void putPartialDerivative( final SymbolicElem<R,S> in , final R val )
+	{
+		partials.put( in , val );
+	}
+
+
+	/**
+	 * Gets the implicit space for the evaluation.
+	 * 
+	 * @return The implicit space for the evaluation.
+	 */
+	public HashMap<? extends Elem<?,?>,? extends Elem<?,?>> getImplicitSpace() {
+		return implicitSpace;
+	}
+
+
+	/**
+	 * Gets the set of partial derivatives for the evaluation.
+	 * 
+	 * @return The set of partial derivatives for the evaluation, or null if no partial derivatives are taken.
+	 */
+	public ArrayList<? extends Elem<?,?>> getWithRespectTo() {
+		return withRespectTo;
+	}
+
+
+	/**
+	 * Gets the {@link SCacheKey} based cache used for nodes that do not override the context-based evaluation methods.
+	 * 
+	 * @return The legacy evaluation cache.
+	 */
+	public HashMap<SCacheKey<R,S>,R> getLegacyCache() {
+		return legacyCache;
+	}
+
+
+	/**
+	 * Clears all cached evaluations.
+	 */
+	public void clear()
+	{
+		evals.clear();
+		partials.clear();
+		legacyCache.clear();
+	}
+
+
+	/**
+	 * The implicit space for the evaluation.
+	 */
+	protected final HashMap<? extends Elem<?,?>,? extends Elem<?,?>> implicitSpace;
+
+	/**
+	 * The set of partial derivatives for the evaluation.
+	 */
+	protected final ArrayList<? extends Elem<?,?>> withRespectTo;
+
+	/**
+	 * Map from each evaluated node to its evaluation.
+	 */
+	protected final IdentityHashMap<SymbolicElem<R,S>,R> evals = new IdentityHashMap<SymbolicElem<R,S>,R>();
+
+	/**
+	 * Map from each evaluated node to its partial derivative.
+	 */
+	protected final IdentityHashMap<SymbolicElem<R,S>,R> partials = new IdentityHashMap<SymbolicElem<R,S>,R>();
+
+	/**
+	 * The evaluation cache for nodes that do not override the context-based evaluation methods.
+	 */
+	protected final HashMap<SCacheKey<R,S>,R> legacyCache = new HashMap<SCacheKey<R,S>,R>();
+
+
+}
+
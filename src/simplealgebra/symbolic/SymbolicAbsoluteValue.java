@@ -258,6 +258,13 @@ public class SymbolicAbsoluteValue<R extends Elem<R,?>, S extends ElemFactory<R,
 	}
 	
 	
+	@Override
+	public int symbolicHashCode()
+	{
+		return( 31 * SymbolicAbsoluteValue.class.hashCode() + elem.symbolicHashCode() );
+	}
+	
+	
 	@Override
 	public void performInserts( KieSession session )
 	{
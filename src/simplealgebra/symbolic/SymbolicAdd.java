@@ -119,6 +119,31 @@ public class SymbolicAdd<R extends Elem<R,?>, S extends ElemFactory<R,S>> extend
 		return( ret );
 	}
 	
+	@Override
+	public R evalCached( SEvalContext<R,S> ctx ) throws NotInvertibleException, MultiplicativeDistributionRequiredException {
+		final R iret = ctx.getEval( this );
+		if( iret != null )
+		{
+			return( iret );
+		}
+		final R ret = elemA.evalCached( ctx ).add( elemB.evalCached( ctx ) );
+		ctx.putEval( this , ret );
+		return( ret );
+	}
+	
+	@Override
+	public R evalPartialDerivativeCached( SEvalContext<R,S> ctx ) throws NotInvertibleException, MultiplicativeDistributionRequiredException
+	{
+		final R iret = ctx.getPartialDerivative( this );
+		if( iret != null )
+		{
+			return( iret );
+		}
+		final R ret = elemA.evalPartialDerivativeCached( ctx ).add( elemB.evalPartialDerivativeCached( ctx ) );
+		ctx.putPartialDerivative( this , ret );
+		return( ret );
+	}
+	
 	@Override
 	public boolean exposesDerivatives()
 	{
@@ -268,6 +293,11 @@ public class SymbolicAdd<R extends Elem<R,?>, S extends ElemFactory<R,S>> extend
 	@Override
 	public boolean symbolicEquals( SymbolicElem<R, S> b )
 	{
+		if( b == this )
+		{
+			return( true );
+		}
+		
 		if( b instanceof SymbolicAdd )
 		{
 			boolean aa = this.getElemA().symbolicEquals( ((SymbolicAdd<R,S>) b).getElemA() );
@@ -286,6 +316,13 @@ public class SymbolicAdd<R extends Elem<R,?>, S extends ElemFactory<R,S>> extend
 	}
 	
 	
+	@Override
+	public int symbolicHashCode()
+	{
+		return( 31 * SymbolicAdd.class.hashCode() + ( elemA.symbolicHashCode() + elemB.symbolicHashCode() ) );
+	}
+	
+	
 	@Override
 	public void performInserts( KieSession session )
 	{
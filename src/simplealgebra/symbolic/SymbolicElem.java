@@ -95,7 +95,49 @@ public abstract class SymbolicElem<R extends Elem<R,?>, S extends ElemFactory<R,
 	 */
 	abstract public R evalPartialDerivativeCached( ArrayList<? extends Elem<?,?>> withRespectTo , 
 			HashMap<? extends Elem<?,?>,? extends Elem<?,?>> implicitSpace , HashMap<SCacheKey<R,S>,R> cache ) throws NotInvertibleException, MultiplicativeDistributionRequiredException;
-	
+
+	/**
+	 * Evaluates the symbolic expression using a per-evaluation identity cache.  The default implementation
+	 * evaluates the node through {@link #evalCached(HashMap, HashMap)} using the legacy cache of the context.
+	 *
+	 * @param ctx The evaluation context.
+	 * @return The result of the evaluation.
+	 * @throws NotInvertibleException
+	 * @throws MultiplicativeDistributionRequiredException
+	 */
+	public R evalCached( SEvalContext<R,S> ctx ) throws NotInvertibleException, MultiplicativeDistributionRequiredException
+	{
+		final R iret = ctx.getEval( this );
+		if( iret != null )
+		{
+			return( iret );
+		}
+		final R ret = evalCached( ctx.getImplicitSpace() , ctx.getLegacyCache() );
+		ctx.putEval( this , ret );
+		return( ret );
+	}
+
+	/**
+	 * Evaluates the partial derivative of the symbolic expression using a per-evaluation identity cache.  The default implementation
+	 * evaluates the node through {@link #evalPartialDerivativeCached(ArrayList, HashMap, HashMap)} using the legacy cache of the context.
+	 *
+	 * @param ctx The evaluation context.
+	 * @return The result of the evaluation.
+	 * @throws NotInvertibleException
+	 * @throws MultiplicativeDistributionRequiredException
+	 */
+	public R evalPartialDerivativeCached( SEvalContext<R,S> ctx ) throws NotInvertibleException, MultiplicativeDistributionRequiredException
+	{
+		final R iret = ctx.getPartialDerivative( this );
+		if( iret != null )
+		{
+			return( iret );
+		}
+		final R ret = evalPartialDerivativeCached( ctx.getWithRespectTo() , ctx.getImplicitSpace() , ctx.getLegacyCache() );
+		ctx.putPartialDerivative( this , ret );
+		return( ret );
+	}
+
 	
 	/**
 	 * Constructs the elem.
@@ -258,7 +300,21 @@ public abstract class SymbolicElem<R extends Elem<R,?>, S extends ElemFactory<R,
 	public SymbolicElemFactory<R, S> getFac() {
 		return( new SymbolicElemFactory<R,S>( fac ) );
 	}
-	
+
+
+	/**
+	 * Applies the rules of distributeSimplify2() using the Java-native rewrite engine
+	 * in {@link NativeDistributeSimplify2} rather than a Drools ( <A href="http://drools.org">http://drools.org</A> ) session.
+	 * The result has the same value as that of distributeSimplify2(), up to rounding, but negations and integer divisors may be
+	 * hoisted to different levels of the expression (see {@link NativeDistributeSimplify2}).
+	 *
+	 * @return The simplified elem.
+	 */
+	public SymbolicElem<R,S> nativeDistributeSimplify2()
+	{
+		return( NativeDistributeSimplify2.simplify( this ) );
+	}
+
 	/**
 	 * Returns true iff. the elem is a symbolic zero.
 	 * 
@@ -473,6 +529,20 @@ public abstract class SymbolicElem<R extends Elem<R,?>, S extends ElemFactory<R,
 		throw( new RuntimeException( "Not Supported " + this ) );
 	}
 	
+	
+	/**
+	 * Returns a hash of the expression that is consistent with <code>symbolicEquals()</code>, i.e. expressions
+	 * that are symbolically equal return the same hash.  The default implementation returns the hash of the class,
+	 * which is consistent for any elem that is only symbolically equal to elems of its own class.  Elems that are
+	 * identified by their content (e.g. ordinates or discretized coordinates) should override this to hash that content.
+	 * 
+	 * @return The hash of the expression.
+	 */
+	public int symbolicHashCode()
+	{
+		return( getClass().hashCode() );
+	}
+	
 
 	
 	
@@ -192,6 +192,17 @@ public class SymbolicElemFactory<R extends Elem<R,?>, S extends ElemFactory<R,S>
 		return( fac );
 	}
 	
+	
+	/**
+	 * Creates a hash-consing table that interns symbolic elems produced by this factory.
+	 * 
+	 * @return The hash-consing table.
+	 */
+	public SymbolicInterner<R,S> createInterner()
+	{
+		return( new SymbolicInterner<R,S>( fac ) );
+	}
+	
 	/**
 	 * The factory for the enclosed type.
 	 */
@@ -245,6 +245,13 @@ public class SymbolicIdentity<R extends Elem<R,?>, S extends ElemFactory<R,S>> e
 	{
 		return( b instanceof SymbolicIdentity );
 	}
+	
+	
+	@Override
+	public int symbolicHashCode()
+	{
+		return( SymbolicIdentity.class.hashCode() );
+	}
 
 }
 
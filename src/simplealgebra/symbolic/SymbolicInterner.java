@@ -0,0 +1,509 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package simplealgebra.symbolic;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+import simplealgebra.Elem;
+import simplealgebra.ElemFactory;
+
+
+/**
+ * Hash-consing table for symbolic elems.  Interning an expression replaces each structurally equal
+ * subexpression with a single canonical instance, so that subexpressions shared across large expressions
+ * are stored once.  Two canonical instances from the same table are structurally equal only if they are identical,
+ * so the table itself compares interior nodes by the identity of their arguments.  The structural hash of each
+ * canonical instance is computed once when the instance is interned, and is kept in the table rather than on the instance.
+ * 
+ * <P> Interning does not change <code>symbolicEquals()</code>.  It returns immediately when its argument is the same
+ * instance, but comparing two distinct instances still recurses through both expressions, so callers that need
+ * constant-time equality should compare canonical instances by identity.
+ * 
+ * <P> Sums, products, negations, and left and right inverses are interned recursively.  All other elems are
+ * treated as leaves, which are merged only when <code>symbolicEquals()</code> indicates that the leaves
+ * are equal.  Leaves that do not support <code>symbolicEquals()</code> are interned by identity.  Leaves are hashed with
+ * {@link SymbolicElem#symbolicHashCode()} (see {@link #computeLeafHash(SymbolicElem)}), so that interning many distinct
+ * leaves of a class that overrides it does not degrade into a linear search.
+ * 
+ * <P> A table is not thread-safe, and is intended to be used by a single thread.
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ * 
+ * @param <R> The enclosed type.
+ * @param <S> The factory for the enclosed type.
+ */
+public class SymbolicInterner<R extends Elem<R,?>, S extends ElemFactory<R,S>> {
+
+
+	/**
+	 * Constructs the table.
+	 * 
+	 * @param _fac The factory for the enclosed type.
+	 */
+	public SymbolicInterner( final S _fac )
+	{
+		fac = _fac;
+	}
+
+
+	/**
+	 * Returns the canonical instance of an expression, interning the expression and its subexpressions as necessary.
+	 * 
+	 * @param in The expression to be interned.
+	 * @return The canonical instance of the expression.
+	 */
+	public SymbolicElem<R,S> intern( final SymbolicElem<R,S> in )
+	{
+		if( hashes.containsKey( in ) )
+		{
+			return( in );
+		}
+
+		final SymbolicElem<R,S> node = internChildren( in );
+
+		final int hash = computeHash( node );
+		ArrayList<SymbolicElem<R,S>> bucket = table.get( hash );
+		if( bucket == null )
+		{
+			bucket = new ArrayList<SymbolicElem<R,S>>();
+			table.put( hash , bucket );
+		}
+
+		for( final SymbolicElem<R,S> ii : bucket )
+		{
+			if( isEqual( ii , node ) )
+			{
+				return( ii );
+			}
+		}
+
+		bucket.add( node );
+		hashes.put( node , hash );
+		return( node );
+	}
+
+
+	/**
+	 * Returns the sum of two expressions as a canonical instance.
+	 * 
+	 * @param a The left argument of the addition.
+	 * @param b The right argument of the addition.
+	 * @return The canonical instance of the sum.
+	 */
+	public SymbolicElem<R,S> add( final SymbolicElem<R,S> a , final SymbolicElem<R,S> b )
+	{
+		return( intern( intern( a ).add( intern( b ) ) ) );
+	}
+
+
+	/**
+	 * Returns the product of two expressions as a canonical instance.
+	 * 
+	 * @param a The left argument of the multiplication.
+	 * @param b The right argument of the multiplication.
+	 * @return The canonical instance of the product.
+	 */
+	public SymbolicElem<R,S> mult( final SymbolicElem<R,S> a , final SymbolicElem<R,S> b )
+	{
+		return( intern( intern( a ).mult( intern( b ) ) ) );
+	}
+
+
+	/**
+	 * Returns the negation of an expression as a canonical instance.
+	 * 
+	 * @param a The expression to be negated.
+	 * @return The canonical instance of the negation.
+	 */
+	public SymbolicElem<R,S> negate( final SymbolicElem<R,S> a )
+	{
+		return( intern( intern( a ).negate() ) );
+	}
+
+
+	/**
+	 * Returns whether an expression is a canonical instance in the table.
+	 * 
+	 * @param in The expression to be checked.
+	 * @return True iff. the expression is a canonical instance.
+	 */
+	public boolean isCanonical( final SymbolicElem<R,S> in )
+	{
+		return( hashes.containsKey( in ) );
+	}
+
+
+	/**
+	 * Returns the structural hash of a canonical instance.
+	 * 
+	 * @param in The canonical instance.
+	 * @return The structural hash.
+	 */
+	public int getStructuralHash( final SymbolicElem<R,S> in )
+	{
+		final Integer ret = hashes.get( in );
+		if( ret == null )
+		{
+			throw( new RuntimeException( "Not Interned" ) );
+		}
+		return( ret );
+	}
+
+
+	/**
+	 * Returns the number of canonical instances in the table.
+	 * 
+	 * @return The number of canonical instances.
+	 */
+	public int size()
+	{
+		return( hashes.size() );
+	}
+
+
+	/**
+	 * Returns the largest number of canonical instances sharing a structural hash.
+	 * 
+	 * @return The size of the largest bucket of the table.
+	 */
+	public int getMaxBucketSize()
+	{
+		int ret = 0;
+		for( final ArrayList<SymbolicElem<R,S>> ii : table.values() )
+		{
+			ret = Math.max( ret , ii.size() );
+		}
+		return( ret );
+	}
+
+
+	/**
+	 * Removes all canonical instances from the table.
+	 */
+	public void clear()
+	{
+		table.clear();
+		hashes.clear();
+	}
+
+
+	/**
+	 * Returns the factory for the enclosed type.
+	 * 
+	 * @return The factory for the enclosed type.
+	 */
+	public S getFac()
+	{
+		return( fac );
+	}
+
+
+	/**
+	 * Returns an expression equivalent to the input in which all subexpressions have been replaced with canonical instances.
+	 * 
+	 * @param in The input expression.
+	 * @return The expression with canonical subexpressions.
+	 */
+	protected SymbolicElem<R,S> internChildren( final SymbolicElem<R,S> in )
+	{
+		if( in instanceof SymbolicAdd )
+		{
+			final SymbolicAdd<R,S> ina = (SymbolicAdd<R,S>) in;
+			final SymbolicElem<R,S> ca = intern( ina.getElemA() );
+			final SymbolicElem<R,S> cb = intern( ina.getElemB() );
+			return( ( ( ca == ina.getElemA() ) && ( cb == ina.getElemB() ) ) ? in : new SymbolicAdd<R,S>( ca , cb , fac ) );
+		}
+
+		if( in instanceof SymbolicMult )
+		{
+			final SymbolicMult<R,S> ina = (SymbolicMult<R,S>) in;
+			final SymbolicElem<R,S> ca = intern( ina.getElemA() );
+			final SymbolicElem<R,S> cb = intern( ina.getElemB() );
+			return( ( ( ca == ina.getElemA() ) && ( cb == ina.getElemB() ) ) ? in : new SymbolicMult<R,S>( ca , cb , fac ) );
+		}
+
+		if( in instanceof SymbolicNegate )
+		{
+			final SymbolicNegate<R,S> ina = (SymbolicNegate<R,S>) in;
+			final SymbolicElem<R,S> ca = intern( ina.getElem() );
+			return( ca == ina.getElem() ? in : new SymbolicNegate<R,S>( ca , fac ) );
+		}
+
+		if( in instanceof SymbolicInvertLeft )
+		{
+			final SymbolicInvertLeft<R,S> ina = (SymbolicInvertLeft<R,S>) in;
+			final SymbolicElem<R,S> ca = intern( ina.getElem() );
+			return( ca == ina.getElem() ? in : new SymbolicInvertLeft<R,S>( ca , fac ) );
+		}
+
+		if( in instanceof SymbolicInvertRight )
+		{
+			final SymbolicInvertRight<R,S> ina = (SymbolicInvertRight<R,S>) in;
+			final SymbolicElem<R,S> ca = intern( ina.getElem() );
+			return( ca == ina.getElem() ? in : new SymbolicInvertRight<R,S>( ca , fac ) );
+		}
+
+		return( in );
+	}
+
+
+	/**
+	 * Computes the structural hash of an expression whose subexpressions are canonical instances.  The hash
+	 * is consistent with <code>symbolicEquals()</code>, so sums and commutative products combine the hashes of
+	 * their arguments symmetrically, and non-commutative products hash their flattened list of factors in order.
+	 * 
+	 * @param in The expression.
+	 * @return The structural hash.
+	 */
+	protected int computeHash( final SymbolicElem<R,S> in )
+	{
+		if( in instanceof SymbolicAdd )
+		{
+			final SymbolicAdd<R,S> ina = (SymbolicAdd<R,S>) in;
+			return( 31 * SymbolicAdd.class.hashCode() + ( hashes.get( ina.getElemA() ) + hashes.get( ina.getElemB() ) ) );
+		}
+
+		if( in instanceof SymbolicMult )
+		{
+			final SymbolicMult<R,S> ina = (SymbolicMult<R,S>) in;
+			if( fac.isMultCommutative() )
+			{
+				return( 31 * SymbolicMult.class.hashCode() + ( hashes.get( ina.getElemA() ) + hashes.get( ina.getElemB() ) ) );
+			}
+			final ArrayList<SymbolicElem<R,S>> ind = new ArrayList<SymbolicElem<R,S>>();
+			flattenMult( ina , ind );
+			int ret = SymbolicMult.class.hashCode();
+			for( final SymbolicElem<R,S> ii : ind )
+			{
+				ret = 31 * ret + hashes.get( ii );
+			}
+			return( ret );
+		}
+
+		if( in instanceof SymbolicNegate )
+		{
+			return( 31 * SymbolicNegate.class.hashCode() + hashes.get( ( (SymbolicNegate<R,S>) in ).getElem() ) );
+		}
+
+		if( in instanceof SymbolicInvertLeft )
+		{
+			return( 31 * SymbolicInvertLeft.class.hashCode() + hashes.get( ( (SymbolicInvertLeft<R,S>) in ).getElem() ) );
+		}
+
+		if( in instanceof SymbolicInvertRight )
+		{
+			return( 31 * SymbolicInvertRight.class.hashCode() + hashes.get( ( (SymbolicInvertRight<R,S>) in ).getElem() ) );
+		}
+
+		return( computeLeafHash( in ) );
+	}
+
+
+	/**
+	 * Computes the hash of a leaf from the content identifying the leaf, so that distinct leaves of the same class
+	 * are spread across the table.  Leaves that support <code>symbolicEquals()</code> are hashed with
+	 * {@link SymbolicElem#symbolicHashCode()}, which is consistent with <code>symbolicEquals()</code>.  Leaves that
+	 * do not support <code>symbolicEquals()</code> are only equal to themselves, so they are hashed by identity.
+	 * 
+	 * @param in The leaf.
+	 * @return The hash.
+	 */
+	protected int computeLeafHash( final SymbolicElem<R,S> in )
+	{
+		if( !( supportsSymbolicEquals( in.getClass() ) ) )
+		{
+			return( System.identityHashCode( in ) );
+		}
+
+		return( in.symbolicHashCode() );
+	}
+
+
+	/**
+	 * Returns whether a class of leaves supports <code>symbolicEquals()</code>, that is whether it overrides the
+	 * implementation in {@link SymbolicElem}, which throws an exception.
+	 * 
+	 * @param clss The class of leaves.
+	 * @return True iff. the class supports <code>symbolicEquals()</code>.
+	 */
+	protected boolean supportsSymbolicEquals( final Class<?> clss )
+	{
+		Boolean ret = supportsEquals.get( clss );
+		if( ret == null )
+		{
+			try
+			{
+				ret = clss.getMethod( "symbolicEquals" , SymbolicElem.class ).getDeclaringClass() != SymbolicElem.class;
+			}
+			catch( NoSuchMethodException ex )
+			{
+				ret = false;
+			}
+			supportsEquals.put( clss , ret );
+		}
+		return( ret );
+	}
+
+
+	/**
+	 * Assembles a tree of multiplications into a single list of factors, in the same way as
+	 * the non-commutative <code>symbolicEquals()</code> of {@link SymbolicMult}.
+	 * 
+	 * @param in The tree of multiplications.
+	 * @param ind The list of factors.
+	 */
+	protected void flattenMult( final SymbolicMult<R,S> in , final ArrayList<SymbolicElem<R,S>> ind )
+	{
+		if( in.getElemA() instanceof SymbolicMult )
+		{
+			flattenMult( (SymbolicMult<R,S>)( in.getElemA() ) , ind );
+		}
+		else
+		{
+			ind.add( in.getElemA() );
+		}
+
+		if( in.getElemB() instanceof SymbolicMult )
+		{
+			flattenMult( (SymbolicMult<R,S>)( in.getElemB() ) , ind );
+		}
+		else
+		{
+			ind.add( in.getElemB() );
+		}
+	}
+
+
+	/**
+	 * Returns whether two expressions whose subexpressions are canonical instances are structurally equal.  Because the
+	 * subexpressions are canonical, interior nodes are compared by the identity of their arguments.  Leaves are compared
+	 * using <code>symbolicEquals()</code>, and leaves that do not support <code>symbolicEquals()</code> are equal only if they are identical.
+	 * 
+	 * @param a The first expression.
+	 * @param b The second expression.
+	 * @return True iff. the expressions are structurally equal.
+	 */
+	protected boolean isEqual( final SymbolicElem<R,S> a , final SymbolicElem<R,S> b )
+	{
+		if( a == b )
+		{
+			return( true );
+		}
+		if( a.getClass() != b.getClass() )
+		{
+			return( false );
+		}
+		
+		if( a instanceof SymbolicAdd )
+		{
+			final SymbolicAdd<R,S> aa = (SymbolicAdd<R,S>) a;
+			final SymbolicAdd<R,S> ba = (SymbolicAdd<R,S>) b;
+			return( ( ( aa.getElemA() == ba.getElemA() ) && ( aa.getElemB() == ba.getElemB() ) ) ||
+					( ( aa.getElemA() == ba.getElemB() ) && ( aa.getElemB() == ba.getElemA() ) ) );
+		}
+		
+		if( a instanceof SymbolicMult )
+		{
+			final SymbolicMult<R,S> aa = (SymbolicMult<R,S>) a;
+			final SymbolicMult<R,S> ba = (SymbolicMult<R,S>) b;
+			if( fac.isMultCommutative() )
+			{
+				return( ( ( aa.getElemA() == ba.getElemA() ) && ( aa.getElemB() == ba.getElemB() ) ) ||
+						( ( aa.getElemA() == ba.getElemB() ) && ( aa.getElemB() == ba.getElemA() ) ) );
+			}
+			final ArrayList<SymbolicElem<R,S>> ina = new ArrayList<SymbolicElem<R,S>>();
+			final ArrayList<SymbolicElem<R,S>> inb = new ArrayList<SymbolicElem<R,S>>();
+			flattenMult( aa , ina );
+			flattenMult( ba , inb );
+			if( ina.size() != inb.size() )
+			{
+				return( false );
+			}
+			for( int cnt = 0 ; cnt < ina.size() ; cnt++ )
+			{
+				if( ina.get( cnt ) != inb.get( cnt ) )
+				{
+					return( false );
+				}
+			}
+			return( true );
+		}
+		
+		if( a instanceof SymbolicNegate )
+		{
+			return( ( (SymbolicNegate<R,S>) a ).getElem() == ( (SymbolicNegate<R,S>) b ).getElem() );
+		}
+		
+		if( a instanceof SymbolicInvertLeft )
+		{
+			return( ( (SymbolicInvertLeft<R,S>) a ).getElem() == ( (SymbolicInvertLeft<R,S>) b ).getElem() );
+		}
+		
+		if( a instanceof SymbolicInvertRight )
+		{
+			return( ( (SymbolicInvertRight<R,S>) a ).getElem() == ( (SymbolicInvertRight<R,S>) b ).getElem() );
+		}
+		
+		try
+		{
+			return( a.symbolicEquals( b ) );
+		}
+		catch( RuntimeException ex )
+		{
+			return( false );
+		}
+	}
+
+
+	/**
+	 * The factory for the enclosed type.
+	 */
+	protected S fac;
+
+	/**
+	 * Map from structural hashes to the canonical instances with each hash.
+	 */
+	protected final HashMap<Integer,ArrayList<SymbolicElem<R,S>>> table = new HashMap<Integer,ArrayList<SymbolicElem<R,S>>>();
+
+	/**
+	 * Map from each canonical instance to its structural hash.
+	 */
+	protected final IdentityHashMap<SymbolicElem<R,S>,Integer> hashes = new IdentityHashMap<SymbolicElem<R,S>,Integer>();
+
+	/**
+	 * Map from each class of leaves to whether the class supports <code>symbolicEquals()</code>.
+	 */
+	protected final HashMap<Class<?>,Boolean> supportsEquals = new HashMap<Class<?>,Boolean>();
+
+
+}
+
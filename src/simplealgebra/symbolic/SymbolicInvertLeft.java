@@ -139,6 +139,35 @@ public class SymbolicInvertLeft<R extends Elem<R,?>, S extends ElemFactory<R,S>>
 		return( ret );
 	}
 	
+	@Override
+	public R evalCached( SEvalContext<R,S> ctx ) throws NotInvertibleException, MultiplicativeDistributionRequiredException {
+		final R iret = ctx.getEval( this );
+		if( iret != null )
+		{
+			return( iret );
+		}
+		final R ret = elem.evalCached( ctx ).invertLeft();
+		ctx.putEval( this , ret );
+		return( ret );
+	}
+	
+	@Override
+	public R evalPartialDerivativeCached( SEvalContext<R,S> ctx ) throws NotInvertibleException, MultiplicativeDistributionRequiredException
+	{
+		final R iret = ctx.getPartialDerivative( this );
+		if( iret != null )
+		{
+			return( iret );
+		}
+		final R ea = elem.evalCached( ctx );
+		final R aL = ea.invertLeft();
+		final R ap = elem.evalPartialDerivativeCached( ctx );
+		final R aR = ea.invertRight();
+		final R ret = aL.mult( ap ).mult( aR ).negate();
+		ctx.putPartialDerivative( this , ret );
+		return( ret );
+	}
+	
 	@Override
 	public boolean exposesDerivatives()
 	{
@@ -261,6 +290,13 @@ public class SymbolicInvertLeft<R extends Elem<R,?>, S extends ElemFactory<R,S>>
 	}
 	
 	
+	@Override
+	public int symbolicHashCode()
+	{
+		return( 31 * SymbolicInvertLeft.class.hashCode() + elem.symbolicHashCode() );
+	}
+	
+	
 	@Override
 	public void performInserts( KieSession session )
 	{
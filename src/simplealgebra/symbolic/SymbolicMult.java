@@ -394,6 +394,71 @@ public class SymbolicMult<R extends Elem<R,?>, S extends ElemFactory<R,S>> exten
 		return( ret );
 	}
 	
+	@Override
+	public R evalCached( SEvalContext<R,S> ctx ) throws NotInvertibleException, MultiplicativeDistributionRequiredException {
+		final R iret = ctx.getEval( this );
+		if( iret != null )
+		{
+			return( iret );
+		}
+		if( elemA instanceof DerivativeElem )
+		{
+			// Derivative operators are applied through the legacy cache.
+			final R ret = evalCached( ctx.getImplicitSpace() , ctx.getLegacyCache() );
+			ctx.putEval( this , ret );
+			return( ret );
+		}
+		R ea = null;
+		try
+		{
+			ea = elemA.evalCached( ctx );
+		}
+		catch( MultiplicativeDistributionRequiredException ex )
+		{
+			// Multiplicative distribution is performed through the legacy cache.
+			final R ret = evalCached( ctx.getImplicitSpace() , ctx.getLegacyCache() );
+			ctx.putEval( this , ret );
+			return( ret );
+		}
+		final R ret = ea.mult( elemB.evalCached( ctx ) );
+		ctx.putEval( this , ret );
+		return( ret );
+	}
+	
+	@Override
+	public R evalPartialDerivativeCached( SEvalContext<R,S> ctx ) throws NotInvertibleException, MultiplicativeDistributionRequiredException
+	{
+		final R iret = ctx.getPartialDerivative( this );
+		if( iret != null )
+		{
+			return( iret );
+		}
+		if( ( elemA instanceof PartialDerivativeOp ) || ( elemA instanceof DerivativeElem ) )
+		{
+			// Derivative operators are applied through the legacy cache.
+			final R ret = evalPartialDerivativeCached( ctx.getWithRespectTo() , ctx.getImplicitSpace() , ctx.getLegacyCache() );
+			ctx.putPartialDerivative( this , ret );
+			return( ret );
+		}
+		R lt = null;
+		R rt = null;
+		try
+		{
+			lt = elemA.evalPartialDerivativeCached( ctx ).mult( elemB.evalCached( ctx ) );
+			rt = elemA.evalCached( ctx ).mult( elemB.evalPartialDerivativeCached( ctx ) );
+		}
+		catch( MultiplicativeDistributionRequiredException ex )
+		{
+			// Multiplicative distribution is performed through the legacy cache.
+			final R ret = evalPartialDerivativeCached( ctx.getWithRespectTo() , ctx.getImplicitSpace() , ctx.getLegacyCache() );
+			ctx.putPartialDerivative( this , ret );
+			return( ret );
+		}
+		final R ret = lt.add( rt );
+		ctx.putPartialDerivative( this , ret );
+		return( ret );
+	}
+	
 	@Override
 	public boolean exposesDerivatives()
 	{
@@ -538,6 +603,11 @@ public class SymbolicMult<R extends Elem<R,?>, S extends ElemFactory<R,S>> exten
 	@Override
 	public boolean symbolicEquals( SymbolicElem<R, S> b )
 	{
+		if( b == this )
+		{
+			return( true );
+		}
+		
 		if( b instanceof SymbolicMult )
 		{
 			if( this.getFac().isMultCommutative() )
@@ -554,6 +624,24 @@ public class SymbolicMult<R extends Elem<R,?>, S extends ElemFactory<R,S>> exten
 	}
 	
 	
+	@Override
+	public int symbolicHashCode()
+	{
+		if( this.getFac().isMultCommutative() )
+		{
+			return( 31 * SymbolicMult.class.hashCode() + ( elemA.symbolicHashCode() + elemB.symbolicHashCode() ) );
+		}
+		final ArrayList<SymbolicElem<R,S>> ind = new ArrayList<SymbolicElem<R,S>>();
+		this.handleMultInsert( ind );
+		int ret = SymbolicMult.class.hashCode();
+		for( final SymbolicElem<R,S> ii : ind )
+		{
+			ret = 31 * ret + ii.symbolicHashCode();
+		}
+		return( ret );
+	}
+	
+	
 	/**
 	 * Returns whether this expression is equal to the one in the parameter for a commutative algebra.
 	 * 
@@ -118,6 +118,31 @@ public class SymbolicNegate<R extends Elem<R,?>, S extends ElemFactory<R,S>> ext
 		return( ret );
 	}
 	
+	@Override
+	public R evalCached( SEvalContext<R,S> ctx ) throws NotInvertibleException, MultiplicativeDistributionRequiredException {
+		final R iret = ctx.getEval( this );
+		if( iret != null )
+		{
+			return( iret );
+		}
+		final R ret = elem.evalCached( ctx ).negate();
+		ctx.putEval( this , ret );
+		return( ret );
+	}
+	
+	@Override
+	public R evalPartialDerivativeCached( SEvalContext<R,S> ctx ) throws NotInvertibleException, MultiplicativeDistributionRequiredException
+	{
+		final R iret = ctx.getPartialDerivative( this );
+		if( iret != null )
+		{
+			return( iret );
+		}
+		final R ret = elem.evalPartialDerivativeCached( ctx ).negate();
+		ctx.putPartialDerivative( this , ret );
+		return( ret );
+	}
+	
 	@Override
 	public boolean exposesDerivatives()
 	{
@@ -239,6 +264,11 @@ public class SymbolicNegate<R extends Elem<R,?>, S extends ElemFactory<R,S>> ext
 	@Override
 	public boolean symbolicEquals( SymbolicElem<R, S> b )
 	{
+		if( b == this )
+		{
+			return( true );
+		}
+		
 		if( b instanceof SymbolicNegate )
 		{
 			return( elem.symbolicEquals( ((SymbolicNegate<R,S>) b).getElem() ) );
@@ -248,6 +278,13 @@ public class SymbolicNegate<R extends Elem<R,?>, S extends ElemFactory<R,S>> ext
 	}
 	
 	
+	@Override
+	public int symbolicHashCode()
+	{
+		return( 31 * SymbolicNegate.class.hashCode() + elem.symbolicHashCode() );
+	}
+	
+	
 	@Override
 	public void performInserts( KieSession session )
 	{
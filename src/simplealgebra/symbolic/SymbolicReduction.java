@@ -210,6 +210,22 @@ public class SymbolicReduction<R extends Elem<R,?>, S extends ElemFactory<R,S>>
 	}
 	
 	
+	@Override
+	public int symbolicHashCode()
+	{
+		if( elem instanceof SymbolicElem )
+		{
+			return( 31 * SymbolicReduction.class.hashCode() + ( (SymbolicElem) elem ).symbolicHashCode() );
+		}
+		if( getClass() == SymbolicReduction.class )
+		{
+			// A reduction of an elem that is not symbolic is not symbolically equal to any elem.
+			return( System.identityHashCode( this ) );
+		}
+		return( getClass().hashCode() );
+	}
+	
+	
 /* 	@Override
 	public boolean equals( Object b )
 	{
@@ -223,6 +223,13 @@ public class SymbolicZero<R extends Elem<R,?>, S extends ElemFactory<R,S>> exten
 		return( b instanceof SymbolicZero );
 	}
 	
+	
+	@Override
+	public int symbolicHashCode()
+	{
+		return( SymbolicZero.class.hashCode() );
+	}
+	
 	@Override
 	public boolean evalSymbolicZeroApprox( EVAL_MODE mode )
 	{
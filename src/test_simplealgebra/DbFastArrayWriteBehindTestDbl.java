@@ -0,0 +1,175 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package test_simplealgebra;
+
+
+
+import java.util.Random;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.hypergraphdb.HyperGraph;
+
+import simplealgebra.store.DbFastArray2D_Dbl;
+import simplealgebra.store.DbWriteBehindQueue;
+import simplealgebra.store.SegmentedCommitPolicy;
+import simplealgebra.store.SegmentedTransactionManager;
+import simplealgebra.store.TypeSystemInit;
+
+
+
+/**
+ * Tests HypergraphDB execution for DbFastArray2D_Dbl writing through a DbWriteBehindQueue.
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ *
+ */
+public class DbFastArrayWriteBehindTestDbl extends TestCase {
+	
+
+	/**
+	 * The size of the array along the "T" axis.
+	 */
+	static final int T_SZ = 1000;
+	
+	/**
+	 * The size of the array along the "X" axis.
+	 */
+	static final int X_SZ = 10;
+	
+	
+	
+	/**
+	 * Tests writes through the write-behind queue, with a flush at each time step, against a reference array.
+	 */
+	public void testWriteBehind2D() throws Throwable
+	{
+		Random rand = new Random( 6789 );
+		
+		
+
+		String databaseLocation = DatabasePathForTest.DATABASE_PATH + "mydbWB";
+		HyperGraph graph;
+		
+		graph = new HyperGraph( databaseLocation );
+
+		
+		TypeSystemInit.initType( graph );
+		
+		
+		final SegmentedTransactionManager stm = SegmentedTransactionManager.get( graph );
+		stm.setCommitPolicy( SegmentedCommitPolicy.opsCount( 16 ) );
+		SegmentedTransactionManager.beginSegmentedTransaction( graph );
+		
+		
+		final DbWriteBehindQueue queue = new DbWriteBehindQueue( graph , 64 );
+		
+		DbFastArray2D_Dbl db =
+				new DbFastArray2D_Dbl( graph , 3 , 3 , T_SZ , X_SZ , queue );
+		
+		final double[][] ref = new double[ T_SZ ][ X_SZ ];
+		
+		
+		for( int t = 0 ; t < T_SZ ; t++ )
+		{
+			for( int x = 0 ; x < X_SZ ; x++ )
+			{
+				final double vl = rand.nextDouble();
+				db.set( t , x , vl );
+				ref[ t ][ x ] = vl;
+				
+				if( t > 0 )
+				{
+					Assert.assertEquals( ref[ t - 1 ][ x ] , db.get( t - 1 , x ) , 0.0 );
+				}
+			}
+			
+			if( t == T_SZ - 1 )
+			{
+				// Each block written by the queue is recorded with the segmented transaction, so the commit policy applies.
+				SegmentedTransactionManager.barrier( graph );
+				final long bytesBefore = Math.round( stm.getMeanTransactionBytes() * stm.getCommits() );
+				final long writtenBefore = queue.getNumWritten();
+				db.flush();
+				SegmentedTransactionManager.barrier( graph );
+				final long bytesAfter = Math.round( stm.getMeanTransactionBytes() * stm.getCommits() );
+				Assert.assertTrue( queue.getNumWritten() > writtenBefore );
+				Assert.assertEquals( 8L * 3 * 3 * ( queue.getNumWritten() - writtenBefore ) , bytesAfter - bytesBefore );
+			}
+			else
+			{
+				db.flush();
+			}
+			
+			Assert.assertEquals( 0 , queue.getQueueDepth() );
+		}
+		
+		
+		for( int count = 0 ; count < 5000 ; count++ )
+		{
+			final int t = rand.nextInt( T_SZ );
+			final int x = rand.nextInt( X_SZ );
+			Assert.assertEquals( ref[ t ][ x ] , db.get( t , x ) , 0.0 );
+		}
+		
+		
+		db.flush();
+		
+		
+		System.out.println( "Queued: " + queue.getNumQueued() + " Coalesced: " + queue.getNumCoalesced() + 
+				" Written: " + queue.getNumWritten() + " Commits: " + queue.getNumCommits() + 
+				" Max Depth: " + queue.getMaxQueueDepth() + " Mean Commit ns: " + queue.getMeanCommitNanos() + 
+				" Max Commit ns: " + queue.getMaxCommitNanos() );
+		
+		Assert.assertTrue( queue.getNumWritten() <= queue.getNumQueued() );
+		
+		
+		SegmentedTransactionManager.commitSegmentedTransaction( graph );
+		
+		
+		Assert.assertTrue( stm.getCommits() > 1 );
+		SegmentedTransactionManager.release( graph );
+		
+		
+		graph.close();
+		
+		
+	}
+	
+	
+	
+
+
+	
+	
+}
+
+
@@ -58,6 +58,10 @@ public class PersistenceTestSuite extends TestSuite {
 		s.addTestSuite( TestQueryIterable.class );
 		s.addTestSuite( TestDaqHgDbl.class );
 		s.addTestSuite( TestDaqHgCompound.class );
+		s.addTestSuite( DbFastArrayWriteBehindTestDbl.class );
+		s.addTestSuite( TestMemoryClearingSystem.class );
+		s.addTestSuite( TestSegmentedTransactionManager.class );
+		s.addTestSuite( TestBaseDbArrayIndex.class );
 		return( s );
 	}
 	
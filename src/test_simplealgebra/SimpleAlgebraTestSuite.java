@@ -127,6 +127,27 @@ public class SimpleAlgebraTestSuite extends TestSuite {
 		s.addTestSuite( TestMatrixLnSimple.class );
 		s.addTestSuite( TestSort.class );
 		s.addTestSuite( TestMultivectorLn.class );
+		s.addTestSuite( TestBladeMaskOrd.class );
+		s.addTestSuite( TestCayleyTable.class );
+		s.addTestSuite( TestGaDoubleMultivector.class );
+		s.addTestSuite( TestSquareMatrixDense.class );
+		s.addTestSuite( TestNewtonRaphsonJacobianReuse.class );
+		s.addTestSuite( TestSymbolicInterner.class );
+		s.addTestSuite( TestSEvalContext.class );
+		s.addTestSuite( TestDroolsKieBaseCache.class );
+		s.addTestSuite( TestDroolsSessionPool.class );
+		s.addTestSuite( TestNativeDistributeSimplify2.class );
+		s.addTestSuite( TestDrMappedFile.class );
+		s.addTestSuite( TestRollingFastArray4D.class );
+		s.addTestSuite( TestDrIndexLayout.class );
+		s.addTestSuite( TestRawFileReader.class );
+		s.addTestSuite( TestCompressedSlice.class );
+		s.addTestSuite( TestCuSliceCache.class );
+		s.addTestSuite( TestDbLongIndex.class );
+		s.addTestSuite( TestJlangHandles.class );
+		s.addTestSuite( TestKernelCache.class );
+		s.addTestSuite( TestJlangBatch.class );
+		s.addTestSuite( TestInlineLeaf.class );
 		return( s );
 	}
 	
@@ -38,6 +38,9 @@ import simplealgebra.DoubleElem;
 import simplealgebra.DoubleElemFactory;
 import simplealgebra.NotInvertibleException;
 import simplealgebra.store.BaseDbArray_SingleWrite;
+import simplealgebra.store.DbArray2D_SingleWrite;
+import simplealgebra.store.DbElem;
+import simplealgebra.store.SegmentedCommitPolicy;
 import simplealgebra.store.SegmentedTransactionManager;
 import simplealgebra.store.TypeSystemInit;
 import simplealgebra.bigfixedpoint.BigFixedPointElem;
@@ -278,6 +281,59 @@ public class TestBaseDbArrayBasics extends TestCase {
 	
 	
 	
+	/**
+	 * Tests that inserts into a DbArray2D_SingleWrite, and the construction of a DbElem, are recorded with
+	 * the SegmentedTransactionManager so that its commit policy segments the transaction.
+	 * 
+	 * @throws Throwable
+	 */
+	public void testWritesReachCommitPolicy() throws Throwable
+	{
+		final int numInserts = 100;
+		
+		String databaseLocation = DatabasePathForTest.DATABASE_PATH + "mydbE2";
+		HyperGraph graph;
+		
+		graph = new HyperGraph( databaseLocation );
+		
+		TypeSystemInit.initType( graph );
+		
+		
+		final SegmentedTransactionManager stm = SegmentedTransactionManager.get( graph );
+		// Each insert records the payload and the link to the payload.
+		final long insertBytes = 2 * SegmentedTransactionManager.ATOM_WRITE_BYTES;
+		stm.setCommitPolicy( SegmentedCommitPolicy.bytesWritten( 10 * insertBytes ) );
+		SegmentedTransactionManager.beginSegmentedTransaction( graph );
+		
+		
+		DbArray2D_SingleWrite<Double> db = new DbArray2D_SingleWrite<Double>( graph );
+		
+		for( int cnt = 0 ; cnt < numInserts ; cnt++ )
+		{
+			db.set( BigInteger.valueOf( cnt ) , BigInteger.valueOf( 2 * cnt ) , new Double( cnt ) );
+		}
+		
+		Assert.assertTrue( stm.getCommits() >= numInserts / 10 );
+		
+		new DbElem<DoubleElem,DoubleElemFactory>( new DoubleElem( 1.5 ) , graph );
+		
+		
+		SegmentedTransactionManager.commitSegmentedTransaction( graph );
+		
+		
+		// The base of the array, the inserts, and the DbElem.
+		final long expectedBytes = SegmentedTransactionManager.ATOM_WRITE_BYTES + numInserts * insertBytes + 
+				SegmentedTransactionManager.ATOM_WRITE_BYTES;
+		Assert.assertEquals( expectedBytes , Math.round( stm.getMeanTransactionBytes() * stm.getCommits() ) );
+		
+		
+		SegmentedTransactionManager.release( graph );
+		graph.close();
+		
+	}
+	
+	
+	
 	/**
 	 * Tests the ability to store a DoubleElemFactory.
 	 * 
@@ -0,0 +1,145 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package test_simplealgebra;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.hypergraphdb.HyperGraph;
+
+import simplealgebra.store.DbArray3D_SingleWrite;
+import simplealgebra.store.SegmentedTransactionManager;
+import simplealgebra.store.TypeSystemInit;
+
+
+/**  
+ * Tests that reads of BaseDbArray_SingleWrite are answered by its packed index and its filter
+ * rather than by DB queries.  Uses JUnit ( <A href="http://junit.org">http://junit.org</A> ).
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ *
+ */
+public class TestBaseDbArrayIndex extends TestCase {
+	
+	
+	/**
+	 * The size of the written region along each axis.
+	 */
+	static final int SZ = 10;
+	
+	
+	/**
+	 * Generates a 3-D index for use with the test.
+	 * 
+	 * @param t The "T" index.
+	 * @param x The "X" index.
+	 * @param y The "Y" index.
+	 * @return The 3-D index.
+	 */
+	protected static ArrayList<BigInteger> gen( long t , long x , long y )
+	{
+		ArrayList<BigInteger> ret = new ArrayList<BigInteger>();
+		ret.add( BigInteger.valueOf( t ) );
+		ret.add( BigInteger.valueOf( x ) );
+		ret.add( BigInteger.valueOf( y ) );
+		return( ret );
+	}
+	
+	
+	/**
+	 * Tests a bulk insert followed by reads of written and empty locations.
+	 * 
+	 * @throws Throwable
+	 */
+	public void testIndexedReads() throws Throwable
+	{
+		HyperGraph graph = new HyperGraph( DatabasePathForTest.DATABASE_PATH + "mydbIX" );
+		
+		TypeSystemInit.initType( graph );
+		
+		SegmentedTransactionManager.beginSegmentedTransaction( graph );
+		
+		final DbArray3D_SingleWrite<Double> db = new DbArray3D_SingleWrite<Double>( graph );
+		
+		final ArrayList<ArrayList<BigInteger>> arbs = new ArrayList<ArrayList<BigInteger>>();
+		final ArrayList<Double> vals = new ArrayList<Double>();
+		for( int t = 0 ; t < SZ ; t++ )
+		{
+			for( int x = -SZ ; x < 0 ; x++ )
+			{
+				for( int y = 0 ; y < SZ ; y++ )
+				{
+					arbs.add( gen( t , x , y ) );
+					vals.add( new Double( 100 * t + 10 * x + y ) );
+				}
+			}
+		}
+		db.insertAll( arbs , vals );
+		
+		// Lets the read cache drop the written locations, so that reads go to the index.
+		arbs.clear();
+		System.gc();
+		
+		final BigInteger big = BigInteger.ONE.shiftLeft( 40 );
+		db.set( big , BigInteger.ONE , BigInteger.ONE , new Double( -1.0 ) );
+		
+		for( int t = 0 ; t < SZ ; t++ )
+		{
+			for( int x = -SZ ; x < 0 ; x++ )
+			{
+				for( int y = 0 ; y < SZ ; y++ )
+				{
+					Assert.assertEquals( 100 * t + 10 * x + y , db.get( t , x , y ) , 0.0 );
+					Assert.assertNull( db.get( t , -x , y ) );
+				}
+			}
+		}
+		
+		Assert.assertEquals( -1.0 , db.get( big , BigInteger.ONE , BigInteger.ONE ) , 0.0 );
+		Assert.assertNull( db.get( big , BigInteger.ONE , BigInteger.ZERO ) );
+		
+		System.out.println( "Index Reads " + db.getNumIndexReads() + " Filter Rejects " + db.getNumFilterRejects() + 
+				" DB Queries " + db.getNumDbQueries() );
+		
+		Assert.assertTrue( db.getNumFilterRejects() > ( 9 * SZ * SZ * SZ ) / 10 );
+		Assert.assertTrue( db.getNumDbQueries() <= 2 );
+		
+		SegmentedTransactionManager.commitSegmentedTransaction( graph );
+		
+		graph.close();
+	}
+	
+	
+}
+
+
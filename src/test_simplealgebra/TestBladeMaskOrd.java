@@ -0,0 +1,136 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+package test_simplealgebra;
+
+import java.math.BigInteger;
+import java.util.HashSet;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import simplealgebra.NumDimensions;
+import simplealgebra.ga.BladeMask;
+import simplealgebra.ga.GeometricAlgebraOrd;
+import simplealgebra.ga.Ord;
+import simplealgebra.ga.QuaternionOrd;
+import simplealgebra.ga.SpacetimeAlgebraOrd;
+
+
+/**
+ * Tests that the bitmask multiplication rules of each Ord match the HashSet multiplication rules.  Uses JUnit ( <A href="http://junit.org">http://junit.org</A> ).
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ *
+ */
+public class TestBladeMaskOrd extends TestCase {
+	
+	
+	/**
+	 * Verifies that the bitmask multiplication rules match the HashSet multiplication rules for every pair of basis vectors.
+	 * 
+	 * @param ord The Ord to be verified.
+	 * @param dim The number of dimensions in the algebra.
+	 */
+	protected <U extends NumDimensions> void verifyOrd( final Ord<U> ord , final U dim )
+	{
+		final int numBlades = 1 << dim.getVal().intValue();
+		final long[] elm = new long[ 1 ];
+		for( long ka = 0 ; ka < numBlades ; ka++ )
+		{
+			for( long kb = 0 ; kb < numBlades ; kb++ )
+			{
+				final HashSet<BigInteger> el = new HashSet<BigInteger>();
+				final boolean negate = ord.calcOrd( BladeMask.fromMask( ka ) , BladeMask.fromMask( kb ) , el , dim );
+				final boolean negatem = ord.calcOrd( ka , kb , elm , dim );
+				Assert.assertEquals( negate , negatem );
+				Assert.assertEquals( el , BladeMask.fromMask( elm[ 0 ] ) );
+			}
+		}
+	}
+	
+	
+	/**
+	 * Tests the bitmask multiplication rules for Geometric Algebra.
+	 */
+	public void testGeometricAlgebraOrd()
+	{
+		verifyOrd( new GeometricAlgebraOrd<TestDimensionFour>() , new TestDimensionFour() );
+		verifyOrd( new GeometricAlgebraOrd<TestDimensionFive>() , new TestDimensionFive() );
+	}
+	
+	
+	/**
+	 * Tests the bitmask multiplication rules for quaternions.
+	 */
+	public void testQuaternionOrd()
+	{
+		verifyOrd( new QuaternionOrd<TestDimensionThree>() , new TestDimensionThree() );
+		verifyOrd( new QuaternionOrd<TestDimensionFour>() , new TestDimensionFour() );
+	}
+	
+	
+	/**
+	 * Tests the bitmask multiplication rules for Spacetime Algebra.
+	 */
+	public void testSpacetimeAlgebraOrd()
+	{
+		verifyOrd( new SpacetimeAlgebraOrd<TestDimensionFour>() , new TestDimensionFour() );
+		verifyOrd( new SpacetimeAlgebraOrd<TestDimensionFive>() , new TestDimensionFive() );
+	}
+	
+	
+	/**
+	 * Tests the default bitmask multiplication rules for an Ord that only defines HashSet multiplication rules.
+	 */
+	public void testDefaultOrd()
+	{
+		verifyOrd( new TestInvOrd<TestDimensionOne>() , new TestDimensionOne() );
+	}
+	
+	
+	/**
+	 * Tests the conversion between bitmasks and HashSet basis vectors.
+	 */
+	public void testMaskConversion()
+	{
+		final HashSet<BigInteger> el = new HashSet<BigInteger>();
+		el.add( BigInteger.ZERO );
+		el.add( BigInteger.valueOf( 5 ) );
+		el.add( BigInteger.valueOf( 63 ) );
+		final long mask = BladeMask.toMask( el );
+		Assert.assertEquals( 3 , BladeMask.grade( mask ) );
+		Assert.assertEquals( el , BladeMask.fromMask( mask ) );
+		Assert.assertTrue( BladeMask.isMaskable( el ) );
+		el.add( BigInteger.valueOf( 64 ) );
+		Assert.assertFalse( BladeMask.isMaskable( el ) );
+	}
+	
+
+}
+
+
@@ -709,6 +709,12 @@ public class TestBurgersB extends TestCase {
 			return( col );
 		}
 		
+		@Override
+		public int symbolicHashCode()
+		{
+			return( hashCode() );
+		}
+		
 		/**
 		 * Returns the number of the ordinate.
 		 * 
@@ -1062,6 +1068,12 @@ public class TestBurgersB extends TestCase {
 			}
 			return( sum );
 		}
+		
+		@Override
+		public int symbolicHashCode()
+		{
+			return( hashCode() );
+		}
 
 		
 	}
@@ -929,6 +929,12 @@ public class TestCWave3D extends TestCase {
 			return( col );
 		}
 		
+		@Override
+		public int symbolicHashCode()
+		{
+			return( hashCode() );
+		}
+		
 		/**
 		 * Returns the number of the ordinate.
 		 * 
@@ -1287,6 +1293,12 @@ public class TestCWave3D extends TestCase {
 			return( sum );
 		}
 		
+		@Override
+		public int symbolicHashCode()
+		{
+			return( hashCode() );
+		}
+		
 		
 	}
 	
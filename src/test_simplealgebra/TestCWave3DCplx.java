@@ -1046,6 +1046,12 @@ public class TestCWave3DCplx extends TestCase {
 			return( col );
 		}
 		
+		@Override
+		public int symbolicHashCode()
+		{
+			return( hashCode() );
+		}
+		
 		/**
 		 * Returns the number of the ordinate.
 		 * 
@@ -1407,6 +1413,12 @@ public class TestCWave3DCplx extends TestCase {
 			return( sum );
 		}
 		
+		@Override
+		public int symbolicHashCode()
+		{
+			return( hashCode() );
+		}
+		
 		
 	}
 	
@@ -1258,6 +1258,12 @@ public class TestCWave3D_DR extends TestCase {
 			return( col );
 		}
 		
+		@Override
+		public int symbolicHashCode()
+		{
+			return( hashCode() );
+		}
+		
 		/**
 		 * Returns the number of the ordinate.
 		 * 
@@ -1616,6 +1622,12 @@ public class TestCWave3D_DR extends TestCase {
 			return( sum );
 		}
 		
+		@Override
+		public int symbolicHashCode()
+		{
+			return( hashCode() );
+		}
+		
 		
 	}
 	
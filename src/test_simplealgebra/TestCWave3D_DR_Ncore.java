@@ -1310,6 +1310,12 @@ public class TestCWave3D_DR_Ncore extends TestCase {
 			return( col );
 		}
 		
+		@Override
+		public int symbolicHashCode()
+		{
+			return( hashCode() );
+		}
+		
 		/**
 		 * Returns the number of the ordinate.
 		 * 
@@ -1698,6 +1704,12 @@ public class TestCWave3D_DR_Ncore extends TestCase {
 			return( sum );
 		}
 		
+		@Override
+		public int symbolicHashCode()
+		{
+			return( hashCode() );
+		}
+		
 		
 	}
 	
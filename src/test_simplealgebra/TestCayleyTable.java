@@ -0,0 +1,179 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+package test_simplealgebra;
+
+import java.math.BigInteger;
+import java.util.HashSet;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import simplealgebra.DoubleElem;
+import simplealgebra.DoubleElemFactory;
+import simplealgebra.NumDimensions;
+import simplealgebra.ga.BladeMask;
+import simplealgebra.ga.CayleyTable;
+import simplealgebra.ga.GeometricAlgebraMultivectorElem;
+import simplealgebra.ga.GeometricAlgebraMultivectorElemFactory;
+import simplealgebra.ga.GeometricAlgebraOrd;
+import simplealgebra.ga.Ord;
+import simplealgebra.ga.SpacetimeAlgebraOrd;
+
+
+/**
+ * Tests the cached multiplication tables for bitmask basis vectors.  Uses JUnit ( <A href="http://junit.org">http://junit.org</A> ).
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ *
+ */
+public class TestCayleyTable extends TestCase {
+	
+	
+	/**
+	 * Verifies that the table entries match the multiplication rules of the Ord.
+	 * 
+	 * @param ord The Ord to be verified.
+	 * @param dim The number of dimensions in the algebra.
+	 */
+	protected <U extends NumDimensions> void verifyTable( final Ord<U> ord , final U dim )
+	{
+		final CayleyTable table = CayleyTable.getTable( ord , dim );
+		Assert.assertTrue( table == CayleyTable.getTable( ord , dim ) );
+		final int numBlades = 1 << dim.getVal().intValue();
+		final long[] el = new long[ 1 ];
+		for( long ka = 0 ; ka < numBlades ; ka++ )
+		{
+			for( long kb = 0 ; kb < numBlades ; kb++ )
+			{
+				final boolean negate = ord.calcOrd( ka , kb , el , dim );
+				final long entry = table.lookup( ord , dim , ka , kb );
+				Assert.assertEquals( negate , CayleyTable.isNegate( entry ) );
+				Assert.assertEquals( el[ 0 ] , CayleyTable.getResult( entry ) );
+				final boolean wedge = BladeMask.grade( el[ 0 ] ) == ( BladeMask.grade( ka ) + BladeMask.grade( kb ) );
+				Assert.assertEquals( wedge , ( entry & CayleyTable.retainedFlag( GeometricAlgebraMultivectorElem.GeometricAlgebraMultivectorCmd.WEDGE ) ) != 0L );
+				Assert.assertTrue( ( entry & CayleyTable.retainedFlag( null ) ) != 0L );
+			}
+		}
+	}
+	
+	
+	/**
+	 * Tests the table entries for Geometric Algebra and Spacetime Algebra.
+	 */
+	public void testTableEntries()
+	{
+		verifyTable( new GeometricAlgebraOrd<TestDimensionFour>() , new TestDimensionFour() );
+		verifyTable( new SpacetimeAlgebraOrd<TestDimensionFive>() , new TestDimensionFive() );
+	}
+	
+	
+	/**
+	 * Tests that no table is built for an algebra that is too large.
+	 */
+	public void testLargeDimension()
+	{
+		final NumDimensions dim = new NumDimensions()
+		{
+			@Override
+			public BigInteger getVal()
+			{
+				return( BigInteger.valueOf( CayleyTable.MAX_TABLE_DIM + 1 ) );
+			}
+		};
+		Assert.assertNull( CayleyTable.getTable( new GeometricAlgebraOrd<NumDimensions>() , dim ) );
+	}
+	
+	
+	/**
+	 * Tests that products calculated concurrently through the shared table match.
+	 * 
+	 * @throws Throwable
+	 */
+	public void testConcurrentProducts() throws Throwable
+	{
+		final TestDimensionFour td = new TestDimensionFour();
+		final GeometricAlgebraOrd<TestDimensionFour> ord = new GeometricAlgebraOrd<TestDimensionFour>();
+		final GeometricAlgebraMultivectorElemFactory<TestDimensionFour,GeometricAlgebraOrd<TestDimensionFour>,DoubleElem,DoubleElemFactory> se = 
+				new GeometricAlgebraMultivectorElemFactory<TestDimensionFour,GeometricAlgebraOrd<TestDimensionFour>,DoubleElem,DoubleElemFactory>( new DoubleElemFactory() , td , ord );
+		
+		final GeometricAlgebraMultivectorElem<TestDimensionFour,GeometricAlgebraOrd<TestDimensionFour>,DoubleElem,DoubleElemFactory> a = se.zero();
+		final GeometricAlgebraMultivectorElem<TestDimensionFour,GeometricAlgebraOrd<TestDimensionFour>,DoubleElem,DoubleElemFactory> b = se.zero();
+		for( long k = 0 ; k < 16 ; k++ )
+		{
+			final HashSet<BigInteger> key = BladeMask.fromMask( k );
+			a.setVal( key , new DoubleElem( 1.0 + k ) );
+			b.setVal( key , new DoubleElem( 2.0 - 0.5 * k ) );
+		}
+		
+		final GeometricAlgebraMultivectorElem<TestDimensionFour,GeometricAlgebraOrd<TestDimensionFour>,DoubleElem,DoubleElemFactory> expected = a.mult( b );
+		
+		final Throwable[] failure = new Throwable[ 1 ];
+		final Thread[] threads = new Thread[ 4 ];
+		for( int cnt = 0 ; cnt < threads.length ; cnt++ )
+		{
+			threads[ cnt ] = new Thread()
+			{
+				@Override
+				public void run()
+				{
+					try
+					{
+						for( int iter = 0 ; iter < 100 ; iter++ )
+						{
+							final GeometricAlgebraMultivectorElem<TestDimensionFour,GeometricAlgebraOrd<TestDimensionFour>,DoubleElem,DoubleElemFactory> prod = a.mult( b );
+							for( long k = 0 ; k < 16 ; k++ )
+							{
+								final HashSet<BigInteger> key = BladeMask.fromMask( k );
+								Assert.assertEquals( expected.getVal( key ).getVal() , prod.getVal( key ).getVal() , 1E-10 );
+							}
+						}
+					}
+					catch( Throwable ex )
+					{
+						failure[ 0 ] = ex;
+					}
+				}
+			};
+			threads[ cnt ].start();
+		}
+		
+		for( final Thread th : threads )
+		{
+			th.join();
+		}
+		
+		if( failure[ 0 ] != null )
+		{
+			throw( failure[ 0 ] );
+		}
+	}
+	
+
+}
+
+
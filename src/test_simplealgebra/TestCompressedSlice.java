@@ -0,0 +1,266 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package test_simplealgebra;
+
+import java.io.File;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import simplealgebra.store.CompressedSliceCodec;
+import simplealgebra.store.CompressedSliceReader;
+import simplealgebra.store.RawFileHeader;
+import simplealgebra.store.RawFileWriter;
+
+
+/**
+ * Tests the lossless compressed time-slice format written by RawFileWriter.writeCompressed() and read by
+ * CompressedSliceReader, and benchmarks its compression ratio and throughput on a smoothly varying wave field.
+ * Uses JUnit ( <A href="http://junit.org">http://junit.org</A> ).
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ *
+ */
+public class TestCompressedSlice extends TestCase {
+	
+	
+	/**
+	 * Writer for a traveling wave field, with optional special values.
+	 * 
+	 * @author thorngreen
+	 * 
+	 */
+	protected static class TstWaveWriter extends RawFileWriter
+	{
+		/**
+		 * The size of the field along the T-Axis.
+		 */
+		protected final int tmax;
+		
+		/**
+		 * The size of the field along each spatial axis.
+		 */
+		protected final int xyzmax;
+		
+		/**
+		 * Whether to place special values (NaN, infinities, negative zero) in the field.
+		 */
+		protected final boolean special;
+		
+		/**
+		 * Constructs the writer.
+		 * 
+		 * @param _tmax The size of the field along the T-Axis.
+		 * @param _xyzmax The size of the field along each spatial axis.
+		 * @param _special Whether to place special values in the field.
+		 */
+		public TstWaveWriter( int _tmax , int _xyzmax , boolean _special )
+		{
+			tmax = _tmax;
+			xyzmax = _xyzmax;
+			special = _special;
+		}
+
+		@Override
+		protected int bufferSize() {
+			return( 8000 );
+		}
+
+		@Override
+		protected double getVal(int t, int x, int y, int z) throws Throwable {
+			return( val( t , x , y , z , special ) );
+		}
+
+		@Override
+		protected int getTStrt() {
+			return( 0 );
+		}
+
+		@Override
+		protected int getTEnd() {
+			return( tmax );
+		}
+
+		@Override
+		protected int getZStrt() {
+			return( 0 );
+		}
+
+		@Override
+		protected int getZEnd() {
+			return( xyzmax );
+		}
+
+		@Override
+		protected int getYStrt() {
+			return( 0 );
+		}
+
+		@Override
+		protected int getYEnd() {
+			return( xyzmax );
+		}
+
+		@Override
+		protected int getXStrt() {
+			return( 0 );
+		}
+
+		@Override
+		protected int getXEnd() {
+			return( xyzmax );
+		}
+		
+	}
+	
+	
+	/**
+	 * Gets the value of the wave field at an index.
+	 * 
+	 * @param t The T-axis index.
+	 * @param x The X-axis index.
+	 * @param y The Y-axis index.
+	 * @param z The Z-axis index.
+	 * @param special Whether to place special values in the field.
+	 * @return The value.
+	 */
+	protected static double val( int t , int x , int y , int z , boolean special )
+	{
+		if( special && ( x == 1 ) && ( y == 2 ) )
+		{
+			switch( ( t + z ) % 4 )
+			{
+				case 0:
+					return( Double.NaN );
+				case 1:
+					return( Double.POSITIVE_INFINITY );
+				case 2:
+					return( -0.0 );
+				default:
+					return( Double.MIN_VALUE );
+			}
+		}
+		final double r = Math.sqrt( ( x - 10.5 ) * ( x - 10.5 ) + ( y - 7.25 ) * ( y - 7.25 ) + z * z );
+		return( Math.exp( -0.01 * r ) * Math.sin( 0.3 * r - 0.02 * t ) );
+	}
+	
+	
+	/**
+	 * Verifies that every element reads back with exactly the bits that were written, with the slices accessed
+	 * in random order so that slices are decoded both in sequence and from their key slices.
+	 * 
+	 * @throws Throwable
+	 */
+	public void testLosslessRandomAccess() throws Throwable
+	{
+		final File f = File.createTempFile( "slices" , ".rawz" );
+		f.deleteOnExit();
+		
+		final TstWaveWriter wr = new TstWaveWriter( 11 , 6 , true );
+		wr.writeCompressed( f.getPath() , 4 , Deflater.DEFAULT_COMPRESSION );
+		
+		final CompressedSliceReader rd = new CompressedSliceReader( f.getPath() );
+		Assert.assertEquals( 11 , rd.getNumSlices() );
+		Assert.assertEquals( 6 , rd.getRanges().getXEnd() );
+		
+		final Random rand = new Random( 4455 );
+		for( int count = 0 ; count < 2000 ; count++ )
+		{
+			final int t = rand.nextInt( 11 );
+			final int x = rand.nextInt( 6 );
+			final int y = rand.nextInt( 6 );
+			final int z = rand.nextInt( 6 );
+			Assert.assertEquals( Double.doubleToRawLongBits( val( t , x , y , z , true ) ) , 
+					Double.doubleToRawLongBits( rd.get( t , x , y , z ) ) );
+		}
+		
+		rd.close();
+	}
+	
+	
+	/**
+	 * Benchmarks the compression ratio and the write and read throughput of the compressed format against
+	 * the uncompressed format written by RawFileWriter.writeRaw(), for a smoothly varying wave field.
+	 * 
+	 * @throws Throwable
+	 */
+	public void testCompressionBenchmark() throws Throwable
+	{
+		final File fz = File.createTempFile( "slices" , ".rawz" );
+		final File fr = File.createTempFile( "slices" , ".raw" );
+		fz.deleteOnExit();
+		fr.deleteOnExit();
+		
+		final int tmax = 24;
+		final int xyzmax = 40;
+		final TstWaveWriter wr = new TstWaveWriter( tmax , xyzmax , false );
+		
+		final long rawStart = System.nanoTime();
+		wr.writeRaw( fr.getPath() , RawFileHeader.ElemType.DOUBLE , ByteOrder.BIG_ENDIAN , 1 );
+		final long rawEnd = System.nanoTime();
+		
+		final long zStart = System.nanoTime();
+		final double ratio = wr.writeCompressed( fz.getPath() , CompressedSliceCodec.DEFAULT_KEY_INTERVAL , Deflater.BEST_SPEED );
+		final long zEnd = System.nanoTime();
+		
+		final CompressedSliceReader rd = new CompressedSliceReader( fz.getPath() );
+		final double[] vals = new double[ xyzmax * xyzmax * xyzmax ];
+		final long readStart = System.nanoTime();
+		for( int t = 0 ; t < tmax ; t++ )
+		{
+			rd.getSlice( t , vals );
+		}
+		final long readEnd = System.nanoTime();
+		rd.close();
+		
+		final double mb = ( 8.0 * tmax * xyzmax * xyzmax * xyzmax ) / ( 1024.0 * 1024.0 );
+		System.out.println( "Raw Size " + fr.length() + " Compressed Size " + fz.length() + " Ratio " + ratio );
+		System.out.println( "Uncompressed Write " + ( mb / ( ( rawEnd - rawStart ) / 1E+9 ) ) + " MB/s" );
+		System.out.println( "Compressed Write " + ( mb / ( ( zEnd - zStart ) / 1E+9 ) ) + " MB/s" );
+		System.out.println( "Compressed Read " + ( mb / ( ( readEnd - readStart ) / 1E+9 ) ) + " MB/s" );
+		
+		for( int i = 0 ; i < vals.length ; i += 97 )
+		{
+			final int x = i % xyzmax;
+			final int y = ( i / xyzmax ) % xyzmax;
+			final int z = i / ( xyzmax * xyzmax );
+			Assert.assertEquals( val( tmax - 1 , x , y , z , false ) , vals[ i ] , 0.0 );
+		}
+		
+		Assert.assertTrue( fz.length() < fr.length() );
+	}
+	
+	
+}
+
+
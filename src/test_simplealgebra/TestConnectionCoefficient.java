@@ -210,6 +210,12 @@ public class TestConnectionCoefficient extends TestCase {
 			return( col );
 		}
 		
+		@Override
+		public int symbolicHashCode()
+		{
+			return( hashCode() );
+		}
+		
 		/**
 		 * Returns the number of the ordinate.
 		 * 
@@ -353,6 +359,12 @@ public class TestConnectionCoefficient extends TestCase {
 		{
 			return( 5 );
 		}
+		
+		@Override
+		public int symbolicHashCode()
+		{
+			return( hashCode() );
+		}
 
 		
 		
@@ -466,6 +478,12 @@ public class TestConnectionCoefficient extends TestCase {
 			return( col );
 		}
 		
+		@Override
+		public int symbolicHashCode()
+		{
+			return( hashCode() );
+		}
+		
 		/**
 		 * Gets the index of the component.
 		 * 
@@ -218,6 +218,12 @@ public class TestCovariantDerivative extends TestCase {
 			return( col );
 		}
 		
+		@Override
+		public int symbolicHashCode()
+		{
+			return( hashCode() );
+		}
+		
 		/**
 		 * Returns the number of the ordinate.
 		 * 
@@ -358,6 +364,12 @@ public class TestCovariantDerivative extends TestCase {
 			return( 5 );
 		}
 		
+		@Override
+		public int symbolicHashCode()
+		{
+			return( hashCode() );
+		}
+		
 	}
 	
 	
@@ -468,6 +480,12 @@ public class TestCovariantDerivative extends TestCase {
 			return( col );
 		}
 		
+		@Override
+		public int symbolicHashCode()
+		{
+			return( hashCode() );
+		}
+		
 		/**
 		 * Gets the index of the component.
 		 * 
@@ -245,6 +245,12 @@ public class TestCovariantDerivativeFlat extends TestCase {
 			return( col );
 		}
 		
+		@Override
+		public int symbolicHashCode()
+		{
+			return( hashCode() );
+		}
+		
 		/**
 		 * Returns the number of the ordinate.
 		 * 
@@ -385,6 +391,12 @@ public class TestCovariantDerivativeFlat extends TestCase {
 			return( 5 );
 		}
 		
+		@Override
+		public int symbolicHashCode()
+		{
+			return( hashCode() );
+		}
+		
 	}
 	
 	
@@ -495,6 +507,12 @@ public class TestCovariantDerivativeFlat extends TestCase {
 			return( col );
 		}
 		
+		@Override
+		public int symbolicHashCode()
+		{
+			return( hashCode() );
+		}
+		
 		/**
 		 * Gets the index of the component.
 		 * 
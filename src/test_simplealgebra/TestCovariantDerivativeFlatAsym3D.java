@@ -243,6 +243,12 @@ public class TestCovariantDerivativeFlatAsym3D extends TestCase {
 			return( col );
 		}
 		
+		@Override
+		public int symbolicHashCode()
+		{
+			return( hashCode() );
+		}
+		
 		/**
 		 * Returns the number of the ordinate.
 		 * 
@@ -383,6 +389,12 @@ public class TestCovariantDerivativeFlatAsym3D extends TestCase {
 			return( 5 );
 		}
 		
+		@Override
+		public int symbolicHashCode()
+		{
+			return( hashCode() );
+		}
+		
 	}
 	
 	
@@ -494,6 +506,12 @@ public class TestCovariantDerivativeFlatAsym3D extends TestCase {
 			return( col );
 		}
 		
+		@Override
+		public int symbolicHashCode()
+		{
+			return( hashCode() );
+		}
+		
 		/**
 		 * Gets the index of the component.
 		 * 
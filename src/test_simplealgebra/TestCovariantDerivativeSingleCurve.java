@@ -252,6 +252,12 @@ public class TestCovariantDerivativeSingleCurve extends TestCase {
 			return( col );
 		}
 		
+		@Override
+		public int symbolicHashCode()
+		{
+			return( hashCode() );
+		}
+		
 		/**
 		 * Returns the number of the ordinate.
 		 * 
@@ -392,6 +398,12 @@ public class TestCovariantDerivativeSingleCurve extends TestCase {
 			return( 5 );
 		}
 		
+		@Override
+		public int symbolicHashCode()
+		{
+			return( hashCode() );
+		}
+		
 	}
 	
 	
@@ -508,6 +520,12 @@ public class TestCovariantDerivativeSingleCurve extends TestCase {
 			return( col );
 		}
 		
+		@Override
+		public int symbolicHashCode()
+		{
+			return( hashCode() );
+		}
+		
 		/**
 		 * Gets the index of the component.
 		 * 
@@ -0,0 +1,286 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package test_simplealgebra;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.Random;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import simplealgebra.store.CuFastArray_4D_Dbl_Cplx;
+import simplealgebra.store.CuSliceCache;
+import simplealgebra.store.DbFastArray4D_Param;
+
+
+/**
+ * Tests reading CuFastArray_4D_Dbl_Cplx time slices through a shared, memory-mapped CuSliceCache.
+ * Uses JUnit ( <A href="http://junit.org">http://junit.org</A> ).
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ *
+ */
+public class TestCuSliceCache extends TestCase {
+	
+	
+	/**
+	 * The size of the array along the T-axis.
+	 */
+	protected static final int TMAX = 6;
+	
+	/**
+	 * The size of the array along the X-axis.
+	 */
+	protected static final int XMAX = 5;
+	
+	/**
+	 * The size of the array along the Y-axis.
+	 */
+	protected static final int YMAX = 4;
+	
+	/**
+	 * The size of the array along the Z-axis.
+	 */
+	protected static final int ZMAX = 3;
+	
+	
+	/**
+	 * Gets the expected value of a part of the array.
+	 * 
+	 * @param t The "T" index of the array.
+	 * @param x The "X" index of the array.
+	 * @param y The "Y" index of the array.
+	 * @param z The "Z" index of the array.
+	 * @param im Whether to get the imaginary part.
+	 * @return The expected value.
+	 */
+	protected static double val( int t , int x , int y , int z , boolean im )
+	{
+		return( 1000.0 * t + 100.0 * z + 10.0 * y + x + ( im ? 0.5 : 0.0 ) );
+	}
+	
+	
+	/**
+	 * Writes the outD_* slice files in the layout produced by the Cuda code.
+	 * 
+	 * @return The directory containing the slice files.
+	 * @throws Throwable
+	 */
+	protected File writeSlices() throws Throwable
+	{
+		final File dir = File.createTempFile( "cuslices" , "" );
+		dir.delete();
+		dir.mkdir();
+		dir.deleteOnExit();
+		for( int t = 0 ; t < TMAX ; t++ )
+		{
+			final File f = new File( dir , "outD_" + ( t + 1 ) );
+			f.deleteOnExit();
+			final DataOutputStream out = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( f ) ) );
+			for( int z = 0 ; z < ZMAX ; z++ )
+			{
+				for( int y = 0 ; y < YMAX ; y++ )
+				{
+					for( int x = 0 ; x < XMAX ; x++ )
+					{
+						out.writeDouble( val( t , x , y , z , false ) );
+						out.writeDouble( val( t , x , y , z , true ) );
+					}
+				}
+			}
+			out.close();
+		}
+		return( dir );
+	}
+	
+	
+	/**
+	 * Gets the input parameter of the array.
+	 * 
+	 * @return The input parameter.
+	 */
+	protected DbFastArray4D_Param getParam()
+	{
+		final DbFastArray4D_Param param = new DbFastArray4D_Param();
+		param.setTmult( 1 );
+		param.setXmult( 1 );
+		param.setYmult( 1 );
+		param.setZmult( 1 );
+		param.setTmax( TMAX );
+		param.setXmax( XMAX );
+		param.setYmax( YMAX );
+		param.setZmax( ZMAX );
+		return( param );
+	}
+	
+	
+	/**
+	 * Verifies that the real and imaginary arrays read the right values through a shared cache
+	 * that is small enough to force evictions, and that the cache stays within its byte budget.
+	 * 
+	 * @throws Throwable
+	 */
+	public void testSharedCacheEviction() throws Throwable
+	{
+		final File dir = writeSlices();
+		final long sliceBytes = 8L * 2 * XMAX * YMAX * ZMAX;
+		final CuSliceCache cache = new CuSliceCache( 2 * sliceBytes );
+		final CuFastArray_4D_Dbl_Cplx re = new CuFastArray_4D_Dbl_Cplx( getParam() , dir.getPath() , false , cache );
+		final CuFastArray_4D_Dbl_Cplx im = new CuFastArray_4D_Dbl_Cplx( getParam() , dir.getPath() , true , cache );
+		
+		for( int t = 0 ; t < TMAX ; t++ )
+		{
+			for( int z = 0 ; z < ZMAX ; z++ )
+			{
+				for( int y = 0 ; y < YMAX ; y++ )
+				{
+					for( int x = 0 ; x < XMAX ; x++ )
+					{
+						Assert.assertEquals( val( t , x , y , z , false ) , re.get( t , x , y , z ) , 0.0 );
+						Assert.assertEquals( val( t , x , y , z , true ) , im.get( t , x , y , z ) , 0.0 );
+					}
+				}
+			}
+			Assert.assertTrue( cache.getMappedBytes() <= cache.getByteBudget() );
+		}
+		
+		Assert.assertEquals( 0.0 , re.get( TMAX , 0 , 0 , 0 ) , 0.0 );
+		Assert.assertEquals( 0.0 , im.get( 0 , -1 , 0 , 0 ) , 0.0 );
+		Assert.assertEquals( TMAX , cache.getMisses() );
+		Assert.assertEquals( TMAX - 2 , cache.getEvictions() );
+		
+		re.close();
+		im.close();
+		cache.clear();
+		Assert.assertEquals( 0 , cache.getMappedBytes() );
+	}
+	
+	
+	/**
+	 * Verifies the bulk slab views of a time slice and of one XY-plane.
+	 * 
+	 * @throws Throwable
+	 */
+	public void testSlabs() throws Throwable
+	{
+		final File dir = writeSlices();
+		final CuSliceCache cache = new CuSliceCache( CuSliceCache.DEFAULT_BYTE_BUDGET );
+		final CuFastArray_4D_Dbl_Cplx re = new CuFastArray_4D_Dbl_Cplx( getParam() , dir.getPath() , false , cache );
+		
+		final DoubleBuffer slab = re.getSlab( 3 );
+		Assert.assertEquals( 2 * XMAX * YMAX * ZMAX , slab.remaining() );
+		Assert.assertEquals( val( 3 , 2 , 1 , 2 , true ) , slab.get( 2 * ( 2 + XMAX * ( 1 + YMAX * 2 ) ) + 1 ) , 0.0 );
+		
+		final DoubleBuffer plane = re.getSlabZ( 4 , 1 );
+		Assert.assertEquals( 2 * XMAX * YMAX , plane.remaining() );
+		for( int y = 0 ; y < YMAX ; y++ )
+		{
+			for( int x = 0 ; x < XMAX ; x++ )
+			{
+				Assert.assertEquals( val( 4 , x , y , 1 , false ) , plane.get() , 0.0 );
+				Assert.assertEquals( val( 4 , x , y , 1 , true ) , plane.get() , 0.0 );
+			}
+		}
+		
+		re.close();
+	}
+	
+	
+	/**
+	 * Verifies that several threads can read through one array and one small cache concurrently.
+	 * 
+	 * @throws Throwable
+	 */
+	public void testConcurrentReaders() throws Throwable
+	{
+		final File dir = writeSlices();
+		final long sliceBytes = 8L * 2 * XMAX * YMAX * ZMAX;
+		final CuSliceCache cache = new CuSliceCache( 3 * sliceBytes );
+		final CuFastArray_4D_Dbl_Cplx im = new CuFastArray_4D_Dbl_Cplx( getParam() , dir.getPath() , true , cache );
+		final Throwable[] failure = new Throwable[ 1 ];
+		
+		final ArrayList<Thread> threads = new ArrayList<Thread>();
+		for( int cnt = 0 ; cnt < 4 ; cnt++ )
+		{
+			final int seed = cnt;
+			threads.add( new Thread()
+			{
+				@Override
+				public void run()
+				{
+					try
+					{
+						final Random rand = new Random( seed );
+						for( int i = 0 ; i < 20000 ; i++ )
+						{
+							final int t = rand.nextInt( TMAX );
+							final int x = rand.nextInt( XMAX );
+							final int y = rand.nextInt( YMAX );
+							final int z = rand.nextInt( ZMAX );
+							if( im.get( t , x , y , z ) != val( t , x , y , z , true ) )
+							{
+								throw( new RuntimeException( "Wrong Value" ) );
+							}
+						}
+					}
+					catch( Throwable ex )
+					{
+						synchronized( failure )
+						{
+							failure[ 0 ] = ex;
+						}
+					}
+				}
+			} );
+		}
+		
+		for( final Thread th : threads )
+		{
+			th.start();
+		}
+		for( final Thread th : threads )
+		{
+			th.join();
+		}
+		
+		Assert.assertNull( failure[ 0 ] );
+		Assert.assertTrue( cache.getMappedBytes() <= cache.getByteBudget() );
+		im.close();
+	}
+	
+	
+}
+
+
@@ -0,0 +1,151 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package test_simplealgebra;
+
+
+import java.util.HashMap;
+import java.util.Random;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import simplealgebra.store.DbBloomFilter;
+import simplealgebra.store.DbLongIndex;
+
+
+/**
+ * Tests the off-heap index and the Bloom filter used by BaseDbArray_SingleWrite to avoid DB queries.
+ * Uses JUnit ( <A href="http://junit.org">http://junit.org</A> ).
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ *
+ */
+public class TestDbLongIndex extends TestCase {
+	
+	
+	/**
+	 * Verifies the index against a HashMap as the index grows from its minimum size.
+	 * 
+	 * @throws Throwable
+	 */
+	public void testIndexAgainstHashMap() throws Throwable
+	{
+		final Random rand = new Random( 3344 );
+		final DbLongIndex index = new DbLongIndex( 0 );
+		final HashMap<Long,Long> ref = new HashMap<Long,Long>();
+		final long[] val = new long[ 2 ];
+		
+		for( int cnt = 0 ; cnt < 50000 ; cnt++ )
+		{
+			// Dense keys exercise clustering, sparse keys exercise the full range.
+			final long key = ( cnt % 2 == 0 ) ? rand.nextInt( 40000 ) : rand.nextLong();
+			final long hi = rand.nextLong();
+			index.put( key , hi , ~hi );
+			ref.put( key , hi );
+		}
+		
+		Assert.assertEquals( ref.size() , index.size() );
+		Assert.assertTrue( 2L * index.size() <= index.getCapacity() );
+		
+		for( final Long key : ref.keySet() )
+		{
+			Assert.assertTrue( index.get( key , val ) );
+			Assert.assertEquals( ref.get( key ).longValue() , val[ 0 ] );
+			Assert.assertEquals( ~( ref.get( key ).longValue() ) , val[ 1 ] );
+		}
+		
+		for( int cnt = 0 ; cnt < 10000 ; cnt++ )
+		{
+			final long key = rand.nextLong();
+			if( !( ref.containsKey( key ) ) )
+			{
+				Assert.assertFalse( index.get( key , val ) );
+			}
+		}
+	}
+	
+	
+	/**
+	 * Verifies that presizing the index for a bulk load avoids rehashing.
+	 * 
+	 * @throws Throwable
+	 */
+	public void testIndexPresize() throws Throwable
+	{
+		final DbLongIndex index = new DbLongIndex( 16 );
+		index.ensureCapacity( 10000 );
+		final int capacity = index.getCapacity();
+		for( int cnt = 0 ; cnt < 10000 ; cnt++ )
+		{
+			index.put( 1000L * cnt , cnt , -cnt );
+		}
+		Assert.assertEquals( capacity , index.getCapacity() );
+		final long[] val = new long[ 2 ];
+		Assert.assertTrue( index.get( 9999000L , val ) );
+		Assert.assertEquals( 9999L , val[ 0 ] );
+		Assert.assertEquals( -9999L , val[ 1 ] );
+	}
+	
+	
+	/**
+	 * Verifies that the Bloom filter has no false negatives and a low false positive rate as it adds stages.
+	 * 
+	 * @throws Throwable
+	 */
+	public void testBloomFilter() throws Throwable
+	{
+		final DbBloomFilter filter = new DbBloomFilter( 100 );
+		for( long cnt = 0 ; cnt < 20000 ; cnt++ )
+		{
+			filter.add( DbLongIndex.mix( cnt ) );
+		}
+		Assert.assertTrue( filter.getNumStages() > 1 );
+		
+		for( long cnt = 0 ; cnt < 20000 ; cnt++ )
+		{
+			Assert.assertTrue( filter.mightContain( DbLongIndex.mix( cnt ) ) );
+		}
+		
+		int falsePositives = 0;
+		for( long cnt = 20000 ; cnt < 120000 ; cnt++ )
+		{
+			if( filter.mightContain( DbLongIndex.mix( cnt ) ) )
+			{
+				falsePositives++;
+			}
+		}
+		System.out.println( "Bloom Stages " + filter.getNumStages() + " False Positive Rate " + ( falsePositives / 100000.0 ) );
+		Assert.assertTrue( falsePositives < 2000 );
+	}
+	
+	
+}
+
+
@@ -0,0 +1,331 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package test_simplealgebra;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import simplealgebra.store.DbFastArray4D_Param;
+import simplealgebra.store.DbFastArrayLayout;
+import simplealgebra.store.DrFastArray4D_Dbl;
+import simplealgebra.store.DrIndexLayout;
+
+
+/**
+ * Tests the index layouts of the direct access arrays, and benchmarks the number of page faults and cache misses
+ * of each layout for the access pattern of a 3-D stencil.  Uses JUnit ( <A href="http://junit.org">http://junit.org</A> ).
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ *
+ */
+public class TestDrIndexLayout extends TestCase {
+	
+	
+	/**
+	 * The size of a double-precision number in bytes.
+	 */
+	protected static final int SZ_DBL = 8;
+	
+	
+	/**
+	 * Creates the parameters of an array.
+	 * 
+	 * @param layout The layout of the array image.
+	 * @param tmax The size of the array along the T-axis.
+	 * @param xyzmax The size of the array along each spatial axis.
+	 * @param xyzmult The size of each cell along each spatial axis.
+	 * @return The parameters of the array.
+	 */
+	protected static DbFastArray4D_Param createParam( DbFastArrayLayout layout , int tmax , int xyzmax , int xyzmult )
+	{
+		final DbFastArray4D_Param param = new DbFastArray4D_Param();
+		param.setTmult( 2 );
+		param.setXmult( xyzmult );
+		param.setYmult( xyzmult );
+		param.setZmult( xyzmult );
+		param.setTmax( tmax );
+		param.setXmax( xyzmax );
+		param.setYmax( xyzmax );
+		param.setZmax( xyzmax );
+		param.setLayout( layout );
+		return( param );
+	}
+	
+	
+	/**
+	 * Gets the value written to an array element.
+	 * 
+	 * @param t The T-axis index.
+	 * @param x The X-axis index.
+	 * @param y The Y-axis index.
+	 * @param z The Z-axis index.
+	 * @return The value.
+	 */
+	protected static double val( int t , int x , int y , int z )
+	{
+		return( 1000.0 * t + 100.0 * x + 10.0 * y + z + 0.5 );
+	}
+	
+	
+	/**
+	 * Verifies that each layout maps the elements of an array with uneven sizes to distinct offsets within the array image.
+	 */
+	public void testDistinctOffsets()
+	{
+		final int[] mults = { 2 , 3 , 2 , 4 };
+		final int[] maxes = { 5 , 7 , 6 , 9 };
+		for( final DbFastArrayLayout layout : DbFastArrayLayout.values() )
+		{
+			final DrIndexLayout li = new DrIndexLayout( layout , mults , maxes );
+			final HashSet<Long> offsets = new HashSet<Long>();
+			for( int t = 0 ; t < maxes[ 0 ] ; t++ )
+			{
+				for( int x = 0 ; x < maxes[ 1 ] ; x++ )
+				{
+					for( int y = 0 ; y < maxes[ 2 ] ; y++ )
+					{
+						for( int z = 0 ; z < maxes[ 3 ] ; z++ )
+						{
+							final long index = li.index( t , x , y , z );
+							Assert.assertTrue( index >= 0 );
+							Assert.assertTrue( index < li.getLength() );
+							Assert.assertTrue( offsets.add( index ) );
+						}
+					}
+				}
+			}
+		}
+	}
+	
+	
+	/**
+	 * Verifies that arrays with each layout read back the values written to them, and that the BLOCKED
+	 * layout places the elements at the same offsets as the original index computation of DrFastArray4D_Dbl.
+	 * 
+	 * @throws Throwable
+	 */
+	public void testArrayLayouts() throws Throwable
+	{
+		for( final DbFastArrayLayout layout : DbFastArrayLayout.values() )
+		{
+			final File f = File.createTempFile( "layout" , ".dbl" );
+			f.deleteOnExit();
+			
+			final DbFastArray4D_Param param = createParam( layout , 3 , 5 , 2 );
+			final DrFastArray4D_Dbl arr = new DrFastArray4D_Dbl( param , f.getPath() );
+			
+			for( int t = 0 ; t < param.getTmax() ; t++ )
+			{
+				for( int x = 0 ; x < param.getXmax() ; x++ )
+				{
+					for( int y = 0 ; y < param.getYmax() ; y++ )
+					{
+						for( int z = 0 ; z < param.getZmax() ; z++ )
+						{
+							arr.set( t , x , y , z , val( t , x , y , z ) );
+						}
+					}
+				}
+			}
+			
+			for( int t = 0 ; t < param.getTmax() ; t++ )
+			{
+				for( int x = 0 ; x < param.getXmax() ; x++ )
+				{
+					for( int y = 0 ; y < param.getYmax() ; y++ )
+					{
+						for( int z = 0 ; z < param.getZmax() ; z++ )
+						{
+							Assert.assertEquals( val( t , x , y , z ) , arr.get( t , x , y , z ) , 0.0 );
+						}
+					}
+				}
+			}
+			
+			arr.close();
+			
+			final DrIndexLayout li = DrIndexLayout.create( param );
+			Assert.assertEquals( SZ_DBL * li.getLength() , f.length() );
+			
+			final RandomAccessFile raw = new RandomAccessFile( f , "r" );
+			for( int t = 0 ; t < param.getTmax() ; t++ )
+			{
+				for( int x = 0 ; x < param.getXmax() ; x++ )
+				{
+					for( int y = 0 ; y < param.getYmax() ; y++ )
+					{
+						for( int z = 0 ; z < param.getZmax() ; z++ )
+						{
+							raw.seek( SZ_DBL * li.index( t , x , y , z ) );
+							Assert.assertEquals( val( t , x , y , z ) , raw.readDouble() , 0.0 );
+						}
+					}
+				}
+			}
+			raw.close();
+		}
+	}
+	
+	
+	/**
+	 * Least-recently-used cache of the blocks of an array image, counting the number of misses.
+	 * 
+	 * @author thorngreen
+	 * 
+	 */
+	protected static class LruCounter
+	{
+		/**
+		 * The size of each block in bytes.
+		 */
+		protected final long blockSize;
+		
+		/**
+		 * The resident blocks in least-recently-used order.
+		 */
+		protected final LinkedHashMap<Long,Boolean> resident;
+		
+		/**
+		 * The number of misses so far.
+		 */
+		protected long misses = 0;
+		
+		/**
+		 * Constructs the cache.
+		 * 
+		 * @param _blockSize The size of each block in bytes.
+		 * @param maxBlocks The maximum number of resident blocks.
+		 */
+		public LruCounter( final long _blockSize , final int maxBlocks )
+		{
+			blockSize = _blockSize;
+			resident = new LinkedHashMap<Long,Boolean>( 2 * maxBlocks , 0.75f , true )
+			{
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry( Map.Entry<Long,Boolean> eldest )
+				{
+					return( size() > maxBlocks );
+				}
+			};
+		}
+		
+		/**
+		 * Accesses an element of the array image.
+		 * 
+		 * @param index The offset of the element in units of elements.
+		 */
+		public void access( final long index )
+		{
+			final Long block = ( SZ_DBL * index ) / blockSize;
+			if( resident.get( block ) == null )
+			{
+				misses++;
+				resident.put( block , Boolean.TRUE );
+			}
+		}
+		
+		/**
+		 * Gets the number of misses so far.
+		 * 
+		 * @return The number of misses.
+		 */
+		public long getMisses() {
+			return misses;
+		}
+	}
+	
+	
+	/**
+	 * Benchmarks the number of page faults and cache misses of each layout for the access pattern of a 3-D stencil that
+	 * reads the neighbors in T, X, Y, and Z of each element in a time slice, as in the fillTempArray methods of the
+	 * Newton-Raphson wave tests.  Page faults are modeled as misses of an LRU cache of 4 KB pages, and cache misses as
+	 * misses of an LRU cache of 64-byte cache lines.
+	 */
+	public void testStencilBenchmark()
+	{
+		final int tmax = 3;
+		final int xyzmax = 48;
+		final int xyzmult = 4;
+		final int stencil = 1;
+		
+		for( final DbFastArrayLayout layout : DbFastArrayLayout.values() )
+		{
+			final DrIndexLayout li = DrIndexLayout.create( createParam( layout , tmax , xyzmax , xyzmult ) );
+			final LruCounter pages = new LruCounter( 4096 , 64 );
+			final LruCounter lines = new LruCounter( 64 , 512 );
+			
+			final long start = System.nanoTime();
+			final int t = 1;
+			for( int x = 0 ; x < xyzmax ; x++ )
+			{
+				for( int y = 0 ; y < xyzmax ; y++ )
+				{
+					for( int z = 0 ; z < xyzmax ; z++ )
+					{
+						for( int ta = -stencil ; ta <= stencil ; ta++ )
+						{
+							for( int xa = Math.max( 0 , x - stencil ) ; xa <= Math.min( xyzmax - 1 , x + stencil ) ; xa++ )
+							{
+								for( int ya = Math.max( 0 , y - stencil ) ; ya <= Math.min( xyzmax - 1 , y + stencil ) ; ya++ )
+								{
+									for( int za = Math.max( 0 , z - stencil ) ; za <= Math.min( xyzmax - 1 , z + stencil ) ; za++ )
+									{
+										final long index = li.index( t + ta , xa , ya , za );
+										pages.access( index );
+										lines.access( index );
+									}
+								}
+							}
+						}
+					}
+				}
+			}
+			final long end = System.nanoTime();
+			
+			System.out.println( "Layout " + layout + " : Image Size " + ( SZ_DBL * li.getLength() ) + 
+					" , Page Faults " + pages.getMisses() + " , Cache Misses " + lines.getMisses() + 
+					" , Time " + ( ( end - start ) / 1000000 ) + " ms" );
+			
+			Assert.assertTrue( pages.getMisses() > 0 );
+		}
+	}
+	
+	
+}
+
+
@@ -0,0 +1,149 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package test_simplealgebra;
+
+import java.io.File;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import simplealgebra.store.DbFastArray3D_Param;
+import simplealgebra.store.DrFastArray3D_Dbl;
+
+
+/**
+ * Tests the memory-mapped access mode of DrFastArray3D_Dbl against the seek-based access mode, using a
+ * small mapped window so that the array image spans many windows.  Uses JUnit ( <A href="http://junit.org">http://junit.org</A> ).
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ *
+ */
+public class TestDrMappedFile extends TestCase {
+
+
+	/**
+	 * Creates the parameters of the array.
+	 * 
+	 * @return The parameters of the array.
+	 */
+	protected static DbFastArray3D_Param createParam()
+	{
+		final DbFastArray3D_Param param = new DbFastArray3D_Param();
+		param.setTmult( 2 );
+		param.setXmult( 3 );
+		param.setYmult( 3 );
+		param.setTmax( 4 );
+		param.setXmax( 9 );
+		param.setYmax( 6 );
+		return( param );
+	}
+
+
+	/**
+	 * Gets the value written to an array element.
+	 * 
+	 * @param t The T-axis index.
+	 * @param x The X-axis index.
+	 * @param y The Y-axis index.
+	 * @return The value.
+	 */
+	protected static double val( int t , int x , int y )
+	{
+		return( 1.5 * t - 0.25 * x + 1000.0 * y + 0.125 );
+	}
+
+
+	/**
+	 * Verifies that the mapped and the seek-based access modes read back the same values
+	 * and produce the same image on disk, and that the mapped writes survive a close.
+	 * 
+	 * @throws Throwable
+	 */
+	public void testMappedMatchesSeek() throws Throwable
+	{
+		final File fa = File.createTempFile( "mapped" , ".dbl" );
+		final File fb = File.createTempFile( "seek" , ".dbl" );
+		fa.deleteOnExit();
+		fb.deleteOnExit();
+
+		final DbFastArray3D_Param param = createParam();
+
+		final DrFastArray3D_Dbl mapped = new DrFastArray3D_Dbl( param , fa.getPath() , 64 , 3 );
+		final DrFastArray3D_Dbl seek = new DrFastArray3D_Dbl( param , fb.getPath() );
+
+		for( int t = 0 ; t < param.getTmax() ; t++ )
+		{
+			for( int x = 0 ; x < param.getXmax() ; x++ )
+			{
+				for( int y = 0 ; y < param.getYmax() ; y++ )
+				{
+					mapped.set( t , x , y , val( t , x , y ) );
+					seek.set( t , x , y , val( t , x , y ) );
+				}
+			}
+			mapped.flush();
+			seek.flush();
+		}
+
+		for( int t = 0 ; t < param.getTmax() ; t++ )
+		{
+			for( int x = 0 ; x < param.getXmax() ; x++ )
+			{
+				for( int y = 0 ; y < param.getYmax() ; y++ )
+				{
+					Assert.assertEquals( val( t , x , y ) , mapped.get( t , x , y ) , 0.0 );
+					Assert.assertEquals( val( t , x , y ) , seek.get( t , x , y ) , 0.0 );
+				}
+			}
+		}
+
+		mapped.close();
+		seek.close();
+
+		final DrFastArray3D_Dbl reopened = new DrFastArray3D_Dbl( param , fa.getPath() );
+		for( int t = 0 ; t < param.getTmax() ; t++ )
+		{
+			for( int x = 0 ; x < param.getXmax() ; x++ )
+			{
+				for( int y = 0 ; y < param.getYmax() ; y++ )
+				{
+					Assert.assertEquals( val( t , x , y ) , reopened.get( t , x , y ) , 0.0 );
+				}
+			}
+		}
+		reopened.close();
+
+		Assert.assertEquals( fb.length() , fa.length() );
+	}
+
+
+}
+
+
@@ -0,0 +1,244 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package test_simplealgebra;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.util.HashMap;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.kie.api.KieBase;
+import org.kie.api.runtime.KieSession;
+
+import simplealgebra.DoubleElem;
+import simplealgebra.DoubleElemFactory;
+import simplealgebra.symbolic.DroolsKieBaseCache;
+import simplealgebra.symbolic.DroolsSession;
+import simplealgebra.symbolic.SymbolicAdd;
+import simplealgebra.symbolic.SymbolicDivideBy;
+import simplealgebra.symbolic.SymbolicElem;
+import simplealgebra.symbolic.SymbolicElemFactory;
+import simplealgebra.symbolic.SymbolicIdentity;
+import simplealgebra.symbolic.SymbolicMult;
+import simplealgebra.symbolic.SymbolicNegate;
+import simplealgebra.symbolic.SymbolicPlaceholder;
+import simplealgebra.symbolic.SymbolicZero;
+
+
+/**
+ * Tests the location and keying of the on-disk cache of Drools ( <A href="http://drools.org">http://drools.org</A> ) knowledge bases,
+ * and that a knowledge base loaded from the cache simplifies as the compiled rules do.
+ * Uses JUnit ( <A href="http://junit.org">http://junit.org</A> ).
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ *
+ */
+public class TestDroolsKieBaseCache extends TestCase {
+
+
+	/**
+	 * Subclass exposing the cache file names for testing.
+	 * 
+	 * @author thorngreen
+	 * 
+	 */
+	protected static class TestCache extends DroolsKieBaseCache
+	{
+		/**
+		 * Gets the cache file for a set of simplification rules.
+		 * 
+		 * @param simplifyDrl The file name of the simplification rules.
+		 * @return The cache file, or null if the cache is turned off.
+		 */
+		public static File getFile( final String simplifyDrl )
+		{
+			return( getCacheFile( simplifyDrl ) );
+		}
+	}
+
+
+	/**
+	 * Verifies that the cache directory follows the system property, and that an empty property turns off the cache.
+	 * 
+	 * @throws Throwable
+	 */
+	public void testCacheDir() throws Throwable
+	{
+		final String prev = System.getProperty( DroolsKieBaseCache.CACHE_DIR_PROPERTY );
+		try
+		{
+			final File tmp = new File( System.getProperty( "java.io.tmpdir" ) , "simplealgebra_kiebase_test" );
+			System.setProperty( DroolsKieBaseCache.CACHE_DIR_PROPERTY , tmp.getPath() );
+			Assert.assertEquals( tmp , DroolsKieBaseCache.getCacheDir() );
+
+			final File fa = TestCache.getFile( "distributeSimplify.drl" );
+			final File fb = TestCache.getFile( "distributeSimplify2.drl" );
+			Assert.assertEquals( tmp , fa.getParentFile() );
+			Assert.assertEquals( fa , TestCache.getFile( "distributeSimplify.drl" ) );
+			Assert.assertFalse( fa.equals( fb ) );
+
+			if( !( fa.exists() ) )
+			{
+				Assert.assertNull( DroolsKieBaseCache.loadKieBase( "distributeSimplify.drl" ) );
+			}
+
+			System.setProperty( DroolsKieBaseCache.CACHE_DIR_PROPERTY , "" );
+			Assert.assertNull( DroolsKieBaseCache.getCacheDir() );
+			Assert.assertNull( TestCache.getFile( "distributeSimplify.drl" ) );
+			Assert.assertNull( DroolsKieBaseCache.loadKieBase( "distributeSimplify.drl" ) );
+		}
+		finally
+		{
+			if( prev != null )
+			{
+				System.setProperty( DroolsKieBaseCache.CACHE_DIR_PROPERTY , prev );
+			}
+			else
+			{
+				System.clearProperty( DroolsKieBaseCache.CACHE_DIR_PROPERTY );
+			}
+		}
+	}
+
+
+
+	/**
+	 * Simplifies an expression in a new session of a knowledge base.
+	 * 
+	 * @param kieBase The knowledge base.
+	 * @param in The expression.
+	 * @return The simplified expression.
+	 */
+	protected static SymbolicElem<DoubleElem,DoubleElemFactory> simplify( final KieBase kieBase , final SymbolicElem<DoubleElem,DoubleElemFactory> in )
+	{
+		final KieSession session = kieBase.newKieSession();
+		try
+		{
+			session.insert( new DroolsSession( session ) );
+			final SymbolicPlaceholder<SymbolicElem<DoubleElem,DoubleElemFactory>,SymbolicElemFactory<DoubleElem,DoubleElemFactory>> place =
+					new SymbolicPlaceholder<SymbolicElem<DoubleElem,DoubleElemFactory>,SymbolicElemFactory<DoubleElem,DoubleElemFactory>>( in );
+			place.performInserts( session );
+			session.fireAllRules();
+			return( place.getElem() );
+		}
+		finally
+		{
+			session.dispose();
+		}
+	}
+
+
+	/**
+	 * Verifies that a knowledge base compiled into a temporary cache directory can be loaded back from the cache,
+	 * and that a session of the loaded knowledge base simplifies an expression to the same result as a session
+	 * of the compiled knowledge base.
+	 * 
+	 * @throws Throwable
+	 */
+	public void testLoadKieBase() throws Throwable
+	{
+		final String prev = System.getProperty( DroolsKieBaseCache.CACHE_DIR_PROPERTY );
+		final File tmp = Files.createTempDirectory( "kiebasecache" ).toFile();
+		try
+		{
+			System.setProperty( DroolsKieBaseCache.CACHE_DIR_PROPERTY , tmp.getPath() );
+			Assert.assertNull( DroolsKieBaseCache.loadKieBase( "distributeSimplify2.drl" ) );
+
+			final long startNanos = System.nanoTime();
+			final KieBase built = DroolsKieBaseCache.buildKieContainer( "distributeSimplify2.drl" ).getKieBase();
+			final long builtNanos = System.nanoTime();
+			DroolsKieBaseCache.saveKieBase( "distributeSimplify2.drl" , built );
+			Assert.assertTrue( TestCache.getFile( "distributeSimplify2.drl" ).isFile() );
+
+			final long loadStartNanos = System.nanoTime();
+			final KieBase loaded = DroolsKieBaseCache.loadKieBase( "distributeSimplify2.drl" );
+			final long loadedNanos = System.nanoTime();
+			Assert.assertNotNull( loaded );
+			Assert.assertTrue( loaded != built );
+
+			System.out.println( "Cold KieBase Build " + ( ( builtNanos - startNanos ) / 1E+6 ) + " ms" );
+			System.out.println( "Warm KieBase Load " + ( ( loadedNanos - loadStartNanos ) / 1E+6 ) + " ms" );
+
+			final DoubleElemFactory dl = new DoubleElemFactory();
+			final DoubleElem kx = new DoubleElem( 0 );
+			final DoubleElem ky = new DoubleElem( 1 );
+			final TestNativeDistributeSimplify2.XVar x = new TestNativeDistributeSimplify2.XVar( dl , kx );
+			final TestNativeDistributeSimplify2.XVar y = new TestNativeDistributeSimplify2.XVar( dl , ky );
+			final HashMap<DoubleElem,DoubleElem> implicitSpace = new HashMap<DoubleElem,DoubleElem>();
+			implicitSpace.put( kx , new DoubleElem( 0.75 ) );
+			implicitSpace.put( ky , new DoubleElem( 1.25 ) );
+
+			final SymbolicElem<DoubleElem,DoubleElemFactory> in = new SymbolicMult<DoubleElem,DoubleElemFactory>(
+					new SymbolicDivideBy<DoubleElem,DoubleElemFactory>( new SymbolicAdd<DoubleElem,DoubleElemFactory>(
+							new SymbolicNegate<DoubleElem,DoubleElemFactory>( new SymbolicNegate<DoubleElem,DoubleElemFactory>( x , dl ) , dl ) ,
+							new SymbolicAdd<DoubleElem,DoubleElemFactory>( new SymbolicZero<DoubleElem,DoubleElemFactory>( dl ) , y , dl ) , dl ) ,
+							dl , BigInteger.valueOf( 2 ) ) ,
+					new SymbolicIdentity<DoubleElem,DoubleElemFactory>( dl ) , dl );
+
+			final SymbolicElem<DoubleElem,DoubleElemFactory> outBuilt = simplify( built , in );
+			final SymbolicElem<DoubleElem,DoubleElemFactory> outLoaded = simplify( loaded , in );
+			Assert.assertTrue( outBuilt != in );
+			Assert.assertTrue( TestNativeDistributeSimplify2.structuralEquals( outBuilt , outLoaded ) );
+			Assert.assertEquals( in.eval( implicitSpace ).getVal() , outLoaded.eval( implicitSpace ).getVal() , 1E-12 );
+
+			// A corrupt entry is treated as missing.
+			Files.write( TestCache.getFile( "distributeSimplify2.drl" ).toPath() , new byte[]{ 1 , 2 , 3 } );
+			Assert.assertNull( DroolsKieBaseCache.loadKieBase( "distributeSimplify2.drl" ) );
+		}
+		finally
+		{
+			if( prev != null )
+			{
+				System.setProperty( DroolsKieBaseCache.CACHE_DIR_PROPERTY , prev );
+			}
+			else
+			{
+				System.clearProperty( DroolsKieBaseCache.CACHE_DIR_PROPERTY );
+			}
+			final File[] files = tmp.listFiles();
+			if( files != null )
+			{
+				for( final File fi : files )
+				{
+					fi.delete();
+				}
+			}
+			tmp.delete();
+		}
+	}
+
+
+}
+
+
+
@@ -0,0 +1,367 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package test_simplealgebra;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.kie.api.KieBase;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.FactHandle;
+
+import simplealgebra.DoubleElem;
+import simplealgebra.DoubleElemFactory;
+import simplealgebra.Elem;
+import simplealgebra.symbolic.DroolsSessionPool;
+import simplealgebra.symbolic.SymbolicAdd;
+import simplealgebra.symbolic.SymbolicDivideBy;
+import simplealgebra.symbolic.SymbolicElem;
+import simplealgebra.symbolic.SymbolicElem.EVAL_MODE;
+import simplealgebra.symbolic.SymbolicIdentity;
+import simplealgebra.symbolic.SymbolicMult;
+import simplealgebra.symbolic.SymbolicNegate;
+import simplealgebra.symbolic.SymbolicZero;
+
+
+/**
+ * Tests the reuse and reset of pooled Drools ( <A href="http://drools.org">http://drools.org</A> ) sessions,
+ * both using a proxy session that records its facts and using the sessions of the distributeSimplify2() rules.
+ * Uses JUnit ( <A href="http://junit.org">http://junit.org</A> ).
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ *
+ */
+public class TestDroolsSessionPool extends TestCase {
+
+
+	/**
+	 * Proxy handler for objects that only support identity comparison.
+	 * 
+	 * @author thorngreen
+	 * 
+	 */
+	protected static class IdentityHandler implements InvocationHandler
+	{
+		@Override
+		public Object invoke( Object proxy , Method method , Object[] args ) throws Throwable
+		{
+			final String name = method.getName();
+			if( name.equals( "hashCode" ) )
+			{
+				return( System.identityHashCode( proxy ) );
+			}
+			if( name.equals( "equals" ) )
+			{
+				return( proxy == args[ 0 ] );
+			}
+			throw( new RuntimeException( "NotSupported" ) );
+		}
+	}
+
+
+	/**
+	 * Proxy handler implementing the parts of a session used by the pool.
+	 * 
+	 * @author thorngreen
+	 * 
+	 */
+	protected static class SessionHandler implements InvocationHandler
+	{
+		/**
+		 * The handles of the facts in the session.
+		 */
+		protected final ArrayList<Object> facts = new ArrayList<Object>();
+
+		/**
+		 * Whether the session has been disposed.
+		 */
+		protected boolean disposed = false;
+
+		@Override
+		public Object invoke( Object proxy , Method method , Object[] args ) throws Throwable
+		{
+			final String name = method.getName();
+			if( name.equals( "insert" ) )
+			{
+				final Object handle = Proxy.newProxyInstance( FactHandle.class.getClassLoader() , 
+						new Class<?>[]{ FactHandle.class } , new IdentityHandler() );
+				facts.add( handle );
+				return( handle );
+			}
+			if( name.equals( "getFactHandles" ) )
+			{
+				return( new ArrayList<Object>( facts ) );
+			}
+			if( name.equals( "delete" ) )
+			{
+				facts.remove( args[ 0 ] );
+				return( null );
+			}
+			if( name.equals( "getAgendaEventListeners" ) )
+			{
+				return( new ArrayList<Object>() );
+			}
+			if( name.equals( "dispose" ) )
+			{
+				disposed = true;
+				return( null );
+			}
+			if( name.equals( "hashCode" ) )
+			{
+				return( System.identityHashCode( proxy ) );
+			}
+			if( name.equals( "equals" ) )
+			{
+				return( proxy == args[ 0 ] );
+			}
+			throw( new RuntimeException( "NotSupported" ) );
+		}
+	}
+
+
+	/**
+	 * Proxy handler for a knowledge base that creates proxy sessions.
+	 * 
+	 * @author thorngreen
+	 * 
+	 */
+	protected static class BaseHandler implements InvocationHandler
+	{
+		/**
+		 * The handlers of the sessions created so far.
+		 */
+		protected final ArrayList<SessionHandler> sessions = new ArrayList<SessionHandler>();
+
+		@Override
+		public Object invoke( Object proxy , Method method , Object[] args ) throws Throwable
+		{
+			final String name = method.getName();
+			if( name.equals( "newKieSession" ) )
+			{
+				final SessionHandler handler = new SessionHandler();
+				sessions.add( handler );
+				return( Proxy.newProxyInstance( KieSession.class.getClassLoader() , 
+						new Class<?>[]{ KieSession.class } , handler ) );
+			}
+			if( name.equals( "hashCode" ) )
+			{
+				return( System.identityHashCode( proxy ) );
+			}
+			if( name.equals( "equals" ) )
+			{
+				return( proxy == args[ 0 ] );
+			}
+			throw( new RuntimeException( "NotSupported" ) );
+		}
+	}
+
+
+	/**
+	 * Creates a proxy knowledge base.
+	 * 
+	 * @param handler The handler for the knowledge base.
+	 * @return The knowledge base.
+	 */
+	protected static KieBase createKieBase( final BaseHandler handler )
+	{
+		return( (KieBase)( Proxy.newProxyInstance( KieBase.class.getClassLoader() , 
+				new Class<?>[]{ KieBase.class } , handler ) ) );
+	}
+
+
+	/**
+	 * Verifies that a released session is reset and then reused by the next acquire on the same thread.
+	 * 
+	 * @throws Throwable
+	 */
+	public void testReuse() throws Throwable
+	{
+		DroolsSessionPool.clear();
+		final BaseHandler bh = new BaseHandler();
+		final KieBase kieBase = createKieBase( bh );
+
+		final KieSession sa = DroolsSessionPool.acquire( kieBase );
+		sa.insert( "a" );
+		sa.insert( "b" );
+		DroolsSessionPool.release( kieBase , sa );
+
+		Assert.assertEquals( 1 , bh.sessions.size() );
+		Assert.assertTrue( bh.sessions.get( 0 ).facts.isEmpty() );
+		Assert.assertFalse( bh.sessions.get( 0 ).disposed );
+
+		final KieSession sb = DroolsSessionPool.acquire( kieBase );
+		Assert.assertTrue( sa == sb );
+		Assert.assertEquals( 1 , bh.sessions.size() );
+
+		DroolsSessionPool.release( kieBase , sb );
+		DroolsSessionPool.clear();
+		Assert.assertTrue( bh.sessions.get( 0 ).disposed );
+	}
+
+
+	/**
+	 * Verifies that sessions beyond the bound of the pool are disposed when released.
+	 * 
+	 * @throws Throwable
+	 */
+	public void testBound() throws Throwable
+	{
+		DroolsSessionPool.clear();
+		final BaseHandler bh = new BaseHandler();
+		final KieBase kieBase = createKieBase( bh );
+
+		final ArrayList<KieSession> sessions = new ArrayList<KieSession>();
+		for( int cnt = 0 ; cnt < DroolsSessionPool.MAX_POOLED_SESSIONS + 2 ; cnt++ )
+		{
+			sessions.add( DroolsSessionPool.acquire( kieBase ) );
+		}
+		for( final KieSession session : sessions )
+		{
+			DroolsSessionPool.release( kieBase , session );
+		}
+
+		int disposed = 0;
+		for( final SessionHandler handler : bh.sessions )
+		{
+			if( handler.disposed )
+			{
+				disposed++;
+			}
+		}
+		Assert.assertEquals( 2 , disposed );
+		DroolsSessionPool.clear();
+	}
+
+
+
+	/**
+	 * Builds expressions, some of which share subexpressions, that exercise the distributeSimplify2() rules.
+	 * 
+	 * @param dl The factory for the enclosed type.
+	 * @param vars The variables of the expressions.
+	 * @return The expressions.
+	 */
+	protected static ArrayList<SymbolicElem<DoubleElem,DoubleElemFactory>> buildExprs( final DoubleElemFactory dl ,
+			final ArrayList<TestNativeDistributeSimplify2.XVar> vars )
+	{
+		final TestNativeDistributeSimplify2.XVar x = vars.get( 0 );
+		final TestNativeDistributeSimplify2.XVar y = vars.get( 1 );
+		final TestNativeDistributeSimplify2.XVar z = vars.get( 2 );
+		final SymbolicZero<DoubleElem,DoubleElemFactory> zero = new SymbolicZero<DoubleElem,DoubleElemFactory>( dl );
+		final SymbolicIdentity<DoubleElem,DoubleElemFactory> ident = new SymbolicIdentity<DoubleElem,DoubleElemFactory>( dl );
+
+		final SymbolicElem<DoubleElem,DoubleElemFactory> shared = new SymbolicNegate<DoubleElem,DoubleElemFactory>(
+				new SymbolicNegate<DoubleElem,DoubleElemFactory>( new SymbolicMult<DoubleElem,DoubleElemFactory>( x , y , dl ) , dl ) , dl );
+		final SymbolicElem<DoubleElem,DoubleElemFactory> sharedSum = new SymbolicAdd<DoubleElem,DoubleElemFactory>(
+				new SymbolicAdd<DoubleElem,DoubleElemFactory>( zero , z , dl ) , shared , dl );
+
+		final ArrayList<SymbolicElem<DoubleElem,DoubleElemFactory>> ret = new ArrayList<SymbolicElem<DoubleElem,DoubleElemFactory>>();
+		ret.add( new SymbolicAdd<DoubleElem,DoubleElemFactory>( shared , shared , dl ) );
+		ret.add( new SymbolicMult<DoubleElem,DoubleElemFactory>( sharedSum , ident , dl ) );
+		ret.add( new SymbolicDivideBy<DoubleElem,DoubleElemFactory>( sharedSum , dl , BigInteger.valueOf( 2 ) ) );
+		ret.add( new SymbolicMult<DoubleElem,DoubleElemFactory>( new SymbolicNegate<DoubleElem,DoubleElemFactory>( shared , dl ) , z , dl ) );
+		ret.add( new SymbolicMult<DoubleElem,DoubleElemFactory>( x , zero , dl ) );
+		ret.add( new SymbolicNegate<DoubleElem,DoubleElemFactory>( new SymbolicNegate<DoubleElem,DoubleElemFactory>( y , dl ) , dl ) );
+		return( ret );
+	}
+
+
+	/**
+	 * Verifies that distributeSimplify2() gives the same results with a fresh Drools session for each expression,
+	 * with a session reused from the pool, and with all expressions simplified in one batch by
+	 * Elem.distributeSimplifyBatch().  Uses the rules of the real knowledge base.
+	 * 
+	 * @throws Throwable
+	 */
+	public void testRealSessions() throws Throwable
+	{
+		DroolsSessionPool.clear();
+		final DoubleElemFactory dl = new DoubleElemFactory();
+		final ArrayList<TestNativeDistributeSimplify2.XVar> vars = new ArrayList<TestNativeDistributeSimplify2.XVar>();
+		final HashMap<DoubleElem,DoubleElem> implicitSpace = new HashMap<DoubleElem,DoubleElem>();
+		for( int cnt = 0 ; cnt < 3 ; cnt++ )
+		{
+			final DoubleElem key = new DoubleElem( cnt );
+			vars.add( new TestNativeDistributeSimplify2.XVar( dl , key ) );
+			implicitSpace.put( key , new DoubleElem( 0.75 + 0.5 * cnt ) );
+		}
+		final ArrayList<SymbolicElem<DoubleElem,DoubleElemFactory>> exprs = buildExprs( dl , vars );
+
+		final ArrayList<SymbolicElem<DoubleElem,DoubleElemFactory>> fresh = new ArrayList<SymbolicElem<DoubleElem,DoubleElemFactory>>();
+		for( final SymbolicElem<DoubleElem,DoubleElemFactory> in : exprs )
+		{
+			DroolsSessionPool.clear();
+			fresh.add( in.distributeSimplify2() );
+		}
+
+		final KieBase kieBase = Elem.getDistributeSimplify2KieBase();
+		final KieSession pooledSession = DroolsSessionPool.acquire( kieBase );
+		DroolsSessionPool.release( kieBase , pooledSession );
+		final ArrayList<SymbolicElem<DoubleElem,DoubleElemFactory>> pooled = new ArrayList<SymbolicElem<DoubleElem,DoubleElemFactory>>();
+		for( final SymbolicElem<DoubleElem,DoubleElemFactory> in : exprs )
+		{
+			pooled.add( in.distributeSimplify2() );
+		}
+		final KieSession reused = DroolsSessionPool.acquire( kieBase );
+		Assert.assertTrue( reused == pooledSession );
+		Assert.assertTrue( reused.getFactHandles().isEmpty() );
+		DroolsSessionPool.release( kieBase , reused );
+
+		final ArrayList<SymbolicElem<DoubleElem,DoubleElemFactory>> batch = Elem.distributeSimplifyBatch( exprs , EVAL_MODE.SIMPLIFY2 );
+		Assert.assertEquals( exprs.size() , batch.size() );
+
+		for( int cnt = 0 ; cnt < exprs.size() ; cnt++ )
+		{
+			final double expected = exprs.get( cnt ).eval( implicitSpace ).getVal();
+			Assert.assertEquals( expected , fresh.get( cnt ).eval( implicitSpace ).getVal() , 1E-12 );
+			Assert.assertEquals( expected , pooled.get( cnt ).eval( implicitSpace ).getVal() , 1E-12 );
+			Assert.assertEquals( expected , batch.get( cnt ).eval( implicitSpace ).getVal() , 1E-12 );
+			Assert.assertTrue( TestNativeDistributeSimplify2.structuralEquals( fresh.get( cnt ) , pooled.get( cnt ) ) );
+			Assert.assertTrue( TestNativeDistributeSimplify2.structuralEquals( fresh.get( cnt ) , batch.get( cnt ) ) );
+		}
+
+		Assert.assertTrue( fresh.get( 4 ).isSymbolicZero() );
+		Assert.assertTrue( fresh.get( 5 ) == vars.get( 1 ) );
+
+		DroolsSessionPool.clear();
+	}
+
+
+}
+
+
+
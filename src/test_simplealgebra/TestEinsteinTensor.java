@@ -198,6 +198,12 @@ public class TestEinsteinTensor extends TestCase {
 			return( col );
 		}
 		
+		@Override
+		public int symbolicHashCode()
+		{
+			return( hashCode() );
+		}
+		
 		/**
 		 * Returns the number of the ordinate.
 		 * 
@@ -338,6 +344,12 @@ public class TestEinsteinTensor extends TestCase {
 			return( 5 );
 		}
 		
+		@Override
+		public int symbolicHashCode()
+		{
+			return( hashCode() );
+		}
+		
 	}
 	
 	
@@ -449,6 +461,12 @@ public class TestEinsteinTensor extends TestCase {
 			return( col );
 		}
 		
+		@Override
+		public int symbolicHashCode()
+		{
+			return( hashCode() );
+		}
+		
 		/**
 		 * Gets the index of the component.
 		 * 
@@ -0,0 +1,320 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package test_simplealgebra;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Map.Entry;
+import java.util.Random;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import simplealgebra.DoubleElem;
+import simplealgebra.DoubleElemFactory;
+import simplealgebra.NotInvertibleException;
+import simplealgebra.NumDimensions;
+import simplealgebra.ga.BladeMask;
+import simplealgebra.ga.GaDoubleMultivector;
+import simplealgebra.ga.GaDoubleMultivectorFactory;
+import simplealgebra.ga.GeometricAlgebraMultivectorElem;
+import simplealgebra.ga.GeometricAlgebraMultivectorElem.GeometricAlgebraMultivectorCmd;
+import simplealgebra.ga.GeometricAlgebraMultivectorElemFactory;
+import simplealgebra.ga.GeometricAlgebraOrd;
+import simplealgebra.ga.Ord;
+import simplealgebra.ga.QuaternionOrd;
+import simplealgebra.ga.SpacetimeAlgebraOrd;
+
+
+/**
+ * Tests the dense multivector with primitive double coefficients.  Uses JUnit ( <A href="http://junit.org">http://junit.org</A> ).
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ *
+ */
+public class TestGaDoubleMultivector extends TestCase {
+
+
+	/**
+	 * The products to be verified, where null is the geometric product.
+	 */
+	private static final GeometricAlgebraMultivectorCmd[] PRODUCTS = {
+		null ,
+		GeometricAlgebraMultivectorCmd.DOT ,
+		GeometricAlgebraMultivectorCmd.DOT_HESTENES ,
+		GeometricAlgebraMultivectorCmd.WEDGE ,
+		GeometricAlgebraMultivectorCmd.LEFT_CONTRACTION ,
+		GeometricAlgebraMultivectorCmd.RIGHT_CONTRACTION ,
+		GeometricAlgebraMultivectorCmd.SCALAR };
+
+
+	/**
+	 * Returns a random sparse multivector.
+	 * 
+	 * @param se The factory for the multivector.
+	 * @param rand The random number generator.
+	 * @param numBlades The number of basis vectors in the algebra.
+	 * @param density The probability that each basis vector is present.
+	 * @return The random multivector.
+	 */
+	protected <U extends NumDimensions, A extends Ord<U>> GeometricAlgebraMultivectorElem<U,A,DoubleElem,DoubleElemFactory>
+		randomSparse( final GeometricAlgebraMultivectorElemFactory<U,A,DoubleElem,DoubleElemFactory> se , final Random rand ,
+			final int numBlades , final double density )
+	{
+		final GeometricAlgebraMultivectorElem<U,A,DoubleElem,DoubleElemFactory> ret = se.zero();
+		for( long k = 0 ; k < numBlades ; k++ )
+		{
+			if( rand.nextDouble() < density )
+			{
+				ret.setVal( BladeMask.fromMask( k ) , new DoubleElem( 2.0 * rand.nextDouble() - 1.0 ) );
+			}
+		}
+		return( ret );
+	}
+
+
+	/**
+	 * Returns the result of a product of two multivectors.
+	 * 
+	 * @param a The left-side argument of the product.
+	 * @param b The right-side argument of the product.
+	 * @param cmd The product, or null for the geometric product.
+	 * @return The result of the product.
+	 * @throws NotInvertibleException
+	 */
+	protected <U extends NumDimensions, A extends Ord<U>> GaDoubleMultivector<U,A> product( final GaDoubleMultivector<U,A> a ,
+			final GaDoubleMultivector<U,A> b , final GeometricAlgebraMultivectorCmd cmd ) throws NotInvertibleException
+	{
+		if( cmd == null )
+		{
+			return( a.mult( b ) );
+		}
+		final ArrayList<GaDoubleMultivector<U,A>> args = new ArrayList<GaDoubleMultivector<U,A>>();
+		args.add( b );
+		return( a.handleOptionalOp( cmd , args ) );
+	}
+
+
+	/**
+	 * Returns the result of a product of two multivectors.
+	 * 
+	 * @param a The left-side argument of the product.
+	 * @param b The right-side argument of the product.
+	 * @param cmd The product, or null for the geometric product.
+	 * @return The result of the product.
+	 * @throws NotInvertibleException
+	 */
+	protected <U extends NumDimensions, A extends Ord<U>> GeometricAlgebraMultivectorElem<U,A,DoubleElem,DoubleElemFactory> product(
+			final GeometricAlgebraMultivectorElem<U,A,DoubleElem,DoubleElemFactory> a ,
+			final GeometricAlgebraMultivectorElem<U,A,DoubleElem,DoubleElemFactory> b , final GeometricAlgebraMultivectorCmd cmd ) throws NotInvertibleException
+	{
+		if( cmd == null )
+		{
+			return( a.mult( b ) );
+		}
+		final ArrayList<GeometricAlgebraMultivectorElem<U,A,DoubleElem,DoubleElemFactory>> args =
+				new ArrayList<GeometricAlgebraMultivectorElem<U,A,DoubleElem,DoubleElemFactory>>();
+		args.add( b );
+		return( a.handleOptionalOp( cmd , args ) );
+	}
+
+
+	/**
+	 * Verifies that a dense multivector has the same coefficients as a sparse multivector.
+	 * 
+	 * @param expected The sparse multivector.
+	 * @param actual The dense multivector.
+	 */
+	protected <U extends NumDimensions, A extends Ord<U>> void assertDenseMatches( final GeometricAlgebraMultivectorElem<U,A,DoubleElem,DoubleElemFactory> expected ,
+			final GaDoubleMultivector<U,A> actual )
+	{
+		for( int k = 0 ; k < actual.getNumBasisVectors() ; k++ )
+		{
+			final DoubleElem ex = expected.get( BladeMask.fromMask( k ) );
+			Assert.assertEquals( ex != null ? ex.getVal() : 0.0 , actual.getVal( k ) , 1E-10 );
+		}
+	}
+
+
+	/**
+	 * Verifies that each product of dense multivectors matches the corresponding product of sparse multivectors.
+	 * 
+	 * @param ord The Ord of the algebra.
+	 * @param dim The number of dimensions in the algebra.
+	 * @param density The probability that each basis vector is present.
+	 * @throws NotInvertibleException
+	 */
+	protected <U extends NumDimensions, A extends Ord<U>> void verifyProducts( final A ord , final U dim , final double density ) throws NotInvertibleException
+	{
+		final GeometricAlgebraMultivectorElemFactory<U,A,DoubleElem,DoubleElemFactory> se =
+				new GeometricAlgebraMultivectorElemFactory<U,A,DoubleElem,DoubleElemFactory>( new DoubleElemFactory() , dim , ord );
+		final GaDoubleMultivectorFactory<U,A> de = new GaDoubleMultivectorFactory<U,A>( se );
+		final Random rand = new Random( 3344 );
+		final int numBlades = 1 << dim.getVal().intValue();
+
+		for( int iter = 0 ; iter < 4 ; iter++ )
+		{
+			final GeometricAlgebraMultivectorElem<U,A,DoubleElem,DoubleElemFactory> a = randomSparse( se , rand , numBlades , density );
+			final GeometricAlgebraMultivectorElem<U,A,DoubleElem,DoubleElemFactory> b = randomSparse( se , rand , numBlades , density );
+			Assert.assertTrue( GaDoubleMultivectorFactory.isDenseable( a ) );
+			final GaDoubleMultivector<U,A> da = de.fromSparse( a );
+			final GaDoubleMultivector<U,A> db = de.fromSparse( b );
+			assertDenseMatches( a , da );
+			assertDenseMatches( a.add( b ) , da.add( db ) );
+			assertDenseMatches( a.negate() , da.negate() );
+			for( final GeometricAlgebraMultivectorCmd cmd : PRODUCTS )
+			{
+				assertDenseMatches( product( a , b , cmd ) , product( da , db , cmd ) );
+			}
+		}
+	}
+
+
+	/**
+	 * Tests the products of dense multivectors for Geometric Algebra, Quaternions, and Spacetime Algebra.
+	 * 
+	 * @throws NotInvertibleException
+	 */
+	public void testDenseProducts() throws NotInvertibleException
+	{
+		verifyProducts( new GeometricAlgebraOrd<TestDimensionFour>() , new TestDimensionFour() , 0.7 );
+		verifyProducts( new QuaternionOrd<TestDimensionThree>() , new TestDimensionThree() , 0.7 );
+		verifyProducts( new SpacetimeAlgebraOrd<TestDimensionFour>() , new TestDimensionFour() , 0.7 );
+	}
+
+
+	/**
+	 * Tests the products of dense multivectors for an algebra that is too large for a multiplication table.
+	 * 
+	 * @throws NotInvertibleException
+	 */
+	public void testDenseProductsNoTable() throws NotInvertibleException
+	{
+		final NumDimensions dim = new NumDimensions()
+		{
+			@Override
+			public BigInteger getVal()
+			{
+				return( BigInteger.valueOf( 10 ) );
+			}
+		};
+		verifyProducts( new GeometricAlgebraOrd<NumDimensions>() , dim , 0.01 );
+	}
+
+
+	/**
+	 * Tests that the primitive double path for sparse multivectors produces exactly the
+	 * same results as accumulating the terms from the HashSet-based Ord.
+	 */
+	public void testSparseDoubleProduct()
+	{
+		final TestDimensionFour td = new TestDimensionFour();
+		final GeometricAlgebraOrd<TestDimensionFour> ord = new GeometricAlgebraOrd<TestDimensionFour>();
+		final GeometricAlgebraMultivectorElemFactory<TestDimensionFour,GeometricAlgebraOrd<TestDimensionFour>,DoubleElem,DoubleElemFactory> se =
+				new GeometricAlgebraMultivectorElemFactory<TestDimensionFour,GeometricAlgebraOrd<TestDimensionFour>,DoubleElem,DoubleElemFactory>( new DoubleElemFactory() , td , ord );
+		final Random rand = new Random( 4455 );
+
+		for( int iter = 0 ; iter < 4 ; iter++ )
+		{
+			final GeometricAlgebraMultivectorElem<TestDimensionFour,GeometricAlgebraOrd<TestDimensionFour>,DoubleElem,DoubleElemFactory> a = randomSparse( se , rand , 16 , 0.7 );
+			final GeometricAlgebraMultivectorElem<TestDimensionFour,GeometricAlgebraOrd<TestDimensionFour>,DoubleElem,DoubleElemFactory> b = randomSparse( se , rand , 16 , 0.7 );
+
+			final GeometricAlgebraMultivectorElem<TestDimensionFour,GeometricAlgebraOrd<TestDimensionFour>,DoubleElem,DoubleElemFactory> expected = se.zero();
+			for( final Entry<HashSet<BigInteger>,DoubleElem> ii : a.getEntrySet() )
+			{
+				for( final Entry<HashSet<BigInteger>,DoubleElem> jj : b.getEntrySet() )
+				{
+					DoubleElem vmul = ii.getValue().mult( jj.getValue() );
+					final HashSet<BigInteger> el = new HashSet<BigInteger>();
+					if( ord.calcOrd( ii.getKey() , jj.getKey() , el , td ) )
+					{
+						vmul = vmul.negate();
+					}
+					final DoubleElem vv = expected.get( el );
+					expected.setVal( el , vv != null ? vv.add( vmul ) : vmul );
+				}
+			}
+
+			final GeometricAlgebraMultivectorElem<TestDimensionFour,GeometricAlgebraOrd<TestDimensionFour>,DoubleElem,DoubleElemFactory> actual = a.mult( b );
+			int count = 0;
+			for( final HashSet<BigInteger> key : actual.getKeySet() )
+			{
+				Assert.assertEquals( expected.get( key ).getVal() , actual.get( key ).getVal() , 0.0 );
+				count++;
+			}
+			int expectedCount = 0;
+			for( final HashSet<BigInteger> key : expected.getKeySet() )
+			{
+				expectedCount++;
+			}
+			Assert.assertEquals( expectedCount , count );
+		}
+	}
+
+
+	/**
+	 * Tests conversion between dense and sparse multivectors, and inversion of a dense multivector.
+	 * 
+	 * @throws NotInvertibleException
+	 */
+	public void testConversionAndInverse() throws NotInvertibleException
+	{
+		final TestDimensionThree td = new TestDimensionThree();
+		final GeometricAlgebraOrd<TestDimensionThree> ord = new GeometricAlgebraOrd<TestDimensionThree>();
+		final GaDoubleMultivectorFactory<TestDimensionThree,GeometricAlgebraOrd<TestDimensionThree>> de =
+				new GaDoubleMultivectorFactory<TestDimensionThree,GeometricAlgebraOrd<TestDimensionThree>>( td , ord );
+
+		final GaDoubleMultivector<TestDimensionThree,GeometricAlgebraOrd<TestDimensionThree>> a = de.zero();
+		a.setVal( 0 , 2.0 );
+		a.setVal( 1 , 0.5 );
+		a.setVal( 2 , 0.75 );
+		a.setVal( 3 , -0.25 );
+
+		final GaDoubleMultivector<TestDimensionThree,GeometricAlgebraOrd<TestDimensionThree>> b = de.fromSparse( a.toSparse() );
+		for( int k = 0 ; k < 8 ; k++ )
+		{
+			Assert.assertEquals( a.getVal( k ) , b.getVal( k ) , 0.0 );
+		}
+
+		final GaDoubleMultivector<TestDimensionThree,GeometricAlgebraOrd<TestDimensionThree>> prod = a.mult( a.invertLeft() );
+		Assert.assertEquals( 1.0 , prod.getVal( 0 ) , 1E-5 );
+		for( int k = 1 ; k < 8 ; k++ )
+		{
+			Assert.assertEquals( 0.0 , prod.getVal( k ) , 1E-5 );
+		}
+
+		Assert.assertTrue( de.identity().evalSymbolicIdentityApprox( null ) );
+		Assert.assertTrue( de.zero().evalSymbolicZeroApprox( null ) );
+		Assert.assertEquals( 4.0 + 0.25 + 0.5625 + 0.0625 , a.totalMagnitude().getVal() , 1E-10 );
+	}
+
+
+}
+
@@ -0,0 +1,434 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package test_simplealgebra;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import simplealgebra.DoubleElem;
+import simplealgebra.DoubleElemFactory;
+import simplealgebra.Elem;
+import simplealgebra.NotInvertibleException;
+import simplealgebra.WriteElemCache;
+import simplealgebra.jlang.InlineLeaf_Dbl;
+import simplealgebra.jlang.Jlang;
+import simplealgebra.jlang.JlangHandles;
+import simplealgebra.jlang.Jlang_Dbl;
+import simplealgebra.symbolic.MultiplicativeDistributionRequiredException;
+import simplealgebra.symbolic.SCacheKey;
+import simplealgebra.symbolic.SymbolicElem;
+import simplealgebra.symbolic.SymbolicElemFactory;
+
+
+/**
+ * Tests leaves that are read directly by the code generated for symbolic expressions, rather than
+ * evaluated through callbacks.  Uses JUnit ( <A href="http://junit.org">http://junit.org</A> ).
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ *
+ */
+public class TestInlineLeaf extends TestCase {
+
+
+
+	/**
+	 * Leaf reading an element of an array, in the manner of the stencil elements of the Ncore tests.
+	 * Counts its evaluations so that the tests can verify that it is not called back.
+	 * 
+	 * @author thorngreen
+	 * 
+	 */
+	protected static class ArrayLeaf_Dbl extends SymbolicElem<DoubleElem,DoubleElemFactory> implements InlineLeaf_Dbl
+	{
+
+		/**
+		 * Constructor.
+		 * @param _fac Input factory.
+		 * @param _arr The array holding the value of the leaf.
+		 * @param _index The index of the value in the array.
+		 * @param _bound Whether to declare the array to the compilers.  If false, the leaf is evaluated through callbacks.
+		 */
+		public ArrayLeaf_Dbl( DoubleElemFactory _fac , double[] _arr , int _index , boolean _bound ) {
+			super( _fac );
+			arr = _arr;
+			index = _index;
+			bound = _bound;
+		}
+
+		@Override
+		public DoubleElem eval(
+				HashMap<? extends Elem<?, ?>, ? extends Elem<?, ?>> implicitSpace)
+				throws NotInvertibleException,
+				MultiplicativeDistributionRequiredException {
+			numEvals++;
+			return( new DoubleElem( arr[ index ] ) );
+		}
+
+		@Override
+		public DoubleElem evalCached(
+				HashMap<? extends Elem<?, ?>, ? extends Elem<?, ?>> implicitSpace,
+				HashMap<SCacheKey<DoubleElem, DoubleElemFactory>, DoubleElem> cache)
+				throws NotInvertibleException,
+				MultiplicativeDistributionRequiredException {
+			return( eval( implicitSpace ) );
+		}
+
+		@Override
+		public DoubleElem evalPartialDerivative(
+				ArrayList<? extends Elem<?, ?>> withRespectTo,
+				HashMap<? extends Elem<?, ?>, ? extends Elem<?, ?>> implicitSpace)
+				throws NotInvertibleException,
+				MultiplicativeDistributionRequiredException {
+			throw( new RuntimeException( "NotSupported" ) );
+		}
+
+		@Override
+		public DoubleElem evalPartialDerivativeCached(
+				ArrayList<? extends Elem<?, ?>> withRespectTo,
+				HashMap<? extends Elem<?, ?>, ? extends Elem<?, ?>> implicitSpace,
+				HashMap<SCacheKey<DoubleElem, DoubleElemFactory>, DoubleElem> cache)
+				throws NotInvertibleException,
+				MultiplicativeDistributionRequiredException {
+			throw( new RuntimeException( "NotSupported" ) );
+		}
+
+		@Override
+		public String writeDesc(
+				WriteElemCache<SymbolicElem<DoubleElem, DoubleElemFactory>, SymbolicElemFactory<DoubleElem, DoubleElemFactory>> cache,
+				PrintStream ps) {
+			throw( new RuntimeException( "NotSupported" ) );
+		}
+
+		@Override
+		public String getJlangSnippet() {
+			return( null );
+		}
+
+		@Override
+		public String getClangSnippet() {
+			return( null );
+		}
+
+		@Override
+		public double[] getBoundArray() {
+			return( bound ? arr : null );
+		}
+
+		@Override
+		public int getBoundIndex() {
+			return( index );
+		}
+
+		/**
+		 * The array holding the value of the leaf.
+		 */
+		protected final double[] arr;
+
+		/**
+		 * The index of the value in the array.
+		 */
+		protected final int index;
+
+		/**
+		 * Whether to declare the array to the compilers.
+		 */
+		protected final boolean bound;
+
+		/**
+		 * The number of evaluations.
+		 */
+		int numEvals = 0;
+
+	}
+
+
+
+	/**
+	 * Leaf with a constant value declared by snippets.
+	 * 
+	 * @author thorngreen
+	 * 
+	 */
+	protected static class PiLeaf_Dbl extends ArrayLeaf_Dbl
+	{
+
+		/**
+		 * Constructor.
+		 * @param _fac Input factory.
+		 */
+		public PiLeaf_Dbl( DoubleElemFactory _fac ) {
+			super( _fac , new double[] { Math.PI } , 0 , false );
+		}
+
+		@Override
+		public String getJlangSnippet() {
+			return( "java.lang.Math.PI" );
+		}
+
+		@Override
+		public String getClangSnippet() {
+			return( "M_PI" );
+		}
+
+	}
+
+
+
+	/**
+	 * Builds a second-difference stencil over an array, and a first difference over a second array.
+	 * @param dfac The factory for the enclosed type.
+	 * @param arrA The first array.
+	 * @param arrB The second array.
+	 * @param bound Whether the leaves declare their arrays to the compilers.
+	 * @param leaves List to which the leaves are added.
+	 * @return The stencil.
+	 */
+	protected static SymbolicElem<DoubleElem,DoubleElemFactory> buildStencil( DoubleElemFactory dfac ,
+			double[] arrA , double[] arrB , boolean bound , ArrayList<ArrayLeaf_Dbl> leaves )
+	{
+		final ArrayLeaf_Dbl a0 = new ArrayLeaf_Dbl( dfac , arrA , 0 , bound );
+		final ArrayLeaf_Dbl a1 = new ArrayLeaf_Dbl( dfac , arrA , 1 , bound );
+		final ArrayLeaf_Dbl a2 = new ArrayLeaf_Dbl( dfac , arrA , 2 , bound );
+		final ArrayLeaf_Dbl b0 = new ArrayLeaf_Dbl( dfac , arrB , 0 , bound );
+		final ArrayLeaf_Dbl b1 = new ArrayLeaf_Dbl( dfac , arrB , 1 , bound );
+		leaves.add( a0 );
+		leaves.add( a1 );
+		leaves.add( a2 );
+		leaves.add( b0 );
+		leaves.add( b1 );
+		return( a0.add( a1.add( a1 ).negate() ).add( a2 ).divideBy( 4 ).add( b1.add( b0.negate() ).mult( a1 ) ) );
+	}
+
+
+
+	/**
+	 * Returns the total number of evaluations of a list of leaves.
+	 * @param leaves The leaves.
+	 * @return The number of evaluations.
+	 */
+	protected static int countEvals( ArrayList<ArrayLeaf_Dbl> leaves )
+	{
+		int ret = 0;
+		for( final ArrayLeaf_Dbl leaf : leaves )
+		{
+			ret += leaf.numEvals;
+		}
+		return( ret );
+	}
+
+
+
+	/**
+	 * Verifies a compiled stencil against the stencil, as the contents of its arrays change.
+	 * @param un The stencil.
+	 * @param gen The compiled stencil.
+	 * @param arrA The first array.
+	 * @param arrB The second array.
+	 * @param leaves The leaves of the stencil.
+	 * @throws Throwable
+	 */
+	protected static void verifyStencil( SymbolicElem<DoubleElem,DoubleElemFactory> un , SymbolicElem<DoubleElem,DoubleElemFactory> gen ,
+			double[] arrA , double[] arrB , ArrayList<ArrayLeaf_Dbl> leaves ) throws Throwable
+	{
+		final Random rand = new Random( 6543 );
+		for( int cnt = 0 ; cnt < 100 ; cnt++ )
+		{
+			for( int i = 0 ; i < arrA.length ; i++ )
+			{
+				arrA[ i ] = 2.0 * rand.nextDouble() - 1.0;
+			}
+			for( int i = 0 ; i < arrB.length ; i++ )
+			{
+				arrB[ i ] = 2.0 * rand.nextDouble() - 1.0;
+			}
+			final int numEvals = countEvals( leaves );
+			final double d = gen.eval( null ).getVal();
+			Assert.assertEquals( numEvals , countEvals( leaves ) );
+			final double d_truth = un.eval( null ).getVal();
+			Assert.assertEquals( d_truth , d , 1E-12 );
+		}
+	}
+
+
+
+	/**
+	 * Tests that array-bound leaves are read directly by jlang code.
+	 * @throws Throwable
+	 */
+	public void testArrayLeafJlang() throws Throwable
+	{
+		final DoubleElemFactory dfac = new DoubleElemFactory();
+		final double[] arrA = new double[ 3 ];
+		final double[] arrB = new double[ 2 ];
+		final ArrayList<ArrayLeaf_Dbl> leaves = new ArrayList<ArrayLeaf_Dbl>();
+		final SymbolicElem<DoubleElem,DoubleElemFactory> un = buildStencil( dfac , arrA , arrB , true , leaves );
+
+		final Jlang_Dbl gen = (Jlang_Dbl)( Jlang.jlang_Dbl( un ) );
+		Assert.assertEquals( 0 , gen.getBatchInputs().size() );
+		verifyStencil( un , gen , arrA , arrB , leaves );
+	}
+
+
+
+	/**
+	 * Tests that leaves declaring snippets are evaluated by jlang code, alongside leaves that are called back.
+	 * @throws Throwable
+	 */
+	public void testSnippetLeafJlang() throws Throwable
+	{
+		final DoubleElemFactory dfac = new DoubleElemFactory();
+		final PiLeaf_Dbl pi = new PiLeaf_Dbl( dfac );
+		final TestJlang.Bob_Dbl bob = new TestJlang.Bob_Dbl( dfac );
+		final SymbolicElem<DoubleElem,DoubleElemFactory> un = pi.mult( bob ).add( pi );
+
+		final Jlang_Dbl gen = (Jlang_Dbl)( Jlang.jlang_Dbl( un ) );
+		Assert.assertEquals( 1 , gen.getBatchInputs().size() );
+		bob.setElem( new DoubleElem( 0.75 ) );
+		final int numEvals = pi.numEvals;
+		Assert.assertEquals( Math.PI * 0.75 + Math.PI , gen.eval( null ).getVal() , 1E-12 );
+		Assert.assertEquals( numEvals , pi.numEvals );
+	}
+
+
+
+	/**
+	 * Tests that array-bound leaves are read directly by method handle code.
+	 * @throws Throwable
+	 */
+	public void testArrayLeafHandles() throws Throwable
+	{
+		final DoubleElemFactory dfac = new DoubleElemFactory();
+		final double[] arrA = new double[ 3 ];
+		final double[] arrB = new double[ 2 ];
+		final ArrayList<ArrayLeaf_Dbl> leaves = new ArrayList<ArrayLeaf_Dbl>();
+		final SymbolicElem<DoubleElem,DoubleElemFactory> un = buildStencil( dfac , arrA , arrB , true , leaves );
+
+		final SymbolicElem<DoubleElem,DoubleElemFactory> gen = JlangHandles.jlangHandles_Dbl( un );
+		verifyStencil( un , gen , arrA , arrB , leaves );
+	}
+
+
+
+	/**
+	 * Times one pass of evaluations of a generated stencil.
+	 * @param gen The generated stencil.
+	 * @param numIter The number of evaluations.
+	 * @param sum Single-element array accumulating the results, so that the evaluations are not optimized away.
+	 * @return The time taken in nanoseconds.
+	 * @throws Throwable
+	 */
+	protected static long timePass( SymbolicElem<DoubleElem,DoubleElemFactory> gen , int numIter , double[] sum ) throws Throwable
+	{
+		final long startNanos = System.nanoTime();
+		double acc = 0.0;
+		for( int cnt = 0 ; cnt < numIter ; cnt++ )
+		{
+			acc += gen.eval( null ).getVal();
+		}
+		final long endNanos = System.nanoTime();
+		sum[ 0 ] += acc;
+		return( endNanos - startNanos );
+	}
+
+
+
+	/**
+	 * Gets the median of a set of times.
+	 * @param nanos The times in nanoseconds.  The array is sorted in place.
+	 * @return The median time in nanoseconds.
+	 */
+	protected static long median( long[] nanos )
+	{
+		Arrays.sort( nanos );
+		return( nanos[ nanos.length / 2 ] );
+	}
+
+
+
+	/**
+	 * Measures the evaluation of a jlang stencil with array-bound leaves against the same stencil with leaves that are called back.
+	 * Both stencils are warmed up before timing, and the timed passes alternate which stencil runs first so that neither
+	 * is favored by the state of the JIT.  The median pass of each stencil is reported.
+	 * @throws Throwable
+	 */
+	public void testArrayLeafThroughput() throws Throwable
+	{
+		final int numIter = 200000;
+		final int numWarmup = 10;
+		final int numPasses = 15;
+		final DoubleElemFactory dfac = new DoubleElemFactory();
+		final double[] arrA = { 0.25 , 0.5 , 0.75 };
+		final double[] arrB = { 0.125 , 0.375 };
+		final SymbolicElem<DoubleElem,DoubleElemFactory> unBound = buildStencil( dfac , arrA , arrB , true , new ArrayList<ArrayLeaf_Dbl>() );
+		final SymbolicElem<DoubleElem,DoubleElemFactory> unCallback = buildStencil( dfac , arrA , arrB , false , new ArrayList<ArrayLeaf_Dbl>() );
+		final SymbolicElem<DoubleElem,DoubleElemFactory> genBound = Jlang.jlang_Dbl( unBound );
+		final SymbolicElem<DoubleElem,DoubleElemFactory> genCallback = Jlang.jlang_Dbl( unCallback );
+
+		final double[] sumBound = { 0.0 };
+		final double[] sumCallback = { 0.0 };
+		for( int pass = 0 ; pass < numWarmup ; pass++ )
+		{
+			timePass( genBound , numIter , sumBound );
+			timePass( genCallback , numIter , sumCallback );
+		}
+
+		final long[] boundNanos = new long[ numPasses ];
+		final long[] callbackNanos = new long[ numPasses ];
+		for( int pass = 0 ; pass < numPasses ; pass++ )
+		{
+			if( pass % 2 == 0 )
+			{
+				boundNanos[ pass ] = timePass( genBound , numIter , sumBound );
+				callbackNanos[ pass ] = timePass( genCallback , numIter , sumCallback );
+			}
+			else
+			{
+				callbackNanos[ pass ] = timePass( genCallback , numIter , sumCallback );
+				boundNanos[ pass ] = timePass( genBound , numIter , sumBound );
+			}
+		}
+
+		final double boundMedian = ( (double) median( boundNanos ) ) / numIter;
+		final double callbackMedian = ( (double) median( callbackNanos ) ) / numIter;
+		System.out.println( "Array-Bound Leaves " + boundMedian + " ns/eval (median of " + numPasses + " passes, min " + ( ( (double) boundNanos[ 0 ] ) / numIter ) + ")" );
+		System.out.println( "Callback Leaves " + callbackMedian + " ns/eval (median of " + numPasses + " passes, min " + ( ( (double) callbackNanos[ 0 ] ) / numIter ) + ")" );
+		Assert.assertEquals( sumCallback[ 0 ] , sumBound[ 0 ] , 1E-6 * Math.abs( sumCallback[ 0 ] ) );
+	}
+
+
+
+}
+
+
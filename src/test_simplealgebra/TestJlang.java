@@ -39,6 +39,8 @@ import simplealgebra.Elem;
 import simplealgebra.NotInvertibleException;
 import simplealgebra.WriteElemCache;
 import simplealgebra.jlang.Jlang;
+import simplealgebra.jlang.JlangInProcessCompiler;
+import simplealgebra.jlang.KernelCache;
 import simplealgebra.symbolic.MultiplicativeDistributionRequiredException;
 import simplealgebra.symbolic.SCacheKey;
 import simplealgebra.symbolic.SymbolicAbsoluteValue;
@@ -371,8 +373,113 @@ public class TestJlang extends TestCase {
 	
 	
 	
+	/**
+	 * Tests that the in-process compile path defines a hidden class that evaluates correctly.
+	 * @throws Throwable
+	 */
+	public void testInProcessHiddenClassDbl() throws Throwable
+	{
+		Random rand = new Random( 6543 );
+		final DoubleElemFactory dfac = new DoubleElemFactory();
+		final Bob_Dbl bob = new Bob_Dbl( dfac );
+		final SymbolicElem<DoubleElem,DoubleElemFactory> un =
+				bob.mult( bob ).add( bob.divideBy( 3 ) ).negate();
+		
+		final boolean prev = Jlang.isInProcessCompile();
+		Jlang.setInProcessCompile( true );
+		try
+		{
+			final SymbolicElem<DoubleElem,DoubleElemFactory> gen = Jlang.jlang_Dbl( un );
+			Assert.assertEquals( JlangInProcessCompiler.isAvailable() , gen.getClass().isHidden() );
+			for( int cnt = 0 ; cnt < 100 ; cnt++ )
+			{
+				bob.setElem( new DoubleElem( 2.0 * rand.nextDouble() - 1.0 ) );
+				final DoubleElem d = gen.eval( null );
+				final DoubleElem d_truth = un.eval( null );
+				Assert.assertTrue( Math.abs( d.getVal() - d_truth.getVal() ) < 1E-6 );
+			}
+		}
+		finally
+		{
+			Jlang.setInProcessCompile( prev );
+		}
+	}
+	
+	
+	
+	
+	/**
+	 * Measures the per-kernel compile latency of the in-process compile path against the path that runs
+	 * javac in a separate process.  The latter requires JlangConstants to match the build environment, 
+	 * so its measurement is skipped if it fails.
+	 * @throws Throwable
+	 */
+	public void testCompileLatency() throws Throwable
+	{
+		final int numKernels = 8;
+		final DoubleElemFactory dfac = new DoubleElemFactory();
+		final Bob_Dbl bob = new Bob_Dbl( dfac );
+		bob.setElem( new DoubleElem( 0.25 ) );
+		
+		final boolean prev = Jlang.isInProcessCompile();
+		final KernelCache prevCache = Jlang.getKernelCache();
+		// Disables the kernel cache so that compiles from previous runs are not reused.
+		Jlang.setKernelCache( null );
+		try
+		{
+			for( int mode = 0 ; mode < 2 ; mode++ )
+			{
+				final boolean inProcess = mode == 0;
+				Jlang.setInProcessCompile( inProcess );
+				long totalNanos = 0;
+				long firstNanos = 0;
+				boolean failed = false;
+				SymbolicElem<DoubleElem,DoubleElemFactory> un = bob;
+				for( int cnt = 0 ; ( cnt < numKernels ) && !failed ; cnt++ )
+				{
+					un = un.mult( bob ).add( un.divideBy( cnt + 2 ) );
+					try
+					{
+						final SymbolicElem<DoubleElem,DoubleElemFactory> gen = Jlang.jlang_Dbl( un );
+						Assert.assertTrue( Math.abs( gen.eval( null ).getVal() - un.eval( null ).getVal() ) < 1E-6 );
+					}
+					catch( Throwable ex )
+					{
+						if( inProcess )
+						{
+							throw( ex );
+						}
+						failed = true;
+					}
+					if( cnt == 0 )
+					{
+						firstNanos = Jlang.getLastCompileNanos();
+					}
+					else
+					{
+						totalNanos += Jlang.getLastCompileNanos();
+					}
+				}
+				final String name = inProcess ? "In-Process" : "Separate Process";
+				if( failed )
+				{
+					System.out.println( name + " Compile Unavailable" );
+				}
+				else
+				{
+					System.out.println( name + " First Compile " + ( firstNanos / 1E+6 ) + " ms" );
+					System.out.println( name + " Mean Compile " + ( totalNanos / ( ( numKernels - 1 ) * 1E+6 ) ) + " ms" );
+				}
+			}
+		}
+		finally
+		{
+			Jlang.setInProcessCompile( prev );
+			Jlang.setKernelCache( prevCache );
+		}
+	}
+	
+	
+	
 	
 }
-
-
-
@@ -0,0 +1,222 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package test_simplealgebra;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import simplealgebra.DoubleElem;
+import simplealgebra.DoubleElemFactory;
+import simplealgebra.jlang.Jlang;
+import simplealgebra.jlang.Jlang_Dbl;
+import simplealgebra.symbolic.SymbolicAbsoluteValue;
+import simplealgebra.symbolic.SymbolicElem;
+import simplealgebra.symbolic.SymbolicElemFactory;
+import simplealgebra.symbolic.SymbolicReduction;
+
+
+/**
+ * Tests the batch evaluation of expressions converted to jlang.  Uses JUnit ( <A href="http://junit.org">http://junit.org</A> ).
+ * 
+ * Each test runs with vector batch evaluation enabled, but the vector path is only exercised when the JVM is started with
+ * "--add-modules jdk.incubator.vector".  Otherwise the scalar path is tested.
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ *
+ */
+public class TestJlangBatch extends TestCase {
+
+
+
+	/**
+	 * Whether vector batch evaluation was enabled before the test.
+	 */
+	protected boolean prevVectorBatch;
+
+
+
+	@Override
+	protected void setUp() throws Exception
+	{
+		prevVectorBatch = Jlang.isVectorBatch();
+		Jlang.setVectorBatch( true );
+	}
+
+
+
+	@Override
+	protected void tearDown() throws Exception
+	{
+		Jlang.setVectorBatch( prevVectorBatch );
+	}
+
+
+
+	/**
+	 * Verifies the batch evaluation of an expression against evaluations of the expression at each point.
+	 * @param un The expression.
+	 * @param bobs The leaves of the expression.
+	 * @param n The number of points.
+	 * @param rand Random number generator for the input values.
+	 * @throws Throwable
+	 */
+	protected void verifyBatch( SymbolicElem<DoubleElem,DoubleElemFactory> un , TestJlang.Bob_Dbl[] bobs , int n , Random rand ) throws Throwable
+	{
+		final Jlang_Dbl gen = (Jlang_Dbl)( Jlang.jlang_Dbl( un ) );
+		final ArrayList<SymbolicElem<DoubleElem,DoubleElemFactory>> batchInputs = gen.getBatchInputs();
+		Assert.assertEquals( bobs.length , batchInputs.size() );
+
+		final double[][] inputs = new double[ bobs.length ][ n ];
+		for( int cnt = 0 ; cnt < bobs.length ; cnt++ )
+		{
+			for( int i = 0 ; i < n ; i++ )
+			{
+				inputs[ cnt ][ i ] = 2.0 * rand.nextDouble() - 1.0;
+			}
+		}
+
+		final double[] out = new double[ n ];
+		gen.evalBatch( inputs , out , n );
+
+		for( int i = 0 ; i < n ; i++ )
+		{
+			for( int cnt = 0 ; cnt < bobs.length ; cnt++ )
+			{
+				( (TestJlang.Bob_Dbl)( batchInputs.get( cnt ) ) ).setElem( new DoubleElem( inputs[ cnt ][ i ] ) );
+			}
+			final double d_truth = un.eval( null ).getVal();
+			Assert.assertEquals( d_truth , out[ i ] , 1E-10 * Math.max( 1.0 , Math.abs( d_truth ) ) );
+		}
+	}
+
+
+
+	/**
+	 * Tests batch evaluations of a polynomial in two variables, over a number of points that is not a multiple of the vector length.
+	 * @throws Throwable
+	 */
+	public void testBatchPolynomialDbl() throws Throwable
+	{
+		final Random rand = new Random( 6543 );
+		final DoubleElemFactory dfac = new DoubleElemFactory();
+		final TestJlang.Bob_Dbl bobA = new TestJlang.Bob_Dbl( dfac );
+		final TestJlang.Bob_Dbl bobB = new TestJlang.Bob_Dbl( dfac );
+		final SymbolicElem<DoubleElem,DoubleElemFactory> bob_2 = bobA.mult( bobB );
+		final SymbolicElem<DoubleElem,DoubleElemFactory> bob_3 = bobA.mult( bob_2 );
+		final SymbolicElem<DoubleElem,DoubleElemFactory> un =
+				bobA.add( bob_2.negate() ).add( bob_3 ).add( bobB.divideBy( 3 ) );
+
+		verifyBatch( un , new TestJlang.Bob_Dbl[] { bobA , bobB } , 1003 , rand );
+	}
+
+
+
+	/**
+	 * Tests batch evaluations of the remaining operations supported for doubles.
+	 * @throws Throwable
+	 */
+	public void testBatchOperationsDbl() throws Throwable
+	{
+		final Random rand = new Random( 6543 );
+		final DoubleElemFactory dfac = new DoubleElemFactory();
+		final SymbolicElemFactory<DoubleElem,DoubleElemFactory> sfac = new SymbolicElemFactory<DoubleElem,DoubleElemFactory>( dfac );
+		final TestJlang.Bob_Dbl bob = new TestJlang.Bob_Dbl( dfac );
+		final SymbolicElem<DoubleElem,DoubleElemFactory> un =
+				new SymbolicAbsoluteValue<DoubleElem,DoubleElemFactory>( bob.invertLeft().add( bob.invertRight().divideBy( 3 ) ) , dfac )
+				.add( new SymbolicReduction<DoubleElem,DoubleElemFactory>( new DoubleElem( 1E-8 ) , dfac ) )
+				.mult( sfac.identity().add( sfac.zero() ).negate() );
+
+		verifyBatch( un , new TestJlang.Bob_Dbl[] { bob } , 517 , rand );
+	}
+
+
+
+	/**
+	 * Measures batch evaluation against evaluation at each point.
+	 * @throws Throwable
+	 */
+	public void testBatchThroughput() throws Throwable
+	{
+		final int n = 4096;
+		final int numIter = 200;
+		final DoubleElemFactory dfac = new DoubleElemFactory();
+		final TestJlang.Bob_Dbl bob = new TestJlang.Bob_Dbl( dfac );
+		SymbolicElem<DoubleElem,DoubleElemFactory> un = bob;
+		for( int cnt = 0 ; cnt < 8 ; cnt++ )
+		{
+			un = un.mult( bob ).add( un.divideBy( cnt + 2 ) );
+		}
+
+		final Jlang_Dbl gen = (Jlang_Dbl)( Jlang.jlang_Dbl( un ) );
+		final double[][] inputs = new double[ 1 ][ n ];
+		for( int i = 0 ; i < n ; i++ )
+		{
+			inputs[ 0 ][ i ] = ( (double) i ) / n;
+		}
+		final double[] out = new double[ n ];
+		final double[] outPt = new double[ n ];
+
+		long pointNanos = 0;
+		long batchNanos = 0;
+		for( int iter = 0 ; iter < numIter ; iter++ )
+		{
+			final long startNanos = System.nanoTime();
+			for( int i = 0 ; i < n ; i++ )
+			{
+				bob.setElem( new DoubleElem( inputs[ 0 ][ i ] ) );
+				outPt[ i ] = gen.eval( null ).getVal();
+			}
+			final long midNanos = System.nanoTime();
+			gen.evalBatch( inputs , out , n );
+			final long endNanos = System.nanoTime();
+			if( iter >= numIter / 2 )
+			{
+				pointNanos += midNanos - startNanos;
+				batchNanos += endNanos - midNanos;
+			}
+		}
+
+		final double numPts = ( numIter - numIter / 2 ) * ( (double) n );
+		System.out.println( "Per-Point Eval " + ( pointNanos / numPts ) + " ns/point" );
+		System.out.println( "Batch Eval " + ( batchNanos / numPts ) + " ns/point" );
+
+		for( int i = 0 ; i < n ; i++ )
+		{
+			Assert.assertEquals( outPt[ i ] , out[ i ] , 1E-12 * Math.max( 1.0 , Math.abs( outPt[ i ] ) ) );
+		}
+	}
+
+
+
+}
+
+
@@ -0,0 +1,251 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package test_simplealgebra;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import simplealgebra.ComplexElem;
+import simplealgebra.ComplexElemFactory;
+import simplealgebra.DoubleElem;
+import simplealgebra.DoubleElemFactory;
+import simplealgebra.Elem;
+import simplealgebra.NotInvertibleException;
+import simplealgebra.jlang.JlangCompile;
+import simplealgebra.jlang.JlangHandles;
+import simplealgebra.symbolic.MultiplicativeDistributionRequiredException;
+import simplealgebra.symbolic.SymbolicAbsoluteValue;
+import simplealgebra.symbolic.SymbolicElem;
+import simplealgebra.symbolic.SymbolicElemFactory;
+import simplealgebra.symbolic.SymbolicReduction;
+
+
+/**
+ * Tests the ability to convert some symbolic expressions directly to composed method handles
+ * for execution-time performance optimization.  Uses JUnit ( <A href="http://junit.org">http://junit.org</A> ).
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ *
+ */
+public class TestJlangHandles extends TestCase {
+
+
+
+	/**
+	 * Changing double value that counts its evaluations.
+	 * 
+	 * @author thorngreen
+	 * 
+	 */
+	protected static class CountingBob_Dbl extends TestJlang.Bob_Dbl
+	{
+
+		/**
+		 * Constructor.
+		 * @param _fac Input factory.
+		 */
+		public CountingBob_Dbl(DoubleElemFactory _fac) {
+			super(_fac);
+		}
+
+		@Override
+		public DoubleElem eval(
+				HashMap<? extends Elem<?, ?>, ? extends Elem<?, ?>> implicitSpace)
+				throws NotInvertibleException,
+				MultiplicativeDistributionRequiredException {
+			numEvals++;
+			return( super.eval( implicitSpace ) );
+		}
+
+		/**
+		 * The number of evaluations.
+		 */
+		int numEvals = 0;
+
+	}
+
+
+
+	/**
+	 * Tests evaluations of a simple polynomial.
+	 * @throws Throwable
+	 */
+	public void testSimplePolynomialDbl() throws Throwable
+	{
+		Random rand = new Random( 6543 );
+		final DoubleElemFactory dfac = new DoubleElemFactory();
+		final TestJlang.Bob_Dbl bob = new TestJlang.Bob_Dbl( dfac );
+		final SymbolicElem<DoubleElem,DoubleElemFactory> bob_2 = bob.mult( bob );
+		final SymbolicElem<DoubleElem,DoubleElemFactory> bob_3 = bob.mult( bob_2 );
+		final SymbolicElem<DoubleElem,DoubleElemFactory> bob_4 = bob.mult( bob_3 );
+		final SymbolicElem<DoubleElem,DoubleElemFactory> un =
+				bob.add( bob_2.negate() ).add( bob_3 ).add( bob_4.negate() );
+
+		final SymbolicElem<DoubleElem,DoubleElemFactory> gen = JlangHandles.jlangHandles_Dbl( un );
+		for( int cnt = 0 ; cnt < 100 ; cnt++ )
+		{
+			bob.setElem( new DoubleElem( 2.0 * rand.nextDouble() - 1.0 ) );
+			final DoubleElem d = gen.eval( null );
+			final DoubleElem d_truth = un.eval( null );
+			Assert.assertEquals( d_truth.getVal() , d.getVal() , 1E-12 );
+		}
+	}
+
+
+
+	/**
+	 * Tests evaluations of the remaining operations supported for doubles.
+	 * @throws Throwable
+	 */
+	public void testOperationsDbl() throws Throwable
+	{
+		Random rand = new Random( 6543 );
+		final DoubleElemFactory dfac = new DoubleElemFactory();
+		final SymbolicElemFactory<DoubleElem,DoubleElemFactory> sfac = new SymbolicElemFactory<DoubleElem,DoubleElemFactory>( dfac );
+		final TestJlang.Bob_Dbl bob = new TestJlang.Bob_Dbl( dfac );
+		final SymbolicElem<DoubleElem,DoubleElemFactory> un =
+				new SymbolicAbsoluteValue<DoubleElem,DoubleElemFactory>( bob.invertLeft().add( bob.invertRight().divideBy( 3 ) ) , dfac )
+				.add( new SymbolicReduction<DoubleElem,DoubleElemFactory>( new DoubleElem( 1E-8 ) , dfac ) )
+				.mult( sfac.identity().add( sfac.zero() ).negate() );
+
+		final SymbolicElem<DoubleElem,DoubleElemFactory> gen = JlangHandles.jlangHandles_Dbl( un );
+		for( int cnt = 0 ; cnt < 100 ; cnt++ )
+		{
+			bob.setElem( new DoubleElem( 2.0 * rand.nextDouble() - 1.0 ) );
+			final DoubleElem d = gen.eval( null );
+			final DoubleElem d_truth = un.eval( null );
+			Assert.assertEquals( d_truth.getVal() , d.getVal() , 1E-10 * Math.abs( d_truth.getVal() ) );
+		}
+	}
+
+
+
+	/**
+	 * Tests that shared subexpressions and unrecognized SymbolicElems are evaluated once per evaluation.  Without
+	 * this, the number of evaluations of the repeated squaring below would grow exponentially with its depth.
+	 * @throws Throwable
+	 */
+	public void testSharedSubexpressionsDbl() throws Throwable
+	{
+		final DoubleElemFactory dfac = new DoubleElemFactory();
+		final CountingBob_Dbl bob = new CountingBob_Dbl( dfac );
+		SymbolicElem<DoubleElem,DoubleElemFactory> un = bob;
+		for( int cnt = 0 ; cnt < 40 ; cnt++ )
+		{
+			un = un.mult( un ).add( bob );
+		}
+
+		final SymbolicElem<DoubleElem,DoubleElemFactory> gen = JlangHandles.jlangHandles_Dbl( un );
+		bob.setElem( new DoubleElem( 0.25 ) );
+		bob.numEvals = 0;
+		final DoubleElem d = gen.eval( null );
+		Assert.assertEquals( 1 , bob.numEvals );
+
+		double truth = 0.25;
+		for( int cnt = 0 ; cnt < 40 ; cnt++ )
+		{
+			truth = truth * truth + 0.25;
+		}
+		Assert.assertEquals( truth , d.getVal() , 1E-12 );
+	}
+
+
+
+	/**
+	 * Tests evaluations of a simple polynomial.
+	 * @throws Throwable
+	 */
+	public void testSimplePolynomialDbl_Cplx() throws Throwable
+	{
+		Random rand = new Random( 6543 );
+		final DoubleElemFactory dfac = new DoubleElemFactory();
+		final ComplexElemFactory<DoubleElem,DoubleElemFactory> cfac = new ComplexElemFactory<DoubleElem,DoubleElemFactory>( dfac );
+		final TestJlang.Bob_Cplx_Dbl bob = new TestJlang.Bob_Cplx_Dbl( cfac );
+		final SymbolicElem<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>> bob_2 = bob.mult( bob );
+		final SymbolicElem<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>> bob_3 = bob.mult( bob_2 );
+		final SymbolicElem<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>> bob_4 = bob.mult( bob_3 );
+		final SymbolicElem<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>> un =
+				bob.add( bob_2.negate() ).add( bob_3 ).add( bob_4.negate() ).add( bob.invertLeft().divideBy( 5 ) );
+
+		final SymbolicElem<ComplexElem<DoubleElem,DoubleElemFactory>,ComplexElemFactory<DoubleElem,DoubleElemFactory>> gen =
+				JlangHandles.jlangHandles_Cplx_Dbl( un );
+		for( int cnt = 0 ; cnt < 100 ; cnt++ )
+		{
+			final DoubleElem dre = new DoubleElem( 2.0 * rand.nextDouble() - 1.0 );
+			final DoubleElem dim = new DoubleElem( 2.0 * rand.nextDouble() - 1.0 );
+			bob.setElem( new ComplexElem<DoubleElem,DoubleElemFactory>( dre , dim ) );
+			final ComplexElem<DoubleElem,DoubleElemFactory> cplx = gen.eval( null );
+			final ComplexElem<DoubleElem,DoubleElemFactory> cplx_truth = un.eval( null );
+			Assert.assertEquals( cplx_truth.getRe().getVal() , cplx.getRe().getVal() , 1E-10 );
+			Assert.assertEquals( cplx_truth.getIm().getVal() , cplx.getIm().getVal() , 1E-10 );
+		}
+	}
+
+
+
+	/**
+	 * Tests conversion through JlangCompile, and measures the conversion time per expression.
+	 * @throws Throwable
+	 */
+	public void testJlangCompileLatency() throws Throwable
+	{
+		final int numKernels = 2000;
+		final DoubleElemFactory dfac = new DoubleElemFactory();
+		final TestJlang.Bob_Dbl bob = new TestJlang.Bob_Dbl( dfac );
+		bob.setElem( new DoubleElem( 0.25 ) );
+		final JlangCompile<DoubleElem,DoubleElemFactory> compiler = new JlangCompile<DoubleElem,DoubleElemFactory>( true );
+
+		SymbolicElem<DoubleElem,DoubleElemFactory> un = bob;
+		for( int cnt = 0 ; cnt < 8 ; cnt++ )
+		{
+			un = un.mult( bob ).add( un.divideBy( cnt + 2 ) );
+		}
+
+		final long startNanos = System.nanoTime();
+		SymbolicElem<DoubleElem,DoubleElemFactory> gen = null;
+		for( int cnt = 0 ; cnt < numKernels ; cnt++ )
+		{
+			gen = compiler.attemptJlangCompile( un );
+		}
+		final long endNanos = System.nanoTime();
+
+		System.out.println( "Mean Method Handle Compile " + ( ( endNanos - startNanos ) / ( numKernels * 1E+3 ) ) + " us" );
+
+		Assert.assertTrue( gen != un );
+		Assert.assertEquals( un.eval( null ).getVal() , gen.eval( null ).getVal() , 1E-12 );
+	}
+
+
+
+}
+
+
@@ -713,6 +713,12 @@ public class TestKdvB extends TestCase {
 			return( col );
 		}
 		
+		@Override
+		public int symbolicHashCode()
+		{
+			return( hashCode() );
+		}
+		
 		/**
 		 * Returns the number of the ordinate.
 		 * 
@@ -1068,6 +1074,12 @@ public class TestKdvB extends TestCase {
 			return( sum );
 		}
 		
+		@Override
+		public int symbolicHashCode()
+		{
+			return( hashCode() );
+		}
+		
 		
 	}
 	
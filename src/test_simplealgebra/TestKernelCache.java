@@ -0,0 +1,233 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package test_simplealgebra;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.HashMap;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import simplealgebra.DoubleElem;
+import simplealgebra.DoubleElemFactory;
+import simplealgebra.jlang.Jlang;
+import simplealgebra.jlang.KernelCache;
+import simplealgebra.symbolic.SymbolicElem;
+
+
+/**
+ * Tests the persistent cache of compiled kernels.  Uses JUnit ( <A href="http://junit.org">http://junit.org</A> ).
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ *
+ */
+public class TestKernelCache extends TestCase {
+
+
+
+	/**
+	 * Creates a cache in a new temporary directory.
+	 * @param byteBudget The maximum total size of the cache in bytes.
+	 * @return The cache.
+	 * @throws Throwable
+	 */
+	protected static KernelCache createCache( long byteBudget ) throws Throwable
+	{
+		final File dir = Files.createTempDirectory( "kernelcache" ).toFile();
+		return( new KernelCache( dir , byteBudget ) );
+	}
+
+
+
+	/**
+	 * Deletes a cache created by {@link #createCache(long)}.
+	 * @param cache The cache.
+	 */
+	protected static void deleteCache( KernelCache cache )
+	{
+		cache.clear();
+		cache.getDir().delete();
+	}
+
+
+
+	/**
+	 * Creates the files of an entry.
+	 * @param fileName The name of the single file of the entry.
+	 * @param size The size of the file in bytes.
+	 * @param val The value of each byte of the file.
+	 * @return The files of the entry.
+	 */
+	protected static HashMap<String,byte[]> createFiles( String fileName , int size , byte val )
+	{
+		final byte[] bytes = new byte[ size ];
+		for( int cnt = 0 ; cnt < size ; cnt++ )
+		{
+			bytes[ cnt ] = val;
+		}
+		final HashMap<String,byte[]> files = new HashMap<String,byte[]>();
+		files.put( fileName , bytes );
+		return( files );
+	}
+
+
+
+	/**
+	 * Tests that keys do not depend on the numbering of generated names, but do depend on the structure of the code and on the compiler.
+	 * @throws Throwable
+	 */
+	public void testKeyCanonicalization() throws Throwable
+	{
+		final String a = KernelCache.computeKey( "Jlang_Dbl" , "cfg" , "final double t_15 = m_12.eval( null ).getVal();\nfinal double t_16 = t_15 * t_15;\n" , "t_16" );
+		final String b = KernelCache.computeKey( "Jlang_Dbl" , "cfg" , "final double t_3 = m_2.eval( null ).getVal();\nfinal double t_4 = t_3 * t_3;\n" , "t_4" );
+		final String c = KernelCache.computeKey( "Jlang_Dbl" , "cfg" , "final double t_3 = m_2.eval( null ).getVal();\nfinal double t_4 = t_3 + t_3;\n" , "t_4" );
+		final String d = KernelCache.computeKey( "Jlang_Dbl" , "cfg2" , "final double t_3 = m_2.eval( null ).getVal();\nfinal double t_4 = t_3 * t_3;\n" , "t_4" );
+		final String e = KernelCache.computeKey( "Jlang_Dbl" , "cfg" , "final double t_3 = m_2.eval( null ).getVal();\nfinal double t_4 = t_3 * t_3;\n" , "t_3" );
+
+		Assert.assertEquals( 32 , a.length() );
+		Assert.assertEquals( a , b );
+		Assert.assertFalse( a.equals( c ) );
+		Assert.assertFalse( a.equals( d ) );
+		Assert.assertFalse( a.equals( e ) );
+	}
+
+
+
+	/**
+	 * Tests storing and retrieving entries.
+	 * @throws Throwable
+	 */
+	public void testHitMiss() throws Throwable
+	{
+		final KernelCache cache = createCache( KernelCache.DEFAULT_BYTE_BUDGET );
+		try
+		{
+			Assert.assertNull( cache.get( "a" , "k.class" ) );
+			cache.put( "a" , createFiles( "k.class" , 10 , (byte) 3 ) );
+			final byte[] bytes = cache.get( "a" , "k.class" );
+			Assert.assertEquals( 10 , bytes.length );
+			Assert.assertEquals( 3 , bytes[ 9 ] );
+			Assert.assertNull( cache.get( "a" , "k.so" ) );
+			Assert.assertEquals( 1 , cache.getHits() );
+			Assert.assertEquals( 2 , cache.getMisses() );
+			Assert.assertEquals( 10 , cache.getSizeBytes() );
+
+			cache.remove( "a" );
+			Assert.assertNull( cache.get( "a" , "k.class" ) );
+			Assert.assertEquals( 0 , cache.getSizeBytes() );
+		}
+		finally
+		{
+			deleteCache( cache );
+		}
+	}
+
+
+
+	/**
+	 * Tests that the least recently used entries are deleted when the cache exceeds its byte budget.
+	 * @throws Throwable
+	 */
+	public void testLruEviction() throws Throwable
+	{
+		final KernelCache cache = createCache( 250 );
+		try
+		{
+			cache.put( "a" , createFiles( "k.class" , 100 , (byte) 1 ) );
+			cache.put( "b" , createFiles( "k.class" , 100 , (byte) 2 ) );
+			final long now = System.currentTimeMillis();
+			cache.getEntryDir( "a" ).setLastModified( now - 20000 );
+			cache.getEntryDir( "b" ).setLastModified( now - 10000 );
+
+			// Using "a" makes "b" the least recently used entry.
+			Assert.assertNotNull( cache.get( "a" , "k.class" ) );
+			cache.put( "c" , createFiles( "k.class" , 100 , (byte) 3 ) );
+
+			Assert.assertEquals( 1 , cache.getEvictions() );
+			Assert.assertNotNull( cache.get( "a" , "k.class" ) );
+			Assert.assertNull( cache.get( "b" , "k.class" ) );
+			Assert.assertNotNull( cache.get( "c" , "k.class" ) );
+			Assert.assertEquals( 200 , cache.getSizeBytes() );
+		}
+		finally
+		{
+			deleteCache( cache );
+		}
+	}
+
+
+
+	/**
+	 * Tests that compiling the same expression again, as would happen in a later run, loads the compiled kernel from the cache.
+	 * @throws Throwable
+	 */
+	public void testJlangWarmReload() throws Throwable
+	{
+		final KernelCache cache = createCache( KernelCache.DEFAULT_BYTE_BUDGET );
+		final KernelCache prevCache = Jlang.getKernelCache();
+		Jlang.setKernelCache( cache );
+		try
+		{
+			final DoubleElemFactory dfac = new DoubleElemFactory();
+			final TestJlang.Bob_Dbl bob = new TestJlang.Bob_Dbl( dfac );
+			bob.setElem( new DoubleElem( 0.25 ) );
+			SymbolicElem<DoubleElem,DoubleElemFactory> un = bob;
+			for( int cnt = 0 ; cnt < 4 ; cnt++ )
+			{
+				un = un.mult( bob ).add( un.divideBy( cnt + 2 ) );
+			}
+
+			final SymbolicElem<DoubleElem,DoubleElemFactory> cold = Jlang.jlang_Dbl( un );
+			final long coldNanos = Jlang.getLastCompileNanos();
+			Assert.assertEquals( 0 , cache.getHits() );
+
+			final SymbolicElem<DoubleElem,DoubleElemFactory> warm = Jlang.jlang_Dbl( un );
+			final long warmNanos = Jlang.getLastCompileNanos();
+			Assert.assertEquals( 1 , cache.getHits() );
+
+			System.out.println( "Cold Kernel Load " + ( coldNanos / 1E+6 ) + " ms" );
+			System.out.println( "Warm Kernel Load " + ( warmNanos / 1E+6 ) + " ms" );
+
+			bob.setElem( new DoubleElem( 0.75 ) );
+			Assert.assertEquals( un.eval( null ).getVal() , cold.eval( null ).getVal() , 1E-12 );
+			Assert.assertEquals( un.eval( null ).getVal() , warm.eval( null ).getVal() , 1E-12 );
+		}
+		finally
+		{
+			Jlang.setKernelCache( prevCache );
+			deleteCache( cache );
+		}
+	}
+
+
+
+}
+
+
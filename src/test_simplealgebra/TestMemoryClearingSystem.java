@@ -0,0 +1,293 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package test_simplealgebra;
+
+
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.hypergraphdb.HyperGraph;
+
+import simplealgebra.store.HyperGraphMemoryManager;
+import simplealgebra.store.MemoryClearingSystem;
+import simplealgebra.store.SegmentedCommitPolicy;
+import simplealgebra.store.SegmentedTransactionManager;
+import simplealgebra.store.TypeSystemInit;
+
+
+
+/**
+ * Tests the memory pressure handling of the memory clearing system, and the count-or-time commit policies that it sets.
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ *
+ */
+public class TestMemoryClearingSystem extends TestCase {
+	
+	
+	/**
+	 * Tests that the default commit policy segments the transaction after every {@link MemoryClearingSystem#DEFAULT_MAX_OPS}
+	 * operations, counting both accesses and writes, and after {@link MemoryClearingSystem#DEFAULT_MAX_COMMIT_INTERVAL_MS} milliseconds.
+	 */
+	public void testDefaultPolicy() throws Throwable
+	{
+		final HyperGraph graph = new HyperGraph( DatabasePathForTest.DATABASE_PATH + "mydbMC0" );
+		TypeSystemInit.initType( graph );
+		MemoryClearingSystem.initMemoryClearing( graph );
+		final HyperGraphMemoryManager mgr = MemoryClearingSystem.getMemoryManager( graph );
+		final SegmentedTransactionManager stm = SegmentedTransactionManager.get( graph );
+		
+		SegmentedTransactionManager.beginSegmentedTransaction( graph );
+		final long start = System.currentTimeMillis();
+		for( int count = 0 ; count < 1000 ; count++ )
+		{
+			MemoryClearingSystem.handleCheckClear( graph );
+			SegmentedTransactionManager.recordWrite( graph , 8 );
+		}
+		final long elapsed = System.currentTimeMillis() - start;
+		
+		// A segment after each run of 100 operations.  There are more segments if the JVM reports memory pressure, or if the loop was slow.
+		Assert.assertTrue( stm.getCommits() >= 20 );
+		final boolean exact = ( mgr.getPressureEvents() == 0 ) && ( elapsed < MemoryClearingSystem.DEFAULT_MAX_COMMIT_INTERVAL_MS );
+		if( exact )
+		{
+			Assert.assertEquals( 20 , stm.getCommits() );
+			Assert.assertEquals( 0 , mgr.getCommits() );
+		}
+		
+		// An access after the interval has elapsed segments the transaction.
+		MemoryClearingSystem.handleCheckClear( graph );
+		final long commits = stm.getCommits();
+		Thread.sleep( MemoryClearingSystem.DEFAULT_MAX_COMMIT_INTERVAL_MS + 100 );
+		MemoryClearingSystem.handleCheckClear( graph );
+		Assert.assertEquals( commits + 1 , stm.getCommits() );
+		
+		SegmentedTransactionManager.commitSegmentedTransaction( graph );
+		SegmentedTransactionManager.release( graph );
+		MemoryClearingSystem.closeMemoryClearing( graph );
+		graph.close();
+	}
+	
+	
+	/**
+	 * Tests that, with the barrier commit policy, accesses, writes, and elapsed time alone do not segment the transaction.
+	 */
+	public void testBarrierPolicy() throws Throwable
+	{
+		final HyperGraph graph = new HyperGraph( DatabasePathForTest.DATABASE_PATH + "mydbMC4" );
+		TypeSystemInit.initType( graph );
+		MemoryClearingSystem.initMemoryClearing( graph , SegmentedCommitPolicy.barrier() );
+		final HyperGraphMemoryManager mgr = MemoryClearingSystem.getMemoryManager( graph );
+		final SegmentedTransactionManager stm = SegmentedTransactionManager.get( graph );
+		
+		SegmentedTransactionManager.beginSegmentedTransaction( graph );
+		for( int count = 0 ; count < 1000 ; count++ )
+		{
+			MemoryClearingSystem.handleCheckClear( graph );
+			SegmentedTransactionManager.recordWrite( graph , 8 );
+		}
+		Thread.sleep( MemoryClearingSystem.DEFAULT_MAX_COMMIT_INTERVAL_MS + 100 );
+		MemoryClearingSystem.handleCheckClear( graph );
+		
+		// Only memory pressure reported by the JVM meanwhile can segment the transaction.
+		if( mgr.getPressureEvents() == 0 )
+		{
+			Assert.assertEquals( 0 , stm.getCommits() );
+			Assert.assertEquals( 0 , mgr.getCommits() );
+		}
+		SegmentedTransactionManager.barrier( graph );
+		Assert.assertEquals( mgr.getCommits() + 1 , stm.getCommits() );
+		
+		SegmentedTransactionManager.commitSegmentedTransaction( graph );
+		SegmentedTransactionManager.release( graph );
+		MemoryClearingSystem.closeMemoryClearing( graph );
+		graph.close();
+	}
+	
+	
+	/**
+	 * Tests that the transaction is segmented after the configured number of operations, counting both accesses and writes.
+	 */
+	public void testCountPolicy() throws Throwable
+	{
+		final HyperGraph graph = new HyperGraph( DatabasePathForTest.DATABASE_PATH + "mydbMC1" );
+		TypeSystemInit.initType( graph );
+		MemoryClearingSystem.initMemoryClearing( graph , 10 , 3600L * 1000L );
+		final HyperGraphMemoryManager mgr = MemoryClearingSystem.getMemoryManager( graph );
+		final SegmentedTransactionManager stm = SegmentedTransactionManager.get( graph );
+		
+		SegmentedTransactionManager.beginSegmentedTransaction( graph );
+		for( int count = 0 ; count < 105 ; count++ )
+		{
+			MemoryClearingSystem.handleCheckClear( graph );
+			MemoryClearingSystem.handleCheckClear( graph );
+			SegmentedTransactionManager.recordWrite( graph , 8 );
+		}
+		SegmentedTransactionManager.commitSegmentedTransaction( graph );
+		
+		// A segment after each run of ten operations, and the final commit.  There are more commits if the JVM reports memory pressure meanwhile.
+		Assert.assertTrue( stm.getCommits() >= 32 );
+		if( mgr.getPressureEvents() == 0 )
+		{
+			Assert.assertEquals( 32 , stm.getCommits() );
+			Assert.assertEquals( 0 , mgr.getCommits() );
+		}
+		
+		SegmentedTransactionManager.release( graph );
+		MemoryClearingSystem.closeMemoryClearing( graph );
+		graph.close();
+	}
+	
+	
+	/**
+	 * Tests that the transaction is segmented at the first operation once the configured interval has elapsed,
+	 * and that a memory pressure event segments the transaction and leads to an eviction of the incidence cache.
+	 */
+	public void testTimeAndPressure() throws Throwable
+	{
+		final HyperGraph graph = new HyperGraph( DatabasePathForTest.DATABASE_PATH + "mydbMC2" );
+		TypeSystemInit.initType( graph );
+		MemoryClearingSystem.initMemoryClearing( graph , Long.MAX_VALUE , 20L );
+		final HyperGraphMemoryManager mgr = MemoryClearingSystem.getMemoryManager( graph );
+		final SegmentedTransactionManager stm = SegmentedTransactionManager.get( graph );
+		
+		SegmentedTransactionManager.beginSegmentedTransaction( graph );
+		
+		SegmentedTransactionManager.recordWrite( graph , 8 );
+		Thread.sleep( 200 );
+		MemoryClearingSystem.handleCheckClear( graph );
+		Assert.assertEquals( 1 , stm.getCommits() );
+		Assert.assertEquals( 0 , mgr.getCommits() );
+		
+		mgr.notifyMemoryPressure();
+		MemoryClearingSystem.handleCheckClear( graph );
+		Assert.assertEquals( 1 , mgr.getCommits() );
+		Assert.assertEquals( 2 , stm.getCommits() );
+		Assert.assertEquals( 1 , mgr.getEvictions() );
+		
+		SegmentedTransactionManager.commitSegmentedTransaction( graph );
+		
+		SegmentedTransactionManager.release( graph );
+		MemoryClearingSystem.closeMemoryClearing( graph );
+		graph.close();
+	}
+	
+	
+	/**
+	 * Tests that several threads can check the memory of a graph at once, and that a memory pressure event leads
+	 * each thread to segment its own transaction, with the incidence cache evicted once.
+	 */
+	public void testConcurrentChecks() throws Throwable
+	{
+		final int numThreads = 4;
+		final HyperGraph graph = new HyperGraph( DatabasePathForTest.DATABASE_PATH + "mydbMC3" );
+		TypeSystemInit.initType( graph );
+		MemoryClearingSystem.initMemoryClearing( graph );
+		final HyperGraphMemoryManager mgr = MemoryClearingSystem.getMemoryManager( graph );
+		final Throwable[] failure = new Throwable[ 1 ];
+		final long[] threadCommits = new long[ numThreads ];
+		final CountDownLatch started = new CountDownLatch( numThreads );
+		final CountDownLatch pressure = new CountDownLatch( 1 );
+		
+		final ArrayList<Thread> threads = new ArrayList<Thread>();
+		for( int cnt = 0 ; cnt < numThreads ; cnt++ )
+		{
+			final int index = cnt;
+			threads.add( new Thread()
+			{
+				@Override
+				public void run()
+				{
+					try
+					{
+						SegmentedTransactionManager.beginSegmentedTransaction( graph );
+						for( int count = 0 ; count < 1000 ; count++ )
+						{
+							MemoryClearingSystem.handleCheckClear( graph );
+						}
+						started.countDown();
+						pressure.await();
+						for( int count = 0 ; count < 100000 ; count++ )
+						{
+							MemoryClearingSystem.handleCheckClear( graph );
+						}
+						threadCommits[ index ] = mgr.getThreadCommits();
+						SegmentedTransactionManager.commitSegmentedTransaction( graph );
+						SegmentedTransactionManager.release( graph );
+					}
+					catch( Throwable ex )
+					{
+						synchronized( failure )
+						{
+							failure[ 0 ] = ex;
+						}
+					}
+				}
+			} );
+		}
+		
+		for( final Thread th : threads )
+		{
+			th.start();
+		}
+		started.await();
+		mgr.notifyMemoryPressure();
+		pressure.countDown();
+		for( final Thread th : threads )
+		{
+			th.join();
+		}
+		
+		Assert.assertNull( failure[ 0 ] );
+		// Each thread segments its transaction once for each memory pressure event, which can include events reported by the JVM.
+		final long events = mgr.getPressureEvents();
+		for( int cnt = 0 ; cnt < numThreads ; cnt++ )
+		{
+			Assert.assertTrue( threadCommits[ cnt ] >= 1 );
+			Assert.assertTrue( threadCommits[ cnt ] <= events );
+		}
+		if( events == 1 )
+		{
+			Assert.assertEquals( numThreads , mgr.getCommits() );
+			Assert.assertEquals( 1 , mgr.getEvictions() );
+		}
+		
+		MemoryClearingSystem.closeMemoryClearing( graph );
+		graph.close();
+	}
+	
+	
+}
+
+
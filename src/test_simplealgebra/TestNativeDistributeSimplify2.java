@@ -0,0 +1,633 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package test_simplealgebra;
+
+import java.io.PrintStream;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import simplealgebra.DoubleElem;
+import simplealgebra.DoubleElemFactory;
+import simplealgebra.Elem;
+import simplealgebra.NotInvertibleException;
+import simplealgebra.WriteElemCache;
+import simplealgebra.symbolic.MultiplicativeDistributionRequiredException;
+import simplealgebra.symbolic.NativeDistributeSimplify2;
+import simplealgebra.symbolic.SCacheKey;
+import simplealgebra.symbolic.SymbolicAdd;
+import simplealgebra.symbolic.SymbolicDivideBy;
+import simplealgebra.symbolic.SymbolicElem;
+import simplealgebra.symbolic.SymbolicElemFactory;
+import simplealgebra.symbolic.SymbolicIdentity;
+import simplealgebra.symbolic.SymbolicInvertLeft;
+import simplealgebra.symbolic.SymbolicInvertRight;
+import simplealgebra.symbolic.SymbolicMult;
+import simplealgebra.symbolic.SymbolicNegate;
+import simplealgebra.symbolic.SymbolicZero;
+
+
+/**
+ * Tests the Java-native implementation of the distributeSimplify2.drl rules, and compares its results and its
+ * speed with the Drools ( <A href="http://drools.org">http://drools.org</A> ) implementation.
+ * Uses JUnit ( <A href="http://junit.org">http://junit.org</A> ).
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ *
+ */
+public class TestNativeDistributeSimplify2 extends TestCase {
+
+
+	/**
+	 * The number of variables in the implicit space.
+	 */
+	protected static final int NUM_VARS = 8;
+
+	/**
+	 * The number of generated expressions in the differential test.
+	 */
+	protected static final int NUM_EXPRS = 100;
+
+	/**
+	 * The number of timed repetitions in the benchmark.
+	 */
+	protected static final int NUM_REPS = 5;
+
+
+
+	/**
+	 * Elem representing a variable whose value is looked up in the implicit space.
+	 * 
+	 * @author thorngreen
+	 * 
+	 */
+	protected static class XVar extends SymbolicElem<DoubleElem,DoubleElemFactory>
+	{
+		/**
+		 * The key of the variable in the implicit space.
+		 */
+		protected final DoubleElem key;
+
+		/**
+		 * Constructs the elem.
+		 * 
+		 * @param _fac The input factory.
+		 * @param _key The key of the variable in the implicit space.
+		 */
+		public XVar( final DoubleElemFactory _fac , final DoubleElem _key )
+		{
+			super( _fac );
+			key = _key;
+		}
+
+		@Override
+		public DoubleElem eval( HashMap<? extends Elem<?, ?>, ? extends Elem<?, ?>> implicitSpace )
+				throws NotInvertibleException, MultiplicativeDistributionRequiredException {
+			return( (DoubleElem)( implicitSpace.get( key ) ) );
+		}
+
+		@Override
+		public DoubleElem evalCached( HashMap<? extends Elem<?, ?>, ? extends Elem<?, ?>> implicitSpace,
+				HashMap<SCacheKey<DoubleElem, DoubleElemFactory>, DoubleElem> cache )
+				throws NotInvertibleException, MultiplicativeDistributionRequiredException {
+			return( eval( implicitSpace ) );
+		}
+
+		@Override
+		public DoubleElem evalPartialDerivative( ArrayList<? extends Elem<?, ?>> withRespectTo,
+				HashMap<? extends Elem<?, ?>, ? extends Elem<?, ?>> implicitSpace )
+				throws NotInvertibleException, MultiplicativeDistributionRequiredException {
+			throw( new RuntimeException( "NotSupported" ) );
+		}
+
+		@Override
+		public DoubleElem evalPartialDerivativeCached( ArrayList<? extends Elem<?, ?>> withRespectTo,
+				HashMap<? extends Elem<?, ?>, ? extends Elem<?, ?>> implicitSpace,
+				HashMap<SCacheKey<DoubleElem, DoubleElemFactory>, DoubleElem> cache )
+				throws NotInvertibleException, MultiplicativeDistributionRequiredException {
+			throw( new RuntimeException( "NotSupported" ) );
+		}
+
+		@Override
+		public boolean symbolicEquals( SymbolicElem<DoubleElem, DoubleElemFactory> b ) {
+			return( ( b instanceof XVar ) && ( ( (XVar) b ).key == key ) );
+		}
+
+		@Override
+		public int symbolicHashCode() {
+			return( System.identityHashCode( key ) );
+		}
+
+		@Override
+		public String writeDesc( WriteElemCache<SymbolicElem<DoubleElem, DoubleElemFactory>, SymbolicElemFactory<DoubleElem, DoubleElemFactory>> cache,
+				PrintStream ps ) {
+			throw( new RuntimeException( "NotSupported" ) );
+		}
+
+	}
+
+
+
+	/**
+	 * The factory for the enclosed type.
+	 */
+	protected final DoubleElemFactory dl = new DoubleElemFactory();
+
+	/**
+	 * The variables in the implicit space.
+	 */
+	protected final ArrayList<XVar> vars = new ArrayList<XVar>();
+
+	/**
+	 * The implicit space.
+	 */
+	protected final HashMap<DoubleElem,DoubleElem> implicitSpace = new HashMap<DoubleElem,DoubleElem>();
+
+
+
+	@Override
+	protected void setUp() throws Exception
+	{
+		final Random rand = new Random( 7777 );
+		vars.clear();
+		implicitSpace.clear();
+		for( int cnt = 0 ; cnt < NUM_VARS ; cnt++ )
+		{
+			final DoubleElem key = new DoubleElem( cnt );
+			vars.add( new XVar( dl , key ) );
+			implicitSpace.put( key , new DoubleElem( 0.5 + rand.nextDouble() ) );
+		}
+	}
+
+
+	/**
+	 * Generates a random expression.  The nodes are created through their constructors rather than through
+	 * add(), mult(), and negate() so that the expression contains the zeros and identities removed by the rules.
+	 * 
+	 * @param rand The random number generator.
+	 * @param depth The maximum depth of the expression.
+	 * @return The expression.
+	 */
+	protected SymbolicElem<DoubleElem,DoubleElemFactory> genExpr( final Random rand , final int depth )
+	{
+		if( depth == 0 )
+		{
+			switch( rand.nextInt( 6 ) )
+			{
+				case 0:
+					return( new SymbolicZero<DoubleElem,DoubleElemFactory>( dl ) );
+				case 1:
+					return( new SymbolicIdentity<DoubleElem,DoubleElemFactory>( dl ) );
+				default:
+					return( vars.get( rand.nextInt( vars.size() ) ) );
+			}
+		}
+
+		switch( rand.nextInt( 4 ) )
+		{
+			case 0:
+				return( new SymbolicAdd<DoubleElem,DoubleElemFactory>( genExpr( rand , depth - 1 ) , genExpr( rand , depth - 1 ) , dl ) );
+			case 1:
+				return( new SymbolicMult<DoubleElem,DoubleElemFactory>( genExpr( rand , depth - 1 ) , genExpr( rand , depth - 1 ) , dl ) );
+			case 2:
+				return( new SymbolicNegate<DoubleElem,DoubleElemFactory>( genExpr( rand , depth - 1 ) , dl ) );
+			default:
+				return( new SymbolicDivideBy<DoubleElem,DoubleElemFactory>( genExpr( rand , depth - 1 ) , dl , BigInteger.valueOf( 2 ) ) );
+		}
+	}
+
+
+	/**
+	 * Verifies individual rules of the native implementation.
+	 * 
+	 * @throws Throwable
+	 */
+	public void testRules() throws Throwable
+	{
+		final XVar x = vars.get( 0 );
+		final XVar y = vars.get( 1 );
+		final SymbolicZero<DoubleElem,DoubleElemFactory> zero = new SymbolicZero<DoubleElem,DoubleElemFactory>( dl );
+		final SymbolicIdentity<DoubleElem,DoubleElemFactory> ident = new SymbolicIdentity<DoubleElem,DoubleElemFactory>( dl );
+
+		// "Double Negate"
+		Assert.assertTrue( x == new SymbolicNegate<DoubleElem,DoubleElemFactory>(
+				new SymbolicNegate<DoubleElem,DoubleElemFactory>( x , dl ) , dl ).nativeDistributeSimplify2() );
+
+		// "Add Zero A" applied below "Mult Ident B"
+		Assert.assertTrue( x == new SymbolicMult<DoubleElem,DoubleElemFactory>(
+				new SymbolicAdd<DoubleElem,DoubleElemFactory>( zero , x , dl ) , ident , dl ).nativeDistributeSimplify2() );
+
+		// "Mult Zero B"
+		Assert.assertTrue( new SymbolicMult<DoubleElem,DoubleElemFactory>( x , zero , dl ).nativeDistributeSimplify2().isSymbolicZero() );
+
+		// "Double Invert Left NonCommute"
+		Assert.assertTrue( x == new SymbolicInvertRight<DoubleElem,DoubleElemFactory>(
+				new SymbolicInvertLeft<DoubleElem,DoubleElemFactory>( x , dl ) , dl ).nativeDistributeSimplify2() );
+
+		// "Mult Over Negate A"
+		final SymbolicElem<DoubleElem,DoubleElemFactory> mn = new SymbolicMult<DoubleElem,DoubleElemFactory>(
+				new SymbolicNegate<DoubleElem,DoubleElemFactory>( x , dl ) , y , dl ).nativeDistributeSimplify2();
+		Assert.assertTrue( mn instanceof SymbolicNegate );
+		Assert.assertTrue( ( (SymbolicNegate<DoubleElem,DoubleElemFactory>) mn ).getElem() instanceof SymbolicMult );
+
+		// "DivideBy Over Add"
+		final SymbolicElem<DoubleElem,DoubleElemFactory> da = new SymbolicDivideBy<DoubleElem,DoubleElemFactory>(
+				new SymbolicAdd<DoubleElem,DoubleElemFactory>( x , y , dl ) , dl , BigInteger.valueOf( 2 ) ).nativeDistributeSimplify2();
+		Assert.assertTrue( da instanceof SymbolicAdd );
+		Assert.assertTrue( ( (SymbolicAdd<DoubleElem,DoubleElemFactory>) da ).getElemA() instanceof SymbolicDivideBy );
+		Assert.assertTrue( ( (SymbolicAdd<DoubleElem,DoubleElemFactory>) da ).getElemB() instanceof SymbolicDivideBy );
+	}
+
+
+	/**
+	 * Verifies that a subexpression shared by multiple parents is simplified once.
+	 * 
+	 * @throws Throwable
+	 */
+	public void testSharedSubexpression() throws Throwable
+	{
+		final SymbolicElem<DoubleElem,DoubleElemFactory> shared = new SymbolicNegate<DoubleElem,DoubleElemFactory>(
+				new SymbolicNegate<DoubleElem,DoubleElemFactory>( new SymbolicMult<DoubleElem,DoubleElemFactory>( vars.get( 0 ) , vars.get( 1 ) , dl ) , dl ) , dl );
+		final SymbolicAdd<DoubleElem,DoubleElemFactory> in = new SymbolicAdd<DoubleElem,DoubleElemFactory>( shared , shared , dl );
+
+		final SymbolicElem<DoubleElem,DoubleElemFactory> out = in.nativeDistributeSimplify2();
+		Assert.assertTrue( out instanceof SymbolicAdd );
+		final SymbolicAdd<DoubleElem,DoubleElemFactory> add = (SymbolicAdd<DoubleElem,DoubleElemFactory>) out;
+		Assert.assertTrue( add.getElemA() == add.getElemB() );
+		Assert.assertTrue( add.getElemA() instanceof SymbolicMult );
+	}
+
+
+	/**
+	 * Verifies that the native simplification preserves the value of randomly generated expressions.
+	 * 
+	 * @throws Throwable
+	 */
+	public void testPreservesValue() throws Throwable
+	{
+		final Random rand = new Random( 3333 );
+		for( int cnt = 0 ; cnt < NUM_EXPRS ; cnt++ )
+		{
+			final SymbolicElem<DoubleElem,DoubleElemFactory> in = genExpr( rand , 6 );
+			final SymbolicElem<DoubleElem,DoubleElemFactory> out = in.nativeDistributeSimplify2();
+			final double expected = in.eval( implicitSpace ).getVal();
+			Assert.assertEquals( expected , out.eval( implicitSpace ).getVal() , 1E-10 * Math.max( 1.0 , Math.abs( expected ) ) );
+			Assert.assertTrue( out == NativeDistributeSimplify2.simplify( out ) );
+		}
+	}
+
+
+	/**
+	 * Returns whether two expressions have the same structure.  The operators are compared node by node (including the
+	 * divisor of each SymbolicDivideBy, which does not support symbolicEquals()), and the variables by identity of their keys.
+	 * 
+	 * @param a The first expression.
+	 * @param b The second expression.
+	 * @return True if the expressions have the same structure, false otherwise.
+	 */
+	protected static boolean structuralEquals( final SymbolicElem<DoubleElem,DoubleElemFactory> a , final SymbolicElem<DoubleElem,DoubleElemFactory> b )
+	{
+		if( a == b )
+		{
+			return( true );
+		}
+		
+		if( a.getClass() != b.getClass() )
+		{
+			return( false );
+		}
+		
+		if( ( a instanceof SymbolicZero ) || ( a instanceof SymbolicIdentity ) )
+		{
+			return( true );
+		}
+		
+		if( a instanceof SymbolicAdd )
+		{
+			final SymbolicAdd<DoubleElem,DoubleElemFactory> aa = (SymbolicAdd<DoubleElem,DoubleElemFactory>) a;
+			final SymbolicAdd<DoubleElem,DoubleElemFactory> bb = (SymbolicAdd<DoubleElem,DoubleElemFactory>) b;
+			return( structuralEquals( aa.getElemA() , bb.getElemA() ) && structuralEquals( aa.getElemB() , bb.getElemB() ) );
+		}
+		
+		if( a instanceof SymbolicMult )
+		{
+			final SymbolicMult<DoubleElem,DoubleElemFactory> aa = (SymbolicMult<DoubleElem,DoubleElemFactory>) a;
+			final SymbolicMult<DoubleElem,DoubleElemFactory> bb = (SymbolicMult<DoubleElem,DoubleElemFactory>) b;
+			return( structuralEquals( aa.getElemA() , bb.getElemA() ) && structuralEquals( aa.getElemB() , bb.getElemB() ) );
+		}
+		
+		if( a instanceof SymbolicNegate )
+		{
+			return( structuralEquals( ( (SymbolicNegate<DoubleElem,DoubleElemFactory>) a ).getElem() , ( (SymbolicNegate<DoubleElem,DoubleElemFactory>) b ).getElem() ) );
+		}
+		
+		if( a instanceof SymbolicDivideBy )
+		{
+			final SymbolicDivideBy<DoubleElem,DoubleElemFactory> aa = (SymbolicDivideBy<DoubleElem,DoubleElemFactory>) a;
+			final SymbolicDivideBy<DoubleElem,DoubleElemFactory> bb = (SymbolicDivideBy<DoubleElem,DoubleElemFactory>) b;
+			return( aa.getIval().equals( bb.getIval() ) && structuralEquals( aa.getElem() , bb.getElem() ) );
+		}
+		
+		if( a instanceof SymbolicInvertLeft )
+		{
+			return( structuralEquals( ( (SymbolicInvertLeft<DoubleElem,DoubleElemFactory>) a ).getElem() , ( (SymbolicInvertLeft<DoubleElem,DoubleElemFactory>) b ).getElem() ) );
+		}
+		
+		if( a instanceof SymbolicInvertRight )
+		{
+			return( structuralEquals( ( (SymbolicInvertRight<DoubleElem,DoubleElemFactory>) a ).getElem() , ( (SymbolicInvertRight<DoubleElem,DoubleElemFactory>) b ).getElem() ) );
+		}
+		
+		return( a.symbolicEquals( b ) );
+	}
+
+
+	/**
+	 * An expression written as a core expression, negated if the sign is set, and divided by an integer divisor.
+	 * 
+	 * @author thorngreen
+	 * 
+	 */
+	protected static class Factored
+	{
+		/**
+		 * The core expression.
+		 */
+		protected final SymbolicElem<DoubleElem,DoubleElemFactory> core;
+		
+		/**
+		 * Whether the core expression is negated.
+		 */
+		protected final boolean neg;
+		
+		/**
+		 * The divisor of the core expression.
+		 */
+		protected final BigInteger div;
+		
+		/**
+		 * Constructs the factored expression.
+		 * 
+		 * @param _core The core expression.
+		 * @param _neg Whether the core expression is negated.
+		 * @param _div The divisor of the core expression.
+		 */
+		public Factored( final SymbolicElem<DoubleElem,DoubleElemFactory> _core , final boolean _neg , final BigInteger _div )
+		{
+			core = _core;
+			neg = _neg;
+			div = _div;
+		}
+		
+		/**
+		 * Gets the expression with the sign and the divisor applied to the core expression.
+		 * 
+		 * @param dl The factory for the enclosed type.
+		 * @return The expression.
+		 */
+		public SymbolicElem<DoubleElem,DoubleElemFactory> toElem( final DoubleElemFactory dl )
+		{
+			SymbolicElem<DoubleElem,DoubleElemFactory> ret = core;
+			if( !( div.equals( BigInteger.ONE ) ) )
+			{
+				ret = new SymbolicDivideBy<DoubleElem,DoubleElemFactory>( ret , dl , div );
+			}
+			if( neg )
+			{
+				ret = new SymbolicNegate<DoubleElem,DoubleElemFactory>( ret , dl );
+			}
+			return( ret );
+		}
+	}
+
+
+	/**
+	 * Moves the negations and the integer divisors of an expression as far up the expression as they can be moved
+	 * through products, and through sums (taking the greatest common divisor of the terms, and the sign of the first term).  The Drools rules "Mult Over Negate",
+	 * "Mult Over DivideBy", "Negate Over Add", and "DivideBy Over Add" can match overlapping nodes.  The Drools agenda fires
+	 * them in the order of the rules in distributeSimplify2.drl over the whole expression, while the native implementation
+	 * rewrites the expression bottom-up, so the two implementations can place these factors at different levels.  Two
+	 * simplified expressions that differ only in this way have the same factored form.
+	 * 
+	 * @param in The expression.
+	 * @param dl The factory for the enclosed type.
+	 * @return The factored form of the expression.
+	 */
+	protected static Factored factor( final SymbolicElem<DoubleElem,DoubleElemFactory> in , final DoubleElemFactory dl )
+	{
+		if( in instanceof SymbolicNegate )
+		{
+			final Factored a = factor( ( (SymbolicNegate<DoubleElem,DoubleElemFactory>) in ).getElem() , dl );
+			return( new Factored( a.core , !( a.neg ) , a.div ) );
+		}
+		
+		if( in instanceof SymbolicDivideBy )
+		{
+			final SymbolicDivideBy<DoubleElem,DoubleElemFactory> q = (SymbolicDivideBy<DoubleElem,DoubleElemFactory>) in;
+			final Factored a = factor( q.getElem() , dl );
+			return( new Factored( a.core , a.neg , a.div.multiply( q.getIval() ) ) );
+		}
+		
+		if( in instanceof SymbolicMult )
+		{
+			final SymbolicMult<DoubleElem,DoubleElemFactory> q = (SymbolicMult<DoubleElem,DoubleElemFactory>) in;
+			final Factored a = factor( q.getElemA() , dl );
+			final Factored b = factor( q.getElemB() , dl );
+			return( new Factored( new SymbolicMult<DoubleElem,DoubleElemFactory>( a.core , b.core , dl ) , a.neg != b.neg , a.div.multiply( b.div ) ) );
+		}
+		
+		if( in instanceof SymbolicAdd )
+		{
+			final SymbolicAdd<DoubleElem,DoubleElemFactory> q = (SymbolicAdd<DoubleElem,DoubleElemFactory>) in;
+			final Factored a = factor( q.getElemA() , dl );
+			final Factored b = factor( q.getElemB() , dl );
+			final BigInteger div = a.div.gcd( b.div );
+			final boolean neg = a.neg;
+			final Factored aa = new Factored( a.core , a.neg != neg , a.div.divide( div ) );
+			final Factored bb = new Factored( b.core , b.neg != neg , b.div.divide( div ) );
+			return( new Factored( new SymbolicAdd<DoubleElem,DoubleElemFactory>( aa.toElem( dl ) , bb.toElem( dl ) , dl ) , neg , div ) );
+		}
+		
+		return( new Factored( in , false , BigInteger.ONE ) );
+	}
+
+
+	/**
+	 * Returns whether two expressions have the same structure once their negations and integer divisors are moved
+	 * as far up the expressions as they can be moved.
+	 * 
+	 * @param a The first expression.
+	 * @param b The second expression.
+	 * @param dl The factory for the enclosed type.
+	 * @return True if the factored forms of the expressions have the same structure, false otherwise.
+	 */
+	protected static boolean factoredEquals( final SymbolicElem<DoubleElem,DoubleElemFactory> a , final SymbolicElem<DoubleElem,DoubleElemFactory> b , final DoubleElemFactory dl )
+	{
+		return( structuralEquals( factor( a , dl ).toElem( dl ) , factor( b , dl ).toElem( dl ) ) );
+	}
+
+
+	/**
+	 * Verifies that the native simplification of an expression matches the Drools simplification, both in value and in structure.
+	 * 
+	 * @param in The expression to be simplified.
+	 * @param label The description of the expression for the assertion messages.
+	 * @param exact Whether the structures must match exactly, rather than after factoring with {@link #factor(SymbolicElem, DoubleElemFactory)}.
+	 * @return True if the structures match exactly, false otherwise.
+	 * @throws Throwable
+	 */
+	protected boolean verifyDifferential( final SymbolicElem<DoubleElem,DoubleElemFactory> in , final String label , final boolean exact ) throws Throwable
+	{
+		final SymbolicElem<DoubleElem,DoubleElemFactory> drools = in.distributeSimplify2();
+		final SymbolicElem<DoubleElem,DoubleElemFactory> nat = in.nativeDistributeSimplify2();
+		final double expected = drools.eval( implicitSpace ).getVal();
+		Assert.assertEquals( label , expected , nat.eval( implicitSpace ).getVal() , 1E-10 * Math.max( 1.0 , Math.abs( expected ) ) );
+		Assert.assertEquals( label , drools.isSymbolicZero() , nat.isSymbolicZero() );
+		Assert.assertEquals( label , drools.isSymbolicIdentity() , nat.isSymbolicIdentity() );
+		final boolean match = structuralEquals( drools , nat );
+		Assert.assertTrue( label , match || ( !exact && factoredEquals( drools , nat , dl ) ) );
+		return( match );
+	}
+
+
+	/**
+	 * Compares the native simplification with the Drools simplification of randomly generated expressions.  The
+	 * generated expressions contain products and sums of negations and divisions, so the structures are compared
+	 * after factoring (see {@link #factor(SymbolicElem, DoubleElemFactory)}).
+	 * 
+	 * @throws Throwable
+	 */
+	public void testDifferential() throws Throwable
+	{
+		final Random rand = new Random( 4444 );
+		int structuralMatches = 0;
+		for( int cnt = 0 ; cnt < NUM_EXPRS ; cnt++ )
+		{
+			if( verifyDifferential( genExpr( rand , 6 ) , "Expression " + cnt , false ) )
+			{
+				structuralMatches++;
+			}
+		}
+		System.out.println( "Exact Structural Matches: " + structuralMatches + " / " + NUM_EXPRS );
+	}
+
+
+	/**
+	 * Compares the native simplification with the Drools simplification of the expressions in testRules(), testSharedSubexpression(),
+	 * TestMultNegIdentitySymbolic, and TestZeroAcrossElemSymbolic.  The structures of these simplifications must match exactly.
+	 * 
+	 * @throws Throwable
+	 */
+	public void testDifferentialFixed() throws Throwable
+	{
+		final XVar x = vars.get( 0 );
+		final XVar y = vars.get( 1 );
+		final SymbolicElemFactory<DoubleElem,DoubleElemFactory> se = new SymbolicElemFactory<DoubleElem,DoubleElemFactory>( dl );
+		final SymbolicZero<DoubleElem,DoubleElemFactory> zero = new SymbolicZero<DoubleElem,DoubleElemFactory>( dl );
+		final SymbolicIdentity<DoubleElem,DoubleElemFactory> ident = new SymbolicIdentity<DoubleElem,DoubleElemFactory>( dl );
+		
+		verifyDifferential( new SymbolicNegate<DoubleElem,DoubleElemFactory>(
+				new SymbolicNegate<DoubleElem,DoubleElemFactory>( x , dl ) , dl ) , "Double Negate" , true );
+		
+		verifyDifferential( new SymbolicMult<DoubleElem,DoubleElemFactory>(
+				new SymbolicAdd<DoubleElem,DoubleElemFactory>( zero , x , dl ) , ident , dl ) , "Add Zero A" , true );
+		
+		verifyDifferential( new SymbolicMult<DoubleElem,DoubleElemFactory>( x , zero , dl ) , "Mult Zero B" , true );
+		
+		verifyDifferential( new SymbolicInvertRight<DoubleElem,DoubleElemFactory>(
+				new SymbolicInvertLeft<DoubleElem,DoubleElemFactory>( x , dl ) , dl ) , "Double Invert Left NonCommute" , true );
+		
+		verifyDifferential( new SymbolicMult<DoubleElem,DoubleElemFactory>(
+				new SymbolicNegate<DoubleElem,DoubleElemFactory>( x , dl ) , y , dl ) , "Mult Over Negate A" , true );
+		
+		verifyDifferential( new SymbolicDivideBy<DoubleElem,DoubleElemFactory>(
+				new SymbolicAdd<DoubleElem,DoubleElemFactory>( x , y , dl ) , dl , BigInteger.valueOf( 2 ) ) , "DivideBy Over Add" , true );
+		
+		final SymbolicElem<DoubleElem,DoubleElemFactory> shared = new SymbolicNegate<DoubleElem,DoubleElemFactory>(
+				new SymbolicNegate<DoubleElem,DoubleElemFactory>( new SymbolicMult<DoubleElem,DoubleElemFactory>( x , y , dl ) , dl ) , dl );
+		verifyDifferential( new SymbolicAdd<DoubleElem,DoubleElemFactory>( shared , shared , dl ) , "Shared Subexpression" , true );
+		
+		// As in TestMultNegIdentitySymbolic.
+		verifyDifferential( x.mult( se.identity().negate() ) , "Mult Neg Identity A" , true );
+		verifyDifferential( se.identity().negate().mult( x ) , "Mult Neg Identity B" , true );
+		
+		// As in TestZeroAcrossElemSymbolic.
+		verifyDifferential( x.mult( se.zero() ).add( y.mult( se.zero() ) ) , "Zero Across" , true );
+	}
+
+
+	/**
+	 * Compares the time taken by the Drools simplification with the time taken by the native simplification.
+	 * 
+	 * @throws Throwable
+	 */
+	public void testBenchmark() throws Throwable
+	{
+		final Random rand = new Random( 5555 );
+		final ArrayList<SymbolicElem<DoubleElem,DoubleElemFactory>> exprs = new ArrayList<SymbolicElem<DoubleElem,DoubleElemFactory>>();
+		for( int cnt = 0 ; cnt < NUM_EXPRS ; cnt++ )
+		{
+			exprs.add( genExpr( rand , 8 ) );
+		}
+
+		// Warm up both implementations before timing.
+		exprs.get( 0 ).distributeSimplify2();
+		exprs.get( 0 ).nativeDistributeSimplify2();
+
+		final long droolsStart = System.currentTimeMillis();
+		for( int rep = 0 ; rep < NUM_REPS ; rep++ )
+		{
+			for( final SymbolicElem<DoubleElem,DoubleElemFactory> ii : exprs )
+			{
+				ii.distributeSimplify2();
+			}
+		}
+		final long droolsTime = System.currentTimeMillis() - droolsStart;
+
+		final long nativeStart = System.currentTimeMillis();
+		for( int rep = 0 ; rep < NUM_REPS ; rep++ )
+		{
+			for( final SymbolicElem<DoubleElem,DoubleElemFactory> ii : exprs )
+			{
+				ii.nativeDistributeSimplify2();
+			}
+		}
+		final long nativeTime = System.currentTimeMillis() - nativeStart;
+
+		System.out.println( "Drools Simplify2 Time: " + droolsTime + " ms" );
+		System.out.println( "Native Simplify2 Time: " + nativeTime + " ms" );
+	}
+
+
+}
+
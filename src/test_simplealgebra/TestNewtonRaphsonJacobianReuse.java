@@ -0,0 +1,521 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package test_simplealgebra;
+
+import java.io.PrintStream;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map.Entry;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import simplealgebra.DoubleElem;
+import simplealgebra.DoubleElemFactory;
+import simplealgebra.Elem;
+import simplealgebra.NotInvertibleException;
+import simplealgebra.SquareMatrixElem;
+import simplealgebra.WriteElemCache;
+import simplealgebra.algo.DescentAlgorithmMultiElem;
+import simplealgebra.algo.DescentAlgorithmMultiElemInputParam;
+import simplealgebra.algo.DescentAlgorithmMultiElemInputParamCallbacks;
+import simplealgebra.algo.DescentAlgorithmMultiElemInputParamCallbacks.JacobianReuseMode;
+import simplealgebra.algo.NewtonRaphsonMultiElemNoBacktrack;
+import simplealgebra.algo.NewtonRaphsonMultiElemSimpleBacktrack;
+import simplealgebra.algo.SimplificationType;
+import simplealgebra.ga.GeometricAlgebraMultivectorElem;
+import simplealgebra.ga.GeometricAlgebraOrd;
+import simplealgebra.symbolic.MultiplicativeDistributionRequiredException;
+import simplealgebra.symbolic.SCacheKey;
+import simplealgebra.symbolic.SymbolicElem;
+import simplealgebra.symbolic.SymbolicElemFactory;
+import simplealgebra.symbolic.SymbolicReduction;
+
+
+/**
+ * Tests the Jacobian reuse modes of the multivariate Newton-Raphson solvers by solving the system
+ * <math display="inline">
+ * <mrow>
+ *   <msup><mi>x</mi><mn>2</mn></msup><mo>+</mo><msup><mi>y</mi><mn>2</mn></msup><mo>-</mo><mn>4</mn><mo>=</mo><mn>0</mn>
+ *   <mo>,</mo>
+ *   <mi>x</mi><mi>y</mi><mo>-</mo><mn>1</mn><mo>=</mo><mn>0</mn>
+ * </mrow>
+ * </math>
+ * .  Uses JUnit ( <A href="http://junit.org">http://junit.org</A> ).
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ *
+ */
+public class TestNewtonRaphsonJacobianReuse extends TestCase {
+
+
+	/**
+	 * The maximum number of iterations for a solve.
+	 */
+	protected static final int MAX_ITER = 50;
+
+	/**
+	 * The residual below which the iterations are considered converged.
+	 */
+	protected static final double TOL = 1E-11;
+
+	/**
+	 * The current values of the unknowns.
+	 */
+	protected final double[] vals = new double[ 2 ];
+
+	/**
+	 * The cached values of the unknowns used for backtracking.
+	 */
+	protected final double[] cachedVals = new double[ 2 ];
+
+	/**
+	 * The number of iteration updates performed.
+	 */
+	protected int updateCount = 0;
+
+	/**
+	 * The iteration count reported by the callbacks.
+	 */
+	protected long reportedIterations = -1;
+
+	/**
+	 * The refactorization count reported by the callbacks.
+	 */
+	protected long reportedRefactorizations = -1;
+
+
+
+	/**
+	 * Returns the key of a basis vector.
+	 * 
+	 * @param index The index of the basis vector.
+	 * @return The key of the basis vector.
+	 */
+	protected static HashSet<BigInteger> vectKey( final int index )
+	{
+		final HashSet<BigInteger> ret = new HashSet<BigInteger>();
+		ret.add( BigInteger.valueOf( index ) );
+		return( ret );
+	}
+
+
+	/**
+	 * Returns the sum of the magnitudes of the residuals at the current values.
+	 * 
+	 * @return The sum of the magnitudes of the residuals.
+	 */
+	protected double residual()
+	{
+		final double x = vals[ 0 ];
+		final double y = vals[ 1 ];
+		return( Math.abs( x * x + y * y - 4.0 ) + Math.abs( x * y - 1.0 ) );
+	}
+
+
+
+	/**
+	 * Elem representing the current value of an unknown.
+	 * 
+	 * @author thorngreen
+	 * 
+	 */
+	protected class BVar extends SymbolicElem<DoubleElem,DoubleElemFactory>
+	{
+		/**
+		 * The index of the unknown.
+		 */
+		protected final int index;
+
+		/**
+		 * Constructs the elem.
+		 * 
+		 * @param _fac The input factory.
+		 * @param _index The index of the unknown.
+		 */
+		public BVar( final DoubleElemFactory _fac , final int _index )
+		{
+			super( _fac );
+			index = _index;
+		}
+
+		@Override
+		public DoubleElem eval( HashMap<? extends Elem<?, ?>, ? extends Elem<?, ?>> implicitSpace )
+				throws NotInvertibleException, MultiplicativeDistributionRequiredException {
+			return( new DoubleElem( vals[ index ] ) );
+		}
+
+		@Override
+		public DoubleElem evalCached( HashMap<? extends Elem<?, ?>, ? extends Elem<?, ?>> implicitSpace,
+				HashMap<SCacheKey<DoubleElem, DoubleElemFactory>, DoubleElem> cache )
+				throws NotInvertibleException, MultiplicativeDistributionRequiredException {
+			return( eval( implicitSpace ) );
+		}
+
+		@Override
+		public DoubleElem evalPartialDerivative( ArrayList<? extends Elem<?, ?>> withRespectTo,
+				HashMap<? extends Elem<?, ?>, ? extends Elem<?, ?>> implicitSpace )
+				throws NotInvertibleException, MultiplicativeDistributionRequiredException {
+			throw( new RuntimeException( "NotSupported" ) );
+		}
+
+		@Override
+		public DoubleElem evalPartialDerivativeCached( ArrayList<? extends Elem<?, ?>> withRespectTo,
+				HashMap<? extends Elem<?, ?>, ? extends Elem<?, ?>> implicitSpace,
+				HashMap<SCacheKey<DoubleElem, DoubleElemFactory>, DoubleElem> cache )
+				throws NotInvertibleException, MultiplicativeDistributionRequiredException {
+			throw( new RuntimeException( "NotSupported" ) );
+		}
+
+		@Override
+		public String writeDesc( WriteElemCache<SymbolicElem<DoubleElem, DoubleElemFactory>, SymbolicElemFactory<DoubleElem, DoubleElemFactory>> cache,
+				PrintStream ps ) {
+			throw( new RuntimeException( "NotSupported" ) );
+		}
+
+	}
+
+
+
+	/**
+	 * Elem representing the symbolic expression for an unknown.  The partial derivatives
+	 * of this elem generate the slopes of the Jacobian.
+	 * 
+	 * @author thorngreen
+	 * 
+	 */
+	protected class CVar extends SymbolicElem<SymbolicElem<DoubleElem,DoubleElemFactory>,SymbolicElemFactory<DoubleElem,DoubleElemFactory>>
+	{
+		/**
+		 * The index of the unknown.
+		 */
+		protected final int index;
+
+		/**
+		 * Constructs the elem.
+		 * 
+		 * @param _fac The input factory.
+		 * @param _index The index of the unknown.
+		 */
+		public CVar( final SymbolicElemFactory<DoubleElem,DoubleElemFactory> _fac , final int _index )
+		{
+			super( _fac );
+			index = _index;
+		}
+
+		@Override
+		public SymbolicElem<DoubleElem, DoubleElemFactory> eval( HashMap<? extends Elem<?, ?>, ? extends Elem<?, ?>> implicitSpace )
+				throws NotInvertibleException, MultiplicativeDistributionRequiredException {
+			return( new BVar( fac.getFac() , index ) );
+		}
+
+		@Override
+		public SymbolicElem<DoubleElem, DoubleElemFactory> evalCached( HashMap<? extends Elem<?, ?>, ? extends Elem<?, ?>> implicitSpace,
+				HashMap<SCacheKey<SymbolicElem<DoubleElem, DoubleElemFactory>, SymbolicElemFactory<DoubleElem, DoubleElemFactory>>, SymbolicElem<DoubleElem, DoubleElemFactory>> cache )
+				throws NotInvertibleException, MultiplicativeDistributionRequiredException {
+			return( eval( implicitSpace ) );
+		}
+
+		@Override
+		public SymbolicElem<DoubleElem, DoubleElemFactory> evalPartialDerivative( ArrayList<? extends Elem<?, ?>> withRespectTo,
+				HashMap<? extends Elem<?, ?>, ? extends Elem<?, ?>> implicitSpace )
+				throws NotInvertibleException, MultiplicativeDistributionRequiredException {
+			return( withRespectTo.get( 0 ) == this ? fac.identity() : fac.zero() );
+		}
+
+		@Override
+		public SymbolicElem<DoubleElem, DoubleElemFactory> evalPartialDerivativeCached( ArrayList<? extends Elem<?, ?>> withRespectTo,
+				HashMap<? extends Elem<?, ?>, ? extends Elem<?, ?>> implicitSpace,
+				HashMap<SCacheKey<SymbolicElem<DoubleElem, DoubleElemFactory>, SymbolicElemFactory<DoubleElem, DoubleElemFactory>>, SymbolicElem<DoubleElem, DoubleElemFactory>> cache )
+				throws NotInvertibleException, MultiplicativeDistributionRequiredException {
+			return( evalPartialDerivative( withRespectTo , implicitSpace ) );
+		}
+
+		@Override
+		public String writeDesc( WriteElemCache<SymbolicElem<SymbolicElem<DoubleElem, DoubleElemFactory>, SymbolicElemFactory<DoubleElem, DoubleElemFactory>>, SymbolicElemFactory<SymbolicElem<DoubleElem, DoubleElemFactory>, SymbolicElemFactory<DoubleElem, DoubleElemFactory>>> cache,
+				PrintStream ps ) {
+			throw( new RuntimeException( "NotSupported" ) );
+		}
+
+	}
+
+
+
+	/**
+	 * The callbacks for the descent algorithm.
+	 * 
+	 * @author thorngreen
+	 * 
+	 */
+	protected class StelemDescentEnt extends DescentAlgorithmMultiElemInputParamCallbacks<TestDimensionTwo,DoubleElem,DoubleElemFactory>
+	{
+		/**
+		 * The Jacobian reuse mode.
+		 */
+		protected final JacobianReuseMode mode;
+
+		/**
+		 * The storage mode of the Jacobian.
+		 */
+		protected final SquareMatrixElem.SquareMatrixStorage storage;
+
+		/**
+		 * Constructs the callbacks.
+		 * 
+		 * @param _mode The Jacobian reuse mode.
+		 * @param _storage The storage mode of the Jacobian.
+		 */
+		public StelemDescentEnt( final JacobianReuseMode _mode , final SquareMatrixElem.SquareMatrixStorage _storage )
+		{
+			mode = _mode;
+			storage = _storage;
+		}
+
+		@Override
+		protected void performIterationUpdate( GeometricAlgebraMultivectorElem<TestDimensionTwo, GeometricAlgebraOrd<TestDimensionTwo>, DoubleElem, DoubleElemFactory> iterationOffset ) {
+			updateCount++;
+			for( final Entry<HashSet<BigInteger>, DoubleElem> ii : iterationOffset.getEntrySet() )
+			{
+				vals[ ii.getKey().iterator().next().intValue() ] += ii.getValue().getVal();
+			}
+		}
+
+		@Override
+		protected void setIterationValue( GeometricAlgebraMultivectorElem<TestDimensionTwo, GeometricAlgebraOrd<TestDimensionTwo>, DoubleElem, DoubleElemFactory> value ) {
+			for( final Entry<HashSet<BigInteger>, DoubleElem> ii : value.getEntrySet() )
+			{
+				vals[ ii.getKey().iterator().next().intValue() ] = ii.getValue().getVal();
+			}
+		}
+
+		@Override
+		protected GeometricAlgebraMultivectorElem<TestDimensionTwo, GeometricAlgebraOrd<TestDimensionTwo>, DoubleElem, DoubleElemFactory> getIterationValue() {
+			final GeometricAlgebraMultivectorElem<TestDimensionTwo, GeometricAlgebraOrd<TestDimensionTwo>, DoubleElem, DoubleElemFactory> ret =
+					new GeometricAlgebraMultivectorElem<TestDimensionTwo, GeometricAlgebraOrd<TestDimensionTwo>, DoubleElem, DoubleElemFactory>(
+							new DoubleElemFactory() , new TestDimensionTwo() , new GeometricAlgebraOrd<TestDimensionTwo>() );
+			ret.setVal( vectKey( 0 ) , new DoubleElem( vals[ 0 ] ) );
+			ret.setVal( vectKey( 1 ) , new DoubleElem( vals[ 1 ] ) );
+			return( ret );
+		}
+
+		@Override
+		protected void cacheIterationValue() {
+			System.arraycopy( vals , 0 , cachedVals , 0 , vals.length );
+		}
+
+		@Override
+		protected void retrieveIterationValue() {
+			System.arraycopy( cachedVals , 0 , vals , 0 , vals.length );
+		}
+
+		@Override
+		protected boolean iterationsDone() {
+			return( ( updateCount >= MAX_ITER ) || ( residual() < TOL ) );
+		}
+
+		@Override
+		protected SimplificationType useSimplification() {
+			return( SimplificationType.NONE );
+		}
+
+		@Override
+		protected boolean evalIterationImproved( GeometricAlgebraMultivectorElem<TestDimensionTwo, GeometricAlgebraOrd<TestDimensionTwo>, DoubleElem, DoubleElemFactory> lastValue ,
+				GeometricAlgebraMultivectorElem<TestDimensionTwo, GeometricAlgebraOrd<TestDimensionTwo>, DoubleElem, DoubleElemFactory> nextValue )
+		{
+			return( sumSquares( nextValue ) < sumSquares( lastValue ) );
+		}
+
+		@Override
+		protected JacobianReuseMode getJacobianReuseMode() {
+			return( mode );
+		}
+
+		@Override
+		protected SquareMatrixElem.SquareMatrixStorage getJacobianStorage() {
+			return( storage );
+		}
+
+		@Override
+		protected void reportJacobianReuseCounts( final long iterationCount , final long refactorizationCount ) {
+			reportedIterations = iterationCount;
+			reportedRefactorizations = refactorizationCount;
+		}
+
+	}
+
+
+	/**
+	 * Returns the sum of the squares of the function values.
+	 * 
+	 * @param in The function values.
+	 * @return The sum of the squares.
+	 */
+	protected static double sumSquares( final GeometricAlgebraMultivectorElem<TestDimensionTwo, GeometricAlgebraOrd<TestDimensionTwo>, DoubleElem, DoubleElemFactory> in )
+	{
+		double ret = 0.0;
+		for( final DoubleElem ii : in.getValueSet() )
+		{
+			ret += ii.getVal() * ii.getVal();
+		}
+		return( ret );
+	}
+
+
+	/**
+	 * Generates the input parameter for the descent algorithm.
+	 * 
+	 * @param mode The Jacobian reuse mode.
+	 * @param storage The storage mode of the Jacobian.
+	 * @return The input parameter.
+	 */
+	protected DescentAlgorithmMultiElemInputParam<TestDimensionTwo,DoubleElem,DoubleElemFactory> genParam( final JacobianReuseMode mode ,
+			final SquareMatrixElem.SquareMatrixStorage storage )
+	{
+		final DoubleElemFactory dl = new DoubleElemFactory();
+		final SymbolicElemFactory<DoubleElem,DoubleElemFactory> se = new SymbolicElemFactory<DoubleElem,DoubleElemFactory>( dl );
+		final SymbolicElemFactory<SymbolicElem<DoubleElem,DoubleElemFactory>,SymbolicElemFactory<DoubleElem,DoubleElemFactory>> se2 =
+				new SymbolicElemFactory<SymbolicElem<DoubleElem,DoubleElemFactory>,SymbolicElemFactory<DoubleElem,DoubleElemFactory>>( se );
+		final TestDimensionTwo td = new TestDimensionTwo();
+
+		final CVar x = new CVar( se , 0 );
+		final CVar y = new CVar( se , 1 );
+		final SymbolicElem<SymbolicElem<DoubleElem,DoubleElemFactory>,SymbolicElemFactory<DoubleElem,DoubleElemFactory>> four =
+				new SymbolicReduction<SymbolicElem<DoubleElem,DoubleElemFactory>,SymbolicElemFactory<DoubleElem,DoubleElemFactory>>(
+						new SymbolicReduction<DoubleElem,DoubleElemFactory>( new DoubleElem( 4.0 ) , dl ) , se );
+		final SymbolicElem<SymbolicElem<DoubleElem,DoubleElemFactory>,SymbolicElemFactory<DoubleElem,DoubleElemFactory>> one =
+				new SymbolicReduction<SymbolicElem<DoubleElem,DoubleElemFactory>,SymbolicElemFactory<DoubleElem,DoubleElemFactory>>(
+						new SymbolicReduction<DoubleElem,DoubleElemFactory>( new DoubleElem( 1.0 ) , dl ) , se );
+
+		final GeometricAlgebraMultivectorElem<TestDimensionTwo, GeometricAlgebraOrd<TestDimensionTwo>, SymbolicElem<SymbolicElem<DoubleElem,DoubleElemFactory>,SymbolicElemFactory<DoubleElem,DoubleElemFactory>>, SymbolicElemFactory<SymbolicElem<DoubleElem,DoubleElemFactory>,SymbolicElemFactory<DoubleElem,DoubleElemFactory>>> funs =
+				new GeometricAlgebraMultivectorElem<TestDimensionTwo, GeometricAlgebraOrd<TestDimensionTwo>, SymbolicElem<SymbolicElem<DoubleElem,DoubleElemFactory>,SymbolicElemFactory<DoubleElem,DoubleElemFactory>>, SymbolicElemFactory<SymbolicElem<DoubleElem,DoubleElemFactory>,SymbolicElemFactory<DoubleElem,DoubleElemFactory>>>(
+						se2 , td , new GeometricAlgebraOrd<TestDimensionTwo>() );
+		funs.setVal( vectKey( 0 ) , x.mult( x ).add( y.mult( y ) ).add( four.negate() ) );
+		funs.setVal( vectKey( 1 ) , x.mult( y ).add( one.negate() ) );
+
+		final ArrayList ar = new ArrayList();
+		final ArrayList ar0 = new ArrayList();
+		final ArrayList ar1 = new ArrayList();
+		ar0.add( x );
+		ar1.add( y );
+		ar.add( ar0 );
+		ar.add( ar1 );
+
+		final DescentAlgorithmMultiElemInputParam<TestDimensionTwo,DoubleElem,DoubleElemFactory> saa =
+				new DescentAlgorithmMultiElemInputParam<TestDimensionTwo,DoubleElem,DoubleElemFactory>();
+		saa.setFunctions( funs );
+		saa.setWithRespectTos( (ArrayList<ArrayList<? extends Elem<?, ?>>>)( ar ) );
+		saa.setImplicitSpaceFirstLevel( (HashMap<? extends Elem<?, ?>, ? extends Elem<?, ?>>)( new HashMap() ) );
+		saa.setSfac( se );
+		saa.setDim( td );
+		saa.setCallbacks( new StelemDescentEnt( mode , storage ) );
+		return( saa );
+	}
+
+
+	/**
+	 * Runs a descent algorithm from the initial guess and verifies convergence.
+	 * 
+	 * @param descent The descent algorithm.
+	 * @throws NotInvertibleException
+	 * @throws MultiplicativeDistributionRequiredException
+	 */
+	protected void runDescent( final DescentAlgorithmMultiElem<TestDimensionTwo,DoubleElem,DoubleElemFactory> descent )
+			throws NotInvertibleException, MultiplicativeDistributionRequiredException
+	{
+		vals[ 0 ] = 2.0;
+		vals[ 1 ] = 0.4;
+		updateCount = 0;
+		descent.eval( new HashMap() );
+		Assert.assertTrue( residual() < TOL );
+		Assert.assertEquals( descent.getIterationCount() , reportedIterations );
+		Assert.assertEquals( descent.getRefactorizationCount() , reportedRefactorizations );
+		Assert.assertTrue( descent.getRefactorizationCount() <= descent.getIterationCount() );
+	}
+
+
+	/**
+	 * Tests that each Jacobian reuse mode converges for the solver without backtracking.
+	 * 
+	 * @throws NotInvertibleException
+	 * @throws MultiplicativeDistributionRequiredException
+	 */
+	public void testNoBacktrack() throws NotInvertibleException, MultiplicativeDistributionRequiredException
+	{
+		for( final JacobianReuseMode mode : JacobianReuseMode.values() )
+		{
+			final NewtonRaphsonMultiElemNoBacktrack<TestDimensionTwo,DoubleElem,DoubleElemFactory> descent =
+					new NewtonRaphsonMultiElemNoBacktrack<TestDimensionTwo,DoubleElem,DoubleElemFactory>( genParam( mode , SquareMatrixElem.SquareMatrixStorage.SPARSE ) , null );
+			runDescent( descent );
+			if( mode == JacobianReuseMode.NEWTON )
+			{
+				Assert.assertEquals( descent.getIterationCount() , descent.getRefactorizationCount() );
+			}
+			else
+			{
+				Assert.assertTrue( descent.getRefactorizationCount() < descent.getIterationCount() );
+			}
+		}
+	}
+
+
+	/**
+	 * Tests that each Jacobian reuse mode converges for the solver with backtracking.
+	 * 
+	 * @throws NotInvertibleException
+	 * @throws MultiplicativeDistributionRequiredException
+	 */
+	public void testSimpleBacktrack() throws NotInvertibleException, MultiplicativeDistributionRequiredException
+	{
+		for( final JacobianReuseMode mode : JacobianReuseMode.values() )
+		{
+			final NewtonRaphsonMultiElemSimpleBacktrack<TestDimensionTwo,DoubleElem,DoubleElemFactory> descent =
+					new NewtonRaphsonMultiElemSimpleBacktrack<TestDimensionTwo,DoubleElem,DoubleElemFactory>( genParam( mode , SquareMatrixElem.SquareMatrixStorage.SPARSE ) , null );
+			runDescent( descent );
+		}
+	}
+
+
+	/**
+	 * Tests that the solver converges with a dense Jacobian.
+	 * 
+	 * @throws NotInvertibleException
+	 * @throws MultiplicativeDistributionRequiredException
+	 */
+	public void testDenseJacobian() throws NotInvertibleException, MultiplicativeDistributionRequiredException
+	{
+		final NewtonRaphsonMultiElemNoBacktrack<TestDimensionTwo,DoubleElem,DoubleElemFactory> descent =
+				new NewtonRaphsonMultiElemNoBacktrack<TestDimensionTwo,DoubleElem,DoubleElemFactory>( genParam( JacobianReuseMode.CHORD , SquareMatrixElem.SquareMatrixStorage.DENSE ) , null );
+		runDescent( descent );
+	}
+
+
+}
+
@@ -1702,6 +1702,12 @@ public class TestQuantB2_NC_DR_Ncore extends TestCase {
 			return( col );
 		}
 		
+		@Override
+		public int symbolicHashCode()
+		{
+			return( hashCode() );
+		}
+		
 		/**
 		 * Returns the number of the ordinate.
 		 * 
@@ -2733,6 +2739,12 @@ public class TestQuantB2_NC_DR_Ncore extends TestCase {
 			return( sum );
 		}
 		
+		@Override
+		public int symbolicHashCode()
+		{
+			return( hashCode() );
+		}
+		
 		
 	}
 	
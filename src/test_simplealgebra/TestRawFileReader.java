@@ -0,0 +1,251 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package test_simplealgebra;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.nio.ByteOrder;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import simplealgebra.store.RawFileHeader;
+import simplealgebra.store.RawFileReader;
+import simplealgebra.store.RawFileWriter;
+
+
+/**
+ * Tests the NIO-based RawFileWriter, and the reloading of self-describing raw files with RawFileReader.
+ * Uses JUnit ( <A href="http://junit.org">http://junit.org</A> ).
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ *
+ */
+public class TestRawFileReader extends TestCase {
+	
+	
+	/**
+	 * Writer for a dataset whose value is a function of the indices.
+	 * 
+	 * @author thorngreen
+	 * 
+	 */
+	protected static class TstRawFileWriter extends RawFileWriter
+	{
+
+		@Override
+		protected int bufferSize() {
+			return( 8000 );
+		}
+
+		@Override
+		protected double getVal(int t, int x, int y, int z) throws Throwable {
+			return( val( t , x , y , z ) );
+		}
+
+		@Override
+		protected int getTStrt() {
+			return( 2 );
+		}
+
+		@Override
+		protected int getTEnd() {
+			return( 7 );
+		}
+
+		@Override
+		protected int getZStrt() {
+			return( 1 );
+		}
+
+		@Override
+		protected int getZEnd() {
+			return( 6 );
+		}
+
+		@Override
+		protected int getYStrt() {
+			return( 0 );
+		}
+
+		@Override
+		protected int getYEnd() {
+			return( 9 );
+		}
+
+		@Override
+		protected int getXStrt() {
+			return( 3 );
+		}
+
+		@Override
+		protected int getXEnd() {
+			return( 14 );
+		}
+		
+	}
+	
+	
+	/**
+	 * Gets the value of the dataset at an index.
+	 * 
+	 * @param t The T-axis index.
+	 * @param x The X-axis index.
+	 * @param y The Y-axis index.
+	 * @param z The Z-axis index.
+	 * @return The value.
+	 */
+	protected static double val( int t , int x , int y , int z )
+	{
+		return( 1000.0 * t + 100.0 * z + 10.0 * y + x + 0.25 );
+	}
+	
+	
+	/**
+	 * Verifies that the headerless double format still matches the sequence of values that was written
+	 * through a DataOutputStream, with the X-Axis varying fastest.
+	 * 
+	 * @throws Throwable
+	 */
+	public void testHeaderlessDouble() throws Throwable
+	{
+		final File f = File.createTempFile( "raw" , ".raw" );
+		f.deleteOnExit();
+		
+		final TstRawFileWriter wr = new TstRawFileWriter();
+		wr.writeDouble( f.getPath() );
+		
+		final DataInputStream ds = new DataInputStream( new BufferedInputStream( new FileInputStream( f ) ) );
+		for( int t = wr.getTStrt() ; t < wr.getTEnd() ; t++ )
+		{
+			for( int z = wr.getZStrt() ; z < wr.getZEnd() ; z++ )
+			{
+				for( int y = wr.getYStrt() ; y < wr.getYEnd() ; y++ )
+				{
+					for( int x = wr.getXStrt() ; x < wr.getXEnd() ; x++ )
+					{
+						Assert.assertEquals( val( t , x , y , z ) , ds.readDouble() , 0.0 );
+					}
+				}
+			}
+		}
+		Assert.assertEquals( -1 , ds.read() );
+		ds.close();
+	}
+	
+	
+	/**
+	 * Writes a self-describing file, and verifies it against the dataset after reloading it.
+	 * 
+	 * @param elemType The type of the elements to write.
+	 * @param byteOrder The byte order of the elements to write.
+	 * @param numThreads The number of threads with which to write.
+	 * @throws Throwable
+	 */
+	protected void checkRoundTrip( RawFileHeader.ElemType elemType , ByteOrder byteOrder , int numThreads ) throws Throwable
+	{
+		final File f = File.createTempFile( "raw" , ".raw" );
+		f.deleteOnExit();
+		
+		final TstRawFileWriter wr = new TstRawFileWriter();
+		wr.writeRaw( f.getPath() , elemType , byteOrder , numThreads );
+		
+		final RawFileReader rd = new RawFileReader( f.getPath() , 256 , 2 );
+		final RawFileHeader hdr = rd.getHeader();
+		Assert.assertEquals( elemType , hdr.getElemType() );
+		Assert.assertEquals( byteOrder , hdr.getByteOrder() );
+		Assert.assertEquals( wr.getTStrt() , hdr.getTStrt() );
+		Assert.assertEquals( wr.getTEnd() , hdr.getTEnd() );
+		Assert.assertEquals( wr.getZStrt() , hdr.getZStrt() );
+		Assert.assertEquals( wr.getZEnd() , hdr.getZEnd() );
+		Assert.assertEquals( wr.getYStrt() , hdr.getYStrt() );
+		Assert.assertEquals( wr.getYEnd() , hdr.getYEnd() );
+		Assert.assertEquals( wr.getXStrt() , hdr.getXStrt() );
+		Assert.assertEquals( wr.getXEnd() , hdr.getXEnd() );
+		Assert.assertEquals( RawFileHeader.HEADER_SIZE + hdr.getNumElems() * hdr.getElemSize() , f.length() );
+		
+		for( int t = hdr.getTStrt() ; t < hdr.getTEnd() ; t++ )
+		{
+			for( int z = hdr.getZStrt() ; z < hdr.getZEnd() ; z++ )
+			{
+				for( int y = hdr.getYStrt() ; y < hdr.getYEnd() ; y++ )
+				{
+					for( int x = hdr.getXStrt() ; x < hdr.getXEnd() ; x++ )
+					{
+						final double expected = elemType == RawFileHeader.ElemType.DOUBLE ? 
+								val( t , x , y , z ) : (float)( val( t , x , y , z ) );
+						Assert.assertEquals( expected , rd.get( t , x , y , z ) , 0.0 );
+					}
+				}
+			}
+		}
+		
+		rd.close();
+	}
+	
+	
+	/**
+	 * Tests a big-endian double file written with one thread.
+	 * 
+	 * @throws Throwable
+	 */
+	public void testRoundTripDouble() throws Throwable
+	{
+		checkRoundTrip( RawFileHeader.ElemType.DOUBLE , ByteOrder.BIG_ENDIAN , 1 );
+	}
+	
+	
+	/**
+	 * Tests a little-endian double file written with multiple threads.
+	 * 
+	 * @throws Throwable
+	 */
+	public void testRoundTripDoubleThreaded() throws Throwable
+	{
+		checkRoundTrip( RawFileHeader.ElemType.DOUBLE , ByteOrder.LITTLE_ENDIAN , 3 );
+	}
+	
+	
+	/**
+	 * Tests a float file written with multiple threads.
+	 * 
+	 * @throws Throwable
+	 */
+	public void testRoundTripFloat() throws Throwable
+	{
+		checkRoundTrip( RawFileHeader.ElemType.FLOAT , ByteOrder.nativeOrder() , 4 );
+	}
+	
+	
+}
+
+
@@ -0,0 +1,197 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package test_simplealgebra;
+
+import java.io.File;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import simplealgebra.store.DbFastArray4D_Param;
+import simplealgebra.store.DrFastArray4D_Dbl;
+import simplealgebra.store.RollingFastArray4D_Dbl;
+
+
+/**
+ * Tests the rolling time-slab array RollingFastArray4D_Dbl, both with displaced time slices spilled
+ * to a DrFastArray4D_Dbl and with displaced time slices dropped.  Uses JUnit ( <A href="http://junit.org">http://junit.org</A> ).
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ *
+ */
+public class TestRollingFastArray4D extends TestCase {
+	
+	
+	/**
+	 * The size of the rolling window used in the tests.
+	 */
+	protected static final int WINDOW = 3;
+	
+	
+	/**
+	 * Creates the parameters of the array.
+	 * 
+	 * @return The parameters of the array.
+	 */
+	protected static DbFastArray4D_Param createParam()
+	{
+		final DbFastArray4D_Param param = new DbFastArray4D_Param();
+		param.setTmult( 2 );
+		param.setXmult( 2 );
+		param.setYmult( 2 );
+		param.setZmult( 2 );
+		param.setTmax( 10 );
+		param.setXmax( 4 );
+		param.setYmax( 3 );
+		param.setZmax( 5 );
+		return( param );
+	}
+	
+	
+	/**
+	 * Gets the value written to an array element.
+	 * 
+	 * @param t The T-axis index.
+	 * @param x The X-axis index.
+	 * @param y The Y-axis index.
+	 * @param z The Z-axis index.
+	 * @return The value.
+	 */
+	protected static double val( int t , int x , int y , int z )
+	{
+		return( 100.0 * t + 10.0 * x + y + 0.1 * z + 0.5 );
+	}
+	
+	
+	/**
+	 * Writes each time slice in order, checking that the previous time slices in the window are still readable
+	 * in the way a time-stepping stencil would read them.
+	 * 
+	 * @param param The parameters of the array.
+	 * @param arr The array to be written.
+	 * @throws Throwable
+	 */
+	protected static void writeSlices( final DbFastArray4D_Param param , final RollingFastArray4D_Dbl arr ) throws Throwable
+	{
+		for( int t = 0 ; t < param.getTmax() ; t++ )
+		{
+			for( int x = 0 ; x < param.getXmax() ; x++ )
+			{
+				for( int y = 0 ; y < param.getYmax() ; y++ )
+				{
+					for( int z = 0 ; z < param.getZmax() ; z++ )
+					{
+						Assert.assertEquals( 0.0 , arr.get( t , x , y , z ) , 0.0 );
+						arr.set( t , x , y , z , val( t , x , y , z ) );
+						for( int ta = Math.max( 0 , t - ( WINDOW - 1 ) ) ; ta < t ; ta++ )
+						{
+							Assert.assertEquals( val( ta , x , y , z ) , arr.get( ta , x , y , z ) , 0.0 );
+						}
+					}
+				}
+			}
+		}
+	}
+	
+	
+	/**
+	 * Verifies that displaced time slices are spilled and can be read back, both before and after the array is closed.
+	 * 
+	 * @throws Throwable
+	 */
+	public void testSpill() throws Throwable
+	{
+		final File f = File.createTempFile( "rolling" , ".dbl" );
+		f.deleteOnExit();
+		
+		final DbFastArray4D_Param param = createParam();
+		
+		final RollingFastArray4D_Dbl arr = new RollingFastArray4D_Dbl( param , WINDOW , new DrFastArray4D_Dbl( param , f.getPath() ) );
+		writeSlices( param , arr );
+		
+		for( int t = 0 ; t < param.getTmax() ; t++ )
+		{
+			Assert.assertEquals( val( t , 3 , 2 , 4 ) , arr.get( t , 3 , 2 , 4 ) , 0.0 );
+			Assert.assertEquals( val( t , 1 , 0 , 2 ) , arr.get( t , 1 , 0 , 2 ) , 0.0 );
+		}
+		
+		arr.close();
+		
+		final DrFastArray4D_Dbl reopened = new DrFastArray4D_Dbl( param , f.getPath() );
+		for( int t = 0 ; t < param.getTmax() ; t++ )
+		{
+			for( int x = 0 ; x < param.getXmax() ; x++ )
+			{
+				for( int y = 0 ; y < param.getYmax() ; y++ )
+				{
+					for( int z = 0 ; z < param.getZmax() ; z++ )
+					{
+						Assert.assertEquals( val( t , x , y , z ) , reopened.get( t , x , y , z ) , 0.0 );
+					}
+				}
+			}
+		}
+		reopened.close();
+	}
+	
+	
+	/**
+	 * Verifies that displaced time slices are dropped when there is no spill array.
+	 * 
+	 * @throws Throwable
+	 */
+	public void testDrop() throws Throwable
+	{
+		final DbFastArray4D_Param param = createParam();
+		
+		final RollingFastArray4D_Dbl arr = new RollingFastArray4D_Dbl( param , WINDOW , null );
+		writeSlices( param , arr );
+		
+		final int tlast = param.getTmax() - 1;
+		Assert.assertEquals( val( tlast , 2 , 1 , 3 ) , arr.get( tlast , 2 , 1 , 3 ) , 0.0 );
+		
+		boolean dropped = false;
+		try
+		{
+			arr.get( tlast - WINDOW , 2 , 1 , 3 );
+		}
+		catch( RuntimeException ex )
+		{
+			dropped = true;
+		}
+		Assert.assertTrue( dropped );
+		
+		arr.close();
+	}
+	
+	
+}
+
+
@@ -0,0 +1,290 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package test_simplealgebra;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import simplealgebra.DoubleElem;
+import simplealgebra.DoubleElemFactory;
+import simplealgebra.Elem;
+import simplealgebra.NotInvertibleException;
+import simplealgebra.WriteElemCache;
+import simplealgebra.symbolic.MultiplicativeDistributionRequiredException;
+import simplealgebra.symbolic.SCacheKey;
+import simplealgebra.symbolic.SEvalContext;
+import simplealgebra.symbolic.SymbolicElem;
+import simplealgebra.symbolic.SymbolicElemFactory;
+import simplealgebra.symbolic.SymbolicReduction;
+
+
+/**
+ * Tests the evaluation of symbolic expressions using SEvalContext, and compares the time taken
+ * with the SCacheKey based evaluation cache.  Uses JUnit ( <A href="http://junit.org">http://junit.org</A> ).
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ *
+ */
+public class TestSEvalContext extends TestCase {
+
+
+	/**
+	 * The number of variables in the implicit space.
+	 */
+	protected static final int NUM_VARS = 64;
+
+	/**
+	 * The number of interior nodes in the generated expression.
+	 */
+	protected static final int NUM_NODES = 20000;
+
+	/**
+	 * The number of timed repetitions of each evaluation.
+	 */
+	protected static final int NUM_REPS = 10;
+
+
+
+	/**
+	 * Elem representing a variable whose value is looked up in the implicit space.
+	 * 
+	 * @author thorngreen
+	 * 
+	 */
+	protected static class XVar extends SymbolicElem<DoubleElem,DoubleElemFactory>
+	{
+		/**
+		 * The key of the variable in the implicit space.
+		 */
+		protected final DoubleElem key;
+
+		/**
+		 * Constructs the elem.
+		 * 
+		 * @param _fac The input factory.
+		 * @param _key The key of the variable in the implicit space.
+		 */
+		public XVar( final DoubleElemFactory _fac , final DoubleElem _key )
+		{
+			super( _fac );
+			key = _key;
+		}
+
+		@Override
+		public DoubleElem eval( HashMap<? extends Elem<?, ?>, ? extends Elem<?, ?>> implicitSpace )
+				throws NotInvertibleException, MultiplicativeDistributionRequiredException {
+			return( (DoubleElem)( implicitSpace.get( key ) ) );
+		}
+
+		@Override
+		public DoubleElem evalCached( HashMap<? extends Elem<?, ?>, ? extends Elem<?, ?>> implicitSpace,
+				HashMap<SCacheKey<DoubleElem, DoubleElemFactory>, DoubleElem> cache )
+				throws NotInvertibleException, MultiplicativeDistributionRequiredException {
+			return( eval( implicitSpace ) );
+		}
+
+		@Override
+		public DoubleElem evalPartialDerivative( ArrayList<? extends Elem<?, ?>> withRespectTo,
+				HashMap<? extends Elem<?, ?>, ? extends Elem<?, ?>> implicitSpace )
+				throws NotInvertibleException, MultiplicativeDistributionRequiredException {
+			for( final Elem<?,?> ii : withRespectTo )
+			{
+				if( ii == key )
+				{
+					return( fac.identity() );
+				}
+			}
+			return( fac.zero() );
+		}
+
+		@Override
+		public DoubleElem evalPartialDerivativeCached( ArrayList<? extends Elem<?, ?>> withRespectTo,
+				HashMap<? extends Elem<?, ?>, ? extends Elem<?, ?>> implicitSpace,
+				HashMap<SCacheKey<DoubleElem, DoubleElemFactory>, DoubleElem> cache )
+				throws NotInvertibleException, MultiplicativeDistributionRequiredException {
+			return( evalPartialDerivative( withRespectTo , implicitSpace ) );
+		}
+
+		@Override
+		public String writeDesc( WriteElemCache<SymbolicElem<DoubleElem, DoubleElemFactory>, SymbolicElemFactory<DoubleElem, DoubleElemFactory>> cache,
+				PrintStream ps ) {
+			throw( new RuntimeException( "NotSupported" ) );
+		}
+
+	}
+
+
+
+	/**
+	 * The keys of the variables in the implicit space.
+	 */
+	protected final ArrayList<DoubleElem> keys = new ArrayList<DoubleElem>();
+
+	/**
+	 * The implicit space.
+	 */
+	protected final HashMap<DoubleElem,DoubleElem> implicitSpace = new HashMap<DoubleElem,DoubleElem>();
+
+
+
+	/**
+	 * Generates an expression DAG in which each interior node combines two randomly chosen earlier nodes, so that
+	 * subexpressions are shared in the same way as in the expressions generated by the tensor tests.
+	 * 
+	 * @return The root of the expression.
+	 */
+	protected SymbolicElem<DoubleElem,DoubleElemFactory> genExpr()
+	{
+		final DoubleElemFactory dl = new DoubleElemFactory();
+		final Random rand = new Random( 5555 );
+		final ArrayList<SymbolicElem<DoubleElem,DoubleElemFactory>> nodes = new ArrayList<SymbolicElem<DoubleElem,DoubleElemFactory>>();
+		final SymbolicElem<DoubleElem,DoubleElemFactory> half = new SymbolicReduction<DoubleElem,DoubleElemFactory>( new DoubleElem( 0.5 ) , dl );
+
+		keys.clear();
+		implicitSpace.clear();
+		for( int cnt = 0 ; cnt < NUM_VARS ; cnt++ )
+		{
+			final DoubleElem key = new DoubleElem( cnt );
+			keys.add( key );
+			implicitSpace.put( key , new DoubleElem( 0.5 + rand.nextDouble() ) );
+			nodes.add( new XVar( dl , key ) );
+		}
+
+		for( int cnt = 0 ; cnt < NUM_NODES ; cnt++ )
+		{
+			final SymbolicElem<DoubleElem,DoubleElemFactory> a = nodes.get( rand.nextInt( nodes.size() ) );
+			final SymbolicElem<DoubleElem,DoubleElemFactory> b = nodes.get( rand.nextInt( nodes.size() ) );
+			switch( rand.nextInt( 3 ) )
+			{
+				case 0:
+					nodes.add( a.add( b ).mult( half ) );
+					break;
+				case 1:
+					nodes.add( a.mult( b ) );
+					break;
+				default:
+					nodes.add( a.add( b.negate() ).mult( half ) );
+					break;
+			}
+		}
+
+		SymbolicElem<DoubleElem,DoubleElemFactory> ret = nodes.get( nodes.size() - 1 );
+		for( int cnt = 2 ; cnt <= 64 ; cnt++ )
+		{
+			ret = ret.add( nodes.get( nodes.size() - cnt ) );
+		}
+		return( ret );
+	}
+
+
+	/**
+	 * Verifies that the context-based evaluation matches the SCacheKey based evaluation.
+	 * 
+	 * @throws Throwable
+	 */
+	public void testEvalMatches() throws Throwable
+	{
+		final SymbolicElem<DoubleElem,DoubleElemFactory> expr = genExpr();
+
+		final DoubleElem legacy = expr.evalCached( implicitSpace , new HashMap<SCacheKey<DoubleElem,DoubleElemFactory>,DoubleElem>() );
+		final SEvalContext<DoubleElem,DoubleElemFactory> ctx = new SEvalContext<DoubleElem,DoubleElemFactory>( implicitSpace );
+		final DoubleElem nw = expr.evalCached( ctx );
+
+		Assert.assertEquals( legacy.getVal() , nw.getVal() , 1E-10 * Math.max( 1.0 , Math.abs( legacy.getVal() ) ) );
+		Assert.assertTrue( nw == expr.evalCached( ctx ) );
+	}
+
+
+	/**
+	 * Verifies that the context-based partial derivative matches the SCacheKey based partial derivative.
+	 * 
+	 * @throws Throwable
+	 */
+	public void testPartialDerivativeMatches() throws Throwable
+	{
+		final SymbolicElem<DoubleElem,DoubleElemFactory> expr = genExpr();
+
+		for( int cnt = 0 ; cnt < 4 ; cnt++ )
+		{
+			final ArrayList<DoubleElem> withRespectTo = new ArrayList<DoubleElem>();
+			withRespectTo.add( keys.get( cnt ) );
+
+			final DoubleElem legacy = expr.evalPartialDerivativeCached( withRespectTo , implicitSpace , new HashMap<SCacheKey<DoubleElem,DoubleElemFactory>,DoubleElem>() );
+			final SEvalContext<DoubleElem,DoubleElemFactory> ctx = new SEvalContext<DoubleElem,DoubleElemFactory>( withRespectTo , implicitSpace );
+			final DoubleElem nw = expr.evalPartialDerivativeCached( ctx );
+
+			Assert.assertEquals( legacy.getVal() , nw.getVal() , 1E-10 * Math.max( 1.0 , Math.abs( legacy.getVal() ) ) );
+		}
+	}
+
+
+	/**
+	 * Compares the time taken by the SCacheKey based evaluation with the time taken by the context-based evaluation.
+	 * 
+	 * @throws Throwable
+	 */
+	public void testBenchmark() throws Throwable
+	{
+		final SymbolicElem<DoubleElem,DoubleElemFactory> expr = genExpr();
+		final ArrayList<DoubleElem> withRespectTo = new ArrayList<DoubleElem>();
+		withRespectTo.add( keys.get( 0 ) );
+
+		double legacyVal = 0.0;
+		final long legacyStart = System.currentTimeMillis();
+		for( int cnt = 0 ; cnt < NUM_REPS ; cnt++ )
+		{
+			final HashMap<SCacheKey<DoubleElem,DoubleElemFactory>,DoubleElem> cache = new HashMap<SCacheKey<DoubleElem,DoubleElemFactory>,DoubleElem>();
+			legacyVal = expr.evalCached( implicitSpace , cache ).getVal() +
+					expr.evalPartialDerivativeCached( withRespectTo , implicitSpace , cache ).getVal();
+		}
+		final long legacyTime = System.currentTimeMillis() - legacyStart;
+
+		double ctxVal = 0.0;
+		final long ctxStart = System.currentTimeMillis();
+		for( int cnt = 0 ; cnt < NUM_REPS ; cnt++ )
+		{
+			final SEvalContext<DoubleElem,DoubleElemFactory> ctx = new SEvalContext<DoubleElem,DoubleElemFactory>( withRespectTo , implicitSpace );
+			ctxVal = expr.evalCached( ctx ).getVal() + expr.evalPartialDerivativeCached( ctx ).getVal();
+		}
+		final long ctxTime = System.currentTimeMillis() - ctxStart;
+
+		System.out.println( "SCacheKey Eval Time: " + legacyTime + " ms" );
+		System.out.println( "SEvalContext Eval Time: " + ctxTime + " ms" );
+
+		Assert.assertEquals( legacyVal , ctxVal , 1E-10 * Math.max( 1.0 , Math.abs( legacyVal ) ) );
+	}
+
+
+}
+
@@ -0,0 +1,191 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package test_simplealgebra;
+
+
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.hypergraphdb.HyperGraph;
+
+import simplealgebra.store.SegmentedCommitPolicy;
+import simplealgebra.store.SegmentedTransactionManager;
+import simplealgebra.store.TypeSystemInit;
+
+
+
+/**
+ * Tests the commit policies, counters, and per-thread and per-graph scoping of SegmentedTransactionManager.
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ *
+ */
+public class TestSegmentedTransactionManager extends TestCase {
+	
+	
+	/**
+	 * Tests that an ops-count policy segments the transaction after the configured number of writes.
+	 */
+	public void testOpsCountPolicy() throws Throwable
+	{
+		final HyperGraph graph = new HyperGraph( DatabasePathForTest.DATABASE_PATH + "mydbST1" );
+		TypeSystemInit.initType( graph );
+		final SegmentedTransactionManager mgr = SegmentedTransactionManager.get( graph );
+		mgr.setCommitPolicy( SegmentedCommitPolicy.opsCount( 10 ) );
+		
+		SegmentedTransactionManager.beginSegmentedTransaction( graph );
+		for( int count = 0 ; count < 95 ; count++ )
+		{
+			SegmentedTransactionManager.recordWrite( graph , 80 );
+		}
+		Assert.assertEquals( 9 , mgr.getCommits() );
+		SegmentedTransactionManager.commitSegmentedTransaction( graph );
+		
+		Assert.assertEquals( 10 , mgr.getCommits() );
+		Assert.assertEquals( 0 , mgr.getAborts() );
+		Assert.assertEquals( 9.5 , mgr.getMeanTransactionOps() , 1E-9 );
+		Assert.assertEquals( 760.0 , mgr.getMeanTransactionBytes() , 1E-9 );
+		
+		SegmentedTransactionManager.release( graph );
+		graph.close();
+	}
+	
+	
+	/**
+	 * Tests a combination of a bytes-written policy and an elapsed-time policy.
+	 */
+	public void testBytesAndElapsedTimePolicy() throws Throwable
+	{
+		final HyperGraph graph = new HyperGraph( DatabasePathForTest.DATABASE_PATH + "mydbST2" );
+		TypeSystemInit.initType( graph );
+		final SegmentedTransactionManager mgr = SegmentedTransactionManager.get( graph );
+		mgr.setCommitPolicy( SegmentedCommitPolicy.any( 
+				SegmentedCommitPolicy.bytesWritten( 1000 ) , SegmentedCommitPolicy.elapsedTime( 50 ) ) );
+		
+		mgr.begin();
+		for( int count = 0 ; count < 30 ; count++ )
+		{
+			mgr.recordWrite( 100 );
+		}
+		Assert.assertEquals( 3 , mgr.getCommits() );
+		
+		Thread.sleep( 100 );
+		mgr.recordWrite( 1 );
+		Assert.assertEquals( 4 , mgr.getCommits() );
+		mgr.commit();
+		
+		SegmentedTransactionManager.release( graph );
+		graph.close();
+	}
+	
+	
+	/**
+	 * Tests that the barrier policy only segments the transaction at explicit barriers, and tests aborts.
+	 */
+	public void testBarrierAndAbort() throws Throwable
+	{
+		final HyperGraph graph = new HyperGraph( DatabasePathForTest.DATABASE_PATH + "mydbST3" );
+		TypeSystemInit.initType( graph );
+		final SegmentedTransactionManager mgr = SegmentedTransactionManager.get( graph );
+		
+		mgr.begin();
+		for( int count = 0 ; count < 50 ; count++ )
+		{
+			mgr.recordWrite( 100 );
+		}
+		Assert.assertEquals( 0 , mgr.getCommits() );
+		SegmentedTransactionManager.barrier( graph );
+		Assert.assertEquals( 1 , mgr.getCommits() );
+		Assert.assertEquals( 50.0 , mgr.getMeanTransactionOps() , 1E-9 );
+		
+		mgr.recordWrite( 100 );
+		mgr.abort();
+		Assert.assertEquals( 1 , mgr.getAborts() );
+		Assert.assertFalse( mgr.isInSegmentedTransaction() );
+		
+		mgr.barrier();
+		Assert.assertEquals( 1 , mgr.getCommits() );
+		
+		SegmentedTransactionManager.release( graph );
+		graph.close();
+	}
+	
+	
+	/**
+	 * Tests that the transaction state of one graph on one thread is independent of other graphs and other threads.
+	 */
+	public void testIndependence() throws Throwable
+	{
+		final HyperGraph graphA = new HyperGraph( DatabasePathForTest.DATABASE_PATH + "mydbST4" );
+		final HyperGraph graphB = new HyperGraph( DatabasePathForTest.DATABASE_PATH + "mydbST5" );
+		TypeSystemInit.initType( graphA );
+		TypeSystemInit.initType( graphB );
+		
+		SegmentedTransactionManager.beginSegmentedTransaction( graphA );
+		final SegmentedTransactionManager mgrA = SegmentedTransactionManager.get( graphA );
+		final SegmentedTransactionManager mgrB = SegmentedTransactionManager.get( graphB );
+		Assert.assertTrue( mgrA.isInSegmentedTransaction() );
+		Assert.assertFalse( mgrB.isInSegmentedTransaction() );
+		
+		final SegmentedTransactionManager[] other = new SegmentedTransactionManager[ 1 ];
+		final Thread th = new Thread()
+		{
+			@Override
+			public void run()
+			{
+				other[ 0 ] = SegmentedTransactionManager.get( graphA );
+				SegmentedTransactionManager.suspendSegmentedTransaction( graphA );
+				SegmentedTransactionManager.restartSegmentedTransaction( graphA );
+			}
+		};
+		th.start();
+		th.join();
+		
+		Assert.assertNotSame( mgrA , other[ 0 ] );
+		Assert.assertFalse( other[ 0 ].isInSegmentedTransaction() );
+		Assert.assertEquals( 0 , other[ 0 ].getCommits() );
+		Assert.assertEquals( 0 , mgrA.getCommits() );
+		Assert.assertTrue( mgrA.isInSegmentedTransaction() );
+		
+		SegmentedTransactionManager.commitSegmentedTransaction( graphA );
+		Assert.assertEquals( 1 , mgrA.getCommits() );
+		Assert.assertEquals( 0 , mgrB.getCommits() );
+		
+		SegmentedTransactionManager.release( graphA );
+		SegmentedTransactionManager.release( graphB );
+		graphA.close();
+		graphB.close();
+	}
+	
+	
+}
+
+
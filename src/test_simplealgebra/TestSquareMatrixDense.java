@@ -0,0 +1,308 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package test_simplealgebra;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Random;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import simplealgebra.DoubleElem;
+import simplealgebra.DoubleElemFactory;
+import simplealgebra.NotInvertibleException;
+import simplealgebra.SquareMatrixElem;
+import simplealgebra.SquareMatrixElem.SquareMatrixStorage;
+import simplealgebra.SquareMatrixElemFactory;
+
+
+/**
+ * Tests that the dense storage mode of {@link SquareMatrixElem} produces the same results as the sparse storage mode.  Uses JUnit ( <A href="http://junit.org">http://junit.org</A> ).
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ *
+ */
+public class TestSquareMatrixDense extends TestCase {
+
+
+	/**
+	 * The tolerance for comparing dense and sparse results.
+	 */
+	private static final double TOL = 1E-8;
+
+
+	/**
+	 * Generates a random matrix of doubles.
+	 * 
+	 * @param rand The random number generator.
+	 * @param se The factory for the matrix.
+	 * @return The random matrix.
+	 */
+	protected SquareMatrixElem<TestDimensionFour,DoubleElem,DoubleElemFactory> generateMat( final Random rand ,
+			final SquareMatrixElemFactory<TestDimensionFour,DoubleElem,DoubleElemFactory> se )
+	{
+		final SquareMatrixElem<TestDimensionFour,DoubleElem,DoubleElemFactory> mat = se.zero();
+		for( int i = 0 ; i < TestDimensionFour.FOUR ; i++ )
+		{
+			for( int j = 0 ; j < TestDimensionFour.FOUR ; j++ )
+			{
+				mat.setVal( BigInteger.valueOf( i ) , BigInteger.valueOf( j ) , new DoubleElem( 2.0 * ( rand.nextDouble() ) - 1.0 ) );
+			}
+		}
+		return( mat );
+	}
+
+
+	/**
+	 * Copies a matrix into a matrix with a different storage mode.
+	 * 
+	 * @param in The matrix to be copied.
+	 * @param se The factory for the copy.
+	 * @return The copy.
+	 */
+	protected SquareMatrixElem<TestDimensionFour,DoubleElem,DoubleElemFactory> copyMat(
+			final SquareMatrixElem<TestDimensionFour,DoubleElem,DoubleElemFactory> in ,
+			final SquareMatrixElemFactory<TestDimensionFour,DoubleElem,DoubleElemFactory> se )
+	{
+		final SquareMatrixElem<TestDimensionFour,DoubleElem,DoubleElemFactory> mat = se.zero();
+		for( int i = 0 ; i < TestDimensionFour.FOUR ; i++ )
+		{
+			for( int j = 0 ; j < TestDimensionFour.FOUR ; j++ )
+			{
+				final BigInteger bi = BigInteger.valueOf( i );
+				final BigInteger bj = BigInteger.valueOf( j );
+				final DoubleElem val = in.get( bi , bj );
+				if( val != null )
+				{
+					mat.setVal( bi , bj , val );
+				}
+			}
+		}
+		return( mat );
+	}
+
+
+	/**
+	 * Verifies that two matrices of doubles are approximately equal.
+	 * 
+	 * @param a The first matrix.
+	 * @param b The second matrix.
+	 */
+	protected void assertMatClose( final SquareMatrixElem<TestDimensionFour,DoubleElem,DoubleElemFactory> a ,
+			final SquareMatrixElem<TestDimensionFour,DoubleElem,DoubleElemFactory> b )
+	{
+		for( int i = 0 ; i < TestDimensionFour.FOUR ; i++ )
+		{
+			for( int j = 0 ; j < TestDimensionFour.FOUR ; j++ )
+			{
+				final BigInteger bi = BigInteger.valueOf( i );
+				final BigInteger bj = BigInteger.valueOf( j );
+				final double va = a.getVal( bi , bj ).getVal();
+				final double vb = b.getVal( bi , bj ).getVal();
+				Assert.assertTrue( "Mismatch " + i + " " + j , Math.abs( va - vb ) < TOL );
+			}
+		}
+	}
+
+
+	/**
+	 * Multiplies two matrices with the nested elems in reverse order.
+	 * 
+	 * @param a The left-side matrix.
+	 * @param b The right-side matrix.
+	 * @return The product.
+	 * @throws NotInvertibleException
+	 */
+	protected SquareMatrixElem<TestDimensionFour,DoubleElem,DoubleElemFactory> multRevCoeff(
+			final SquareMatrixElem<TestDimensionFour,DoubleElem,DoubleElemFactory> a ,
+			final SquareMatrixElem<TestDimensionFour,DoubleElem,DoubleElemFactory> b ) throws NotInvertibleException
+	{
+		final ArrayList<SquareMatrixElem<TestDimensionFour,DoubleElem,DoubleElemFactory>> args = new ArrayList<SquareMatrixElem<TestDimensionFour,DoubleElem,DoubleElemFactory>>();
+		args.add( b );
+		return( a.handleOptionalOp( SquareMatrixElem.SquareMatrixCmd.MULT_REV_COEFF , args ) );
+	}
+
+
+	/**
+	 * Tests that dense multiplication matches sparse multiplication.
+	 * 
+	 * @throws NotInvertibleException
+	 */
+	public void testMult() throws NotInvertibleException
+	{
+		final SquareMatrixElemFactory<TestDimensionFour,DoubleElem,DoubleElemFactory> sparse =
+				new SquareMatrixElemFactory<TestDimensionFour,DoubleElem,DoubleElemFactory>( new DoubleElemFactory() , new TestDimensionFour() );
+		final SquareMatrixElemFactory<TestDimensionFour,DoubleElem,DoubleElemFactory> dense =
+				new SquareMatrixElemFactory<TestDimensionFour,DoubleElem,DoubleElemFactory>( new DoubleElemFactory() , new TestDimensionFour() , SquareMatrixStorage.DENSE );
+		final Random rand = new Random( 3344 );
+		for( int cnt = 0 ; cnt < 10 ; cnt++ )
+		{
+			final SquareMatrixElem<TestDimensionFour,DoubleElem,DoubleElemFactory> a = generateMat( rand , sparse );
+			final SquareMatrixElem<TestDimensionFour,DoubleElem,DoubleElemFactory> b = generateMat( rand , sparse );
+			final SquareMatrixElem<TestDimensionFour,DoubleElem,DoubleElemFactory> da = copyMat( a , dense );
+			final SquareMatrixElem<TestDimensionFour,DoubleElem,DoubleElemFactory> db = copyMat( b , dense );
+			final SquareMatrixElem<TestDimensionFour,DoubleElem,DoubleElemFactory> dc = da.mult( db );
+			Assert.assertEquals( SquareMatrixStorage.DENSE , dc.getStorage() );
+			assertMatClose( a.mult( b ) , dc );
+			assertMatClose( multRevCoeff( a , b ) , multRevCoeff( da , db ) );
+		}
+	}
+
+
+	/**
+	 * Tests that the dense representation is refreshed after the matrix is modified.
+	 */
+	public void testMutationAfterMult()
+	{
+		final SquareMatrixElemFactory<TestDimensionFour,DoubleElem,DoubleElemFactory> sparse =
+				new SquareMatrixElemFactory<TestDimensionFour,DoubleElem,DoubleElemFactory>( new DoubleElemFactory() , new TestDimensionFour() );
+		final SquareMatrixElemFactory<TestDimensionFour,DoubleElem,DoubleElemFactory> dense =
+				new SquareMatrixElemFactory<TestDimensionFour,DoubleElem,DoubleElemFactory>( new DoubleElemFactory() , new TestDimensionFour() , SquareMatrixStorage.DENSE );
+		final Random rand = new Random( 5566 );
+		final SquareMatrixElem<TestDimensionFour,DoubleElem,DoubleElemFactory> a = generateMat( rand , sparse );
+		final SquareMatrixElem<TestDimensionFour,DoubleElem,DoubleElemFactory> b = generateMat( rand , sparse );
+		final SquareMatrixElem<TestDimensionFour,DoubleElem,DoubleElemFactory> da = copyMat( a , dense );
+		final SquareMatrixElem<TestDimensionFour,DoubleElem,DoubleElemFactory> db = copyMat( b , dense );
+		da.mult( db );
+		a.setVal( BigInteger.ONE , BigInteger.ONE , new DoubleElem( 7.0 ) );
+		da.setVal( BigInteger.ONE , BigInteger.ONE , new DoubleElem( 7.0 ) );
+		b.remove( BigInteger.ZERO , BigInteger.valueOf( 2 ) );
+		db.remove( BigInteger.ZERO , BigInteger.valueOf( 2 ) );
+		assertMatClose( a.mult( b ) , da.mult( db ) );
+	}
+
+
+	/**
+	 * Tests that dense inverses and determinants match sparse inverses and determinants.
+	 * 
+	 * @throws NotInvertibleException
+	 */
+	public void testInvert() throws NotInvertibleException
+	{
+		final SquareMatrixElemFactory<TestDimensionFour,DoubleElem,DoubleElemFactory> sparse =
+				new SquareMatrixElemFactory<TestDimensionFour,DoubleElem,DoubleElemFactory>( new DoubleElemFactory() , new TestDimensionFour() );
+		final SquareMatrixElemFactory<TestDimensionFour,DoubleElem,DoubleElemFactory> dense =
+				new SquareMatrixElemFactory<TestDimensionFour,DoubleElem,DoubleElemFactory>( new DoubleElemFactory() , new TestDimensionFour() , SquareMatrixStorage.DENSE );
+		final Random rand = new Random( 7788 );
+		for( int cnt = 0 ; cnt < 10 ; cnt++ )
+		{
+			final SquareMatrixElem<TestDimensionFour,DoubleElem,DoubleElemFactory> a = generateMat( rand , sparse );
+			final SquareMatrixElem<TestDimensionFour,DoubleElem,DoubleElemFactory> da = copyMat( a , dense );
+			assertMatClose( a.invertLeft() , da.invertLeft() );
+			assertMatClose( a.invertRight() , da.invertRight() );
+			assertMatClose( dense.identity() , da.mult( da.invertRight() ) );
+			assertMatClose( dense.identity() , da.invertLeft().mult( da ) );
+			Assert.assertTrue( Math.abs( a.determinant().getVal() - da.determinant().getVal() ) < TOL );
+		}
+	}
+
+
+	/**
+	 * Tests that a dense singular matrix throws a NoPivotException and has a zero determinant.
+	 */
+	public void testSingular()
+	{
+		final SquareMatrixElemFactory<TestDimensionFour,DoubleElem,DoubleElemFactory> dense =
+				new SquareMatrixElemFactory<TestDimensionFour,DoubleElem,DoubleElemFactory>( new DoubleElemFactory() , new TestDimensionFour() , SquareMatrixStorage.DENSE );
+		final SquareMatrixElem<TestDimensionFour,DoubleElem,DoubleElemFactory> da = generateMat( new Random( 9900 ) , dense );
+		for( int j = 0 ; j < TestDimensionFour.FOUR ; j++ )
+		{
+			da.setVal( BigInteger.valueOf( 3 ) , BigInteger.valueOf( j ) , da.getVal( BigInteger.ZERO , BigInteger.valueOf( j ) ) );
+		}
+		Assert.assertEquals( 0.0 , da.determinant().getVal() , TOL );
+		try
+		{
+			da.invertLeft();
+			Assert.fail();
+		}
+		catch( NotInvertibleException ex )
+		{
+			Assert.assertTrue( ex instanceof SquareMatrixElem.NoPivotException );
+		}
+		try
+		{
+			da.invertRight();
+			Assert.fail();
+		}
+		catch( NotInvertibleException ex )
+		{
+			Assert.assertTrue( ex instanceof SquareMatrixElem.NoPivotException );
+		}
+	}
+
+
+	/**
+	 * Tests that the dense inverse of a matrix with matrix elements matches the sparse inverse.
+	 * 
+	 * @throws NotInvertibleException
+	 */
+	public void testNestedInvert() throws NotInvertibleException
+	{
+		final SquareMatrixElemFactory<TestDimensionFour,DoubleElem,DoubleElemFactory> se =
+				new SquareMatrixElemFactory<TestDimensionFour,DoubleElem,DoubleElemFactory>( new DoubleElemFactory() , new TestDimensionFour() );
+		final SquareMatrixElemFactory<TestDimensionFour,SquareMatrixElem<TestDimensionFour,DoubleElem,DoubleElemFactory>,
+			SquareMatrixElemFactory<TestDimensionFour,DoubleElem,DoubleElemFactory>> sparse =
+				new SquareMatrixElemFactory<TestDimensionFour,SquareMatrixElem<TestDimensionFour,DoubleElem,DoubleElemFactory>,
+					SquareMatrixElemFactory<TestDimensionFour,DoubleElem,DoubleElemFactory>>( se , new TestDimensionFour() );
+		final SquareMatrixElemFactory<TestDimensionFour,SquareMatrixElem<TestDimensionFour,DoubleElem,DoubleElemFactory>,
+			SquareMatrixElemFactory<TestDimensionFour,DoubleElem,DoubleElemFactory>> dense =
+				new SquareMatrixElemFactory<TestDimensionFour,SquareMatrixElem<TestDimensionFour,DoubleElem,DoubleElemFactory>,
+					SquareMatrixElemFactory<TestDimensionFour,DoubleElem,DoubleElemFactory>>( se , new TestDimensionFour() , SquareMatrixStorage.DENSE );
+		final Random rand = new Random( 1122 );
+		final SquareMatrixElem<TestDimensionFour,SquareMatrixElem<TestDimensionFour,DoubleElem,DoubleElemFactory>,
+			SquareMatrixElemFactory<TestDimensionFour,DoubleElem,DoubleElemFactory>> a = sparse.zero();
+		final SquareMatrixElem<TestDimensionFour,SquareMatrixElem<TestDimensionFour,DoubleElem,DoubleElemFactory>,
+			SquareMatrixElemFactory<TestDimensionFour,DoubleElem,DoubleElemFactory>> da = dense.zero();
+		for( int i = 0 ; i < TestDimensionFour.FOUR ; i++ )
+		{
+			for( int j = 0 ; j < TestDimensionFour.FOUR ; j++ )
+			{
+				final SquareMatrixElem<TestDimensionFour,DoubleElem,DoubleElemFactory> val = generateMat( rand , se );
+				a.setVal( BigInteger.valueOf( i ) , BigInteger.valueOf( j ) , val );
+				da.setVal( BigInteger.valueOf( i ) , BigInteger.valueOf( j ) , val );
+			}
+		}
+		final SquareMatrixElem<TestDimensionFour,SquareMatrixElem<TestDimensionFour,DoubleElem,DoubleElemFactory>,
+			SquareMatrixElemFactory<TestDimensionFour,DoubleElem,DoubleElemFactory>> inv = a.invertLeft();
+		final SquareMatrixElem<TestDimensionFour,SquareMatrixElem<TestDimensionFour,DoubleElem,DoubleElemFactory>,
+			SquareMatrixElemFactory<TestDimensionFour,DoubleElem,DoubleElemFactory>> dinv = da.invertLeft();
+		for( int i = 0 ; i < TestDimensionFour.FOUR ; i++ )
+		{
+			for( int j = 0 ; j < TestDimensionFour.FOUR ; j++ )
+			{
+				assertMatClose( inv.getVal( BigInteger.valueOf( i ) , BigInteger.valueOf( j ) ) ,
+						dinv.getVal( BigInteger.valueOf( i ) , BigInteger.valueOf( j ) ) );
+			}
+		}
+	}
+
+
+}
+
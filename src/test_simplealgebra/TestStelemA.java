@@ -365,6 +365,12 @@ public class TestStelemA extends TestCase {
 			return( col );
 		}
 		
+		@Override
+		public int symbolicHashCode()
+		{
+			return( hashCode() );
+		}
+		
 		/**
 		 * Returns the number of the ordinate.
 		 * 
@@ -716,6 +722,12 @@ public class TestStelemA extends TestCase {
 			}
 			return( sum );
 		}
+		
+		@Override
+		public int symbolicHashCode()
+		{
+			return( hashCode() );
+		}
 
 
 		
@@ -0,0 +1,240 @@
+
+
+
+
+
+
+//$$strtCprt
+/**
+* Simple Algebra 
+* 
+* Copyright (C) 2014 Thornton Green
+* 
+* This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as
+* published by the Free Software Foundation; either version 3 of the License, or (at your option) any later version.
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty 
+* of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with this program; if not, 
+* see <http://www.gnu.org/licenses>.
+* Additional permission under GNU GPL version 3 section 7
+*
+*/
+//$$endCprt
+
+
+
+
+
+package test_simplealgebra;
+
+import java.util.HashMap;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import simplealgebra.DoubleElem;
+import simplealgebra.DoubleElemFactory;
+import simplealgebra.Elem;
+import simplealgebra.symbolic.SymbolicElem;
+import simplealgebra.symbolic.SymbolicElemFactory;
+import simplealgebra.symbolic.SymbolicInterner;
+import simplealgebra.symbolic.SymbolicReduction;
+import simplealgebra.symbolic.SymbolicZero;
+
+
+/**
+ * Tests the hash-consing of symbolic expressions by SymbolicInterner.  Uses JUnit ( <A href="http://junit.org">http://junit.org</A> ).
+ * 
+ * This documentation should be viewed using Firefox version 33.1.1 or above.
+ * 
+ * @author thorngreen
+ *
+ */
+public class TestSymbolicInterner extends TestCase {
+
+
+	/**
+	 * Builds the expression ( x + y ) * ( x - y ) + x * x.
+	 * 
+	 * @param x The first leaf.
+	 * @param y The second leaf.
+	 * @return The expression.
+	 */
+	protected SymbolicElem<DoubleElem,DoubleElemFactory> genExpr( final SymbolicElem<DoubleElem,DoubleElemFactory> x ,
+			final SymbolicElem<DoubleElem,DoubleElemFactory> y )
+	{
+		return( ( x.add( y ) ).mult( x.add( y.negate() ) ).add( x.mult( x ) ) );
+	}
+
+
+	/**
+	 * Verifies that structurally equal expressions built separately intern to the identical instance.
+	 * 
+	 * @throws Throwable
+	 */
+	public void testDuplicateTrees() throws Throwable
+	{
+		final DoubleElemFactory dl = new DoubleElemFactory();
+		final SymbolicElemFactory<DoubleElem,DoubleElemFactory> se = new SymbolicElemFactory<DoubleElem,DoubleElemFactory>( dl );
+		final SymbolicInterner<DoubleElem,DoubleElemFactory> in = se.createInterner();
+
+		final SymbolicElem<DoubleElem,DoubleElemFactory> x = new SymbolicReduction<DoubleElem,DoubleElemFactory>( new DoubleElem( 3.0 ) , dl );
+		final SymbolicElem<DoubleElem,DoubleElemFactory> y = new SymbolicReduction<DoubleElem,DoubleElemFactory>( new DoubleElem( 5.0 ) , dl );
+
+		final SymbolicElem<DoubleElem,DoubleElemFactory> a = genExpr( x , y );
+		final SymbolicElem<DoubleElem,DoubleElemFactory> b = genExpr( x , y );
+		Assert.assertTrue( a != b );
+
+		final SymbolicElem<DoubleElem,DoubleElemFactory> ia = in.intern( a );
+		final SymbolicElem<DoubleElem,DoubleElemFactory> ib = in.intern( b );
+		Assert.assertTrue( ia == ib );
+		Assert.assertTrue( in.isCanonical( ia ) );
+		Assert.assertTrue( in.intern( ia ) == ia );
+		Assert.assertEquals( in.getStructuralHash( ia ) , in.getStructuralHash( ib ) );
+
+		final HashMap<Elem<?,?>,Elem<?,?>> implicitSpace = new HashMap<Elem<?,?>,Elem<?,?>>();
+		Assert.assertEquals( a.eval( implicitSpace ).getVal() , ia.eval( implicitSpace ).getVal() , 1E-12 );
+		Assert.assertEquals( -7.0 , ia.eval( implicitSpace ).getVal() , 1E-12 );
+	}
+
+
+	/**
+	 * Verifies that shared subexpressions are stored once.  The leaves x and y, the sum x + y,
+	 * the negation -y, the difference x - y, the two products, and the final sum give eight canonical instances.
+	 * 
+	 * @throws Throwable
+	 */
+	public void testSharing() throws Throwable
+	{
+		final DoubleElemFactory dl = new DoubleElemFactory();
+		final SymbolicElemFactory<DoubleElem,DoubleElemFactory> se = new SymbolicElemFactory<DoubleElem,DoubleElemFactory>( dl );
+		final SymbolicInterner<DoubleElem,DoubleElemFactory> in = se.createInterner();
+
+		final SymbolicElem<DoubleElem,DoubleElemFactory> x = new SymbolicReduction<DoubleElem,DoubleElemFactory>( new DoubleElem( 3.0 ) , dl );
+		final SymbolicElem<DoubleElem,DoubleElemFactory> y = new SymbolicReduction<DoubleElem,DoubleElemFactory>( new DoubleElem( 5.0 ) , dl );
+
+		in.intern( genExpr( x , y ) );
+		Assert.assertEquals( 8 , in.size() );
+
+		in.intern( genExpr( x , y ) );
+		Assert.assertEquals( 8 , in.size() );
+
+		in.clear();
+		Assert.assertEquals( 0 , in.size() );
+	}
+
+
+	/**
+	 * Verifies that sums differing only in the order of their arguments are merged, and that the helper operations return canonical instances.
+	 * 
+	 * @throws Throwable
+	 */
+	public void testCommutedSum() throws Throwable
+	{
+		final DoubleElemFactory dl = new DoubleElemFactory();
+		final SymbolicElemFactory<DoubleElem,DoubleElemFactory> se = new SymbolicElemFactory<DoubleElem,DoubleElemFactory>( dl );
+		final SymbolicInterner<DoubleElem,DoubleElemFactory> in = se.createInterner();
+
+		final SymbolicElem<DoubleElem,DoubleElemFactory> x = new SymbolicReduction<DoubleElem,DoubleElemFactory>( new DoubleElem( 3.0 ) , dl );
+		final SymbolicElem<DoubleElem,DoubleElemFactory> y = new SymbolicReduction<DoubleElem,DoubleElemFactory>( new DoubleElem( 5.0 ) , dl );
+
+		final SymbolicElem<DoubleElem,DoubleElemFactory> xy = in.add( x , y );
+		final SymbolicElem<DoubleElem,DoubleElemFactory> yx = in.add( y , x );
+		Assert.assertTrue( xy == yx );
+
+		final SymbolicElem<DoubleElem,DoubleElemFactory> m0 = in.mult( x , y );
+		final SymbolicElem<DoubleElem,DoubleElemFactory> m1 = in.mult( y , x );
+		Assert.assertTrue( m0 == m1 );
+
+		final SymbolicElem<DoubleElem,DoubleElemFactory> n0 = in.negate( xy );
+		final SymbolicElem<DoubleElem,DoubleElemFactory> n1 = in.intern( y.add( x ).negate() );
+		Assert.assertTrue( n0 == n1 );
+		Assert.assertTrue( n0 != xy );
+	}
+
+
+	/**
+	 * Verifies that separately constructed symbolic zeros are merged, while distinct reductions are not.
+	 * 
+	 * @throws Throwable
+	 */
+	public void testLeaves() throws Throwable
+	{
+		final DoubleElemFactory dl = new DoubleElemFactory();
+		final SymbolicElemFactory<DoubleElem,DoubleElemFactory> se = new SymbolicElemFactory<DoubleElem,DoubleElemFactory>( dl );
+		final SymbolicInterner<DoubleElem,DoubleElemFactory> in = se.createInterner();
+
+		final SymbolicElem<DoubleElem,DoubleElemFactory> z0 = in.intern( new SymbolicZero<DoubleElem,DoubleElemFactory>( dl ) );
+		final SymbolicElem<DoubleElem,DoubleElemFactory> z1 = in.intern( new SymbolicZero<DoubleElem,DoubleElemFactory>( dl ) );
+		Assert.assertTrue( z0 == z1 );
+
+		final SymbolicElem<DoubleElem,DoubleElemFactory> r0 = in.intern( new SymbolicReduction<DoubleElem,DoubleElemFactory>( new DoubleElem( 3.0 ) , dl ) );
+		final SymbolicElem<DoubleElem,DoubleElemFactory> r1 = in.intern( new SymbolicReduction<DoubleElem,DoubleElemFactory>( new DoubleElem( 3.0 ) , dl ) );
+		Assert.assertTrue( r0 != r1 );
+		Assert.assertEquals( 3 , in.size() );
+	}
+
+
+	/**
+	 * Verifies that many distinct leaves of the same class are spread across the table rather than sharing one bucket,
+	 * and that reductions enclosing the same symbolic elem are still merged.
+	 * 
+	 * @throws Throwable
+	 */
+	public void testLeafBuckets() throws Throwable
+	{
+		final int numLeaves = 10000;
+		final DoubleElemFactory dl = new DoubleElemFactory();
+		final SymbolicElemFactory<DoubleElem,DoubleElemFactory> se = new SymbolicElemFactory<DoubleElem,DoubleElemFactory>( dl );
+		final SymbolicInterner<DoubleElem,DoubleElemFactory> in = se.createInterner();
+		final SymbolicInterner<SymbolicElem<DoubleElem,DoubleElemFactory>,SymbolicElemFactory<DoubleElem,DoubleElemFactory>> in2 =
+				new SymbolicInterner<SymbolicElem<DoubleElem,DoubleElemFactory>,SymbolicElemFactory<DoubleElem,DoubleElemFactory>>( se );
+		final SymbolicElem<DoubleElem,DoubleElemFactory> y = new SymbolicReduction<DoubleElem,DoubleElemFactory>( new DoubleElem( 5.0 ) , dl );
+
+		for( int cnt = 0 ; cnt < numLeaves ; cnt++ )
+		{
+			final SymbolicElem<DoubleElem,DoubleElemFactory> x = new SymbolicReduction<DoubleElem,DoubleElemFactory>( new DoubleElem( cnt ) , dl );
+			in.intern( x );
+
+			final SymbolicElem<DoubleElem,DoubleElemFactory> inner = x.mult( y ).add( y );
+			final SymbolicElem<SymbolicElem<DoubleElem,DoubleElemFactory>,SymbolicElemFactory<DoubleElem,DoubleElemFactory>> r0 =
+					new SymbolicReduction<SymbolicElem<DoubleElem,DoubleElemFactory>,SymbolicElemFactory<DoubleElem,DoubleElemFactory>>( inner , se );
+			final SymbolicElem<SymbolicElem<DoubleElem,DoubleElemFactory>,SymbolicElemFactory<DoubleElem,DoubleElemFactory>> r1 =
+					new SymbolicReduction<SymbolicElem<DoubleElem,DoubleElemFactory>,SymbolicElemFactory<DoubleElem,DoubleElemFactory>>( inner , se );
+			Assert.assertTrue( in2.intern( r0 ) == in2.intern( r1 ) );
+		}
+
+		Assert.assertEquals( numLeaves , in.size() );
+		Assert.assertEquals( numLeaves , in2.size() );
+		Assert.assertTrue( in.getMaxBucketSize() <= 4 );
+		Assert.assertTrue( in2.getMaxBucketSize() <= 4 );
+	}
+
+	/**
+	 * Verifies that leaves identified by their content are hashed with <code>symbolicHashCode()</code>,
+	 * so that many distinct variables of the same class are spread across the table, and that variables
+	 * with the same key are still merged.
+	 * 
+	 * @throws Throwable
+	 */
+	public void testContentLeafBuckets() throws Throwable
+	{
+		final int numLeaves = 10000;
+		final DoubleElemFactory dl = new DoubleElemFactory();
+		final SymbolicElemFactory<DoubleElem,DoubleElemFactory> se = new SymbolicElemFactory<DoubleElem,DoubleElemFactory>( dl );
+		final SymbolicInterner<DoubleElem,DoubleElemFactory> in = se.createInterner();
+
+		for( int cnt = 0 ; cnt < numLeaves ; cnt++ )
+		{
+			final DoubleElem key = new DoubleElem( cnt );
+			final SymbolicElem<DoubleElem,DoubleElemFactory> x0 = in.intern( new TestNativeDistributeSimplify2.XVar( dl , key ) );
+			final SymbolicElem<DoubleElem,DoubleElemFactory> x1 = in.intern( new TestNativeDistributeSimplify2.XVar( dl , key ) );
+			Assert.assertTrue( x0 == x1 );
+		}
+
+		Assert.assertEquals( numLeaves , in.size() );
+		Assert.assertTrue( in.getMaxBucketSize() <= 4 );
+	}
+
+
+}
+
@@ -363,6 +363,12 @@ public class TestVelA extends TestCase {
 			return( col );
 		}
 		
+		@Override
+		public int symbolicHashCode()
+		{
+			return( hashCode() );
+		}
+		
 		/**
 		 * Returns the number of the ordinate.
 		 * 
@@ -573,6 +579,12 @@ public class TestVelA extends TestCase {
 			}
 			return( sum );
 		}
+		
+		@Override
+		public int symbolicHashCode()
+		{
+			return( hashCode() );
+		}
 
 
 		